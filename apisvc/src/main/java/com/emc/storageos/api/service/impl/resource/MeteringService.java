@@ -7,8 +7,11 @@ package com.emc.storageos.api.service.impl.resource;
 import java.io.BufferedOutputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -21,9 +24,14 @@ import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emc.storageos.api.service.impl.resource.utils.DbStatRollupRetriever;
 import com.emc.storageos.api.service.impl.resource.utils.StatRetriever;
 import com.emc.storageos.db.client.TimeSeriesMetadata;
 import com.emc.storageos.db.client.TimeSeriesMetadata.TimeBucket;
+import com.emc.storageos.db.client.model.StatRollup.GroupType;
+import com.emc.storageos.db.client.model.StatRollup.Granularity;
+import com.emc.storageos.db.client.model.StatRollup.Metric;
+import com.emc.storageos.model.metering.StatRollupList;
 import com.emc.storageos.security.authorization.CheckPermission;
 import com.emc.storageos.security.authorization.Role;
 import com.emc.storageos.svcs.errorhandling.resources.APIException;
@@ -32,6 +40,7 @@ import com.emc.storageos.svcs.errorhandling.resources.APIException;
 public class MeteringService extends ResourceService {
 
     private StatRetriever _statRetriever;
+    private DbStatRollupRetriever _statRollupRetriever;
 
     final private Logger _logger = LoggerFactory.getLogger(MeteringService.class);
     /**
@@ -41,6 +50,9 @@ public class MeteringService extends ResourceService {
     public static final String HOUR_BUCKET_TIME_FORMAT = "yyyy-MM-dd'T'HH";
     public static final String MINUTE_BUCKET_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm";
 
+    // maximum number of buckets aggregated by a rollup query
+    public static final int MAX_ROLLUP_BUCKETS = 24 * 92;
+
     public static final String BAD_TIMEBUCKET_MSG = "Error: time_bucket parameter format supplied is not valid.\n"
             + "Acceptable formats: yyyy-MM-dd'T'HH , yyyy-MM-dd'T'HH:mm";
 
@@ -52,6 +64,14 @@ public class MeteringService extends ResourceService {
         this._statRetriever = _statRetriever;
     }
 
+    public DbStatRollupRetriever getStatRollupRetriever() {
+        return _statRollupRetriever;
+    }
+
+    public void setStatRollupRetriever(DbStatRollupRetriever statRollupRetriever) {
+        _statRollupRetriever = statRollupRetriever;
+    }
+
     /**
      * Retrieves the bulk metering stats for all resources in a specified time bucket (minute or hour).
      * 
@@ -113,6 +133,89 @@ public class MeteringService extends ResourceService {
                 mediaType).build();
     }
 
+    /**
+     * Aggregates the metering stats of resources, projects or tenants over a time range. The stats
+     * are read from their hourly, daily or monthly rollups rather than from the raw stats.
+     * 
+     * @param granularity Granularity of the rollups: HOUR, DAY or MONTH
+     * @param startTimeStr Start of the time range, in yyyy-MM-dd'T'HH format
+     * @param endTimeStr End of the time range, in yyyy-MM-dd'T'HH format. The bucket containing it is included.
+     * @param groupBy Type of the groups to aggregate the stats by: RESOURCE, PROJECT or TENANT
+     * @param ids Ids of the groups to aggregate the stats of, all the groups of the type if not specified
+     * @param metricNames Names of the metrics to aggregate, such as provisioned_capacity, all the metrics if not specified
+     * @brief List aggregated metering statistics for time range
+     * @return Sum, average and maximum of the metrics per group
+     */
+    @GET
+    @Path("/rollups")
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    @CheckPermission(roles = { Role.SYSTEM_MONITOR, Role.SYSTEM_ADMIN })
+    public StatRollupList getStatRollups(
+            @QueryParam("granularity") @DefaultValue("DAY") final String granularity,
+            @QueryParam("start") final String startTimeStr,
+            @QueryParam("end") final String endTimeStr,
+            @QueryParam("group_by") @DefaultValue("TENANT") final String groupBy,
+            @QueryParam("id") final List<URI> ids,
+            @QueryParam("metric") final List<String> metricNames) {
+
+        _logger.debug("getStatRollups: granularity: {}, start: {}, end: {}, group_by: {}",
+                granularity, startTimeStr, endTimeStr, groupBy);
+        if (_statRollupRetriever == null) {
+            throw APIException.internalServerErrors.noMeteringStats();
+        }
+
+        Granularity rollupGranularity = parseEnum(Granularity.class, "granularity", granularity);
+        GroupType groupType = parseEnum(GroupType.class, "group_by", groupBy);
+        List<Metric> metrics = new ArrayList<Metric>();
+        if (metricNames != null) {
+            for (String name : metricNames) {
+                Metric metric = Metric.fromName(name);
+                if (metric == null) {
+                    throw APIException.badRequests.invalidParameter("metric", name);
+                }
+                metrics.add(metric);
+            }
+        }
+
+        DateTimeFormatter dfHourFormat = DateTimeFormat.forPattern(
+                HOUR_BUCKET_TIME_FORMAT).withZoneUTC();
+        DateTime startTime = parseHour(dfHourFormat, startTimeStr);
+        DateTime endTime = parseHour(dfHourFormat, endTimeStr);
+        if (endTime.isBefore(startTime)) {
+            throw APIException.badRequests.endTimeBeforeStartTime(startTime.toString(), endTime.toString());
+        }
+        long buckets = 0;
+        for (long bucket = rollupGranularity.getBucketStart(startTime.getMillis()); bucket <= endTime.getMillis(); bucket = rollupGranularity
+                .getNextBucketStart(bucket)) {
+            if (++buckets > MAX_ROLLUP_BUCKETS) {
+                throw APIException.badRequests.invalidParameterAboveMaximum("end", buckets, MAX_ROLLUP_BUCKETS,
+                        " " + rollupGranularity.name().toLowerCase() + " buckets");
+            }
+        }
+
+        return _statRollupRetriever.getRollups(rollupGranularity, groupType, ids, startTime, endTime, metrics);
+    }
+
+    private DateTime parseHour(DateTimeFormatter format, String timeStr) {
+        // we reduce the length by 2 here to account for single quote in yyyy-MM-dd'T'HH format
+        if (timeStr == null || timeStr.length() != HOUR_BUCKET_TIME_FORMAT.length() - 2) {
+            throw APIException.badRequests.invalidDate(timeStr, HOUR_BUCKET_TIME_FORMAT);
+        }
+        try {
+            return format.parseDateTime(timeStr);
+        } catch (final IllegalArgumentException e) {
+            throw APIException.badRequests.invalidTimeBucket(timeStr, e);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumClass, String parameterName, String value) {
+        try {
+            return Enum.valueOf(enumClass, value.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw APIException.badRequests.invalidParameter(parameterName, value);
+        }
+    }
+
     /**
      * Retrieves the bulk metering statistics for the given query params.
      * 
@@ -205,6 +205,7 @@ public class ProjectService extends TaggedResource {
         }
 
         _dbClient.updateAndReindexObject(project);
+        _permissionsHelper.notifyPermissionsChange();
 
         recordOperation(OperationTypeEnum.UPDATE_PROJECT, true, project);
         return Response.ok().build();
@@ -627,6 +628,7 @@ public class ProjectService extends TaggedResource {
         TenantOrg tenant = _permissionsHelper.getObjectById(project.getTenantOrg().getURI(), TenantOrg.class);
         _permissionsHelper.updateACLs(project, changes, new ProjectACLFilter(tenant));
         _dbClient.updateAndReindexObject(project);
+        _permissionsHelper.notifyPermissionsChange();
 
         recordProjectEvent(project, OperationTypeEnum.MODIFY_PROJECT_ACL, true);
 
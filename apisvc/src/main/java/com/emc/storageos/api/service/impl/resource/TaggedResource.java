@@ -18,6 +18,7 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
 
@@ -29,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.emc.storageos.api.service.authorization.PermissionsHelper;
+import com.emc.storageos.api.service.impl.response.ContinuationToken;
 import com.emc.storageos.api.service.impl.response.FilterIterator;
 import com.emc.storageos.api.service.impl.response.ResRepFilter;
 import com.emc.storageos.api.service.impl.response.SearchedResRepList;
@@ -60,6 +62,7 @@ public abstract class TaggedResource extends ResourceService {
     private static Logger _log = LoggerFactory.getLogger(TaggedResource.class);
 
     private static final int DEFAULT_MAX_BULK_SIZE = 4000;
+    private static final String MAX_COUNT_PARAM = "max_count";
     private int _maxBulkSize = DEFAULT_MAX_BULK_SIZE;
 
     /**
@@ -470,17 +473,27 @@ public abstract class TaggedResource extends ResourceService {
      * 
      * @prereq none
      * 
-     * @return list of ids.
+     * @param maxCount maximum number of ids to return, all the ids are returned if not set
+     * @param continuation token returned with the previous ids, to get the next ids
+     * @return list of ids, with a continuation token if maxCount was set and more ids may remain.
      */
     @GET
     @Path("/bulk")
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-    public BulkIdParam getBulkIds() {
+    public BulkIdParam getBulkIds(@QueryParam(MAX_COUNT_PARAM) Integer maxCount,
+            @QueryParam(ContinuationToken.CONTINUATION_PARAM) String continuation) {
         StorageOSUser user = getUserFromContext();
         if (_permissionsHelper.userHasGivenRole(user, null, Role.SYSTEM_MONITOR) ||
                 ((isZoneLevelResource() || isSysAdminReadableResource()) &&
                 _permissionsHelper.userHasGivenRole(user, null, Role.SYSTEM_ADMIN))) {
-            return queryBulkIds();
+            ContinuationToken token = ContinuationToken.decode(continuation);
+            if (maxCount == null || maxCount <= 0) {
+                if (token != null) {
+                    throw APIException.badRequests.invalidParameter(MAX_COUNT_PARAM, String.valueOf(maxCount));
+                }
+                return queryBulkIds();
+            }
+            return queryBulkIds(token == null ? null : token.getId(), maxCount);
         }
 
         throw APIException.forbidden.insufficientPermissionsForUser(user.getName());
@@ -498,6 +511,22 @@ public abstract class TaggedResource extends ResourceService {
         return ret;
     }
 
+    /**
+     * Retrieve one page of resource ids, in the order of the ids. Only the ids of the page are read.
+     * 
+     * @param startId the ids after this one are returned, the first ids if null
+     * @param maxCount maximum number of ids to return
+     * @return the ids, with a continuation token if more ids may remain
+     */
+    protected BulkIdParam queryBulkIds(URI startId, int maxCount) {
+        BulkIdParam ret = new BulkIdParam();
+        ret.setIds(_dbClient.queryByType(getResourceClass(), true, startId, maxCount));
+        if (ret.getIds().size() >= maxCount) {
+            ret.setContinuation(new ContinuationToken(ret.getIds().get(ret.getIds().size() - 1)).encode());
+        }
+        return ret;
+    }
+
     /**
      * @brief List data of specified resources
      *        Retrieve resource representations based on input ids.
@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 
 import javax.ws.rs.Consumes;
@@ -36,6 +37,7 @@ import com.emc.storageos.api.mapper.TaskMapper;
 import com.emc.storageos.api.mapper.functions.MapTask;
 import com.emc.storageos.api.service.authorization.PermissionsHelper;
 import com.emc.storageos.api.service.impl.response.BulkList;
+import com.emc.storageos.api.service.impl.response.ContinuationToken;
 import com.emc.storageos.api.service.impl.response.ResRepFilter;
 import com.emc.storageos.api.service.impl.response.RestLinkFactory;
 import com.emc.storageos.db.client.TimestampedURIQueryResult;
@@ -91,6 +93,7 @@ public class TaskService extends TaggedResource {
     private static final String START_TIME = "startTime";
     private static final String END_TIME = "endTime";
     private static final String STATE_PARAM = "state";
+    private static final String PAGED_PARAM = "paged";
     private static final int MAX_TASK_NUM_IN_MEM = 10000;
 
     /**
@@ -188,6 +191,14 @@ public class TaskService extends TaggedResource {
      *            Tenant URI of the tenant the count is required for. If not supplied, the logged in users tenant will
      *            be used.
      *            A value of 'system' will provide a list of all the system tasks
+     * @param max_count
+     *            Maximum number of tasks to return. When set to at most 10000, the latest tasks are returned.
+     * @param paged
+     *            When true, returns one page of max_count tasks (at most 10000) in the order of the tenant and
+     *            task ids, with a continuation token if more tasks may remain.
+     * @param continuation
+     *            Token returned with the previous page, to get the next page. Must be used with the same tenant,
+     *            time window and max_count.
      * @return A list of tasks for the tenant
      */
     @GET
@@ -195,11 +206,19 @@ public class TaskService extends TaggedResource {
     public TasksList getTasks(@QueryParam(TENANT_QUERY_PARAM) URI tenantId,
             @QueryParam(START_TIME) String startTime,
             @QueryParam(END_TIME) String endTime,
-            @QueryParam(MAX_COUNT_PARAM) Integer max_count) {
+            @QueryParam(MAX_COUNT_PARAM) Integer max_count,
+            @QueryParam(PAGED_PARAM) boolean paged,
+            @QueryParam(ContinuationToken.CONTINUATION_PARAM) String continuation) {
 
         Set<URI> tenantIds = getTenantsFromRequest(tenantId);
         verifyUserHasAccessToTenants(tenantIds);
 
+        if (paged || continuation != null) {
+            if (max_count == null || max_count <= 0 || max_count > MAX_TASK_NUM_IN_MEM) {
+                throw APIException.badRequests.invalidParameter(MAX_COUNT_PARAM, String.valueOf(max_count));
+            }
+            return getTasksPage(tenantIds, startTime, endTime, max_count, ContinuationToken.decode(continuation));
+        }
         if (max_count == null || max_count < 0 || max_count > MAX_TASK_NUM_IN_MEM) {
             return getAllTasks(tenantIds, startTime, endTime, max_count);
         } else {
@@ -262,6 +281,56 @@ public class TaskService extends TaggedResource {
         return new TasksList(resourceReps);
     }    
 
+    /**
+     * Returns one page of tasks, in the order of the tenant and task ids. The page is read from the
+     * index entry following the task of the continuation, so the server only reads the tasks of the page.
+     */
+    TasksList getTasksPage(Set<URI> tenantIds, String startTime, String endTime, int maxCount,
+            ContinuationToken continuation) {
+        if (continuation != null && continuation.getParentId() == null) {
+            throw APIException.badRequests.invalidParameter(ContinuationToken.CONTINUATION_PARAM, continuation.encode());
+        }
+
+        Date startWindowDate = TimeUtils.getDateTimestamp(startTime);
+        Date endWindowDate = TimeUtils.getDateTimestamp(endTime);
+
+        List<NamedRelatedResourceRep> resourceReps = Lists.newArrayList();
+        URI lastTenantId = null;
+        URI lastTaskId = null;
+        for (URI normalizedTenantId : new TreeSet<URI>(tenantIds)) {
+            URI startId = null;
+            if (continuation != null) {
+                int order = normalizedTenantId.compareTo(continuation.getParentId());
+                if (order < 0) {
+                    continue; // returned with the previous pages
+                } else if (order == 0) {
+                    startId = continuation.getId();
+                }
+            }
+
+            TimestampedURIQueryResult taskIds = new TimestampedURIQueryResult();
+            _dbClient.queryByConstraint(
+                    ContainmentConstraint.Factory.getTimedTenantOrgTaskConstraint(normalizedTenantId, startWindowDate, endWindowDate),
+                    taskIds, startId, maxCount - resourceReps.size());
+
+            for (TimestampedURIQueryResult.TimestampedURI uri : taskIds) {
+                RestLinkRep link = new RestLinkRep("self", RestLinkFactory.newLink(ResourceTypeEnum.TASK, uri.getUri()));
+                resourceReps.add(new NamedRelatedResourceRep(uri.getUri(), link, uri.getName()));
+                lastTenantId = normalizedTenantId;
+                lastTaskId = uri.getUri();
+            }
+            if (resourceReps.size() >= maxCount) {
+                break;
+            }
+        }
+
+        TasksList tasks = new TasksList(resourceReps);
+        if (resourceReps.size() >= maxCount) {
+            tasks.setContinuation(new ContinuationToken(lastTenantId, lastTaskId).encode());
+        }
+        return tasks;
+    }
+
     private class TaskComparator implements Comparator<TimestampedURIQueryResult.TimestampedURI> {
         @Override
         /**
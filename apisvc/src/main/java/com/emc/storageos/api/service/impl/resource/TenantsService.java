@@ -449,6 +449,7 @@ public class TenantsService extends TaggedResource {
             _dbClient.updateObject(oldNamesp);
         }
         _dbClient.updateAndReindexObject(tenant);
+        _permissionsHelper.notifyPermissionsChange();
 
         recordOperation(OperationTypeEnum.UPDATE_TENANT, tenant.getId(), tenant);
         return map(getTenantById(id, false));
@@ -657,6 +658,7 @@ public class TenantsService extends TaggedResource {
         _permissionsHelper.updateRoleAssignments(tenant, changes,
                 new TenantRoleInputFilter(tenant));
         _dbClient.updateAndReindexObject(tenant);
+        _permissionsHelper.notifyPermissionsChange();
 
         recordTenantEvent(OperationTypeEnum.MODIFY_TENANT_ROLES, tenant.getId(),
                 tenant.getId());
@@ -134,6 +134,7 @@ public class UserGroupService extends TaggedResource {
         checkForOverlappingUserGroup(userGroup);
 
         _dbClient.createObject(userGroup);
+        _permissionsHelper.notifyPermissionsChange();
 
         auditOp(OperationTypeEnum.CREATE_USERGROUP, true, null,
                 userGroup.toString(), userGroup.getId().toString());
@@ -174,6 +175,7 @@ public class UserGroupService extends TaggedResource {
         checkForOverlappingUserGroup(userGroup);
 
         _dbClient.persistObject(userGroup);
+        _permissionsHelper.notifyPermissionsChange();
 
         auditOp(OperationTypeEnum.UPDATE_USERGROUP, true, null,
                 userGroup.toString(), userGroup.getId().toString());
@@ -252,6 +254,7 @@ public class UserGroupService extends TaggedResource {
         checkForActiveUsageOfUserGroup(userGroup.getDomain(), userGroup.getLabel());
 
         _dbClient.removeObject(userGroup);
+        _permissionsHelper.notifyPermissionsChange();
 
         auditOp(OperationTypeEnum.DELETE_USERGROUP, true, null,
                 userGroup.getId().toString());
@@ -1284,6 +1284,14 @@ public abstract class VirtualPoolService extends TaggedResource {
         return ret;
     }
 
+    /**
+     * The ids are filtered by virtual pool type, there are few virtual pools so they are all returned
+     */
+    @Override
+    protected BulkIdParam queryBulkIds(URI startId, int maxCount) {
+        return queryBulkIds();
+    }
+
     protected abstract Type getVirtualPoolType();
 
     /**
@@ -249,15 +249,21 @@ public abstract class BlockIngestOrchestrator {
     /**
      * validate Storage Pool in VArray
      *
+     * @param requestContext the IngestionRequestContext, which caches the StoragePools of the request
      * @param unManagedVolume
      * @param virtualArray
      * @return
      */
-    protected StoragePool validateAndReturnStoragePoolInVAarray(UnManagedVolume unManagedVolume, VirtualArray virtualArray) {
+    protected StoragePool validateAndReturnStoragePoolInVAarray(IngestionRequestContext requestContext,
+            UnManagedVolume unManagedVolume, VirtualArray virtualArray) {
         URI storagePoolUri = unManagedVolume.getStoragePoolUri();
         StoragePool pool = null;
         if (null != storagePoolUri) {
-            pool = _dbClient.queryObject(StoragePool.class, storagePoolUri);
+            pool = requestContext.getStoragePoolCache().get(storagePoolUri.toString());
+            if (null == pool) {
+                pool = _dbClient.queryObject(StoragePool.class, storagePoolUri);
+                requestContext.getStoragePoolCache().put(storagePoolUri.toString(), pool);
+            }
             if (null == pool.getTaggedVirtualArrays() || !pool.getTaggedVirtualArrays().contains(virtualArray.getId().toString())) {
                 _logger.warn(String.format(UnManagedVolumeService.UNMATCHED_VARRAYS, new Object[] { unManagedVolume.getId() }));
             }
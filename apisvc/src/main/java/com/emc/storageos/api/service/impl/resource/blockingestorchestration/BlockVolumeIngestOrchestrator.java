@@ -72,7 +72,8 @@ public class BlockVolumeIngestOrchestrator extends BlockIngestOrchestrator {
             checkVPoolValidForExportInitiatorProtocols(requestContext.getVpool(unManagedVolume), unManagedVolume);
             checkHostIOLimits(requestContext.getVpool(unManagedVolume), unManagedVolume, unManagedVolumeExported);
 
-            StoragePool pool = validateAndReturnStoragePoolInVAarray(unManagedVolume, requestContext.getVarray(unManagedVolume));
+            StoragePool pool = validateAndReturnStoragePoolInVAarray(requestContext, unManagedVolume,
+                    requestContext.getVarray(unManagedVolume));
 
             // validate quota is exceeded for storage systems and pools
             checkSystemResourceLimitsExceeded(requestContext.getStorageSystem(), unManagedVolume,
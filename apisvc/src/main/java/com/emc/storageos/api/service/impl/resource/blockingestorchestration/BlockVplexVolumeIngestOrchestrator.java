@@ -815,7 +815,8 @@ public class BlockVplexVolumeIngestOrchestrator extends BlockVolumeIngestOrchest
     }
 
     @Override
-    protected StoragePool validateAndReturnStoragePoolInVAarray(UnManagedVolume unManagedVolume, VirtualArray virtualArray) {
+    protected StoragePool validateAndReturnStoragePoolInVAarray(IngestionRequestContext requestContext,
+            UnManagedVolume unManagedVolume, VirtualArray virtualArray) {
         return null;
     }
 
@@ -4,8 +4,8 @@
  */
 package com.emc.storageos.api.service.impl.resource.blockingestorchestration;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -133,8 +133,8 @@ public class IngestStrategyFactory {
     }
 
     public IngestStrategyFactory() {
-        this.ingestStrategyMap = new HashMap<String, IngestStrategy>();
-        this.ingestExportStrategyMap = new HashMap<String, IngestExportStrategy>();
+        this.ingestStrategyMap = new ConcurrentHashMap<String, IngestStrategy>();
+        this.ingestExportStrategyMap = new ConcurrentHashMap<String, IngestExportStrategy>();
     }
 
     public enum ReplicationStrategy {
@@ -5,6 +5,8 @@
 package com.emc.storageos.api.service.impl.resource.blockingestorchestration;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -36,6 +38,7 @@ import com.emc.storageos.model.TaskList;
 import com.emc.storageos.model.TaskResourceRep;
 import com.emc.storageos.svcs.errorhandling.resources.APIException;
 import com.emc.storageos.svcs.errorhandling.resources.InternalException;
+import com.google.common.collect.Lists;
 
 public class IngestVolumesExportedSchedulingThread implements Runnable {
 
@@ -48,6 +51,9 @@ public class IngestVolumesExportedSchedulingThread implements Runnable {
 
     private static final String INGESTION_SUCCESSFUL_MSG = "Successfully ingested exported volume and its masks.";
 
+    // maximum number of objects persisted in a single database write
+    private static final int COMMIT_BATCH_SIZE = 100;
+
     /**
      * Constructor.
      * 
@@ -71,6 +77,7 @@ public class IngestVolumesExportedSchedulingThread implements Runnable {
     public void run() {
 
         try {
+            // the volumes share the export group of the request, so they're read and ingested in order by this thread
             _requestContext.reset();
             URI varrayId = null;
             while (_requestContext.hasNext()) {
@@ -144,15 +151,20 @@ public class IngestVolumesExportedSchedulingThread implements Runnable {
 
             for (BlockObject bo : _requestContext.getObjectsIngestedByExportProcessing()) {
                 _logger.info("Ingestion Wrap Up: Creating BlockObject {} (hash {})", bo.forDisplay(), bo.hashCode());
-                _dbClient.createObject(bo);
+            }
+            for (List<BlockObject> batch : Lists.partition(_requestContext.getObjectsIngestedByExportProcessing(), COMMIT_BATCH_SIZE)) {
+                _dbClient.createObject(batch);
             }
 
             for (UnManagedVolume umv : _requestContext.getUnManagedVolumesToBeDeleted()) {
                 _logger.info("Ingestion Wrap Up: Deleting UnManagedVolume {} (hash {})", umv.forDisplay(), umv.hashCode());
-                _dbClient.updateObject(umv);
+            }
+            for (List<UnManagedVolume> batch : Lists.partition(_requestContext.getUnManagedVolumesToBeDeleted(), COMMIT_BATCH_SIZE)) {
+                _dbClient.updateObject(batch);
             }
 
             // Update the related objects if any after successful export mask ingestion
+            List<DataObject> updatedObjects = new ArrayList<DataObject>();
             for (Entry<String, Set<DataObject>> updatedObjectsEntry : _requestContext.getDataObjectsToBeUpdatedMap().entrySet()) {
                 if (updatedObjectsEntry != null) {
                     _logger.info("Ingestion Wrap Up: Updating objects for UnManagedVolume URI " + updatedObjectsEntry.getKey());
@@ -162,20 +174,27 @@ public class IngestVolumesExportedSchedulingThread implements Runnable {
                         } else {
                             _logger.info("Ingestion Wrap Up: Updating DataObject {} (hash {})", dob.forDisplay(), dob.hashCode());
                         }
-                        _dbClient.updateObject(dob);
+                        updatedObjects.add(dob);
                     }
                 }
             }
+            for (List<DataObject> batch : Lists.partition(updatedObjects, COMMIT_BATCH_SIZE)) {
+                _dbClient.updateObject(batch);
+            }
 
             // Create the related objects if any after successful export mask ingestion
-            for (Set<DataObject> createdObjects : _requestContext.getDataObjectsToBeCreatedMap().values()) {
-                if (createdObjects != null && !createdObjects.isEmpty()) {
-                    for (DataObject dob : createdObjects) {
+            List<DataObject> createdObjects = new ArrayList<DataObject>();
+            for (Set<DataObject> volumeCreatedObjects : _requestContext.getDataObjectsToBeCreatedMap().values()) {
+                if (volumeCreatedObjects != null && !volumeCreatedObjects.isEmpty()) {
+                    for (DataObject dob : volumeCreatedObjects) {
                         _logger.info("Ingestion Wrap Up: Creating DataObject {} (hash {})", dob.forDisplay(), dob.hashCode());
-                        _dbClient.createObject(dob);
+                        createdObjects.add(dob);
                     }
                 }
             }
+            for (List<DataObject> batch : Lists.partition(createdObjects, COMMIT_BATCH_SIZE)) {
+                _dbClient.createObject(batch);
+            }
 
             ExportGroup exportGroup = _requestContext.getExportGroup();
             if (_requestContext.isExportGroupCreated()) {
@@ -4,12 +4,13 @@
  */
 package com.emc.storageos.api.service.impl.resource.blockingestorchestration;
 
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +29,10 @@ import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedVol
 import com.emc.storageos.db.client.util.ExceptionUtils;
 import com.emc.storageos.model.TaskList;
 import com.emc.storageos.model.TaskResourceRep;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
 import com.emc.storageos.svcs.errorhandling.resources.APIException;
 import com.emc.storageos.svcs.errorhandling.resources.InternalException;
+import com.google.common.collect.Lists;
 
 public class IngestVolumesUnexportedSchedulingThread implements Runnable {
 
@@ -42,6 +45,12 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
 
     private static final String INGESTION_SUCCESSFUL_MSG = "Successfully ingested volume.";
 
+    // volumes not related to other volumes are ingested by a pool of workers, in partitions of PARTITION_SIZE volumes
+    private static final int INGESTION_WORKERS = 4;
+    private static final int PARTITION_SIZE = 100;
+    // maximum number of objects persisted in a single database write
+    private static final int COMMIT_BATCH_SIZE = 100;
+
     /**
      * Constructor.
      *
@@ -63,23 +72,69 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
 
     @Override
     public void run() {
-        _requestContext.reset();
-        while (_requestContext.hasNext()) {
-            UnManagedVolume unManagedVolume = _requestContext.next();
+        List<BaseIngestionRequestContext> requestContexts = _requestContext.partition(PARTITION_SIZE);
+        if (requestContexts.size() <= 1) {
+            for (BaseIngestionRequestContext requestContext : requestContexts) {
+                ingest(requestContext);
+                commit(requestContext);
+            }
+            return;
+        }
+
+        // each worker commits its partition as soon as it's ingested, while the other partitions are still ingesting
+        ExecutorService executor = new NamedThreadPoolExecutor(IngestVolumesUnexportedSchedulingThread.class.getSimpleName(),
+                Math.min(INGESTION_WORKERS, requestContexts.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final BaseIngestionRequestContext requestContext : requestContexts) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        ingest(requestContext);
+                        commit(requestContext);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InternalException) {
+                throw (InternalException) e.getCause();
+            }
+            _logger.debug("Unexpected ingestion exception:", e.getCause());
+            throw APIException.internalServerErrors.genericApisvcError(ExceptionUtils.getExceptionMessage(e.getCause()), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw APIException.internalServerErrors.genericApisvcError(ExceptionUtils.getExceptionMessage(e), e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ingests the UnManagedVolumes of the request, loading those not related to other volumes in bulk.
+     *
+     * @param requestContext the BaseIngestionRequestContext of the UnManagedVolumes to ingest
+     */
+    private void ingest(BaseIngestionRequestContext requestContext) {
+        requestContext.prefetch();
+        requestContext.reset();
+        while (requestContext.hasNext()) {
+            UnManagedVolume unManagedVolume = requestContext.next();
             String taskId = _taskMap.get(unManagedVolume.getId().toString());
 
             try {
                 _logger.info("Ingestion starting for unmanaged volume {}", unManagedVolume.getNativeGuid());
-                List<URI> volList = new ArrayList<URI>();
-                volList.add(_requestContext.getCurrentUnManagedVolumeUri());
-                VolumeIngestionUtil.checkIngestionRequestValidForUnManagedVolumes(volList, _requestContext.getVpool(unManagedVolume),
-                        _dbClient);
+                VolumeIngestionUtil.checkIngestionRequestValidForUnManagedVolume(unManagedVolume,
+                        requestContext.getCurrentUnManagedVolumeUri(), requestContext.getVpool(unManagedVolume),
+                        requestContext.getStoragePoolCache(), _dbClient);
 
                 IngestStrategy ingestStrategy = _ingestStrategyFactory.buildIngestStrategy(unManagedVolume,
                         !IngestStrategyFactory.DISREGARD_PROTECTION);
 
                 @SuppressWarnings("unchecked")
-                BlockObject blockObject = ingestStrategy.ingestBlockObjects(_requestContext,
+                BlockObject blockObject = ingestStrategy.ingestBlockObjects(requestContext,
                         VolumeIngestionUtil.getBlockObjectClass(unManagedVolume));
 
                 if (null == blockObject) {
@@ -88,26 +143,36 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
                 }
                 _logger.info("Ingestion completed successfully for unmanaged volume {}", unManagedVolume.getNativeGuid());
 
-                _requestContext.getBlockObjectsToBeCreatedMap().put(blockObject.getNativeGuid(), blockObject);
-                _requestContext.getProcessedUnManagedVolumeMap().put(
-                        unManagedVolume.getNativeGuid(), _requestContext.getVolumeContext());
+                requestContext.getBlockObjectsToBeCreatedMap().put(blockObject.getNativeGuid(), blockObject);
+                requestContext.getProcessedUnManagedVolumeMap().put(
+                        unManagedVolume.getNativeGuid(), requestContext.getVolumeContext());
             } catch (APIException ex) {
                 _logger.error("APIException occurred", ex);
-                _dbClient.error(UnManagedVolume.class, _requestContext.getCurrentUnManagedVolumeUri(), taskId, ex);
-                _requestContext.getVolumeContext().rollback();
+                _dbClient.error(UnManagedVolume.class, requestContext.getCurrentUnManagedVolumeUri(), taskId, ex);
+                requestContext.getVolumeContext().rollback();
             } catch (Exception ex) {
                 _logger.error("Exception occurred", ex);
-                _dbClient.error(UnManagedVolume.class, _requestContext.getCurrentUnManagedVolumeUri(),
+                _dbClient.error(UnManagedVolume.class, requestContext.getCurrentUnManagedVolumeUri(),
                         taskId, IngestionException.exceptions.generalVolumeException(
                                 unManagedVolume.getLabel(), ex.getLocalizedMessage()));
-                _requestContext.getVolumeContext().rollback();
+                requestContext.getVolumeContext().rollback();
             }
         }
+    }
 
+    /**
+     * Completes the tasks of the ingested UnManagedVolumes of the request, and persists the objects
+     * created and updated by their ingestion, in batches.
+     *
+     * @param requestContext the BaseIngestionRequestContext of the ingested UnManagedVolumes
+     */
+    private void commit(BaseIngestionRequestContext requestContext) {
+        List<DataObject> updatedObjects = new ArrayList<DataObject>();
+        List<DataObject> createdObjects = new ArrayList<DataObject>();
         try {
             // update the task status
-            for (String unManagedVolumeGUID : _requestContext.getProcessedUnManagedVolumeMap().keySet()) {
-                VolumeIngestionContext volumeContext = _requestContext.getProcessedUnManagedVolumeMap().get(unManagedVolumeGUID);
+            for (String unManagedVolumeGUID : requestContext.getProcessedUnManagedVolumeMap().keySet()) {
+                VolumeIngestionContext volumeContext = requestContext.getProcessedUnManagedVolumeMap().get(unManagedVolumeGUID);
                 UnManagedVolume unManagedVolume = volumeContext.getUnmanagedVolume();String taskMessage = "";
                 String taskId = _taskMap.get(unManagedVolume.getId().toString());
                 boolean ingestedSuccessfully = false;
@@ -116,7 +181,7 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
                     taskMessage = INGESTION_SUCCESSFUL_MSG;
                 } else {
                     // check in the created objects for corresponding block object without any internal flags set
-                    BlockObject createdObject = _requestContext.findCreatedBlockObject(unManagedVolumeGUID.replace(
+                    BlockObject createdObject = requestContext.findCreatedBlockObject(unManagedVolumeGUID.replace(
                             VolumeIngestionUtil.UNMANAGEDVOLUME,
                             VolumeIngestionUtil.VOLUME));
                     _logger.info("checking partial ingestion status of block object " + createdObject);
@@ -135,7 +200,7 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
                     } else {
                         _logger.info("block object {} was not (partially) ingested successfully", createdObject);
                         ingestedSuccessfully = false;
-                        StringBuffer taskStatus = _requestContext.getTaskStatusMap().get(unManagedVolume.getNativeGuid());
+                        StringBuffer taskStatus = requestContext.getTaskStatusMap().get(unManagedVolume.getNativeGuid());
                         if (taskStatus == null) {
                             // No task status found. Put in a default message.
                             taskMessage = String.format("Not all the parent/replicas of unmanaged volume %s have been ingested",
@@ -155,30 +220,37 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
                 }
 
                 // Commit any ingested CG
-                _unManagedVolumeService.commitIngestedCG(_requestContext, unManagedVolume);
+                _unManagedVolumeService.commitIngestedCG(requestContext, unManagedVolume);
 
                 // Commit the volume's internal resources
                 volumeContext.commit();
 
-                // Commit this volume's updated data objects if any after ingestion
-                Set<DataObject> updatedObjects = _requestContext.getDataObjectsToBeUpdatedMap().get(unManagedVolumeGUID);
-                if (updatedObjects != null && !updatedObjects.isEmpty()) {
-                    for (DataObject dob : updatedObjects) {
+                // Collect this volume's updated data objects if any after ingestion
+                Set<DataObject> volumeUpdatedObjects = requestContext.getDataObjectsToBeUpdatedMap().get(unManagedVolumeGUID);
+                if (volumeUpdatedObjects != null && !volumeUpdatedObjects.isEmpty()) {
+                    for (DataObject dob : volumeUpdatedObjects) {
                         _logger.info("Ingestion Wrap Up: Updating DataObject {} (hash {})", dob.forDisplay(), dob.hashCode());
-                        _dbClient.updateObject(dob);
+                        updatedObjects.add(dob);
                     }
                 }
 
-                // Commit this volume's created data objects if any after ingestion
-                Set<DataObject> createdObjects = _requestContext.getDataObjectsToBeCreatedMap().get(unManagedVolumeGUID);
-                if (createdObjects != null && !createdObjects.isEmpty()) {
-                    for (DataObject dob : createdObjects) {
+                // Collect this volume's created data objects if any after ingestion
+                Set<DataObject> volumeCreatedObjects = requestContext.getDataObjectsToBeCreatedMap().get(unManagedVolumeGUID);
+                if (volumeCreatedObjects != null && !volumeCreatedObjects.isEmpty()) {
+                    for (DataObject dob : volumeCreatedObjects) {
                         _logger.info("Ingestion Wrap Up: Creating DataObject {} (hash {})", dob.forDisplay(), dob.hashCode());
-                        _dbClient.createObject(dob);
+                        createdObjects.add(dob);
                     }
                 }
 
             }
+
+            for (List<DataObject> batch : Lists.partition(updatedObjects, COMMIT_BATCH_SIZE)) {
+                _dbClient.updateObject(batch);
+            }
+            for (List<DataObject> batch : Lists.partition(createdObjects, COMMIT_BATCH_SIZE)) {
+                _dbClient.createObject(batch);
+            }
         } catch (InternalException e) {
             throw e;
         } catch (Exception e) {
@@ -186,17 +258,23 @@ public class IngestVolumesUnexportedSchedulingThread implements Runnable {
             throw APIException.internalServerErrors.genericApisvcError(ExceptionUtils.getExceptionMessage(e), e);
         }
 
-        for (BlockObject bo : _requestContext.getBlockObjectsToBeCreatedMap().values()) {
+        List<BlockObject> blockObjects = new ArrayList<BlockObject>(requestContext.getBlockObjectsToBeCreatedMap().values());
+        for (BlockObject bo : blockObjects) {
             _logger.info("Ingestion Wrap Up: Creating BlockObject {} (hash {})", bo.forDisplay(), bo.hashCode());
-            _dbClient.createObject(bo);
         }
-        for (UnManagedVolume umv : _requestContext.getUnManagedVolumesToBeDeleted()) {
+        for (List<BlockObject> batch : Lists.partition(blockObjects, COMMIT_BATCH_SIZE)) {
+            _dbClient.createObject(batch);
+        }
+        List<UnManagedVolume> unManagedVolumes = requestContext.getUnManagedVolumesToBeDeleted();
+        for (UnManagedVolume umv : unManagedVolumes) {
             _logger.info("Ingestion Wrap Up: Deleting UnManagedVolume {} (hash {})", umv.forDisplay(), umv.hashCode());
-            _dbClient.updateObject(umv);
+        }
+        for (List<UnManagedVolume> batch : Lists.partition(unManagedVolumes, COMMIT_BATCH_SIZE)) {
+            _dbClient.updateObject(batch);
         }
 
         // record the events after they have been persisted
-        for (BlockObject volume : _requestContext.getBlockObjectsToBeCreatedMap().values()) {
+        for (BlockObject volume : blockObjects) {
             _unManagedVolumeService.recordVolumeOperation(_dbClient, _unManagedVolumeService.getOpByBlockObjectType(volume),
                     Status.ready, volume.getId());
         }
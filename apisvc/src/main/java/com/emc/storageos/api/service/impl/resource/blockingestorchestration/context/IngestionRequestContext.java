@@ -16,6 +16,7 @@ import com.emc.storageos.db.client.model.ExportGroup;
 import com.emc.storageos.db.client.model.ExportMask;
 import com.emc.storageos.db.client.model.Initiator;
 import com.emc.storageos.db.client.model.Project;
+import com.emc.storageos.db.client.model.StoragePool;
 import com.emc.storageos.db.client.model.StorageSystem;
 import com.emc.storageos.db.client.model.TenantOrg;
 import com.emc.storageos.db.client.model.VirtualArray;
@@ -133,6 +134,13 @@ public interface IngestionRequestContext extends Iterator<UnManagedVolume> {
      */
     public Map<String, StorageSystem> getStorageSystemCache();
 
+    /**
+     * Returns a cache of loaded StoragePools mapped to their URI Strings.
+     *
+     * @return a cache Map of StoragePool URI String to StoragePool Objects
+     */
+    public Map<String, StoragePool> getStoragePoolCache();
+
     /**
      * Returns a List of URIs for StorageSystems whose capacity limits have been
      * exceeded before or during this ingestion request.
@@ -6,6 +6,7 @@ package com.emc.storageos.api.service.impl.resource.blockingestorchestration.con
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -18,6 +19,7 @@ import org.slf4j.LoggerFactory;
 
 import com.emc.storageos.api.service.impl.resource.blockingestorchestration.context.IngestionRequestContext;
 import com.emc.storageos.api.service.impl.resource.blockingestorchestration.context.VolumeIngestionContext;
+import com.emc.storageos.api.service.impl.resource.utils.PropertySetterUtil;
 import com.emc.storageos.api.service.impl.resource.utils.VolumeIngestionUtil;
 import com.emc.storageos.db.client.DbClient;
 import com.emc.storageos.db.client.URIUtil;
@@ -29,6 +31,7 @@ import com.emc.storageos.db.client.model.ExportGroup;
 import com.emc.storageos.db.client.model.ExportMask;
 import com.emc.storageos.db.client.model.Initiator;
 import com.emc.storageos.db.client.model.Project;
+import com.emc.storageos.db.client.model.StoragePool;
 import com.emc.storageos.db.client.model.StorageSystem;
 import com.emc.storageos.db.client.model.TenantOrg;
 import com.emc.storageos.db.client.model.VirtualArray;
@@ -37,6 +40,7 @@ import com.emc.storageos.db.client.model.Volume;
 import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedConsistencyGroup;
 import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedProtectionSet;
 import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedVolume;
+import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedVolume.SupportedVolumeInformation;
 
 /**
  * Base implementation of IngestionRequestContext.
@@ -60,6 +64,8 @@ public class BaseIngestionRequestContext implements IngestionRequestContext {
     private Map<String, StringBuffer> _taskStatusMap;
 
     private Map<String, StorageSystem> _storageSystemCache;
+    private Map<String, StoragePool> _storagePoolCache;
+    private Map<URI, UnManagedVolume> _unManagedVolumeCache;
     private List<URI> _exhaustedStorageSystems;
     private List<URI> _exhaustedPools;
 
@@ -120,7 +126,14 @@ public class BaseIngestionRequestContext implements IngestionRequestContext {
     @Override
     public UnManagedVolume next() {
         _currentUnManagedVolumeUri = _unManagedVolumeUrisToProcessIterator.next();
-        UnManagedVolume currentVolume = _dbClient.queryObject(UnManagedVolume.class, _currentUnManagedVolumeUri);
+        UnManagedVolume currentVolume = null;
+        if (null != _unManagedVolumeCache) {
+            // a prefetched volume is used once, it's read again if the request is iterated again
+            currentVolume = _unManagedVolumeCache.remove(_currentUnManagedVolumeUri);
+        }
+        if (null == currentVolume) {
+            currentVolume = _dbClient.queryObject(UnManagedVolume.class, _currentUnManagedVolumeUri);
+        }
         if (null != currentVolume) {
             this.setCurrentUnmanagedVolume(currentVolume);
         }
@@ -147,6 +160,143 @@ public class BaseIngestionRequestContext implements IngestionRequestContext {
         _currentUnManagedVolumeUri = null;
     }
 
+    /**
+     * Loads the UnManagedVolumes of this request which are not related to other volumes, with their
+     * StorageSystems and StoragePools, in bulk rather than one at a time as the UnManagedVolumes are ingested.
+     *
+     * The other UnManagedVolumes are read as they are ingested, as the ingestion of the volumes they're
+     * related to may update them. Does nothing if the request was already prefetched, or if it's the
+     * partition of the dependent UnManagedVolumes of a request.
+     */
+    public void prefetch() {
+        if (null != _unManagedVolumeCache) {
+            return;
+        }
+        _unManagedVolumeCache = new HashMap<URI, UnManagedVolume>();
+        Set<URI> storageSystemUris = new HashSet<URI>();
+        Set<URI> storagePoolUris = new HashSet<URI>();
+        Iterator<UnManagedVolume> unManagedVolumes = _dbClient.queryIterativeObjects(UnManagedVolume.class,
+                _unManagedVolumeUrisToProcess);
+        while (unManagedVolumes.hasNext()) {
+            UnManagedVolume unManagedVolume = unManagedVolumes.next();
+            if (!isIndependentVolume(unManagedVolume)) {
+                continue;
+            }
+            _unManagedVolumeCache.put(unManagedVolume.getId(), unManagedVolume);
+            URI storageSystemUri = unManagedVolume.getStorageSystemUri();
+            if (null != storageSystemUri && !getStorageSystemCache().containsKey(storageSystemUri.toString())) {
+                storageSystemUris.add(storageSystemUri);
+            }
+            URI storagePoolUri = unManagedVolume.getStoragePoolUri();
+            if (null != storagePoolUri && !getStoragePoolCache().containsKey(storagePoolUri.toString())) {
+                storagePoolUris.add(storagePoolUri);
+            }
+        }
+
+        if (!storageSystemUris.isEmpty()) {
+            for (StorageSystem storageSystem : _dbClient.queryObject(StorageSystem.class, storageSystemUris)) {
+                getStorageSystemCache().put(storageSystem.getId().toString(), storageSystem);
+            }
+        }
+        if (!storagePoolUris.isEmpty()) {
+            for (StoragePool storagePool : _dbClient.queryObject(StoragePool.class, storagePoolUris)) {
+                getStoragePoolCache().put(storagePool.getId().toString(), storagePool);
+            }
+        }
+        _logger.info("Prefetched {} of {} unmanaged volumes", _unManagedVolumeCache.size(), _unManagedVolumeUrisToProcess.size());
+    }
+
+    /**
+     * Splits the UnManagedVolumes of this request into requests which can be ingested in parallel.
+     *
+     * UnManagedVolumes which are not in a consistency group, have no replicas, are not replicas, and are
+     * not VPLEX, RecoverPoint or SRDF volumes are ingested on their own, in requests of at most
+     * partitionSize volumes. Each of these requests is prefetched when it's ingested, so that only the
+     * volumes being ingested are held in memory.
+     * The other UnManagedVolumes are ingested in a single request, in the order of this request, as the
+     * ingestion of a volume may depend on the ingestion of the volumes it's related to. They are never
+     * prefetched.
+     *
+     * The requests share the StorageSystem and StoragePool caches of this request.
+     *
+     * @param partitionSize the maximum number of independent UnManagedVolumes per request
+     * @return the requests, the one of the dependent UnManagedVolumes first if any
+     */
+    public List<BaseIngestionRequestContext> partition(int partitionSize) {
+        // only the URIs are kept, the volumes are read again in bulk by the partition ingesting them
+        Set<URI> independentVolumeUris = new HashSet<URI>();
+        Iterator<UnManagedVolume> unManagedVolumes = _dbClient.queryIterativeObjects(UnManagedVolume.class,
+                _unManagedVolumeUrisToProcess);
+        while (unManagedVolumes.hasNext()) {
+            UnManagedVolume unManagedVolume = unManagedVolumes.next();
+            if (isIndependentVolume(unManagedVolume)) {
+                independentVolumeUris.add(unManagedVolume.getId());
+            }
+        }
+
+        List<URI> dependentUris = new ArrayList<URI>();
+        List<List<URI>> independentUris = new ArrayList<List<URI>>();
+        List<URI> partitionUris = new ArrayList<URI>();
+        for (URI unManagedVolumeUri : _unManagedVolumeUrisToProcess) {
+            if (!independentVolumeUris.contains(unManagedVolumeUri)) {
+                dependentUris.add(unManagedVolumeUri);
+                continue;
+            }
+            partitionUris.add(unManagedVolumeUri);
+            if (partitionUris.size() == partitionSize) {
+                independentUris.add(partitionUris);
+                partitionUris = new ArrayList<URI>();
+            }
+        }
+        if (!partitionUris.isEmpty()) {
+            independentUris.add(partitionUris);
+        }
+
+        List<BaseIngestionRequestContext> requestContexts = new ArrayList<BaseIngestionRequestContext>();
+        if (!dependentUris.isEmpty()) {
+            BaseIngestionRequestContext requestContext = createPartition(dependentUris);
+            requestContext._unManagedVolumeCache = Collections.emptyMap();
+            requestContexts.add(requestContext);
+        }
+        for (List<URI> uris : independentUris) {
+            requestContexts.add(createPartition(uris));
+        }
+        _logger.info("Split {} unmanaged volumes into {} dependent volumes and {} partitions of independent volumes",
+                new Object[] { _unManagedVolumeUrisToProcess.size(), dependentUris.size(), independentUris.size() });
+        return requestContexts;
+    }
+
+    private BaseIngestionRequestContext createPartition(List<URI> unManagedVolumeUris) {
+        BaseIngestionRequestContext requestContext = new BaseIngestionRequestContext(_dbClient, unManagedVolumeUris, _vpool,
+                _virtualArray, _project, _tenant, _vplexIngestionMethod);
+        requestContext._storageSystemCache = getStorageSystemCache();
+        requestContext._storagePoolCache = getStoragePoolCache();
+        return requestContext;
+    }
+
+    /**
+     * Returns true if the UnManagedVolume can be ingested without any other UnManagedVolume.
+     *
+     * @param unManagedVolume the UnManagedVolume to check
+     * @return true if the UnManagedVolume is not related to other volumes
+     */
+    private static boolean isIndependentVolume(UnManagedVolume unManagedVolume) {
+        // partially discovered volumes are left to the validation of the dependent volumes
+        if (null == unManagedVolume.getVolumeCharacterstics() || null == unManagedVolume.getVolumeInformation()) {
+            return false;
+        }
+        return !VolumeIngestionUtil.checkUnManagedResourceAddedToConsistencyGroup(unManagedVolume)
+                && !VolumeIngestionUtil.checkUnManagedVolumeHasReplicas(unManagedVolume)
+                && !VolumeIngestionUtil.isSnapshot(unManagedVolume)
+                && !VolumeIngestionUtil.isMirror(unManagedVolume)
+                && !VolumeIngestionUtil.isFullCopy(unManagedVolume)
+                && !VolumeIngestionUtil.isVplexVolume(unManagedVolume)
+                && !VolumeIngestionUtil.isVplexBackendVolume(unManagedVolume)
+                && !VolumeIngestionUtil.checkUnManagedResourceIsRecoverPointEnabled(unManagedVolume)
+                && null == PropertySetterUtil.extractValueFromStringSet(
+                        SupportedVolumeInformation.REMOTE_VOLUME_TYPE.toString(), unManagedVolume.getVolumeInformation());
+    }
+
     /**
      * Instantiates the correct VolumeIngestionContext type for the
      * current UnManagedVolume being processed, based on the UnManagedVolume type.
@@ -310,12 +460,28 @@ public class BaseIngestionRequestContext implements IngestionRequestContext {
     @Override
     public Map<String, StorageSystem> getStorageSystemCache() {
         if (null == _storageSystemCache) {
-            _storageSystemCache = new HashMap<String, StorageSystem>();
+            // synchronized as the cache is shared by the partitions of the request
+            _storageSystemCache = Collections.synchronizedMap(new HashMap<String, StorageSystem>());
         }
 
         return _storageSystemCache;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.emc.storageos.api.service.impl.resource.blockingestorchestration.context.IngestionRequestContext#getStoragePoolCache()
+     */
+    @Override
+    public Map<String, StoragePool> getStoragePoolCache() {
+        if (null == _storagePoolCache) {
+            // synchronized as the cache is shared by the partitions of the request
+            _storagePoolCache = Collections.synchronizedMap(new HashMap<String, StoragePool>());
+        }
+
+        return _storagePoolCache;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -30,6 +30,7 @@ import com.emc.storageos.db.client.model.Initiator;
 import com.emc.storageos.db.client.model.NamedURI;
 import com.emc.storageos.db.client.model.Project;
 import com.emc.storageos.db.client.model.ProtectionSet;
+import com.emc.storageos.db.client.model.StoragePool;
 import com.emc.storageos.db.client.model.StorageSystem;
 import com.emc.storageos.db.client.model.TenantOrg;
 import com.emc.storageos.db.client.model.VirtualArray;
@@ -555,6 +556,16 @@ public class RecoverPointVolumeIngestionContext extends BlockVolumeIngestionCont
         return _parentRequestContext.getStorageSystemCache();
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.emc.storageos.api.service.impl.resource.blockingestorchestration.context.IngestionRequestContext#getStoragePoolCache()
+     */
+    @Override
+    public Map<String, StoragePool> getStoragePoolCache() {
+        return _parentRequestContext.getStoragePoolCache();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.api.service.impl.resource.utils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+
+import com.emc.storageos.db.client.constraint.AlternateIdConstraint;
+import com.emc.storageos.db.client.model.StatRollup;
+import com.emc.storageos.db.client.model.StatRollup.GroupType;
+import com.emc.storageos.db.client.model.StatRollup.Granularity;
+import com.emc.storageos.db.client.model.StatRollup.Metric;
+import com.emc.storageos.model.metering.StatRollupList;
+import com.emc.storageos.model.metering.StatRollupMetricRep;
+import com.emc.storageos.model.metering.StatRollupRestRep;
+
+/**
+ * Aggregates the metering stat rollups over a time range. A query reads one rollup per group and
+ * bucket of the range, rather than the raw stats collected in the range.
+ */
+public class DbStatRollupRetriever extends AbstractDbRetriever {
+
+    /**
+     * @param granularity granularity of the rollups
+     * @param groupBy type of the groups to aggregate the stats by
+     * @param groupIds groups to aggregate the stats of, all the groups of the type if empty
+     * @param start time in the first bucket
+     * @param end time in the last bucket
+     * @param metrics metrics to aggregate, all the metrics if empty
+     * @return the sum, average and maximum of the metrics per group
+     */
+    public StatRollupList getRollups(Granularity granularity, GroupType groupBy, Collection<URI> groupIds,
+            DateTime start, DateTime end, Collection<Metric> metrics) {
+        Class<? extends StatRollup> clazz = granularity.getRollupClass();
+        long startBucket = granularity.getBucketStart(start.getMillis());
+        long endBucket = granularity.getBucketStart(end.getMillis());
+
+        Map<URI, StatRollup> totals = new LinkedHashMap<URI, StatRollup>();
+        Map<URI, Integer> bucketCounts = new LinkedHashMap<URI, Integer>();
+        for (long bucket = startBucket; bucket <= endBucket; bucket = granularity.getNextBucketStart(bucket)) {
+            List<URI> ids = new ArrayList<URI>();
+            if (groupIds == null || groupIds.isEmpty()) {
+                ids.addAll(dbClient.queryByConstraint(AlternateIdConstraint.Factory.getConstraint(clazz, "bucketKey",
+                        StatRollup.getBucketKey(groupBy, bucket))));
+            } else {
+                for (URI groupId : groupIds) {
+                    ids.add(StatRollup.createId(clazz, groupBy, groupId, bucket));
+                }
+            }
+            if (ids.isEmpty()) {
+                continue;
+            }
+            for (StatRollup rollup : dbClient.queryObject(clazz, ids)) {
+                StatRollup total = totals.get(rollup.getGroupId());
+                if (total == null) {
+                    total = newRollup(clazz);
+                    totals.put(rollup.getGroupId(), total);
+                    bucketCounts.put(rollup.getGroupId(), 0);
+                }
+                total.merge(rollup);
+                bucketCounts.put(rollup.getGroupId(), bucketCounts.get(rollup.getGroupId()) + 1);
+            }
+        }
+
+        StatRollupList list = new StatRollupList(granularity.name(), groupBy.name(), startBucket,
+                granularity.getNextBucketStart(endBucket));
+        for (Map.Entry<URI, StatRollup> entry : totals.entrySet()) {
+            StatRollupRestRep rep = new StatRollupRestRep(entry.getKey());
+            rep.setBucketCount(bucketCounts.get(entry.getKey()));
+            for (Metric metric : (metrics == null || metrics.isEmpty()) ? Metric.values() : metrics.toArray(new Metric[0])) {
+                StatRollup total = entry.getValue();
+                if (total.getCount(metric) > 0) {
+                    rep.getMetrics().add(new StatRollupMetricRep(metric.getName(), total.getCount(metric),
+                            total.getSum(metric), total.getMax(metric)));
+                }
+            }
+            list.getRollups().add(rep);
+        }
+        return list;
+    }
+
+    private static StatRollup newRollup(Class<? extends StatRollup> clazz) {
+        try {
+            return clazz.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
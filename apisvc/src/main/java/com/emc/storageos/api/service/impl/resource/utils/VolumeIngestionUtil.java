@@ -131,45 +131,82 @@ public class VolumeIngestionUtil {
             List<URI> unManagedVolumes, VirtualPool vPool, DbClient dbClient)
             throws IngestionException {
 
+        Map<String, StoragePool> storagePoolCache = new HashMap<String, StoragePool>();
         for (URI unManagedVolumeUri : unManagedVolumes) {
             UnManagedVolume unManagedVolume = dbClient.queryObject(UnManagedVolume.class,
                     unManagedVolumeUri);
+            checkIngestionRequestValidForUnManagedVolume(unManagedVolume, unManagedVolumeUri, vPool, storagePoolCache, dbClient);
+        }
+    }
 
-            checkUnmanagedVolumePartiallyDiscovered(unManagedVolume, unManagedVolumeUri);
+    /**
+     * Validates an UnManagedVolume already loaded from the database, as in
+     * checkIngestionRequestValidForUnManagedVolumes, reading its StoragePool from the cache.
+     *
+     * @param unManagedVolume the UnManagedVolume to validate, may be null if it was not found
+     * @param unManagedVolumeUri the URI of the UnManagedVolume
+     * @param vPool the VirtualPool to validate against
+     * @param storagePoolCache a cache of StoragePools mapped to their URI Strings
+     * @param dbClient a reference to the database client
+     * @throws IngestionException
+     */
+    public static void checkIngestionRequestValidForUnManagedVolume(UnManagedVolume unManagedVolume, URI unManagedVolumeUri,
+            VirtualPool vPool, Map<String, StoragePool> storagePoolCache, DbClient dbClient)
+            throws IngestionException {
 
-            StringSetMap unManagedVolumeInformation = unManagedVolume.getVolumeInformation();
+        checkUnmanagedVolumePartiallyDiscovered(unManagedVolume, unManagedVolumeUri);
 
-            try {
-                // Check if UnManagedVolume is CG enabled and VPool is not CG enabled.
-                if (checkUnManagedResourceAddedToConsistencyGroup(unManagedVolume) && !vPool.getMultivolumeConsistency()) {
-                    _logger.error(String
-                            .format("The requested Virtual Pool %s does not have the Multi-Volume Consistency flag set, and unmanage volume %s is part of a consistency group.",
-                                    vPool.getLabel(), unManagedVolume.getLabel()));
-                    throw APIException.internalServerErrors.unmanagedVolumeVpoolConsistencyGroupMismatch(vPool.getLabel(),
-                            unManagedVolume.getLabel());
-                }
+        StringSetMap unManagedVolumeInformation = unManagedVolume.getVolumeInformation();
 
-                // Check if the UnManagedVolume is a snapshot & Vpool doesn't have snapshotCount defined.
-                if (isSnapshot(unManagedVolume) && 0 == vPool.getMaxNativeSnapshots()) {
-                    throw APIException.internalServerErrors.noMaxSnapshotsDefinedInVirtualPool(
-                            vPool.getLabel(), unManagedVolume.getLabel());
-                }
+        try {
+            // Check if UnManagedVolume is CG enabled and VPool is not CG enabled.
+            if (checkUnManagedResourceAddedToConsistencyGroup(unManagedVolume) && !vPool.getMultivolumeConsistency()) {
+                _logger.error(String
+                        .format("The requested Virtual Pool %s does not have the Multi-Volume Consistency flag set, and unmanage volume %s is part of a consistency group.",
+                                vPool.getLabel(), unManagedVolume.getLabel()));
+                throw APIException.internalServerErrors.unmanagedVolumeVpoolConsistencyGroupMismatch(vPool.getLabel(),
+                        unManagedVolume.getLabel());
+            }
 
-                // a VPLEX volume and snapshot will not have an associated pool
-                if (!isVplexVolume(unManagedVolume) && !isSnapshot(unManagedVolume)) {
-                    checkStoragePoolValidForUnManagedVolumeUri(unManagedVolumeInformation,
-                            dbClient, unManagedVolumeUri);
-                }
+            // Check if the UnManagedVolume is a snapshot & Vpool doesn't have snapshotCount defined.
+            if (isSnapshot(unManagedVolume) && 0 == vPool.getMaxNativeSnapshots()) {
+                throw APIException.internalServerErrors.noMaxSnapshotsDefinedInVirtualPool(
+                        vPool.getLabel(), unManagedVolume.getLabel());
+            }
 
-                if (!isVplexBackendVolume(unManagedVolume)) {
-                    checkVPoolValidForGivenUnManagedVolumeUris(unManagedVolumeInformation, unManagedVolume,
-                            vPool.getId(), dbClient);
-                }
-            } catch (APIException ex) {
-                _logger.error(ex.getLocalizedMessage());
-                throw IngestionException.exceptions.validationException(ex.getLocalizedMessage());
+            // a VPLEX volume and snapshot will not have an associated pool
+            if (!isVplexVolume(unManagedVolume) && !isSnapshot(unManagedVolume)) {
+                checkStoragePoolValidForUnManagedVolumeUri(unManagedVolumeInformation,
+                        storagePoolCache, dbClient, unManagedVolumeUri);
+            }
+
+            if (!isVplexBackendVolume(unManagedVolume)) {
+                checkVPoolValidForGivenUnManagedVolumeUris(unManagedVolumeInformation, unManagedVolume,
+                        vPool, storagePoolCache, dbClient);
+            }
+        } catch (APIException ex) {
+            _logger.error(ex.getLocalizedMessage());
+            throw IngestionException.exceptions.validationException(ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Returns the StoragePool from the cache, loading it from the database if it's not cached yet.
+     *
+     * @param storagePoolUri the URI of the StoragePool
+     * @param storagePoolCache a cache of StoragePools mapped to their URI Strings
+     * @param dbClient a reference to the database client
+     * @return the StoragePool, or null if it was not found
+     */
+    private static StoragePool getStoragePool(URI storagePoolUri, Map<String, StoragePool> storagePoolCache, DbClient dbClient) {
+        StoragePool pool = storagePoolCache.get(storagePoolUri.toString());
+        if (null == pool) {
+            pool = dbClient.queryObject(StoragePool.class, storagePoolUri);
+            if (null != pool) {
+                storagePoolCache.put(storagePoolUri.toString(), pool);
             }
         }
+        return pool;
     }
 
     /**
@@ -861,14 +898,14 @@ public class VolumeIngestionUtil {
      * @throws APIException
      */
     private static void checkStoragePoolValidForUnManagedVolumeUri(
-            StringSetMap unManagedVolumeInformation, DbClient dbClient,
+            StringSetMap unManagedVolumeInformation, Map<String, StoragePool> storagePoolCache, DbClient dbClient,
             URI unManagedVolumeUri) throws APIException {
         String pool = PropertySetterUtil.extractValueFromStringSet(VolumeObjectProperties.STORAGE_POOL.toString(),
                 unManagedVolumeInformation);
         if (null == pool) {
             throw APIException.internalServerErrors.storagePoolError("", VOLUME_TEXT, unManagedVolumeUri);
         }
-        StoragePool poolObj = dbClient.queryObject(StoragePool.class, URI.create(pool));
+        StoragePool poolObj = getStoragePool(URI.create(pool), storagePoolCache, dbClient);
         if (null == poolObj) {
             throw APIException.internalServerErrors.noStoragePool(pool, VOLUME_TEXT, unManagedVolumeUri);
         }
@@ -880,16 +917,18 @@ public class VolumeIngestionUtil {
      *
      * @param preExistVolumeInformation the pre-existing volume information collection
      * @param unManagedVolume the UnManagedVolume to check
-     * @param vpoolUri the URI of the VirtualPool to check
+     * @param vpool the VirtualPool to check
+     * @param storagePoolCache a cache of StoragePools mapped to their URI Strings
      * @param dbClient a reference to the database client
      */
     private static void checkVPoolValidForGivenUnManagedVolumeUris(
             StringSetMap preExistVolumeInformation, UnManagedVolume unManagedVolume,
-            URI vpoolUri, DbClient dbClient) {
+            VirtualPool vpool, Map<String, StoragePool> storagePoolCache, DbClient dbClient) {
+        URI vpoolUri = vpool.getId();
         StringSet supportedVPoolUris = unManagedVolume.getSupportedVpoolUris();
         String spoolName = "(not set)";
         if (unManagedVolume.getStoragePoolUri() != null) {
-            StoragePool spool = dbClient.queryObject(StoragePool.class, unManagedVolume.getStoragePoolUri());
+            StoragePool spool = getStoragePool(unManagedVolume.getStoragePoolUri(), storagePoolCache, dbClient);
             if (spool != null) {
                 spoolName = spool.getLabel();
             }
@@ -903,9 +942,8 @@ public class VolumeIngestionUtil {
             throw APIException.internalServerErrors.storagePoolNotMatchingVirtualPoolNicer(
                     spoolName, VOLUME_TEXT, unManagedVolume.getLabel());
         }
-        VirtualPool vpool = dbClient.queryObject(VirtualPool.class, vpoolUri);
         if (!supportedVPoolUris.contains(vpoolUri.toString())) {
-            String vpoolName = vpool != null ? vpool.getLabel() : vpoolUri.toString();
+            String vpoolName = vpool.getLabel();
             List<VirtualPool> supportedVpools = dbClient.queryObject(
                     VirtualPool.class, Collections2.transform(supportedVPoolUris,
                             CommonTransformerFunctions.FCTN_STRING_TO_URI));
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.api.service.impl.response;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.binary.Base64;
+
+import com.emc.storageos.svcs.errorhandling.resources.APIException;
+
+/**
+ * Opaque token returned with a page of a list, to be passed back to get the next page.
+ *
+ * A token holds the id of the last resource of the page and, for lists spanning several parents,
+ * the id of the parent of that resource. The next page starts right after that resource in the
+ * index, so that it does not matter how many resources were added or removed since the previous
+ * page was returned.
+ */
+public class ContinuationToken {
+    public static final String CONTINUATION_PARAM = "continuation";
+
+    // not allowed in an URI
+    private static final char SEPARATOR = ' ';
+
+    private final URI parentId;
+    private final URI id;
+
+    public ContinuationToken(URI id) {
+        this(null, id);
+    }
+
+    public ContinuationToken(URI parentId, URI id) {
+        this.parentId = parentId;
+        this.id = id;
+    }
+
+    /**
+     * @return the parent of the last resource of the page, null if the list has no parents
+     */
+    public URI getParentId() {
+        return parentId;
+    }
+
+    public URI getId() {
+        return id;
+    }
+
+    /**
+     * @return the token as an URL safe string
+     */
+    public String encode() {
+        String value = parentId == null ? id.toString() : parentId.toString() + SEPARATOR + id;
+        return Base64.encodeBase64URLSafeString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token returned by encode()
+     *
+     * @param token the token, may be null
+     * @return the decoded token, null if token is null or empty
+     * @throws APIException if the token is not valid
+     */
+    public static ContinuationToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.decodeBase64(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new ContinuationToken(toId(value));
+            }
+            return new ContinuationToken(toId(value.substring(0, separator)), toId(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw APIException.badRequests.invalidParameterWithCause(CONTINUATION_PARAM, token, e);
+        }
+    }
+
+    private static URI toId(String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("empty id");
+        }
+        return URI.create(value);
+    }
+}
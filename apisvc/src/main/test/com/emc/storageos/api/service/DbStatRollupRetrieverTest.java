@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.api.service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.api.service.impl.resource.MeteringService;
+import com.emc.storageos.api.service.impl.resource.utils.DbStatRollupRetriever;
+import com.emc.storageos.api.service.utils.DummyDBClient;
+import com.emc.storageos.db.client.TimeSeriesMetadata.TimeBucket;
+import com.emc.storageos.db.client.TimeSeriesQueryResult;
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.constraint.Constraint;
+import com.emc.storageos.db.client.model.DataObject;
+import com.emc.storageos.db.client.model.Project;
+import com.emc.storageos.db.client.model.Stat;
+import com.emc.storageos.db.client.model.TenantOrg;
+import com.emc.storageos.db.client.model.TimeSeries;
+import com.emc.storageos.db.client.model.TimeSeriesSerializer.DataPoint;
+import com.emc.storageos.db.client.model.Volume;
+import com.emc.storageos.model.metering.StatRollupList;
+import com.emc.storageos.model.metering.StatRollupMetricRep;
+import com.emc.storageos.model.metering.StatRollupRestRep;
+import com.emc.storageos.svcs.errorhandling.resources.BadRequestException;
+import com.emc.storageos.volumecontroller.impl.plugins.metering.StatRollupCompute;
+
+/**
+ * Rolls up two days of stats of a few hundred volumes, then runs report queries over the rollups,
+ * counting the raw stat buckets and the rollup rows they read.
+ */
+public class DbStatRollupRetrieverTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int HOURS = 48;
+    private static final int PROJECT_COUNT = 10;
+    private static final int VOLUMES_PER_PROJECT = 20;
+    private static final int SAMPLES_PER_HOUR = 4;
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormat.forPattern(
+            MeteringService.HOUR_BUCKET_TIME_FORMAT).withZoneUTC();
+
+    private final URI tenant = URIUtil.createId(TenantOrg.class);
+    private final List<URI> projects = new ArrayList<URI>();
+    private final Map<URI, List<URI>> volumes = new HashMap<URI, List<URI>>();
+    private RollupDbClient dbClient;
+    private MeteringService meteringService;
+    private long firstHour;
+    private long lastHour;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            URI project = URIUtil.createId(Project.class);
+            projects.add(project);
+            volumes.put(project, new ArrayList<URI>());
+            for (int j = 0; j < VOLUMES_PER_PROJECT; j++) {
+                volumes.get(project).add(URIUtil.createId(Volume.class));
+            }
+        }
+        dbClient = new RollupDbClient();
+        dbClient.start();
+        lastHour = new DateTime(DateTimeZone.UTC).hourOfDay().roundFloorCopy().getMillis() - HOUR;
+        firstHour = lastHour - (HOURS - 1) * HOUR;
+
+        StatRollupCompute compute = new StatRollupCompute();
+        compute.setDbClient(dbClient);
+        compute.setCollectionDelay(0);
+        compute.setBackfillHours(HOURS);
+        compute.setMaxHoursPerRun(HOURS);
+        compute.run();
+        Assert.assertEquals(HOURS, dbClient.timeSeriesQueries);
+
+        DbStatRollupRetriever retriever = new DbStatRollupRetriever();
+        retriever.setDbClient(dbClient);
+        meteringService = new MeteringService();
+        meteringService.setStatRollupRetriever(retriever);
+        dbClient.timeSeriesQueries = 0;
+        dbClient.rowsRead = 0;
+    }
+
+    @Test
+    public void testDailyProjectReport() {
+        StatRollupList report = meteringService.getStatRollups("day", format(firstHour), format(lastHour), "project",
+                projects, Collections.singletonList("provisioned_capacity"));
+
+        int days = countBuckets(firstHour, lastHour, TimeUnit.DAYS.toMillis(1));
+        Assert.assertEquals(0, dbClient.timeSeriesQueries);
+        Assert.assertEquals(PROJECT_COUNT * days, dbClient.rowsRead);
+        Assert.assertEquals(PROJECT_COUNT, report.getRollups().size());
+        for (StatRollupRestRep rep : report.getRollups()) {
+            Assert.assertEquals(days, rep.getBucketCount());
+            Assert.assertEquals(1, rep.getMetrics().size());
+            assertMetric(rep.getMetrics().get(0), rep.getGroupId(), firstHour, lastHour);
+        }
+    }
+
+    @Test
+    public void testMonthlyTenantReport() {
+        StatRollupList report = meteringService.getStatRollups("month", format(firstHour), format(lastHour), "tenant",
+                Collections.singletonList(tenant), null);
+
+        int months = countMonths(firstHour, lastHour);
+        Assert.assertEquals(0, dbClient.timeSeriesQueries);
+        Assert.assertEquals(months, dbClient.rowsRead);
+        Assert.assertEquals(1, report.getRollups().size());
+        StatRollupRestRep rep = report.getRollups().get(0);
+        Assert.assertEquals(tenant, rep.getGroupId());
+        StatRollupMetricRep provisioned = getMetric(rep, "provisioned_capacity");
+        Assert.assertEquals(HOURS * PROJECT_COUNT * VOLUMES_PER_PROJECT * SAMPLES_PER_HOUR, provisioned.getCount());
+        Assert.assertEquals(expectedSum(projects, firstHour, lastHour), provisioned.getSum());
+        Assert.assertEquals(expectedMax(projects), provisioned.getMax());
+        Assert.assertEquals((double) provisioned.getSum() / provisioned.getCount(), provisioned.getAvg(), 0.001);
+        Assert.assertNotNull(getMetric(rep, "bandwidth_in"));
+    }
+
+    @Test
+    public void testHourlyResourceReport() {
+        URI project = projects.get(0);
+        StatRollupList report = meteringService.getStatRollups("hour", format(lastHour - 2 * HOUR), format(lastHour),
+                "resource", volumes.get(project), Collections.singletonList("provisioned_capacity"));
+
+        Assert.assertEquals(0, dbClient.timeSeriesQueries);
+        Assert.assertEquals(3 * VOLUMES_PER_PROJECT, dbClient.rowsRead);
+        Assert.assertEquals(VOLUMES_PER_PROJECT, report.getRollups().size());
+        for (StatRollupRestRep rep : report.getRollups()) {
+            Assert.assertEquals(3, rep.getBucketCount());
+            Assert.assertEquals(3 * SAMPLES_PER_HOUR, rep.getMetrics().get(0).getCount());
+        }
+    }
+
+    @Test
+    public void testRollupAgain() {
+        // an hour rolled up again is not counted twice in the daily and monthly rollups
+        StatRollupCompute compute = new StatRollupCompute();
+        compute.setDbClient(dbClient);
+        compute.setCollectionDelay(0);
+        compute.setBackfillHours(HOURS);
+        compute.setMaxHoursPerRun(HOURS);
+        compute.run();
+
+        StatRollupList report = meteringService.getStatRollups("day", format(firstHour), format(lastHour), "project",
+                projects, Collections.singletonList("provisioned_capacity"));
+        for (StatRollupRestRep rep : report.getRollups()) {
+            assertMetric(rep.getMetrics().get(0), rep.getGroupId(), firstHour, lastHour);
+        }
+    }
+
+    @Test
+    public void testInvalidQuery() {
+        try {
+            meteringService.getStatRollups("week", format(firstHour), format(lastHour), "project", null, null);
+            Assert.fail("week granularity accepted");
+        } catch (BadRequestException e) {
+        }
+        try {
+            meteringService.getStatRollups("day", format(lastHour), format(firstHour), "project", null, null);
+            Assert.fail("end before start accepted");
+        } catch (BadRequestException e) {
+        }
+        try {
+            meteringService.getStatRollups("hour", "2010-01-01T00", "2018-01-01T00", "project", null, null);
+            Assert.fail("too many buckets accepted");
+        } catch (BadRequestException e) {
+        }
+    }
+
+    private void assertMetric(StatRollupMetricRep metric, URI project, long from, long to) {
+        int hours = (int) ((to - from) / HOUR) + 1;
+        Assert.assertEquals("provisioned_capacity", metric.getName());
+        Assert.assertEquals(hours * VOLUMES_PER_PROJECT * SAMPLES_PER_HOUR, metric.getCount());
+        Assert.assertEquals(expectedSum(Collections.singletonList(project), from, to), metric.getSum());
+        Assert.assertEquals(expectedMax(Collections.singletonList(project)), metric.getMax());
+    }
+
+    private static StatRollupMetricRep getMetric(StatRollupRestRep rep, String name) {
+        for (StatRollupMetricRep metric : rep.getMetrics()) {
+            if (metric.getName().equals(name)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+
+    private long expectedSum(Collection<URI> projectIds, long from, long to) {
+        long sum = 0;
+        for (long hour = from; hour <= to; hour += HOUR) {
+            for (URI project : projectIds) {
+                for (int volume = 0; volume < VOLUMES_PER_PROJECT; volume++) {
+                    for (int sample = 0; sample < SAMPLES_PER_HOUR; sample++) {
+                        sum += provisionedCapacity(project, volume);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    private long expectedMax(Collection<URI> projectIds) {
+        long max = 0;
+        for (URI project : projectIds) {
+            max = Math.max(max, provisionedCapacity(project, VOLUMES_PER_PROJECT - 1));
+        }
+        return max;
+    }
+
+    private long provisionedCapacity(URI project, int volume) {
+        return (projects.indexOf(project) + 1) * 1000L + volume;
+    }
+
+    private static String format(long time) {
+        return HOUR_FORMAT.print(time);
+    }
+
+    private static int countBuckets(long from, long to, long size) {
+        return (int) (to / size - from / size) + 1;
+    }
+
+    private static int countMonths(long from, long to) {
+        DateTime start = new DateTime(from, DateTimeZone.UTC);
+        DateTime end = new DateTime(to, DateTimeZone.UTC);
+        return (end.getYear() - start.getYear()) * 12 + end.getMonthOfYear() - start.getMonthOfYear() + 1;
+    }
+
+    /**
+     * Serves the stats of every hour bucket, and counts the time series queries and the rollup
+     * rows read
+     */
+    private class RollupDbClient extends DummyDBClient {
+        private int timeSeriesQueries;
+        private int rowsRead;
+
+        @Override
+        public <T extends DataPoint> void queryTimeSeries(Class<? extends TimeSeries> tsType, DateTime timeBucket,
+                TimeBucket bucket, TimeSeriesQueryResult<T> callback, ExecutorService workerThreads) {
+            timeSeriesQueries++;
+            for (URI project : projects) {
+                for (int volume = 0; volume < VOLUMES_PER_PROJECT; volume++) {
+                    for (int sample = 0; sample < SAMPLES_PER_HOUR; sample++) {
+                        Stat stat = new Stat();
+                        stat.setResourceId(volumes.get(project).get(volume));
+                        stat.setProject(project);
+                        stat.setTenant(tenant);
+                        stat.setProvisionedCapacity(provisionedCapacity(project, volume));
+                        stat.setBandwidthIn(sample);
+                        long time = timeBucket.getMillis() + sample * HOUR / SAMPLES_PER_HOUR;
+                        stat.setTimeInMillis(time);
+                        callback.data((T) stat, time);
+                    }
+                }
+            }
+            callback.done();
+        }
+
+        @Override
+        public <T extends DataObject> List<T> queryObject(Class<T> clazz, Collection<URI> ids) {
+            List<T> objects = super.queryObject(clazz, ids);
+            rowsRead += objects.size();
+            return objects;
+        }
+
+        @Override
+        public List<URI> queryByConstraint(Constraint constraint) {
+            return new ArrayList<URI>();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.api.service.impl.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.emc.storageos.api.service.impl.response.ContinuationToken;
+import com.emc.storageos.db.client.DbClient;
+import com.emc.storageos.db.client.TimestampedURIQueryResult;
+import com.emc.storageos.db.client.constraint.Constraint;
+import com.emc.storageos.db.client.constraint.QueryResultList;
+import com.emc.storageos.db.client.model.Task;
+import com.emc.storageos.model.BulkIdParam;
+import com.emc.storageos.model.NamedRelatedResourceRep;
+import com.emc.storageos.model.tasks.TasksList;
+import com.emc.storageos.svcs.errorhandling.resources.APIException;
+import com.emc.storageos.svcs.errorhandling.resources.ServiceCode;
+
+/**
+ * Pages through the tasks of two tenants and through the task ids with continuation tokens, checking
+ * that every page starts right after the previous one and that a token is only returned while more may remain.
+ */
+public class TaskServiceTest {
+    private static final URI TENANT1 = URI.create("urn:storageos:TenantOrg:1:global");
+    private static final URI TENANT2 = URI.create("urn:storageos:TenantOrg:2:global");
+
+    private final List<URI> taskIds = new ArrayList<URI>();
+    private final List<URI> taskTenants = new ArrayList<URI>();
+    private TaskService taskService;
+
+    @Before
+    public void setUp() {
+        addTask("task1", TENANT1);
+        addTask("task2", TENANT1);
+        addTask("task3", TENANT1);
+        addTask("task4", TENANT2);
+        addTask("task5", TENANT2);
+
+        DbClient dbClient = mock(DbClient.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                Constraint constraint = (Constraint) invocation.getArguments()[0];
+                TimestampedURIQueryResult result = (TimestampedURIQueryResult) invocation.getArguments()[1];
+                URI startId = (URI) invocation.getArguments()[2];
+                int count = (Integer) invocation.getArguments()[3];
+
+                // the tasks of the tenant index row following startId, in the order of their ids
+                Object tenantId = constraint.toConstraintDescriptor().getArguments().get(0);
+                List<TimestampedURIQueryResult.TimestampedURI> tasks = new ArrayList<TimestampedURIQueryResult.TimestampedURI>();
+                for (int i = 0; i < taskIds.size() && tasks.size() < count; i++) {
+                    if (taskTenants.get(i).equals(tenantId) && (startId == null || taskIds.get(i).compareTo(startId) > 0)) {
+                        tasks.add(result.new TimestampedURI(taskIds.get(i), taskIds.get(i).toString(), (long) i));
+                    }
+                }
+                result.setResult(tasks.iterator());
+                return null;
+            }
+        }).when(dbClient).queryByConstraint(any(Constraint.class), any(QueryResultList.class), any(URI.class), anyInt());
+        when(dbClient.queryByType(eq(Task.class), eq(true), any(URI.class), anyInt())).thenAnswer(new Answer<List<URI>>() {
+            @Override
+            public List<URI> answer(InvocationOnMock invocation) {
+                URI startId = (URI) invocation.getArguments()[2];
+                int count = (Integer) invocation.getArguments()[3];
+                int start = startId == null ? 0 : taskIds.indexOf(startId) + 1;
+                return new ArrayList<URI>(taskIds.subList(start, Math.min(start + count, taskIds.size())));
+            }
+        });
+
+        taskService = new TaskService();
+        taskService.setDbClient(dbClient);
+    }
+
+    @Test
+    public void testTasksPages() {
+        TasksList page = getTasksPage(2, null);
+        assertEquals(Arrays.asList("task1", "task2"), names(page));
+        assertNotNull(page.getContinuation());
+
+        // the page goes on with the next tenant
+        page = getTasksPage(2, page.getContinuation());
+        assertEquals(Arrays.asList("task3", "task4"), names(page));
+        assertNotNull(page.getContinuation());
+
+        page = getTasksPage(2, page.getContinuation());
+        assertEquals(Arrays.asList("task5"), names(page));
+        assertNull(page.getContinuation());
+    }
+
+    @Test
+    public void testTasksPageBoundary() {
+        // a full page may be followed by more tasks, the next page tells
+        TasksList page = getTasksPage(5, null);
+        assertEquals(Arrays.asList("task1", "task2", "task3", "task4", "task5"), names(page));
+        ContinuationToken continuation = ContinuationToken.decode(page.getContinuation());
+        assertEquals(TENANT2, continuation.getParentId());
+        assertEquals(taskIds.get(4), continuation.getId());
+
+        page = getTasksPage(5, page.getContinuation());
+        assertEquals(Collections.<String> emptyList(), names(page));
+        assertNull(page.getContinuation());
+    }
+
+    @Test
+    public void testTasksPageWithBulkIdsContinuation() {
+        try {
+            getTasksPage(2, new ContinuationToken(taskIds.get(0)).encode());
+            fail("continuation without tenant accepted");
+        } catch (APIException e) {
+            assertEquals(ServiceCode.API_PARAMETER_INVALID, e.getServiceCode());
+        }
+    }
+
+    @Test
+    public void testBulkIdsPages() {
+        BulkIdParam page = taskService.queryBulkIds(null, 2);
+        assertEquals(taskIds.subList(0, 2), page.getIds());
+
+        page = taskService.queryBulkIds(ContinuationToken.decode(page.getContinuation()).getId(), 2);
+        assertEquals(taskIds.subList(2, 4), page.getIds());
+
+        page = taskService.queryBulkIds(ContinuationToken.decode(page.getContinuation()).getId(), 2);
+        assertEquals(taskIds.subList(4, 5), page.getIds());
+        assertNull(page.getContinuation());
+    }
+
+    @Test
+    public void testBulkIdsPageBoundary() {
+        // a full page may be followed by more ids, the next page tells
+        BulkIdParam page = taskService.queryBulkIds(null, 5);
+        assertEquals(taskIds, page.getIds());
+        assertEquals(taskIds.get(4), ContinuationToken.decode(page.getContinuation()).getId());
+
+        page = taskService.queryBulkIds(taskIds.get(4), 5);
+        assertEquals(Collections.<URI> emptyList(), page.getIds());
+        assertNull(page.getContinuation());
+    }
+
+    private TasksList getTasksPage(int maxCount, String continuation) {
+        Set<URI> tenantIds = new HashSet<URI>(Arrays.asList(TENANT2, TENANT1));
+        return taskService.getTasksPage(tenantIds, null, null, maxCount, ContinuationToken.decode(continuation));
+    }
+
+    private void addTask(String name, URI tenantId) {
+        taskIds.add(URI.create(name));
+        taskTenants.add(tenantId);
+    }
+
+    private static List<String> names(TasksList tasks) {
+        List<String> names = new ArrayList<String>();
+        for (NamedRelatedResourceRep task : tasks.getTasks()) {
+            names.add(task.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.api.service.impl.resource.blockingestorchestration;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.api.service.impl.resource.blockingestorchestration.context.impl.BaseIngestionRequestContext;
+import com.emc.storageos.api.service.impl.resource.utils.PropertySetterUtil.VolumeObjectProperties;
+import com.emc.storageos.api.service.impl.resource.utils.VolumeIngestionUtil;
+import com.emc.storageos.api.service.utils.DummyDBClient;
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.model.DataObject;
+import com.emc.storageos.db.client.model.StoragePool;
+import com.emc.storageos.db.client.model.StorageSystem;
+import com.emc.storageos.db.client.model.StringMap;
+import com.emc.storageos.db.client.model.StringSet;
+import com.emc.storageos.db.client.model.StringSetMap;
+import com.emc.storageos.db.client.model.VirtualPool;
+import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedVolume;
+import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedVolume.SupportedVolumeCharacterstics;
+
+/**
+ * Splits an ingestion request of a few hundred unmanaged volumes, a few of them snapshots or in
+ * consistency groups, and checks which volumes are read in bulk and which are read one at a time,
+ * in the order of the request, as they are ingested.
+ */
+public class IngestionRequestPartitionTest {
+    private static final int VOLUME_COUNT = 400;
+    private static final int POOL_COUNT = 4;
+    private static final int PARTITION_SIZE = 50;
+
+    private final List<URI> unManagedVolumeUris = new ArrayList<URI>();
+    private final Set<URI> dependentUris = new HashSet<URI>();
+    private CountingDbClient dbClient;
+    private VirtualPool vpool;
+
+    @Before
+    public void setUp() {
+        dbClient = new CountingDbClient();
+        dbClient.start();
+
+        vpool = new VirtualPool();
+        vpool.setId(URIUtil.createId(VirtualPool.class));
+        vpool.setLabel("vpool");
+        vpool.setMultivolumeConsistency(true);
+        vpool.setMaxNativeSnapshots(10);
+        dbClient.createObject(vpool);
+
+        StorageSystem system = new StorageSystem();
+        system.setId(URIUtil.createId(StorageSystem.class));
+        dbClient.createObject(system);
+
+        List<StoragePool> pools = new ArrayList<StoragePool>();
+        for (int i = 0; i < POOL_COUNT; i++) {
+            StoragePool pool = new StoragePool();
+            pool.setId(URIUtil.createId(StoragePool.class));
+            pool.setLabel("pool" + i);
+            dbClient.createObject(pool);
+            pools.add(pool);
+        }
+
+        for (int i = 0; i < VOLUME_COUNT; i++) {
+            UnManagedVolume unManagedVolume = new UnManagedVolume();
+            unManagedVolume.setId(URIUtil.createId(UnManagedVolume.class));
+            unManagedVolume.setLabel("volume" + i);
+            unManagedVolume.setStorageSystemUri(system.getId());
+            StoragePool pool = pools.get(i % POOL_COUNT);
+            unManagedVolume.setStoragePoolUri(pool.getId());
+            unManagedVolume.getSupportedVpoolUris().add(vpool.getId().toString());
+
+            StringSetMap volumeInformation = new StringSetMap();
+            StringSet poolUris = new StringSet();
+            poolUris.add(pool.getId().toString());
+            volumeInformation.put(VolumeObjectProperties.STORAGE_POOL.toString(), poolUris);
+            unManagedVolume.setVolumeInformation(volumeInformation);
+
+            StringMap volumeCharacterstics = new StringMap();
+            if (i % 20 == 0) {
+                volumeCharacterstics.put(SupportedVolumeCharacterstics.IS_SNAP_SHOT.toString(), Boolean.TRUE.toString());
+                dependentUris.add(unManagedVolume.getId());
+            } else if (i % 20 == 1) {
+                volumeCharacterstics.put(SupportedVolumeCharacterstics.IS_VOLUME_ADDED_TO_CONSISTENCYGROUP.toString(),
+                        Boolean.TRUE.toString());
+                dependentUris.add(unManagedVolume.getId());
+            }
+            unManagedVolume.setVolumeCharacterstics(volumeCharacterstics);
+
+            dbClient.createObject(unManagedVolume);
+            unManagedVolumeUris.add(unManagedVolume.getId());
+        }
+        dbClient.queries.set(0);
+    }
+
+    @Test
+    public void testPartition() {
+        BaseIngestionRequestContext requestContext = createRequestContext();
+        List<BaseIngestionRequestContext> partitions = requestContext.partition(PARTITION_SIZE);
+        // the volumes are read in bulk, and not kept
+        Assert.assertEquals(1, dbClient.queries.getAndSet(0));
+        Assert.assertTrue(requestContext.getStoragePoolCache().isEmpty());
+
+        int independentCount = VOLUME_COUNT - dependentUris.size();
+        Assert.assertEquals(1 + (independentCount + PARTITION_SIZE - 1) / PARTITION_SIZE, partitions.size());
+
+        // the dependent volumes are ingested together, in the order of the request
+        List<URI> expectedDependentUris = new ArrayList<URI>();
+        for (URI uri : unManagedVolumeUris) {
+            if (dependentUris.contains(uri)) {
+                expectedDependentUris.add(uri);
+            }
+        }
+        Assert.assertEquals(expectedDependentUris, getUris(partitions.get(0)));
+
+        List<URI> independentUris = new ArrayList<URI>();
+        for (BaseIngestionRequestContext partition : partitions.subList(1, partitions.size())) {
+            List<URI> uris = getUris(partition);
+            Assert.assertTrue(uris.size() <= PARTITION_SIZE);
+            independentUris.addAll(uris);
+        }
+        List<URI> expectedIndependentUris = new ArrayList<URI>(unManagedVolumeUris);
+        expectedIndependentUris.removeAll(dependentUris);
+        Assert.assertEquals(expectedIndependentUris, independentUris);
+
+        // the partitions share the storage systems and pools of the request
+        Assert.assertSame(requestContext.getStoragePoolCache(), partitions.get(1).getStoragePoolCache());
+        Assert.assertSame(requestContext.getStorageSystemCache(), partitions.get(1).getStorageSystemCache());
+    }
+
+    @Test
+    public void testPrefetchPartitions() {
+        List<BaseIngestionRequestContext> partitions = createRequestContext().partition(PARTITION_SIZE);
+        dbClient.queries.set(0);
+
+        // the first partition of independent volumes reads its volumes, their system and their pools
+        partitions.get(1).prefetch();
+        Assert.assertEquals(3, dbClient.queries.getAndSet(0));
+        Assert.assertEquals(POOL_COUNT, partitions.get(1).getStoragePoolCache().size());
+        Assert.assertEquals(1, partitions.get(1).getStorageSystemCache().size());
+
+        // the next ones only read their volumes, and validate them without reading anything else
+        partitions.get(2).prefetch();
+        Assert.assertEquals(1, dbClient.queries.getAndSet(0));
+        Assert.assertEquals(PARTITION_SIZE, validate(partitions.get(2)));
+        Assert.assertEquals(0, dbClient.queries.getAndSet(0));
+
+        // the dependent volumes are not prefetched, each of them is read as it's ingested
+        partitions.get(0).prefetch();
+        Assert.assertEquals(0, dbClient.queries.getAndSet(0));
+        getUris(partitions.get(0));
+        Assert.assertEquals(dependentUris.size(), dbClient.queries.getAndSet(0));
+    }
+
+    @Test
+    public void testPrefetchDependentVolumes() {
+        BaseIngestionRequestContext requestContext = createRequestContext();
+        requestContext.prefetch();
+
+        // volumes updated after the prefetch, as the ingestion of a related volume would
+        Set<URI> updatedUris = new HashSet<URI>();
+        for (URI uri : unManagedVolumeUris.subList(0, 3)) {
+            UnManagedVolume updated = new UnManagedVolume();
+            updated.setId(uri);
+            updated.setLabel("updated");
+            dbClient.createObject(updated);
+            updatedUris.add(uri);
+        }
+        dbClient.queries.set(0);
+
+        requestContext.reset();
+        while (requestContext.hasNext()) {
+            UnManagedVolume unManagedVolume = requestContext.next();
+            if (!updatedUris.contains(unManagedVolume.getId())) {
+                continue;
+            }
+            if (dependentUris.contains(unManagedVolume.getId())) {
+                Assert.assertEquals("updated", unManagedVolume.getLabel());
+            } else {
+                Assert.assertFalse("updated".equals(unManagedVolume.getLabel()));
+            }
+        }
+        Assert.assertEquals(dependentUris.size(), dbClient.queries.getAndSet(0));
+
+        // prefetched volumes are used once, the request is read again if iterated again
+        getUris(requestContext);
+        Assert.assertEquals(VOLUME_COUNT, dbClient.queries.get());
+    }
+
+    private int validate(BaseIngestionRequestContext requestContext) {
+        int count = 0;
+        requestContext.reset();
+        while (requestContext.hasNext()) {
+            UnManagedVolume unManagedVolume = requestContext.next();
+            VolumeIngestionUtil.checkIngestionRequestValidForUnManagedVolume(unManagedVolume,
+                    requestContext.getCurrentUnManagedVolumeUri(), vpool, requestContext.getStoragePoolCache(), dbClient);
+            count++;
+        }
+        return count;
+    }
+
+    private BaseIngestionRequestContext createRequestContext() {
+        return new BaseIngestionRequestContext(dbClient, unManagedVolumeUris, vpool, null, null, null, null);
+    }
+
+    private static List<URI> getUris(BaseIngestionRequestContext requestContext) {
+        List<URI> uris = new ArrayList<URI>();
+        requestContext.reset();
+        while (requestContext.hasNext()) {
+            uris.add(requestContext.next().getId());
+        }
+        return uris;
+    }
+
+    /**
+     * Counts the queries, whatever the number of objects each of them reads.
+     */
+    private static class CountingDbClient extends DummyDBClient {
+        private final AtomicInteger queries = new AtomicInteger();
+
+        @Override
+        public <T extends DataObject> T queryObject(Class<T> clazz, URI id) {
+            queries.incrementAndGet();
+            return super.queryObject(clazz, id);
+        }
+
+        @Override
+        public <T extends DataObject> List<T> queryObject(Class<T> clazz, Collection<URI> ids) {
+            queries.incrementAndGet();
+            return super.queryObject(clazz, ids);
+        }
+
+        @Override
+        public <T extends DataObject> Iterator<T> queryIterativeObjects(Class<T> clazz, Collection<URI> ids) {
+            queries.incrementAndGet();
+            return super.queryObject(clazz, ids).iterator();
+        }
+    }
+}
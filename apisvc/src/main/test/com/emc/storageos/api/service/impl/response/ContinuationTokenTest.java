@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.api.service.impl.response;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.emc.storageos.svcs.errorhandling.resources.APIException;
+import com.emc.storageos.svcs.errorhandling.resources.ServiceCode;
+
+public class ContinuationTokenTest extends Assert {
+    private static final URI TENANT = URI.create("urn:storageos:TenantOrg:5b2cd5a0-0da2-4bd1-87d9-3c0c7e5ba8e2:global");
+    private static final URI ID = URI.create("urn:storageos:Task:2b91947d-749f-4356-aad7-dcd7f7906197:vdc1");
+
+    @Test
+    public void testRoundTrip() {
+        String encoded = new ContinuationToken(TENANT, ID).encode();
+        // passed back as a query parameter as is
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+
+        ContinuationToken token = ContinuationToken.decode(encoded);
+        assertEquals(TENANT, token.getParentId());
+        assertEquals(ID, token.getId());
+    }
+
+    @Test
+    public void testIdOnly() {
+        ContinuationToken token = ContinuationToken.decode(new ContinuationToken(ID).encode());
+        assertNull(token.getParentId());
+        assertEquals(ID, token.getId());
+    }
+
+    @Test
+    public void testNoToken() {
+        assertNull(ContinuationToken.decode(null));
+        assertNull(ContinuationToken.decode(""));
+    }
+
+    @Test
+    public void testInvalidToken() {
+        assertInvalid("not a token");
+        assertInvalid(encode("not an id"));
+        assertInvalid(encode(" " + ID));
+        assertInvalid(encode(TENANT + " "));
+    }
+
+    private static void assertInvalid(String token) {
+        try {
+            ContinuationToken.decode(token);
+            fail("invalid token " + token + " accepted");
+        } catch (APIException e) {
+            assertEquals(ServiceCode.API_PARAMETER_INVALID, e.getServiceCode());
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.encodeBase64URLSafeString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -11,6 +11,8 @@ import java.util.Hashtable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.iwave.utility.ssh.SSHConnection;
+import com.iwave.utility.ssh.SSHSessionPool;
 import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSch;
@@ -23,6 +25,7 @@ public class SSHSession {
     Channel channel;
     InputStream ins;
     OutputStream outs;
+    SSHSessionPool.Lease lease;
 
     private static final Logger _log = LoggerFactory.getLogger(SSHSession.class);
     static final Integer timeout = 15000;           // in milliseconds
@@ -40,7 +43,27 @@ public class SSHSession {
         config.put("StrictHostKeyChecking", "no");
         session.setConfig(config);
         session.connect(timeout);
+        openShell();
+    }
 
+    /**
+     * Opens the shell channel on a session leased from the pool, so that the dialogs with a switch
+     * share a session. The lease is released on disconnect.
+     */
+    public void connect(String hostname, Integer port, String username, String password, SSHSessionPool pool)
+            throws Exception {
+        lease = pool.acquire(new SSHConnection(hostname, port, username, password), timeout);
+        session = lease.getSession();
+        try {
+            openShell();
+        } catch (Exception e) {
+            lease.invalidate();
+            lease = null;
+            throw e;
+        }
+    }
+
+    private void openShell() throws Exception {
         channel = session.openChannel("shell");
         ((ChannelShell) channel).setPtyType("vt102");
         // channel.setInputStream(System.in);
@@ -64,7 +87,12 @@ public class SSHSession {
 
     public void disconnect() {
         channel.disconnect();
-        session.disconnect();
+        if (lease != null) {
+            lease.release();
+            lease = null;
+        } else {
+            session.disconnect();
+        }
     }
 
     public JSch getJsch() {
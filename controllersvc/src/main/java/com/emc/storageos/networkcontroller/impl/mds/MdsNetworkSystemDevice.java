@@ -41,6 +41,7 @@ import com.emc.storageos.volumecontroller.ControllerException;
 import com.emc.storageos.volumecontroller.impl.BiosCommandResult;
 import com.emc.storageos.volumecontroller.impl.ControllerUtils;
 import com.google.common.collect.Sets;
+import com.iwave.utility.ssh.SSHSessionPool;
 
 public class MdsNetworkSystemDevice extends NetworkSystemDeviceImpl implements NetworkSystemDevice {
     private static final Logger _log = LoggerFactory.getLogger(MdsNetworkSystemDevice.class);
@@ -60,7 +61,8 @@ public class MdsNetworkSystemDevice extends NetworkSystemDeviceImpl implements N
     private MDSDialog setUpDialog(NetworkSystem networkSystem) throws NetworkDeviceControllerException {
         try {
             SSHSession session = new SSHSession();
-            session.connect(networkSystem.getIpAddress(), networkSystem.getPortNumber(), networkSystem.getUsername(), networkSystem.getPassword());
+            session.connect(networkSystem.getIpAddress(), networkSystem.getPortNumber(), networkSystem.getUsername(),
+                    networkSystem.getPassword(), SSHSessionPool.getInstance());
             MDSDialog dialog = new MDSDialog(session, getDefaultTimeout());
             dialog.initialize();
             return dialog;
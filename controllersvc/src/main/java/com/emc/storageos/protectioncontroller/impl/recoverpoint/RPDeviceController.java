@@ -2332,13 +2332,22 @@ public class RPDeviceController implements RPController, BlockOrchestrationInter
             } else {
                 List<RecoverPointVolumeProtectionInfo> replicationSetsToRemove = new ArrayList<RecoverPointVolumeProtectionInfo>();
                 List<String> removeVolumeIDs = new ArrayList<String>();
+                // Look up the replication sets of all the volumes at once
+                Map<URI, String> volumeWWNs = new HashMap<URI, String>();
+                for (Volume volume : volumes) {
+                    volumeWWNs.put(volume.getId(), RPHelper.getRPWWn(volume.getId(), _dbClient));
+                }
+                Map<String, RecoverPointVolumeProtectionInfo> volumeProtectionInfos = rp.getProtectionInfoForVolumes(volumeWWNs.values());
                 for (Volume volume : volumes) {
                     _log.info(String.format("Volume [%s] (%s) needs to have its replication set removed from RP", volume.getLabel(),
                             volume.getId()));
 
                     // Delete the replication set if there are more volumes (other replication sets).
                     // If there are no other replications sets we will simply delete the CG instead.
-                    volumeProtectionInfo = rp.getProtectionInfoForVolume(RPHelper.getRPWWn(volume.getId(), _dbClient));
+                    volumeProtectionInfo = volumeProtectionInfos.get(volumeWWNs.get(volume.getId()));
+                    if (volumeProtectionInfo == null) {
+                        throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWNs.get(volume.getId()));
+                    }
 
                     // Volume Info to give RP to clean up the RSets
                     replicationSetsToRemove.add(volumeProtectionInfo);
@@ -2368,10 +2377,18 @@ public class RPDeviceController implements RPController, BlockOrchestrationInter
                     _log.info("There are no journal volumes to be deleted");
                 } else {
                     List<Volume> journalVolumes = _dbClient.queryObject(Volume.class, journalVolumeIDs);
+                    Map<URI, String> journalWWNs = new HashMap<URI, String>();
                     for (Volume journalVolume : journalVolumes) {
-                        String journalWWN = RPHelper.getRPWWn(journalVolume.getId(), _dbClient);
+                        journalWWNs.put(journalVolume.getId(), RPHelper.getRPWWn(journalVolume.getId(), _dbClient));
+                    }
+                    Map<String, RecoverPointVolumeProtectionInfo> journalProtectionInfos = rp.getProtectionInfoForVolumes(journalWWNs.values());
+                    for (Volume journalVolume : journalVolumes) {
+                        String journalWWN = journalWWNs.get(journalVolume.getId());
                         _log.info(String.format("Removing Journal volume - %s : WWN - %s", journalVolume.getLabel(), journalWWN));
-                        volumeProtectionInfo = rp.getProtectionInfoForVolume(journalWWN);
+                        volumeProtectionInfo = journalProtectionInfos.get(journalWWN);
+                        if (volumeProtectionInfo == null) {
+                            throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(journalWWN);
+                        }
                         rp.deleteJournalFromCopy(volumeProtectionInfo, journalWWN);
                         removeVolumeIDs.add(journalVolume.getId().toString());
                     }
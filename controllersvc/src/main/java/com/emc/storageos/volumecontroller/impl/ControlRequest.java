@@ -19,6 +19,7 @@ public class ControlRequest implements Serializable {
     private static final String DEVICE_INFO_NAME = "deviceinfo";
     private static final String TIMESTAMP = "timestamp";
     private static final String LOCK_GROUP = "lockGroup";
+    private static final String TENANT = "tenant";
 
     private Map<String, Object> _req = new HashMap<String, Object>();
 
@@ -67,6 +68,17 @@ public class ControlRequest implements Serializable {
         return (String) _req.get(LOCK_GROUP);
     }
 
+    public void setTenant(String tenant) {
+        _req.put(TENANT, tenant);
+    }
+
+    /**
+     * @return tenant of the request, null if unknown or queued by an older version
+     */
+    public String getTenant() {
+        return (String) _req.get(TENANT);
+    }
+
     @SuppressWarnings({ "squid:S2118" })
     public byte[] serialize() {
         try {
@@ -69,6 +69,7 @@ import com.emc.storageos.volumecontroller.impl.plugins.discovery.smis.DataCollec
 import com.emc.storageos.volumecontroller.impl.plugins.discovery.smis.DataCollectionJobSerializer;
 import com.emc.storageos.volumecontroller.impl.plugins.discovery.smis.DiscoverTaskCompleter;
 import com.emc.storageos.volumecontroller.impl.plugins.discovery.smis.ScanTaskCompleter;
+import com.emc.storageos.volumecontroller.impl.plugins.metering.StatRollupCompute;
 import com.emc.storageos.volumecontroller.impl.smis.CIMConnectionFactory;
 import com.emc.storageos.volumecontroller.impl.smis.SmisCommandHelper;
 import com.emc.storageos.volumecontroller.impl.smis.ibm.xiv.XIVSmisCommandHelper;
@@ -111,6 +112,11 @@ public class ControllerServiceImpl implements ControllerService {
     public static final String CUSTOM_CONFIG_PATH = "customconfigleader";
     public static final long DEFAULT_CAPACITY_COMPUTE_DELAY = 5;
     public static final long DEFAULT_CAPACITY_COMPUTE_INTERVAL = 3600;
+    public static final String STAT_ROLLUP_DELAY = "stat-rollup-delay";
+    public static final String STAT_ROLLUP_INTERVAL = "stat-rollup-interval";
+    public static final String STAT_ROLLUP_LEADER_PATH = "statrollupleader";
+    public static final long DEFAULT_STAT_ROLLUP_DELAY = 60;
+    public static final long DEFAULT_STAT_ROLLUP_INTERVAL = 900;
     private static final String CONTROLLER_JOB_QUEUE_EXECUTION_TIMEOUT_MINUTES = "controller_job_queue_execution_timeout_minutes";
     public static final String WBEM_CLIENT_HTTP_TIMEOUT_PROPERTY_NAME = "sblim.wbem.httpTimeout";
     public static final String WBEM_CLIENT_HTTP_TIMEOUT_MINUTES = "controller_sblim_wbem_client_http_timeout_minutes";
@@ -162,6 +168,8 @@ public class ControllerServiceImpl implements ControllerService {
     
     ManagedCapacityImpl _capacityCompute;
     LeaderSelector _capacityService;
+    StatRollupCompute _statRollupCompute;
+    LeaderSelector _statRollupService;
 
     public static enum Lock {
         SCAN_COLLECTION_LOCK("lock-scancollectionjob-"),
@@ -448,6 +456,10 @@ public class ControllerServiceImpl implements ControllerService {
         _capacityCompute = capacityCompute;
     }
 
+    public void setStatRollupCompute(StatRollupCompute statRollupCompute) {
+        _statRollupCompute = statRollupCompute;
+    }
+
     /**
      * Set DataObjectScanner
      * 
@@ -550,6 +562,7 @@ public class ControllerServiceImpl implements ControllerService {
         _svcBeacon.start();
 
         startCapacityService();
+        startStatRollupService();
         loadCustomConfigDefaults();
     }
 
@@ -587,6 +600,7 @@ public class ControllerServiceImpl implements ControllerService {
         }
 
         _capacityService.close();
+        _statRollupService.close();
     }
 
     /**
@@ -697,6 +711,25 @@ public class ControllerServiceImpl implements ControllerService {
         _capacityService.start();
     }
 
+    private void startStatRollupService() {
+        long delay = DEFAULT_STAT_ROLLUP_DELAY;
+        String delay_str = _configInfo.get(STAT_ROLLUP_DELAY);
+        if (delay_str != null) {
+            delay = Long.parseLong(delay_str);
+        }
+        long interval = DEFAULT_STAT_ROLLUP_INTERVAL;
+        String interval_str = _configInfo.get(STAT_ROLLUP_INTERVAL);
+        if (interval_str != null) {
+            interval = Long.parseLong(interval_str);
+        }
+        LeaderSelectorListenerForPeriodicTask executor = new LeaderSelectorListenerForPeriodicTask(_statRollupCompute, delay, interval);
+
+        _statRollupService = _coordinator.getLeaderSelector(STAT_ROLLUP_LEADER_PATH,
+                executor);
+        _statRollupService.autoRequeue();
+        _statRollupService.start();
+    }
+
     private void startLockQueueService() {
         // Configure coordinator with the owner lock around-hook.
         DistributedAroundHook aroundHook = _distributedOwnerLockService.getDistributedOwnerLockAroundHook();
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.volumecontroller.impl;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.emc.storageos.coordinator.client.service.AdjustableDistributedSemaphore;
+import com.emc.storageos.coordinator.client.service.CoordinatorClient;
+import com.emc.storageos.coordinator.client.service.DistributedSemaphore;
+import com.emc.storageos.services.util.NamedScheduledThreadPoolExecutor;
+
+/**
+ * Adjusts the number of concurrent Dispatcher calls allowed per device, based on the latency and
+ * error rate observed for the device (additive increase / multiplicative decrease).
+ *
+ * Every device starts with the number of connections configured for its type in the Dispatcher
+ * and may grow up to MAX_PERMITS_GROWTH_FACTOR times that number. The permits are held in an
+ * adjustable distributed semaphore, so a change made by one controller node applies to all nodes.
+ *
+ * Requests for background methods (discovery, scans, metering...) can only use a share of the
+ * permits of a device, the rest is kept for interactive provisioning requests. The share is
+ * counted per controller node: each node lets background requests hold up to that share of the
+ * cluster wide permits, so with several nodes background work can take more of the device.
+ *
+ * The current limits, observed latencies and lease waits are exposed through JMX.
+ */
+@ManagedResource(objectName = DeviceConcurrencyGovernor.MBEAN_NAME, description = "Dispatcher device concurrency governor")
+public class DeviceConcurrencyGovernor {
+    private static final Logger _log = LoggerFactory.getLogger(DeviceConcurrencyGovernor.class);
+    public static final String MBEAN_NAME = "com.emc.storageos.volumecontroller.impl:name=DeviceConcurrencyGovernor";
+
+    private static final long DEFAULT_ADJUST_INTERVAL_SECONDS = 60;
+    // don't adjust on a handful of calls, the latency of a single call says nothing
+    private static final int MIN_CALLS_TO_ADJUST = 5;
+    private static final double MAX_ERROR_RATE = 0.2;
+    private static final double LATENCY_DEGRADATION_FACTOR = 2.0;
+    private static final double BASELINE_LATENCY_WEIGHT = 0.2;
+    private static final int MAX_PERMITS_GROWTH_FACTOR = 2;
+    private static final double BACKGROUND_PERMITS_SHARE = 0.5;
+
+    private CoordinatorClient _coordinator;
+    private long _adjustIntervalSeconds = DEFAULT_ADJUST_INTERVAL_SECONDS;
+    private final ConcurrentMap<URI, DeviceState> _devices = new ConcurrentHashMap<URI, DeviceState>();
+    private ScheduledExecutorService _adjustExecutor;
+
+    /**
+     * Statistics and limits of one device. Counters are reset at every adjustment.
+     */
+    private static class DeviceState {
+        private final URI _uri;
+        private final String _type;
+        private final AdjustableDistributedSemaphore _semaphore;
+        private final int _minPermits = 1;
+        private final int _maxPermits;
+        private final AtomicInteger _backgroundInFlight = new AtomicInteger();
+
+        private long _calls;
+        private long _errors;
+        private long _latencyMillis;
+        private long _leaseWaits;
+        private long _leaseWaitMillis;
+        private long _leaseTimeouts;
+        private double _baselineLatencyMillis;
+        private String _lastDecision = "none";
+
+        DeviceState(URI uri, String type, AdjustableDistributedSemaphore semaphore, int configuredPermits) {
+            _uri = uri;
+            _type = type;
+            _semaphore = semaphore;
+            _maxPermits = configuredPermits * MAX_PERMITS_GROWTH_FACTOR;
+        }
+    }
+
+    public void setCoordinator(CoordinatorClient coordinator) {
+        _coordinator = coordinator;
+    }
+
+    /**
+     * Sets how often the limits are re-evaluated.
+     *
+     * @param adjustIntervalSeconds interval in seconds
+     */
+    public void setAdjustIntervalSeconds(long adjustIntervalSeconds) {
+        _adjustIntervalSeconds = adjustIntervalSeconds;
+    }
+
+    public void start() {
+        _adjustExecutor = new NamedScheduledThreadPoolExecutor(DeviceConcurrencyGovernor.class.getSimpleName(), 1);
+        _adjustExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    adjust();
+                } catch (Exception e) {
+                    _log.warn("Problem adjusting device concurrency limits", e);
+                }
+            }
+        }, _adjustIntervalSeconds, _adjustIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (_adjustExecutor != null) {
+            _adjustExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the adjustable semaphore of a device, creating it on first use.
+     *
+     * @param uri device URI
+     * @param type device type
+     * @param configuredPermits number of connections configured for the device type
+     * @return the semaphore, null if it could not be created
+     */
+    public DistributedSemaphore getSemaphore(URI uri, String type, int configuredPermits) {
+        DeviceState state = _devices.get(uri);
+        if (state == null) {
+            synchronized (this) {
+                state = _devices.get(uri);
+                if (state == null) {
+                    try {
+                        AdjustableDistributedSemaphore semaphore = _coordinator.getAdjustableSemaphore(uri.toString(), configuredPermits);
+                        state = new DeviceState(uri, type, semaphore, configuredPermits);
+                        _devices.put(uri, state);
+                    } catch (Exception e) {
+                        _log.error("Error getting adjustable semaphore for device: {}", uri, e);
+                        return null;
+                    }
+                }
+            }
+        }
+        return state._semaphore;
+    }
+
+    /**
+     * @param methodName controller method name
+     * @return true if the method is a background task
+     */
+    public boolean isBackground(String methodName) {
+        return DispatcherLaneScheduler.OperationClass.fromMethodName(methodName) == DispatcherLaneScheduler.OperationClass.background;
+    }
+
+    /**
+     * Reserves a background slot on the device, background requests of this node may only hold a share of the permits.
+     * Must be followed by exitBackground() if successful.
+     *
+     * @param uri device URI
+     * @return true if the background request may proceed
+     */
+    public boolean tryEnterBackground(URI uri) {
+        DeviceState state = _devices.get(uri);
+        if (state == null) {
+            return true;
+        }
+        int limit = Math.max(1, (int) (state._semaphore.getMaxPermits() * BACKGROUND_PERMITS_SHARE));
+        while (true) {
+            int current = state._backgroundInFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (state._backgroundInFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void exitBackground(URI uri) {
+        DeviceState state = _devices.get(uri);
+        if (state != null) {
+            state._backgroundInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Records how long a request waited for a lease of the device semaphore.
+     *
+     * @param uri device URI
+     * @param waitMillis time spent waiting
+     * @param acquired false if the wait timed out
+     */
+    public void recordLeaseWait(URI uri, long waitMillis, boolean acquired) {
+        DeviceState state = _devices.get(uri);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state._leaseWaits++;
+            state._leaseWaitMillis += waitMillis;
+            if (!acquired) {
+                state._leaseTimeouts++;
+            }
+        }
+    }
+
+    /**
+     * Records a call dispatched to the device.
+     *
+     * @param uri device URI
+     * @param latencyMillis duration of the call
+     * @param failed true if the call failed
+     */
+    public void recordCall(URI uri, long latencyMillis, boolean failed) {
+        DeviceState state = _devices.get(uri);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state._calls++;
+            state._latencyMillis += latencyMillis;
+            if (failed) {
+                state._errors++;
+            }
+        }
+    }
+
+    /**
+     * Re-evaluates the permits of every device from the calls observed since the last evaluation.
+     * Halves the permits of a device that fails often or got much slower than usual. Adds one permit
+     * to a device that served enough calls without either, or that had requests time out waiting
+     * for a lease, until the permits reach the maximum of the device.
+     */
+    void adjust() throws Exception {
+        for (DeviceState state : _devices.values()) {
+            long calls;
+            long errors;
+            long latencyMillis;
+            long leaseTimeouts;
+            synchronized (state) {
+                calls = state._calls;
+                errors = state._errors;
+                latencyMillis = state._latencyMillis;
+                leaseTimeouts = state._leaseTimeouts;
+                if (calls < MIN_CALLS_TO_ADJUST && leaseTimeouts == 0) {
+                    continue;
+                }
+                state._calls = 0;
+                state._errors = 0;
+                state._latencyMillis = 0;
+                state._leaseWaits = 0;
+                state._leaseWaitMillis = 0;
+                state._leaseTimeouts = 0;
+            }
+
+            int permits = state._semaphore.getMaxPermits();
+            int newPermits = permits;
+            double errorRate = calls == 0 ? 0 : (double) errors / calls;
+            double avgLatency = calls == 0 ? 0 : (double) latencyMillis / calls;
+            boolean slow = state._baselineLatencyMillis > 0 && avgLatency > state._baselineLatencyMillis * LATENCY_DEGRADATION_FACTOR;
+            if (calls >= MIN_CALLS_TO_ADJUST && (errorRate > MAX_ERROR_RATE || slow)) {
+                newPermits = Math.max(state._minPermits, permits / 2);
+                state._lastDecision = String.format("decrease (error rate %.2f, latency %.0fms, baseline %.0fms)",
+                        errorRate, avgLatency, state._baselineLatencyMillis);
+            } else {
+                if (calls >= MIN_CALLS_TO_ADJUST) {
+                    state._baselineLatencyMillis = state._baselineLatencyMillis == 0 ? avgLatency
+                            : (1 - BASELINE_LATENCY_WEIGHT) * state._baselineLatencyMillis + BASELINE_LATENCY_WEIGHT * avgLatency;
+                }
+                if (permits >= state._maxPermits) {
+                    state._lastDecision = "keep (at maximum)";
+                } else {
+                    newPermits = permits + 1;
+                    state._lastDecision = String.format("increase (%d calls, latency %.0fms, %d lease timeouts)",
+                            calls, avgLatency, leaseTimeouts);
+                }
+            }
+
+            if (newPermits != permits) {
+                if (state._semaphore.setMaxPermits(newPermits)) {
+                    _log.info("Changed permits of {} device {} from {} to {}: {}", state._type, state._uri, permits, newPermits,
+                            state._lastDecision);
+                } else {
+                    _log.info("Permits of {} device {} were changed by another node, skip this adjustment", state._type, state._uri);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return current permits, background requests in flight and statistics of the current window per device
+     */
+    @ManagedAttribute(description = "Current concurrency limits and statistics per device")
+    public Map<String, String> getDeviceLimits() {
+        Map<String, String> limits = new TreeMap<String, String>();
+        for (DeviceState state : _devices.values()) {
+            synchronized (state) {
+                limits.put(state._uri.toString(), String.format(
+                        "type=%s permits=%d max=%d background=%d calls=%d errors=%d avgLatencyMs=%d baselineMs=%.0f "
+                                + "leaseWaits=%d avgLeaseWaitMs=%d leaseTimeouts=%d lastDecision=%s",
+                        state._type, state._semaphore.getMaxPermits(), state._maxPermits, state._backgroundInFlight.get(),
+                        state._calls, state._errors, state._calls == 0 ? 0 : state._latencyMillis / state._calls,
+                        state._baselineLatencyMillis, state._leaseWaits,
+                        state._leaseWaits == 0 ? 0 : state._leaseWaitMillis / state._leaseWaits,
+                        state._leaseTimeouts, state._lastDecision));
+            }
+        }
+        return limits;
+    }
+}
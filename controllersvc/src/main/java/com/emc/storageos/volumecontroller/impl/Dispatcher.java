@@ -18,6 +18,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -27,6 +28,8 @@ import org.apache.curator.framework.recipes.locks.Lease;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 
 import com.emc.storageos.Controller;
 import com.emc.storageos.coordinator.client.service.CoordinatorClient;
@@ -36,6 +39,7 @@ import com.emc.storageos.coordinator.client.service.DistributedQueue;
 import com.emc.storageos.coordinator.client.service.DistributedQueueItemProcessedCallback;
 import com.emc.storageos.coordinator.client.service.DistributedSemaphore;
 import com.emc.storageos.coordinator.client.service.impl.DistributedQueueConsumer;
+import com.emc.storageos.coordinator.client.service.impl.RequestTenant;
 import com.emc.storageos.coordinator.exceptions.CoordinatorException;
 import com.emc.storageos.exceptions.ClientControllerException;
 import com.emc.storageos.exceptions.DeviceControllerException;
@@ -46,9 +50,14 @@ import com.google.common.base.Joiner;
 
 /**
  * Main API for queueing / dispatching calls to device specific controller implementations.
+ *
+ * Requests consumed from each queue go through a DispatcherLaneScheduler, which shares the method
+ * executor of the queue fairly between tenants and operation classes.
  */
+@ManagedResource(objectName = Dispatcher.MBEAN_NAME, description = "Controller dispatcher")
 public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
     private static final Logger _log = LoggerFactory.getLogger(Dispatcher.class);
+    public static final String MBEAN_NAME = "com.emc.storageos.volumecontroller.impl:name=Dispatcher";
     // todo separate queue per build?
     private static final String QUEUE_NAME = "controller";
     private static final int DEFAULT_MAX_THREADS = 10;
@@ -75,6 +84,7 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
         Integer _queue_max_item;
         DistributedQueue<ControlRequest> _queue;
         ScheduledThreadPoolExecutor _methodPoolExecutor;
+        DispatcherLaneScheduler _laneScheduler;
 
         DispatcherQueue(QueueName name, Integer poolSize, Integer maxItem) {
             _queue_name = name;
@@ -114,6 +124,14 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
         public void setMethodPoolExecutor(ScheduledThreadPoolExecutor executor) {
             _methodPoolExecutor = executor;
         }
+
+        public DispatcherLaneScheduler getLaneScheduler() {
+            return _laneScheduler;
+        }
+
+        public void setLaneScheduler(DispatcherLaneScheduler laneScheduler) {
+            _laneScheduler = laneScheduler;
+        }
     }
 
     DispatcherQueue[] _queues = {
@@ -154,6 +172,9 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
     private final ConcurrentMap<URI, DistributedSemaphore> _deviceSemaphoreMap = new ConcurrentHashMap<URI, DistributedSemaphore>();
     private int _acquireLeaseWaitTimeSeconds = ACQUIRE_LEASE_WAIT_TIME_SECONDS;
     private int _acquireLeaseRetryWaitTimeSeconds = ACQUIRE_LEASE_RETRY_WAIT_TIME__SECONDS;
+    private DeviceConcurrencyGovernor _concurrencyGovernor;
+    private Map<String, Integer> _laneWeights;
+    private Map<String, Long> _laneLatencySloMillis;
 
     private DistributedLockQueueManager<ControlRequest> _lockQueueManager;
 
@@ -161,6 +182,8 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
      * This method implements the logic for acquiring a device-specific semaphore.
      * To get a semaphore, the device-specific configuration must include setting up maxConnections
      * in _deviceMaxConnectionMap.
+     * If a concurrency governor is configured, the semaphore is adjustable and maxConnections is only
+     * the initial number of permits.
      * 
      * @param info Light wrapper of needed device properties (e.g., URI, DeviceType)
      * @return DistributedSemaphore instance, if maxConnections exists.
@@ -173,7 +196,12 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
         DistributedSemaphore deviceSemaphore = _deviceSemaphoreMap.get(info.getURI());
         if (deviceSemaphore == null && _deviceMaxConnectionMap != null) {
             Integer maxConnections = _deviceMaxConnectionMap.get(info.getType());
-            if (maxConnections != null) {
+            if (maxConnections != null && _concurrencyGovernor != null) {
+                deviceSemaphore = _concurrencyGovernor.getSemaphore(info.getURI(), info.getType(), maxConnections.intValue());
+                if (deviceSemaphore != null) {
+                    _deviceSemaphoreMap.put(info.getURI(), deviceSemaphore);
+                }
+            } else if (maxConnections != null) {
                 synchronized (this) {
                     try {
                         deviceSemaphore = _deviceSemaphoreMap.get(info.getURI());
@@ -228,6 +256,7 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
             boolean bInvocationProblem = false;
             boolean bRetryLock = false;
             boolean isStale = false;
+            boolean inBackgroundSlot = false;
             try {
                 // Reset the thread name temporarily so that the log lines don't
                 // reference a thread name that may have already completed its work.
@@ -259,6 +288,8 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
                     Thread.currentThread().setName(threadNameBuilder.toString());
                 }
                 ControllerUtils.setThreadLocalLogData(resourceId, opId);
+                // requests queued by the method, such as workflow steps, run in the lane of the same tenant
+                RequestTenant.set(_item.getTenant());
                 long now = System.currentTimeMillis();
                 long timeSinceItemCreation = now - _item.getTimestamp();
                 if (timeSinceItemCreation < STALE_ITEM_THRESHOLD) {
@@ -266,15 +297,26 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
                         // this device did not specify maxConnections.
                         _log.info("Dispatching task {}: {}", _method.getName(), _args);
                         _method.invoke(_innerController, _args);
+                    } else if (isThrottledBackgroundTask()) {
+                        // background tasks already use their share of the device, leave the rest to interactive requests
+                        _log.info("Rescheduling background task {}: {}", _method.getName(), _args);
+                        submitLater(_acquireLeaseRetryWaitTimeSeconds);
+                        bRetryLease = true;
                     } else {
+                        inBackgroundSlot = _concurrencyGovernor != null && _concurrencyGovernor.isBackground(_method.getName());
+                        URI deviceURI = _item.getDeviceInfo().getURI();
+                        long leaseWaitStart = System.currentTimeMillis();
                         lease = _deviceSemaphore.acquireLease(_acquireLeaseWaitTimeSeconds, TimeUnit.SECONDS);
+                        if (_concurrencyGovernor != null) {
+                            _concurrencyGovernor.recordLeaseWait(deviceURI, System.currentTimeMillis() - leaseWaitStart, lease != null);
+                        }
                         if (lease != null) {
                             _log.info("Dispatching task {}: {}", _method.getName(), _args);
-                            _method.invoke(_innerController, _args);
+                            invokeAndRecord(deviceURI);
                         } else {
                             // Could not get a lease. Retry.
                             _log.info("Rescheduling task {}: {}", _method.getName(), _args);
-                            _queue.getMethodPoolExecutor().schedule(this, _acquireLeaseRetryWaitTimeSeconds, TimeUnit.SECONDS);
+                            submitLater(_acquireLeaseRetryWaitTimeSeconds);
                             bRetryLease = true;
                         }
                     }
@@ -290,7 +332,7 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
                     _item.setLockGroup(lockEx.getLockIdentifier());
                     if (!addRequestToLockQueue(lockEx, _item)) {
                         _log.warn("Rescheduling task {}: {}", _method.getName(), _args);
-                        _queue.getMethodPoolExecutor().schedule(this, LOCK_RETRY_WAIT_TIME_SECONDS, TimeUnit.SECONDS);
+                        submitLater(LOCK_RETRY_WAIT_TIME_SECONDS);
                         bRetryLock = true;
                     }
                 } else {
@@ -301,10 +343,14 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
                 _log.warn("Problem executing task: " + _method.getName() + "; {}", _args, e);
                 bInvocationProblem = true;
             } finally {
+                RequestTenant.set(null);
                 try {
                     if (_deviceSemaphore != null && lease != null) {
                         _deviceSemaphore.returnLease(lease);
                     }
+                    if (inBackgroundSlot) {
+                        _concurrencyGovernor.exitBackground(_item.getDeviceInfo().getURI());
+                    }
                     if ((!bRetryLease && !bInvocationProblem && !bRetryLock) || isStale) {
                         // The method was invoked. Cleanup.
                         _callback.itemProcessed();
@@ -315,6 +361,58 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
                 }
             }
         }
+
+        /**
+         * Queues the request in its lane of the lane scheduler of the queue.
+         */
+        void submit() {
+            _queue.getLaneScheduler().submit(_item.getTenant(),
+                    DispatcherLaneScheduler.OperationClass.fromMethodName(_method.getName()), this);
+        }
+
+        /**
+         * Queues the request in its lane again after a delay. The request doesn't hold an executor
+         * slot of the lane scheduler while it waits.
+         *
+         * @param delaySeconds delay in seconds
+         */
+        private void submitLater(long delaySeconds) {
+            _queue.getMethodPoolExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    submit();
+                }
+            }, delaySeconds, TimeUnit.SECONDS);
+        }
+
+        /**
+         * @return true if this is a background task and the device has no background slot left;
+         *         otherwise a background slot is reserved for the task
+         */
+        private boolean isThrottledBackgroundTask() {
+            return _concurrencyGovernor != null && _concurrencyGovernor.isBackground(_method.getName())
+                    && !_concurrencyGovernor.tryEnterBackground(_item.getDeviceInfo().getURI());
+        }
+
+        /**
+         * Invokes the controller method and reports its duration and outcome to the concurrency governor.
+         */
+        private void invokeAndRecord(URI deviceURI) throws IllegalAccessException, InvocationTargetException {
+            long start = System.currentTimeMillis();
+            boolean failed = true;
+            try {
+                _method.invoke(_innerController, _args);
+                failed = false;
+            } catch (InvocationTargetException e) {
+                // a lock retry is not a device problem
+                failed = !(e.getCause() instanceof LockRetryException);
+                throw e;
+            } finally {
+                if (_concurrencyGovernor != null) {
+                    _concurrencyGovernor.recordCall(deviceURI, System.currentTimeMillis() - start, failed);
+                }
+            }
+        }
     }
 
     /**
@@ -390,6 +488,15 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
         _deviceMaxConnectionMap = deviceMaxConnectionMap;
     }
 
+    /**
+     * Sets the governor which adjusts device connection limits at runtime, if configured.
+     * 
+     * @param concurrencyGovernor
+     */
+    public void setConcurrencyGovernor(DeviceConcurrencyGovernor concurrencyGovernor) {
+        _concurrencyGovernor = concurrencyGovernor;
+    }
+
     /**
      * Sets _methodExecutorPoolSize, if configured.
      * 
@@ -418,7 +525,39 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
     }
 
     /**
-     * Creates _methodPoolExecutor for each Queue
+     * Sets weights of the operation classes of the queue lanes, if configured.
+     * 
+     * @param laneWeights <OperationClass, Weight>
+     */
+    public void setLaneWeights(Map<String, Integer> laneWeights) {
+        _laneWeights = laneWeights;
+    }
+
+    /**
+     * Sets queue wait objectives of the operation classes of the queue lanes, if configured.
+     * 
+     * @param laneLatencySloMillis <OperationClass, MaxQueueWaitMillis>
+     */
+    public void setLaneLatencySloMillis(Map<String, Long> laneLatencySloMillis) {
+        _laneLatencySloMillis = laneLatencySloMillis;
+    }
+
+    /**
+     * @return queue wait statistics of the lanes of every queue
+     */
+    @ManagedAttribute(description = "Queue wait statistics per queue, tenant and operation class")
+    public Map<String, String> getLaneStatistics() {
+        Map<String, String> stats = new TreeMap<String, String>();
+        for (DispatcherQueue q : getQueues()) {
+            if (q.getLaneScheduler() != null) {
+                stats.putAll(q.getLaneScheduler().getLaneStatistics());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Creates _methodPoolExecutor and the lane scheduler for each Queue
      */
     public void build() {
         for (DispatcherQueue q : getQueues()) {
@@ -432,6 +571,11 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
                         }
                     }
                     );
+            DispatcherLaneScheduler laneScheduler = new DispatcherLaneScheduler(q.getQueueName().name(),
+                    q.getMethodPoolExecutor(), q.getMethodExecutorPoolSize());
+            laneScheduler.setWeights(_laneWeights);
+            laneScheduler.setLatencySloMillis(_laneLatencySloMillis);
+            q.setLaneScheduler(laneScheduler);
         }
     }
 
@@ -490,6 +634,7 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
             if (QueueName.controller.equals(queueName)) {
                 checkZkStepToWorkflowSize();
             }
+            req.setTenant(RequestTenant.get());
             getQueue(queueName).getQueue().put(req);
         } catch (final CoordinatorException e) {
             throw ClientControllerException.retryables.queueToBusy();
@@ -581,8 +726,7 @@ public class Dispatcher extends DistributedQueueConsumer<ControlRequest> {
 
     @Override
     public void consumeItem(ControlRequest item, DistributedQueueItemProcessedCallback callback) throws Exception {
-        DispatcherQueue queue = getQueue(item.getQueueName());
-        queue.getMethodPoolExecutor().execute(new DeviceMethodInvoker(item, callback));
+        new DeviceMethodInvoker(item, callback).submit();
     }
 
     /**
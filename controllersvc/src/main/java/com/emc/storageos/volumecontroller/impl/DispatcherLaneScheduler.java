@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.volumecontroller.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Weighted fair scheduler in front of the method executor of a Dispatcher queue.
+ *
+ * Requests consumed from the distributed queue are put in a lane per (tenant, operation class)
+ * and at most maxInFlight of them are handed to the executor at a time. When a slot frees up
+ * the next request is taken from the lane with the lowest pass (stride scheduling), so every
+ * lane gets executor slots in proportion to the weight of its operation class, regardless of
+ * how many requests other tenants have queued. Lanes of the same class share slots equally.
+ *
+ * Queue wait per lane is tracked against a latency objective per operation class.
+ */
+public class DispatcherLaneScheduler {
+    private static final Logger _log = LoggerFactory.getLogger(DispatcherLaneScheduler.class);
+
+    public static final String NO_TENANT = "none";
+    private static final double STRIDE = 1000.0;
+
+    /**
+     * Operation classes of the lanes, derived from the controller method name.
+     */
+    public static enum OperationClass {
+        rollback(8, 10 * 1000L),
+        provisioning(4, 30 * 1000L),
+        background(1, 10 * 60 * 1000L);
+
+        private final int _defaultWeight;
+        private final long _defaultLatencySloMillis;
+
+        OperationClass(int defaultWeight, long defaultLatencySloMillis) {
+            _defaultWeight = defaultWeight;
+            _defaultLatencySloMillis = defaultLatencySloMillis;
+        }
+
+        // also used by DeviceConcurrencyGovernor to give background methods a share of the device only;
+        // rescans are requested by users and stay in the provisioning lane
+        private static final String[] BACKGROUND_METHOD_PREFIXES = { "discover", "scan", "collect", "meter", "refresh" };
+
+        /**
+         * @param methodName controller method name
+         * @return operation class of the method
+         */
+        public static OperationClass fromMethodName(String methodName) {
+            if (methodName.toLowerCase().contains("rollback")) {
+                return rollback;
+            }
+            for (String prefix : BACKGROUND_METHOD_PREFIXES) {
+                if (methodName.startsWith(prefix)) {
+                    return background;
+                }
+            }
+            return provisioning;
+        }
+    }
+
+    /**
+     * Clock of the scheduler, replaced by the simulation in tests.
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private static class QueuedTask {
+        final Runnable _task;
+        final long _queuedAt;
+
+        QueuedTask(Runnable task, long queuedAt) {
+            _task = task;
+            _queuedAt = queuedAt;
+        }
+    }
+
+    private static class Lane {
+        final String _key;
+        final OperationClass _opClass;
+        final ArrayDeque<QueuedTask> _tasks = new ArrayDeque<QueuedTask>();
+        double _pass;
+
+        long _dispatched;
+        long _totalWaitMillis;
+        long _maxWaitMillis;
+        long _sloViolations;
+
+        Lane(String key, OperationClass opClass) {
+            _key = key;
+            _opClass = opClass;
+        }
+    }
+
+    private final String _name;
+    private final Executor _executor;
+    private final Clock _clock;
+    private final int _maxInFlight;
+    private final Map<String, Lane> _lanes = new HashMap<String, Lane>();
+    private Map<String, Integer> _weights = new HashMap<String, Integer>();
+    private Map<String, Long> _latencySloMillis = new HashMap<String, Long>();
+    private int _inFlight;
+    private double _virtualTime;
+
+    public DispatcherLaneScheduler(String name, Executor executor, int maxInFlight) {
+        this(name, executor, maxInFlight, SYSTEM_CLOCK);
+    }
+
+    DispatcherLaneScheduler(String name, Executor executor, int maxInFlight, Clock clock) {
+        _name = name;
+        _executor = executor;
+        _maxInFlight = maxInFlight;
+        _clock = clock;
+    }
+
+    /**
+     * Sets weights of the operation classes, classes which are not in the map keep their default weight.
+     *
+     * @param weights operation class name to weight
+     */
+    public synchronized void setWeights(Map<String, Integer> weights) {
+        _weights = weights != null ? weights : new HashMap<String, Integer>();
+    }
+
+    /**
+     * Sets queue wait objectives of the operation classes, classes which are not in the map keep their default.
+     *
+     * @param latencySloMillis operation class name to maximum expected queue wait in milliseconds
+     */
+    public synchronized void setLatencySloMillis(Map<String, Long> latencySloMillis) {
+        _latencySloMillis = latencySloMillis != null ? latencySloMillis : new HashMap<String, Long>();
+    }
+
+    /**
+     * Queues a task in the lane of the tenant and operation class and dispatches it as soon as
+     * the lane gets its turn.
+     *
+     * @param tenant tenant of the request, null if unknown
+     * @param opClass operation class of the request
+     * @param task task to run on the executor
+     */
+    public void submit(String tenant, OperationClass opClass, Runnable task) {
+        String key = (tenant != null ? tenant : NO_TENANT) + "/" + opClass.name();
+        synchronized (this) {
+            Lane lane = _lanes.get(key);
+            if (lane == null) {
+                lane = new Lane(key, opClass);
+                _lanes.put(key, lane);
+            }
+            if (lane._tasks.isEmpty()) {
+                // an idle lane doesn't accumulate credit, it starts at the current virtual time
+                lane._pass = Math.max(lane._pass, _virtualTime);
+            }
+            lane._tasks.add(new QueuedTask(task, _clock.currentTimeMillis()));
+        }
+        dispatch();
+    }
+
+    /**
+     * @return number of queued tasks which were not handed to the executor yet
+     */
+    public synchronized int getQueuedCount() {
+        int count = 0;
+        for (Lane lane : _lanes.values()) {
+            count += lane._tasks.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return queue statistics per lane
+     */
+    public synchronized Map<String, String> getLaneStatistics() {
+        Map<String, String> stats = new TreeMap<String, String>();
+        for (Lane lane : _lanes.values()) {
+            stats.put(_name + ":" + lane._key, String.format(
+                    "weight=%d queued=%d dispatched=%d avgWaitMs=%d maxWaitMs=%d sloMs=%d sloViolations=%d",
+                    getWeight(lane._opClass), lane._tasks.size(), lane._dispatched,
+                    lane._dispatched == 0 ? 0 : lane._totalWaitMillis / lane._dispatched,
+                    lane._maxWaitMillis, getLatencySloMillis(lane._opClass), lane._sloViolations));
+        }
+        return stats;
+    }
+
+    private int getWeight(OperationClass opClass) {
+        Integer weight = _weights.get(opClass.name());
+        return weight != null && weight > 0 ? weight : opClass._defaultWeight;
+    }
+
+    private long getLatencySloMillis(OperationClass opClass) {
+        Long slo = _latencySloMillis.get(opClass.name());
+        return slo != null ? slo : opClass._defaultLatencySloMillis;
+    }
+
+    /**
+     * Hands queued tasks to the executor while there are free slots.
+     */
+    private void dispatch() {
+        List<Runnable> ready = new ArrayList<Runnable>();
+        synchronized (this) {
+            while (_inFlight < _maxInFlight) {
+                Lane next = null;
+                for (Lane lane : _lanes.values()) {
+                    if (!lane._tasks.isEmpty() && (next == null || lane._pass < next._pass
+                            || (lane._pass == next._pass && lane._key.compareTo(next._key) < 0))) {
+                        next = lane;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                QueuedTask queued = next._tasks.poll();
+                _virtualTime = next._pass;
+                next._pass += STRIDE / getWeight(next._opClass);
+
+                long waitMillis = _clock.currentTimeMillis() - queued._queuedAt;
+                next._dispatched++;
+                next._totalWaitMillis += waitMillis;
+                next._maxWaitMillis = Math.max(next._maxWaitMillis, waitMillis);
+                if (waitMillis > getLatencySloMillis(next._opClass)) {
+                    next._sloViolations++;
+                    _log.info("Request of lane {} of queue {} waited {} ms", next._key, _name, waitMillis);
+                }
+                _inFlight++;
+                ready.add(wrap(queued._task));
+            }
+        }
+        for (Runnable task : ready) {
+            try {
+                _executor.execute(task);
+            } catch (RuntimeException e) {
+                _log.error("Failed to dispatch request of queue {}", _name, e);
+                release();
+            }
+        }
+    }
+
+    private Runnable wrap(Runnable task) {
+        return new DispatchedTask(task);
+    }
+
+    /**
+     * Task handed to the executor, frees its slot when done.
+     */
+    class DispatchedTask implements Runnable {
+        private final Runnable _task;
+
+        DispatchedTask(Runnable task) {
+            _task = task;
+        }
+
+        Runnable getTask() {
+            return _task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                _task.run();
+            } finally {
+                release();
+            }
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            _inFlight--;
+        }
+        dispatch();
+    }
+}
@@ -11,6 +11,7 @@ import com.emc.storageos.db.client.model.Bucket;
 import com.emc.storageos.db.client.model.FileShare;
 import com.emc.storageos.db.client.model.PropertyListDataObject;
 import com.emc.storageos.db.client.constraint.AlternateIdConstraint;
+import com.emc.storageos.db.client.impl.AggregatedChangeLog;
 import com.emc.storageos.db.client.model.StoragePool;
 import com.emc.storageos.db.client.model.StorageSystem;
 import com.emc.storageos.db.client.model.Volume;
@@ -27,16 +28,37 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Computes the managed capacity periodically and saves it in the database.
+ *
+ * The capacity of volumes, file shares and buckets is updated with the changes logged by
+ * AggregatedChangeLog since the previous run, rather than aggregated over all the objects.
+ * It is reconciled with a full aggregation once every reconcile interval, and whenever the
+ * logged changes may have expired. The capacity of pools, which are few, is always aggregated.
+ */
 public class ManagedCapacityImpl implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(ManagedCapacityImpl.class);
     public static final long KB = 1024L;
 
+    // keys of the saved capacity
+    private static final String CHANGES_ADDED_UNTIL = "changesAddedUntil";
+    private static final String RECONCILED_AT = "reconciledAt";
+
+    // a change is logged shortly after it is made, with the time it was made
+    private static final long CHANGE_LOG_DELAY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    // reconcile well before logged changes expire
+    private static final long MAX_CHANGES_AGE_MICROS = TimeUnit.SECONDS.toMicros(AggregatedChangeLog.CHANGE_TTL / 2);
+    private static final long DEFAULT_RECONCILE_INTERVAL = TimeUnit.HOURS.toSeconds(6);
+
     private DbClient dbClient;
+    private long reconcileInterval = DEFAULT_RECONCILE_INTERVAL;
 
     public void setDbClient(DbClient dbClient) {
         this.dbClient = dbClient;
@@ -46,23 +68,38 @@ public class ManagedCapacityImpl implements Runnable {
         return this.dbClient;
     }
 
+    /**
+     * @param reconcileInterval interval between full aggregations of the capacity, in seconds
+     */
+    public void setReconcileInterval(long reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
     public void run() {
         if (Thread.currentThread().isInterrupted()) {
             return;
         }
         else {
             try {
-                List<ManagedResourceCapacity> capList = getManagedCapacity().getResourceCapacityList();
+                Map<CapacityPropertyListTypes, PropertyListDataObject> savedCapacities = getSavedCapacities();
+                long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+                boolean reconcile = needsReconciliation(savedCapacities, nowMicros);
+                List<ManagedResourceCapacity> capList = reconcile ? getManagedCapacity().getResourceCapacityList() :
+                        getUpdatedCapacity(savedCapacities, nowMicros - CHANGE_LOG_DELAY_MICROS);
                 for (ManagedResourceCapacity cap : capList) {
                     CapacityPropertyListTypes type = mapCapacityType(cap.getType());
                     PropertyListDataObject resource = map(cap, type.toString());
+                    PropertyListDataObject saved = savedCapacities.get(type);
+                    if (reconcile) {
+                        resource.getResourceData().put(CHANGES_ADDED_UNTIL, Long.toString(nowMicros));
+                        resource.getResourceData().put(RECONCILED_AT, Long.toString(nowMicros));
+                    } else {
+                        resource.getResourceData().put(CHANGES_ADDED_UNTIL, Long.toString(nowMicros - CHANGE_LOG_DELAY_MICROS));
+                        resource.getResourceData().put(RECONCILED_AT, saved.getResourceData().get(RECONCILED_AT));
+                    }
 
-                    List<URI> dataResourcesURI = dbClient.queryByConstraint(
-                            AlternateIdConstraint.Factory.getConstraint(PropertyListDataObject.class,
-                                    "resourceType",
-                                    type.toString()));
-                    if (!dataResourcesURI.isEmpty()) {
-                        resource.setId(dataResourcesURI.get(0));
+                    if (saved != null) {
+                        resource.setId(saved.getId());
                         resource.setCreationTime(Calendar.getInstance());
                         dbClient.updateAndReindexObject(resource);
                     }
@@ -77,6 +114,91 @@ public class ManagedCapacityImpl implements Runnable {
         }
     }
 
+    private Map<CapacityPropertyListTypes, PropertyListDataObject> getSavedCapacities() {
+        Map<CapacityPropertyListTypes, PropertyListDataObject> savedCapacities =
+                new EnumMap<CapacityPropertyListTypes, PropertyListDataObject>(CapacityPropertyListTypes.class);
+        for (CapacityPropertyListTypes type : CapacityPropertyListTypes.values()) {
+            List<URI> dataResourcesURI = dbClient.queryByConstraint(
+                    AlternateIdConstraint.Factory.getConstraint(PropertyListDataObject.class,
+                            "resourceType",
+                            type.toString()));
+            if (!dataResourcesURI.isEmpty()) {
+                PropertyListDataObject saved = dbClient.queryObject(PropertyListDataObject.class, dataResourcesURI.get(0));
+                if (saved != null) {
+                    savedCapacities.put(type, saved);
+                }
+            }
+        }
+        return savedCapacities;
+    }
+
+    private boolean needsReconciliation(Map<CapacityPropertyListTypes, PropertyListDataObject> savedCapacities, long nowMicros) {
+        if (savedCapacities.size() < CapacityPropertyListTypes.values().length) {
+            return true;
+        }
+        for (PropertyListDataObject saved : savedCapacities.values()) {
+            String addedUntil = saved.getResourceData().get(CHANGES_ADDED_UNTIL);
+            String reconciledAt = saved.getResourceData().get(RECONCILED_AT);
+            if (addedUntil == null || reconciledAt == null) {
+                // saved by a previous version
+                return true;
+            }
+            if (nowMicros - Long.parseLong(reconciledAt) > TimeUnit.SECONDS.toMicros(reconcileInterval)
+                    || nowMicros - Long.parseLong(addedUntil) > MAX_CHANGES_AGE_MICROS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the changes logged since the previous run to the saved capacity of volumes, file shares
+     * and buckets, and aggregates the capacity of pools
+     *
+     * @param savedCapacities capacity saved by the previous run
+     * @param untilMicros time of the last change to add
+     * @return the capacity
+     */
+    private List<ManagedResourceCapacity> getUpdatedCapacity(Map<CapacityPropertyListTypes, PropertyListDataObject> savedCapacities,
+            long untilMicros) throws InterruptedException {
+        log.info("Updating provisioning managed capacity with the changes of volumes, file shares and buckets");
+        ManagedResourcesCapacity resources = new ManagedResourcesCapacity();
+        for (Entry<CapacityPropertyListTypes, PropertyListDataObject> entry : savedCapacities.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            ManagedResourceCapacity manCap = map(entry.getValue(), ManagedResourceCapacity.class);
+            manCap.setType(mapCapacityType(entry.getKey()));
+            long fromMicros = Long.parseLong(entry.getValue().getResourceData().get(CHANGES_ADDED_UNTIL));
+            CustomQueryUtility.AggregatedValue changes = null;
+            switch (entry.getKey()) {
+                case VOLUME_MANAGED_CAPACITY:
+                    changes = CustomQueryUtility.aggregatedFieldChanges(dbClient, Volume.class, "allocatedCapacity",
+                            fromMicros, untilMicros);
+                    break;
+                case FILE_MANAGED_CAPACITY:
+                    changes = CustomQueryUtility.aggregatedFieldChanges(dbClient, FileShare.class, "usedCapacity",
+                            fromMicros, untilMicros);
+                    break;
+                case OBJECT_MANAGED_CAPACITY:
+                    changes = CustomQueryUtility.aggregatedFieldChanges(dbClient, Bucket.class, "hardQuota",
+                            fromMicros, untilMicros);
+                    break;
+                case POOL_MANAGED_CAPACITY:
+                    manCap = getPoolCapacity(dbClient);
+                    break;
+            }
+            if (changes != null) {
+                log.info("{}: {} resources added less removed, capacity changed by {}", entry.getKey(), changes.getCount(),
+                        changes.getValue());
+                manCap.setNumResources(manCap.getNumResources() + changes.getCount());
+                manCap.setResourceCapacity(manCap.getResourceCapacity() + changes.getValue());
+            }
+            resources.getResourceCapacityList().add(manCap);
+        }
+        return resources.getResourceCapacityList();
+    }
+
     public ManagedResourcesCapacity getManagedCapacity() throws InterruptedException {
 
         log.info("Getting provisioning managed capacity");
@@ -143,9 +265,29 @@ public class ManagedCapacityImpl implements Runnable {
             throw new InterruptedException();
         }
 
+        resourcesCapacity.getResourceCapacityList().add(getPoolCapacity(dbClient));
+        if (Thread.currentThread().interrupted()) {
+            throw new InterruptedException();
+        }
+        
         manCap = new ManagedResourcesCapacity.ManagedResourceCapacity();
+        manCap.setType(ManagedResourcesCapacity.CapacityResourceType.BUCKET);
+        aggr = CustomQueryUtility.aggregatedPrimitiveField(dbClient, Bucket.class, "hardQuota");
+        manCap.setNumResources(aggr.getCount());
+        manCap.setResourceCapacity(aggr.getValue());
+        resourcesCapacity.getResourceCapacityList().add(manCap);
+        if (Thread.currentThread().interrupted()) {
+            throw new InterruptedException();
+        }
+
+        return resourcesCapacity;
+    }
+
+    private static ManagedResourceCapacity getPoolCapacity(DbClient dbClient) {
+        ManagedResourceCapacity manCap = new ManagedResourcesCapacity.ManagedResourceCapacity();
         manCap.setType(ManagedResourcesCapacity.CapacityResourceType.POOL);
-        aggr = CustomQueryUtility.aggregatedPrimitiveField(dbClient, StoragePool.class, "freeCapacity");
+        CustomQueryUtility.AggregatedValue aggr = CustomQueryUtility.aggregatedPrimitiveField(dbClient, StoragePool.class,
+                "freeCapacity");
         manCap.setNumResources(aggr.getCount());
         double capacity = aggr.getValue();
 
@@ -169,22 +311,7 @@ public class ManagedCapacityImpl implements Runnable {
         }
 
         manCap.setResourceCapacity(capacity * KB);
-        resourcesCapacity.getResourceCapacityList().add(manCap);
-        if (Thread.currentThread().interrupted()) {
-            throw new InterruptedException();
-        }
-        
-        manCap = new ManagedResourcesCapacity.ManagedResourceCapacity();
-        manCap.setType(ManagedResourcesCapacity.CapacityResourceType.BUCKET);
-        aggr = CustomQueryUtility.aggregatedPrimitiveField(dbClient, Bucket.class, "hardQuota");
-        manCap.setNumResources(aggr.getCount());
-        manCap.setResourceCapacity(aggr.getValue());
-        resourcesCapacity.getResourceCapacityList().add(manCap);
-        if (Thread.currentThread().interrupted()) {
-            throw new InterruptedException();
-        }
-
-        return resourcesCapacity;
+        return manCap;
     }
 
     public static enum CapacityPropertyListTypes {
@@ -12,6 +12,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.mutable.MutableInt;
@@ -39,8 +43,11 @@ import com.emc.storageos.db.client.util.StringSetUtil;
 import com.emc.storageos.networkcontroller.impl.NetworkDeviceController;
 import com.emc.storageos.plugins.common.Constants;
 import com.emc.storageos.plugins.common.PartitionManager;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
 import com.emc.storageos.storagedriver.BlockStorageDriver;
+import com.emc.storageos.storagedriver.DriverTask;
 import com.emc.storageos.storagedriver.HostExportInfo;
+import com.emc.storageos.storagedriver.PagedVolumeDiscoveryDriver;
 import com.emc.storageos.storagedriver.model.Initiator;
 import com.emc.storageos.storagedriver.model.StorageObject;
 import com.emc.storageos.storagedriver.model.StoragePort;
@@ -65,6 +72,8 @@ public class ExternalDeviceUnManagedVolumeDiscoverer {
     private static final String UNMANAGED_EXPORT_MASK = "UnManagedExportMask";
     private static final String UNMANAGED_DISCOVERY_LOCK = "UnManagedObjectsDiscoveryLock-";
     public static final long UNMANAGED_DISCOVERY_LOCK_TIMEOUT = 3 * 60; // set to 3 minutes
+    // upper bound for concurrent page requests, regardless of what driver declares
+    static final int MAX_PARALLEL_VOLUME_PAGES = 8;
 
     private NetworkDeviceController networkDeviceController;
     private CoordinatorClient coordinator;
@@ -144,101 +153,23 @@ public class ExternalDeviceUnManagedVolumeDiscoverer {
                     dbClient, partitionManager);
             // prepare storage system
             StorageSystem driverStorageSystem = ExternalDeviceCommunicationInterface.initStorageSystem(storageSystem);
-            do {
-                Map<String, List<HostExportInfo>> hostToVolumeExportInfoMap = new HashMap<>();
-
-                List<StorageVolume> driverVolumes = new ArrayList<>();
-                Map<String, URI> unManagedVolumeNativeIdToUriMap = new HashMap<>();
-                Map<String, URI> managedVolumeNativeIdToUriMap = new HashMap<>();
-
-                log.info("Processing page {} ", nextPage);
-                driver.getStorageVolumes(driverStorageSystem, driverVolumes, nextPage);
-                log.info("Volume count on this page {} ", driverVolumes.size());
-
-                for (StorageVolume driverVolume : driverVolumes) {
-                    UnManagedVolume unManagedVolume = null;
-                    try {
-                        com.emc.storageos.db.client.model.StoragePool storagePool = getStoragePoolOfUnManagedVolume(storageSystem, driverVolume, dbClient);
-                        if (null == storagePool) {
-                            log.error("Skipping unManaged volume discovery as the volume {} storage pool doesn't exist in controller", driverVolume.getNativeId());
-                            continue;
-                        }
-                        String managedVolumeNativeGuid = NativeGUIDGenerator.generateNativeGuidForVolumeOrBlockSnapShot(
-                                storageSystem.getNativeGuid(), driverVolume.getNativeId());
-                        Volume systemVolume = DiscoveryUtils.checkStorageVolumeExistsInDB(dbClient, managedVolumeNativeGuid);
-                        if (null != systemVolume) {
-                            log.info("Skipping volume {} as it is already managed by the system. Id: {}", managedVolumeNativeGuid, systemVolume.getId());
-
-                            // get export data for managed volume to process later --- we need to collect export data for
-                            // managed volume
-                            managedVolumeNativeIdToUriMap.put(driverVolume.getNativeId(), systemVolume.getId());
-                            getVolumeExportInfo(driver, driverVolume, hostToVolumeExportInfoMap);
-                            getExportInfoForManagedVolumeReplicas(managedVolumeNativeIdToUriMap, hostToVolumeExportInfoMap,
-                                    dbClient, storageSystem, systemVolume, driverVolume, driver);
-                            continue;
-                        }
-
-                        unManagedVolume = createUnManagedVolume(driverVolume, storageSystem, storagePool, unManagedVolumesToCreate,
-                                unManagedVolumesToUpdate, dbClient);
-                        unManagedVolumeNativeIdToUriMap.put(driverVolume.getNativeId(), unManagedVolume.getId());
-
-                        // if the volume is associated with a CG, set up the unManaged CG
-                        if (driverVolume.getConsistencyGroup() != null && !driverVolume.getConsistencyGroup().isEmpty()) {
-                            addObjectToUnManagedConsistencyGroup(storageSystem, driverVolume.getConsistencyGroup(), unManagedVolume,
-                                    allCurrentUnManagedCgURIs, unManagedCGToUpdateMap, driver, dbClient);
-                        } else {
-                            // Make sure the unManagedVolume object does not contain CG information from previous discovery
-                            unManagedVolume.getVolumeCharacterstics().put(
-                                    UnManagedVolume.SupportedVolumeCharacterstics.IS_VOLUME_ADDED_TO_CONSISTENCYGROUP.toString(), Boolean.FALSE.toString());
-                            // remove uri of the unManaged CG in the unManaged volume object
-                            unManagedVolume.getVolumeInformation().remove(UnManagedVolume.SupportedVolumeInformation.UNMANAGED_CONSISTENCY_GROUP_URI.toString());
-                        }
-
-                        allCurrentUnManagedVolumeUris.add(unManagedVolume.getId());
-                        getVolumeExportInfo(driver, driverVolume, hostToVolumeExportInfoMap);
-
-                        Set<URI> unManagedSnaphotUris = processUnManagedSnapshots(driverVolume, unManagedVolume, storageSystem, storagePool,
-                                unManagedVolumesToCreate,
-                                unManagedVolumesToUpdate,
-                                allCurrentUnManagedCgURIs, unManagedCGToUpdateMap,
-                                unManagedVolumeNativeIdToUriMap, hostToVolumeExportInfoMap,
-                                driver, dbClient);
-
-                        allCurrentUnManagedVolumeUris.addAll(unManagedSnaphotUris);
-
-                        Set<URI> unManagedCloneUris = processUnManagedClones(driverVolume, unManagedVolume, storageSystem, storagePool,
-                                unManagedVolumesToCreate,
-                                unManagedVolumesToUpdate,
-                                allCurrentUnManagedCgURIs, unManagedCGToUpdateMap,
-                                unManagedVolumeNativeIdToUriMap, hostToVolumeExportInfoMap,
-                                driver, dbClient);
-
-                        allCurrentUnManagedVolumeUris.addAll(unManagedCloneUris);
-
-                    } catch (Exception ex) {
-                        log.error("Error processing {} volume {}", storageSystem.getNativeId(), driverVolume.getNativeId(), ex);
-                    }
-                }
-
-                if (!unManagedVolumesToCreate.isEmpty()) {
-                    log.info("Unmanaged volumes to create: {}", unManagedVolumesToCreate);
-                    partitionManager.insertInBatches(unManagedVolumesToCreate,
-                            Constants.DEFAULT_PARTITION_SIZE, dbClient, UNMANAGED_VOLUME);
-                    unManagedVolumesToCreate.clear();
-                }
-                if (!unManagedVolumesToUpdate.isEmpty()) {
-                    log.info("Unmanaged volumes to update: {}", unManagedVolumesToUpdate);
-                    partitionManager.updateAndReIndexInBatches(unManagedVolumesToUpdate,
-                            Constants.DEFAULT_PARTITION_SIZE, dbClient, UNMANAGED_VOLUME);
-                    unManagedVolumesToUpdate.clear();
-                }
-
-                // Process export data for volumes
-                processExportData(driver, storageSystem, unManagedVolumeNativeIdToUriMap,
-                        managedVolumeNativeIdToUriMap,
-                        hostToVolumeExportInfoMap,
-                        invalidExportHosts, dbClient, partitionManager);
-            } while (!nextPage.equals(lastPage));
+            if (driver instanceof PagedVolumeDiscoveryDriver
+                    && ((PagedVolumeDiscoveryDriver) driver).getMaxParallelVolumePages(driverStorageSystem) > 1) {
+                discoverVolumePagesInParallel((PagedVolumeDiscoveryDriver) driver, driverStorageSystem, storageSystem,
+                        unManagedVolumesToCreate, unManagedVolumesToUpdate, allCurrentUnManagedVolumeUris,
+                        allCurrentUnManagedCgURIs, unManagedCGToUpdateMap, invalidExportHosts, dbClient, partitionManager);
+            } else {
+                do {
+                    List<StorageVolume> driverVolumes = new ArrayList<>();
+                    log.info("Processing page {} ", nextPage);
+                    driver.getStorageVolumes(driverStorageSystem, driverVolumes, nextPage);
+                    log.info("Volume count on this page {} ", driverVolumes.size());
+
+                    processVolumePage(driver, driverVolumes, storageSystem, unManagedVolumesToCreate, unManagedVolumesToUpdate,
+                            allCurrentUnManagedVolumeUris, allCurrentUnManagedCgURIs, unManagedCGToUpdateMap,
+                            invalidExportHosts, dbClient, partitionManager);
+                } while (!nextPage.equals(lastPage));
+            }
 
             if (!unManagedCGToUpdateMap.isEmpty()) {
                 unManagedCGToUpdate = new ArrayList<>(unManagedCGToUpdateMap.values());
@@ -269,6 +200,190 @@ public class ExternalDeviceUnManagedVolumeDiscoverer {
 
     }
 
+    /**
+     * Discovers volume pages of storage system concurrently, as declared by the driver.
+     * Up to getMaxParallelVolumePages() pages are requested from the driver at the same time, every page is processed and
+     * persisted in this thread as soon as it is returned, so only pages in flight are kept in memory.
+     *
+     * @param driver storage driver reference [IN]
+     * @param driverStorageSystem driver storage system [IN]
+     * @param storageSystem storage system [IN]
+     * @param unManagedVolumesToCreate list of new unManaged volumes [IN/OUT]
+     * @param unManagedVolumesToUpdate list of unManaged volumes to update [IN/OUT]
+     * @param allCurrentUnManagedVolumeUris uris of discovered unManaged objects [IN/OUT]
+     * @param allCurrentUnManagedCgURIs uris of discovered unManaged consistency groups [IN/OUT]
+     * @param unManagedCGToUpdateMap unManaged consistency groups to update [IN/OUT]
+     * @param invalidExportHosts hosts for which we cannot build single export mask [IN/OUT]
+     * @param dbClient reference to db client [IN]
+     * @param partitionManager partition manager [IN]
+     * @throws Exception when any page failed, none of the later bookkeeping should be done in this case
+     */
+    void discoverVolumePagesInParallel(final PagedVolumeDiscoveryDriver driver, final StorageSystem driverStorageSystem,
+                                       com.emc.storageos.db.client.model.StorageSystem storageSystem,
+                                       List<UnManagedVolume> unManagedVolumesToCreate,
+                                       List<UnManagedVolume> unManagedVolumesToUpdate,
+                                       Set<URI> allCurrentUnManagedVolumeUris, Set<URI> allCurrentUnManagedCgURIs,
+                                       Map<String, UnManagedConsistencyGroup> unManagedCGToUpdateMap,
+                                       Set<String> invalidExportHosts,
+                                       DbClient dbClient, PartitionManager partitionManager) throws Exception {
+        int pageCount = driver.getStorageVolumePageCount(driverStorageSystem);
+        int parallelism = Math.min(driver.getMaxParallelVolumePages(driverStorageSystem), MAX_PARALLEL_VOLUME_PAGES);
+        log.info("Discovering {} volume pages of storage system {}, {} pages at a time", pageCount,
+                storageSystem.getNativeId(), parallelism);
+
+        ExecutorService executor = new NamedThreadPoolExecutor(ExternalDeviceUnManagedVolumeDiscoverer.class.getSimpleName(),
+                parallelism);
+        CompletionService<List<StorageVolume>> pages = new ExecutorCompletionService<>(executor);
+        try {
+            int submittedPages = 0;
+            while (submittedPages < Math.min(pageCount, parallelism)) {
+                submitVolumePage(pages, driver, driverStorageSystem, submittedPages++);
+            }
+            for (int processedPages = 0; processedPages < pageCount; processedPages++) {
+                List<StorageVolume> driverVolumes = pages.take().get();
+                // keep the driver busy with the next page while this page is written to db
+                if (submittedPages < pageCount) {
+                    submitVolumePage(pages, driver, driverStorageSystem, submittedPages++);
+                }
+                log.info("Processing {} volumes, {} of {} pages", driverVolumes.size(), processedPages + 1, pageCount);
+                processVolumePage(driver, driverVolumes, storageSystem, unManagedVolumesToCreate, unManagedVolumesToUpdate,
+                        allCurrentUnManagedVolumeUris, allCurrentUnManagedCgURIs, unManagedCGToUpdateMap,
+                        invalidExportHosts, dbClient, partitionManager);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitVolumePage(CompletionService<List<StorageVolume>> pages, final PagedVolumeDiscoveryDriver driver,
+                                  final StorageSystem driverStorageSystem, final int page) {
+        pages.submit(new Callable<List<StorageVolume>>() {
+            @Override
+            public List<StorageVolume> call() throws Exception {
+                List<StorageVolume> driverVolumes = new ArrayList<>();
+                DriverTask task = driver.getStorageVolumes(driverStorageSystem, page, driverVolumes);
+                if (task != null && task.getStatus() == DriverTask.TaskStatus.FAILED) {
+                    throw new IllegalStateException(String.format("Failed to get volumes on page %d of storage system %s: %s",
+                            page, driverStorageSystem.getNativeId(), task.getMessage()));
+                }
+                return driverVolumes;
+            }
+        });
+    }
+
+    /**
+     * Processes one page of driver volumes: creates/updates unManaged volumes with their replicas and CG information,
+     * persists them and processes their export data.
+     *
+     * @param driver storage driver reference [IN]
+     * @param driverVolumes volumes on the page [IN]
+     * @param storageSystem storage system [IN]
+     * @param unManagedVolumesToCreate list of new unManaged volumes [IN/OUT]
+     * @param unManagedVolumesToUpdate list of unManaged volumes to update [IN/OUT]
+     * @param allCurrentUnManagedVolumeUris uris of discovered unManaged objects [IN/OUT]
+     * @param allCurrentUnManagedCgURIs uris of discovered unManaged consistency groups [IN/OUT]
+     * @param unManagedCGToUpdateMap unManaged consistency groups to update [IN/OUT]
+     * @param invalidExportHosts hosts for which we cannot build single export mask [IN/OUT]
+     * @param dbClient reference to db client [IN]
+     * @param partitionManager partition manager [IN]
+     */
+    void processVolumePage(BlockStorageDriver driver, List<StorageVolume> driverVolumes,
+                           com.emc.storageos.db.client.model.StorageSystem storageSystem,
+                           List<UnManagedVolume> unManagedVolumesToCreate,
+                           List<UnManagedVolume> unManagedVolumesToUpdate,
+                           Set<URI> allCurrentUnManagedVolumeUris, Set<URI> allCurrentUnManagedCgURIs,
+                           Map<String, UnManagedConsistencyGroup> unManagedCGToUpdateMap,
+                           Set<String> invalidExportHosts,
+                           DbClient dbClient, PartitionManager partitionManager) {
+        Map<String, List<HostExportInfo>> hostToVolumeExportInfoMap = new HashMap<>();
+        Map<String, URI> unManagedVolumeNativeIdToUriMap = new HashMap<>();
+        Map<String, URI> managedVolumeNativeIdToUriMap = new HashMap<>();
+
+        for (StorageVolume driverVolume : driverVolumes) {
+            UnManagedVolume unManagedVolume = null;
+            try {
+                com.emc.storageos.db.client.model.StoragePool storagePool = getStoragePoolOfUnManagedVolume(storageSystem, driverVolume, dbClient);
+                if (null == storagePool) {
+                    log.error("Skipping unManaged volume discovery as the volume {} storage pool doesn't exist in controller", driverVolume.getNativeId());
+                    continue;
+                }
+                String managedVolumeNativeGuid = NativeGUIDGenerator.generateNativeGuidForVolumeOrBlockSnapShot(
+                        storageSystem.getNativeGuid(), driverVolume.getNativeId());
+                Volume systemVolume = DiscoveryUtils.checkStorageVolumeExistsInDB(dbClient, managedVolumeNativeGuid);
+                if (null != systemVolume) {
+                    log.info("Skipping volume {} as it is already managed by the system. Id: {}", managedVolumeNativeGuid, systemVolume.getId());
+
+                    // get export data for managed volume to process later --- we need to collect export data for
+                    // managed volume
+                    managedVolumeNativeIdToUriMap.put(driverVolume.getNativeId(), systemVolume.getId());
+                    getVolumeExportInfo(driver, driverVolume, hostToVolumeExportInfoMap);
+                    getExportInfoForManagedVolumeReplicas(managedVolumeNativeIdToUriMap, hostToVolumeExportInfoMap,
+                            dbClient, storageSystem, systemVolume, driverVolume, driver);
+                    continue;
+                }
+
+                unManagedVolume = createUnManagedVolume(driverVolume, storageSystem, storagePool, unManagedVolumesToCreate,
+                        unManagedVolumesToUpdate, dbClient);
+                unManagedVolumeNativeIdToUriMap.put(driverVolume.getNativeId(), unManagedVolume.getId());
+
+                // if the volume is associated with a CG, set up the unManaged CG
+                if (driverVolume.getConsistencyGroup() != null && !driverVolume.getConsistencyGroup().isEmpty()) {
+                    addObjectToUnManagedConsistencyGroup(storageSystem, driverVolume.getConsistencyGroup(), unManagedVolume,
+                            allCurrentUnManagedCgURIs, unManagedCGToUpdateMap, driver, dbClient);
+                } else {
+                    // Make sure the unManagedVolume object does not contain CG information from previous discovery
+                    unManagedVolume.getVolumeCharacterstics().put(
+                            UnManagedVolume.SupportedVolumeCharacterstics.IS_VOLUME_ADDED_TO_CONSISTENCYGROUP.toString(), Boolean.FALSE.toString());
+                    // remove uri of the unManaged CG in the unManaged volume object
+                    unManagedVolume.getVolumeInformation().remove(UnManagedVolume.SupportedVolumeInformation.UNMANAGED_CONSISTENCY_GROUP_URI.toString());
+                }
+
+                allCurrentUnManagedVolumeUris.add(unManagedVolume.getId());
+                getVolumeExportInfo(driver, driverVolume, hostToVolumeExportInfoMap);
+
+                Set<URI> unManagedSnaphotUris = processUnManagedSnapshots(driverVolume, unManagedVolume, storageSystem, storagePool,
+                        unManagedVolumesToCreate,
+                        unManagedVolumesToUpdate,
+                        allCurrentUnManagedCgURIs, unManagedCGToUpdateMap,
+                        unManagedVolumeNativeIdToUriMap, hostToVolumeExportInfoMap,
+                        driver, dbClient);
+
+                allCurrentUnManagedVolumeUris.addAll(unManagedSnaphotUris);
+
+                Set<URI> unManagedCloneUris = processUnManagedClones(driverVolume, unManagedVolume, storageSystem, storagePool,
+                        unManagedVolumesToCreate,
+                        unManagedVolumesToUpdate,
+                        allCurrentUnManagedCgURIs, unManagedCGToUpdateMap,
+                        unManagedVolumeNativeIdToUriMap, hostToVolumeExportInfoMap,
+                        driver, dbClient);
+
+                allCurrentUnManagedVolumeUris.addAll(unManagedCloneUris);
+
+            } catch (Exception ex) {
+                log.error("Error processing {} volume {}", storageSystem.getNativeId(), driverVolume.getNativeId(), ex);
+            }
+        }
+
+        if (!unManagedVolumesToCreate.isEmpty()) {
+            log.info("Unmanaged volumes to create: {}", unManagedVolumesToCreate);
+            partitionManager.insertInBatches(unManagedVolumesToCreate,
+                    Constants.DEFAULT_PARTITION_SIZE, dbClient, UNMANAGED_VOLUME);
+            unManagedVolumesToCreate.clear();
+        }
+        if (!unManagedVolumesToUpdate.isEmpty()) {
+            log.info("Unmanaged volumes to update: {}", unManagedVolumesToUpdate);
+            partitionManager.updateAndReIndexInBatches(unManagedVolumesToUpdate,
+                    Constants.DEFAULT_PARTITION_SIZE, dbClient, UNMANAGED_VOLUME);
+            unManagedVolumesToUpdate.clear();
+        }
+
+        // Process export data for volumes
+        processExportData(driver, storageSystem, unManagedVolumeNativeIdToUriMap,
+                managedVolumeNativeIdToUriMap,
+                hostToVolumeExportInfoMap,
+                invalidExportHosts, dbClient, partitionManager);
+    }
+
     /**
      * Create or update unManaged volume for a given driver volume.
      *
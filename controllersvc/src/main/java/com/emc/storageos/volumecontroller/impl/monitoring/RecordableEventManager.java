@@ -153,9 +153,15 @@ public class RecordableEventManager {
         StoragePortGroupDeletedFailed,
     };
 
+    // Maximum number of events buffered by a batch before they are inserted.
+    private static final int MAX_BATCH_SIZE = 500;
+
     // A reference to the database client.
     private DbClient _dbClient;
 
+    // Events buffered by the batch running on the current thread, if any.
+    private final ThreadLocal<List<Event>> _batch = new ThreadLocal<List<Event>>();
+
     // The logger.
     private static Logger s_logger = LoggerFactory.getLogger(RecordableEventManager.class);
 
@@ -176,7 +182,36 @@ public class RecordableEventManager {
     }
 
     /**
-     * Called to record events in the database.
+     * Starts a batch on the current thread. Until endBatch() is called, events recorded
+     * on this thread are buffered and inserted in the database MAX_BATCH_SIZE at a time,
+     * instead of one insert per recordEvents call. Every startBatch() must be followed
+     * by an endBatch() in a finally block.
+     */
+    public void startBatch() {
+        if (_batch.get() == null) {
+            _batch.set(new ArrayList<Event>());
+        }
+    }
+
+    /**
+     * Inserts the events buffered by the batch of the current thread and ends the batch.
+     * 
+     * @throws DatabaseException thrown when insert events to database fails
+     */
+    public void endBatch() throws DatabaseException {
+        List<Event> batch = _batch.get();
+        if (batch == null) {
+            return;
+        }
+        _batch.remove();
+        if (!batch.isEmpty()) {
+            insertEvents(batch);
+        }
+    }
+
+    /**
+     * Called to record events in the database. If a batch is running on the current
+     * thread, the events are buffered by the batch.
      * 
      * @param events references to recordable events.
      * @throws IOException thrown when insert events to database fails
@@ -198,6 +233,26 @@ public class RecordableEventManager {
 
             dbEventsList.add(dbEvent);
         }
+        List<Event> batch = _batch.get();
+        if (batch != null) {
+            batch.addAll(dbEventsList);
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                List<Event> batchEvents = new ArrayList<Event>(batch);
+                batch.clear();
+                insertEvents(batchEvents);
+            }
+            return;
+        }
+        insertEvents(dbEventsList);
+    }
+
+    /**
+     * Inserts events in the database.
+     * 
+     * @param dbEventsList the events to insert
+     * @throws DatabaseException thrown when insert events to database fails
+     */
+    private void insertEvents(List<Event> dbEventsList) throws DatabaseException {
         if (!dbEventsList.isEmpty()) {
             Event[] dbEvents = new Event[dbEventsList.size()];
             dbEventsList.toArray(dbEvents);
@@ -213,6 +268,5 @@ public class RecordableEventManager {
         } else {
             s_logger.info("Event list is empty");
         }
-
     }
 }
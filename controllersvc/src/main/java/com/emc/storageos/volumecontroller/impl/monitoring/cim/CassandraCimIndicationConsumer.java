@@ -6,10 +6,13 @@
 package com.emc.storageos.volumecontroller.impl.monitoring.cim;
 
 // Java imports
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Hashtable;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -18,8 +21,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.emc.storageos.cimadapter.consumers.CimIndicationConsumer;
+import com.emc.storageos.volumecontroller.impl.monitoring.RecordableEventManager;
 import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.ArrivedIndication;
 import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.CIMIndicationProcessor;
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.IndicationSpillFile;
 import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.IntermediateProcessor;
 import com.emc.storageos.volumecontroller.impl.monitoring.cim.utility.CIMConstants;
 
@@ -27,6 +32,13 @@ import com.emc.storageos.volumecontroller.impl.monitoring.cim.utility.CIMConstan
  * An indication consumer that writes the received indications to Cassandra.
  * This consumer expects the passed indication to be in the form of name/value
  * pairs passed in a Hashtable<String, String>.
+ * 
+ * Indications are buffered in memory, up to the buffer limit. If a spill file is
+ * configured, the indications that do not fit in the buffer are appended to the
+ * spill file instead of being dropped, and the buffer is written to the spill file,
+ * before the indications already spilled, on shutdown, so that the indications
+ * survive a restart of the controller in order. Indications are dropped once the
+ * spill file reaches its maximum size.
  */
 
 public class CassandraCimIndicationConsumer extends CimIndicationConsumer {
@@ -34,10 +46,27 @@ public class CassandraCimIndicationConsumer extends CimIndicationConsumer {
     /**
      * A thread safe queue that maintains the list of indications
      */
-    private ConcurrentLinkedQueue<ArrivedIndication> list;
+    private LinkedBlockingQueue<ArrivedIndication> list;
 
     private int _indicationBufferLimit;
 
+    /**
+     * Path of the spill file, null if indications are not spilled
+     */
+    private String _indicationSpillFile;
+
+    /**
+     * Maximum size in MB of the indications pending in the spill file
+     */
+    private int _indicationSpillFileMaxMB = DEFAULT_SPILL_FILE_MAX_MB;
+
+    private IndicationSpillFile _spillFile;
+
+    /**
+     * Processes the queued indications, queues or spills the new ones
+     */
+    private IntermediateProcessor intermediateProcessor;
+
     /**
      * A reference to Scheduler service
      */
@@ -49,12 +78,20 @@ public class CassandraCimIndicationConsumer extends CimIndicationConsumer {
      */
     private static final int PERIODIC_DELAY = 30;
 
+    private static final int DEFAULT_SPILL_FILE_MAX_MB = 256;
+
     /**
      * Processor Interface
      */
     @Autowired
     private CIMIndicationProcessor _processor;
 
+    /**
+     * Records the events of the indications
+     */
+    @Autowired
+    private RecordableEventManager _recordableEventManager;
+
     /**
      * Logger to log the debug statements
      */
@@ -78,15 +115,32 @@ public class CassandraCimIndicationConsumer extends CimIndicationConsumer {
         _indicationBufferLimit = indicationBufferLimit;
     }
 
+    public void setIndicationSpillFile(String indicationSpillFile) {
+        _indicationSpillFile = indicationSpillFile;
+    }
+
+    public void setIndicationSpillFileMaxMB(int indicationSpillFileMaxMB) {
+        _indicationSpillFileMaxMB = indicationSpillFileMaxMB;
+    }
+
     /**
      * Will get called during construction phase, configured through spring xml
      * configuration
      */
     private void init() {
         _logger.debug("Initializing....");
-        list = new ConcurrentLinkedQueue<ArrivedIndication>();
-        IntermediateProcessor intermediateProcessor = new IntermediateProcessor(
-                list, _processor);
+        list = new LinkedBlockingQueue<ArrivedIndication>(_indicationBufferLimit > 0 ? _indicationBufferLimit
+                : Integer.MAX_VALUE);
+        if (_indicationSpillFile != null && !_indicationSpillFile.isEmpty()) {
+            try {
+                _spillFile = new IndicationSpillFile(_indicationSpillFile, _indicationSpillFileMaxMB * 1024L * 1024L);
+                _logger.info("{} indications pending in spill file {}", _spillFile.getPendingCount(), _indicationSpillFile);
+            } catch (IOException e) {
+                _logger.error("Cannot open indication spill file {}, indications will not be spilled", _indicationSpillFile, e);
+            }
+        }
+        intermediateProcessor = new IntermediateProcessor(
+                list, _processor, _recordableEventManager, _spillFile);
         indicationProcessTimer = Executors.newSingleThreadScheduledExecutor();
         indicationProcessTimer.scheduleWithFixedDelay(intermediateProcessor,
                 CIMConstants.INDICATION_PROCESS_INTERVAL, PERIODIC_DELAY, TimeUnit.SECONDS);
@@ -124,9 +178,14 @@ public class CassandraCimIndicationConsumer extends CimIndicationConsumer {
             // Q
             ArrivedIndication indication = new ArrivedIndication(
                     indicationsTable, Calendar.getInstance().getTimeInMillis());
-            if (list.size() < _indicationBufferLimit) {
-                list.add(indication);
-                _logger.debug("Indication Queued at {}", list.size());
+            if (intermediateProcessor.queueIndication(indication)) {
+                _logger.debug("Indication Queued, {} in buffer, {} spilled", list.size(),
+                        _spillFile != null ? _spillFile.getPendingCount() : 0);
+            } else if (_spillFile != null) {
+                _logger.warn("Indication dropped. Indication spill file reached max. size. Spilled indications: {}",
+                        _spillFile.getPendingCount());
+                _logger.info("Indication with key : value pairs dropped --> \n"
+                        + CIMIndicationProcessor.getIndicationData(indication.getIndication()));
             } else {
                 _logger.warn("Indication dropped. Indication buffer reached  max. capacity. Buffer size: {}", list.size());
                 _logger.info("Indication with key : value pairs dropped --> \n"
@@ -136,4 +195,31 @@ public class CassandraCimIndicationConsumer extends CimIndicationConsumer {
             _logger.error("Exception while processing the indication", e);
         }
     }
+
+    /**
+     * Will get called during destruction phase, configured through spring xml
+     * configuration. Moves the buffered indications to the spill file, if any. They
+     * arrived before the indications already spilled, so they are written first.
+     */
+    private void destroy() {
+        indicationProcessTimer.shutdown();
+        try {
+            indicationProcessTimer.awaitTermination(PERIODIC_DELAY, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (_spillFile == null) {
+            return;
+        }
+        List<ArrivedIndication> indications = new ArrayList<ArrivedIndication>();
+        list.drainTo(indications);
+        try {
+            _spillFile.prepend(indications);
+            _logger.info("{} indications pending in spill file {}", _spillFile.getPendingCount(), _indicationSpillFile);
+        } catch (IOException e) {
+            _logger.error("Error spilling buffered indications", e);
+        } finally {
+            _spillFile.close();
+        }
+    }
 }
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local append-only file holding the indications that did not fit in the indication buffer.
+ *
+ * Indications are appended at the end of the file and read back from the start, in the order
+ * they were appended. The offset of the next indication to read is kept in a second file, so
+ * the indications left in the file when the controller stops are read back when it restarts.
+ * Both files are deleted once all the indications have been read.
+ *
+ * The indications not read yet take at most the maximum size given to the constructor. An
+ * indication appended to a full file is dropped.
+ */
+public class IndicationSpillFile {
+
+    /**
+     * Logger to log the debug statements
+     */
+    private static final Logger _logger = LoggerFactory.getLogger(IndicationSpillFile.class);
+
+    private static final String OFFSET_FILE_SUFFIX = ".offset";
+
+    private final File _file;
+    private final File _offsetFile;
+    private final long _maxSize;
+    private DataOutputStream _out;
+    private long _readOffset;
+    private long _length;
+    private int _pending;
+
+    /**
+     * Opens the spill file, counting the indications left by a previous run
+     *
+     * @param path path of the spill file
+     * @param maxSize maximum size in bytes of the indications not read yet
+     * @throws IOException if the file cannot be read
+     */
+    public IndicationSpillFile(String path, long maxSize) throws IOException {
+        _file = new File(path);
+        _maxSize = maxSize;
+        _offsetFile = new File(path + OFFSET_FILE_SUFFIX);
+        File dir = _file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        _readOffset = readOffset();
+        _pending = countPending();
+    }
+
+    /**
+     * @return true if the file holds indications not read yet
+     */
+    public synchronized boolean hasPending() {
+        return _pending > 0;
+    }
+
+    /**
+     * @return number of indications not read yet
+     */
+    public synchronized int getPendingCount() {
+        return _pending;
+    }
+
+    /**
+     * Appends an indication at the end of the file
+     *
+     * @param indication the indication
+     * @return false if the file is full and the indication was not appended
+     * @throws IOException if the indication cannot be written
+     */
+    public synchronized boolean append(ArrivedIndication indication) throws IOException {
+        if (_length - _readOffset >= _maxSize) {
+            return false;
+        }
+        if (_out == null) {
+            _out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_file, true)));
+        }
+        _length += write(_out, indication);
+        _out.flush();
+        _pending++;
+        return true;
+    }
+
+    /**
+     * Writes indications older than those of the file before them, in order, so they are read first.
+     * The file is rewritten without the indications already read. The indications are written even
+     * if the file goes over its maximum size, which is then only checked by the next appends.
+     *
+     * @param indications the indications, oldest first
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void prepend(List<ArrivedIndication> indications) throws IOException {
+        if (indications.isEmpty()) {
+            return;
+        }
+        close();
+        File newFile = new File(_file.getPath() + ".new");
+        long length = 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(newFile)));
+        try {
+            for (ArrivedIndication indication : indications) {
+                length += write(out, indication);
+            }
+            if (_pending > 0) {
+                DataInputStream in = openAt(_readOffset);
+                try {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        length += read;
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            out.close();
+        }
+        // The offset file is deleted first, so the new file is never read from the offset of the old one.
+        // A crash in between reads the old file again from its start.
+        if (_offsetFile.exists() && !_offsetFile.delete()) {
+            throw new IOException("Cannot delete " + _offsetFile);
+        }
+        Files.move(newFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        _readOffset = 0;
+        _length = length;
+        _pending += indications.size();
+    }
+
+    /**
+     * Reads the oldest indications of the file. The file is emptied once all the
+     * indications have been read.
+     *
+     * @param max maximum number of indications to read
+     * @return the indications, in the order they were appended
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized List<ArrivedIndication> read(int max) throws IOException {
+        List<ArrivedIndication> indications = new ArrayList<ArrivedIndication>();
+        if (_pending == 0 || max <= 0) {
+            return indications;
+        }
+        DataInputStream in = openAt(_readOffset);
+        try {
+            while (indications.size() < max && _pending > 0) {
+                long arrivalTime = in.readLong();
+                int size = in.readInt();
+                long length = 12;
+                Hashtable<String, String> data = new Hashtable<String, String>();
+                for (int i = 0; i < size; i++) {
+                    byte[] key = readString(in);
+                    byte[] value = readString(in);
+                    data.put(new String(key, StandardCharsets.UTF_8), new String(value, StandardCharsets.UTF_8));
+                    length += 8 + key.length + value.length;
+                }
+                indications.add(new ArrivedIndication(data, arrivalTime));
+                _readOffset += length;
+                _pending--;
+            }
+        } finally {
+            in.close();
+        }
+        if (_pending == 0) {
+            clear();
+        } else {
+            writeOffset();
+        }
+        return indications;
+    }
+
+    /**
+     * Closes the file, the indications not read yet are kept in the file
+     */
+    public synchronized void close() {
+        if (_out != null) {
+            try {
+                _out.close();
+            } catch (IOException e) {
+                _logger.warn("Error closing indication spill file {}", _file, e);
+            }
+            _out = null;
+        }
+    }
+
+    /**
+     * Counts the indications after the read offset. A record cut short by a crash
+     * while it was appended is removed from the file.
+     */
+    private int countPending() throws IOException {
+        if (!_file.exists()) {
+            _readOffset = 0;
+            _length = 0;
+            return 0;
+        }
+        int count = 0;
+        long offset = _readOffset;
+        DataInputStream in = openAt(offset);
+        try {
+            while (true) {
+                long length = 12;
+                in.readLong();
+                int size = in.readInt();
+                for (int i = 0; i < 2 * size; i++) {
+                    // read rather than skip, a file can be skipped past its end
+                    length += 4 + readString(in).length;
+                }
+                offset += length;
+                count++;
+            }
+        } catch (EOFException e) {
+            // end of the file, or of the last complete record
+        } finally {
+            in.close();
+        }
+        if (offset < _file.length()) {
+            _logger.warn("Removing incomplete indication at offset {} of {}", offset, _file);
+            RandomAccessFile file = new RandomAccessFile(_file, "rw");
+            try {
+                file.setLength(offset);
+            } finally {
+                file.close();
+            }
+        }
+        _length = offset;
+        if (count == 0) {
+            clear();
+        }
+        return count;
+    }
+
+    private DataInputStream openAt(long offset) throws IOException {
+        if (_out != null) {
+            _out.flush();
+        }
+        FileInputStream in = new FileInputStream(_file);
+        try {
+            if (in.skip(offset) != offset) {
+                throw new IOException("Offset " + offset + " is beyond the end of " + _file);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new DataInputStream(new BufferedInputStream(in));
+    }
+
+    private void clear() throws IOException {
+        close();
+        if (_file.exists() && !_file.delete()) {
+            throw new IOException("Cannot delete " + _file);
+        }
+        if (_offsetFile.exists() && !_offsetFile.delete()) {
+            throw new IOException("Cannot delete " + _offsetFile);
+        }
+        _readOffset = 0;
+        _length = 0;
+    }
+
+    private long readOffset() throws IOException {
+        if (!_offsetFile.exists() || !_file.exists()) {
+            return 0;
+        }
+        DataInputStream in = new DataInputStream(new FileInputStream(_offsetFile));
+        try {
+            long offset = in.readLong();
+            return offset <= _file.length() ? offset : 0;
+        } catch (EOFException e) {
+            return 0;
+        } finally {
+            in.close();
+        }
+    }
+
+    private void writeOffset() throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(_offsetFile));
+        try {
+            out.writeLong(_readOffset);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    private static long write(DataOutputStream out, ArrivedIndication indication) throws IOException {
+        Hashtable<String, String> data = indication.getIndication();
+        out.writeLong(indication.getArrivalTime());
+        out.writeInt(data.size());
+        long length = 12;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            length += writeString(out, entry.getKey());
+            length += writeString(out, entry.getValue());
+        }
+        return length;
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static byte[] readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
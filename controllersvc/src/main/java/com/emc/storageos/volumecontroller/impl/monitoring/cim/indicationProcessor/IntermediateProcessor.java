@@ -4,20 +4,30 @@
  */
 package com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor;
 
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emc.storageos.volumecontroller.impl.monitoring.RecordableEventManager;
 import com.emc.storageos.volumecontroller.impl.monitoring.cim.utility.CIMConstants;
 
 /**
  * Periodic timer that executes this class to process the indications sits in
  * the queue.
  * 
+ * The queue is in arrival order: the indications are taken from its head until
+ * one is not due yet. The events recorded while processing them are written to
+ * the database in batches. Once the queue has room again, the indications that
+ * were spilled to the spill file, if any, are moved back to the queue. New
+ * indications are queued under the lock of the spill file, so that none is
+ * queued ahead of the spilled indications being moved back.
  */
 public class IntermediateProcessor implements Runnable {
 
@@ -35,7 +45,17 @@ public class IntermediateProcessor implements Runnable {
     /**
      * A reference to the list of indications
      */
-    private ConcurrentLinkedQueue<ArrivedIndication> _list;
+    private BlockingQueue<ArrivedIndication> _list;
+
+    /**
+     * Records the events of the indications, may be null
+     */
+    private RecordableEventManager _eventManager;
+
+    /**
+     * Indications that did not fit in the list, may be null
+     */
+    private IndicationSpillFile _spillFile;
 
     /**
      * A reference to DateFormatter
@@ -45,11 +65,17 @@ public class IntermediateProcessor implements Runnable {
 
     /**
      * @param list
+     * @param processor
+     * @param eventManager records the events in batches, may be null
+     * @param spillFile indications that did not fit in the list, may be null
      */
-    public IntermediateProcessor(ConcurrentLinkedQueue<ArrivedIndication> list,
-            CIMIndicationProcessor processor) {
+    public IntermediateProcessor(BlockingQueue<ArrivedIndication> list,
+            CIMIndicationProcessor processor, RecordableEventManager eventManager,
+            IndicationSpillFile spillFile) {
         _list = list;
         _processor = processor;
+        _eventManager = eventManager;
+        _spillFile = spillFile;
     }
 
     @Override
@@ -63,30 +89,105 @@ public class IntermediateProcessor implements Runnable {
         int index = 0;
         _logger.debug("Timer awoke, iterating indications with size {}",
                 _list.size());
-        for (ArrivedIndication indication : _list) {
-
-            long duration = TimeUnit.MILLISECONDS.toMinutes(Calendar
-                    .getInstance().getTimeInMillis())
-                    - TimeUnit.MILLISECONDS.toMinutes(indication
-                            .getArrivalTime());
-
-            _logger.debug(
-                    " {}. Arrival Time {} - Sit in Q for {} minute(s)",
-                    new Object[] { ++index,
-                            printArrivalTime(indication.getArrivalTime()),
-                            duration });
-
-            if (duration >= CIMConstants.INDICATION_PROCESS_INTERVAL) {
-                _processor.processIndication(indication.getIndication());
-                _list.remove(indication);
+        if (_eventManager != null) {
+            _eventManager.startBatch();
+        }
+        try {
+            // This timer is the only consumer of the list, the head is only
+            // removed once it has been processed
+            ArrivedIndication indication;
+            while ((indication = _list.peek()) != null) {
+
+                long duration = TimeUnit.MILLISECONDS.toMinutes(Calendar
+                        .getInstance().getTimeInMillis())
+                        - TimeUnit.MILLISECONDS.toMinutes(indication
+                                .getArrivalTime());
+
+                _logger.debug(
+                        " {}. Arrival Time {} - Sit in Q for {} minute(s)",
+                        new Object[] { ++index,
+                                printArrivalTime(indication.getArrivalTime()),
+                                duration });
+
+                if (duration < CIMConstants.INDICATION_PROCESS_INTERVAL) {
+                    break;
+                }
+                try {
+                    _processor.processIndication(indication.getIndication());
+                } catch (Exception e) {
+                    _logger.error("Exception while processing the indication", e);
+                }
+                _list.poll();
+            }
+        } finally {
+            if (_eventManager != null) {
+                try {
+                    _eventManager.endBatch();
+                } catch (Exception e) {
+                    _logger.error("Exception while recording the events of the indications", e);
+                }
             }
-
         }
+        readSpilledIndications();
         _logger.debug(
                 "Indication processing cycle finished. {} indications left to process",
                 _list.size());
     }
 
+    /**
+     * Queues a new indication. Once indications are spilled, the new ones are
+     * spilled too, to keep them in order.
+     * 
+     * @param indication
+     * @return false if the indication was dropped, the list and the spill file
+     *         being full
+     * @throws IOException
+     */
+    public boolean queueIndication(ArrivedIndication indication) throws IOException {
+        if (_spillFile == null) {
+            return _list.offer(indication);
+        }
+        synchronized (_spillFile) {
+            if (!_spillFile.hasPending() && _list.offer(indication)) {
+                return true;
+            }
+            return _spillFile.append(indication);
+        }
+    }
+
+    /**
+     * Moves spilled indications back to the list, as many as the list has room for
+     */
+    private void readSpilledIndications() {
+        if (_spillFile == null) {
+            return;
+        }
+        // The file is empty once read, new indications must wait until the read ones are queued
+        synchronized (_spillFile) {
+            if (!_spillFile.hasPending()) {
+                return;
+            }
+            try {
+                int count = 0;
+                List<ArrivedIndication> notQueued = new ArrayList<ArrivedIndication>();
+                for (ArrivedIndication indication : _spillFile.read(_list.remainingCapacity())) {
+                    // New indications are queued under the same lock, so the read ones fit
+                    if (notQueued.isEmpty() && _list.offer(indication)) {
+                        count++;
+                    } else {
+                        notQueued.add(indication);
+                    }
+                }
+                // put back in front of the file, to be read first on the next run
+                _spillFile.prepend(notQueued);
+                _logger.info("{} spilled indications queued, {} left in the spill file", count,
+                        _spillFile.getPendingCount());
+            } catch (IOException e) {
+                _logger.error("Error reading the indication spill file", e);
+            }
+        }
+    }
+
     /**
      * Prints the long time in readable format
      * 
@@ -17,7 +17,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jettison.json.JSONException;
@@ -88,10 +92,12 @@ import com.emc.storageos.plugins.AccessProfile;
 import com.emc.storageos.plugins.BaseCollectionException;
 import com.emc.storageos.plugins.common.Constants;
 import com.emc.storageos.plugins.metering.isilon.IsilonCollectionException;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
 import com.emc.storageos.util.VersionChecker;
 import com.emc.storageos.volumecontroller.FileControllerConstants;
 import com.emc.storageos.volumecontroller.impl.NativeGUIDGenerator;
 import com.emc.storageos.volumecontroller.impl.StoragePortAssociationHelper;
+import com.emc.storageos.volumecontroller.impl.plugins.discovery.isilon.IsilonAccessZoneShares;
 import com.emc.storageos.volumecontroller.impl.plugins.metering.CassandraInsertion;
 import com.emc.storageos.volumecontroller.impl.plugins.metering.ZeroRecordGenerator;
 import com.emc.storageos.volumecontroller.impl.plugins.metering.file.FileDBInsertion;
@@ -157,10 +163,12 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
     private static final String ISILON_PATH_CUSTOMIZATION = "IsilonPathCustomization";
 
     private static final Integer MAX_RECORDS_SIZE = 100;
+    private static final int DEFAULT_UMFS_DISCOVERY_THREADS = 4;
 
     private Set<String> _discPathsForUnManaged;
     private int _discPathsLength;
     private static String _discCustomPath;
+    private int _unManagedDiscoveryThreads = DEFAULT_UMFS_DISCOVERY_THREADS;
     @Autowired
     private CustomConfigHandler customConfigHandler;
     @Autowired
@@ -188,6 +196,16 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
         this._discPathsForUnManaged = discPathsForUnManaged;
     }
 
+    /**
+     * Set the number of access zones of an Isilon discovered in parallel by the unmanaged file
+     * system discovery, which bounds its number of concurrent requests to the Isilon
+     * 
+     * @param unManagedDiscoveryThreads
+     */
+    public void setUnManagedDiscoveryThreads(int unManagedDiscoveryThreads) {
+        _unManagedDiscoveryThreads = unManagedDiscoveryThreads;
+    }
+
     /**
      * Set Isilon API factory
      * 
@@ -1405,21 +1423,6 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
 
     private void discoverUmanagedFileSystems(AccessProfile profile) throws BaseCollectionException {
 
-        List<UnManagedFileSystem> newUnManagedFileSystems = new ArrayList<>();
-        List<UnManagedFileSystem> existingUnManagedFileSystems = new ArrayList<>();
-
-        List<UnManagedFileQuotaDirectory> newUnManagedFileQuotaDir = new ArrayList<>();
-        List<UnManagedFileQuotaDirectory> existingUnManagedFileQuotaDir = new ArrayList<>();
-
-        List<UnManagedCifsShareACL> newUnManagedCifsShareACLList = new ArrayList<>();
-        List<UnManagedCifsShareACL> oldUnManagedCifsShareACLList = new ArrayList<>();
-
-        List<UnManagedNFSShareACL> newUnManagedNfsShareACLList = new ArrayList<>();
-        List<UnManagedNFSShareACL> oldUnManagedNfsShareACLList = new ArrayList<>();
-
-        List<UnManagedFileExportRule> newUnManagedExportRules = new ArrayList<>();
-        List<UnManagedFileExportRule> oldUnManagedExportRules = new ArrayList<>();
-
         _log.debug("Access Profile Details :  IpAddress : PortNumber : {}, namespace : {}",
                 profile.getIpAddress() + profile.getPortNumber(),
                 profile.getnamespace());
@@ -1431,10 +1434,9 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
             return;
         }
 
-        Set<URI> allDiscoveredUnManagedFileSystems = new HashSet<>();
-
         String detailedStatusMessage = "Discovery of Isilon Unmanaged FileSystem started";
         long unmanagedFsCount = 0;
+        ExecutorService discoveryExecutor = null;
         try {
             IsilonApi isilonApi = getIsilonDevice(storageSystem);
 
@@ -1458,8 +1460,6 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
                 storagePool = pools.get(0);
             }
 
-            StoragePort storagePort = getStoragePortPool(storageSystem);
-
             int totalIsilonFSDiscovered = 0;
 
             // get the associated storage port for vnas Server
@@ -1472,322 +1472,365 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
             // NFSv4 enabled on storage system!!!
             boolean isNfsV4Enabled = isilonApi.nfsv4Enabled(storageSystem.getFirmwareVersion());
 
-            List<FileShare> discoveredFS = new ArrayList<>();
-            String resumeToken = null;
+            /**
+             * Discover the file systems of the discovery paths in parallel, each path is the path of an access zone.
+             * The number of threads bounds the number of concurrent requests to the array.
+             */
+            List<String> umfsDiscoverPaths = new ArrayList<>(_discPathsForUnManaged);
+            discoveryExecutor = new NamedThreadPoolExecutor(IsilonCommunicationInterface.class.getSimpleName(),
+                    Math.max(1, Math.min(_unManagedDiscoveryThreads, umfsDiscoverPaths.size())));
+            List<Future<Integer>> pathResults = new ArrayList<>();
+            for (String umfsDiscoverPath : umfsDiscoverPaths) {
+                pathResults.add(discoveryExecutor.submit(new UnManagedFileSystemDiscovery(storageSystem, isilonApi,
+                        umfsDiscoverPath, isilonAccessZones, nasServers, storagePool, isNfsV4Enabled)));
+            }
+            for (Future<Integer> pathResult : pathResults) {
+                try {
+                    totalIsilonFSDiscovered += pathResult.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IsilonException) {
+                        throw (IsilonException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
 
-            for (String umfsDiscoverPath : _discPathsForUnManaged) {
+            _log.info("Discovered {} Isilon file systems.", totalIsilonFSDiscovered);
 
-                IsilonAccessZone isilonAccessZone = getAccessZoneCorresDiscoveryPath(isilonAccessZones, umfsDiscoverPath);
-                String isilonAccessZoneName;
-                if (isilonAccessZone == null) {
-                    // System access zone
-                    isilonAccessZoneName = null;
-                } else {
-                    isilonAccessZoneName = isilonAccessZone.getName();
+            // discovery succeeds
+            detailedStatusMessage = String.format("Discovery completed successfully for Isilon: %s; new unmanaged file systems count: %s",
+                    storageSystemId.toString(), unmanagedFsCount);
+            _log.info(detailedStatusMessage);
+
+        } catch (IsilonException ex) {
+            detailedStatusMessage = String.format("Discovery failed for Isilon %s because %s",
+                    storageSystemId.toString(), ex.getLocalizedMessage());
+            _log.error(detailedStatusMessage, ex);
+            throw ex;
+        } catch (Exception e) {
+            detailedStatusMessage = String.format("Discovery failed for Isilon %s because %s",
+                    storageSystemId.toString(), e.getLocalizedMessage());
+            _log.error(detailedStatusMessage, e);
+            throw new IsilonCollectionException(detailedStatusMessage);
+        } finally {
+            if (discoveryExecutor != null) {
+                discoveryExecutor.shutdownNow();
+            }
+            if (storageSystem != null) {
+                try {
+                    // set detailed message
+                    storageSystem.setLastDiscoveryStatusMessage(detailedStatusMessage);
+                    _dbClient.updateObject(storageSystem);
+                } catch (Exception ex) {
+                    _log.error("Error while persisting object to DB", ex);
                 }
+            }
+        }
+    }
 
-                // Get All SMB for this path access zone
-                HashMap<String, HashSet<String>> zoneSMBShares = discoverAccessZoneSMBShares(storageSystem, isilonAccessZoneName);
+    /**
+     * Discovers the unmanaged file systems of a discovery path
+     */
+    private class UnManagedFileSystemDiscovery implements Callable<Integer> {
+        private final StorageSystem storageSystem;
+        private final IsilonApi isilonApi;
+        private final String umfsDiscoverPath;
+        private final List<IsilonAccessZone> isilonAccessZones;
+        private final Map<String, NASServer> nasServers;
+        private final StoragePool storagePool;
+        private final boolean isNfsV4Enabled;
+
+        UnManagedFileSystemDiscovery(StorageSystem storageSystem, IsilonApi isilonApi, String umfsDiscoverPath,
+                List<IsilonAccessZone> isilonAccessZones, Map<String, NASServer> nasServers, StoragePool storagePool,
+                boolean isNfsV4Enabled) {
+            this.storageSystem = storageSystem;
+            this.isilonApi = isilonApi;
+            this.umfsDiscoverPath = umfsDiscoverPath;
+            this.isilonAccessZones = isilonAccessZones;
+            this.nasServers = nasServers;
+            this.storagePool = storagePool;
+            this.isNfsV4Enabled = isNfsV4Enabled;
+        }
+
+        /**
+         * @return number of file systems discovered in the path
+         */
+        @Override
+        public Integer call() throws Exception {
+            return discoverUmanagedFileSystems(storageSystem, isilonApi, umfsDiscoverPath, isilonAccessZones, nasServers,
+                    storagePool, isNfsV4Enabled);
+        }
+    }
+
+    private int discoverUmanagedFileSystems(StorageSystem storageSystem, IsilonApi isilonApi, String umfsDiscoverPath,
+            List<IsilonAccessZone> isilonAccessZones, Map<String, NASServer> nasServers, StoragePool storagePool,
+            boolean isNfsV4Enabled) throws IOException {
 
-                // Get all NFS Export for this path access zone
-                HashMap<String, HashSet<Integer>> zoneNFSExports = discoverAccessZoneExports(storageSystem, isilonAccessZoneName);
+        List<UnManagedFileSystem> newUnManagedFileSystems = new ArrayList<>();
+        List<UnManagedFileSystem> existingUnManagedFileSystems = new ArrayList<>();
 
-                do {
-                    HashMap<String, Object> discoverdFileDetails = discoverAllFileSystem(storageSystem, resumeToken,
-                            umfsDiscoverPath);
+        List<UnManagedFileQuotaDirectory> newUnManagedFileQuotaDir = new ArrayList<>();
+        List<UnManagedFileQuotaDirectory> existingUnManagedFileQuotaDir = new ArrayList<>();
 
-                    IsilonApi.IsilonList<FileShare> discoveredIsilonFS = (IsilonApi.IsilonList<FileShare>) discoverdFileDetails
-                            .get(UMFS_DETAILS);
+        List<UnManagedCifsShareACL> newUnManagedCifsShareACLList = new ArrayList<>();
+        List<UnManagedCifsShareACL> oldUnManagedCifsShareACLList = new ArrayList<>();
 
-                    ArrayList<UnManagedFileQuotaDirectory> discoveredUmfsQd = (ArrayList<UnManagedFileQuotaDirectory>) discoverdFileDetails
-                            .get(UMFSQD_DETAILS);
+        List<UnManagedNFSShareACL> newUnManagedNfsShareACLList = new ArrayList<>();
+        List<UnManagedNFSShareACL> oldUnManagedNfsShareACLList = new ArrayList<>();
 
-                    HashMap<String, HashSet<String>> umfsfileQuotaMap = (HashMap<String, HashSet<String>>) discoverdFileDetails
-                            .get(UMFS_QD_MAP);
+        List<UnManagedFileExportRule> newUnManagedExportRules = new ArrayList<>();
+        List<UnManagedFileExportRule> oldUnManagedExportRules = new ArrayList<>();
 
-                    resumeToken = discoveredIsilonFS.getToken();
-                    discoveredFS = discoveredIsilonFS.getList();
+        int totalIsilonFSDiscovered = 0;
+        String resumeToken = null;
 
-                    totalIsilonFSDiscovered += discoveredFS.size();
+        IsilonAccessZone isilonAccessZone = getAccessZoneCorresDiscoveryPath(isilonAccessZones, umfsDiscoverPath);
+        String isilonAccessZoneName;
+        if (isilonAccessZone == null) {
+            // System access zone
+            isilonAccessZoneName = null;
+        } else {
+            isilonAccessZoneName = isilonAccessZone.getName();
+        }
 
-                    for (FileShare fs : discoveredFS) {
-                        if (!checkStorageFileSystemExistsInDB(fs.getNativeGuid())) {
+        // Get all NFS Exports and SMB shares for this path access zone
+        IsilonAccessZoneShares zoneShares = discoverAccessZoneShares(storageSystem, isilonApi, isilonAccessZoneName);
 
-                            // Create UnManaged FS
-                            String fsPathName = fs.getPath();
-                            UnManagedFileSystem unManagedFs = checkUnManagedFileSystemExistsInDB(fs.getNativeGuid());
+        do {
+            HashMap<String, Object> discoverdFileDetails = discoverAllFileSystem(storageSystem, isilonApi, isilonAccessZones,
+                    resumeToken, umfsDiscoverPath);
 
-                            if (unManagedFs != null) {
-                                existingUnManagedFileSystems.add(unManagedFs);
-                            }
+            IsilonApi.IsilonList<FileShare> discoveredIsilonFS = (IsilonApi.IsilonList<FileShare>) discoverdFileDetails
+                    .get(UMFS_DETAILS);
 
-                            // get the matched vNAS Server
-                            NASServer nasServer = getMatchedNASServer(nasServers, fsPathName);
-                            if (nasServer != null) {
-                                // Get valid storage port from the NAS server!!!
-                                _log.info("fs path {} and nas server details {}", fs.getPath(), nasServer.toString());
-                                storagePort = getStoragePortFromNasServer(nasServer);
-                                if (storagePort == null) {
-                                    _log.info("No valid storage port found for nas server {}", nasServer.toString());
-                                    continue;
-                                }
-                            } else {
-                                _log.info("fs path {} and vnas server not found", fs.getPath());
-                                continue; // Skip further ingestion steps on this file share & move to next file share
-                            }
+            ArrayList<UnManagedFileQuotaDirectory> discoveredUmfsQd = (ArrayList<UnManagedFileQuotaDirectory>) discoverdFileDetails
+                    .get(UMFSQD_DETAILS);
 
-                            unManagedFs = createUnManagedFileSystem(unManagedFs,
-                                    fs.getNativeGuid(), storageSystem, storagePool, nasServer, fs);
+            HashMap<String, Set<String>> umfsfileQuotaMap = (HashMap<String, Set<String>>) discoverdFileDetails
+                    .get(UMFS_QD_MAP);
 
-                            unManagedFs.setHasNFSAcl(false);
-                            newUnManagedFileSystems.add(unManagedFs);
+            resumeToken = discoveredIsilonFS.getToken();
+            List<FileShare> discoveredFS = discoveredIsilonFS.getList();
 
-                            /**
-                             * Set and create the NFS ACLs only if the system is enabled with NFSv4!!!
-                             */
-                            HashMap<String, HashSet<Integer>> exportWithIdMap = getExportsIncludingSubDir(fs.getPath(), zoneNFSExports,
-                                    umfsfileQuotaMap);
+            totalIsilonFSDiscovered += discoveredFS.size();
 
-                            if (isNfsV4Enabled) {
-                                Set<String> fsExportPaths = exportWithIdMap.keySet();
-                                setUnmanagedNfsShareACL(unManagedFs, storageSystem, isilonApi, fsExportPaths, newUnManagedNfsShareACLList,
-                                        oldUnManagedNfsShareACLList);
-                            }
+            for (FileShare fs : discoveredFS) {
+                if (!checkStorageFileSystemExistsInDB(fs.getNativeGuid())) {
 
-                            /**
-                             * Set and Create Export Rules and export Map
-                             */
-                            if (!exportWithIdMap.keySet().isEmpty()) {
-                                setUnManagedFSExportMap(unManagedFs, exportWithIdMap, storagePort,
-                                        fs.getPath(), nasServer.getNasName(), isilonApi, storageSystem, newUnManagedExportRules,
-                                        oldUnManagedExportRules);
-                                _log.info("Number of exports discovered for file system {} is {}", unManagedFs.getId(),
-                                        newUnManagedExportRules.size());
-                                if (!newUnManagedExportRules.isEmpty()) {
-                                    unManagedFs.setHasExports(true);
-                                    _log.info("File System {} has Exports and their size is {}", unManagedFs.getId(),
-                                            newUnManagedExportRules.size());
-                                }
-                            }
+                    // Create UnManaged FS
+                    String fsPathName = fs.getPath();
+                    UnManagedFileSystem unManagedFs = checkUnManagedFileSystemExistsInDB(fs.getNativeGuid());
 
-                            /**
-                             * Create and set CIFS ACLS and SMB Share MAP
-                             */
-                            HashSet<String> shareIDs = getSharesIncludingSubDir(fs.getPath(), zoneSMBShares,
-                                    umfsfileQuotaMap);
-                            setUnmanagedCifsShareACL(unManagedFs, shareIDs,
-                                    newUnManagedCifsShareACLList, storagePort, fs.getName(), nasServer.getNasName(),
-                                    storageSystem, isilonApi, oldUnManagedCifsShareACLList);
-                            _log.info("Number of shares ACLs discovered for file system {} is {}", unManagedFs.getId(),
-                                    newUnManagedCifsShareACLList.size());
-
-                            if (unManagedFs.getHasExports() || unManagedFs.getHasShares()) {
-                                _log.info("FS {} is having exports/shares", fs.getPath());
-                                unManagedFs.putFileSystemCharacterstics(
-                                        UnManagedFileSystem.SupportedFileSystemCharacterstics.IS_FILESYSTEM_EXPORTED.toString(), TRUE);
-                            } else {
-                                _log.info("FS {} does not have export or share", fs.getPath());
-                            }
+                    if (unManagedFs != null) {
+                        existingUnManagedFileSystems.add(unManagedFs);
+                    }
 
-                            /**
-                             * Persist 200 objects and clear them to avoid memory issue
-                             */
-                            // save bunch of export rules in db
-                            validateSizeLimitAndPersist(newUnManagedExportRules, oldUnManagedExportRules,
-                                    Constants.DEFAULT_PARTITION_SIZE * 2);
+                    // get the matched vNAS Server
+                    StoragePort storagePort = null;
+                    NASServer nasServer = getMatchedNASServer(nasServers, fsPathName);
+                    if (nasServer != null) {
+                        // Get valid storage port from the NAS server!!!
+                        _log.info("fs path {} and nas server details {}", fs.getPath(), nasServer.toString());
+                        storagePort = getStoragePortFromNasServer(nasServer);
+                        if (storagePort == null) {
+                            _log.info("No valid storage port found for nas server {}", nasServer.toString());
+                            continue;
+                        }
+                    } else {
+                        _log.info("fs path {} and vnas server not found", fs.getPath());
+                        continue; // Skip further ingestion steps on this file share & move to next file share
+                    }
 
-                            // save bunch of ACLs in db
-                            validateSizeLimitAndPersist(newUnManagedCifsShareACLList, oldUnManagedCifsShareACLList,
-                                    Constants.DEFAULT_PARTITION_SIZE * 2);
+                    unManagedFs = createUnManagedFileSystem(unManagedFs,
+                            fs.getNativeGuid(), storageSystem, storagePool, nasServer, fs);
 
-                            // save bunch of NFS ACLs in db
-                            validateSizeLimitAndPersist(newUnManagedNfsShareACLList, newUnManagedNfsShareACLList,
-                                    Constants.DEFAULT_PARTITION_SIZE * 2);
+                    unManagedFs.setHasNFSAcl(false);
+                    newUnManagedFileSystems.add(unManagedFs);
 
-                            allDiscoveredUnManagedFileSystems.add(unManagedFs.getId());
+                    /**
+                     * Set and create the NFS ACLs only if the system is enabled with NFSv4!!!
+                     */
+                    Map<String, List<IsilonExport>> exportMap = zoneShares.getExports(fs.getPath(),
+                            umfsfileQuotaMap.get(fs.getPath()));
 
-                            // save bunch of file system in db
-                            validateListSizeLimitAndPersist(newUnManagedFileSystems, existingUnManagedFileSystems,
-                                    Constants.DEFAULT_PARTITION_SIZE * 2);
-                        }
+                    if (isNfsV4Enabled) {
+                        Set<String> fsExportPaths = exportMap.keySet();
+                        setUnmanagedNfsShareACL(unManagedFs, storageSystem, isilonApi, fsExportPaths, newUnManagedNfsShareACLList,
+                                oldUnManagedNfsShareACLList);
                     }
 
                     /**
-                     * Create and set Quota Directory for this file system..
+                     * Set and Create Export Rules and export Map
                      */
+                    if (!exportMap.keySet().isEmpty()) {
+                        setUnManagedFSExportMap(unManagedFs, exportMap, storagePort,
+                                fs.getPath(), storageSystem, newUnManagedExportRules,
+                                oldUnManagedExportRules);
+                        _log.info("Number of exports discovered for file system {} is {}", unManagedFs.getId(),
+                                newUnManagedExportRules.size());
+                        if (!newUnManagedExportRules.isEmpty()) {
+                            unManagedFs.setHasExports(true);
+                            _log.info("File System {} has Exports and their size is {}", unManagedFs.getId(),
+                                    newUnManagedExportRules.size());
+                        }
+                    }
 
-                    for (UnManagedFileQuotaDirectory umfsQd : discoveredUmfsQd) {
-                        if (!checkStorageQuotaDirectoryExistsInDB(umfsQd.getNativeGuid())) {
-
-                            String fsUnManagedQdNativeGuid = NativeGUIDGenerator.generateNativeGuidForUnManagedQuotaDir(
-                                    storageSystem.getSystemType(), storageSystem.getSerialNumber(), umfsQd.getNativeId(), "");
+                    /**
+                     * Create and set CIFS ACLS and SMB Share MAP
+                     */
+                    List<IsilonSMBShare> smbShares = zoneShares.getShares(fs.getPath(), umfsfileQuotaMap.get(fs.getPath()));
+                    setUnmanagedCifsShareACL(unManagedFs, smbShares,
+                            newUnManagedCifsShareACLList, storagePort, fs.getName(),
+                            storageSystem, oldUnManagedCifsShareACLList);
+                    _log.info("Number of shares ACLs discovered for file system {} is {}", unManagedFs.getId(),
+                            newUnManagedCifsShareACLList.size());
+
+                    if (unManagedFs.getHasExports() || unManagedFs.getHasShares()) {
+                        _log.info("FS {} is having exports/shares", fs.getPath());
+                        unManagedFs.putFileSystemCharacterstics(
+                                UnManagedFileSystem.SupportedFileSystemCharacterstics.IS_FILESYSTEM_EXPORTED.toString(), TRUE);
+                    } else {
+                        _log.info("FS {} does not have export or share", fs.getPath());
+                    }
 
-                            UnManagedFileQuotaDirectory unManagedFileQd = checkUnManagedFileSystemQuotaDirectoryExistsInDB(
-                                    fsUnManagedQdNativeGuid);
+                    /**
+                     * Persist 200 objects and clear them to avoid memory issue
+                     */
+                    // save bunch of export rules in db
+                    validateSizeLimitAndPersist(newUnManagedExportRules, oldUnManagedExportRules,
+                            Constants.DEFAULT_PARTITION_SIZE * 2);
 
-                            boolean umfsQdExists = (unManagedFileQd == null) ? false : true;
-                            if (umfsQdExists) {
-                                umfsQd.setId(unManagedFileQd.getId());
-                                existingUnManagedFileQuotaDir.add(umfsQd);
-                            } else if (null != umfsQd) {
-                                umfsQd.setId(URIUtil.createId(UnManagedFileQuotaDirectory.class));
-                                newUnManagedFileQuotaDir.add(umfsQd);
-                            }
-                        }
-                    }
+                    // save bunch of ACLs in db
+                    validateSizeLimitAndPersist(newUnManagedCifsShareACLList, oldUnManagedCifsShareACLList,
+                            Constants.DEFAULT_PARTITION_SIZE * 2);
 
-                    // save bunch of QDs in db
-                    validateSizeLimitAndPersist(newUnManagedFileQuotaDir, existingUnManagedFileQuotaDir,
+                    // save bunch of NFS ACLs in db
+                    validateSizeLimitAndPersist(newUnManagedNfsShareACLList, oldUnManagedNfsShareACLList,
                             Constants.DEFAULT_PARTITION_SIZE * 2);
 
-                } while (resumeToken != null);
+                    // save bunch of file system in db
+                    validateListSizeLimitAndPersist(newUnManagedFileSystems, existingUnManagedFileSystems,
+                            Constants.DEFAULT_PARTITION_SIZE * 2);
+                }
             }
 
-            // Saving bunch of Unmanaged objects!!!
-            if (!newUnManagedExportRules.isEmpty()) {
-                _log.info("Saving Number of UnManagedFileExportRule(s) {}", newUnManagedExportRules.size());
-                _dbClient.createObject(newUnManagedExportRules);
-                newUnManagedExportRules.clear();
-            }
+            /**
+             * Create and set Quota Directory for this file system..
+             */
 
-            if (!oldUnManagedExportRules.isEmpty()) {
-                _log.info("Saving Number of UnManagedFileExportRule(s) {}", newUnManagedExportRules.size());
-                _dbClient.updateObject(newUnManagedExportRules);
-                oldUnManagedExportRules.clear();
-            }
+            for (UnManagedFileQuotaDirectory umfsQd : discoveredUmfsQd) {
+                if (!checkStorageQuotaDirectoryExistsInDB(umfsQd.getNativeGuid())) {
 
-            // save ACLs in db
-            if (!newUnManagedCifsShareACLList.isEmpty()) {
-                _log.info("Saving Number of UnManagedCifsShareACL(s) {}", newUnManagedCifsShareACLList.size());
-                _dbClient.createObject(newUnManagedCifsShareACLList);
-                newUnManagedCifsShareACLList.clear();
-            }
+                    String fsUnManagedQdNativeGuid = NativeGUIDGenerator.generateNativeGuidForUnManagedQuotaDir(
+                            storageSystem.getSystemType(), storageSystem.getSerialNumber(), umfsQd.getNativeId(), "");
 
-            // save old acls
-            if (!oldUnManagedCifsShareACLList.isEmpty()) {
-                _log.info("Saving Number of UnManagedFileExportRule(s) {}", oldUnManagedCifsShareACLList.size());
-                _dbClient.updateObject(oldUnManagedCifsShareACLList);
-                oldUnManagedCifsShareACLList.clear();
-            }
+                    UnManagedFileQuotaDirectory unManagedFileQd = checkUnManagedFileSystemQuotaDirectoryExistsInDB(
+                            fsUnManagedQdNativeGuid);
 
-            // save NFS ACLs in db
-            if (!newUnManagedNfsShareACLList.isEmpty()) {
-                _log.info("Saving Number of UnManagedNfsShareACL(s) {}", newUnManagedNfsShareACLList.size());
-                _dbClient.createObject(newUnManagedNfsShareACLList);
-                newUnManagedNfsShareACLList.clear();
+                    boolean umfsQdExists = (unManagedFileQd == null) ? false : true;
+                    if (umfsQdExists) {
+                        umfsQd.setId(unManagedFileQd.getId());
+                        existingUnManagedFileQuotaDir.add(umfsQd);
+                    } else if (null != umfsQd) {
+                        umfsQd.setId(URIUtil.createId(UnManagedFileQuotaDirectory.class));
+                        newUnManagedFileQuotaDir.add(umfsQd);
+                    }
+                }
             }
 
-            // save old acls
-            if (!oldUnManagedNfsShareACLList.isEmpty()) {
-                _log.info("Saving Number of NFS UnManagedFileExportRule(s) {}", oldUnManagedNfsShareACLList.size());
-                _dbClient.updateObject(oldUnManagedNfsShareACLList);
-                oldUnManagedNfsShareACLList.clear();
-            }
+            // save bunch of QDs in db
+            validateSizeLimitAndPersist(newUnManagedFileQuotaDir, existingUnManagedFileQuotaDir,
+                    Constants.DEFAULT_PARTITION_SIZE * 2);
 
-            // save new QDs to DB
-            if (!newUnManagedFileQuotaDir.isEmpty()) {
-                _log.info("New unmanaged Isilon file systems QuotaDirecotry  count: {}", newUnManagedFileQuotaDir.size());
-                _dbClient.createObject(newUnManagedFileQuotaDir);
-            }
+        } while (resumeToken != null);
 
-            // save old QDs
-            if (!existingUnManagedFileQuotaDir.isEmpty()) {
-                _log.info("Update unmanaged Isilon file systems QuotaDirectory count: {}",
-                        existingUnManagedFileQuotaDir.size());
-                _dbClient.updateObject(existingUnManagedFileQuotaDir);
-            }
+        // Saving bunch of Unmanaged objects!!!
+        if (!newUnManagedExportRules.isEmpty()) {
+            _log.info("Saving Number of UnManagedFileExportRule(s) {}", newUnManagedExportRules.size());
+            _dbClient.createObject(newUnManagedExportRules);
+            newUnManagedExportRules.clear();
+        }
 
-            // save new FS
-            if (!newUnManagedFileSystems.isEmpty()) {
-                _dbClient.createObject(newUnManagedFileSystems);
-            }
+        if (!oldUnManagedExportRules.isEmpty()) {
+            _log.info("Saving Number of UnManagedFileExportRule(s) {}", oldUnManagedExportRules.size());
+            _dbClient.updateObject(oldUnManagedExportRules);
+            oldUnManagedExportRules.clear();
+        }
 
-            // save old FS
-            if (!existingUnManagedFileSystems.isEmpty()) {
-                _dbClient.updateObject(existingUnManagedFileSystems);
-            }
+        // save ACLs in db
+        if (!newUnManagedCifsShareACLList.isEmpty()) {
+            _log.info("Saving Number of UnManagedCifsShareACL(s) {}", newUnManagedCifsShareACLList.size());
+            _dbClient.createObject(newUnManagedCifsShareACLList);
+            newUnManagedCifsShareACLList.clear();
+        }
 
-            _log.info("Discovered {} Isilon file systems.", totalIsilonFSDiscovered);
+        // save old acls
+        if (!oldUnManagedCifsShareACLList.isEmpty()) {
+            _log.info("Saving Number of UnManagedFileExportRule(s) {}", oldUnManagedCifsShareACLList.size());
+            _dbClient.updateObject(oldUnManagedCifsShareACLList);
+            oldUnManagedCifsShareACLList.clear();
+        }
 
-            // discovery succeeds
-            detailedStatusMessage = String.format("Discovery completed successfully for Isilon: %s; new unmanaged file systems count: %s",
-                    storageSystemId.toString(), unmanagedFsCount);
-            _log.info(detailedStatusMessage);
+        // save NFS ACLs in db
+        if (!newUnManagedNfsShareACLList.isEmpty()) {
+            _log.info("Saving Number of UnManagedNfsShareACL(s) {}", newUnManagedNfsShareACLList.size());
+            _dbClient.createObject(newUnManagedNfsShareACLList);
+            newUnManagedNfsShareACLList.clear();
+        }
 
-        } catch (IsilonException ex) {
-            detailedStatusMessage = String.format("Discovery failed for Isilon %s because %s",
-                    storageSystemId.toString(), ex.getLocalizedMessage());
-            _log.error(detailedStatusMessage, ex);
-            throw ex;
-        } catch (Exception e) {
-            detailedStatusMessage = String.format("Discovery failed for Isilon %s because %s",
-                    storageSystemId.toString(), e.getLocalizedMessage());
-            _log.error(detailedStatusMessage, e);
-            throw new IsilonCollectionException(detailedStatusMessage);
-        } finally {
-            if (storageSystem != null) {
-                try {
-                    // set detailed message
-                    storageSystem.setLastDiscoveryStatusMessage(detailedStatusMessage);
-                    _dbClient.updateObject(storageSystem);
-                } catch (Exception ex) {
-                    _log.error("Error while persisting object to DB", ex);
-                }
-            }
+        // save old acls
+        if (!oldUnManagedNfsShareACLList.isEmpty()) {
+            _log.info("Saving Number of NFS UnManagedFileExportRule(s) {}", oldUnManagedNfsShareACLList.size());
+            _dbClient.updateObject(oldUnManagedNfsShareACLList);
+            oldUnManagedNfsShareACLList.clear();
+        }
+
+        // save new QDs to DB
+        if (!newUnManagedFileQuotaDir.isEmpty()) {
+            _log.info("New unmanaged Isilon file systems QuotaDirecotry  count: {}", newUnManagedFileQuotaDir.size());
+            _dbClient.createObject(newUnManagedFileQuotaDir);
+        }
+
+        // save old QDs
+        if (!existingUnManagedFileQuotaDir.isEmpty()) {
+            _log.info("Update unmanaged Isilon file systems QuotaDirectory count: {}",
+                    existingUnManagedFileQuotaDir.size());
+            _dbClient.updateObject(existingUnManagedFileQuotaDir);
+        }
+
+        // save new FS
+        if (!newUnManagedFileSystems.isEmpty()) {
+            _dbClient.createObject(newUnManagedFileSystems);
         }
+
+        // save old FS
+        if (!existingUnManagedFileSystems.isEmpty()) {
+            _dbClient.updateObject(existingUnManagedFileSystems);
+        }
+
+        _log.info("Discovered {} Isilon file systems in path {}", totalIsilonFSDiscovered, umfsDiscoverPath);
+        return totalIsilonFSDiscovered;
     }
 
     /**
-     * Get all SMB shares of storagesystem
+     * Get all NFS exports and SMB shares of an access zone
      * 
      * @param storageSystem
+     * @param isilonApi
+     * @param isilonAccessZone name of the access zone, null for the System access zone
      * @return
      */
-
-    private HashMap<String, HashSet<String>> discoverAccessZoneSMBShares(final StorageSystem storageSystem,
-            String isilonAccessZone) {
-        // Discover All FileShares
-        String resumeToken = null;
-        HashMap<String, HashSet<String>> allShares = new HashMap<String, HashSet<String>>();
+    private IsilonAccessZoneShares discoverAccessZoneShares(StorageSystem storageSystem, IsilonApi isilonApi,
+            String isilonAccessZone) throws IsilonCollectionException {
         URI storageSystemId = storageSystem.getId();
-        _log.info("discoverAllShares for storage system {} - start", storageSystemId);
-
         try {
-            IsilonApi isilonApi = getIsilonDevice(storageSystem);
-            do {
-                IsilonApi.IsilonList<IsilonSMBShare> isilonShares = isilonApi.listShares(resumeToken, isilonAccessZone);
-                List<IsilonSMBShare> isilonSMBShareList = isilonShares.getList();
-                HashSet<String> sharesHashSet = null;
-                for (IsilonSMBShare share : isilonSMBShareList) {
-                    // get the filesystem path and shareid
-                    String path = share.getPath();
-                    String shareId = share.getId();
-                    sharesHashSet = allShares.get(path);
-                    if (null == sharesHashSet) {
-                        sharesHashSet = new HashSet<String>();
-                        sharesHashSet.add(shareId);
-                        allShares.put(path, sharesHashSet);
-                    } else {
-                        // if shares already exist for path then add
-                        sharesHashSet.add(shareId);
-                        allShares.put(path, sharesHashSet);
-                    }
-
-                    _log.info("Discovered SMB Share name {} and path {}", shareId, path);
-                }
-
-                resumeToken = isilonShares.getToken();
-            } while (resumeToken != null);
-            _log.info("discoverd AllShares for access zone {} ", isilonAccessZone);
-            return allShares;
-        } catch (IsilonException ie) {
-            _log.error("discoverAllShares failed. Storage system: {}", storageSystemId, ie);
-            IsilonCollectionException ice = new IsilonCollectionException("discoverAllShares failed. Storage system: " + storageSystemId);
-            ice.initCause(ie);
-            throw ice;
+            _log.info("discoverAccessZoneShares for storage system {} and access zone {} - start", storageSystemId,
+                    isilonAccessZone);
+            return IsilonAccessZoneShares.discover(isilonApi, isilonAccessZone);
         } catch (Exception e) {
-            _log.error("discoverAllShares failed. Storage system: {}", storageSystemId, e);
-            IsilonCollectionException ice = new IsilonCollectionException("discoverAllShares failed. Storage system: " + storageSystemId);
+            _log.error("discoverAccessZoneShares failed. Storage system: {}", storageSystemId, e);
+            IsilonCollectionException ice = new IsilonCollectionException("discoverAccessZoneShares failed. Storage system: "
+                    + storageSystemId);
             ice.initCause(e);
             throw ice;
         }
@@ -1963,58 +2006,6 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
         return PATH_IS_INVALID;
     }
 
-    private HashMap<String, HashSet<Integer>> discoverAccessZoneExports(StorageSystem storageSystem,
-            String isilonAccessZone) throws IsilonCollectionException {
-
-        HashMap<String, HashSet<Integer>> allExports = new HashMap<>();
-        URI storageSystemId = storageSystem.getId();
-        String resumeToken = null;
-        try {
-            _log.info("discoverAllExports for storage system {} - start", storageSystemId);
-            IsilonApi isilonApi = getIsilonDevice(storageSystem);
-            do {
-                IsilonApi.IsilonList<IsilonExport> isilonExports = isilonApi.listExports(resumeToken,
-                        isilonAccessZone);
-                List<IsilonExport> exports = isilonExports.getList();
-
-                for (IsilonExport exp : exports) {
-                    _log.info("Discovered fS export {}", exp.toString());
-                    if (exp.getPaths() == null || exp.getPaths().isEmpty()) {
-                        _log.info("Ignoring export {} as it is not having any path", exp.getId().toString());
-                        continue;
-                    }
-                    HashSet<Integer> exportIds = new HashSet<>();
-                    // Ignore Export with multiple paths
-                    if (exp.getPaths().size() > 1) {
-                        _log.info("Discovered Isilon Export: {} has multiple paths so ingnoring it", exp.toString());
-                        continue;
-                    }
-                    String path = exp.getPaths().get(0);
-                    exportIds = allExports.get(path);
-                    if (exportIds == null) {
-                        exportIds = new HashSet<>();
-                    }
-                    exportIds.add(exp.getId());
-                    allExports.put(path, exportIds);
-                    _log.debug("Discovered fS put export Path {} Export id {}", path, exportIds.size() + ":" + exportIds);
-                }
-                resumeToken = isilonExports.getToken();
-            } while (resumeToken != null);
-            _log.info("discoverd All NFS Exports for access zone {} ", isilonAccessZone);
-            return allExports;
-        } catch (IsilonException ie) {
-            _log.error("discoverAllExports failed. Storage system: {}", storageSystemId, ie);
-            IsilonCollectionException ice = new IsilonCollectionException("discoverAllExports failed. Storage system: " + storageSystemId);
-            ice.initCause(ie);
-            throw ice;
-        } catch (Exception e) {
-            _log.error("discoverAllExports failed. Storage system: {}", storageSystemId, e);
-            IsilonCollectionException ice = new IsilonCollectionException("discoverAllExports failed. Storage system: " + storageSystemId);
-            ice.initCause(e);
-            throw ice;
-        }
-    }
-
     private IsilonExport getIsilonExport(IsilonApi isilonApi, Integer expId, String zoneName) {
         IsilonExport exp = null;
         try {
@@ -2033,18 +2024,17 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
      * get UnManaged Cifs Shares and their ACLs
      * 
      * @param unManagedFileSystem
-     * @param smbShares
+     * @param smbShares shares of the file system
      * @param unManagedCifsShareACLList
      * @param fsPath
-     * @param isilonApi
      */
     private void setUnmanagedCifsShareACL(UnManagedFileSystem unManagedFileSystem,
-            HashSet<String> smbShares,
+            List<IsilonSMBShare> smbShares,
             List<UnManagedCifsShareACL> unManagedCifsShareACLList,
             StoragePort storagePort,
             String fsname,
-            String zoneName, StorageSystem storageSystem,
-            IsilonApi isilonApi, List<UnManagedCifsShareACL> oldUnManagedCifsShareACLList) {
+            StorageSystem storageSystem,
+            List<UnManagedCifsShareACL> oldUnManagedCifsShareACLList) {
 
         _log.debug("Set CIFS shares and their respective ACL of UMFS: {} from Isilon SMB share details - start", fsname);
 
@@ -2057,77 +2047,74 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
             unManagedSmbShareMap = unManagedFileSystem.getUnManagedSmbShareMap();
             UnManagedSMBFileShare unManagedSMBFileShare = null;
 
-            for (String shareId : smbShares) {
-                // get smb share details
-                IsilonSMBShare isilonSMBShare = getIsilonSMBShare(isilonApi, shareId, zoneName);
-                if (null != isilonSMBShare) {
-                    unManagedSMBFileShare = new UnManagedSMBFileShare();
-                    unManagedSMBFileShare.setName(isilonSMBShare.getName());
-                    unManagedSMBFileShare.setDescription(isilonSMBShare.getDescription());
-                    unManagedSMBFileShare.setNativeId(shareId);
-                    unManagedSMBFileShare.setMountPoint("\\\\" + storagePort.getPortNetworkId() + "\\" + isilonSMBShare.getName());
-                    unManagedSMBFileShare.setPath(isilonSMBShare.getPath());
-                    unManagedSMBFileShare.setMaxUsers(-1);
-                    // setting the dummy permission.This is not used by isilon, but used by other storage system
-                    unManagedSMBFileShare.setPermission(FileControllerConstants.CIFS_SHARE_PERMISSION_CHANGE);
-                    unManagedSMBFileShare.setPermissionType(FileControllerConstants.CIFS_SHARE_PERMISSION_TYPE_ALLOW);
-
-                    // set Unmanaged SMB Share
-                    unManagedSmbShareMap.put(isilonSMBShare.getName(), unManagedSMBFileShare);
-                    _log.info("SMB share id {} ", shareId);
-                    _log.info("SMB share name {} and fs mount point {} ", unManagedSMBFileShare.getName(),
-                            unManagedSMBFileShare.getMountPoint());
-                    // process ACL permission
-                    UnManagedCifsShareACL unManagedCifsShareACL = null;
-                    int aclSize = 0;
-                    List<IsilonSMBShare.Permission> permissionList = isilonSMBShare.getPermissions();
-                    for (IsilonSMBShare.Permission permission : permissionList) {
-                        // Isilon can have deny permission type. Do not ingest the ACL for deny
-
-                        if (FileControllerConstants.CIFS_SHARE_PERMISSION_TYPE_ALLOW
-                                .equalsIgnoreCase(permission.getPermissionType())) {
-
-                            aclSize++;
-                            _log.debug("IsilonSMBShare: [{}] permission details: {}",
-                                    isilonSMBShare.getName(), permission.toString());
-
-                            unManagedCifsShareACL = new UnManagedCifsShareACL();
-                            // Set share name
-                            unManagedCifsShareACL.setShareName(isilonSMBShare.getName());
-                            // Set permission
-                            unManagedCifsShareACL.setPermission(permission.getPermission());
-
-                            // We take only username and we can ignore type and id
-                            // Set user
-                            unManagedCifsShareACL.setUser(permission.getTrustee().getName());
-
-                            // Set filesystem id
-                            unManagedCifsShareACL.setFileSystemId(unManagedFileSystem.getId());
-                            unManagedCifsShareACL.setId(URIUtil.createId(UnManagedCifsShareACL.class));
-
-                            String fsShareNativeId = unManagedCifsShareACL.getFileSystemShareACLIndex();
-
-                            _log.info("UMFS Share ACL index {}", fsShareNativeId);
-                            String fsUnManagedFileShareNativeGuid = NativeGUIDGenerator
-                                    .generateNativeGuidForPreExistingFileShare(storageSystem, fsShareNativeId);
-                            _log.info("Native GUID {}", fsUnManagedFileShareNativeGuid);
-
-                            // set native guid, so each entry unique
-                            unManagedCifsShareACL.setNativeGuid(fsUnManagedFileShareNativeGuid);
-
-                            // Check whether the CIFS share ACL was present in ViPR DB.
-                            UnManagedCifsShareACL existingCifsShareACL = checkUnManagedFsCifsACLExistsInDB(_dbClient,
-                                    unManagedCifsShareACL.getNativeGuid());
-                            if (existingCifsShareACL != null) {
-                                // delete the existing acl
-                                existingCifsShareACL.setInactive(true);
-                                oldUnManagedCifsShareACLList.add(existingCifsShareACL);
-                            }
-                            unManagedCifsShareACLList.add(unManagedCifsShareACL);
+            for (IsilonSMBShare isilonSMBShare : smbShares) {
+                String shareId = isilonSMBShare.getId();
+                unManagedSMBFileShare = new UnManagedSMBFileShare();
+                unManagedSMBFileShare.setName(isilonSMBShare.getName());
+                unManagedSMBFileShare.setDescription(isilonSMBShare.getDescription());
+                unManagedSMBFileShare.setNativeId(shareId);
+                unManagedSMBFileShare.setMountPoint("\\\\" + storagePort.getPortNetworkId() + "\\" + isilonSMBShare.getName());
+                unManagedSMBFileShare.setPath(isilonSMBShare.getPath());
+                unManagedSMBFileShare.setMaxUsers(-1);
+                // setting the dummy permission.This is not used by isilon, but used by other storage system
+                unManagedSMBFileShare.setPermission(FileControllerConstants.CIFS_SHARE_PERMISSION_CHANGE);
+                unManagedSMBFileShare.setPermissionType(FileControllerConstants.CIFS_SHARE_PERMISSION_TYPE_ALLOW);
+
+                // set Unmanaged SMB Share
+                unManagedSmbShareMap.put(isilonSMBShare.getName(), unManagedSMBFileShare);
+                _log.info("SMB share id {} ", shareId);
+                _log.info("SMB share name {} and fs mount point {} ", unManagedSMBFileShare.getName(),
+                        unManagedSMBFileShare.getMountPoint());
+                // process ACL permission
+                UnManagedCifsShareACL unManagedCifsShareACL = null;
+                int aclSize = 0;
+                List<IsilonSMBShare.Permission> permissionList = isilonSMBShare.getPermissions();
+                for (IsilonSMBShare.Permission permission : permissionList) {
+                    // Isilon can have deny permission type. Do not ingest the ACL for deny
+
+                    if (FileControllerConstants.CIFS_SHARE_PERMISSION_TYPE_ALLOW
+                            .equalsIgnoreCase(permission.getPermissionType())) {
+
+                        aclSize++;
+                        _log.debug("IsilonSMBShare: [{}] permission details: {}",
+                                isilonSMBShare.getName(), permission.toString());
+
+                        unManagedCifsShareACL = new UnManagedCifsShareACL();
+                        // Set share name
+                        unManagedCifsShareACL.setShareName(isilonSMBShare.getName());
+                        // Set permission
+                        unManagedCifsShareACL.setPermission(permission.getPermission());
+
+                        // We take only username and we can ignore type and id
+                        // Set user
+                        unManagedCifsShareACL.setUser(permission.getTrustee().getName());
+
+                        // Set filesystem id
+                        unManagedCifsShareACL.setFileSystemId(unManagedFileSystem.getId());
+                        unManagedCifsShareACL.setId(URIUtil.createId(UnManagedCifsShareACL.class));
+
+                        String fsShareNativeId = unManagedCifsShareACL.getFileSystemShareACLIndex();
+
+                        _log.info("UMFS Share ACL index {}", fsShareNativeId);
+                        String fsUnManagedFileShareNativeGuid = NativeGUIDGenerator
+                                .generateNativeGuidForPreExistingFileShare(storageSystem, fsShareNativeId);
+                        _log.info("Native GUID {}", fsUnManagedFileShareNativeGuid);
+
+                        // set native guid, so each entry unique
+                        unManagedCifsShareACL.setNativeGuid(fsUnManagedFileShareNativeGuid);
+
+                        // Check whether the CIFS share ACL was present in ViPR DB.
+                        UnManagedCifsShareACL existingCifsShareACL = checkUnManagedFsCifsACLExistsInDB(_dbClient,
+                                unManagedCifsShareACL.getNativeGuid());
+                        if (existingCifsShareACL != null) {
+                            // delete the existing acl
+                            existingCifsShareACL.setInactive(true);
+                            oldUnManagedCifsShareACLList.add(existingCifsShareACL);
                         }
+                        unManagedCifsShareACLList.add(unManagedCifsShareACL);
                     }
-                    _log.debug("ACL size of share: [{}] is {}", isilonSMBShare.getName(), aclSize);
                 }
+                _log.debug("ACL size of share: [{}] is {}", isilonSMBShare.getName(), aclSize);
             }
 
             if (!unManagedSmbShareMap.isEmpty()) {
@@ -2426,27 +2413,6 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
         return unManagedFileSystem;
     }
 
-    /**
-     * get share details
-     * 
-     * @param isilonApi
-     * @param shareId
-     * @return
-     */
-    private IsilonSMBShare getIsilonSMBShare(IsilonApi isilonApi, String shareId, String zoneName) {
-        _log.debug("call getIsilonSMBShare for {} ", shareId);
-        IsilonSMBShare isilonSMBShare = null;
-        try {
-            if (isilonApi != null) {
-                isilonSMBShare = isilonApi.getShare(shareId, zoneName);
-                _log.debug("call getIsilonSMBShare {}", isilonSMBShare.toString());
-            }
-        } catch (Exception e) {
-            _log.error("Exception while getting SMBShare for {}", shareId);
-        }
-        return isilonSMBShare;
-    }
-
     /**
      * check Storage fileSystem exists in DB
      * 
@@ -2737,27 +2703,26 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
      * Ignore exports which have the same internal export key ( <sec, perm, root-mapping>)
      * 
      * @param umfs
-     * @param expIdMap
+     * @param exportMap exports of the file system by export path
      * @param storagePort
      * @param fsPath
-     * @param isilonApi
      * @return boolean
      */
-    private void setUnManagedFSExportMap(UnManagedFileSystem umfs, HashMap<String, HashSet<Integer>> expIdMap,
-            StoragePort storagePort, String fsPath, String zoneName, IsilonApi isilonApi, StorageSystem storageSystem,
+    private void setUnManagedFSExportMap(UnManagedFileSystem umfs, Map<String, List<IsilonExport>> exportMap,
+            StoragePort storagePort, String fsPath, StorageSystem storageSystem,
             List<UnManagedFileExportRule> newUnManagedExportRules, List<UnManagedFileExportRule> oldUnManagedExportRules) {
 
         boolean validExports = false;
         List<UnManagedFileExportRule> exportRules = new ArrayList<>();
 
-        for (Entry<String, HashSet<Integer>> entry : expIdMap.entrySet()) {
-            HashSet<Integer> isilonExportIds = entry.getValue();
-            _log.info("getting exports for the path {} with id {}", entry.getKey(), entry.getValue());
+        for (Entry<String, List<IsilonExport>> entry : exportMap.entrySet()) {
+            List<IsilonExport> pathExports = entry.getValue();
+            _log.info("getting exports for the path {} with count {}", entry.getKey(), pathExports.size());
 
             List<UnManagedFileExportRule> exportRulesForPath = new ArrayList<>();
-            if (isilonExportIds != null && !isilonExportIds.isEmpty()) {
-                validExports = getUnManagedFSExportMap(umfs, isilonExportIds,
-                        storagePort, fsPath, zoneName, isilonApi, exportRulesForPath);
+            if (pathExports != null && !pathExports.isEmpty()) {
+                validExports = getUnManagedFSExportMap(umfs, pathExports,
+                        storagePort, fsPath, exportRulesForPath);
             }
             if (!validExports) {
                 // Clear the export rule list for this path,
@@ -2798,33 +2763,26 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
      * Ignore exports which have the same internal export key ( <sec, perm, root-mapping>)
      * 
      * @param umfs
-     * @param isilonExportIds
+     * @param pathExports exports listed at the export path
      * @param storagePort
      * @param fsPath
-     * @param isilonApi
      * @return boolean
      */
-    private boolean getUnManagedFSExportMap(UnManagedFileSystem umfs, HashSet<Integer> isilonExportIds,
-            StoragePort storagePort, String fsPath, String zoneName, IsilonApi isilonApi,
-            List<UnManagedFileExportRule> expRules) {
+    private boolean getUnManagedFSExportMap(UnManagedFileSystem umfs, List<IsilonExport> pathExports,
+            StoragePort storagePort, String fsPath, List<UnManagedFileExportRule> expRules) {
 
         UnManagedFSExportMap exportMap = new UnManagedFSExportMap();
         int generatedExportCount = 0;
         ArrayList<IsilonExport> isilonExports = new ArrayList<>();
 
-        if (isilonExportIds != null && isilonExportIds.size() > 1) {
-            _log.info("Found multiple export rules for file system path {}, {} ", fsPath, isilonExportIds.size());
+        if (pathExports != null && pathExports.size() > 1) {
+            _log.info("Found multiple export rules for file system path {}, {} ", fsPath, pathExports.size());
         }
 
-        for (Integer expId : isilonExportIds) {
-            IsilonExport exp = getIsilonExport(isilonApi, expId, zoneName);
-            if (exp == null) {
-                _log.info("Ignoring export {} as it is not found", expId);
-                continue;
-            }
+        for (IsilonExport exp : pathExports) {
             for (String expPath : exp.getPaths()) {
                 if (expPath != null && !expPath.equalsIgnoreCase(fsPath) && !expPath.startsWith(fsPath + "/")) {
-                    _log.info("Ignoring export {} as it's path doesn't match with file path {} ", expId, fsPath);
+                    _log.info("Ignoring export {} as it's path doesn't match with file path {} ", exp.getId(), fsPath);
                     continue;
                 }
             }
@@ -3101,52 +3059,6 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
         return expRules;
     }
 
-    private HashMap<String, HashSet<Integer>> getExportsIncludingSubDir(String fsPath, HashMap<String, HashSet<Integer>> expMap,
-            HashMap<String, HashSet<String>> umfsQuotaMap) {
-        HashMap<String, HashSet<Integer>> expMapWithIds = new HashMap<>();
-
-        // Process exports at file system path
-        HashSet<Integer> expIds = expMap.get(fsPath);
-        if (expIds != null && !expIds.isEmpty()) {
-            expMapWithIds.put(fsPath, expIds);
-        }
-
-        // Process exports at file quota dir path,this will loop through quotas of file system only..
-        HashSet<String> quotasofFS = umfsQuotaMap.get(fsPath);
-        if (quotasofFS != null && !quotasofFS.isEmpty()) {
-            for (String quotaofFS : quotasofFS) {
-                HashSet<Integer> quotaExpIds = expMap.get(quotaofFS);
-                if (quotaExpIds != null && !quotaExpIds.isEmpty()) {
-                    expMapWithIds.put(quotaofFS, quotaExpIds);
-                }
-            }
-        }
-        return expMapWithIds;
-    }
-
-    private HashSet<String> getSharesIncludingSubDir(String fsPath, HashMap<String, HashSet<String>> expMap,
-            HashMap<String, HashSet<String>> umfsQuotaMap) {
-        HashSet<String> shareIDs = new HashSet<>();
-
-        // Process shares at file system path
-        HashSet<String> shareIds = expMap.get(fsPath);
-        if (shareIds != null && !shareIds.isEmpty()) {
-            shareIDs.addAll(shareIds);
-        }
-
-        // Process shares at file quota dir path,this will loop through quotas of file system only..
-        HashSet<String> quotasofFS = umfsQuotaMap.get(fsPath);
-        if (quotasofFS != null && !quotasofFS.isEmpty()) {
-            for (String quotaofFS : quotasofFS) {
-                HashSet<String> quotaShareIds = expMap.get(quotaofFS);
-                if (quotaShareIds != null && !quotaShareIds.isEmpty()) {
-                    shareIDs.addAll(quotaShareIds);
-                }
-            }
-        }
-        return shareIDs;
-    }
-
     /**
      * convert Isilon's access permissions key set to ViPR's NFS permission set
      * 
@@ -3569,14 +3481,13 @@ public class IsilonCommunicationInterface extends ExtendedCommunicationInterface
         return false;
     }
 
-    private HashMap<String, Object> discoverAllFileSystem(StorageSystem storageSystem, String resumetoken, String umfsDiscoverPath) {
+    private HashMap<String, Object> discoverAllFileSystem(StorageSystem storageSystem, IsilonApi isilonApi,
+            List<IsilonAccessZone> accessZones, String resumetoken, String umfsDiscoverPath) {
 
         URI storageSystemId = storageSystem.getId();
         try {
             _log.info("discoverAllFileSystem for storage system {} - start", storageSystemId);
 
-            IsilonApi isilonApi = getIsilonDevice(storageSystem);
-            List<IsilonAccessZone> accessZones = isilonApi.getAccessZones(null);
             List<String> tempAccessZonePath = new ArrayList<>();
             for (IsilonAccessZone accessZone : accessZones) {
                 if (!accessZone.isSystem()) {
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.plugins.discovery.isilon;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.isilon.restapi.IsilonApi;
+import com.emc.storageos.isilon.restapi.IsilonException;
+import com.emc.storageos.isilon.restapi.IsilonExport;
+import com.emc.storageos.isilon.restapi.IsilonSMBShare;
+
+/**
+ * NFS exports and SMB shares of an access zone, indexed by path for the discovery of the unmanaged
+ * file systems of the zone.
+ *
+ * The exports and shares are read in bulk with the pages of the export and share lists, which
+ * hold all the details of the exports and shares, rather than read one at a time by id. The
+ * exports and shares of a file system are those at the path of the file system and at the paths
+ * of its quota directories.
+ */
+public class IsilonAccessZoneShares {
+    private static final Logger _log = LoggerFactory.getLogger(IsilonAccessZoneShares.class);
+
+    private final String zoneName;
+    private final IsilonPathTrie<IsilonExport> exports = new IsilonPathTrie<IsilonExport>();
+    private final IsilonPathTrie<IsilonSMBShare> shares = new IsilonPathTrie<IsilonSMBShare>();
+    private int requestCount;
+
+    private IsilonAccessZoneShares(String zoneName) {
+        this.zoneName = zoneName;
+    }
+
+    /**
+     * Lists the NFS exports and SMB shares of the access zone
+     *
+     * @param isilonApi the Isilon client
+     * @param zoneName name of the access zone, null for the System access zone
+     * @return the exports and shares of the access zone
+     * @throws IsilonException if the exports or shares cannot be listed
+     */
+    public static IsilonAccessZoneShares discover(IsilonApi isilonApi, String zoneName) throws IsilonException {
+        IsilonAccessZoneShares zoneShares = new IsilonAccessZoneShares(zoneName);
+        zoneShares.listExports(isilonApi);
+        zoneShares.listShares(isilonApi);
+        _log.info("Discovered {} NFS exports and {} SMB shares of access zone {} in {} requests", zoneShares.exports.size(),
+                zoneShares.shares.size(), zoneName, zoneShares.requestCount);
+        return zoneShares;
+    }
+
+    /**
+     * @param fsPath path of the file system
+     * @param quotaPaths paths of the quota directories of the file system, may be null
+     * @return the exports of the file system, by the file system or quota directory path they are at
+     */
+    public Map<String, List<IsilonExport>> getExports(String fsPath, Collection<String> quotaPaths) {
+        return get(exports, fsPath, quotaPaths);
+    }
+
+    /**
+     * @param fsPath path of the file system
+     * @param quotaPaths paths of the quota directories of the file system, may be null
+     * @return the shares of the file system
+     */
+    public List<IsilonSMBShare> getShares(String fsPath, Collection<String> quotaPaths) {
+        Map<String, List<IsilonSMBShare>> fsShares = get(shares, fsPath, quotaPaths);
+        List<IsilonSMBShare> shareList = new ArrayList<IsilonSMBShare>();
+        for (List<IsilonSMBShare> pathShares : fsShares.values()) {
+            shareList.addAll(pathShares);
+        }
+        return shareList;
+    }
+
+    public String getZoneName() {
+        return zoneName;
+    }
+
+    /**
+     * @return number of list requests sent to read the exports and shares
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    private void listExports(IsilonApi isilonApi) throws IsilonException {
+        String resumeToken = null;
+        do {
+            IsilonApi.IsilonList<IsilonExport> isilonExports = isilonApi.listExports(resumeToken, zoneName);
+            requestCount++;
+            for (IsilonExport exp : isilonExports.getList()) {
+                if (exp.getPaths() == null || exp.getPaths().isEmpty()) {
+                    _log.info("Ignoring export {} as it is not having any path", exp.getId());
+                    continue;
+                }
+                // Ignore Export with multiple paths
+                if (exp.getPaths().size() > 1) {
+                    _log.info("Discovered Isilon Export: {} has multiple paths so ingnoring it", exp.getId());
+                    continue;
+                }
+                exports.add(exp.getPaths().get(0), exp);
+                _log.debug("Discovered fS export {}", exp);
+            }
+            resumeToken = isilonExports.getToken();
+        } while (resumeToken != null);
+    }
+
+    private void listShares(IsilonApi isilonApi) throws IsilonException {
+        String resumeToken = null;
+        do {
+            IsilonApi.IsilonList<IsilonSMBShare> isilonShares = isilonApi.listShares(resumeToken, zoneName);
+            requestCount++;
+            for (IsilonSMBShare share : isilonShares.getList()) {
+                if (share.getPath() == null) {
+                    _log.info("Ignoring SMB share {} as it is not having any path", share.getId());
+                    continue;
+                }
+                shares.add(share.getPath(), share);
+                _log.debug("Discovered SMB Share name {} and path {}", share.getId(), share.getPath());
+            }
+            resumeToken = isilonShares.getToken();
+        } while (resumeToken != null);
+    }
+
+    /**
+     * @return the values at the path of the file system and at the paths of its quota directories,
+     *         by the path they were looked up with
+     */
+    private static <T> Map<String, List<T>> get(IsilonPathTrie<T> trie, String fsPath, Collection<String> quotaPaths) {
+        Set<String> paths = new LinkedHashSet<String>();
+        paths.add(fsPath);
+        if (quotaPaths != null) {
+            paths.addAll(quotaPaths);
+        }
+        Map<String, List<T>> values = new LinkedHashMap<String, List<T>>();
+        // paths differing only by separators, such as a trailing one, are at the same node of the trie
+        Set<List<T>> found = Collections.newSetFromMap(new IdentityHashMap<List<T>, Boolean>());
+        for (String path : paths) {
+            List<T> pathValues = trie.get(path);
+            if (!pathValues.isEmpty() && found.add(pathValues)) {
+                values.put(path, pathValues);
+            }
+        }
+        return values;
+    }
+}
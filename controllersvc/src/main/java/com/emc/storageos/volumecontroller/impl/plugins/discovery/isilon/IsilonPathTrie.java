@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.plugins.discovery.isilon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values indexed by Isilon directory path, one node per path component, so that the values of a
+ * path are found whether or not the path has a trailing or doubled separator.
+ *
+ * Not thread safe, the trie is built by a single thread before it is read.
+ *
+ * @param <T> type of the values
+ */
+public class IsilonPathTrie<T> {
+    private static final String SEPARATOR = "/";
+
+    private final Node<T> root = new Node<T>();
+    private int size;
+
+    /**
+     * Adds a value at the path
+     */
+    public void add(String path, T value) {
+        Node<T> node = root;
+        for (String name : split(path)) {
+            Node<T> child = node.getChild(name);
+            if (child == null) {
+                child = new Node<T>();
+                node.putChild(name, child);
+            }
+            node = child;
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<T>(1);
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * @return the values at the path, empty if none
+     */
+    public List<T> get(String path) {
+        Node<T> node = find(path);
+        return node != null && node.values != null ? node.values : new ArrayList<T>();
+    }
+
+    /**
+     * @return number of values in the trie
+     */
+    public int size() {
+        return size;
+    }
+
+    private Node<T> find(String path) {
+        Node<T> node = root;
+        for (String name : split(path)) {
+            node = node.getChild(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static List<String> split(String path) {
+        List<String> names = new ArrayList<String>();
+        for (String name : path.split(SEPARATOR)) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private static class Node<T> {
+        private Map<String, Node<T>> children;
+        private List<T> values;
+
+        Node<T> getChild(String name) {
+            return children != null ? children.get(name) : null;
+        }
+
+        void putChild(String name, Node<T> child) {
+            if (children == null) {
+                children = new HashMap<String, Node<T>>();
+            }
+            children.put(name, child);
+        }
+    }
+}
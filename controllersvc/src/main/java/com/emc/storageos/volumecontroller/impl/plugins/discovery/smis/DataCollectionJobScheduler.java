@@ -17,9 +17,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -54,6 +56,7 @@ import com.emc.storageos.exceptions.DeviceControllerException;
 import com.emc.storageos.hds.api.HDSApiFactory;
 import com.emc.storageos.model.ResourceOperationTypeEnum;
 import com.emc.storageos.model.property.PropertyConstants;
+import com.emc.storageos.services.util.NamedScheduledThreadPoolExecutor;
 import com.emc.storageos.services.util.PlatformUtils;
 import com.emc.storageos.volumecontroller.impl.ControllerServiceImpl;
 import com.emc.storageos.volumecontroller.impl.ceph.CephUtils;
@@ -76,6 +79,10 @@ import com.emc.storageos.xtremio.restapi.XtremIOClientFactory;
  * 2. Consume Discovery Jobs
  * 3. Submit the Discovery Jobs to ExecutorService
  * 
+ * The scheduling passes run on a pool of scheduler-pool-size threads, at most one pass per job type at
+ * a time, so that a slow pass of a job type does not hold up the others. Discovery and metering passes
+ * run scheduling-slots times per interval, each enqueuing the jobs of the systems that are due, which
+ * are spread across the interval by {@link DataCollectionSchedule}.
  */
 public class DataCollectionJobScheduler {
     private static final Logger _logger = LoggerFactory
@@ -87,6 +94,10 @@ public class DataCollectionJobScheduler {
     private static final String ENABLE_AUTOSCAN = "enable-autoscan";
     private static final String ENABLE_AUTO_OPS_SINGLENODE = "enable-auto-discovery-metering-scan-single-node-deployments";
     private static final String TOLERANCE = "time-tolerance";
+    private static final String SCHEDULER_POOL_SIZE = "scheduler-pool-size";
+    private static final String SCHEDULING_SLOTS = "scheduling-slots";
+    private static final int DEFAULT_SCHEDULER_POOL_SIZE = 4;
+    private static final int DEFAULT_SCHEDULING_SLOTS = 12;
     private static final String PROP_HEADER_CONTROLLER = "controller_";
     private static final String SYSTEM_TENANT_ID = "urn:storageos:TenantOrg:system:";
 
@@ -111,6 +122,11 @@ public class DataCollectionJobScheduler {
 
     private final Lock _providerConnectionRefreshMutex = new ReentrantLock();
 
+    // time each system found not due by a scheduling pass is next due, by job type. The other passes
+    // of the interval skip these systems without reading them from the DB until they are due.
+    private final ConcurrentMap<String, ConcurrentMap<URI, Long>> _nextRunTimes =
+            new ConcurrentHashMap<String, ConcurrentMap<URI, Long>>();
+
     static enum JobIntervals {
 
         SCAN_INTERVALS("scan-interval", "scan-refresh-interval", initialScanDelay),
@@ -185,7 +201,8 @@ public class DataCollectionJobScheduler {
     }
 
     public void start() throws Exception {
-        _dataCollectionExecutorService = Executors.newScheduledThreadPool(1);
+        _dataCollectionExecutorService = new NamedScheduledThreadPoolExecutor(DataCollectionJobScheduler.class.getSimpleName(),
+                getIntConfig(SCHEDULER_POOL_SIZE, DEFAULT_SCHEDULER_POOL_SIZE));
 
         for (JobIntervals intervals : JobIntervals.values()) {
             // Override intervals and refresh intervals with system properties, if set.
@@ -241,21 +258,21 @@ public class DataCollectionJobScheduler {
             JobIntervals intervals = JobIntervals.get(ControllerServiceImpl.DISCOVERY);
             schedulingProcessor.addScheduledTask(new DiscoveryScheduler(ControllerServiceImpl.DISCOVERY),
                     intervals.getInitialDelay(),
-                    intervals.getInterval());
+                    getSchedulingPeriod(intervals));
             intervals = JobIntervals.get(ControllerServiceImpl.NS_DISCOVERY);
             schedulingProcessor.addScheduledTask(new DiscoveryScheduler(ControllerServiceImpl.NS_DISCOVERY),
                     intervals.getInitialDelay(),
-                    intervals.getInterval());
+                    getSchedulingPeriod(intervals));
 
             intervals = JobIntervals.get(ControllerServiceImpl.COMPUTE_DISCOVERY);
             schedulingProcessor.addScheduledTask(new DiscoveryScheduler(ControllerServiceImpl.COMPUTE_DISCOVERY),
                     intervals.getInitialDelay(),
-                    intervals.getInterval());
+                    getSchedulingPeriod(intervals));
 
             intervals = JobIntervals.get(ControllerServiceImpl.CS_DISCOVERY);
             schedulingProcessor.addScheduledTask(new DiscoveryScheduler(ControllerServiceImpl.CS_DISCOVERY),
                     intervals.getInitialDelay(),
-                    intervals.getInterval());
+                    getSchedulingPeriod(intervals));
         } else {
             _logger.info("Auto discovery is disabled.");
         }
@@ -264,7 +281,7 @@ public class DataCollectionJobScheduler {
             JobIntervals intervals = JobIntervals.get(ControllerServiceImpl.ARRAYAFFINITY_DISCOVERY);
             schedulingProcessor.addScheduledTask(new DiscoveryScheduler(ControllerServiceImpl.ARRAYAFFINITY_DISCOVERY),
                     intervals.getInitialDelay(),
-                    intervals.getInterval());
+                    getSchedulingPeriod(intervals));
             _logger.info("Array Affinity discovery is enabled with interval {}", intervals.getInterval());
         } else {
             _logger.info("Array Affinity discovery is disabled");
@@ -274,7 +291,7 @@ public class DataCollectionJobScheduler {
             JobIntervals intervals = JobIntervals.get(ControllerServiceImpl.METERING);
             schedulingProcessor.addScheduledTask(new DiscoveryScheduler(ControllerServiceImpl.METERING),
                     intervals.getInitialDelay(),
-                    intervals.getInterval());
+                    getSchedulingPeriod(intervals));
         }
         else {
             _logger.info("Metering is disabled.");
@@ -285,20 +302,10 @@ public class DataCollectionJobScheduler {
         discoverySchedulingSelector.autoRequeue();
         discoverySchedulingSelector.start();
 
-        // run provider refresh in it's own thread so we don't hold up the scheduling
-        // thread if it takes longer than expected
-        _dataCollectionExecutorService.scheduleAtFixedRate(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        try {
-                            (new Thread(new RefreshProviderConnectionsThread())).start();
-                        } catch (Exception e) {
-                            _logger.error("Failed to start refresh connections thread: {}", e.getMessage());
-                            _logger.error(e.getMessage(), e);
-                        }
-                    }
-                }, initialConnectionRefreshDelay, JobIntervals.SCAN_INTERVALS.getInterval(), TimeUnit.SECONDS);
+        // provider refresh runs on a thread of the pool, so it does not hold up the scheduling passes
+        // if it takes longer than expected
+        _dataCollectionExecutorService.scheduleAtFixedRate(new RefreshProviderConnectionsThread(),
+                initialConnectionRefreshDelay, JobIntervals.SCAN_INTERVALS.getInterval(), TimeUnit.SECONDS);
 
         // recompute storage ports's metrics for all storage system
         // Since traverse through all storage ports in all storage systems may take a while, it best to perform the
@@ -326,6 +333,32 @@ public class DataCollectionJobScheduler {
 
     }
     
+    private Map<URI, Long> getNextRunTimes(String jobType) {
+        ConcurrentMap<URI, Long> nextRunTimes = _nextRunTimes.get(jobType);
+        if (nextRunTimes == null) {
+            _nextRunTimes.putIfAbsent(jobType, new ConcurrentHashMap<URI, Long>());
+            nextRunTimes = _nextRunTimes.get(jobType);
+        }
+        return nextRunTimes;
+    }
+
+    /**
+     * Returns the period of the scheduling passes of a job type. The scanner runs once per interval,
+     * other job types run several passes per interval to enqueue the systems as they are due.
+     */
+    private long getSchedulingPeriod(JobIntervals intervals) {
+        if (intervals == JobIntervals.SCAN_INTERVALS) {
+            return intervals.getInterval();
+        }
+        return DataCollectionSchedule.getSchedulingPeriod(intervals.getInterval(),
+                getIntConfig(SCHEDULING_SLOTS, DEFAULT_SCHEDULING_SLOTS));
+    }
+
+    private int getIntConfig(String key, int defaultValue) {
+        String value = _configInfo.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
     private class RefreshProviderConnectionsThread implements Runnable {
 
         @Override
@@ -354,6 +387,8 @@ public class DataCollectionJobScheduler {
 
     private class DiscoveryScheduler implements Runnable {
         String jobType;
+        // a job type has a single pass at a time, a pass still running when the next is due skips it
+        private final AtomicBoolean running = new AtomicBoolean();
 
         public DiscoveryScheduler(String jobType) {
             this.jobType = jobType;
@@ -361,6 +396,10 @@ public class DataCollectionJobScheduler {
 
         @Override
         public void run() {
+            if (!running.compareAndSet(false, true)) {
+                _logger.info("Previous {} scheduling pass is still running, skipping this one", jobType);
+                return;
+            }
             try {
                 if (ControllerServiceImpl.SCANNER.equalsIgnoreCase(jobType)) {
                     scheduleScannerJobs();
@@ -369,6 +408,8 @@ public class DataCollectionJobScheduler {
                 }
             } catch (Exception e) {
                 _logger.error(String.format("Exception caught when trying to run discovery job %s", jobType), e);
+            } finally {
+                running.set(false);
             }
         }
     }
@@ -541,9 +582,17 @@ public class DataCollectionJobScheduler {
 
             scheduleMultipleJobs(jobs, ControllerServiceImpl.Lock.getLock(jobType));
         } else if (!allSystemsURIs.isEmpty()) {
+            Map<URI, Long> nextRunTimes = getNextRunTimes(jobType);
+            // forget the systems deleted since the last pass
+            nextRunTimes.keySet().retainAll(allSystemsURIs);
+            long tolerance = Long.parseLong(_configInfo.get(TOLERANCE)) * 1000;
             Iterator<URI> systemURIsItr = allSystemsURIs.iterator();
             while (systemURIsItr.hasNext()) {
                 URI systemURI = systemURIsItr.next();
+                Long nextRunTime = nextRunTimes.get(systemURI);
+                if (nextRunTime != null && System.currentTimeMillis() < nextRunTime - tolerance) {
+                    continue;
+                }
                 String taskId = UUID.randomUUID().toString();
                 DataCollectionJob job = null;
                 StorageProvider provider = null;
@@ -790,8 +839,17 @@ public class DataCollectionJobScheduler {
         long nextTime = getNextRunTime(system, type);
 
         if (lastTime > 0) {
-            nextTime = lastTime + JobIntervals.get(type).getInterval() * 1000;
+            nextTime = DataCollectionSchedule.getNextRunTime(system.getId(), lastTime, JobIntervals.get(type).getInterval() * 1000);
+
+            // most systems are not due on a given scheduling pass, skip them before looking up the queue
+            long tolerance = Long.parseLong(_configInfo.get(TOLERANCE)) * 1000;
+            if (scheduler && System.currentTimeMillis() < nextTime - tolerance) {
+                _logger.debug("Skipping {} Job for {}; next run time is {}", type, system.getId(), new Date(nextTime));
+                getNextRunTimes(type).put(system.getId(), nextTime);
+                return false;
+            }
         }
+        getNextRunTimes(type).remove(system.getId());
 
         if (ControllerServiceImpl.DISCOVERY.equalsIgnoreCase(type) && system instanceof NetworkSystem) {
             type = ControllerServiceImpl.NS_DISCOVERY;
@@ -835,11 +893,12 @@ public class DataCollectionJobScheduler {
             // log a message if the discovery job has been runnig for longer than expected
             long currentTime = System.currentTimeMillis();
             long maxIdleTime = JobIntervals.getMaxIdleInterval() * 1000;
-            long jobInterval = JobIntervals.get(job.getType()).getInterval();
-            // next time is the time the job was picked up from the queue plus the job interval
-            // so the start time of the currently running job is next time minus job interval
-            // the running time of the currently running job is current time - next time - job interval
-            boolean longRunningDiscovery = inProgress && (currentTime - nextTime - jobInterval >= maxIdleTime);
+            long jobInterval = JobIntervals.get(job.getType()).getInterval() * 1000;
+            // nextTime is the time the job was scheduled at, not the time it started. The job consumer
+            // saves the time the job was picked up from the queue plus the job interval as the next run
+            // time of the system, so the currently running job started at that time minus the job interval
+            long startTime = getNextRunTime(system, type) - jobInterval;
+            boolean longRunningDiscovery = inProgress && startTime > 0 && (currentTime - startTime >= maxIdleTime);
             if (longRunningDiscovery) {
                 _logger.warn(type + " job for " + system.getLabel() + 
                         " has been running for longer than expected; this could indicate a problem with the storage system");
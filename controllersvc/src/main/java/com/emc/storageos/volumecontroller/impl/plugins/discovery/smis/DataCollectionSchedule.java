@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.plugins.discovery.smis;
+
+import java.net.URI;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * Spreads the scheduled data collection jobs of the systems across their interval.
+ *
+ * Each system gets a phase within the interval, derived from its id, so that it is stable across
+ * restarts and nodes. A system is due at the first time matching its phase at least half an interval
+ * after its last run. Systems last run together, e.g. after an upgrade or an outage, are therefore
+ * spread over the following interval rather than being collected in the same wave every interval.
+ */
+public class DataCollectionSchedule {
+    /** the scheduling passes are no more frequent than this, in seconds */
+    static final long MIN_SCHEDULING_PERIOD = 60;
+
+    private DataCollectionSchedule() {
+    }
+
+    /**
+     * @param id the system
+     * @param interval the job interval, in ms
+     * @return the phase of the system within the interval, in ms
+     */
+    public static long getPhase(URI id, long interval) {
+        long hash = Hashing.murmur3_128().hashString(id.toString(), Charsets.UTF_8).asLong();
+        return Math.floorMod(hash, interval);
+    }
+
+    /**
+     * @param id the system
+     * @param lastRunTime the time of the last run of the job, in ms
+     * @param interval the job interval, in ms
+     * @return the time the job of the system is next due, in ms
+     */
+    public static long getNextRunTime(URI id, long lastRunTime, long interval) {
+        long earliest = lastRunTime + interval / 2;
+        return earliest + Math.floorMod(getPhase(id, interval) - earliest, interval);
+    }
+
+    /**
+     * @param interval the job interval, in s
+     * @param slots number of scheduling passes per interval
+     * @return the period of the scheduling passes, in s
+     */
+    public static long getSchedulingPeriod(long interval, int slots) {
+        if (slots <= 1 || interval <= MIN_SCHEDULING_PERIOD) {
+            return interval;
+        }
+        return Math.max(MIN_SCHEDULING_PERIOD, interval / slots);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.plugins.metering;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.db.client.DbClient;
+import com.emc.storageos.db.client.TimeSeriesMetadata.TimeBucket;
+import com.emc.storageos.db.client.TimeSeriesQueryResult;
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.constraint.AlternateIdConstraint;
+import com.emc.storageos.db.client.model.PropertyListDataObject;
+import com.emc.storageos.db.client.model.Stat;
+import com.emc.storageos.db.client.model.StatRollup;
+import com.emc.storageos.db.client.model.StatRollup.GroupType;
+import com.emc.storageos.db.client.model.StatRollup.Granularity;
+import com.emc.storageos.db.client.model.StatTimeSeries;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
+
+/**
+ * Rolls up the metering stats periodically into hourly, daily and monthly summaries per
+ * resource, project and tenant.
+ *
+ * Each run reads the raw stats of the hours completed since the previous run, one hour bucket at a
+ * time, saves their hourly rollups and merges them into the daily and monthly rollups. The hour
+ * rolled up until is saved after each hour, so that a run resumes where the previous one stopped;
+ * an hour rolled up again after a failure overwrites its hourly rollups and is skipped by the
+ * daily and monthly rollups it was already merged into. Hourly and daily rollups older than their
+ * retention are removed.
+ */
+public class StatRollupCompute implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(StatRollupCompute.class);
+
+    // type and key of the saved rollup state
+    static final String ROLLUP_STATE_TYPE = "STAT_ROLLUP";
+    static final String ROLLED_UP_UNTIL = "rolledUpUntil";
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUERY_THREAD_COUNT = 4;
+
+    private static final long DEFAULT_COLLECTION_DELAY = TimeUnit.MINUTES.toMillis(15);
+    private static final int DEFAULT_BACKFILL_HOURS = 24;
+    private static final int DEFAULT_MAX_HOURS_PER_RUN = 24;
+    private static final int DEFAULT_HOUR_RETENTION_DAYS = 31;
+    private static final int DEFAULT_DAY_RETENTION_DAYS = 400;
+
+    private DbClient dbClient;
+    private ExecutorService queryPool;
+    private long collectionDelay = DEFAULT_COLLECTION_DELAY;
+    private int backfillHours = DEFAULT_BACKFILL_HOURS;
+    private int maxHoursPerRun = DEFAULT_MAX_HOURS_PER_RUN;
+    private int hourRetentionDays = DEFAULT_HOUR_RETENTION_DAYS;
+    private int dayRetentionDays = DEFAULT_DAY_RETENTION_DAYS;
+
+    public void setDbClient(DbClient dbClient) {
+        this.dbClient = dbClient;
+    }
+
+    /**
+     * @param collectionDelay time after the end of an hour before its stats are rolled up, in ms
+     */
+    public void setCollectionDelay(long collectionDelay) {
+        this.collectionDelay = collectionDelay;
+    }
+
+    /**
+     * @param backfillHours number of hours of stats rolled up by the first run
+     */
+    public void setBackfillHours(int backfillHours) {
+        this.backfillHours = backfillHours;
+    }
+
+    public void setMaxHoursPerRun(int maxHoursPerRun) {
+        this.maxHoursPerRun = maxHoursPerRun;
+    }
+
+    public void setHourRetentionDays(int hourRetentionDays) {
+        this.hourRetentionDays = hourRetentionDays;
+    }
+
+    public void setDayRetentionDays(int dayRetentionDays) {
+        this.dayRetentionDays = dayRetentionDays;
+    }
+
+    @Override
+    public void run() {
+        try {
+            PropertyListDataObject state = getState();
+            long lastCompleteHour = Granularity.HOUR.getBucketStart(System.currentTimeMillis() - collectionDelay) - HOUR;
+            String rolledUpUntil = state != null ? state.getResourceData().get(ROLLED_UP_UNTIL) : null;
+            long hour = rolledUpUntil != null ? Long.parseLong(rolledUpUntil) : lastCompleteHour + HOUR - backfillHours * HOUR;
+
+            for (int count = 0; hour <= lastCompleteHour && count < maxHoursPerRun; count++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                if (!rollupHour(hour)) {
+                    // retried by the next run
+                    return;
+                }
+                hour += HOUR;
+                state = saveState(state, hour);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rolls up the stats of the hour
+     *
+     * @param hour start of the hour bucket, in ms
+     * @return false if the stats of the hour could not be read
+     */
+    boolean rollupHour(long hour) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        HourlyRollups hourly = new HourlyRollups(hour);
+        dbClient.queryTimeSeries(StatTimeSeries.class, new DateTime(hour, DateTimeZone.UTC), TimeBucket.HOUR,
+                hourly, getQueryPool());
+        if (hourly.error != null) {
+            log.error("Failed to read the stats of hour {}", new DateTime(hour, DateTimeZone.UTC), hourly.error);
+            return false;
+        }
+
+        Collection<StatRollup> rollups = hourly.rollups.values();
+        for (List<StatRollup> batch : partition(new ArrayList<StatRollup>(rollups))) {
+            dbClient.createObject(batch);
+        }
+        merge(Granularity.DAY, rollups, hour);
+        merge(Granularity.MONTH, rollups, hour);
+
+        prune(Granularity.HOUR, new DateTime(hour, DateTimeZone.UTC).minusDays(hourRetentionDays).getMillis());
+        if (Granularity.DAY.getBucketStart(hour) == hour) {
+            prune(Granularity.DAY, new DateTime(hour, DateTimeZone.UTC).minusDays(dayRetentionDays).getMillis());
+        }
+        log.info("Rolled up {} stats of hour {} into {} rollups in {} ms", hourly.statCount,
+                new DateTime(hour, DateTimeZone.UTC), rollups.size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * Merges the hourly rollups into the rollups of the granularity containing the hour
+     */
+    private void merge(Granularity granularity, Collection<StatRollup> hourly, long hour) {
+        Class<? extends StatRollup> clazz = granularity.getRollupClass();
+        long bucketStart = granularity.getBucketStart(hour);
+        for (List<StatRollup> batch : partition(new ArrayList<StatRollup>(hourly))) {
+            Map<URI, StatRollup> rollups = new HashMap<URI, StatRollup>();
+            List<URI> ids = new ArrayList<URI>();
+            for (StatRollup hourRollup : batch) {
+                ids.add(StatRollup.createId(clazz, GroupType.valueOf(hourRollup.getGroupType()),
+                        hourRollup.getGroupId(), bucketStart));
+            }
+            for (StatRollup rollup : dbClient.queryObject(clazz, ids)) {
+                rollups.put(rollup.getId(), rollup);
+            }
+
+            List<StatRollup> created = new ArrayList<StatRollup>();
+            List<StatRollup> updated = new ArrayList<StatRollup>();
+            for (int i = 0; i < batch.size(); i++) {
+                StatRollup hourRollup = batch.get(i);
+                StatRollup rollup = rollups.get(ids.get(i));
+                if (rollup == null) {
+                    rollup = newRollup(clazz, GroupType.valueOf(hourRollup.getGroupType()), hourRollup.getGroupId(),
+                            bucketStart);
+                    created.add(rollup);
+                } else if (rollup.getLastMergedBucket() != null && rollup.getLastMergedBucket() >= hour) {
+                    // merged before a failure
+                    continue;
+                } else {
+                    updated.add(rollup);
+                }
+                rollup.merge(hourRollup);
+                rollup.setLastMergedBucket(hour);
+            }
+            dbClient.createObject(created);
+            dbClient.updateObject(updated);
+        }
+    }
+
+    /**
+     * Removes the rollups of the granularity over the bucket
+     */
+    private void prune(Granularity granularity, long bucketStart) {
+        Class<? extends StatRollup> clazz = granularity.getRollupClass();
+        for (GroupType groupType : GroupType.values()) {
+            List<URI> ids = dbClient.queryByConstraint(AlternateIdConstraint.Factory.getConstraint(clazz, "bucketKey",
+                    StatRollup.getBucketKey(groupType, bucketStart)));
+            for (List<URI> batch : partition(ids)) {
+                List<? extends StatRollup> rollups = dbClient.queryObject(clazz, batch);
+                dbClient.removeObject(rollups.toArray(new StatRollup[rollups.size()]));
+            }
+            if (!ids.isEmpty()) {
+                log.info("Removed {} {} rollups of {} {}", ids.size(), groupType, granularity,
+                        new DateTime(bucketStart, DateTimeZone.UTC));
+            }
+        }
+    }
+
+    private PropertyListDataObject getState() {
+        List<URI> ids = dbClient.queryByConstraint(AlternateIdConstraint.Factory.getConstraint(
+                PropertyListDataObject.class, "resourceType", ROLLUP_STATE_TYPE));
+        return ids.isEmpty() ? null : dbClient.queryObject(PropertyListDataObject.class, ids.get(0));
+    }
+
+    private PropertyListDataObject saveState(PropertyListDataObject state, long rolledUpUntil) {
+        if (state == null) {
+            state = new PropertyListDataObject();
+            state.setId(URIUtil.createId(PropertyListDataObject.class));
+            state.setResourceType(ROLLUP_STATE_TYPE);
+            state.getResourceData().put(ROLLED_UP_UNTIL, Long.toString(rolledUpUntil));
+            dbClient.createObject(state);
+        } else {
+            state.getResourceData().put(ROLLED_UP_UNTIL, Long.toString(rolledUpUntil));
+            dbClient.updateObject(state);
+        }
+        return state;
+    }
+
+    private synchronized ExecutorService getQueryPool() {
+        if (queryPool == null) {
+            queryPool = new NamedThreadPoolExecutor(StatRollupCompute.class.getSimpleName(), QUERY_THREAD_COUNT);
+        }
+        return queryPool;
+    }
+
+    private static StatRollup newRollup(Class<? extends StatRollup> clazz, GroupType groupType, URI groupId, long bucketStart) {
+        try {
+            StatRollup rollup = clazz.newInstance();
+            rollup.init(groupType, groupId, bucketStart);
+            return rollup;
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> List<List<T>> partition(List<T> list) {
+        List<List<T>> batches = new ArrayList<List<T>>();
+        for (int i = 0; i < list.size(); i += BATCH_SIZE) {
+            batches.add(list.subList(i, Math.min(list.size(), i + BATCH_SIZE)));
+        }
+        return batches;
+    }
+
+    /**
+     * Aggregates the stats of an hour bucket per resource, project and tenant. The stats are
+     * delivered by several query threads.
+     */
+    private static class HourlyRollups implements TimeSeriesQueryResult<Stat> {
+        private final long hour;
+        private final Map<URI, StatRollup> rollups = new HashMap<URI, StatRollup>();
+        private long statCount;
+        private volatile Throwable error;
+
+        HourlyRollups(long hour) {
+            this.hour = hour;
+        }
+
+        @Override
+        public synchronized void data(Stat stat, long insertionTimeMs) {
+            statCount++;
+            for (GroupType groupType : GroupType.values()) {
+                URI groupId = groupType.getGroupId(stat);
+                if (groupId == null) {
+                    continue;
+                }
+                URI id = StatRollup.createId(Granularity.HOUR.getRollupClass(), groupType, groupId, hour);
+                StatRollup rollup = rollups.get(id);
+                if (rollup == null) {
+                    rollup = newRollup(Granularity.HOUR.getRollupClass(), groupType, groupId, hour);
+                    rollup.setLastMergedBucket(hour);
+                    rollups.put(id, rollup);
+                }
+                rollup.add(stat);
+            }
+        }
+
+        @Override
+        public void done() {
+        }
+
+        @Override
+        public void error(Throwable e) {
+            error = e;
+        }
+    }
+}
@@ -9,6 +9,10 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.cim.CIMObjectPath;
 import javax.wbem.WBEMException;
@@ -17,6 +21,8 @@ import javax.wbem.client.WBEMClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 
 import com.emc.storageos.cimadapter.connections.ConnectionManager;
 import com.emc.storageos.cimadapter.connections.ConnectionManagerException;
@@ -24,7 +30,10 @@ import com.emc.storageos.cimadapter.connections.cim.CimConnection;
 import com.emc.storageos.cimadapter.connections.cim.CimConnectionInfo;
 import com.emc.storageos.cimadapter.connections.cim.CimConstants;
 import com.emc.storageos.cimadapter.connections.cim.CimObjectPathCreator;
+import com.emc.storageos.coordinator.client.model.PropertyInfoExt;
 import com.emc.storageos.coordinator.client.service.CoordinatorClient;
+import com.emc.storageos.coordinator.client.service.NodeListener;
+import com.emc.storageos.coordinator.common.impl.ZkPath;
 import com.emc.storageos.db.client.DbClient;
 import com.emc.storageos.db.client.model.DiscoveredDataObject.Type;
 import com.emc.storageos.db.client.model.StorageProvider;
@@ -40,8 +49,15 @@ import com.emc.storageos.volumecontroller.impl.monitoring.cim.enums.RecordType;
 
 /**
  * This class will encapsulate the CIM ConnectionManager.
+ *
+ * Connection lookups don't take a factory wide lock: existing connections are returned from the
+ * ConnectionManager directly and a new connection is created under a lock of its provider only.
+ * The ConnectionManager is configured on first use and again when the system properties change.
  */
+@ManagedResource(objectName = CIMConnectionFactory.MBEAN_NAME, description = "SMI-S provider connections")
 public class CIMConnectionFactory {
+    public static final String MBEAN_NAME = "com.emc.storageos.volumecontroller.impl.smis:name=CIMConnectionFactory";
+
     // Logger
     private static final Logger _log = LoggerFactory
             .getLogger(CIMConnectionFactory.class);
@@ -59,6 +75,28 @@ public class CIMConnectionFactory {
 
     private CoordinatorClient coordinatorClient;
 
+    // statistics and creation lock per provider host/port
+    private final ConcurrentHashMap<String, ProviderConnectionStats> _providerStats = new ConcurrentHashMap<String, ProviderConnectionStats>();
+    private final Object _configureLock = new Object();
+    private volatile boolean _configured = false;
+
+    /**
+     * Statistics of the connection to a provider, guarded by the instance itself
+     */
+    private static class ProviderConnectionStats {
+        // serializes the creation of the connection to the provider
+        private final Object _creationLock = new Object();
+        private final AtomicLong _lookups = new AtomicLong();
+        private long _createdTime;
+        private int _creations;
+        private int _creationFailures;
+        private int _livenessChecks;
+        private int _livenessFailures;
+        private long _lastLivenessCheckTime;
+        private boolean _lastLivenessCheckPassed;
+    }
+
+    private static final String UNKNOWN_PROVIDER = "unknown";
     private static final String EVENT_SERVICE_TYPE = "StorageProvider";
     private static final String EVENT_SERVICE_SOURCE = "CIMConnectionFactory";
     private static final String STORAGE_PROVIDER_DOWN_DESCRIPTION = "Storage Provider is Down";
@@ -103,19 +141,44 @@ public class CIMConnectionFactory {
      *            : StorageDevice.
      * @return CimConnection.
      */
-    public synchronized CimConnection getConnection(final StorageSystem storageDevice) {
+    public CimConnection getConnection(final StorageSystem storageDevice) {
         CimConnection connection = null;
         try {
-            _connectionManager.configure(coordinatorClient.getPropertyInfo());
+            configureConnectionManager();
             /**
              * Check cimConnection already exist for vnxfile, if not create new one
              */
             if (StorageSystem.Type.vnxfile.name().equals(storageDevice.getSystemType())) {
-                connection = _connectionManager.getConnection(storageDevice.getSmisProviderIP(), storageDevice.getPortNumber());
+                connection = lookupConnection(storageDevice.getSmisProviderIP(), storageDevice.getPortNumber());
+                if (null != connection) {
+                    return connection;
+                }
             } else {
                 connection = getConnection(storageDevice.getSmisProviderIP(), storageDevice.getSmisPortNumber().toString());
             }
 
+            if (null == connection) {
+                connection = addConnection(storageDevice);
+            }
+        } catch (final ConnectionManagerException ex) {
+            _log.error("No CIMOM Connection found for ipaddress due to ",
+                    ex);
+        }
+        return connection;
+    }
+
+    /**
+     * Creates the connection to the provider of the storage device, unless another thread already did.
+     *
+     * @param storageDevice
+     *            : StorageDevice.
+     * @return CimConnection.
+     * @throws ConnectionManagerException
+     */
+    private CimConnection addConnection(final StorageSystem storageDevice) throws ConnectionManagerException {
+        ProviderConnectionStats stats = getProviderStats(storageDevice.getSmisProviderIP(), storageDevice.getSmisPortNumber());
+        synchronized (stats._creationLock) {
+            CimConnection connection = lookupConnection(storageDevice.getSmisProviderIP(), storageDevice.getSmisPortNumber());
             if (null == connection) {
                 final CimConnectionInfo connInfo = new CimConnectionInfo();
                 connInfo.setHost(storageDevice.getSmisProviderIP());
@@ -132,14 +195,11 @@ public class CIMConnectionFactory {
                 connInfo
                         .setImplNS(getImplNamespaceForDevice(storageDevice.getSystemType()));
 
-                _connectionManager.addConnection(connInfo);
-                connection = getConnection(storageDevice.getSmisProviderIP(), storageDevice.getSmisPortNumber().toString());
+                addConnection(stats, connInfo);
+                connection = lookupConnection(storageDevice.getSmisProviderIP(), storageDevice.getSmisPortNumber());
             }
-        } catch (final ConnectionManagerException ex) {
-            _log.error("No CIMOM Connection found for ipaddress due to ",
-                    ex);
+            return connection;
         }
-        return connection;
     }
 
     /**
@@ -374,6 +434,15 @@ public class CIMConnectionFactory {
         } catch (WBEMException wbemEx) {
             _log.error("Invalid connection found for ipAddress: {}", connection.getHost());
         }
+        ProviderConnectionStats stats = getProviderStats(connection.getHost(), connection.getPort());
+        synchronized (stats) {
+            stats._livenessChecks++;
+            if (!isLive) {
+                stats._livenessFailures++;
+            }
+            stats._lastLivenessCheckTime = System.currentTimeMillis();
+            stats._lastLivenessCheckPassed = isLive;
+        }
         return isLive;
     }
 
@@ -387,11 +456,11 @@ public class CIMConnectionFactory {
      * @return CimConnection.
      * @throws IOException
      */
-    public synchronized CimConnection getConnection(String ipAddress, String port) {
+    public CimConnection getConnection(String ipAddress, String port) {
         CimConnection connection = null;
         try {
-            _connectionManager.configure(coordinatorClient.getPropertyInfo());
-            connection = _connectionManager.getConnection(ipAddress, Integer.parseInt(port));
+            configureConnectionManager();
+            connection = lookupConnection(ipAddress, Integer.parseInt(port));
             if (null == connection) {
                 connection = addConnection(ipAddress, port);
 
@@ -412,7 +481,17 @@ public class CIMConnectionFactory {
      * 
      * @param smisIPAddress
      */
-    private synchronized CimConnection addConnection(String smisIPAddress, String port) {
+    private CimConnection addConnection(String smisIPAddress, String port) {
+        CimConnection connection = null;
+        ProviderConnectionStats stats = getProviderStats(smisIPAddress, Integer.parseInt(port));
+        // only threads connecting to the same provider wait for each other
+        synchronized (stats._creationLock) {
+            connection = createConnection(smisIPAddress, port, stats);
+        }
+        return connection;
+    }
+
+    private CimConnection createConnection(String smisIPAddress, String port, ProviderConnectionStats stats) {
         CimConnection connection = null;
         try {
             connection = _connectionManager
@@ -442,7 +521,7 @@ public class CIMConnectionFactory {
                 }
 
                 connInfo.setInteropNS(CimConstants.DFLT_CIM_CONNECTION_INTEROP_NS);
-                _connectionManager.addConnection(connInfo);
+                addConnection(stats, connInfo);
                 connection = _connectionManager.getConnection(smisIPAddress, Integer.parseInt(port));
                 _log.info("Connection Added to Cache {}", ConnectionManager.generateConnectionCacheKey(
                         smisProvider.getIPAddress(), smisProvider.getPortNumber()));
@@ -595,6 +674,125 @@ public class CIMConnectionFactory {
         return cimConnection;
     }
 
+    /**
+     * Configures the ConnectionManager on first use. Later changes of the system properties are
+     * applied by the property listener, so lookups don't read the coordinator.
+     */
+    private void configureConnectionManager() {
+        if (_configured) {
+            return;
+        }
+        synchronized (_configureLock) {
+            if (_configured) {
+                return;
+            }
+            _connectionManager.configure(coordinatorClient.getPropertyInfo());
+            try {
+                coordinatorClient.addNodeListener(new SystemPropertyChangeListener());
+            } catch (Exception e) {
+                // the configuration stays as it is until controllersvc restarts
+                _log.warn("Failed to add listener of system property changes for the CIM connection manager", e);
+            }
+            _configured = true;
+        }
+    }
+
+    /**
+     * Reconfigures the ConnectionManager when the system properties change
+     */
+    private class SystemPropertyChangeListener implements NodeListener {
+        @Override
+        public String getPath() {
+            return String.format("%s/%s/%s", ZkPath.CONFIG, PropertyInfoExt.TARGET_PROPERTY, PropertyInfoExt.TARGET_PROPERTY_ID);
+        }
+
+        @Override
+        public void nodeChanged() {
+            _log.info("System properties changed, reconfiguring CIM connection manager");
+            reconfigure();
+        }
+
+        @Override
+        public void connectionStateChanged(State state) {
+            if (state == State.CONNECTED) {
+                reconfigure();
+            }
+        }
+
+        private void reconfigure() {
+            try {
+                _connectionManager.configure(coordinatorClient.getPropertyInfo());
+            } catch (Exception e) {
+                _log.warn("Failed to reconfigure CIM connection manager", e);
+            }
+        }
+    }
+
+    private CimConnection lookupConnection(String host, Integer port) throws ConnectionManagerException {
+        CimConnection connection = _connectionManager.getConnection(host, port);
+        if (null != connection) {
+            getProviderStats(host, port)._lookups.incrementAndGet();
+        }
+        return connection;
+    }
+
+    private void addConnection(ProviderConnectionStats stats, CimConnectionInfo connInfo) throws ConnectionManagerException {
+        boolean added = false;
+        try {
+            _connectionManager.addConnection(connInfo);
+            added = true;
+        } finally {
+            synchronized (stats) {
+                if (added) {
+                    stats._creations++;
+                    stats._createdTime = System.currentTimeMillis();
+                } else {
+                    stats._creationFailures++;
+                }
+            }
+        }
+    }
+
+    private ProviderConnectionStats getProviderStats(String host, Integer port) {
+        String key = ConnectionManager.generateConnectionCacheKey(host, port);
+        if (key == null) {
+            // no provider host, the connection lookup will fail
+            key = ConnectionManager.generateConnectionCacheKey(UNKNOWN_PROVIDER, 0);
+        }
+        ProviderConnectionStats stats = _providerStats.get(key);
+        if (stats == null) {
+            _providerStats.putIfAbsent(key, new ProviderConnectionStats());
+            stats = _providerStats.get(key);
+        }
+        return stats;
+    }
+
+    /**
+     * @return connection state, age and health statistics per provider host/port
+     */
+    @ManagedAttribute(description = "Connection state, age and health statistics per SMI-S provider")
+    public Map<String, String> getProviderConnectionStatistics() {
+        long now = System.currentTimeMillis();
+        Map<String, String> statistics = new TreeMap<String, String>();
+        for (Map.Entry<String, ProviderConnectionStats> entry : _providerStats.entrySet()) {
+            String key = entry.getKey();
+            int separator = key.lastIndexOf(':');
+            Long lastTouch = _connectionManager.getConnectionLastTouch(key.substring(0, separator),
+                    Integer.valueOf(key.substring(separator + 1)));
+            ProviderConnectionStats stats = entry.getValue();
+            synchronized (stats) {
+                statistics.put(key, String.format(
+                        "connected=%s ageSec=%d idleSec=%d lookups=%d creations=%d creationFailures=%d "
+                                + "livenessChecks=%d livenessFailures=%d lastLivenessCheck=%s",
+                        lastTouch != null, stats._createdTime == 0 ? -1 : (now - stats._createdTime) / 1000,
+                        lastTouch == null ? -1 : (now - lastTouch) / 1000, stats._lookups.get(), stats._creations,
+                        stats._creationFailures, stats._livenessChecks, stats._livenessFailures,
+                        stats._lastLivenessCheckTime == 0 ? "never" : (stats._lastLivenessCheckPassed ? "passed" : "failed")));
+            }
+        }
+        return statistics;
+    }
+
     public String getNamespace(StorageSystem storageDevice) {
         return getConnection(storageDevice).getImplNamespace();
     }
@@ -206,8 +206,15 @@ public class SmisCommandHelper implements SmisConstants {
 
         InvokeTestFailure.internalOnlyInvokeSmisTestFailure(methodName, InvokeTestFailure.ARTIFICIAL_FAILURE_015);
         _log.info(inputInfoBuffer.toString());
+        // the method may modify instances read earlier in this step, or read while it runs
+        SmisRequestCache.invalidate();
         long start = System.nanoTime();
-        Object obj = client.invokeMethod(objectPath, methodName, inArgs, outArgs);
+        Object obj;
+        try {
+            obj = client.invokeMethod(objectPath, methodName, inArgs, outArgs);
+        } finally {
+            SmisRequestCache.invalidate();
+        }
         String total = String.format("%2.6f", ((System.nanoTime() - start) / 1000000000.0));
         String str = protectedToString(obj);
         StringBuilder outputInfoBuffer = new StringBuilder();
@@ -2496,7 +2503,12 @@ public class SmisCommandHelper implements SmisConstants {
                                     _cimProperty.bool(EMC_RECOVERPOINT_ENABLED, tag)
                             });
                     _log.debug("Params: " + toUpdate.toString());
-                    client.modifyInstance(toUpdate, CP_EMC_RECOVERPOINT_ENABLED);
+                    SmisRequestCache.invalidate();
+                    try {
+                        client.modifyInstance(toUpdate, CP_EMC_RECOVERPOINT_ENABLED);
+                    } finally {
+                        SmisRequestCache.invalidate();
+                    }
                 }
             }
             _log.info(String.format("RecoverPoint tag has been successfully %s Volume", tag ? "applied to" : "removed from"));
@@ -3269,6 +3281,13 @@ public class SmisCommandHelper implements SmisConstants {
             boolean includeClassOrigin,
             String[] propertyList) throws WBEMException {
         CIMInstance cimInstance = null;
+        SmisRequestCache cache = SmisRequestCache.current();
+        if (cache != null) {
+            cimInstance = cache.getInstance(objectPath, propagated, includeClassOrigin, propertyList);
+            if (cimInstance != null) {
+                return cimInstance;
+            }
+        }
         CimConnection connection = _cimConnection.getConnection(storage);
         WBEMClient client = connection.getCimClient();
         try {
@@ -3276,6 +3295,9 @@ public class SmisCommandHelper implements SmisConstants {
         } catch (WBEMException we) {
             throw we;
         }
+        if (cache != null) {
+            cache.putInstance(objectPath, propagated, includeClassOrigin, propertyList, cimInstance);
+        }
         return cimInstance;
     }
 
@@ -3649,13 +3671,33 @@ public class SmisCommandHelper implements SmisConstants {
     public CloseableIterator<CIMObjectPath> getAssociatorNames(StorageSystem storageDevice, CIMObjectPath path,
             String assocClass, String resultClass, String role, String resultRole)
             throws WBEMException {
-        return getConnection(storageDevice).getCimClient().associatorNames(path, assocClass, resultClass, role, resultRole);
+        SmisRequestCache cache = SmisRequestCache.current();
+        if (cache == null) {
+            return getConnection(storageDevice).getCimClient().associatorNames(path, assocClass, resultClass, role, resultRole);
+        }
+        List<Object> key = Arrays.<Object> asList(path, assocClass, resultClass, role, resultRole);
+        CloseableIterator<CIMObjectPath> cached = cache.getAssociatorNames(key);
+        if (cached != null) {
+            return cached;
+        }
+        return cache.putAssociatorNames(key,
+                getConnection(storageDevice).getCimClient().associatorNames(path, assocClass, resultClass, role, resultRole));
     }
 
     public CloseableIterator<CIMInstance> getAssociatorInstances(StorageSystem storageDevice, CIMObjectPath path,
             String assocClass, String resultClass, String role, String resultRole, String[] prop)
             throws WBEMException {
-        return getConnection(storageDevice).getCimClient().associatorInstances(path, null, resultClass, null, null, false, prop);
+        SmisRequestCache cache = SmisRequestCache.current();
+        if (cache == null) {
+            return getConnection(storageDevice).getCimClient().associatorInstances(path, null, resultClass, null, null, false, prop);
+        }
+        List<Object> key = Arrays.<Object> asList(path, resultClass, prop == null ? null : Arrays.asList(prop));
+        CloseableIterator<CIMInstance> cached = cache.getAssociatorInstances(key);
+        if (cached != null) {
+            return cached;
+        }
+        return cache.putAssociatorInstances(key,
+                getConnection(storageDevice).getCimClient().associatorInstances(path, null, resultClass, null, null, false, prop));
     }
 
     public CloseableIterator<CIMObjectPath> getEnumerateInstanceNames(
@@ -4672,7 +4714,12 @@ public class SmisCommandHelper implements SmisConstants {
      */
     public void modifyInstance(StorageSystem storage, CIMInstance instance,
             String[] properties) throws WBEMException {
-        getConnection(storage).getCimClient().modifyInstance(instance, properties);
+        SmisRequestCache.invalidate();
+        try {
+            getConnection(storage).getCimClient().modifyInstance(instance, properties);
+        } finally {
+            SmisRequestCache.invalidate();
+        }
     }
 
     public static String getPrefix(StorageSystem storage) {
@@ -6234,7 +6281,12 @@ public class SmisCommandHelper implements SmisConstants {
         CIMInstance toUpdate = new CIMInstance(storageGroupPath, new CIMProperty[] { factoryRef.uint32(EMC_MAX_BANDWIDTH,
                 hostIOLimitBandwidth) });
         _log.debug("Params: " + toUpdate.toString());
-        client.modifyInstance(toUpdate, new String[] { EMC_MAX_BANDWIDTH });
+        SmisRequestCache.invalidate();
+        try {
+            client.modifyInstance(toUpdate, new String[] { EMC_MAX_BANDWIDTH });
+        } finally {
+            SmisRequestCache.invalidate();
+        }
     }
 
     /**
@@ -6255,7 +6307,12 @@ public class SmisCommandHelper implements SmisConstants {
 
         CIMInstance toUpdate = new CIMInstance(storageGroupPath, new CIMProperty[] { factoryRef.uint32(EMC_MAX_IO, hostIOLimitIOPs) });
         _log.debug("Params: " + toUpdate.toString());
-        client.modifyInstance(toUpdate, new String[] { EMC_MAX_IO });
+        SmisRequestCache.invalidate();
+        try {
+            client.modifyInstance(toUpdate, new String[] { EMC_MAX_IO });
+        } finally {
+            SmisRequestCache.invalidate();
+        }
     }
 
     /**
@@ -6276,7 +6333,12 @@ public class SmisCommandHelper implements SmisConstants {
         CIMInstance toUpdate = new CIMInstance(storageGroupPath,
                 new CIMProperty[] { factoryRef.string(CP_ELEMENT_NAME, storageGroupName) });
         _log.debug("Params: " + toUpdate.toString());
-        client.modifyInstance(toUpdate, PS_ELEMENT_NAME);
+        SmisRequestCache.invalidate();
+        try {
+            client.modifyInstance(toUpdate, PS_ELEMENT_NAME);
+        } finally {
+            SmisRequestCache.invalidate();
+        }
     }
 
     /**
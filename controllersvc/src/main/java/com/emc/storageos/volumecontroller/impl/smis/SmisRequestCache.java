@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.smis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.cim.CIMInstance;
+import javax.cim.CIMObjectPath;
+import javax.wbem.CloseableIterator;
+import javax.wbem.WBEMException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of CIM instances and associations read by SmisCommandHelper during one export step.
+ *
+ * The cache is bound to the thread executing the step, between begin() and end(); nested
+ * begin() calls share the cache of the outermost one. Outside of a step nothing is cached.
+ * Instances are keyed by CIMObjectPath and the localOnly and includeClassOrigin flags of the
+ * request, and keep the properties they were read with: a getInstance with the same flags asking
+ * for a subset of these properties, or a full instance, is served from the cache. Any invokeMethod
+ * or modifyInstance through SmisCommandHelper clears the cache before and after the call, as the
+ * provider state may have changed. Call and hit counts are logged at the end of the step.
+ */
+public class SmisRequestCache {
+    private static final Logger _log = LoggerFactory.getLogger(SmisRequestCache.class);
+
+    private static final ThreadLocal<SmisRequestCache> _current = new ThreadLocal<SmisRequestCache>();
+
+    private final String _name;
+    private int _depth;
+    private final Map<List<Object>, CachedInstance> _instances = new HashMap<List<Object>, CachedInstance>();
+    private final Map<List<Object>, List<CIMObjectPath>> _associatorNames = new HashMap<List<Object>, List<CIMObjectPath>>();
+    private final Map<List<Object>, List<CIMInstance>> _associatorInstances = new HashMap<List<Object>, List<CIMInstance>>();
+    private int _instanceCalls;
+    private int _instanceHits;
+    private int _associatorCalls;
+    private int _associatorHits;
+    private int _invalidations;
+
+    /**
+     * An instance and the properties it was read with, null for all properties
+     */
+    private static class CachedInstance {
+        private final CIMInstance _instance;
+        private final Set<String> _properties;
+
+        CachedInstance(CIMInstance instance, String[] propertyList) {
+            _instance = instance;
+            _properties = propertyList == null ? null : new HashSet<String>(Arrays.asList(propertyList));
+        }
+
+        boolean covers(String[] propertyList) {
+            return _properties == null || (propertyList != null && _properties.containsAll(Arrays.asList(propertyList)));
+        }
+    }
+
+    private SmisRequestCache(String name) {
+        _name = name;
+    }
+
+    /**
+     * Starts caching on this thread, or joins the cache already started on this thread.
+     * Every begin() must be followed by an end() in a finally block.
+     *
+     * @param name name of the step, used in the log
+     */
+    public static void begin(String name) {
+        SmisRequestCache cache = _current.get();
+        if (cache == null) {
+            cache = new SmisRequestCache(name);
+            _current.set(cache);
+        }
+        cache._depth++;
+    }
+
+    /**
+     * Ends caching on this thread. The outermost end() logs the call counts and drops the cache.
+     */
+    public static void end() {
+        SmisRequestCache cache = _current.get();
+        if (cache == null) {
+            return;
+        }
+        if (--cache._depth == 0) {
+            _current.remove();
+            _log.info("SMI-S calls of {}: getInstance {} ({} from cache), associators {} ({} from cache), {} invalidations",
+                    cache._name, cache._instanceCalls, cache._instanceHits, cache._associatorCalls, cache._associatorHits,
+                    cache._invalidations);
+        }
+    }
+
+    /**
+     * @return the cache of this thread, null if no step is running
+     */
+    static SmisRequestCache current() {
+        return _current.get();
+    }
+
+    /**
+     * Clears the cache of this thread, if any. Called before and after the provider state is modified.
+     */
+    public static void invalidate() {
+        SmisRequestCache cache = _current.get();
+        if (cache != null && !(cache._instances.isEmpty() && cache._associatorNames.isEmpty()
+                && cache._associatorInstances.isEmpty())) {
+            cache._instances.clear();
+            cache._associatorNames.clear();
+            cache._associatorInstances.clear();
+            cache._invalidations++;
+        }
+    }
+
+    /**
+     * @param path object path
+     * @param localOnly localOnly flag of the request
+     * @param includeClassOrigin includeClassOrigin flag of the request
+     * @param propertyList properties needed, null for all
+     * @return the cached instance if it was read with the same flags and has these properties, null otherwise
+     */
+    CIMInstance getInstance(CIMObjectPath path, boolean localOnly, boolean includeClassOrigin, String[] propertyList) {
+        _instanceCalls++;
+        CachedInstance cached = _instances.get(getInstanceKey(path, localOnly, includeClassOrigin));
+        if (cached != null && cached.covers(propertyList)) {
+            _instanceHits++;
+            return cached._instance;
+        }
+        return null;
+    }
+
+    void putInstance(CIMObjectPath path, boolean localOnly, boolean includeClassOrigin, String[] propertyList,
+            CIMInstance instance) {
+        List<Object> key = getInstanceKey(path, localOnly, includeClassOrigin);
+        CachedInstance cached = _instances.get(key);
+        // keep the instance with more properties
+        if (instance != null && (cached == null || !cached.covers(propertyList))) {
+            _instances.put(key, new CachedInstance(instance, propertyList));
+        }
+    }
+
+    private static List<Object> getInstanceKey(CIMObjectPath path, boolean localOnly, boolean includeClassOrigin) {
+        return Arrays.<Object> asList(path, localOnly, includeClassOrigin);
+    }
+
+    /**
+     * @param key path and filters of the associator query
+     * @return iterator of the cached associator names, null if not cached
+     */
+    CloseableIterator<CIMObjectPath> getAssociatorNames(List<Object> key) {
+        _associatorCalls++;
+        List<CIMObjectPath> names = _associatorNames.get(key);
+        if (names != null) {
+            _associatorHits++;
+            return new ListIterator<CIMObjectPath>(names);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the whole result of an associator names query and caches it
+     *
+     * @param key path and filters of the associator query
+     * @param iterator result of the query, closed by this call
+     * @return iterator of the cached result
+     */
+    CloseableIterator<CIMObjectPath> putAssociatorNames(List<Object> key, CloseableIterator<CIMObjectPath> iterator)
+            throws WBEMException {
+        List<CIMObjectPath> names = readAll(iterator);
+        _associatorNames.put(key, names);
+        return new ListIterator<CIMObjectPath>(names);
+    }
+
+    /**
+     * @param key path, filters and properties of the associator query
+     * @return iterator of the cached associator instances, null if not cached
+     */
+    CloseableIterator<CIMInstance> getAssociatorInstances(List<Object> key) {
+        _associatorCalls++;
+        List<CIMInstance> instances = _associatorInstances.get(key);
+        if (instances != null) {
+            _associatorHits++;
+            return new ListIterator<CIMInstance>(instances);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the whole result of an associator instances query and caches it
+     *
+     * @param key path, filters and properties of the associator query
+     * @param iterator result of the query, closed by this call
+     * @return iterator of the cached result
+     */
+    CloseableIterator<CIMInstance> putAssociatorInstances(List<Object> key, CloseableIterator<CIMInstance> iterator)
+            throws WBEMException {
+        List<CIMInstance> instances = readAll(iterator);
+        _associatorInstances.put(key, instances);
+        return new ListIterator<CIMInstance>(instances);
+    }
+
+    private static <T> List<T> readAll(CloseableIterator<T> iterator) throws WBEMException {
+        List<T> list = new ArrayList<T>();
+        try {
+            while (iterator.hasNext()) {
+                list.add(iterator.next());
+            }
+            if (iterator.getWBEMException() != null) {
+                throw iterator.getWBEMException();
+            }
+        } finally {
+            iterator.close();
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * CloseableIterator over a cached result
+     */
+    private static class ListIterator<T> implements CloseableIterator<T> {
+        private final Iterator<T> _iterator;
+
+        ListIterator(List<T> list) {
+            _iterator = list.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return _iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public WBEMException getWBEMException() {
+            return null;
+        }
+    }
+}
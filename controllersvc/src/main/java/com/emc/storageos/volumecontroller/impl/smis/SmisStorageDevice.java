@@ -784,8 +784,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
         _log.info("{} doExportCreate START ...", storage.getSerialNumber());
         VolumeURIHLU[] volumeLunArray = ControllerUtils.getVolumeURIHLUArray(
                 storage.getSystemType(), volumeMap, _dbClient);
-        _exportMaskOperationsHelper.createExportMask(storage, exportMask.getId(), volumeLunArray,
-                targets, initiators, taskCompleter);
+        SmisRequestCache.begin("doExportCreate");
+        try {
+            _exportMaskOperationsHelper.createExportMask(storage, exportMask.getId(), volumeLunArray,
+                    targets, initiators, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportCreate END ...", storage.getSerialNumber());
     }
 
@@ -804,8 +809,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
         	volURIs.addAll(volumeURIs);
         }
 
-        _exportMaskOperationsHelper.deleteExportMask(storage, exportMask.getId(),
-        		volURIs, new ArrayList<URI>(), initiators, taskCompleter);
+        SmisRequestCache.begin("doExportDelete");
+        try {
+            _exportMaskOperationsHelper.deleteExportMask(storage, exportMask.getId(),
+            		volURIs, new ArrayList<URI>(), initiators, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportDelete END ...", storage.getSerialNumber());
     }
 
@@ -818,8 +828,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
         map.put(volume, lun);
         VolumeURIHLU[] volumeLunArray = ControllerUtils.getVolumeURIHLUArray(
                 storage.getSystemType(), map, _dbClient);
-        _exportMaskOperationsHelper.addVolumes(storage, exportMask.getId(), volumeLunArray,
-                initiators, taskCompleter);
+        SmisRequestCache.begin("doExportAddVolume");
+        try {
+            _exportMaskOperationsHelper.addVolumes(storage, exportMask.getId(), volumeLunArray,
+                    initiators, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportAddVolume END ...", storage.getSerialNumber());
     }
 
@@ -830,8 +845,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
         _log.info("{} doExportAddVolumes START ...", storage.getSerialNumber());
         VolumeURIHLU[] volumeLunArray = ControllerUtils.getVolumeURIHLUArray(
                 storage.getSystemType(), volumes, _dbClient);
-        _exportMaskOperationsHelper.addVolumes(storage, exportMask.getId(), volumeLunArray,
-                initiators, taskCompleter);
+        SmisRequestCache.begin("doExportAddVolumes");
+        try {
+            _exportMaskOperationsHelper.addVolumes(storage, exportMask.getId(), volumeLunArray,
+                    initiators, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportAddVolumes END ...", storage.getSerialNumber());
     }
 
@@ -839,8 +859,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
     public void doExportRemoveVolume(final StorageSystem storage, final ExportMask exportMask,
             final URI volume, List<Initiator> initiators, final TaskCompleter taskCompleter) throws DeviceControllerException {
         _log.info("{} doExportRemoveVolume START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.removeVolumes(storage, exportMask.getId(),
-                Arrays.asList(volume), initiators, taskCompleter);
+        SmisRequestCache.begin("doExportRemoveVolume");
+        try {
+            _exportMaskOperationsHelper.removeVolumes(storage, exportMask.getId(),
+                    Arrays.asList(volume), initiators, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportRemoveVolume END ...", storage.getSerialNumber());
     }
 
@@ -849,8 +874,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             final List<URI> volumes, List<Initiator> initiators, final TaskCompleter taskCompleter)
                     throws DeviceControllerException {
         _log.info("{} doExportRemoveVolume START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.removeVolumes(storage, exportMask.getId(), volumes,
-                initiators, taskCompleter);
+        SmisRequestCache.begin("doExportRemoveVolumes");
+        try {
+            _exportMaskOperationsHelper.removeVolumes(storage, exportMask.getId(), volumes,
+                    initiators, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportRemoveVolume END ...", storage.getSerialNumber());
     }
 
@@ -859,8 +889,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             List<URI> volumeURIs, final Initiator initiator, final List<URI> targets, final TaskCompleter taskCompleter)
                     throws DeviceControllerException {
         _log.info("{} doExportAddInitiator START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.addInitiators(storage, exportMask.getId(),
-                volumeURIs, Arrays.asList(initiator), targets, taskCompleter);
+        SmisRequestCache.begin("doExportAddInitiator");
+        try {
+            _exportMaskOperationsHelper.addInitiators(storage, exportMask.getId(),
+                    volumeURIs, Arrays.asList(initiator), targets, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportAddInitiator END ...", storage.getSerialNumber());
     }
 
@@ -869,8 +904,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             List<URI> volumeURIs, final List<Initiator> initiators,
             final List<URI> targets, final TaskCompleter taskCompleter) throws DeviceControllerException {
         _log.info("{} doExportAddInitiator START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.addInitiators(storage, exportMask.getId(), volumeURIs, initiators,
-                targets, taskCompleter);
+        SmisRequestCache.begin("doExportAddInitiators");
+        try {
+            _exportMaskOperationsHelper.addInitiators(storage, exportMask.getId(), volumeURIs, initiators,
+                    targets, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportAddInitiator END ...", storage.getSerialNumber());
     }
 
@@ -879,8 +919,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             List<URI> volumes, final Initiator initiator, final List<URI> targets, final TaskCompleter taskCompleter)
                     throws DeviceControllerException {
         _log.info("{} doExportRemoveInitiator START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.removeInitiators(storage, exportMask.getId(),
-                volumes, Arrays.asList(initiator), targets, taskCompleter);
+        SmisRequestCache.begin("doExportRemoveInitiator");
+        try {
+            _exportMaskOperationsHelper.removeInitiators(storage, exportMask.getId(),
+                    volumes, Arrays.asList(initiator), targets, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportRemoveInitiator END ...", storage.getSerialNumber());
     }
 
@@ -889,8 +934,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             List<URI> volumes, final List<Initiator> initiators,
             final List<URI> targets, final TaskCompleter taskCompleter) throws DeviceControllerException {
         _log.info("{} doExportRemoveInitiators START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.removeInitiators(storage, exportMask.getId(), volumes,
-                initiators, targets, taskCompleter);
+        SmisRequestCache.begin("doExportRemoveInitiators");
+        try {
+            _exportMaskOperationsHelper.removeInitiators(storage, exportMask.getId(), volumes,
+                    initiators, targets, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportRemoveInitiators END ...", storage.getSerialNumber());
     }
 
@@ -1081,8 +1131,13 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
     @Override
     public Map<String, Set<URI>> findExportMasks(final StorageSystem storage,
             final List<String> initiatorNames, final boolean mustHaveAllPorts) throws DeviceControllerException {
-        return _exportMaskOperationsHelper.findExportMasks(storage, initiatorNames,
-                mustHaveAllPorts);
+        SmisRequestCache.begin("findExportMasks");
+        try {
+            return _exportMaskOperationsHelper.findExportMasks(storage, initiatorNames,
+                    mustHaveAllPorts);
+        } finally {
+            SmisRequestCache.end();
+        }
     }
 
     @Override
@@ -1092,7 +1147,12 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
 
     @Override
     public ExportMask refreshExportMask(final StorageSystem storage, final ExportMask mask) throws DeviceControllerException {
-        return _exportMaskOperationsHelper.refreshExportMask(storage, mask);
+        SmisRequestCache.begin("refreshExportMask");
+        try {
+            return _exportMaskOperationsHelper.refreshExportMask(storage, mask);
+        } finally {
+            SmisRequestCache.end();
+        }
     }
 
     /**
@@ -3311,7 +3371,12 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             final Map<URI, List<URI>> newPaths, final TaskCompleter taskCompleter)
                     throws DeviceControllerException {
         _log.info("{} doExportAddPaths START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.addPaths(storage, exportMask, newPaths, taskCompleter);
+        SmisRequestCache.begin("doExportAddPaths");
+        try {
+            _exportMaskOperationsHelper.addPaths(storage, exportMask, newPaths, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportAddPaths END ...", storage.getSerialNumber());
     }
     
@@ -3320,7 +3385,12 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
             final Map<URI, List<URI>> removePaths, final TaskCompleter taskCompleter)
                     throws DeviceControllerException {
         _log.info("{} doExportRemovePaths START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.removePaths(storage, exportMask, adjustedPaths, removePaths, taskCompleter);
+        SmisRequestCache.begin("doExportRemovePaths");
+        try {
+            _exportMaskOperationsHelper.removePaths(storage, exportMask, adjustedPaths, removePaths, taskCompleter);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportRemovePaths END ...", storage.getSerialNumber());
     }
 
@@ -3375,7 +3445,12 @@ public class SmisStorageDevice extends DefaultBlockStorageDevice {
     public void doExportChangePortGroupAddPaths(StorageSystem storage, URI newMaskURI, URI oldMaskURI, URI portGroupURI, 
             TaskCompleter completer) {
         _log.info("{} doExportChangePortGroup START ...", storage.getSerialNumber());
-        _exportMaskOperationsHelper.changePortGroupAddPaths(storage, newMaskURI, oldMaskURI, portGroupURI, completer);
+        SmisRequestCache.begin("doExportChangePortGroupAddPaths");
+        try {
+            _exportMaskOperationsHelper.changePortGroupAddPaths(storage, newMaskURI, oldMaskURI, portGroupURI, completer);
+        } finally {
+            SmisRequestCache.end();
+        }
         _log.info("{} doExportChangePortGroup END ...", storage.getSerialNumber());
     }
     
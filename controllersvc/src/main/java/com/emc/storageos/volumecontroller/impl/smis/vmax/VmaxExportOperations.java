@@ -98,6 +98,7 @@ import com.emc.storageos.volumecontroller.impl.smis.ExportMaskOperations;
 import com.emc.storageos.volumecontroller.impl.smis.SmisCommandHelper;
 import com.emc.storageos.volumecontroller.impl.smis.SmisConstants;
 import com.emc.storageos.volumecontroller.impl.smis.SmisException;
+import com.emc.storageos.volumecontroller.impl.smis.SmisRequestCache;
 import com.emc.storageos.volumecontroller.impl.smis.SmisUtils;
 import com.emc.storageos.volumecontroller.impl.smis.job.SmisCreateMaskingViewJob;
 import com.emc.storageos.volumecontroller.impl.smis.job.SmisJob;
@@ -2871,7 +2872,12 @@ public class VmaxExportOperations implements ExportMaskOperations {
                 new CIMProperty[] {
                         factoryRef.bool(SmisConstants.CP_EMC_VSA_ENABLED, VSAFlag)
                 });
-        client.modifyInstance(toUpdate, SmisConstants.PS_EMC_VSA_ENABLED);
+        SmisRequestCache.invalidate();
+        try {
+            client.modifyInstance(toUpdate, SmisConstants.PS_EMC_VSA_ENABLED);
+        } finally {
+            SmisRequestCache.invalidate();
+        }
     }
 
     private CIMObjectPath createInitiatorGroupWithInitiators(StorageSystem storage,
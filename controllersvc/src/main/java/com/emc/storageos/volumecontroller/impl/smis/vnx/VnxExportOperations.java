@@ -71,6 +71,7 @@ import com.emc.storageos.volumecontroller.impl.smis.ExportMaskOperationsHelper;
 import com.emc.storageos.volumecontroller.impl.smis.SmisCommandHelper;
 import com.emc.storageos.volumecontroller.impl.smis.SmisConstants;
 import com.emc.storageos.volumecontroller.impl.smis.SmisException;
+import com.emc.storageos.volumecontroller.impl.smis.SmisRequestCache;
 import com.emc.storageos.volumecontroller.impl.utils.ExportMaskUtils;
 import com.emc.storageos.volumecontroller.impl.utils.ExportOperationContext;
 import com.emc.storageos.volumecontroller.impl.utils.ExportOperationContext.ExportOperationContextOperation;
@@ -1668,8 +1669,13 @@ public class VnxExportOperations implements ExportMaskOperations {
                     _log.info(
                             "Updating Storage Tier Methodology ({}) on Volume Object Path {}.",
                             storageTierMethodologyId, volumeObject);
-                    client.modifyInstance(modifiedSettingInstance,
-                            SmisConstants.PS_EMC_STORAGE_TIER_METHODOLOGY);
+                    SmisRequestCache.invalidate();
+                    try {
+                        client.modifyInstance(modifiedSettingInstance,
+                                SmisConstants.PS_EMC_STORAGE_TIER_METHODOLOGY);
+                    } finally {
+                        SmisRequestCache.invalidate();
+                    }
                 }
             }
 
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.volumecontroller.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.curator.framework.recipes.locks.Lease;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.coordinator.client.service.AdjustableDistributedSemaphore;
+import com.emc.storageos.coordinator.client.service.CoordinatorClient;
+
+/**
+ * Feeds calls and lease waits of a device to the governor and checks how its permits are
+ * adjusted: one more per healthy window, halved when the device fails or slows down.
+ */
+public class DeviceConcurrencyGovernorTest {
+    private static final URI DEVICE = URI.create("urn:storageos:StorageSystem:1:vdc1");
+    private static final int CONFIGURED_PERMITS = 2;
+
+    private StubSemaphore semaphore;
+    private DeviceConcurrencyGovernor governor;
+
+    @Before
+    public void setUp() {
+        semaphore = new StubSemaphore(CONFIGURED_PERMITS);
+        governor = new DeviceConcurrencyGovernor();
+        governor.setCoordinator(createCoordinator(semaphore));
+        Assert.assertSame(semaphore, governor.getSemaphore(DEVICE, "vmax", CONFIGURED_PERMITS));
+    }
+
+    @Test
+    public void testIncreaseOnHealthyCalls() throws Exception {
+        recordCalls(5, 100, 0);
+        governor.adjust();
+        Assert.assertEquals(3, semaphore.getMaxPermits());
+
+        recordCalls(5, 120, 0);
+        governor.adjust();
+        Assert.assertEquals(4, semaphore.getMaxPermits());
+
+        // never more than twice the configured permits
+        recordCalls(5, 100, 0);
+        governor.adjust();
+        Assert.assertEquals(4, semaphore.getMaxPermits());
+    }
+
+    @Test
+    public void testTooFewCalls() throws Exception {
+        recordCalls(4, 100, 0);
+        governor.adjust();
+        Assert.assertEquals(CONFIGURED_PERMITS, semaphore.getMaxPermits());
+
+        // the calls are kept for the next window
+        recordCalls(1, 100, 0);
+        governor.adjust();
+        Assert.assertEquals(3, semaphore.getMaxPermits());
+    }
+
+    @Test
+    public void testIncreaseOnLeaseTimeouts() throws Exception {
+        governor.recordLeaseWait(DEVICE, 1000, true);
+        governor.adjust();
+        Assert.assertEquals(CONFIGURED_PERMITS, semaphore.getMaxPermits());
+
+        governor.recordLeaseWait(DEVICE, 1000, false);
+        governor.adjust();
+        Assert.assertEquals(3, semaphore.getMaxPermits());
+    }
+
+    @Test
+    public void testDecreaseOnErrors() throws Exception {
+        semaphore.setMaxPermits(4);
+        recordCalls(5, 100, 2);
+        governor.adjust();
+        Assert.assertEquals(2, semaphore.getMaxPermits());
+
+        recordCalls(5, 100, 5);
+        governor.adjust();
+        Assert.assertEquals(1, semaphore.getMaxPermits());
+
+        // never less than one permit
+        recordCalls(5, 100, 5);
+        governor.adjust();
+        Assert.assertEquals(1, semaphore.getMaxPermits());
+
+        // a single error in a window is tolerated
+        recordCalls(5, 100, 1);
+        governor.adjust();
+        Assert.assertEquals(2, semaphore.getMaxPermits());
+    }
+
+    @Test
+    public void testDecreaseOnLatency() throws Exception {
+        recordCalls(5, 100, 0);
+        governor.adjust();
+        Assert.assertEquals(3, semaphore.getMaxPermits());
+
+        recordCalls(5, 300, 0);
+        governor.adjust();
+        Assert.assertEquals(1, semaphore.getMaxPermits());
+    }
+
+    @Test
+    public void testChangedByOtherNode() throws Exception {
+        semaphore._conflict = true;
+        recordCalls(5, 100, 0);
+        governor.adjust();
+        Assert.assertEquals(CONFIGURED_PERMITS, semaphore.getMaxPermits());
+    }
+
+    @Test
+    public void testBackgroundShare() throws Exception {
+        Assert.assertTrue(governor.isBackground("discoverStorageSystem"));
+        Assert.assertFalse(governor.isBackground("createVolumes"));
+
+        semaphore.setMaxPermits(4);
+        Assert.assertTrue(governor.tryEnterBackground(DEVICE));
+        Assert.assertTrue(governor.tryEnterBackground(DEVICE));
+        Assert.assertFalse(governor.tryEnterBackground(DEVICE));
+        governor.exitBackground(DEVICE);
+        Assert.assertTrue(governor.tryEnterBackground(DEVICE));
+
+        // unknown devices are not limited
+        Assert.assertTrue(governor.tryEnterBackground(URI.create("urn:storageos:StorageSystem:2:vdc1")));
+    }
+
+    private void recordCalls(int count, long latencyMillis, int failures) {
+        for (int i = 0; i < count; i++) {
+            governor.recordCall(DEVICE, latencyMillis, i < failures);
+        }
+    }
+
+    private static CoordinatorClient createCoordinator(final AdjustableDistributedSemaphore semaphore) {
+        return (CoordinatorClient) Proxy.newProxyInstance(CoordinatorClient.class.getClassLoader(),
+                new Class<?>[] { CoordinatorClient.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getAdjustableSemaphore")) {
+                            return semaphore;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Semaphore which only keeps its number of permits
+     */
+    private static class StubSemaphore implements AdjustableDistributedSemaphore {
+        private int _maxPermits;
+        private boolean _conflict;
+
+        StubSemaphore(int maxPermits) {
+            _maxPermits = maxPermits;
+        }
+
+        @Override
+        public int getMaxPermits() {
+            return _maxPermits;
+        }
+
+        @Override
+        public boolean setMaxPermits(int maxPermits) {
+            if (_conflict) {
+                return false;
+            }
+            _maxPermits = maxPermits;
+            return true;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public Lease acquireLease() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Lease acquireLease(long waitTime, TimeUnit waitTimeUnit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void returnLease(Lease lease) {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.emc.storageos.volumecontroller.impl.DispatcherLaneScheduler.OperationClass;
+
+/**
+ * Replays recorded request mixes through the DispatcherLaneScheduler with a simulated clock and executor.
+ * Every line of a mix is "arrivalMillis,tenant,method,durationMillis[,count]".
+ */
+public class DispatcherLaneSchedulerTest {
+
+    private static final int POOL_SIZE = 10;
+
+    // one tenant orders 500 volumes, another one creates a few volumes a bit later while discovery runs
+    private static final String[] BULK_ORDER_MIX = {
+            "0,tenantA,createVolumes,1000,500",
+            "0,,discoverStorageSystem,5000,50",
+            "5000,tenantB,createVolumes,1000,10",
+            "8000,tenantB,exportGroupCreate,1000,5"
+    };
+
+    private static final String[] ROLLBACK_MIX = {
+            "0,tenantA,createVolumes,1000,200",
+            "2000,tenantA,rollbackCreateVolumes,1000,5"
+    };
+
+    private static class SimRequest implements Runnable {
+        final String _tenant;
+        final String _method;
+        final long _arrival;
+        final long _duration;
+        long _started = -1;
+
+        SimRequest(String tenant, String method, long arrival, long duration) {
+            _tenant = tenant;
+            _method = method;
+            _arrival = arrival;
+            _duration = duration;
+        }
+
+        long getWait() {
+            return _started - _arrival;
+        }
+
+        @Override
+        public void run() {
+            // the work itself is simulated by the completion event
+        }
+    }
+
+    private static class Event implements Comparable<Event> {
+        final long _time;
+        final long _seq;
+        final Runnable _action;
+
+        Event(long time, long seq, Runnable action) {
+            _time = time;
+            _seq = seq;
+            _action = action;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            return _time != o._time ? Long.compare(_time, o._time) : Long.compare(_seq, o._seq);
+        }
+    }
+
+    /**
+     * Discrete event simulation: requests arrive at their recorded time, the executor "runs" a request
+     * by scheduling its completion after the recorded duration.
+     */
+    private static class Simulation implements Executor, DispatcherLaneScheduler.Clock {
+        private final PriorityQueue<Event> _events = new PriorityQueue<Event>();
+        private final List<SimRequest> _requests = new ArrayList<SimRequest>();
+        private final DispatcherLaneScheduler _scheduler;
+        private long _now;
+        private long _seq;
+
+        Simulation(Map<String, Integer> weights) {
+            _scheduler = new DispatcherLaneScheduler("controller", this, POOL_SIZE, this);
+            _scheduler.setWeights(weights);
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return _now;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            SimRequest request = (SimRequest) ((DispatcherLaneScheduler.DispatchedTask) command).getTask();
+            request._started = _now;
+            _events.add(new Event(_now + request._duration, _seq++, command));
+        }
+
+        void load(String[] mix) {
+            for (String line : mix) {
+                String[] fields = line.split(",");
+                long arrival = Long.parseLong(fields[0]);
+                final String tenant = fields[1].isEmpty() ? null : fields[1];
+                String method = fields[2];
+                long duration = Long.parseLong(fields[3]);
+                int count = fields.length > 4 ? Integer.parseInt(fields[4]) : 1;
+                for (int i = 0; i < count; i++) {
+                    final SimRequest request = new SimRequest(tenant, method, arrival, duration);
+                    _requests.add(request);
+                    _events.add(new Event(arrival, _seq++, new Runnable() {
+                        @Override
+                        public void run() {
+                            _scheduler.submit(request._tenant, OperationClass.fromMethodName(request._method), request);
+                        }
+                    }));
+                }
+            }
+        }
+
+        void run() {
+            while (!_events.isEmpty()) {
+                Event event = _events.poll();
+                _now = event._time;
+                event._action.run();
+            }
+        }
+
+        long maxWait(String tenant, String methodPrefix) {
+            long max = 0;
+            for (SimRequest request : _requests) {
+                Assert.assertTrue("request was not dispatched", request._started >= 0);
+                if ((tenant == null ? request._tenant == null : tenant.equals(request._tenant))
+                        && request._method.startsWith(methodPrefix)) {
+                    max = Math.max(max, request.getWait());
+                }
+            }
+            return max;
+        }
+    }
+
+    @Test
+    public void testOperationClass() {
+        Assert.assertEquals(OperationClass.rollback, OperationClass.fromMethodName("rollbackCreateVolumes"));
+        Assert.assertEquals(OperationClass.rollback, OperationClass.fromMethodName("exportGroupRollback"));
+        Assert.assertEquals(OperationClass.background, OperationClass.fromMethodName("discoverStorageSystem"));
+        Assert.assertEquals(OperationClass.background, OperationClass.fromMethodName("scanStorageProviders"));
+        Assert.assertEquals(OperationClass.provisioning, OperationClass.fromMethodName("rescanHostStorage"));
+        Assert.assertEquals(OperationClass.provisioning, OperationClass.fromMethodName("createVolumes"));
+    }
+
+    @Test
+    public void testSmallTenantNotStarvedByBulkOrder() {
+        Simulation simulation = new Simulation(null);
+        simulation.load(BULK_ORDER_MIX);
+        simulation.run();
+
+        // with FIFO dispatching tenantB would wait for most of the 500 volumes (about 50 seconds)
+        Assert.assertTrue(simulation.maxWait("tenantB", "createVolumes") < 5000);
+        Assert.assertTrue(simulation.maxWait("tenantB", "exportGroupCreate") < 5000);
+        // background work keeps a share of the executor while the bulk order runs
+        Assert.assertTrue(simulation.maxWait(null, "discover") < simulation.maxWait("tenantA", "createVolumes"));
+        Assert.assertEquals(0, simulation._scheduler.getQueuedCount());
+    }
+
+    @Test
+    public void testWeights() {
+        Simulation simulation = new Simulation(null);
+        simulation.load(ROLLBACK_MIX);
+        simulation.run();
+        long defaultWait = simulation.maxWait("tenantA", "rollback");
+        Assert.assertTrue(defaultWait < 2000);
+
+        // rollback waits longer once it is weighted below provisioning
+        Map<String, Integer> weights = new HashMap<String, Integer>();
+        weights.put(OperationClass.rollback.name(), 1);
+        weights.put(OperationClass.provisioning.name(), 16);
+        simulation = new Simulation(weights);
+        simulation.load(ROLLBACK_MIX);
+        simulation.run();
+        Assert.assertTrue(simulation.maxWait("tenantA", "rollback") > defaultWait);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.volumecontroller.impl.externaldevice;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.DbClient;
+import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedConsistencyGroup;
+import com.emc.storageos.db.client.model.UnManagedDiscoveredObjects.UnManagedVolume;
+import com.emc.storageos.plugins.common.PartitionManager;
+import com.emc.storageos.storagedriver.BlockStorageDriver;
+import com.emc.storageos.storagedriver.DefaultDriverTask;
+import com.emc.storageos.storagedriver.DriverTask;
+import com.emc.storageos.storagedriver.PagedVolumeDiscoveryDriver;
+import com.emc.storageos.storagedriver.model.StorageSystem;
+import com.emc.storageos.storagedriver.model.StorageVolume;
+
+/**
+ * Discovers volume pages of a driver which serves pages in parallel, checking that the pages are
+ * requested concurrently up to the limit of the driver and of the discoverer, and that every page
+ * is processed once, in the discovery thread.
+ */
+public class ExternalDeviceUnManagedVolumeDiscovererTest {
+    private static final int PAGE_SIZE = 2;
+
+    private final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Thread> processingThreads = Collections.synchronizedList(new ArrayList<Thread>());
+    private final List<String> driverThreads = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private int failedPage;
+    private ExternalDeviceUnManagedVolumeDiscoverer discoverer;
+
+    @Before
+    public void setUp() {
+        processed.clear();
+        processingThreads.clear();
+        driverThreads.clear();
+        running.set(0);
+        maxRunning.set(0);
+        failedPage = -1;
+        discoverer = new ExternalDeviceUnManagedVolumeDiscoverer() {
+            @Override
+            void processVolumePage(BlockStorageDriver driver, List<StorageVolume> driverVolumes,
+                                   com.emc.storageos.db.client.model.StorageSystem storageSystem,
+                                   List<UnManagedVolume> unManagedVolumesToCreate,
+                                   List<UnManagedVolume> unManagedVolumesToUpdate,
+                                   Set<URI> allCurrentUnManagedVolumeUris, Set<URI> allCurrentUnManagedCgURIs,
+                                   Map<String, UnManagedConsistencyGroup> unManagedCGToUpdateMap,
+                                   Set<String> invalidExportHosts,
+                                   DbClient dbClient, PartitionManager partitionManager) {
+                processingThreads.add(Thread.currentThread());
+                for (StorageVolume volume : driverVolumes) {
+                    processed.add(volume.getNativeId());
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testParallelPages() throws Exception {
+        CountDownLatch firstPages = discover(10, 3);
+
+        // the first three pages were requested at the same time, never more than that
+        Assert.assertEquals(0, firstPages.getCount());
+        Assert.assertEquals(3, maxRunning.get());
+        assertAllPagesProcessed(10);
+    }
+
+    @Test
+    public void testParallelPagesLimit() throws Exception {
+        CountDownLatch firstPages = discover(20, 20);
+
+        // the driver allows more pages than the discoverer requests at a time
+        Assert.assertEquals(0, firstPages.getCount());
+        Assert.assertEquals(ExternalDeviceUnManagedVolumeDiscoverer.MAX_PARALLEL_VOLUME_PAGES, maxRunning.get());
+        assertAllPagesProcessed(20);
+    }
+
+    @Test
+    public void testFewerPagesThanThreads() throws Exception {
+        discover(2, 4);
+        assertAllPagesProcessed(2);
+    }
+
+    @Test
+    public void testFailedPage() throws Exception {
+        failedPage = 4;
+        try {
+            discover(10, 3);
+            Assert.fail("failed page expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assert.assertTrue(e.getCause().getMessage().contains("page 4"));
+        }
+
+        // discovery stops at the failed page
+        Assert.assertTrue(processed.size() < 10 * PAGE_SIZE);
+    }
+
+    private void assertAllPagesProcessed(int pageCount) {
+        Set<String> expected = new HashSet<String>();
+        for (int page = 0; page < pageCount; page++) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                expected.add("page-" + page + "-" + i);
+            }
+        }
+        Assert.assertEquals(expected.size(), processed.size());
+        Assert.assertEquals(expected, new HashSet<String>(processed));
+
+        // pages are written to db by the discovery thread, requested by the named pool
+        Assert.assertEquals(pageCount, processingThreads.size());
+        for (Thread thread : processingThreads) {
+            Assert.assertSame(Thread.currentThread(), thread);
+        }
+        Assert.assertEquals(pageCount, driverThreads.size());
+        for (String name : driverThreads) {
+            Assert.assertTrue(name, name.startsWith(ExternalDeviceUnManagedVolumeDiscoverer.class.getSimpleName()));
+        }
+    }
+
+    /**
+     * Runs paged discovery; the first pages wait for each other, so they only return when
+     * requested at the same time
+     *
+     * @return latch of the first pages, open if they were requested at the same time
+     */
+    private CountDownLatch discover(int pageCount, int maxParallelPages) throws Exception {
+        int parallelism = Math.min(Math.min(pageCount, maxParallelPages),
+                ExternalDeviceUnManagedVolumeDiscoverer.MAX_PARALLEL_VOLUME_PAGES);
+        CountDownLatch firstPages = new CountDownLatch(parallelism);
+        com.emc.storageos.db.client.model.StorageSystem storageSystem = new com.emc.storageos.db.client.model.StorageSystem();
+        storageSystem.setNativeId("array1");
+        StorageSystem driverStorageSystem = new StorageSystem();
+        driverStorageSystem.setNativeId("array1");
+
+        discoverer.discoverVolumePagesInParallel(createDriver(pageCount, maxParallelPages, firstPages),
+                driverStorageSystem, storageSystem, new ArrayList<UnManagedVolume>(), new ArrayList<UnManagedVolume>(),
+                new HashSet<URI>(), new HashSet<URI>(), new HashMap<String, UnManagedConsistencyGroup>(),
+                new HashSet<String>(), null, null);
+        return firstPages;
+    }
+
+    private PagedVolumeDiscoveryDriver createDriver(final int pageCount, final int maxParallelPages,
+            final CountDownLatch firstPages) {
+        return (PagedVolumeDiscoveryDriver) Proxy.newProxyInstance(PagedVolumeDiscoveryDriver.class.getClassLoader(),
+                new Class<?>[] { PagedVolumeDiscoveryDriver.class }, new InvocationHandler() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+                        String name = method.getName();
+                        if (name.equals("getStorageVolumePageCount")) {
+                            return pageCount;
+                        } else if (name.equals("getMaxParallelVolumePages")) {
+                            return maxParallelPages;
+                        } else if (name.equals("getStorageVolumes") && args.length == 3 && args[1] instanceof Integer) {
+                            return getStorageVolumes((Integer) args[1], (List<StorageVolume>) args[2], firstPages);
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    private DriverTask getStorageVolumes(int page, List<StorageVolume> storageVolumes, CountDownLatch firstPages)
+            throws InterruptedException {
+        driverThreads.add(Thread.currentThread().getName());
+        int nowRunning = running.incrementAndGet();
+        synchronized (maxRunning) {
+            maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+        }
+        try {
+            firstPages.countDown();
+            firstPages.await(10, TimeUnit.SECONDS);
+
+            DriverTask task = new DefaultDriverTask("page-" + page);
+            if (page == failedPage) {
+                task.setStatus(DriverTask.TaskStatus.FAILED);
+                task.setMessage("injected failure");
+                return task;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                StorageVolume volume = new StorageVolume();
+                volume.setNativeId("page-" + page + "-" + i);
+                storageVolumes.add(volume);
+            }
+            task.setStatus(DriverTask.TaskStatus.READY);
+            return task;
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.monitoring.cim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.ArrivedIndication;
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.IndicationSpillFile;
+
+public class IndicationSpillFileTest {
+    private static final long MAX_SIZE = 1024 * 1024;
+
+    private static ArrivedIndication indication(int i) {
+        Hashtable<String, String> data = new Hashtable<String, String>();
+        data.put("IndicationSource", "SYMMETRIX+00019570000" + i);
+        data.put("Description", "pool é " + i);
+        return new ArrivedIndication(data, 1000L + i);
+    }
+
+    private static File newSpillFile() throws IOException {
+        File file = File.createTempFile("indications", ".spill");
+        file.delete();
+        file.deleteOnExit();
+        new File(file.getPath() + ".offset").deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testIndicationsSurviveRestart() throws IOException {
+        File file = newSpillFile();
+        IndicationSpillFile spillFile = new IndicationSpillFile(file.getPath(), MAX_SIZE);
+        for (int i = 0; i < 5; i++) {
+            spillFile.append(indication(i));
+        }
+        List<ArrivedIndication> read = spillFile.read(2);
+        Assert.assertEquals(2, read.size());
+        Assert.assertEquals(1001L, read.get(1).getArrivalTime());
+        spillFile.close();
+
+        // the indications that were not read are read after a restart, in order
+        spillFile = new IndicationSpillFile(file.getPath(), MAX_SIZE);
+        Assert.assertEquals(3, spillFile.getPendingCount());
+        read = spillFile.read(10);
+        Assert.assertEquals(3, read.size());
+        Assert.assertEquals(1002L, read.get(0).getArrivalTime());
+        Assert.assertEquals("pool é 4", read.get(2).getIndication().get("Description"));
+        Assert.assertFalse(spillFile.hasPending());
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void testIncompleteRecordIsRemoved() throws IOException {
+        File file = newSpillFile();
+        IndicationSpillFile spillFile = new IndicationSpillFile(file.getPath(), MAX_SIZE);
+        spillFile.append(indication(0));
+        spillFile.append(indication(1));
+        spillFile.close();
+
+        // crash while the second indication was written
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        spillFile = new IndicationSpillFile(file.getPath(), MAX_SIZE);
+        Assert.assertEquals(1, spillFile.getPendingCount());
+        spillFile.append(indication(2));
+        List<ArrivedIndication> read = spillFile.read(10);
+        Assert.assertEquals(2, read.size());
+        Assert.assertEquals(1000L, read.get(0).getArrivalTime());
+        Assert.assertEquals(1002L, read.get(1).getArrivalTime());
+    }
+
+    @Test
+    public void testPrependKeepsOrder() throws IOException {
+        File file = newSpillFile();
+        IndicationSpillFile spillFile = new IndicationSpillFile(file.getPath(), MAX_SIZE);
+        for (int i = 2; i < 6; i++) {
+            spillFile.append(indication(i));
+        }
+        Assert.assertEquals(1002L, spillFile.read(1).get(0).getArrivalTime());
+
+        // the buffered indications arrived before the spilled ones
+        spillFile.prepend(Arrays.asList(indication(0), indication(1)));
+        spillFile.close();
+
+        spillFile = new IndicationSpillFile(file.getPath(), MAX_SIZE);
+        Assert.assertEquals(5, spillFile.getPendingCount());
+        List<ArrivedIndication> read = spillFile.read(10);
+        long[] expected = { 1000L, 1001L, 1003L, 1004L, 1005L };
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], read.get(i).getArrivalTime());
+        }
+    }
+
+    @Test
+    public void testMaxSize() throws IOException {
+        File file = newSpillFile();
+        IndicationSpillFile spillFile = new IndicationSpillFile(file.getPath(), 1);
+        Assert.assertTrue(spillFile.append(indication(0)));
+        Assert.assertFalse(spillFile.append(indication(1)));
+        Assert.assertEquals(1, spillFile.getPendingCount());
+
+        // room is made as the indications are read
+        spillFile.read(1);
+        Assert.assertTrue(spillFile.append(indication(2)));
+        Assert.assertEquals(1002L, spillFile.read(10).get(0).getArrivalTime());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.monitoring.cim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.ArrivedIndication;
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.CIMIndicationProcessor;
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.IndicationSpillFile;
+import com.emc.storageos.volumecontroller.impl.monitoring.cim.indicationProcessor.IntermediateProcessor;
+
+/**
+ * Queues indications while spilled ones are moved back to the queue, checking
+ * that they are processed in arrival order.
+ */
+public class IntermediateProcessorTest {
+    private static final long MAX_SIZE = 1024 * 1024;
+
+    private final List<String> processed = new ArrayList<String>();
+
+    private static ArrivedIndication indication(int i) {
+        Hashtable<String, String> data = new Hashtable<String, String>();
+        data.put("Description", String.valueOf(i));
+        // arrived long ago, processed on the first run
+        return new ArrivedIndication(data, 1000L + i);
+    }
+
+    private static File newSpillFile() throws IOException {
+        File file = File.createTempFile("indications", ".spill");
+        file.delete();
+        file.deleteOnExit();
+        new File(file.getPath() + ".offset").deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testArrivalWhileReadingSpillFile() throws Exception {
+        final IntermediateProcessor[] processor = new IntermediateProcessor[1];
+        final List<Thread> arrivals = new ArrayList<Thread>();
+
+        // an indication arrives once the spilled indications are read, before they are queued
+        IndicationSpillFile spillFile = new IndicationSpillFile(newSpillFile().getPath(), MAX_SIZE) {
+            @Override
+            public List<ArrivedIndication> read(int max) throws IOException {
+                List<ArrivedIndication> read = super.read(max);
+                Thread arrival = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            processor[0].queueIndication(indication(5));
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                };
+                arrivals.add(arrival);
+                arrival.start();
+                try {
+                    arrival.join(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return read;
+            }
+        };
+        processor[0] = new IntermediateProcessor(new LinkedBlockingQueue<ArrivedIndication>(3),
+                new CIMIndicationProcessor() {
+                    @Override
+                    public void processIndication(Hashtable<String, String> cimNotification) {
+                        processed.add(cimNotification.get("Description"));
+                    }
+                }, null, spillFile);
+
+        // the last two do not fit in the queue
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(processor[0].queueIndication(indication(i)));
+        }
+        Assert.assertEquals(2, spillFile.getPendingCount());
+
+        processor[0].run();
+        Assert.assertEquals(1, arrivals.size());
+        arrivals.get(0).join();
+        Assert.assertFalse(spillFile.hasPending());
+        processor[0].run();
+
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            expected.add(String.valueOf(i));
+        }
+        Assert.assertEquals(expected, processed);
+        spillFile.close();
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.plugins.discovery.isilon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.isilon.restapi.IsilonApi;
+import com.emc.storageos.isilon.restapi.IsilonApiFactory;
+import com.emc.storageos.isilon.restapi.IsilonExport;
+import com.emc.storageos.isilon.restapi.IsilonSMBShare;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Discovers the exports and shares of the access zones of a mock Isilon, which serves pages of
+ * exports and shares, and compares the requests of the bulk discovery with those of reading each
+ * export by id.
+ */
+public class IsilonAccessZoneSharesTest {
+    private static final String EXPORTS_PATH = "/platform/1/protocols/nfs/exports/";
+    private static final String SHARES_PATH = "/platform/1/protocols/smb/shares/";
+    private static final List<String> ZONES = Arrays.asList("zone1", "zone2", "zone3");
+    private static final int FS_PER_ZONE = 600;
+    private static final int PAGE_SIZE = 500;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private IsilonApiFactory factory;
+    private IsilonApi isilonApi;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Map<String, List<String>> zoneExports = new HashMap<String, List<String>>();
+    private final Map<String, List<String>> zoneShares = new HashMap<String, List<String>>();
+
+    @Before
+    public void setUp() throws Exception {
+        int exportId = 1;
+        for (String zone : ZONES) {
+            List<String> exports = new ArrayList<String>();
+            List<String> shares = new ArrayList<String>();
+            for (int i = 0; i < FS_PER_ZONE; i++) {
+                String fsPath = getFsPath(zone, i);
+                exports.add(exportJson(exportId++, fsPath));
+                exports.add(exportJson(exportId++, fsPath + "/qd"));
+                // exports of directories which are not quota directories are not of the file system
+                exports.add(exportJson(exportId++, fsPath + "/dir"));
+                shares.add(shareJson(zone + "_share" + i, fsPath));
+            }
+            zoneExports.put(zone, exports);
+            zoneShares.put(zone, shares);
+        }
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(EXPORTS_PATH, new ListHandler("exports", EXPORTS_PATH, zoneExports));
+        server.createContext(SHARES_PATH, new ListHandler("shares", SHARES_PATH, zoneShares));
+        serverExecutor = Executors.newFixedThreadPool(ZONES.size());
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        factory = new IsilonApiFactory();
+        factory.init();
+        isilonApi = factory.getRESTClient(URI.create("http://localhost:" + server.getAddress().getPort() + "/"));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testPathTrie() {
+        IsilonPathTrie<String> trie = new IsilonPathTrie<String>();
+        trie.add("/ifs/zone1/fs1", "a");
+        trie.add("/ifs/zone1/fs1/qd1", "b");
+        trie.add("/ifs/zone1/fs1/qd1/dir", "c");
+        trie.add("/ifs/zone1/fs10", "d");
+        trie.add("/ifs/zone1/fs1", "e");
+
+        Assert.assertEquals(5, trie.size());
+        Assert.assertEquals(Arrays.asList("a", "e"), trie.get("/ifs/zone1/fs1"));
+        Assert.assertTrue(trie.get("/ifs/zone1").isEmpty());
+        Assert.assertTrue(trie.get("/ifs/zone2/fs1").isEmpty());
+
+        // paths are matched by their components, whatever the separators
+        Assert.assertEquals(Arrays.asList("a", "e"), trie.get("/ifs/zone1/fs1/"));
+        Assert.assertEquals(Collections.singletonList("b"), trie.get("/ifs//zone1/fs1/qd1"));
+        Assert.assertEquals(Collections.singletonList("c"), trie.get("/ifs/zone1/fs1/qd1/dir"));
+    }
+
+    @Test
+    public void testTrailingSeparator() {
+        IsilonAccessZoneShares shares = IsilonAccessZoneShares.discover(isilonApi, "zone1");
+        String fsPath = getFsPath("zone1", 7);
+
+        // the file system path with a trailing separator finds the exports at the path without it
+        Map<String, List<IsilonExport>> exports = shares.getExports(fsPath + "/", Collections.singleton(fsPath + "/qd/"));
+        Assert.assertEquals(2, exports.size());
+        Assert.assertEquals(fsPath, exports.get(fsPath + "/").get(0).getPaths().get(0));
+        Assert.assertEquals(fsPath + "/qd", exports.get(fsPath + "/qd/").get(0).getPaths().get(0));
+        Assert.assertEquals(1, shares.getShares(fsPath + "/", null).size());
+
+        // the same path given twice finds its exports once
+        Assert.assertEquals(1, shares.getExports(fsPath, Collections.singleton(fsPath + "/")).size());
+        Assert.assertEquals(1, shares.getShares(fsPath, Collections.singleton(fsPath + "/")).size());
+    }
+
+    @Test
+    public void testAccessZoneShares() {
+        IsilonAccessZoneShares shares = IsilonAccessZoneShares.discover(isilonApi, "zone1");
+
+        int pages = pageCount(3 * FS_PER_ZONE) + pageCount(FS_PER_ZONE);
+        Assert.assertEquals(pages, shares.getRequestCount());
+        Assert.assertEquals(pages, requests.get());
+
+        String fsPath = getFsPath("zone1", 7);
+        Map<String, List<IsilonExport>> exports = shares.getExports(fsPath, Collections.singleton(fsPath + "/qd"));
+        Assert.assertEquals(2, exports.size());
+        Assert.assertEquals(fsPath, exports.get(fsPath).get(0).getPaths().get(0));
+        Assert.assertEquals(fsPath + "/qd", exports.get(fsPath + "/qd").get(0).getPaths().get(0));
+        Assert.assertEquals(1, shares.getExports(fsPath, null).size());
+
+        List<IsilonSMBShare> fsShares = shares.getShares(fsPath, null);
+        Assert.assertEquals(1, fsShares.size());
+        Assert.assertEquals("zone1_share7", fsShares.get(0).getName());
+        Assert.assertTrue(shares.getShares(getFsPath("zone2", 7), null).isEmpty());
+    }
+
+    @Test
+    public void testParallelAccessZones() throws Exception {
+        // exports read one at a time by id, as each file system was discovered
+        for (String zone : ZONES) {
+            String resumeToken = null;
+            do {
+                IsilonApi.IsilonList<IsilonExport> exports = isilonApi.listExports(resumeToken, zone);
+                for (IsilonExport export : exports.getList()) {
+                    Assert.assertNotNull(isilonApi.getExport(export.getId().toString(), zone));
+                }
+                resumeToken = exports.getToken();
+            } while (resumeToken != null);
+        }
+        int byIdRequests = requests.getAndSet(0);
+
+        // exports and shares of the access zones listed in parallel
+        ExecutorService executor = Executors.newFixedThreadPool(ZONES.size());
+        try {
+            List<Future<IsilonAccessZoneShares>> results = new ArrayList<Future<IsilonAccessZoneShares>>();
+            for (final String zone : ZONES) {
+                results.add(executor.submit(new Callable<IsilonAccessZoneShares>() {
+                    @Override
+                    public IsilonAccessZoneShares call() {
+                        return IsilonAccessZoneShares.discover(isilonApi, zone);
+                    }
+                }));
+            }
+            for (int i = 0; i < ZONES.size(); i++) {
+                IsilonAccessZoneShares shares = results.get(i).get();
+                Assert.assertEquals(ZONES.get(i), shares.getZoneName());
+                String fsPath = getFsPath(ZONES.get(i), FS_PER_ZONE - 1);
+                Assert.assertEquals(2, shares.getExports(fsPath, Collections.singleton(fsPath + "/qd")).size());
+                Assert.assertEquals(1, shares.getShares(fsPath, null).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // each page of exports and shares of each access zone is read once, no export is read by id
+        int bulkRequests = requests.get();
+        Assert.assertEquals(ZONES.size() * (pageCount(3 * FS_PER_ZONE) + pageCount(FS_PER_ZONE)), bulkRequests);
+        Assert.assertEquals(ZONES.size() * (pageCount(3 * FS_PER_ZONE) + 3 * FS_PER_ZONE), byIdRequests);
+        Assert.assertTrue(bulkRequests * 100 < byIdRequests);
+    }
+
+    private static String getFsPath(String zone, int index) {
+        return "/ifs/" + zone + "/fs" + index;
+    }
+
+    private static int pageCount(int count) {
+        return (count + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    private static String exportJson(int id, String path) {
+        return String.format("{\"id\":%d,\"paths\":[\"%s\"],\"security_flavors\":[\"unix\"],"
+                + "\"map_root\":{\"user\":\"nobody\"},\"clients\":[\"10.0.0.1\"]}", id, path);
+    }
+
+    private static String shareJson(String name, String path) {
+        return String.format("{\"id\":\"%s\",\"name\":\"%s\",\"path\":\"%s\",\"permissions\":[{\"permission\":\"full\","
+                + "\"permission_type\":\"allow\",\"trustee\":{\"name\":\"Everyone\",\"type\":\"wellknown\"}}]}", name, name, path);
+    }
+
+    /**
+     * Serves the pages of a list of an access zone, and its elements by id. The resume token holds
+     * the access zone and the offset of the next page.
+     */
+    private class ListHandler implements HttpHandler {
+        private final String key;
+        private final String contextPath;
+        private final Map<String, List<String>> elements;
+
+        ListHandler(String key, String contextPath, Map<String, List<String>> elements) {
+            this.key = key;
+            this.contextPath = contextPath;
+            this.elements = elements;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String id = exchange.getRequestURI().getPath().substring(contextPath.length());
+
+            StringBuilder json = new StringBuilder("{\"").append(key).append("\":[");
+            if (!id.isEmpty()) {
+                for (String element : elements.get(query.get("zone"))) {
+                    if (element.startsWith("{\"id\":" + id + ",") || element.startsWith("{\"id\":\"" + id + "\"")) {
+                        json.append(element);
+                    }
+                }
+                json.append("]}");
+            } else {
+                String zone = query.get("zone");
+                int offset = 0;
+                if (query.containsKey("resume")) {
+                    String[] token = query.get("resume").split("-");
+                    zone = token[0];
+                    offset = Integer.parseInt(token[1]);
+                }
+                List<String> zoneElements = elements.get(zone);
+                int end = Math.min(zoneElements.size(), offset + PAGE_SIZE);
+                for (int i = offset; i < end; i++) {
+                    json.append(i > offset ? "," : "").append(zoneElements.get(i));
+                }
+                json.append("],\"resume\":").append(end < zoneElements.size() ? "\"" + zone + "-" + end + "\"" : "null").append("}");
+            }
+
+            byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+            out.close();
+        }
+
+        private Map<String, String> parseQuery(String query) {
+            Map<String, String> params = new HashMap<String, String>();
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    String[] pair = param.split("=", 2);
+                    params.put(pair[0], pair.length > 1 ? pair[1] : "");
+                }
+            }
+            return params;
+        }
+    }
+}
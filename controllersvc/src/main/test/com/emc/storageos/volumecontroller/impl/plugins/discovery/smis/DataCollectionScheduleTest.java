@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.plugins.discovery.smis;
+
+import java.net.URI;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Simulates the scheduling passes over thousands of systems last discovered at the same time,
+ * counting the jobs enqueued by each pass.
+ */
+public class DataCollectionScheduleTest {
+    private static final int SYSTEM_COUNT = 5000;
+    private static final long INTERVAL = 3600 * 1000L;
+    private static final long TOLERANCE = 600 * 1000L;
+    private static final int SLOTS = 12;
+    private static final int INTERVALS = 6;
+
+    @Test
+    public void testPhase() {
+        URI id = createId();
+        long phase = DataCollectionSchedule.getPhase(id, INTERVAL);
+        Assert.assertTrue(phase >= 0 && phase < INTERVAL);
+        Assert.assertEquals(phase, DataCollectionSchedule.getPhase(URI.create(id.toString()), INTERVAL));
+
+        // due at its phase, at least half an interval after its last run
+        for (long lastRunTime = 0; lastRunTime < 2 * INTERVAL; lastRunTime += INTERVAL / 7) {
+            long next = DataCollectionSchedule.getNextRunTime(id, lastRunTime, INTERVAL);
+            Assert.assertEquals(phase, next % INTERVAL);
+            Assert.assertTrue(next >= lastRunTime + INTERVAL / 2);
+            Assert.assertTrue(next < lastRunTime + INTERVAL / 2 + INTERVAL);
+        }
+    }
+
+    @Test
+    public void testSchedulingPeriod() {
+        Assert.assertEquals(300, DataCollectionSchedule.getSchedulingPeriod(3600, SLOTS));
+        Assert.assertEquals(3600, DataCollectionSchedule.getSchedulingPeriod(3600, 1));
+        Assert.assertEquals(DataCollectionSchedule.MIN_SCHEDULING_PERIOD, DataCollectionSchedule.getSchedulingPeriod(600, 100));
+        Assert.assertEquals(30, DataCollectionSchedule.getSchedulingPeriod(30, SLOTS));
+    }
+
+    @Test
+    public void testSpreadQueueDepth() {
+        int[] fixed = simulate(false);
+        int[] spread = simulate(true);
+
+        int fixedMax = max(fixed, 0);
+        // after the first interval the spread systems are due a few at a time
+        int spreadMax = max(spread, SLOTS);
+        int average = SYSTEM_COUNT / SLOTS;
+
+        Assert.assertEquals(SYSTEM_COUNT, fixedMax);
+        Assert.assertTrue(spreadMax <= 2 * average);
+        // every system still runs about once per interval
+        Assert.assertTrue(total(spread, SLOTS) >= (INTERVALS - 2) * SYSTEM_COUNT);
+        Assert.assertTrue(total(spread, SLOTS) <= (INTERVALS - 1) * SYSTEM_COUNT);
+    }
+
+    /**
+     * Runs the scheduling passes from the time all the systems last ran
+     *
+     * @return number of jobs enqueued by each pass
+     */
+    private int[] simulate(boolean spread) {
+        URI[] ids = new URI[SYSTEM_COUNT];
+        long[] lastRunTimes = new long[SYSTEM_COUNT];
+        for (int i = 0; i < SYSTEM_COUNT; i++) {
+            ids[i] = createId();
+            lastRunTimes[i] = INTERVAL;
+        }
+
+        long period = INTERVAL / SLOTS;
+        int[] enqueued = new int[INTERVALS * SLOTS];
+        for (int pass = 0; pass < enqueued.length; pass++) {
+            long now = INTERVAL + (pass + 1) * period;
+            for (int i = 0; i < SYSTEM_COUNT; i++) {
+                long nextTime = spread ? DataCollectionSchedule.getNextRunTime(ids[i], lastRunTimes[i], INTERVAL)
+                        : lastRunTimes[i] + INTERVAL;
+                if (now >= nextTime - TOLERANCE) {
+                    enqueued[pass]++;
+                    lastRunTimes[i] = now;
+                }
+            }
+        }
+        return enqueued;
+    }
+
+    private static int max(int[] values, int from) {
+        int max = 0;
+        for (int i = from; i < values.length; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    private static int total(int[] values, int from) {
+        int total = 0;
+        for (int i = from; i < values.length; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    private static URI createId() {
+        return URI.create("urn:storageos:StorageSystem:" + UUID.randomUUID() + ":vdc1");
+    }
+}
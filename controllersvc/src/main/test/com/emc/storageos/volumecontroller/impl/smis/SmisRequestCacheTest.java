@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.volumecontroller.impl.smis;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.cim.CIMDataType;
+import javax.cim.CIMInstance;
+import javax.cim.CIMObjectPath;
+import javax.cim.CIMProperty;
+import javax.wbem.CloseableIterator;
+import javax.wbem.WBEMException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Reads instances and associators through the cache of a step, checking the properties and
+ * request flags an instance is served for, and that the cache is dropped by invalidate and end.
+ */
+public class SmisRequestCacheTest {
+    private static final String[] NAME = { "ElementName" };
+    private static final String[] NAME_AND_ID = { "ElementName", "DeviceID" };
+
+    private final CIMObjectPath path = createPath("Symm_LunMaskingView", "view1");
+    private final CIMInstance instance = new CIMInstance(path, new CIMProperty<?>[0]);
+
+    @After
+    public void tearDown() {
+        while (SmisRequestCache.current() != null) {
+            SmisRequestCache.end();
+        }
+    }
+
+    @Test
+    public void testNoStep() {
+        Assert.assertNull(SmisRequestCache.current());
+        // invalidating outside of a step does nothing
+        SmisRequestCache.invalidate();
+        SmisRequestCache.end();
+        Assert.assertNull(SmisRequestCache.current());
+    }
+
+    @Test
+    public void testInstanceProperties() {
+        SmisRequestCache.begin("test");
+        SmisRequestCache cache = SmisRequestCache.current();
+        Assert.assertNull(cache.getInstance(path, false, true, NAME_AND_ID));
+        cache.putInstance(path, false, true, NAME_AND_ID, instance);
+
+        // a subset of the properties is served from the cache, other properties are read again
+        Assert.assertSame(instance, cache.getInstance(path, false, true, NAME));
+        Assert.assertSame(instance, cache.getInstance(path, false, true, NAME_AND_ID));
+        Assert.assertNull(cache.getInstance(path, false, true, new String[] { "Caption" }));
+        Assert.assertNull(cache.getInstance(path, false, true, null));
+
+        // a full instance serves any property
+        CIMInstance fullInstance = new CIMInstance(path, new CIMProperty<?>[0]);
+        cache.putInstance(path, false, true, null, fullInstance);
+        Assert.assertSame(fullInstance, cache.getInstance(path, false, true, new String[] { "Caption" }));
+
+        // an instance with fewer properties does not replace it
+        cache.putInstance(path, false, true, NAME, instance);
+        Assert.assertSame(fullInstance, cache.getInstance(path, false, true, null));
+        Assert.assertNull(cache.getInstance(createPath("Symm_LunMaskingView", "view2"), false, true, null));
+    }
+
+    @Test
+    public void testInstanceFlags() {
+        SmisRequestCache.begin("test");
+        SmisRequestCache cache = SmisRequestCache.current();
+        cache.putInstance(path, false, true, null, instance);
+
+        // instances read with other localOnly or includeClassOrigin flags are not served
+        Assert.assertNull(cache.getInstance(path, true, true, null));
+        Assert.assertNull(cache.getInstance(path, false, false, NAME));
+        Assert.assertSame(instance, cache.getInstance(path, false, true, NAME));
+
+        CIMInstance localInstance = new CIMInstance(path, new CIMProperty<?>[0]);
+        cache.putInstance(path, true, false, null, localInstance);
+        Assert.assertSame(localInstance, cache.getInstance(path, true, false, null));
+        Assert.assertSame(instance, cache.getInstance(path, false, true, null));
+    }
+
+    @Test
+    public void testNestedStepsAndInvalidation() throws WBEMException {
+        SmisRequestCache.begin("outer");
+        SmisRequestCache cache = SmisRequestCache.current();
+        SmisRequestCache.begin("inner");
+        Assert.assertSame(cache, SmisRequestCache.current());
+
+        List<Object> key = Arrays.<Object> asList(path, null, "Symm_StorageVolume", null, null);
+        CIMObjectPath volumePath = createPath("Symm_StorageVolume", "vol1");
+        Assert.assertNull(cache.getAssociatorNames(key));
+        assertPaths(cache.putAssociatorNames(key, new PathIterator(volumePath)), volumePath);
+        assertPaths(cache.getAssociatorNames(key), volumePath);
+        cache.putInstance(path, false, true, null, instance);
+
+        // the provider state may have changed
+        SmisRequestCache.invalidate();
+        Assert.assertNull(cache.getAssociatorNames(key));
+        Assert.assertNull(cache.getInstance(path, false, true, null));
+
+        // the inner end keeps the cache of the outer step
+        SmisRequestCache.end();
+        Assert.assertSame(cache, SmisRequestCache.current());
+        SmisRequestCache.end();
+        Assert.assertNull(SmisRequestCache.current());
+    }
+
+    private static void assertPaths(CloseableIterator<CIMObjectPath> iterator, CIMObjectPath... expected) {
+        for (CIMObjectPath expectedPath : expected) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(expectedPath, iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+        iterator.close();
+    }
+
+    private static CIMObjectPath createPath(String className, String deviceId) {
+        return new CIMObjectPath(null, null, null, "root/emc", className, new CIMProperty<?>[] {
+                new CIMProperty<String>("DeviceID", CIMDataType.STRING_T, deviceId, true, false, null) });
+    }
+
+    /**
+     * Result of a provider query
+     */
+    private static class PathIterator implements CloseableIterator<CIMObjectPath> {
+        private final Iterator<CIMObjectPath> _iterator;
+
+        PathIterator(CIMObjectPath... paths) {
+            _iterator = Arrays.asList(paths).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _iterator.hasNext();
+        }
+
+        @Override
+        public CIMObjectPath next() {
+            return _iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public WBEMException getWBEMException() {
+            return null;
+        }
+    }
+}
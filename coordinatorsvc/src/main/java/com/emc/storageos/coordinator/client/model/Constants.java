@@ -138,6 +138,10 @@ public interface Constants {
     // to notify portal service to update its cache after catalog acl change
     public static final String CATALOG_CONFIG = "catalog";
     public static final String CATALOG_ACL_CHANGE = "acl_change";
+
+    // to notify services to clear their permissions cache after role assignment or acl change
+    public static final String PERMISSIONS_CONFIG = "permissions";
+    public static final String PERMISSIONS_CHANGE = "change";
     
     public static final String CONFIG_DR_ACTIVE_KIND = "disasterRecoveryActive";
     public static final String CONFIG_DR_ACTIVE_ID = "global";
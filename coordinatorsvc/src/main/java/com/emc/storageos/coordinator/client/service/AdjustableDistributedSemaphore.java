@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.coordinator.client.service;
+
+/**
+ * Distributed (counting) semaphore whose number of permits can be changed at runtime.
+ * The number of permits is shared by all clients of the semaphore in the cluster.
+ */
+public interface AdjustableDistributedSemaphore extends DistributedSemaphore {
+
+    /**
+     * @return the number of permits currently granted by the semaphore
+     */
+    public int getMaxPermits();
+
+    /**
+     * Changes the number of permits of the semaphore for all its clients. Leases already
+     * granted are not revoked when the number is lowered, new leases are only granted
+     * once the number of outstanding leases drops below the new limit.
+     * 
+     * @param maxPermits new number of permits, at least 1
+     * @return true if the change was applied, false if another client changed the number
+     *         of permits concurrently
+     */
+    public boolean setMaxPermits(int maxPermits) throws Exception;
+}
@@ -227,6 +227,20 @@ public interface CoordinatorClient {
     public DistributedSemaphore getSemaphore(String name, int maxPermits)
             throws CoordinatorException;
 
+    /**
+     * Retrieves/creates a distributed (counting) semaphore with given name whose number of
+     * permits can be changed at runtime for the whole cluster.
+     * 
+     * @param name Semaphore name
+     * @param initialPermits Number of permits if the semaphore doesn't exist yet
+     * 
+     * @return AdjustableDistributedSemaphore
+     * 
+     * @throws CoordinatorException
+     */
+    public AdjustableDistributedSemaphore getAdjustableSemaphore(String name, int initialPermits)
+            throws CoordinatorException;
+
     /**
      * Retrieves/creates a distributed mutex
      *
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.coordinator.client.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreV2;
+import org.apache.curator.framework.recipes.locks.Lease;
+import org.apache.curator.framework.recipes.shared.SharedCount;
+import org.apache.curator.framework.recipes.shared.VersionedValue;
+import org.apache.curator.utils.EnsurePath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.coordinator.client.service.AdjustableDistributedSemaphore;
+import com.emc.storageos.coordinator.common.impl.ZkConnection;
+import com.emc.storageos.coordinator.exceptions.CoordinatorException;
+
+/**
+ * ZK based distributed semaphore whose permits are kept in a shared count.
+ * Wrapper over the curator recipes InterProcessSemaphoreV2 and SharedCount, every client
+ * sees a change of the permit count as soon as the shared count node changes.
+ * Ensures SEMAPHORE namespace exists, for InterProcessSemaphoreV2.
+ */
+public class AdjustableDistributedSemaphoreImpl implements AdjustableDistributedSemaphore {
+
+    private static final Logger _logger = LoggerFactory.getLogger(AdjustableDistributedSemaphoreImpl.class);
+    private static final String LEASES_PATH = "/leases";
+    private static final String PERMITS_PATH = "/permits";
+    private InterProcessSemaphoreV2 _semaphore;
+    private SharedCount _permits;
+    private final CuratorFramework _zkClient;
+    private final String _semaphorePath;
+    private final int _initialPermits;
+
+    /**
+     * Constructor
+     * 
+     * @param conn ZK connection
+     * @param semaphorePath ZK path under which semaphore entrants and the permit count are managed
+     * @param initialPermits Number of permits the semaphore grants if no client has set it before
+     */
+    public AdjustableDistributedSemaphoreImpl(ZkConnection conn, String semaphorePath, int initialPermits) {
+        _zkClient = conn.curator();
+        _semaphorePath = semaphorePath;
+        _initialPermits = initialPermits;
+        _logger.debug("Created an adjustable distributed semaphore with initial permits: " + initialPermits);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (_semaphore != null) {
+            return;
+        }
+        try {
+            EnsurePath path = new EnsurePath(_semaphorePath);
+            path.ensure(_zkClient.getZookeeperClient());
+            _permits = new SharedCount(_zkClient, _semaphorePath + PERMITS_PATH, _initialPermits);
+            _permits.start();
+            _semaphore = new InterProcessSemaphoreV2(_zkClient, _semaphorePath + LEASES_PATH, _permits);
+        } catch (Exception e) {
+            throw CoordinatorException.fatals.failedToStartDistributedSemaphore(e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (_semaphore == null) {
+            return;
+        }
+        try {
+            _permits.close();
+        } catch (Exception e) {
+            _logger.warn("Problem while closing shared permit count of {}", _semaphorePath, e);
+        }
+        // start() creates new recipes over the closed permit count
+        _semaphore = null;
+        _permits = null;
+    }
+
+    @Override
+    public Lease acquireLease() throws Exception {
+        return _semaphore.acquire();
+    }
+
+    @Override
+    public Lease acquireLease(long waitTime, TimeUnit waitTimeUnit) throws Exception {
+        return _semaphore.acquire(waitTime, waitTimeUnit);
+    }
+
+    @Override
+    public void returnLease(Lease lease) throws Exception {
+        _semaphore.returnLease(lease);
+    }
+
+    @Override
+    public int getMaxPermits() {
+        return _permits.getCount();
+    }
+
+    @Override
+    public boolean setMaxPermits(int maxPermits) throws Exception {
+        if (maxPermits < 1) {
+            throw new IllegalArgumentException("Semaphore needs at least one permit");
+        }
+        VersionedValue<Integer> current = _permits.getVersionedValue();
+        if (current.getValue() == maxPermits) {
+            return true;
+        }
+        boolean updated = _permits.trySetCount(current, maxPermits);
+        if (updated) {
+            _logger.info("Changed permits of semaphore {} from {} to {}", _semaphorePath, current.getValue(), maxPermits);
+        }
+        return updated;
+    }
+}
@@ -75,6 +75,7 @@ import com.emc.storageos.coordinator.client.model.SiteState;
 import com.emc.storageos.coordinator.client.model.SoftwareVersion;
 import com.emc.storageos.coordinator.client.model.StorageDriversInfo;
 import com.emc.storageos.coordinator.client.model.VdcConfigVersion;
+import com.emc.storageos.coordinator.client.service.AdjustableDistributedSemaphore;
 import com.emc.storageos.coordinator.client.service.ConnectionStateListener;
 import com.emc.storageos.coordinator.client.service.CoordinatorClient;
 import com.emc.storageos.coordinator.client.service.DistributedAroundHook;
@@ -1075,6 +1076,15 @@ public class CoordinatorClientImpl implements CoordinatorClient {
         return semaphore;
     }
 
+    @Override
+    public AdjustableDistributedSemaphore getAdjustableSemaphore(String name, int initialPermits)
+            throws CoordinatorException {
+        AdjustableDistributedSemaphore semaphore = new AdjustableDistributedSemaphoreImpl(_zkConnection, String.format(
+                "%1$s/%2$s", ZkPath.ADJUSTABLE_SEMAPHORE.toString(), name), initialPermits);
+        semaphore.start();
+        return semaphore;
+    }
+
     @Override
     public InterProcessLock getLock(String name) throws CoordinatorException {
         return getLock(ZkPath.MUTEX.toString(), name);
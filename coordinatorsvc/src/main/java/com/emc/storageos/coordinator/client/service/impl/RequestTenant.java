@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.coordinator.client.service.impl;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.remoting.support.DefaultRemoteInvocationExecutor;
+import org.springframework.remoting.support.DefaultRemoteInvocationFactory;
+import org.springframework.remoting.support.RemoteInvocation;
+
+/**
+ * Tenant on whose behalf the current thread works.
+ *
+ * The API binds the tenant of the user to the thread serving the request. The tenant is carried
+ * with the RMI calls made by the thread, so that the controller can schedule the work of the
+ * call fairly across tenants without looking the tenant up.
+ */
+public class RequestTenant {
+    private static final String ATTRIBUTE = "tenant";
+
+    private static final ThreadLocal<String> current = new ThreadLocal<String>();
+
+    /**
+     * Binds a tenant to this thread
+     *
+     * @param tenant tenant URI, null to unbind
+     */
+    public static void set(String tenant) {
+        if (tenant == null) {
+            current.remove();
+        } else {
+            current.set(tenant);
+        }
+    }
+
+    /**
+     * @return tenant bound to this thread, null if none
+     */
+    public static String get() {
+        return current.get();
+    }
+
+    /**
+     * Adds the tenant of the calling thread to RMI calls
+     */
+    public static class InvocationFactory extends DefaultRemoteInvocationFactory {
+        @Override
+        public RemoteInvocation createRemoteInvocation(MethodInvocation methodInvocation) {
+            RemoteInvocation invocation = super.createRemoteInvocation(methodInvocation);
+            String tenant = current.get();
+            if (tenant != null) {
+                invocation.addAttribute(ATTRIBUTE, tenant);
+            }
+            return invocation;
+        }
+    }
+
+    /**
+     * Binds the tenant of an RMI call to the thread serving it
+     */
+    public static class InvocationExecutor extends DefaultRemoteInvocationExecutor {
+        @Override
+        public Object invoke(RemoteInvocation invocation, Object targetObject)
+                throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+            String previous = current.get();
+            set((String) invocation.getAttribute(ATTRIBUTE));
+            try {
+                return super.invoke(invocation, targetObject);
+            } finally {
+                set(previous);
+            }
+        }
+    }
+}
@@ -114,6 +114,7 @@ public class RmiInvocationHandler implements InvocationHandler {
         proxyFactory.setServiceUrl(endpoint.toString());
         proxyFactory.setRefreshStubOnConnectFailure(true);
         proxyFactory.setCacheStub(false);
+        proxyFactory.setRemoteInvocationFactory(new RequestTenant.InvocationFactory());
         proxyFactory.afterPropertiesSet();
         Object rmiProxy = proxyFactory.getObject();
         _proxyMap.putIfAbsent(endpoint, rmiProxy);
@@ -14,14 +14,17 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.emc.storageos.coordinator.exceptions.CoordinatorException;
 import com.emc.storageos.services.util.FileUtils;
+import com.emc.storageos.services.util.RequestCost;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.curator.drivers.TracerDriver;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.api.UnhandledErrorListener;
@@ -126,6 +129,8 @@ public class ZkConnection {
                     _logger.info("Current connection state {}", newState);
                 }
             });
+            _zkConnection.getZookeeperClient().setTracerDriver(
+                    new RequestCostTracerDriver(_zkConnection.getZookeeperClient().getTracerDriver()));
             if (FileUtils.exists(siteIdFile)) {
                 siteId = new String(FileUtils.readDataFromFile(siteIdFile));
                 siteId = siteId.trim();
@@ -136,6 +141,32 @@ public class ZkConnection {
         }
     }
 
+    /**
+     * Adds the operations curator runs in the foreground to the RequestCost of the calling thread,
+     * then hands them to the default driver
+     */
+    private static class RequestCostTracerDriver implements TracerDriver {
+        private final TracerDriver driver;
+
+        RequestCostTracerDriver(TracerDriver driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        public void addTrace(String name, long time, TimeUnit unit) {
+            RequestCost cost = RequestCost.current();
+            if (cost != null) {
+                cost.addCoordinatorOp(unit.toNanos(time));
+            }
+            driver.addTrace(name, time, unit);
+        }
+
+        @Override
+        public void addCount(String name, int increment) {
+            driver.addCount(name, increment);
+        }
+    }
+
     /**
      * Connect to ZK cluster. As long quorum of nodes are available,
      * client can talk to a cluster. If connection drop, this implementation will
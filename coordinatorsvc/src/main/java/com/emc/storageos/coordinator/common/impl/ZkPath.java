@@ -14,6 +14,7 @@ public enum ZkPath {
     LOCKQUEUE("/lockqueue"),
     WORKPOOL("/workpool"),
     SEMAPHORE("/semaphore"),
+    ADJUSTABLE_SEMAPHORE("/adjustablesemaphore"),
     MUTEX("/mutex"),
     PERSISTENTLOCK("/persistentlock"),
     CONFIG("/config"),
@@ -5,6 +5,7 @@
 package com.emc.storageos.db.client.constraint;
 
 import com.emc.storageos.db.client.constraint.impl.AggregatedConstraintImpl;
+import com.emc.storageos.db.client.impl.AggregatedChangeLog;
 import com.emc.storageos.db.client.impl.DataObjectType;
 import com.emc.storageos.db.client.impl.TypeMap;
 import com.emc.storageos.db.client.model.DataObject;
@@ -51,5 +52,26 @@ public interface AggregatedConstraint extends Constraint {
             return new AggregatedConstraintImpl(clazz,
                     doType.getColumnField(aggregatedField));
         }
+
+        /**
+         * query to get the changes of an aggregated field logged in one hour and shard of the
+         * aggregated change log, and the corresponding differences of values
+         * 
+         * @param clazz type of objects to query
+         * @param aggregatedField - aggregated field of an object that is being aggregated.
+         * @param bucket hour bucket of the changes, see AggregatedChangeLog.getBucket
+         * @param shard shard of the change log
+         * @return
+         */
+        public static AggregatedConstraint getAggregationChangesConstraint(
+                Class<? extends DataObject> clazz,
+                String aggregatedField,
+                long bucket,
+                int shard) {
+            DataObjectType doType = TypeMap.getDoType(clazz);
+            return new AggregatedConstraintImpl(clazz,
+                    doType.getColumnField(aggregatedField),
+                    AggregatedChangeLog.getRowKey(clazz, bucket, shard));
+        }
     }
 }
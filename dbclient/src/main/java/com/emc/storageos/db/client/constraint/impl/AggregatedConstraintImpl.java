@@ -48,6 +48,22 @@ public class AggregatedConstraintImpl extends ConstraintImpl<IndexColumnName> im
         rowKey = String.format("%s:%s", clazz.getSimpleName(), groupByValue);
     }
 
+    /*
+     * Constraint for listing the entries of an index row given by its key,
+     * such as a row of the aggregated change log.
+     */
+    public AggregatedConstraintImpl(Class<? extends DataObject> clazz, ColumnField field, String rowKey) {
+
+        super(clazz, field);
+
+        cf = field.getIndexCF();
+        entryType = clazz;
+        this.field = field;
+        fieldName = field.getName();
+
+        this.rowKey = rowKey;
+    }
+
     public AggregatedConstraintImpl(Class<? extends DataObject> clazz, ColumnField field) {
 
         super(clazz, field);
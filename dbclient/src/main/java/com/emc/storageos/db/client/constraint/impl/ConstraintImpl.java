@@ -6,8 +6,10 @@
 package com.emc.storageos.db.client.constraint.impl;
 
 import java.net.URI;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -210,14 +212,14 @@ public abstract class ConstraintImpl <T extends CompositeIndexColumnName> implem
     protected <T1> void queryOnePageWithAutoPaginate(RowQuery<String, T> query, final QueryResult<T1> result)
             throws ConnectionException {
         boolean start = false;
-        List<T1> ids = new ArrayList();
-        int count = 0;
+        // keeps the order of the hits, with constant time lookups of duplicates
+        Set<T1> ids = new LinkedHashSet<>();
 
         query.autoPaginate(true);
 
         ColumnList<T> columns;
 
-        while ((count < pageCount)) {
+        while (ids.size() < pageCount) {
             columns = query.execute().getResult();
 
             if (columns.isEmpty()) {
@@ -234,10 +236,12 @@ public abstract class ConstraintImpl <T extends CompositeIndexColumnName> implem
 
                 if (start) {
                     T1 obj = createQueryHit(result, col);
-                    if (obj != null && !ids.contains(obj)) {
+                    if (obj != null) {
                         ids.add(obj);
                     }
-                    count++;
+                    if (ids.size() >= pageCount) {
+                        break; // the rest of the columns are left for the next page
+                    }
                 }
             }
         }
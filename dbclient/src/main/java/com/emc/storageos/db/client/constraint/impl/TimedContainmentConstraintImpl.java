@@ -13,10 +13,14 @@ import com.emc.storageos.db.client.model.DataObject;
 import com.netflix.astyanax.Keyspace;
 import com.netflix.astyanax.connectionpool.exceptions.ConnectionException;
 import com.netflix.astyanax.model.Column;
+import com.netflix.astyanax.model.ColumnList;
 import com.netflix.astyanax.query.RowQuery;
+import com.netflix.astyanax.serializers.CompositeRangeBuilder;
 import com.netflix.astyanax.util.TimeUUIDUtils;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A containment constraint that returns only those elements from the index that were added between startTime and endTime
@@ -31,6 +35,7 @@ public class TimedContainmentConstraintImpl extends ConstraintImpl<IndexColumnNa
     private Class<? extends DataObject> entryType;
     private final ColumnField field;
     private Keyspace keyspace;
+    private boolean paged;
 
     public TimedContainmentConstraintImpl(URI indexKey, long startTimeMicros, long endTimeMicros, Class<? extends DataObject> entryType,
             ColumnField field) {
@@ -51,7 +56,24 @@ public class TimedContainmentConstraintImpl extends ConstraintImpl<IndexColumnNa
         this.keyspace = keyspace;
     }
 
+    /**
+     * Returns at most pageCount entries of the time window, in the order of their ids, starting
+     * after the given id. Only supported by relation indexes, whose columns are ordered by id.
+     */
+    @Override
+    public void setStartId(URI startId) {
+        if (!(field.getIndex() instanceof RelationDbIndex)) {
+            throw new IllegalArgumentException("Index of field " + field.getName() + " is not ordered by id");
+        }
+        super.setStartId(startId);
+        paged = true;
+    }
+
     protected <T> void queryOnePage(final QueryResult<T> result) throws ConnectionException {
+        if (paged) {
+            queryPage(result);
+            return;
+        }
         RowQuery<String, IndexColumnName> query = keyspace.prepareQuery(field.getIndexCF())
                 .getKey(indexKey.toString())
                 .withColumnRange(
@@ -65,6 +87,65 @@ public class TimedContainmentConstraintImpl extends ConstraintImpl<IndexColumnNa
         result.setResult(it);
     }
 
+    /**
+     * Reads the columns from the one following startId, seeking past the columns already read,
+     * until pageCount entries are in the time window or the last column is read
+     */
+    private <T> void queryPage(final QueryResult<T> result) throws ConnectionException {
+        String prefix = entryType.getSimpleName();
+        List<T> hits = new ArrayList<>(pageCount);
+
+        ColumnList<IndexColumnName> columns = queryColumns(indexSerializer.buildRange()
+                .greaterThanEquals(prefix)
+                .lessThanEquals(prefix)
+                .reverse() // last column comes first
+                .limit(1));
+        if (columns.isEmpty()) {
+            result.setResult(hits.iterator());
+            return;
+        }
+        String endId = columns.getColumnByIndex(0).getName().getTwo();
+
+        String lastId = startId;
+        String lastHitId = null;
+        while (hits.size() < pageCount && !endId.equals(lastId)) {
+            CompositeRangeBuilder range = indexSerializer.buildRange();
+            if (lastId == null) {
+                range.greaterThanEquals(prefix)
+                        .lessThanEquals(prefix);
+            } else {
+                range.withPrefix(prefix)
+                        .greaterThan(lastId)
+                        .lessThanEquals(endId);
+            }
+            columns = queryColumns(range.limit(pageCount));
+            if (columns.isEmpty()) {
+                break;
+            }
+
+            for (Column<IndexColumnName> column : columns) {
+                lastId = column.getName().getTwo();
+                // an entry indexed more than once is only returned once
+                if (isInTimeWindow(column) && !lastId.equals(lastHitId)) {
+                    hits.add(createQueryHit(result, column));
+                    lastHitId = lastId;
+                    if (hits.size() >= pageCount) {
+                        break; // the rest of the columns are left for the next page
+                    }
+                }
+            }
+        }
+        result.setResult(hits.iterator());
+    }
+
+    private ColumnList<IndexColumnName> queryColumns(CompositeRangeBuilder range) throws ConnectionException {
+        return keyspace.prepareQuery(field.getIndexCF())
+                .getKey(indexKey.toString())
+                .withColumnRange(range)
+                .execute()
+                .getResult();
+    }
+
     @Override
     protected RowQuery<String, IndexColumnName> genQuery() {
         RowQuery<String, IndexColumnName> query = keyspace
@@ -89,20 +170,24 @@ public class TimedContainmentConstraintImpl extends ConstraintImpl<IndexColumnNa
 
             @Override
             public boolean filter(Column<IndexColumnName> column) {
-                long columnTime = TimeUUIDUtils.getMicrosTimeFromUUID(column.getName().getTimeUUID());
-                // Filtering on startTime, startTime = -1 for no filtering
-                if (startTimeMicros > 0 && columnTime < startTimeMicros) {
-                    return false;
-                }
-                // Filtering on endTime, endTime = -1 for no filtering
-                if (endTimeMicros > 0 && columnTime > endTimeMicros) {
-                    return false;
-                }
-                return true;
+                return isInTimeWindow(column);
             }
         };
     }
 
+    private boolean isInTimeWindow(Column<IndexColumnName> column) {
+        long columnTime = TimeUUIDUtils.getMicrosTimeFromUUID(column.getName().getTimeUUID());
+        // Filtering on startTime, startTime = -1 for no filtering
+        if (startTimeMicros > 0 && columnTime < startTimeMicros) {
+            return false;
+        }
+        // Filtering on endTime, endTime = -1 for no filtering
+        if (endTimeMicros > 0 && columnTime > endTimeMicros) {
+            return false;
+        }
+        return true;
+    }
+
     @Override
     protected <T> T createQueryHit(QueryResult<T> result, Column<IndexColumnName> column) {
         return result.createQueryHit(getURI(column), column.getName().getThree(), column.getName().getTimeUUID());
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.impl;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.emc.storageos.db.client.model.Bucket;
+import com.emc.storageos.db.client.model.DataObject;
+import com.emc.storageos.db.client.model.FileShare;
+import com.emc.storageos.db.client.model.Volume;
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.model.Column;
+import com.netflix.astyanax.model.Row;
+import com.netflix.astyanax.util.TimeUUIDUtils;
+
+/**
+ * Log of the changes of aggregated fields, used to keep their totals up to date without
+ * aggregating the whole aggregated index, which holds one column per object.
+ *
+ * When objects are created, updated or removed, the changes of their tracked fields are appended
+ * to the aggregated index CF: the first value of the field of an object is logged as ADDED, the
+ * difference with the previous value as CHANGED, and the negated value of an object marked
+ * inactive or removed as REMOVED. A write that sets the value the field already had logs nothing,
+ * and so does any write to an inactive object, which is no longer aggregated.
+ *
+ * The changes are keyed by the hour they were made, so that the changes of a time window are read
+ * from the rows of its hours only, and expired changes are in rows that are no longer read. The
+ * changes of an hour are spread over SHARD_COUNT rows picked by object id, so that writers do not
+ * all append to the same row. A change is named after its kind, the object id and a time UUID,
+ * that of the new value of the field for an update, so that an update is logged once even if
+ * several writers see it.
+ *
+ * Changes expire after CHANGE_TTL. The owner of the totals adds the changes logged since its last
+ * pass (see CustomQueryUtility.aggregatedFieldChanges) and reconciles its totals with a full
+ * aggregation from time to time.
+ */
+public class AggregatedChangeLog {
+    public static final int SHARD_COUNT = 16;
+    public static final int CHANGE_TTL = (int) TimeUnit.DAYS.toSeconds(3);
+    public static final long BUCKET_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    public static final String ADDED = "added";
+    public static final String CHANGED = "changed";
+    public static final String REMOVED = "removed";
+
+    private static final String CHANGES_ROW = ":changes:";
+
+    private static final Map<Class<? extends DataObject>, String[]> TRACKED_FIELDS = new HashMap<>();
+    static {
+        TRACKED_FIELDS.put(Volume.class, new String[] { "allocatedCapacity" });
+        TRACKED_FIELDS.put(FileShare.class, new String[] { "usedCapacity" });
+        TRACKED_FIELDS.put(Bucket.class, new String[] { "hardQuota" });
+    }
+
+    private AggregatedChangeLog() {
+    }
+
+    /**
+     * @param clazz class of the objects
+     * @return true if changes of some fields of the class are logged
+     */
+    public static boolean isTracked(Class<? extends DataObject> clazz) {
+        return TRACKED_FIELDS.containsKey(clazz);
+    }
+
+    /**
+     * @param micros time in microseconds
+     * @return the hour bucket of the changes made at that time
+     */
+    public static long getBucket(long micros) {
+        return micros / BUCKET_MICROS;
+    }
+
+    /**
+     * @param clazz class of the objects
+     * @param bucket hour bucket of the changes, see getBucket
+     * @param shard shard of the changes, from 0 to SHARD_COUNT - 1
+     * @return key of the index row holding the changes
+     */
+    public static String getRowKey(Class<? extends DataObject> clazz, long bucket, int shard) {
+        return String.format("%s%s%d:%d", clazz.getSimpleName(), CHANGES_ROW, bucket, shard);
+    }
+
+    /**
+     * @param rowKey key of a row of an aggregated index CF
+     * @return true if the row holds logged changes rather than index entries of objects
+     */
+    public static boolean isChangeRow(String rowKey) {
+        return rowKey.contains(CHANGES_ROW);
+    }
+
+    /**
+     * @param changeId id of a change returned by a query of the changes
+     * @return ADDED, CHANGED or REMOVED
+     */
+    public static String getChangeKind(URI changeId) {
+        String id = changeId.toString();
+        return id.substring(0, id.indexOf(':'));
+    }
+
+    /**
+     * @param changeId id of a change returned by a query of the changes
+     * @return time the change was made, in microseconds
+     */
+    public static long getChangeTimeMicros(URI changeId) {
+        String id = changeId.toString();
+        return TimeUUIDUtils.getMicrosTimeFromUUID(UUID.fromString(id.substring(id.lastIndexOf(':') + 1)));
+    }
+
+    /**
+     * Logs the changes of the tracked fields made by a write
+     *
+     * @param ks keyspace of the objects
+     * @param doType type of the objects
+     * @param rows rows of the objects, with all their columns, read after the write
+     * @param writeStartMicros time the write started; field values written before are not logged
+     * @param retryWithLocalQuorum retry a failed write with LOCAL_QUORUM
+     */
+    static void logChanges(Keyspace ks, DataObjectType doType, Iterable<Row<String, CompositeColumnName>> rows,
+            long writeStartMicros, boolean retryWithLocalQuorum) {
+        String[] fieldNames = TRACKED_FIELDS.get(doType.getDataObjectClass());
+        if (fieldNames == null) {
+            return;
+        }
+        RowMutator mutator = new RowMutator(ks, retryWithLocalQuorum);
+        boolean logged = false;
+        for (Row<String, CompositeColumnName> row : rows) {
+            Column<CompositeColumnName>[] inactive = getNewestColumns(row, DataObject.INACTIVE_FIELD_NAME);
+            boolean deactivated = false;
+            if (isTrue(inactive[0])) {
+                deactivated = getMicros(inactive[0]) >= writeStartMicros && !isTrue(inactive[1]);
+                if (!deactivated) {
+                    // inactive before this write, its removal is already logged
+                    continue;
+                }
+            }
+            for (String fieldName : fieldNames) {
+                Column<CompositeColumnName>[] columns = getNewestColumns(row, fieldName);
+                Column<CompositeColumnName> newest = columns[0];
+                Column<CompositeColumnName> previous = columns[1];
+                ColumnField field = doType.getColumnField(fieldName);
+                if (deactivated) {
+                    // the value aggregated before this write is no longer aggregated
+                    Column<CompositeColumnName> aggregated = newest != null && getMicros(newest) >= writeStartMicros ? previous : newest;
+                    if (aggregated != null) {
+                        addChange(mutator, doType, field, REMOVED, row.getKey(), inactive[0].getName().getTimeUUID(),
+                                -getValue(aggregated, field));
+                        logged = true;
+                    }
+                    continue;
+                }
+                if (newest == null || getMicros(newest) < writeStartMicros) {
+                    // not written by this write
+                    continue;
+                }
+                long value = getValue(newest, field);
+                String kind = ADDED;
+                if (previous != null) {
+                    kind = CHANGED;
+                    value -= getValue(previous, field);
+                    if (value == 0) {
+                        continue;
+                    }
+                }
+                addChange(mutator, doType, field, kind, row.getKey(), newest.getName().getTimeUUID(), value);
+                logged = true;
+            }
+        }
+        if (logged) {
+            mutator.execute();
+        }
+    }
+
+    /**
+     * Logs the values of the tracked fields of objects created without reading them back
+     *
+     * @param ks keyspace of the objects
+     * @param doType type of the objects
+     * @param objects objects created
+     * @param retryWithLocalQuorum retry a failed write with LOCAL_QUORUM
+     */
+    static void logAdditions(Keyspace ks, DataObjectType doType, Collection<? extends DataObject> objects,
+            boolean retryWithLocalQuorum) {
+        String[] fieldNames = TRACKED_FIELDS.get(doType.getDataObjectClass());
+        if (fieldNames == null) {
+            return;
+        }
+        RowMutator mutator = new RowMutator(ks, retryWithLocalQuorum);
+        boolean logged = false;
+        for (DataObject object : objects) {
+            for (String fieldName : fieldNames) {
+                ColumnField field = doType.getColumnField(fieldName);
+                Object value = ColumnField.getFieldValue(field, object);
+                if (!object.isChanged(fieldName) || !(value instanceof Number)) {
+                    // not aggregated
+                    continue;
+                }
+                addChange(mutator, doType, field, ADDED, object.getId().toString(), TimeUUIDUtils.getUniqueTimeUUIDinMicros(),
+                        ((Number) value).longValue());
+                logged = true;
+            }
+        }
+        if (logged) {
+            mutator.execute();
+        }
+    }
+
+    /**
+     * Logs the removal of the values of the tracked fields of objects about to be removed. Objects
+     * already marked inactive are skipped, their removal was logged when they were marked.
+     *
+     * @param ks keyspace of the objects
+     * @param doType type of the objects
+     * @param rows rows of the objects, with all their columns
+     * @param retryWithLocalQuorum retry a failed write with LOCAL_QUORUM
+     */
+    static void logRemovals(Keyspace ks, DataObjectType doType, List<Row<String, CompositeColumnName>> rows,
+            boolean retryWithLocalQuorum) {
+        String[] fieldNames = TRACKED_FIELDS.get(doType.getDataObjectClass());
+        if (fieldNames == null) {
+            return;
+        }
+        RowMutator mutator = new RowMutator(ks, retryWithLocalQuorum);
+        boolean logged = false;
+        for (Row<String, CompositeColumnName> row : rows) {
+            if (isTrue(getNewestColumns(row, DataObject.INACTIVE_FIELD_NAME)[0])) {
+                continue;
+            }
+            for (String fieldName : fieldNames) {
+                Column<CompositeColumnName> newest = getNewestColumns(row, fieldName)[0];
+                if (newest == null) {
+                    // not aggregated
+                    continue;
+                }
+                ColumnField field = doType.getColumnField(fieldName);
+                addChange(mutator, doType, field, REMOVED, row.getKey(), TimeUUIDUtils.getUniqueTimeUUIDinMicros(),
+                        -getValue(newest, field));
+                logged = true;
+            }
+        }
+        if (logged) {
+            mutator.execute();
+        }
+    }
+
+    private static void addChange(RowMutator mutator, DataObjectType doType, ColumnField field, String kind,
+            String objectId, UUID time, long value) {
+        long bucket = getBucket(TimeUUIDUtils.getMicrosTimeFromUUID(time));
+        int shard = Math.abs(objectId.hashCode() % SHARD_COUNT);
+        IndexColumnName change = new IndexColumnName(field.getName(), kind + ":" + objectId + ":" + time, (UUID) null);
+        ColumnValue.setColumn(mutator.getIndexColumnList(field.getIndexCF(),
+                getRowKey(doType.getDataObjectClass(), bucket, shard)), change, value, CHANGE_TTL);
+    }
+
+    /**
+     * @return the newest and the previous column of the field in the row, null if none
+     */
+    @SuppressWarnings("unchecked")
+    private static Column<CompositeColumnName>[] getNewestColumns(Row<String, CompositeColumnName> row, String fieldName) {
+        Column<CompositeColumnName>[] columns = new Column[2];
+        for (Column<CompositeColumnName> column : row.getColumns()) {
+            if (!fieldName.equals(column.getName().getOne()) || column.getName().getTimeUUID() == null) {
+                continue;
+            }
+            if (columns[0] == null || getMicros(column) > getMicros(columns[0])) {
+                columns[1] = columns[0];
+                columns[0] = column;
+            } else if (columns[1] == null || getMicros(column) > getMicros(columns[1])) {
+                columns[1] = column;
+            }
+        }
+        return columns;
+    }
+
+    private static boolean isTrue(Column<CompositeColumnName> column) {
+        return column != null && column.hasValue() && column.getBooleanValue();
+    }
+
+    private static long getMicros(Column<CompositeColumnName> column) {
+        return TimeUUIDUtils.getMicrosTimeFromUUID(column.getName().getTimeUUID());
+    }
+
+    private static long getValue(Column<CompositeColumnName> column, ColumnField field) {
+        if (!column.hasValue()) {
+            return 0;
+        }
+        Object value = ColumnValue.getPrimitiveColumnValue(column, field.getPropertyDescriptor());
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
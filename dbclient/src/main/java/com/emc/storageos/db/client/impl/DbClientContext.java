@@ -27,6 +27,7 @@ import com.emc.storageos.coordinator.client.model.SiteState;
 import com.emc.storageos.coordinator.client.service.DrUtil;
 import com.emc.storageos.db.exceptions.DatabaseException;
 import com.emc.storageos.services.util.NamedScheduledThreadPoolExecutor;
+import com.emc.storageos.services.util.RequestCost;
 import com.netflix.astyanax.AstyanaxContext;
 import com.netflix.astyanax.CassandraOperationCategory;
 import com.netflix.astyanax.CassandraOperationTracer;
@@ -37,6 +38,7 @@ import com.netflix.astyanax.KeyspaceTracerFactory;
 import com.netflix.astyanax.connectionpool.ConnectionContext;
 import com.netflix.astyanax.connectionpool.ConnectionPool;
 import com.netflix.astyanax.connectionpool.Host;
+import com.netflix.astyanax.connectionpool.NodeDiscoveryType;
 import com.netflix.astyanax.connectionpool.SSLConnectionContext;
 import com.netflix.astyanax.connectionpool.exceptions.ConnectionException;
 import com.netflix.astyanax.connectionpool.impl.ConnectionPoolConfigurationImpl;
@@ -89,6 +91,7 @@ public class DbClientContext {
     private RetryPolicy retryPolicy = new QueryRetryPolicy(MAX_QUERY_RETRY, QUERY_RETRY_SLEEP_SECONDS);
     private String keyspaceName = LOCAL_KEYSPACE_NAME;
     private String clusterName = LOCAL_CLUSTER_NAME;
+    private ConnectionPoolType connectionPoolType = ConnectionPoolType.ROUND_ROBIN;
 
     private AstyanaxContext<Keyspace> keyspaceContext;
     private Keyspace keyspace;
@@ -193,6 +196,22 @@ public class DbClientContext {
         this.maxConnectionsPerHost = maxConnectionsPerHost;
     }
 
+    /**
+     * Connection pool type, ROUND_ROBIN by default. With TOKEN_AWARE the token ranges of the hosts
+     * are discovered with describe_ring and each query is sent to a replica of its first row key,
+     * which saves a hop for the partitions of a parallel multi-get.
+     *
+     * @param connectionPoolType name of a ConnectionPoolType, ROUND_ROBIN if empty or unknown
+     */
+    public void setConnectionPoolType(String connectionPoolType) {
+        try {
+            this.connectionPoolType = ConnectionPoolType.valueOf(connectionPoolType.trim());
+        } catch (Exception e) {
+            log.warn("Unknown connection pool type '{}', using {}", connectionPoolType, ConnectionPoolType.ROUND_ROBIN);
+            this.connectionPoolType = ConnectionPoolType.ROUND_ROBIN;
+        }
+    }
+
     public void setSvcListPoolIntervalSec(int svcListPoolIntervalSec) {
         this.svcListPoolIntervalSec = svcListPoolIntervalSec;
     }
@@ -270,17 +289,23 @@ public class DbClientContext {
             cfg.setSSLConnectionContext(sslContext);
         }
 
+        AstyanaxConfigurationImpl astyanaxConfig = new AstyanaxConfigurationImpl().setConnectionPoolType(connectionPoolType)
+                .setDiscoveryDelayInSeconds(svcListPoolIntervalSec)
+                .setDefaultReadConsistencyLevel(readCL)
+                .setDefaultWriteConsistencyLevel(writeCL)
+                .setTargetCassandraVersion("2.0").setPartitioners(partitioners)
+                .setRetryPolicy(retryPolicy);
+        if (connectionPoolType == ConnectionPoolType.TOKEN_AWARE) {
+            // the token aware pool needs the token ranges of the hosts, the ring is filtered by the host supplier
+            astyanaxConfig.setDiscoveryType(NodeDiscoveryType.TOKEN_AWARE);
+        }
+        log.info("Connection pool type of {} is {}", keyspaceName, connectionPoolType);
+
         // TODO revisit it to see if we need set different retry policy, timeout, discovery delay etc for geodb
         keyspaceContext = new AstyanaxContext.Builder().withHostSupplier(hostSupplier)
                 .forCluster(clusterName)
                 .forKeyspace(keyspaceName)
-                .withAstyanaxConfiguration(
-                        new AstyanaxConfigurationImpl().setConnectionPoolType(ConnectionPoolType.ROUND_ROBIN)
-                                .setDiscoveryDelayInSeconds(svcListPoolIntervalSec)
-                                .setDefaultReadConsistencyLevel(readCL)
-                                .setDefaultWriteConsistencyLevel(writeCL)
-                                .setTargetCassandraVersion("2.0").setPartitioners(partitioners)
-                                .setRetryPolicy(retryPolicy))
+                .withAstyanaxConfiguration(astyanaxConfig)
                 .withConnectionPoolConfiguration(cfg)
                 .withTracerFactory(new KeyspaceTracerFactoryImpl())
                 .withConnectionPoolMonitor(new CustomConnectionPoolMonitor(monitorIntervalSecs))
@@ -638,12 +663,24 @@ public class DbClientContext {
         @Override
         public CassandraOperationTracer newTracer(CassandraOperationType type) {
             increaseCountByType(type);
-            return EmptyKeyspaceTracer.getInstance();
+            return newRequestCostTracer(type);
         }
 
         @Override
         public CassandraOperationTracer newTracer(CassandraOperationType type, ColumnFamily<?, ?> columnFamily) {
             increaseCountByType(type);
+            return newRequestCostTracer(type);
+        }
+
+        private CassandraOperationTracer newRequestCostTracer(CassandraOperationType type) {
+            RequestCost cost = RequestCost.current();
+            if (cost == null) {
+                return EmptyKeyspaceTracer.getInstance();
+            } else if (type.getCategory() == CassandraOperationCategory.READ) {
+                return new RequestCostTracer(cost, false);
+            } else if (type.getCategory() == CassandraOperationCategory.WRITE) {
+                return new RequestCostTracer(cost, true);
+            }
             return EmptyKeyspaceTracer.getInstance();
         }
         
@@ -657,4 +694,44 @@ public class DbClientContext {
             }
         }
     }
+
+    /**
+     * Adds an operation run on the keyspace to the RequestCost of the thread starting it, failed
+     * attempts and retries included
+     */
+    private static class RequestCostTracer implements CassandraOperationTracer {
+        private final RequestCost cost;
+        private final boolean write;
+        private long startNanos;
+
+        RequestCostTracer(RequestCost cost, boolean write) {
+            this.cost = cost;
+            this.write = write;
+        }
+
+        @Override
+        public CassandraOperationTracer start() {
+            startNanos = System.nanoTime();
+            return this;
+        }
+
+        @Override
+        public void success() {
+            addToCost();
+        }
+
+        @Override
+        public void failure(ConnectionException e) {
+            addToCost();
+        }
+
+        private void addToCost() {
+            long nanos = System.nanoTime() - startNanos;
+            if (write) {
+                cost.addDbWrite(nanos);
+            } else {
+                cost.addDbRead(nanos);
+            }
+        }
+    }
 }
@@ -15,6 +15,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.emc.storageos.services.util.NamedScheduledThreadPoolExecutor;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -135,6 +136,30 @@ public class DbClientImpl implements DbClient {
     private int logInterval = 1800; //seconds
     private int logCount = 5;
     private KeyspaceTracerFactoryImpl tracer;
+    private final DbQueryTracer queryTracer = new DbQueryTracer();
+
+    // read-ahead of the iterative queries, see PrefetchingQueryResultIterator
+    private static final int DEFAULT_ITERATIVE_QUERY_BATCH_SIZE = 100;
+    private static final int DEFAULT_ITERATIVE_QUERY_PREFETCH_DEPTH = 2;
+    private static final int DEFAULT_ITERATIVE_QUERY_MAX_PREFETCH_OBJECTS = 1000;
+    private static final int DEFAULT_ITERATIVE_QUERY_PREFETCH_THREADS = 8;
+    private static final int ITERATIVE_QUERY_PREFETCH_QUEUE_SIZE = 64;
+    private int iterativeQueryBatchSize = DEFAULT_ITERATIVE_QUERY_BATCH_SIZE;
+    private int iterativeQueryPrefetchDepth = DEFAULT_ITERATIVE_QUERY_PREFETCH_DEPTH;
+    private int iterativeQueryMaxPrefetchObjects = DEFAULT_ITERATIVE_QUERY_MAX_PREFETCH_OBJECTS;
+    private int iterativeQueryPrefetchThreads = DEFAULT_ITERATIVE_QUERY_PREFETCH_THREADS;
+    private ExecutorService prefetchExecutor;
+
+    // parallel multi-get of large id sets, see TokenRangePartitioner
+    private static final int DEFAULT_MULTI_GET_PARTITION_SIZE = 100;
+    private static final int DEFAULT_MULTI_GET_CONCURRENCY = 4;
+    private static final int DEFAULT_MULTI_GET_THREADS = 8;
+    private static final int MULTI_GET_QUEUE_SIZE = 64;
+    private int multiGetPartitionSize = DEFAULT_MULTI_GET_PARTITION_SIZE;
+    private int multiGetConcurrency = DEFAULT_MULTI_GET_CONCURRENCY;
+    private int multiGetThreads = DEFAULT_MULTI_GET_THREADS;
+    private ExecutorService multiGetExecutor;
+    private final TokenRangePartitioner tokenRangePartitioner = new TokenRangePartitioner();
 
     public String getGeoVersion() {
         if (this._geoVersion == null) {
@@ -167,6 +192,94 @@ public class DbClientImpl implements DbClient {
         this.logInterval = logInterval;
     }
 
+    /**
+     * Sets the fraction of DB calls whose statistics are kept per caller, 0 to disable
+     *
+     * @param sampleRate sample rate between 0 and 1
+     */
+    public void setQueryTraceSampleRate(double sampleRate) {
+        queryTracer.setSampleRate(sampleRate);
+    }
+
+    /**
+     * Sets the latency above which a DB call is written to the slow query log
+     *
+     * @param thresholdMillis threshold in milliseconds
+     */
+    public void setSlowQueryThresholdMillis(long thresholdMillis) {
+        queryTracer.setSlowQueryThresholdMillis(thresholdMillis);
+    }
+
+    public DbQueryTracer getQueryTracer() {
+        return queryTracer;
+    }
+
+    /**
+     * Sets the number of ids queried at a time by the iterative queries
+     *
+     * @param batchSize number of ids per query
+     */
+    public void setIterativeQueryBatchSize(int batchSize) {
+        iterativeQueryBatchSize = batchSize;
+    }
+
+    /**
+     * Sets how many batches the iterative queries read ahead of the consumer, 0 to disable read-ahead
+     *
+     * @param prefetchDepth number of batches
+     */
+    public void setIterativeQueryPrefetchDepth(int prefetchDepth) {
+        iterativeQueryPrefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Sets the max number of objects an iterative query holds in read-ahead batches, the read-ahead
+     * depth is reduced for large batch sizes
+     *
+     * @param maxPrefetchObjects max number of objects
+     */
+    public void setIterativeQueryMaxPrefetchObjects(int maxPrefetchObjects) {
+        iterativeQueryMaxPrefetchObjects = maxPrefetchObjects;
+    }
+
+    /**
+     * Sets the number of threads reading ahead for all iterative queries of this client
+     *
+     * @param prefetchThreads number of threads
+     */
+    public void setIterativeQueryPrefetchThreads(int prefetchThreads) {
+        iterativeQueryPrefetchThreads = prefetchThreads;
+    }
+
+    /**
+     * Sets the max number of ids per query of a multi-get, queryObject with more ids is split
+     * into partitions by replicas and the partitions are queried in parallel
+     *
+     * @param partitionSize max number of ids per query
+     */
+    public void setMultiGetPartitionSize(int partitionSize) {
+        multiGetPartitionSize = partitionSize;
+    }
+
+    /**
+     * Sets the max number of partitions of a multi-get queried at a time, 1 or less to query
+     * all ids at once
+     *
+     * @param concurrency max number of partitions queried at a time
+     */
+    public void setMultiGetConcurrency(int concurrency) {
+        multiGetConcurrency = concurrency;
+    }
+
+    /**
+     * Sets the number of threads querying multi-get partitions for all queries of this client
+     *
+     * @param threads number of threads
+     */
+    public void setMultiGetThreads(int threads) {
+        multiGetThreads = threads;
+    }
+
     /**
      * customize the cluster name
      *
@@ -265,6 +378,19 @@ public class DbClientImpl implements DbClient {
         _indexCleaner = new IndexCleaner();
 
         tracer = new KeyspaceTracerFactoryImpl();
+        queryTracer.register();
+
+        if (iterativeQueryPrefetchDepth > 0) {
+            // bounded queue: when all read-ahead slots are taken, batches are read by the consumer thread
+            prefetchExecutor = new NamedThreadPoolExecutor("DbClientPrefetch", iterativeQueryPrefetchThreads,
+                    iterativeQueryPrefetchThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(ITERATIVE_QUERY_PREFETCH_QUEUE_SIZE));
+        }
+        if (multiGetConcurrency > 1) {
+            // separate from the read-ahead pool, read-ahead batches run multi-gets themselves
+            multiGetExecutor = new NamedThreadPoolExecutor("DbClientMultiGet", multiGetThreads, multiGetThreads,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MULTI_GET_QUEUE_SIZE));
+        }
 
         initDone = true;
     }
@@ -371,6 +497,15 @@ public class DbClientImpl implements DbClient {
 
     @Override
     public synchronized void stop() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            prefetchExecutor = null;
+        }
+        if (multiGetExecutor != null) {
+            multiGetExecutor.shutdownNow();
+            multiGetExecutor = null;
+        }
+
         if (localContext != null) {
             localContext.stop();
             localContext = null;
@@ -442,27 +577,43 @@ public class DbClientImpl implements DbClient {
         }
 
         Keyspace ks = getKeyspace(clazz);
-        Rows<String, CompositeColumnName> rows = queryRowsWithAllColumns(ks, ids, doType.getCF());
-        List<T> objects = new ArrayList<T>(rows.size());
+        DbQueryTracer.Trace trace = queryTracer.start("queryObject", doType.getCF().getName());
+        Iterator<Row<String, CompositeColumnName>> it;
+        List<T> objects = new ArrayList<T>();
         IndexCleanupList cleanList = new IndexCleanupList();
+        long rowCount = 0;
+        long bytes = 0;
 
-        Iterator<Row<String, CompositeColumnName>> it = rows.iterator();
-        while (it.hasNext()) {
-            Row<String, CompositeColumnName> row = it.next();
-            if (row == null || row.getColumns().size() == 0) {
-                continue;
-            }
+        try {
+            it = queryRowIteratorWithAllColumns(ks, ids, doType.getCF());
+            while (it.hasNext()) {
+                Row<String, CompositeColumnName> row = it.next();
+                rowCount++;
+                if (row == null || row.getColumns().size() == 0) {
+                    continue;
+                }
+                // only the time spent waiting for the rows is traced
+                long deserializeStart = System.nanoTime();
+                if (trace.isSampled()) {
+                    for (Column<CompositeColumnName> column : row.getColumns()) {
+                        bytes += column.getRawName().remaining() + column.getByteBufferValue().remaining();
+                    }
+                }
 
-            T object = doType.deserialize(clazz, row, cleanList, new LazyLoader(this));
+                T object = doType.deserialize(clazz, row, cleanList, new LazyLoader(this));
 
-            // filter base on activeOnly
-            if (activeOnly) {
-                if (!object.getInactive()) {
+                // filter base on activeOnly
+                if (activeOnly) {
+                    if (!object.getInactive()) {
+                        objects.add(object);
+                    }
+                } else {
                     objects.add(object);
                 }
-            } else {
-                objects.add(object);
+                trace.exclude(System.nanoTime() - deserializeStart);
             }
+        } finally {
+            trace.end(rowCount, bytes);
         }
         if (!cleanList.isEmpty()) {
             boolean retryFailedWriteWithLocalQuorum = shouldRetryFailedWriteWithLocalQuorum(clazz);
@@ -470,9 +621,33 @@ public class DbClientImpl implements DbClient {
             SoftReference<IndexCleanupList> indexCleanUpRef = new SoftReference<IndexCleanupList>(cleanList);
             _indexCleaner.cleanIndexAsync(mutator, doType, indexCleanUpRef);
         }
+        if (it instanceof ParallelRowQueryIterator) {
+            // the partitions complete in any order
+            objects = sortByIds(objects, ids);
+        }
         return objects;
     }
 
+    /**
+     * @param objects objects queried
+     * @param ids ids of the query
+     * @return the objects in the order of the ids
+     */
+    private static <T extends DataObject> List<T> sortByIds(List<T> objects, Collection<URI> ids) {
+        Map<URI, T> objectsById = new HashMap<URI, T>();
+        for (T object : objects) {
+            objectsById.put(object.getId(), object);
+        }
+        List<T> sorted = new ArrayList<T>(objects.size());
+        for (URI id : ids) {
+            T object = objectsById.remove(id);
+            if (object != null) {
+                sorted.add(object);
+            }
+        }
+        return sorted;
+    }
+
     @Override
     public <T extends DataObject> Iterator<T> queryIterativeObjects(final Class<T> clazz,
             Collection<URI> ids) {
@@ -492,6 +667,15 @@ public class DbClientImpl implements DbClient {
             // nothing to do, just an empty list
             return new ArrayList<T>().iterator();
         }
+        if (isPrefetchEnabled()) {
+            return new PrefetchingQueryResultIterator<T>(ids.iterator(), iterativeQueryBatchSize, getPrefetchDepth(),
+                    prefetchExecutor) {
+                @Override
+                protected Collection<T> fetch(List<URI> batch) {
+                    return queryObject(clazz, batch, activeOnly);
+                }
+            };
+        }
         BulkDataObjQueryResultIterator<T> bulkQueryIterator = new BulkDataObjQueryResultIterator<T>(ids.iterator()) {
 
             @Override
@@ -525,6 +709,15 @@ public class DbClientImpl implements DbClient {
             // nothing to do, just an empty list
             return new ArrayList<T>().iterator();
         }
+        if (isPrefetchEnabled()) {
+            return new PrefetchingQueryResultIterator<T>(ids.iterator(), iterativeQueryBatchSize, getPrefetchDepth(),
+                    prefetchExecutor) {
+                @Override
+                protected Collection<T> fetch(List<URI> batch) {
+                    return queryObjectField(clazz, fieldName, batch);
+                }
+            };
+        }
 
         BulkDataObjQueryResultIterator<T> bulkQueryIterator = new BulkDataObjQueryResultIterator<T>(ids.iterator()) {
             @Override
@@ -546,6 +739,17 @@ public class DbClientImpl implements DbClient {
         return bulkQueryIterator;
     }
 
+    private boolean isPrefetchEnabled() {
+        return prefetchExecutor != null && iterativeQueryPrefetchDepth > 0;
+    }
+
+    /**
+     * @return read-ahead depth, limited so that read-ahead batches hold at most iterativeQueryMaxPrefetchObjects
+     */
+    private int getPrefetchDepth() {
+        return Math.max(1, Math.min(iterativeQueryPrefetchDepth, iterativeQueryMaxPrefetchObjects / Math.max(1, iterativeQueryBatchSize)));
+    }
+
     @Override
     public <T extends DataObject> List<T> queryObjectField(Class<T> clazz, String fieldName, Collection<URI> ids) {
         tracer.newTracer("read");
@@ -567,6 +771,15 @@ public class DbClientImpl implements DbClient {
     public <T extends DataObject> Iterator<T> queryIterativeObjectFields(final Class<T> clazz,
             final Collection<String> fieldNames, Collection<URI> ids) {
         tracer.newTracer("read");
+        if (isPrefetchEnabled()) {
+            return new PrefetchingQueryResultIterator<T>(ids.iterator(), iterativeQueryBatchSize, getPrefetchDepth(),
+                    prefetchExecutor) {
+                @Override
+                protected Collection<T> fetch(List<URI> batch) {
+                    return queryObjectFields(clazz, fieldNames, batch);
+                }
+            };
+        }
         BulkDataObjQueryResultIterator<T> bulkQueryIterator = new BulkDataObjQueryResultIterator<T>(ids.iterator()) {
 
             @Override
@@ -988,7 +1201,16 @@ public class DbClientImpl implements DbClient {
             throw new IllegalArgumentException("invalid constraint: the key can't be null or empty");
         }
         constraint.setKeyspace(getKeyspace(constraint.getDataObjectType()));
-        constraint.execute(result);
+        DbQueryTracer.Trace trace = queryTracer.start("queryByConstraint", getConstraintTraceName(constraint));
+        try {
+            constraint.execute(result);
+        } finally {
+            trace.end(-1, -1);
+        }
+    }
+
+    private String getConstraintTraceName(Constraint constraint) {
+        return constraint.getDataObjectType().getSimpleName() + "/" + constraint.getClass().getSimpleName();
     }
 
     @Override
@@ -1005,7 +1227,12 @@ public class DbClientImpl implements DbClient {
         constraintImpl.setPageCount(maxCount);
 
         constraint.setKeyspace(getKeyspace(constraint.getDataObjectType()));
-        constraint.execute(result);
+        DbQueryTracer.Trace trace = queryTracer.start("queryByConstraint", getConstraintTraceName(constraint));
+        try {
+            constraint.execute(result);
+        } finally {
+            trace.end(-1, -1);
+        }
     }
 
     // This is used to count the number of volumes or fileshares in a storagepool,
@@ -1171,11 +1398,26 @@ public class DbClientImpl implements DbClient {
         }
 
         Keyspace ks = getKeyspace(clazz);
+        DbQueryTracer.Trace trace = queryTracer.startWrite("persistObject", TypeMap.getDoType(clazz).getCF().getName());
+        long writeStartMicros = TimeUUIDUtils.getMicrosTimeFromUUID(TimeUUIDUtils.getUniqueTimeUUIDinMicros());
 
-        List<URI> objectsToCleanup = insertNewColumns(ks, dataobjects);
-        if (updateIndex && !objectsToCleanup.isEmpty()) {
-            Rows<String, CompositeColumnName> rows = fetchNewest(clazz, ks, objectsToCleanup);
-            cleanupOldColumns(clazz, ks, rows);
+        try {
+            List<URI> objectsToCleanup = insertNewColumns(ks, dataobjects);
+            if (updateIndex && !objectsToCleanup.isEmpty()) {
+                Rows<String, CompositeColumnName> rows = fetchNewest(clazz, ks, objectsToCleanup);
+                if (AggregatedChangeLog.isTracked(clazz)) {
+                    // log the changes of aggregated fields before their old values are cleaned up
+                    AggregatedChangeLog.logChanges(ks, TypeMap.getDoType(clazz), rows, writeStartMicros,
+                            shouldRetryFailedWriteWithLocalQuorum(clazz));
+                }
+                cleanupOldColumns(clazz, ks, rows);
+            } else if (!updateIndex && AggregatedChangeLog.isTracked(clazz)) {
+                // new objects are not read back, their aggregated fields are logged as written
+                AggregatedChangeLog.logAdditions(ks, TypeMap.getDoType(clazz), dataobjects,
+                        shouldRetryFailedWriteWithLocalQuorum(clazz));
+            }
+        } finally {
+            trace.end(dataobjects.size(), -1);
         }
     }
 
@@ -1405,6 +1647,7 @@ public class DbClientImpl implements DbClient {
 
         DataObjectType doType = null;
         RemovedColumnsList removedList = new RemovedColumnsList();
+        List<Row<String, CompositeColumnName>> removedRows = new ArrayList<Row<String, CompositeColumnName>>();
         for (DataObject dataObject : allObjects) {
             _log.debug("Try to remove data object {}", dataObject.getId());
             checkGeoVersionForMutation(dataObject);
@@ -1415,6 +1658,7 @@ public class DbClientImpl implements DbClient {
             }
             Row<String, CompositeColumnName> row = queryRowWithAllColumns(ks, dataObject.getId(), doType.getCF());
             if (row != null) {
+                removedRows.add(row);
                 Iterator<Column<CompositeColumnName>> it = row.getColumns().iterator();
                 String key = row.getKey();
                 while (it.hasNext()) {
@@ -1425,6 +1669,10 @@ public class DbClientImpl implements DbClient {
         }
         if (!removedList.isEmpty()) {
             boolean retryFailedWriteWithLocalQuorum = shouldRetryFailedWriteWithLocalQuorum(clazz);
+            if (AggregatedChangeLog.isTracked(doType.getDataObjectClass())) {
+                // log the removal of aggregated fields before their values are removed
+                AggregatedChangeLog.logRemovals(ks, doType, removedRows, retryFailedWriteWithLocalQuorum);
+            }
             RowMutator mutator = new RowMutator(ks, retryFailedWriteWithLocalQuorum);
             _indexCleaner.removeColumnAndIndex(mutator, doType, removedList);
         }
@@ -1586,6 +1834,31 @@ public class DbClientImpl implements DbClient {
         }
     }
 
+    /**
+     * Queries for multiple rows for collection of row keys. Large collections are split into partitions
+     * of keys owned by the same replicas, which are queried in parallel; rows are returned as the
+     * partitions complete, in no particular order.
+     *
+     * @param keyspace keyspace to query rows against
+     * @param ids row keys
+     * @param cf column family
+     * @return iterator of the matching rows
+     * @throws DatabaseException
+     */
+    private Iterator<Row<String, CompositeColumnName>> queryRowIteratorWithAllColumns(final Keyspace keyspace,
+            Collection<URI> ids, final ColumnFamily<String, CompositeColumnName> cf) {
+        if (multiGetExecutor == null || ids.size() <= multiGetPartitionSize) {
+            return queryRowsWithAllColumns(keyspace, ids, cf).iterator();
+        }
+        List<List<URI>> partitions = tokenRangePartitioner.split(keyspace, ids, multiGetPartitionSize);
+        return new ParallelRowQueryIterator<CompositeColumnName>(partitions, multiGetConcurrency, multiGetExecutor) {
+            @Override
+            protected Rows<String, CompositeColumnName> fetch(List<URI> partition) {
+                return queryRowsWithAllColumns(keyspace, partition, cf);
+            }
+        };
+    }
+
     /**
      * Convenience helper that queries for multiple rows for collection of row
      * keys for a single column
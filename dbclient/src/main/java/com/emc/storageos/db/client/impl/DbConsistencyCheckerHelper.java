@@ -303,6 +303,11 @@ public class DbConsistencyCheckerHelper {
         int scannedRows = 0;
         long beginTime = System.currentTimeMillis();
         for (Row<String, IndexColumnName> row : result.getResult()) {
+            if (indexAndCf.indexType.equals(AggregateDbIndex.class) && AggregatedChangeLog.isChangeRow(row.getKey())) {
+                // changes logged by AggregatedChangeLog name objects which may be gone, they expire on their own
+                _log.debug("Skip change log row {} of index CF {}", row.getKey(), indexCFName);
+                continue;
+            }
             RowQuery<String, IndexColumnName> rowQuery = indexAndCf.keyspace.prepareQuery(indexAndCf.cf).getKey(row.getKey())
                     .autoPaginate(true)
                     .withColumnRange(new RangeBuilder().setLimit(dbClient.DEFAULT_PAGE_SIZE).build());
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.management.jmx.dbquery.DbQueryTracerMBean;
+import com.emc.storageos.services.util.RequestCost;
+import com.emc.vipr.model.sys.healthmonitor.DbQueryStat;
+
+/**
+ * Sampled tracing of DB client calls.
+ *
+ * Every call is timed, failed calls included; the time the caller spends deserializing the rows
+ * read is not counted. Statistics (count, latency, rows, bytes) are kept per operation, column family
+ * and caller for a sample of the calls; calls slower than the threshold are always kept in a ring
+ * buffer, so the slow query log of a service holds the last SLOW_QUERY_LOG_SIZE slow calls.
+ *
+ * The caller is the first stack frame outside of the DB client, the caller digest is a hash of the
+ * frames above it, so that calls from different API or controller paths through the same helper
+ * can be told apart.
+ *
+ * The rows and bytes of every call are also added to the RequestCost of the thread starting it, if
+ * any. The DB operations of a request and their latency are counted by the tracer of the keyspace
+ * (see DbClientContext), which sees all of them.
+ */
+public class DbQueryTracer implements DbQueryTracerMBean {
+    private static final Logger _log = LoggerFactory.getLogger(DbQueryTracer.class);
+
+    private static final double DEFAULT_SAMPLE_RATE = 0.01;
+    private static final long DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = 1000;
+    private static final int SLOW_QUERY_LOG_SIZE = 200;
+    private static final int MAX_TRACKED_CALLERS = 2000;
+    private static final int CALLER_DIGEST_DEPTH = 6;
+    private static final String DB_CLIENT_PACKAGE = "com.emc.storageos.db.client";
+    private static final String OTHER_CALLERS = "other";
+
+    private volatile double sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile long slowQueryThresholdMillis = DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS;
+    private final ConcurrentHashMap<String, DbQueryStat> stats = new ConcurrentHashMap<String, DbQueryStat>();
+    private final DbQueryStat[] slowQueries = new DbQueryStat[SLOW_QUERY_LOG_SIZE];
+    private int nextSlowQuery;
+
+    /**
+     * A call being traced, created by start() and completed by end().
+     */
+    public class Trace {
+        private final String operation;
+        private final String columnFamily;
+        private final long startNanos = System.nanoTime();
+        private final boolean sampled;
+        private final boolean write;
+        private final RequestCost requestCost = RequestCost.current();
+        private long excludedNanos;
+
+        private Trace(String operation, String columnFamily, boolean sampled, boolean write) {
+            this.operation = operation;
+            this.columnFamily = columnFamily;
+            this.sampled = sampled;
+            this.write = write;
+        }
+
+        /**
+         * @return true if rows and bytes of this call should be counted
+         */
+        public boolean isSampled() {
+            return sampled || requestCost != null;
+        }
+
+        /**
+         * Excludes time the caller spent outside of the DB, such as deserializing the rows read,
+         * from the latency of the call.
+         *
+         * @param nanos time to exclude
+         */
+        public void exclude(long nanos) {
+            excludedNanos += nanos;
+        }
+
+        /**
+         * Completes the trace.
+         *
+         * @param rows number of rows read or written, -1 if unknown
+         * @param bytes number of bytes read or written, -1 if unknown or not sampled
+         */
+        public void end(long rows, long bytes) {
+            long nanos = System.nanoTime() - startNanos - excludedNanos;
+            if (requestCost != null) {
+                if (write) {
+                    requestCost.addDbWriteRows(rows);
+                } else {
+                    requestCost.addDbReadRows(rows, bytes);
+                }
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            boolean slow = millis >= slowQueryThresholdMillis;
+            if (!sampled && !slow) {
+                return;
+            }
+            DbQueryStat call = newCall(operation, columnFamily);
+            call.setCount(1);
+            call.setTotalMillis(millis);
+            call.setMaxMillis(millis);
+            call.setRows(Math.max(rows, 0));
+            call.setBytes(Math.max(bytes, 0));
+            call.setTimestamp(System.currentTimeMillis());
+            if (sampled) {
+                record(call);
+            }
+            if (slow) {
+                logSlowQuery(call);
+            }
+        }
+    }
+
+    /**
+     * Registers the tracer in the platform MBean server, so syssvc can collect its statistics.
+     * Only the first DB client of a service is registered.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(this, DbQueryTracerMBean.class), new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            _log.info("DB query tracer of another DB client is already registered");
+        } catch (Exception e) {
+            _log.warn("Failed to register DB query tracer", e);
+        }
+    }
+
+    /**
+     * Starts tracing a call.
+     *
+     * @param operation read or write operation name
+     * @param columnFamily column family, or column family and constraint type for index queries
+     * @return the trace to complete when the call is done
+     */
+    public Trace start(String operation, String columnFamily) {
+        return new Trace(operation, columnFamily, nextSampled(), false);
+    }
+
+    /**
+     * Starts tracing a write.
+     *
+     * @see #start(String, String)
+     */
+    public Trace startWrite(String operation, String columnFamily) {
+        return new Trace(operation, columnFamily, nextSampled(), true);
+    }
+
+    private boolean nextSampled() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private DbQueryStat newCall(String operation, String columnFamily) {
+        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+        int callerIndex = 0;
+        while (callerIndex < stack.length
+                && (stack[callerIndex].getClassName().startsWith(DB_CLIENT_PACKAGE)
+                || stack[callerIndex].getClassName().startsWith("java.lang.Thread"))) {
+            callerIndex++;
+        }
+        String caller = "unknown";
+        String digest = "";
+        if (callerIndex < stack.length) {
+            StackTraceElement frame = stack[callerIndex];
+            caller = String.format("%s.%s:%d", frame.getClassName(), frame.getMethodName(), frame.getLineNumber());
+            int end = Math.min(stack.length, callerIndex + 1 + CALLER_DIGEST_DEPTH);
+            digest = Integer.toHexString(Arrays.hashCode(Arrays.copyOfRange(stack, callerIndex + 1, end)));
+        }
+        return new DbQueryStat(operation, columnFamily, caller, digest);
+    }
+
+    private void record(DbQueryStat call) {
+        String key = call.key();
+        DbQueryStat stat = stats.get(key);
+        if (stat == null) {
+            if (stats.size() >= MAX_TRACKED_CALLERS) {
+                key = call.getOperation() + "|" + OTHER_CALLERS;
+                stats.putIfAbsent(key, new DbQueryStat(call.getOperation(), OTHER_CALLERS, OTHER_CALLERS, ""));
+            } else {
+                stats.putIfAbsent(key, new DbQueryStat(call.getOperation(), call.getColumnFamily(),
+                        call.getCaller(), call.getCallerDigest()));
+            }
+            stat = stats.get(key);
+        }
+        synchronized (stat) {
+            stat.add(call);
+        }
+    }
+
+    private synchronized void logSlowQuery(DbQueryStat call) {
+        slowQueries[nextSlowQuery] = call;
+        nextSlowQuery = (nextSlowQuery + 1) % SLOW_QUERY_LOG_SIZE;
+        _log.info("Slow DB call {} on {} from {} ({}): {} ms, {} rows", call.getOperation(), call.getColumnFamily(),
+                call.getCaller(), call.getCallerDigest(), call.getTotalMillis(), call.getRows());
+    }
+
+    @Override
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    @Override
+    public List<DbQueryStat> getTopQueries(int count) {
+        List<DbQueryStat> top = new ArrayList<DbQueryStat>();
+        for (DbQueryStat stat : stats.values()) {
+            DbQueryStat copy = new DbQueryStat(stat.getOperation(), stat.getColumnFamily(), stat.getCaller(), stat.getCallerDigest());
+            synchronized (stat) {
+                copy.add(stat);
+            }
+            top.add(copy);
+        }
+        sortByTotalLatency(top);
+        return new ArrayList<DbQueryStat>(top.subList(0, Math.min(count, top.size())));
+    }
+
+    @Override
+    public synchronized List<DbQueryStat> getSlowQueries() {
+        List<DbQueryStat> slow = new ArrayList<DbQueryStat>();
+        for (int i = 1; i <= SLOW_QUERY_LOG_SIZE; i++) {
+            DbQueryStat call = slowQueries[(nextSlowQuery - i + SLOW_QUERY_LOG_SIZE) % SLOW_QUERY_LOG_SIZE];
+            if (call == null) {
+                break;
+            }
+            slow.add(call);
+        }
+        return slow;
+    }
+
+    @Override
+    public synchronized void reset() {
+        stats.clear();
+        Arrays.fill(slowQueries, null);
+        nextSlowQuery = 0;
+    }
+
+    /**
+     * Sorts statistics by decreasing total latency
+     *
+     * @param stats statistics to sort
+     */
+    public static void sortByTotalLatency(List<DbQueryStat> stats) {
+        Collections.sort(stats, new Comparator<DbQueryStat>() {
+            @Override
+            public int compare(DbQueryStat o1, DbQueryStat o2) {
+                return Long.compare(o2.getTotalMillis(), o1.getTotalMillis());
+            }
+        });
+    }
+}
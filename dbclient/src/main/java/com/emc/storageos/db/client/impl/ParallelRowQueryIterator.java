@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.db.client.impl;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.emc.storageos.db.exceptions.DatabaseException;
+import com.emc.storageos.services.util.RequestCost;
+import com.netflix.astyanax.model.Row;
+import com.netflix.astyanax.model.Rows;
+
+/**
+ * Row iterator of a multi-get split into partitions, which are queried in parallel.
+ *
+ * At most maxConcurrency partitions are queried at a time, the next partition is submitted when one
+ * completes. Rows are returned in the order the partitions complete, so the consumer can deserialize
+ * the rows of a partition while the others are being read. If the executor is saturated the partition
+ * is queried on the consumer thread.
+ */
+public abstract class ParallelRowQueryIterator<C> implements Iterator<Row<String, C>> {
+    private final Iterator<List<URI>> partitions;
+    private final ExecutorService executor;
+    private final LinkedBlockingQueue<Future<Rows<String, C>>> completed = new LinkedBlockingQueue<Future<Rows<String, C>>>();
+    private final ArrayDeque<FutureTask<Rows<String, C>>> rejected = new ArrayDeque<FutureTask<Rows<String, C>>>();
+    private int running;
+    private int rowCount;
+    private Iterator<Row<String, C>> currentIt;
+
+    /**
+     * @param partitions keys of each partition
+     * @param maxConcurrency max number of partitions queried at a time
+     * @param executor executor of the queries
+     */
+    public ParallelRowQueryIterator(List<List<URI>> partitions, int maxConcurrency, ExecutorService executor) {
+        this.partitions = partitions.iterator();
+        this.executor = executor;
+        for (int i = 0; i < maxConcurrency; i++) {
+            submitNext();
+        }
+    }
+
+    /**
+     * Queries the rows of one partition. Called on executor threads.
+     *
+     * @param partition keys of the partition
+     * @return rows of the partition
+     */
+    protected abstract Rows<String, C> fetch(List<URI> partition);
+
+    /**
+     * @return number of rows returned so far
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    private void submitNext() {
+        if (!partitions.hasNext()) {
+            return;
+        }
+        final List<URI> partition = partitions.next();
+        // the queries are part of the cost of the request of the consumer
+        FutureTask<Rows<String, C>> task = new FutureTask<Rows<String, C>>(RequestCost.propagate(new Callable<Rows<String, C>>() {
+            @Override
+            public Rows<String, C> call() {
+                return fetch(partition);
+            }
+        })) {
+            @Override
+            protected void done() {
+                completed.add(this);
+            }
+        };
+        running++;
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // run it once the consumer needs more rows
+            rejected.add(task);
+        }
+    }
+
+    private Rows<String, C> take() {
+        try {
+            Future<Rows<String, C>> future = completed.poll();
+            if (future == null && !rejected.isEmpty()) {
+                rejected.poll().run();
+                future = completed.poll();
+            }
+            if (future == null) {
+                future = completed.take();
+            }
+            running--;
+            submitNext();
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DatabaseException.fatals.queryFailed(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw DatabaseException.fatals.queryFailed(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (currentIt == null || !currentIt.hasNext()) {
+            if (running == 0) {
+                currentIt = null;
+                return false;
+            }
+            currentIt = take().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Row<String, C> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        rowCount++;
+        return currentIt.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.db.client.impl;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.emc.storageos.db.exceptions.DatabaseException;
+import com.emc.storageos.services.util.RequestCost;
+
+/**
+ * Data object query result iterator which reads ahead: while the consumer processes one batch,
+ * up to prefetchDepth following batches are fetched on the executor.
+ *
+ * Batches of ids are taken from the id iterator on the consumer thread only, so the id iterator
+ * does not need to be thread safe. Results are returned in the order of the ids. At most
+ * prefetchDepth batches are held besides the one being consumed. If the executor is saturated
+ * the batch is fetched on the consumer thread, as without read-ahead.
+ */
+public abstract class PrefetchingQueryResultIterator<T> implements Iterator<T> {
+    private final Iterator<URI> ids;
+    private final int batchSize;
+    private final int prefetchDepth;
+    private final ExecutorService executor;
+    private final ArrayDeque<Future<Collection<T>>> pending = new ArrayDeque<Future<Collection<T>>>();
+    private Iterator<T> currentIt;
+
+    /**
+     * @param ids ids to query
+     * @param batchSize number of ids per query
+     * @param prefetchDepth max number of batches fetched ahead of the consumer
+     * @param executor executor of the fetches
+     */
+    public PrefetchingQueryResultIterator(Iterator<URI> ids, int batchSize, int prefetchDepth, ExecutorService executor) {
+        this.ids = ids;
+        this.batchSize = batchSize;
+        this.prefetchDepth = prefetchDepth;
+        this.executor = executor;
+        fillPipeline();
+    }
+
+    /**
+     * Queries one batch of ids. Called on executor threads.
+     *
+     * @param batch ids of the batch
+     * @return objects found, may be empty
+     */
+    protected abstract Collection<T> fetch(List<URI> batch);
+
+    private void fillPipeline() {
+        while (pending.size() < prefetchDepth + 1 && ids.hasNext()) {
+            final List<URI> batch = new ArrayList<URI>(batchSize);
+            for (int i = 0; i < batchSize && ids.hasNext(); i++) {
+                batch.add(ids.next());
+            }
+            // the fetches are part of the cost of the request of the consumer
+            FutureTask<Collection<T>> task = new FutureTask<Collection<T>>(RequestCost.propagate(new Callable<Collection<T>>() {
+                @Override
+                public Collection<T> call() {
+                    return fetch(batch);
+                }
+            }));
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+            pending.add(task);
+        }
+    }
+
+    private Collection<T> take(Future<Collection<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DatabaseException.fatals.queryFailed(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw DatabaseException.fatals.queryFailed(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (currentIt == null || !currentIt.hasNext()) {
+            if (pending.isEmpty()) {
+                currentIt = null;
+                return false;
+            }
+            Future<Collection<T>> head = pending.poll();
+            // keep the pipeline full while waiting for the head batch
+            fillPipeline();
+            currentIt = take(head).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentIt.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
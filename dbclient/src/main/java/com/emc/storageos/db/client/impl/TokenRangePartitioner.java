@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.db.client.impl;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.connectionpool.TokenRange;
+import com.netflix.astyanax.partitioner.Partitioner;
+import com.netflix.astyanax.serializers.StringSerializer;
+
+/**
+ * Splits row keys into partitions of keys owned by the same replicas.
+ *
+ * The token ring and the partitioner of each keyspace are read with describe_ring and
+ * describe_partitioner, and cached for RING_REFRESH_INTERVAL_MS. If they cannot be read, all keys
+ * are considered owned by the same replicas until the next refresh.
+ * Partitions are limited to maxPartitionSize keys, so that a large multi-get is split even on a single node.
+ */
+public class TokenRangePartitioner {
+    private static final Logger log = LoggerFactory.getLogger(TokenRangePartitioner.class);
+
+    private static final long RING_REFRESH_INTERVAL_MS = 5 * 60 * 1000L;
+    private static final String UNKNOWN_REPLICAS = "unknown";
+
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<String, Ring>();
+
+    /**
+     * Token ranges of a keyspace, sorted by end token, and partitioner of its keys
+     */
+    static class Ring {
+        private final BigInteger[] endTokens;
+        private final String[] replicas;
+        private final Partitioner partitioner;
+        private final long timestamp = System.currentTimeMillis();
+
+        Ring(List<TokenRange> ranges, Partitioner partitioner) {
+            this.partitioner = partitioner;
+            List<TokenRange> sorted = new ArrayList<TokenRange>(ranges);
+            Collections.sort(sorted, new Comparator<TokenRange>() {
+                @Override
+                public int compare(TokenRange r1, TokenRange r2) {
+                    return new BigInteger(r1.getEndToken()).compareTo(new BigInteger(r2.getEndToken()));
+                }
+            });
+            endTokens = new BigInteger[sorted.size()];
+            replicas = new String[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                endTokens[i] = new BigInteger(sorted.get(i).getEndToken());
+                replicas[i] = sorted.get(i).getEndpoints().toString();
+            }
+        }
+
+        /**
+         * @param id row key
+         * @return replicas of the range (start, end] containing the token of the key, the first range
+         *         wraps around the ring
+         */
+        String getReplicas(URI id) {
+            if (endTokens.length == 0 || partitioner == null) {
+                return UNKNOWN_REPLICAS;
+            }
+            BigInteger token = new BigInteger(partitioner.getTokenForKey(StringSerializer.get().toByteBuffer(id.toString())));
+            int index = Arrays.binarySearch(endTokens, token);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return replicas[index < endTokens.length ? index : 0];
+        }
+    }
+
+    /**
+     * Splits the keys by replicas
+     *
+     * @param keyspace keyspace of the rows
+     * @param ids row keys
+     * @param maxPartitionSize max number of keys per partition
+     * @return partitions of keys, the keys of a partition are owned by the same replicas
+     */
+    public List<List<URI>> split(Keyspace keyspace, Collection<URI> ids, int maxPartitionSize) {
+        Ring ring = getRing(keyspace);
+        Map<String, List<URI>> byReplicas = new LinkedHashMap<String, List<URI>>();
+        for (URI id : ids) {
+            String replicas = ring.getReplicas(id);
+            List<URI> keys = byReplicas.get(replicas);
+            if (keys == null) {
+                keys = new ArrayList<URI>();
+                byReplicas.put(replicas, keys);
+            }
+            keys.add(id);
+        }
+
+        List<List<URI>> partitions = new ArrayList<List<URI>>();
+        for (List<URI> keys : byReplicas.values()) {
+            for (int i = 0; i < keys.size(); i += maxPartitionSize) {
+                partitions.add(keys.subList(i, Math.min(keys.size(), i + maxPartitionSize)));
+            }
+        }
+        return partitions;
+    }
+
+    private Ring getRing(Keyspace keyspace) {
+        String name = keyspace.getKeyspaceName();
+        Ring ring = rings.get(name);
+        if (ring != null && System.currentTimeMillis() - ring.timestamp < RING_REFRESH_INTERVAL_MS) {
+            return ring;
+        }
+        try {
+            ring = new Ring(keyspace.describeRing(), keyspace.getPartitioner());
+        } catch (Exception e) {
+            // split by size only until the next refresh
+            log.warn("Failed to describe ring of keyspace {}: {}", name, e.getMessage());
+            ring = new Ring(Collections.<TokenRange> emptyList(), null);
+        }
+        rings.put(name, ring);
+        return ring;
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.model;
+
+/**
+ * CF definition for the daily rollups of the metering stats
+ */
+@NoInactiveIndex
+@Cf("DayStatRollup")
+public class DayStatRollup extends StatRollup {
+}
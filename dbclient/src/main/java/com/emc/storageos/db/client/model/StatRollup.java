@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.model;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.emc.storageos.db.client.URIUtil;
+
+/**
+ * Summary of the metering stats of a resource, project or tenant over a time bucket.
+ *
+ * For each metric, the rollup holds the sum, count and maximum of the values of the stats
+ * collected in the bucket, from which reports get the sum, average and maximum without reading
+ * the raw stats. The rollups of a granularity are stored in their own CF, and the id of a rollup
+ * is derived from its group and bucket so that it can be read without an index lookup.
+ */
+public abstract class StatRollup extends DataObject {
+
+    /**
+     * Groups the stats are rolled up by
+     */
+    public static enum GroupType {
+        RESOURCE, PROJECT, TENANT;
+
+        public URI getGroupId(Stat stat) {
+            switch (this) {
+                case RESOURCE:
+                    return stat.getResourceId();
+                case PROJECT:
+                    return stat.getProject();
+                default:
+                    return stat.getTenant();
+            }
+        }
+    }
+
+    /**
+     * Granularities of the rollups, the buckets are aligned on UTC hours, days and months
+     */
+    public static enum Granularity {
+        HOUR(HourStatRollup.class), DAY(DayStatRollup.class), MONTH(MonthStatRollup.class);
+
+        private final Class<? extends StatRollup> rollupClass;
+
+        private Granularity(Class<? extends StatRollup> rollupClass) {
+            this.rollupClass = rollupClass;
+        }
+
+        public Class<? extends StatRollup> getRollupClass() {
+            return rollupClass;
+        }
+
+        /**
+         * @return start of the bucket containing the time, in ms
+         */
+        public long getBucketStart(long time) {
+            DateTime dateTime = new DateTime(time, DateTimeZone.UTC);
+            switch (this) {
+                case HOUR:
+                    return dateTime.hourOfDay().roundFloorCopy().getMillis();
+                case DAY:
+                    return dateTime.withTimeAtStartOfDay().getMillis();
+                default:
+                    return dateTime.withDayOfMonth(1).withTimeAtStartOfDay().getMillis();
+            }
+        }
+
+        /**
+         * @return start of the bucket following the bucket starting at bucketStart, in ms
+         */
+        public long getNextBucketStart(long bucketStart) {
+            DateTime dateTime = new DateTime(bucketStart, DateTimeZone.UTC);
+            switch (this) {
+                case HOUR:
+                    return dateTime.plusHours(1).getMillis();
+                case DAY:
+                    return dateTime.plusDays(1).getMillis();
+                default:
+                    return dateTime.plusMonths(1).getMillis();
+            }
+        }
+    }
+
+    /**
+     * Metrics rolled up, named after the elements of the stats
+     */
+    public static enum Metric {
+        PROVISIONED_CAPACITY("provisioned_capacity"),
+        ALLOCATED_CAPACITY("allocated_capacity"),
+        SNAPSHOT_CAPACITY("snapshot_capacity"),
+        SNAPSHOT_COUNT("snapshot_count"),
+        BANDWIDTH_IN("bandwidth_in"),
+        BANDWIDTH_OUT("bandwidth_out"),
+        OBJECT_COUNT("object_count"),
+        USER_SIZE("user_size"),
+        REAL_SIZE("real_size"),
+        TOTAL_IOS("total_ios"),
+        KBYTES_TRANSFERRED("kbytes_transferred");
+
+        private final String name;
+
+        private Metric(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the value of the metric in the stat, null if not collected
+         */
+        public Number getValue(Stat stat) {
+            switch (this) {
+                case PROVISIONED_CAPACITY:
+                    return stat.getProvisionedCapacity();
+                case ALLOCATED_CAPACITY:
+                    return stat.getAllocatedCapacity();
+                case SNAPSHOT_CAPACITY:
+                    return stat.getSnapshotCapacity();
+                case SNAPSHOT_COUNT:
+                    return stat.getSnapshotCount();
+                case BANDWIDTH_IN:
+                    return stat.getBandwidthIn();
+                case BANDWIDTH_OUT:
+                    return stat.getBandwidthOut();
+                case OBJECT_COUNT:
+                    return stat.getObjCount();
+                case USER_SIZE:
+                    return stat.getUserSize();
+                case REAL_SIZE:
+                    return stat.getRealSize();
+                case TOTAL_IOS:
+                    return stat.getTotalIOs();
+                default:
+                    return stat.getKbytesTransferred();
+            }
+        }
+
+        public static Metric fromName(String name) {
+            for (Metric metric : values()) {
+                if (metric.name.equalsIgnoreCase(name)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+    }
+
+    private String _groupType;
+    private URI _groupId;
+    private Long _bucketStart;
+    private String _bucketKey;
+    private Long _lastMergedBucket;
+    private StringMap _sums;
+    private StringMap _counts;
+    private StringMap _maxima;
+
+    /**
+     * @return id of the rollup of the group over the bucket
+     */
+    public static URI createId(Class<? extends StatRollup> clazz, GroupType groupType, URI groupId, long bucketStart) {
+        String name = groupType + ":" + groupId + ":" + bucketStart;
+        return URIUtil.createInternalID(clazz, UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString());
+    }
+
+    /**
+     * @return key indexing the rollups of all the groups of the type over the bucket
+     */
+    public static String getBucketKey(GroupType groupType, long bucketStart) {
+        return groupType + ":" + bucketStart;
+    }
+
+    /**
+     * Initializes a new rollup of the group over the bucket
+     */
+    public void init(GroupType groupType, URI groupId, long bucketStart) {
+        setId(createId(getClass(), groupType, groupId, bucketStart));
+        setGroupType(groupType.name());
+        setGroupId(groupId);
+        setBucketStart(bucketStart);
+        setBucketKey(getBucketKey(groupType, bucketStart));
+    }
+
+    @Name("groupType")
+    public String getGroupType() {
+        return _groupType;
+    }
+
+    public void setGroupType(String groupType) {
+        _groupType = groupType;
+        setChanged("groupType");
+    }
+
+    @Name("groupId")
+    public URI getGroupId() {
+        return _groupId;
+    }
+
+    public void setGroupId(URI groupId) {
+        _groupId = groupId;
+        setChanged("groupId");
+    }
+
+    /**
+     * @return start of the bucket, in ms
+     */
+    @Name("bucketStart")
+    public Long getBucketStart() {
+        return _bucketStart;
+    }
+
+    public void setBucketStart(Long bucketStart) {
+        _bucketStart = bucketStart;
+        setChanged("bucketStart");
+    }
+
+    @Name("bucketKey")
+    @AlternateId("AltIdIndex")
+    public String getBucketKey() {
+        return _bucketKey;
+    }
+
+    public void setBucketKey(String bucketKey) {
+        _bucketKey = bucketKey;
+        setChanged("bucketKey");
+    }
+
+    /**
+     * @return start of the last hour merged into this rollup, so that an hour rolled up again
+     *         after a failure is not counted twice
+     */
+    @Name("lastMergedBucket")
+    public Long getLastMergedBucket() {
+        return _lastMergedBucket;
+    }
+
+    public void setLastMergedBucket(Long lastMergedBucket) {
+        _lastMergedBucket = lastMergedBucket;
+        setChanged("lastMergedBucket");
+    }
+
+    @Name("sums")
+    public StringMap getSums() {
+        if (_sums == null) {
+            _sums = new StringMap();
+        }
+        return _sums;
+    }
+
+    public void setSums(StringMap sums) {
+        _sums = sums;
+    }
+
+    @Name("counts")
+    public StringMap getCounts() {
+        if (_counts == null) {
+            _counts = new StringMap();
+        }
+        return _counts;
+    }
+
+    public void setCounts(StringMap counts) {
+        _counts = counts;
+    }
+
+    @Name("maxima")
+    public StringMap getMaxima() {
+        if (_maxima == null) {
+            _maxima = new StringMap();
+        }
+        return _maxima;
+    }
+
+    public void setMaxima(StringMap maxima) {
+        _maxima = maxima;
+    }
+
+    public long getSum(Metric metric) {
+        return getLong(getSums(), metric);
+    }
+
+    public long getCount(Metric metric) {
+        return getLong(getCounts(), metric);
+    }
+
+    public long getMax(Metric metric) {
+        return getLong(getMaxima(), metric);
+    }
+
+    /**
+     * Adds the values of the metrics collected in the stat
+     */
+    public void add(Stat stat) {
+        for (Metric metric : Metric.values()) {
+            Number value = metric.getValue(stat);
+            if (value != null) {
+                add(metric, value.longValue(), 1, value.longValue());
+            }
+        }
+    }
+
+    /**
+     * Adds the values summarized by another rollup
+     */
+    public void merge(StatRollup other) {
+        for (Metric metric : Metric.values()) {
+            long count = other.getCount(metric);
+            if (count > 0) {
+                add(metric, other.getSum(metric), count, other.getMax(metric));
+            }
+        }
+    }
+
+    private void add(Metric metric, long sum, long count, long max) {
+        long previousCount = getCount(metric);
+        getSums().put(metric.getName(), Long.toString(getSum(metric) + sum));
+        getCounts().put(metric.getName(), Long.toString(previousCount + count));
+        if (previousCount == 0 || max > getMax(metric)) {
+            getMaxima().put(metric.getName(), Long.toString(max));
+        }
+    }
+
+    private static long getLong(StringMap map, Metric metric) {
+        String value = map.get(metric.getName());
+        return value != null ? Long.parseLong(value) : 0;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.upgrade;
+
+import java.lang.annotation.*;
+
+/**
+ * annotation to let a custom migration callback run in parallel with the other callbacks of the upgrade.
+ * The callback runs once the callbacks it depends on are done. Callbacks without this annotation run
+ * after all the callbacks listed before them, as if the callbacks were run one by one.
+ */
+@Documented
+@Target({ ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MigrationDependencies {
+    // callbacks of the upgrade that must be done before this one, none if empty
+    Class<? extends BaseCustomMigrationCallback>[] value() default {};
+}
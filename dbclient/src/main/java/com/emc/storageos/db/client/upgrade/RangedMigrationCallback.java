@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.upgrade;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.coordinator.common.Configuration;
+import com.emc.storageos.coordinator.common.impl.ConfigurationImpl;
+import com.emc.storageos.db.client.impl.CompositeColumnName;
+import com.emc.storageos.db.client.impl.CompositeColumnNameSerializer;
+import com.emc.storageos.db.client.impl.DataObjectType;
+import com.emc.storageos.db.client.impl.DbClientImpl;
+import com.emc.storageos.db.client.impl.TypeMap;
+import com.emc.storageos.db.client.model.DataObject;
+import com.emc.storageos.db.exceptions.DatabaseException;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
+import com.emc.storageos.svcs.errorhandling.resources.MigrationCallbackException;
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.connectionpool.exceptions.ConnectionException;
+import com.netflix.astyanax.model.ColumnFamily;
+import com.netflix.astyanax.model.Row;
+import com.netflix.astyanax.model.Rows;
+import com.netflix.astyanax.partitioner.Partitioner;
+import com.netflix.astyanax.serializers.StringSerializer;
+
+/**
+ * Base class for custom migration callbacks that go through all the objects of a CF.
+ *
+ * The token ring is split into rangeCount ranges, which are scanned by workerCount threads, pageSize
+ * rows at a time. The objects of each page are passed to processObjects(). The last token processed
+ * in each range is saved in the coordinator after each page, so that a callback interrupted by a
+ * failure or a restart resumes where each range was left. processObjects() may thus be called again
+ * for the objects of the last page of a range, it must not depend on being called only once.
+ *
+ * @param <T> type of the objects to migrate
+ */
+public abstract class RangedMigrationCallback<T extends DataObject> extends BaseCustomMigrationCallback {
+    private static final Logger log = LoggerFactory.getLogger(RangedMigrationCallback.class);
+
+    private static final String PROGRESS_KIND = "dbmigrationprogress";
+    private static final String RANGE_DONE = "done";
+
+    private static final int DEFAULT_RANGE_COUNT = 64;
+    private static final int DEFAULT_WORKER_COUNT = 4;
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private int rangeCount = DEFAULT_RANGE_COUNT;
+    private int workerCount = DEFAULT_WORKER_COUNT;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private Configuration progress;
+
+    /**
+     * @return class of the objects to migrate
+     */
+    protected abstract Class<T> getDataObjectClass();
+
+    /**
+     * Migrates a page of objects. Called concurrently by the workers, for the objects of different ranges.
+     *
+     * @param objects the objects, active or not
+     */
+    protected abstract void processObjects(List<T> objects) throws MigrationCallbackException;
+
+    public void setRangeCount(int rangeCount) {
+        this.rangeCount = rangeCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void process() throws MigrationCallbackException {
+        Class<T> clazz = getDataObjectClass();
+        final Keyspace keyspace = ((DbClientImpl) dbClient).getKeyspace(clazz);
+        final Partitioner partitioner;
+        try {
+            partitioner = keyspace.getPartitioner();
+        } catch (ConnectionException e) {
+            throw DatabaseException.retryables.connectionFailed(e);
+        }
+        List<String> tokens = splitTokenRing(partitioner, rangeCount);
+        progress = loadProgress();
+
+        final AtomicLong migrated = new AtomicLong();
+        ThreadPoolExecutor executor = new NamedThreadPoolExecutor(clazz.getSimpleName() + "Migration", workerCount);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < tokens.size() - 1; i++) {
+                final int range = i;
+                final String startToken = progress.getConfig(getRangeKey(range)) != null ? progress.getConfig(getRangeKey(range))
+                        : tokens.get(i);
+                final String endToken = tokens.get(i + 1);
+                if (RANGE_DONE.equals(startToken)) {
+                    continue;
+                }
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        migrated.addAndGet(processRange(keyspace, partitioner, range, startToken, endToken));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationCallbackException(getName() + " interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MigrationCallbackException) {
+                throw (MigrationCallbackException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new MigrationCallbackException(getName() + " failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("{} migrated {} objects of {}", getName(), migrated.get(), clazz.getSimpleName());
+        coordinatorClient.removeServiceConfiguration(coordinatorClient.getSiteId(), progress);
+    }
+
+    /**
+     * Migrates the objects of the token range (startToken, endToken]
+     *
+     * @return number of objects migrated
+     */
+    private long processRange(Keyspace keyspace, Partitioner partitioner, int range, String startToken, String endToken)
+            throws MigrationCallbackException {
+        Class<T> clazz = getDataObjectClass();
+        DataObjectType doType = TypeMap.getDoType(clazz);
+        ColumnFamily<String, CompositeColumnName> cf = doType.getCF();
+
+        long count = 0;
+        String token = startToken;
+        while (!token.equals(endToken)) {
+            Rows<String, CompositeColumnName> rows;
+            try {
+                // the first column tells whether the row holds an object or only tombstones
+                rows = keyspace.prepareQuery(cf)
+                        .getRowRange(null, null, token, endToken, pageSize)
+                        .withColumnRange(CompositeColumnNameSerializer.get().buildRange().limit(1).build())
+                        .execute().getResult();
+            } catch (ConnectionException e) {
+                throw DatabaseException.retryables.connectionFailed(e);
+            }
+
+            List<URI> ids = new ArrayList<>();
+            String lastKey = null;
+            for (Row<String, CompositeColumnName> row : rows) {
+                lastKey = row.getKey();
+                if (!row.getColumns().isEmpty()) {
+                    ids.add(URI.create(row.getKey()));
+                }
+            }
+            if (lastKey == null) {
+                break;
+            }
+            if (!ids.isEmpty()) {
+                processObjects(dbClient.queryObject(clazz, ids));
+                count += ids.size();
+            }
+
+            token = partitioner.getTokenForKey(StringSerializer.get().toByteBuffer(lastKey));
+            if (rows.size() < pageSize) {
+                break;
+            }
+            saveProgress(range, token);
+        }
+        saveProgress(range, RANGE_DONE);
+        log.debug("Range {} of {} done, {} objects migrated", range, getName(), count);
+        return count;
+    }
+
+    /**
+     * Splits the token ring into ranges of the same size
+     *
+     * @return count + 1 tokens, range i is (tokens[i], tokens[i + 1]]
+     */
+    static List<String> splitTokenRing(Partitioner partitioner, int count) {
+        BigInteger min = new BigInteger(partitioner.getMinToken());
+        BigInteger max = new BigInteger(partitioner.getMaxToken());
+        BigInteger width = max.subtract(min);
+
+        List<String> tokens = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            tokens.add(min.add(width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count))).toString());
+        }
+        tokens.add(max.toString());
+        return tokens;
+    }
+
+    private String getRangeKey(int range) {
+        return "range" + range + "of" + rangeCount;
+    }
+
+    private Configuration loadProgress() {
+        String id = String.format("%s-%s", coordinatorClient.getTargetDbSchemaVersion(), getName());
+        Configuration config = coordinatorClient.queryConfiguration(coordinatorClient.getSiteId(), PROGRESS_KIND, id);
+        if (config == null) {
+            ConfigurationImpl cfg = new ConfigurationImpl();
+            cfg.setKind(PROGRESS_KIND);
+            cfg.setId(id);
+            config = cfg;
+        } else {
+            log.info("Resuming {} from the progress saved for its ranges", getName());
+        }
+        return config;
+    }
+
+    private synchronized void saveProgress(int range, String token) {
+        progress.setConfig(getRangeKey(range), token);
+        coordinatorClient.persistServiceConfiguration(coordinatorClient.getSiteId(), progress);
+    }
+}
@@ -18,6 +18,7 @@ import com.emc.storageos.db.client.constraint.AlternateIdConstraint;
 import com.emc.storageos.db.client.constraint.Constraint;
 import com.emc.storageos.db.client.constraint.ContainmentConstraint;
 import com.emc.storageos.db.client.constraint.URIQueryResultList;
+import com.emc.storageos.db.client.impl.AggregatedChangeLog;
 import com.emc.storageos.db.client.impl.BulkDataObjQueryResultIterator;
 import com.emc.storageos.db.client.impl.ColumnField;
 import com.emc.storageos.db.client.impl.ColumnValue;
@@ -227,6 +228,47 @@ public class CustomQueryUtility {
         return getAggregatedValue(it);
     }
 
+    /**
+     * Sums the changes of an aggregated field logged by AggregatedChangeLog in a time window,
+     * reading the change log of the hours of the window only
+     * 
+     * @param dbClient
+     * @param clazz class of the objects
+     * @param aggregatedField field tracked by AggregatedChangeLog
+     * @param fromMicros start of the window, excluded
+     * @param toMicros end of the window, included
+     * @return the sum of the changes of the field, and the number of objects added less the number removed
+     */
+    public static <T extends DataObject> AggregatedValue aggregatedFieldChanges(DbClient dbClient,
+            Class<T> clazz,
+            String aggregatedField,
+            long fromMicros,
+            long toMicros) {
+        AggregatedValue agg = new AggregatedValue();
+        for (long bucket = AggregatedChangeLog.getBucket(fromMicros); bucket <= AggregatedChangeLog.getBucket(toMicros); bucket++) {
+            for (int shard = 0; shard < AggregatedChangeLog.SHARD_COUNT; shard++) {
+                AggregationQueryResultList queryResults = new AggregationQueryResultList();
+                dbClient.queryByConstraint(
+                        AggregatedConstraint.Factory.getAggregationChangesConstraint(clazz, aggregatedField, bucket, shard),
+                        queryResults);
+                for (AggregationQueryResultList.AggregatedEntry entry : queryResults) {
+                    long time = AggregatedChangeLog.getChangeTimeMicros(entry.getId());
+                    if (time <= fromMicros || time > toMicros) {
+                        continue;
+                    }
+                    agg.value += agg.getDouble(entry.getValue());
+                    String kind = AggregatedChangeLog.getChangeKind(entry.getId());
+                    if (AggregatedChangeLog.ADDED.equals(kind)) {
+                        agg.count++;
+                    } else if (AggregatedChangeLog.REMOVED.equals(kind)) {
+                        agg.count--;
+                    }
+                }
+            }
+        }
+        return agg;
+    }
+
     public static <T extends DataObject> AggregatedValue getAggregatedValue(Iterator<AggregationQueryResultList.AggregatedEntry> it) {
         AggregatedValue agg = new AggregatedValue();
         while (it.hasNext()) {
@@ -25,6 +25,9 @@ public abstract class DbConfigConstants {
     // migration checkpoint - last executing migration callback
     public static final String MIGRATION_CHECKPOINT = "checkpoint";
 
+    // migration callbacks listed after the checkpoint which are done, when callbacks run in parallel
+    public static final String MIGRATION_DONE_CALLBACKS = "donecallbacks";
+
     // Node id(host name) to replace explicit node ip
     public static final String NODE_ID = "nodeid";
 
@@ -5,16 +5,21 @@
 
 package com.emc.storageos.db.client;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.emc.storageos.db.client.impl.BulkDataObjPersistIterator;
 import com.emc.storageos.db.client.impl.BulkDataObjQueryResultIterator;
+import com.emc.storageos.db.client.impl.PrefetchingQueryResultIterator;
 
 import com.emc.storageos.db.exceptions.DatabaseException;
 
@@ -80,6 +85,45 @@ public class BulkDataIteratorTest {
         Assert.assertEquals(200, count);
     }
 
+    @Test
+    public void testPrefetchingQueryResultIterator() {
+        List<URI> ids = new ArrayList();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(URI.create("file://tmp/a" + i));
+        }
+
+        // a single thread and queue slot, so that some batches are rejected and read by the consumer
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(1));
+        try {
+            PrefetchingQueryResultIterator<String> iterator =
+                    new PrefetchingQueryResultIterator<String>(ids.iterator(), 30, 4, executor) {
+                        @Override
+                        protected Collection<String> fetch(List<URI> batch) {
+                            // every other batch finds nothing
+                            List<String> data = new ArrayList<String>();
+                            int first = Integer.parseInt(batch.get(0).toString().substring("file://tmp/a".length()));
+                            if ((first / 30) % 2 == 0) {
+                                for (URI id : batch) {
+                                    data.add(id.toString());
+                                }
+                            }
+                            return data;
+                        }
+                    };
+
+            int last = -1;
+            while (iterator.hasNext()) {
+                int index = Integer.parseInt(iterator.next().substring("file://tmp/a".length()));
+                Assert.assertTrue(index > last);
+                last = index;
+            }
+            Assert.assertFalse(iterator.hasNext());
+            Assert.assertEquals(989, last);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private List<String> prepareQueryData() {
         // prepare bulk data
         List<String> data = new ArrayList();
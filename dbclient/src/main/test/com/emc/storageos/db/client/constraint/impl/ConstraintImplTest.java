@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.constraint.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.constraint.URIQueryResultList;
+import com.emc.storageos.db.client.impl.IndexColumnName;
+import com.emc.storageos.db.client.impl.TypeMap;
+import com.emc.storageos.db.client.model.DataObject;
+import com.emc.storageos.db.client.model.Volume;
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.connectionpool.OperationResult;
+import com.netflix.astyanax.connectionpool.exceptions.ConnectionException;
+import com.netflix.astyanax.model.Column;
+import com.netflix.astyanax.model.ColumnList;
+import com.netflix.astyanax.query.RowQuery;
+
+/**
+ * Reads one page of an index row returned by the DB in pages of three columns, checking that
+ * the page starts after startId, holds exactly pageCount distinct hits in the order of the
+ * columns, and that no more columns are read than needed.
+ */
+public class ConstraintImplTest {
+    private final List<List<String>> dbPages = new ArrayList<List<String>>();
+    private int executions;
+
+    /**
+     * Constraint reading one page of a given query
+     */
+    private static class PageConstraint extends ConstraintImpl<IndexColumnName> {
+        private final RowQuery<String, IndexColumnName> query;
+
+        PageConstraint(RowQuery<String, IndexColumnName> query, URI startId, int pageCount) {
+            super(TypeMap.getDoType(Volume.class).getColumnField("project"));
+            this.query = query;
+            setStartId(startId);
+            setPageCount(pageCount);
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        protected <T1> void queryOnePage(QueryResult<T1> result) throws ConnectionException {
+            queryOnePageWithAutoPaginate(query, result);
+        }
+
+        @Override
+        protected RowQuery<String, IndexColumnName> genQuery() {
+            return query;
+        }
+
+        @Override
+        protected URI getURI(Column<IndexColumnName> col) {
+            return URI.create(col.getName().getTwo());
+        }
+
+        @Override
+        protected <T1> T1 createQueryHit(QueryResult<T1> result, Column<IndexColumnName> col) {
+            return result.createQueryHit(getURI(col));
+        }
+
+        @Override
+        public void setKeyspace(Keyspace keyspace) {
+        }
+
+        @Override
+        public Class<? extends DataObject> getDataObjectType() {
+            return Volume.class;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        dbPages.clear();
+        // the second page repeats the last column of the first one, as auto pagination does
+        dbPages.add(Arrays.asList("id1", "id2", "id3"));
+        dbPages.add(Arrays.asList("id3", "id4", "id5"));
+        dbPages.add(Arrays.asList("id5", "id6"));
+        executions = 0;
+    }
+
+    @Test
+    public void testFirstPage() {
+        Assert.assertEquals(uris("id1", "id2", "id3", "id4"), queryPage(null, 4));
+        // the page ends on the fourth hit, the rest of the second DB page is not used
+        Assert.assertEquals(2, executions);
+    }
+
+    @Test
+    public void testPageBoundary() {
+        Assert.assertEquals(uris("id1", "id2", "id3"), queryPage(null, 3));
+        Assert.assertEquals(1, executions);
+
+        setUp();
+        Assert.assertEquals(uris("id4", "id5", "id6"), queryPage(URI.create("id3"), 3));
+    }
+
+    @Test
+    public void testNextPage() {
+        Assert.assertEquals(uris("id3", "id4"), queryPage(URI.create("id2"), 2));
+    }
+
+    @Test
+    public void testLastPage() {
+        Assert.assertEquals(uris("id5", "id6"), queryPage(URI.create("id4"), 10));
+        // read until the DB returns no more columns
+        Assert.assertEquals(4, executions);
+    }
+
+    private List<URI> queryPage(URI startId, int pageCount) {
+        URIQueryResultList result = new URIQueryResultList();
+        new PageConstraint(createQuery(), startId, pageCount).execute(result);
+        List<URI> ids = new ArrayList<URI>();
+        for (URI id : result) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static List<URI> uris(String... ids) {
+        List<URI> uris = new ArrayList<URI>();
+        for (String id : ids) {
+            uris.add(URI.create(id));
+        }
+        return uris;
+    }
+
+    /**
+     * Query returning the next DB page at every execution, then no columns
+     */
+    @SuppressWarnings("unchecked")
+    private RowQuery<String, IndexColumnName> createQuery() {
+        return (RowQuery<String, IndexColumnName>) Proxy.newProxyInstance(RowQuery.class.getClassLoader(),
+                new Class<?>[] { RowQuery.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("autoPaginate")) {
+                            return proxy;
+                        } else if (name.equals("execute")) {
+                            List<String> page = executions < dbPages.size() ? dbPages.get(executions) : Collections.<String> emptyList();
+                            executions++;
+                            return createResult(createColumns(page));
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    private static OperationResult<?> createResult(final ColumnList<IndexColumnName> columns) {
+        return (OperationResult<?>) Proxy.newProxyInstance(OperationResult.class.getClassLoader(),
+                new Class<?>[] { OperationResult.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getResult")) {
+                            return columns;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ColumnList<IndexColumnName> createColumns(List<String> ids) {
+        final List<Column<IndexColumnName>> columns = new ArrayList<Column<IndexColumnName>>();
+        for (String id : ids) {
+            columns.add(createColumn(new IndexColumnName("Volume", id, null)));
+        }
+        return (ColumnList<IndexColumnName>) Proxy.newProxyInstance(ColumnList.class.getClassLoader(),
+                new Class<?>[] { ColumnList.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("iterator")) {
+                            return columns.iterator();
+                        } else if (name.equals("isEmpty")) {
+                            return columns.isEmpty();
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Column<IndexColumnName> createColumn(final IndexColumnName columnName) {
+        return (Column<IndexColumnName>) Proxy.newProxyInstance(Column.class.getClassLoader(),
+                new Class<?>[] { Column.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getName")) {
+                            return columnName;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.constraint.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.TimestampedURIQueryResult;
+import com.emc.storageos.db.client.impl.IndexColumnName;
+import com.emc.storageos.db.client.impl.TypeMap;
+import com.emc.storageos.db.client.model.Task;
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.connectionpool.OperationResult;
+import com.netflix.astyanax.model.ByteBufferRange;
+import com.netflix.astyanax.model.Column;
+import com.netflix.astyanax.model.ColumnList;
+import com.netflix.astyanax.query.ColumnFamilyQuery;
+import com.netflix.astyanax.query.RowQuery;
+import com.netflix.astyanax.util.TimeUUIDUtils;
+
+/**
+ * Reads pages of the tasks of a tenant index row, checking that every page seeks to the column
+ * following startId, so that the columns of the previous pages are not read again, and that only
+ * the tasks of the time window are returned.
+ */
+public class TimedContainmentConstraintImplTest {
+    private static final URI TENANT = URI.create("urn:storageos:TenantOrg:1:global");
+
+    private final List<IndexColumnName> row = new ArrayList<IndexColumnName>();
+    private final List<String> readIds = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        row.clear();
+        readIds.clear();
+        // task ids in the order of the index, created one second apart in reverse order
+        for (int i = 1; i <= 6; i++) {
+            row.add(new IndexColumnName("Task", "task" + i, "label" + i, TimeUUIDUtils.getTimeUUID((10 - i) * 1000L)));
+        }
+    }
+
+    @Test
+    public void testPages() {
+        Assert.assertEquals(uris("task1", "task2", "task3"), queryPage(null, 3, -1, -1));
+
+        readIds.clear();
+        Assert.assertEquals(uris("task4", "task5", "task6"), queryPage(URI.create("task3"), 3, -1, -1));
+        // the row is read from the column following startId
+        Assert.assertEquals(Arrays.asList("task6", "task4", "task5", "task6"), readIds);
+
+        readIds.clear();
+        Assert.assertEquals(uris(), queryPage(URI.create("task6"), 3, -1, -1));
+        Assert.assertEquals(Arrays.asList("task6"), readIds);
+    }
+
+    @Test
+    public void testTimeWindow() {
+        // task2 and task5 are out of the window, more columns are read to fill the page
+        Assert.assertEquals(uris("task3", "task4"), queryPage(null, 2, 5500, 7500));
+        Assert.assertEquals(uris(), queryPage(URI.create("task4"), 2, 5500, 7500));
+    }
+
+    @Test
+    public void testEmptyRow() {
+        row.clear();
+        Assert.assertEquals(uris(), queryPage(null, 3, -1, -1));
+    }
+
+    private List<URI> queryPage(URI startId, int pageCount, long startTime, long endTime) {
+        TimedContainmentConstraintImpl constraint = new TimedContainmentConstraintImpl(TENANT, startTime, endTime, Task.class,
+                TypeMap.getDoType(Task.class).getColumnField("tenant"));
+        constraint.setKeyspace(createKeyspace());
+        constraint.setStartId(startId);
+        constraint.setPageCount(pageCount);
+
+        TimestampedURIQueryResult result = new TimestampedURIQueryResult();
+        constraint.execute(result);
+        List<URI> ids = new ArrayList<URI>();
+        for (TimestampedURIQueryResult.TimestampedURI task : result) {
+            ids.add(task.getUri());
+        }
+        return ids;
+    }
+
+    private static List<URI> uris(String... ids) {
+        List<URI> uris = new ArrayList<URI>();
+        for (String id : ids) {
+            uris.add(URI.create(id));
+        }
+        return uris;
+    }
+
+    /**
+     * Returns the columns of the row in the range: the last column of a reversed range, else the
+     * columns following the id of the range start if any
+     */
+    private List<IndexColumnName> getColumns(ByteBufferRange range) {
+        List<IndexColumnName> columns = new ArrayList<IndexColumnName>();
+        if (row.isEmpty()) {
+            return columns;
+        }
+        if (range.isReversed()) {
+            columns.add(row.get(row.size() - 1));
+        } else {
+            String startId = getStartId(range.getStart());
+            for (IndexColumnName column : row) {
+                if (columns.size() < range.getLimit() && (startId == null || column.getTwo().compareTo(startId) > 0)) {
+                    columns.add(column);
+                }
+            }
+        }
+        for (IndexColumnName column : columns) {
+            readIds.add(column.getTwo());
+        }
+        return columns;
+    }
+
+    /**
+     * @return the second component of the composite range start, null if there is none
+     */
+    private static String getStartId(ByteBuffer start) {
+        ByteBuffer buffer = start.duplicate();
+        List<String> components = new ArrayList<String>();
+        while (buffer.remaining() > 0) {
+            byte[] component = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(component);
+            buffer.get(); // end of component
+            components.add(new String(component, StandardCharsets.UTF_8));
+        }
+        return components.size() > 1 ? components.get(1) : null;
+    }
+
+    private Keyspace createKeyspace() {
+        return (Keyspace) proxy(Keyspace.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("prepareQuery")) {
+                    return proxy(ColumnFamilyQuery.class, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            if (method.getName().equals("getKey")) {
+                                Assert.assertEquals(TENANT.toString(), args[0]);
+                                return createRowQuery();
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private Object createRowQuery() {
+        final ByteBufferRange[] range = new ByteBufferRange[1];
+        return proxy(RowQuery.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("withColumnRange") && args.length == 1 && args[0] instanceof ByteBufferRange) {
+                    range[0] = (ByteBufferRange) args[0];
+                    return proxy;
+                } else if (name.equals("execute")) {
+                    return createResult(createColumns(getColumns(range[0])));
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    private static OperationResult<?> createResult(final ColumnList<IndexColumnName> columns) {
+        return (OperationResult<?>) proxy(OperationResult.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getResult")) {
+                    return columns;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ColumnList<IndexColumnName> createColumns(List<IndexColumnName> columnNames) {
+        final List<Column<IndexColumnName>> columns = new ArrayList<Column<IndexColumnName>>();
+        for (IndexColumnName columnName : columnNames) {
+            columns.add(createColumn(columnName));
+        }
+        return (ColumnList<IndexColumnName>) proxy(ColumnList.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("iterator")) {
+                    return columns.iterator();
+                } else if (name.equals("isEmpty")) {
+                    return columns.isEmpty();
+                } else if (name.equals("getColumnByIndex")) {
+                    return columns.get((Integer) args[0]);
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Column<IndexColumnName> createColumn(final IndexColumnName columnName) {
+        return (Column<IndexColumnName>) proxy(Column.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getName")) {
+                    return columnName;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
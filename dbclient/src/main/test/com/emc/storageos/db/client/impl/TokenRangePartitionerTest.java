@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.client.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.model.Volume;
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.connectionpool.TokenRange;
+import com.netflix.astyanax.partitioner.Murmur3Partitioner;
+import com.netflix.astyanax.serializers.StringSerializer;
+
+/**
+ * Splits row keys over a ring of two token ranges, checking the replicas and size of the
+ * partitions, and that the ring and partitioner are read once per refresh interval.
+ */
+public class TokenRangePartitionerTest {
+    private static final int ID_COUNT = 250;
+    private static final int PARTITION_SIZE = 50;
+
+    private final List<URI> ids = new ArrayList<URI>();
+    private int ringReads;
+    private int partitionerReads;
+    private boolean ringAvailable;
+
+    @Before
+    public void setUp() {
+        ids.clear();
+        for (int i = 0; i < ID_COUNT; i++) {
+            ids.add(URIUtil.createId(Volume.class));
+        }
+        ringReads = 0;
+        partitionerReads = 0;
+        ringAvailable = true;
+    }
+
+    @Test
+    public void testSplitByReplicas() {
+        TokenRangePartitioner partitioner = new TokenRangePartitioner();
+        Keyspace keyspace = createKeyspace();
+        List<List<URI>> partitions = partitioner.split(keyspace, ids, PARTITION_SIZE);
+
+        List<URI> splitIds = new ArrayList<URI>();
+        for (List<URI> partition : partitions) {
+            Assert.assertTrue(partition.size() <= PARTITION_SIZE);
+            boolean firstRange = isInFirstRange(partition.get(0));
+            for (URI id : partition) {
+                Assert.assertEquals(firstRange, isInFirstRange(id));
+            }
+            splitIds.addAll(partition);
+        }
+        Assert.assertEquals(ID_COUNT, splitIds.size());
+        Assert.assertTrue(splitIds.containsAll(ids));
+
+        // the ring and the partitioner are cached
+        partitioner.split(keyspace, ids, PARTITION_SIZE);
+        Assert.assertEquals(1, ringReads);
+        Assert.assertEquals(1, partitionerReads);
+    }
+
+    @Test
+    public void testRingUnavailable() {
+        ringAvailable = false;
+        TokenRangePartitioner partitioner = new TokenRangePartitioner();
+        Keyspace keyspace = createKeyspace();
+        List<List<URI>> partitions = partitioner.split(keyspace, ids, PARTITION_SIZE);
+
+        // split by size only, in the order of the ids
+        Assert.assertEquals(ID_COUNT / PARTITION_SIZE, partitions.size());
+        List<URI> splitIds = new ArrayList<URI>();
+        for (List<URI> partition : partitions) {
+            Assert.assertEquals(PARTITION_SIZE, partition.size());
+            splitIds.addAll(partition);
+        }
+        Assert.assertEquals(ids, splitIds);
+
+        // not read again until the next refresh
+        partitioner.split(keyspace, ids, PARTITION_SIZE);
+        Assert.assertEquals(1, ringReads);
+    }
+
+    private static boolean isInFirstRange(URI id) {
+        String token = Murmur3Partitioner.get().getTokenForKey(StringSerializer.get().toByteBuffer(id.toString()));
+        return new BigInteger(token).signum() <= 0;
+    }
+
+    /**
+     * Keyspace whose ring is split at token 0 between two nodes
+     */
+    private Keyspace createKeyspace() {
+        final List<TokenRange> ring = Arrays.asList(
+                createTokenRange(Long.toString(Long.MAX_VALUE), "0", "node1"),
+                createTokenRange("0", Long.toString(Long.MAX_VALUE), "node2"));
+        return (Keyspace) Proxy.newProxyInstance(Keyspace.class.getClassLoader(), new Class<?>[] { Keyspace.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("getKeyspaceName")) {
+                            return "StorageOS";
+                        } else if (name.equals("describeRing") && (args == null || args.length == 0)) {
+                            ringReads++;
+                            if (!ringAvailable) {
+                                throw new IllegalStateException("ring unavailable");
+                            }
+                            return ring;
+                        } else if (name.equals("getPartitioner")) {
+                            partitionerReads++;
+                            return Murmur3Partitioner.get();
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    private static TokenRange createTokenRange(final String startToken, final String endToken, final String endpoint) {
+        return (TokenRange) Proxy.newProxyInstance(TokenRange.class.getClassLoader(), new Class<?>[] { TokenRange.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("getStartToken")) {
+                            return startToken;
+                        } else if (name.equals("getEndToken")) {
+                            return endToken;
+                        } else if (name.equals("getEndpoints")) {
+                            return Arrays.asList(endpoint);
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+}
@@ -84,6 +84,7 @@ public class DbManager implements DbManagerMBean {
     // Max retry times after a db repair failure
     private int repairRetryTimes = 5;
     private ScheduledExecutorService executor = new NamedScheduledThreadPoolExecutor("DbRepairPool", 3);
+    private RepairJobRunner.Options repairOptions = new RepairJobRunner.Options();
     
     public void setCoordinator(CoordinatorClient coordinator) {
         this.coordinator = coordinator;
@@ -106,6 +107,42 @@ public class DbManager implements DbManagerMBean {
         this.repairFreqMin = repairFreqMin;
     }
 
+    /**
+     * Number of subranges each local range is split into for repair
+     */
+    public void setRepairRangeSplits(int repairRangeSplits) {
+        this.repairOptions.setRangeSplits(repairRangeSplits);
+    }
+
+    /**
+     * Number of subranges repaired at the same time, 1 by default. More than 1 makes the
+     * subranges fully repaired instead of incrementally, see RepairJobRunner.Options.setParallelism
+     */
+    public void setRepairParallelism(int repairParallelism) {
+        this.repairOptions.setParallelism(repairParallelism);
+    }
+
+    /**
+     * Number of column families with the most writes repaired before the others
+     */
+    public void setRepairPriorityColumnFamilies(int repairPriorityColumnFamilies) {
+        this.repairOptions.setPriorityColumnFamilies(repairPriorityColumnFamilies);
+    }
+
+    /**
+     * Stream throughput in megabits per second during repair, 0 for no limit other than the configured one
+     */
+    public void setRepairStreamThroughputMbPerSec(int repairStreamThroughputMbPerSec) {
+        this.repairOptions.setStreamThroughputMbPerSec(repairStreamThroughputMbPerSec);
+    }
+
+    /**
+     * Compaction throughput in megabytes per second during repair, 0 for no limit other than the configured one
+     */
+    public void setRepairCompactionThroughputMbPerSec(int repairCompactionThroughputMbPerSec) {
+        this.repairOptions.setCompactionThroughputMbPerSec(repairCompactionThroughputMbPerSec);
+    }
+
     /**
      * Start a node repair
      * 
@@ -119,6 +156,7 @@ public class DbManager implements DbManagerMBean {
     private boolean startNodeRepair(String keySpaceName, int maxRetryTimes, boolean crossVdc, boolean noNewReapir) throws Exception {
         DbRepairRunnable runnable = new DbRepairRunnable(jmxServer, this.executor, this.coordinator, keySpaceName,
                 this.schemaUtil.isGeoDbsvc(), maxRetryTimes, noNewReapir);
+        runnable.setRepairOptions(this.repairOptions);
         // call preConfig() here to set IN_PROGRESS for db repair triggered by schedule since we use it in getDbRepairStatus.
         runnable.preConfig();
         synchronized (runnable) {
@@ -224,8 +262,12 @@ public class DbManager implements DbManagerMBean {
     private static DbRepairStatus getLastRepairStatus(DbRepairJobState state, String clusterDigest, int maxRetryTime) {
         if (state.getCurrentDigest() != null && (clusterDigest == null || clusterDigest.equals(state.getCurrentDigest()))) {
             if (state.getCurrentRetry() <= maxRetryTime) {
-                return new DbRepairStatus(DbRepairStatus.Status.IN_PROGRESS,
+                DbRepairStatus status = new DbRepairStatus(DbRepairStatus.Status.IN_PROGRESS,
                         new Date(state.getCurrentStartTime()), null, state.getCurrentProgress());
+                if (state.getCurrentEstimatedEndTime() != null) {
+                    status.setEstimatedCompletionTime(new Date(state.getCurrentEstimatedEndTime()));
+                }
+                return status;
             } else {
                 return new DbRepairStatus(DbRepairStatus.Status.FAILED,
                         new Date(state.getCurrentStartTime()), new Date(state.getCurrentUpdateTime()),
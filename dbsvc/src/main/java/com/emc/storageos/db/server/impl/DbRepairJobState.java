@@ -13,6 +13,8 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DbRepairJobState implements CoordinatorSerializable {
     private static final Logger log = LoggerFactory.getLogger(DbRepairJobState.class);
@@ -31,6 +33,9 @@ public class DbRepairJobState implements CoordinatorSerializable {
     private Integer currentProgress;
     private Integer currentRetry;
     private Boolean currentCrossVdc;
+    private List<String> currentRepairedRanges;
+    private List<String> currentPriorityColumnFamilies;
+    private Long currentEstimatedEndTime;
 
     public DbRepairJobState() {
     }
@@ -151,6 +156,30 @@ public class DbRepairJobState implements CoordinatorSerializable {
         this.currentCrossVdc = currentCrossVdc;
     }
 
+    public List<String> getCurrentRepairedRanges() {
+        return currentRepairedRanges;
+    }
+
+    public void setCurrentRepairedRanges(List<String> currentRepairedRanges) {
+        this.currentRepairedRanges = currentRepairedRanges;
+    }
+
+    public List<String> getCurrentPriorityColumnFamilies() {
+        return currentPriorityColumnFamilies;
+    }
+
+    public void setCurrentPriorityColumnFamilies(List<String> currentPriorityColumnFamilies) {
+        this.currentPriorityColumnFamilies = currentPriorityColumnFamilies;
+    }
+
+    public Long getCurrentEstimatedEndTime() {
+        return currentEstimatedEndTime;
+    }
+
+    public void setCurrentEstimatedEndTime(Long currentEstimatedEndTime) {
+        this.currentEstimatedEndTime = currentEstimatedEndTime;
+    }
+
     @Override
     public String encodeAsString() {
         return toString();
@@ -198,10 +227,17 @@ public class DbRepairJobState implements CoordinatorSerializable {
         this.currentRetry++;
     }
 
+    // currentToken is the last repaired subrange, so that a repair with repaired subranges can be resumed
     @JsonIgnore
-    public void updateProgress(int progress, String currentToken) {
+    public void rangeRepaired(String range, int progress, long estimatedEndTime) {
+        if (this.currentRepairedRanges == null) {
+            this.currentRepairedRanges = new ArrayList<>();
+        }
+        this.currentRepairedRanges.add(range);
         this.currentProgress = progress;
-        this.currentToken = currentToken;
+        this.currentToken = range;
+        this.currentEstimatedEndTime = estimatedEndTime;
+        this.currentUpdateTime = System.currentTimeMillis();
     }
 
     @JsonIgnore
@@ -226,6 +262,9 @@ public class DbRepairJobState implements CoordinatorSerializable {
         this.currentWorker = null;
         this.currentStartTime = null;
         this.currentCrossVdc = null;
+        this.currentRepairedRanges = null;
+        this.currentPriorityColumnFamilies = null;
+        this.currentEstimatedEndTime = null;
     }
 
     @JsonIgnore
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -41,8 +42,9 @@ public class DbRepairRunnable implements Runnable {
         STARTED, ALREADY_RUNNING, NOT_THE_TIME, NOTHING_TO_RESUME
     }
 
-    // Minutes to sleep for next retry after db repair failure
-    private int repairRetryMin = 60;
+    // Minutes to sleep for next retry after db repair failure. Failed subranges are retried by the
+    // job itself, and a retry resumes with the subranges not yet repaired
+    private int repairRetryMin = 15;
 
     private ScheduledExecutorService executor;
     private CoordinatorClient coordinator;
@@ -52,7 +54,7 @@ public class DbRepairRunnable implements Runnable {
     private int maxRetryTimes;
     private boolean noNewRepair;
     private JmxServerWrapper jmxServer;
-
+    private RepairJobRunner.Options repairOptions = new RepairJobRunner.Options();
 
     // Status reporting to caller that scheduled this thread to run.
     private Exception threadException;
@@ -69,6 +71,10 @@ public class DbRepairRunnable implements Runnable {
         this.noNewRepair = noNewRepair;
     }
 
+    public void setRepairOptions(RepairJobRunner.Options repairOptions) {
+        this.repairOptions = repairOptions;
+    }
+
     public StartStatus getStatus() throws Exception {
         if (this.threadException != null) {
             throw this.threadException;
@@ -151,9 +157,19 @@ public class DbRepairRunnable implements Runnable {
     private RepairJobRunner createJobRunner(JmxServerWrapper jmxServer) throws IOException {
         RepairJobRunner.ProgressNotificationListener listener = new RepairJobRunner.ProgressNotificationListener() {
             @Override
-            public void onStartToken(String token, int progress) {
+            public void onStart(List<String> priorityColumnFamilies) {
+                try {
+                    state.setCurrentPriorityColumnFamilies(priorityColumnFamilies);
+                    saveStates();
+                } catch (Exception e) {
+                    log.error("Exception when updating repair plan", e);
+                }
+            }
+
+            @Override
+            public void onRangeRepaired(String range, int progress, long estimatedEndTime) {
                 try {
-                    state.updateProgress(progress, token);
+                    state.rangeRepaired(range, progress, estimatedEndTime);
                     saveStates();
                 } catch (Exception e) {
                     log.error("Exception when updating repair progress", e);
@@ -162,7 +178,8 @@ public class DbRepairRunnable implements Runnable {
         };
 
         RepairJobRunner runner = new RepairJobRunner(jmxServer, StorageService.instance, this.keySpaceName, this.executor,
-                listener, this.state.getCurrentToken(), this.state.getCurrentDigest());
+                listener, this.state.getCurrentRepairedRanges(), this.state.getCurrentPriorityColumnFamilies(),
+                this.state.getCurrentDigest(), this.repairOptions);
 
         jmxServer.addConnectionNotificiationListener(runner, null, null);
         StorageService.instance.addNotificationListener(runner, null, null);
@@ -9,9 +9,15 @@ import java.io.StringReader;
 import java.lang.annotation.Annotation;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 
 import com.emc.storageos.db.common.*;
 import com.emc.storageos.services.util.AlertsLogger;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
 import com.emc.storageos.svcs.errorhandling.resources.MigrationCallbackException;
 
 import org.apache.commons.lang.StringUtils;
@@ -57,6 +63,7 @@ public class MigrationHandlerImpl implements MigrationHandler {
     private static final int WAIT_TIME_BEFORE_RETRY_MSEC = 5 * 1000; // 5 sec
     private static final String DB_MIGRATION_LOCK = "dbmigration";
     private static final int MAX_MIGRATION_RETRY = 10;
+    private static final int DEFAULT_MAX_PARALLEL_CALLBACKS = 4;
 
     private CoordinatorClient coordinator;
     private InternalDbClient dbClient;
@@ -68,6 +75,7 @@ public class MigrationHandlerImpl implements MigrationHandler {
     private Map<String, List<BaseCustomMigrationCallback>> customMigrationCallbacks;
     private DbServiceStatusChecker statusChecker;
     private SchemaUtil schemaUtil;
+    private int maxParallelCallbacks = DEFAULT_MAX_PARALLEL_CALLBACKS;
 
     String targetVersion;
     String failedCallbackName;
@@ -157,6 +165,15 @@ public class MigrationHandlerImpl implements MigrationHandler {
         this.statusChecker = statusChecker;
     }
 
+    /**
+     * Set the max number of migration callbacks run at the same time, see @MigrationDependencies
+     *
+     * @param maxParallelCallbacks
+     */
+    public void setMaxParallelCallbacks(int maxParallelCallbacks) {
+        this.maxParallelCallbacks = maxParallelCallbacks;
+    }
+
     public void setSchemaUtil(SchemaUtil util) {
         schemaUtil = util;
     }
@@ -477,41 +494,198 @@ public class MigrationHandlerImpl implements MigrationHandler {
         callbacks.addAll(generateCustomMigrationCallbacks());
 
         log.info("Total {} migration callbacks ", callbacks.size());
+
+        // ignore the callbacks up to the given checkpoint, and the ones after it which were done in parallel
+        Set<String> doneCallbacks = schemaUtil.getMigrationDoneCallbacks();
+        if (checkpoint != null) {
+            for (MigrationCallback callback : callbacks) {
+                doneCallbacks.add(callback.getName());
+                if (callback.getName().equals(checkpoint)) {
+                    break;
+                }
+            }
+        }
+
         DbClientContext geoContext = disableGeoAccess();
-        boolean startProcessing = false;
         try {
-            for (MigrationCallback callback : callbacks) {
-                // ignore the callback if it is before given checkpoint
-                if (!startProcessing && checkpoint != null) {
-                    if (!callback.getName().equals(checkpoint)) {
-                        log.info("Ignore migration callback: " + callback.getName());
+            runMigrationCallbacks(callbacks, doneCallbacks);
+        } finally {
+            enableGeoAccess(geoContext);
+        }
+    }
+
+    /**
+     * Runs the callbacks which are not done yet. A callback starts once the callbacks it depends on are done.
+     * Callbacks annotated with @MigrationDependencies run on a pool of maxParallelCallbacks threads, the other
+     * callbacks run alone on the calling thread, as they did before callbacks could run in parallel.
+     *
+     * @param callbacks all the callbacks of the migration, in the order they are listed
+     * @param doneCallbacks names of the callbacks done already, updated as callbacks are done
+     */
+    void runMigrationCallbacks(List<MigrationCallback> callbacks, Set<String> doneCallbacks)
+            throws MigrationCallbackException {
+        Map<String, Set<String>> dependencies = getCallbackDependencies(callbacks);
+        List<MigrationCallback> pending = new ArrayList<>();
+        for (MigrationCallback callback : callbacks) {
+            if (doneCallbacks.contains(callback.getName())) {
+                log.info("Ignore migration callback: " + callback.getName());
+            } else {
+                pending.add(callback);
+            }
+        }
+
+        ExecutorService executor = null;
+        CompletionService<CallbackResult> completionService = null;
+        int running = 0;
+        MigrationCallbackException failure = null;
+        try {
+            while (running > 0 || (failure == null && !pending.isEmpty())) {
+                // start the parallel callbacks whose dependencies are done, none after a failure
+                MigrationCallback nextSerial = null;
+                Iterator<MigrationCallback> it = pending.iterator();
+                while (failure == null && it.hasNext()) {
+                    final MigrationCallback callback = it.next();
+                    if (!doneCallbacks.containsAll(dependencies.get(callback.getName()))) {
                         continue;
-                    } else {
-                        // Start from next callback
-                        startProcessing = true;
+                    }
+                    if (!isParallel(callback)) {
+                        if (nextSerial == null) {
+                            nextSerial = callback;
+                        }
                         continue;
                     }
+                    if (executor == null) {
+                        executor = new NamedThreadPoolExecutor("MigrationCallbacks", Math.max(1, maxParallelCallbacks));
+                        completionService = new ExecutorCompletionService<>(executor);
+                    }
+                    it.remove();
+                    running++;
+                    completionService.submit(new Callable<CallbackResult>() {
+                        @Override
+                        public CallbackResult call() {
+                            return invokeMigrationCallback(callback);
+                        }
+                    });
                 }
 
-                long beginTime = System.currentTimeMillis();
-                log.info("Invoking migration callback: {}", callback.getName());
-                try {
-                    callback.process();
-                } catch (MigrationCallbackException ex) {
-                	throw ex;
-                } catch (Exception e) {
-                	String msg = String.format("%s fail,Please contract the EMC support team", callback.getName());
-                    throw new MigrationCallbackException(msg,e);
-                } finally {
-                    log.info("Migration callback {} finished with time: {}", callback.getName(),
-                            DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - beginTime));
+                CallbackResult result;
+                if (running > 0) {
+                    result = completionService.take().get();
+                    running--;
+                } else if (nextSerial != null) {
+                    // a serial callback waits for the parallel callbacks to finish
+                    pending.remove(nextSerial);
+                    result = invokeMigrationCallback(nextSerial);
+                } else {
+                    throw new IllegalStateException("Circular dependencies between migration callbacks "
+                            + getCallbackNames(pending));
+                }
+
+                if (result.failure != null) {
+                    if (failure == null) {
+                        failure = result.failure;
+                        failedCallbackName = result.callback.getName();
+                    }
+                    continue;
                 }
+                doneCallbacks.add(result.callback.getName());
                 // Update checkpoint
-                schemaUtil.setMigrationCheckpoint(callback.getName());
+                setMigrationCheckpoint(callbacks, doneCallbacks);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationCallbackException("Migration callbacks interrupted", e);
+        } catch (ExecutionException e) {
+            throw new MigrationCallbackException("Migration callbacks failed", e.getCause());
         } finally {
-            enableGeoAccess(geoContext);
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static boolean isParallel(MigrationCallback callback) {
+        return callback.getClass().isAnnotationPresent(MigrationDependencies.class);
+    }
+
+    private static class CallbackResult {
+        private final MigrationCallback callback;
+        private final MigrationCallbackException failure;
+
+        CallbackResult(MigrationCallback callback, MigrationCallbackException failure) {
+            this.callback = callback;
+            this.failure = failure;
+        }
+    }
+
+    private CallbackResult invokeMigrationCallback(MigrationCallback callback) {
+        long beginTime = System.currentTimeMillis();
+        log.info("Invoking migration callback: {}", callback.getName());
+        try {
+            callback.process();
+            return new CallbackResult(callback, null);
+        } catch (MigrationCallbackException ex) {
+            return new CallbackResult(callback, ex);
+        } catch (Exception e) {
+            String msg = String.format("%s fail,Please contract the EMC support team", callback.getName());
+            return new CallbackResult(callback, new MigrationCallbackException(msg, e));
+        } finally {
+            log.info("Migration callback {} finished with time: {}", callback.getName(),
+                    DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - beginTime));
+        }
+    }
+
+    /**
+     * Callbacks annotated with @MigrationDependencies depend on the listed callbacks of this migration only,
+     * the other callbacks depend on all the callbacks listed before them.
+     *
+     * @return names of the callbacks each callback depends on, by callback name
+     */
+    private Map<String, Set<String>> getCallbackDependencies(List<MigrationCallback> callbacks) {
+        Set<String> names = new HashSet<>(getCallbackNames(callbacks));
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        List<String> previous = new ArrayList<>();
+        for (MigrationCallback callback : callbacks) {
+            Set<String> callbackDependencies = new HashSet<>();
+            MigrationDependencies annotation = callback.getClass().getAnnotation(MigrationDependencies.class);
+            if (annotation == null) {
+                callbackDependencies.addAll(previous);
+            } else {
+                for (Class<? extends BaseCustomMigrationCallback> dependency : annotation.value()) {
+                    // callbacks of earlier migrations are done already
+                    if (names.contains(dependency.getName())) {
+                        callbackDependencies.add(dependency.getName());
+                    }
+                }
+            }
+            dependencies.put(callback.getName(), callbackDependencies);
+            previous.add(callback.getName());
+        }
+        return dependencies;
+    }
+
+    /**
+     * Saves the last callback of the callbacks which are all done as checkpoint,
+     * along with the callbacks after it which are done
+     */
+    private void setMigrationCheckpoint(List<MigrationCallback> callbacks, Set<String> doneCallbacks) {
+        String checkpoint = null;
+        boolean allDone = true;
+        List<String> doneAfterCheckpoint = new ArrayList<>();
+        for (MigrationCallback callback : callbacks) {
+            if (!doneCallbacks.contains(callback.getName())) {
+                allDone = false;
+            } else if (allDone) {
+                checkpoint = callback.getName();
+            } else {
+                doneAfterCheckpoint.add(callback.getName());
+            }
         }
+        schemaUtil.setMigrationCheckpoint(checkpoint, doneAfterCheckpoint);
     }
 
     private void enableGeoAccess(DbClientContext geoContext) {
@@ -6,9 +6,12 @@ package com.emc.storageos.db.server.impl;
 
 import com.emc.storageos.services.util.JmxServerWrapper;
 import com.emc.storageos.services.util.TimeUtils;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.service.StorageServiceMBean;
+import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
 
@@ -21,11 +24,19 @@ import javax.management.remote.JMXConnectionNotification;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledFuture;
@@ -36,11 +47,116 @@ import java.util.concurrent.locks.ReentrantLock;
 /**
  * Class handles running repair job and listening for messages related modeled
  * after org.apache.cassandra.tools.NodeProbe.RepairRunner
+ *
+ * The local ranges are split into subranges, which are repaired a few at a time, so that a
+ * repair session streams a small part of the data and a failed session is retried on its own.
+ * The column families written most on this node are repaired first, in a pass of their own.
+ * Each repaired subrange is reported to the listener, which checkpoints it so that an
+ * interrupted repair resumes with the subranges not yet repaired.
  */
 public class RepairJobRunner implements NotificationListener, AutoCloseable {
 
     public static interface ProgressNotificationListener {
-        public void onStartToken(String token, int progress);
+        /**
+         * Called before the first subrange is repaired
+         *
+         * @param priorityColumnFamilies column families repaired first, empty if all are repaired together
+         */
+        public void onStart(List<String> priorityColumnFamilies);
+
+        /**
+         * Called when a subrange of a pass is repaired
+         *
+         * @param range key of the pass and subrange
+         * @param progress percentage of the repaired subranges
+         * @param estimatedEndTime estimated time the job completes at, in milliseconds since epoch
+         */
+        public void onRangeRepaired(String range, int progress, long estimatedEndTime);
+    }
+
+    /**
+     * Tuning of a repair job, shared by the repairs of local and geo db
+     */
+    public static class Options {
+        private int rangeSplits = 4;
+        private int parallelism = 1;
+        private int maxRangeAttempts = 3;
+        private int priorityColumnFamilies = 5;
+        private int streamThroughputMbPerSec = 0;
+        private int compactionThroughputMbPerSec = 0;
+
+        public int getRangeSplits() {
+            return rangeSplits;
+        }
+
+        /**
+         * Minimum number of subranges each local range is split into, rounded up to a power of two
+         */
+        public void setRangeSplits(int rangeSplits) {
+            this.rangeSplits = rangeSplits;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Number of subranges repaired at the same time, 1 by default. Incremental repair sessions
+         * cannot run over the same sstables at once, so subranges are fully repaired when this is
+         * more than 1: each session then validates and streams all the data of its subrange rather
+         * than the data written since the last repair, which makes the job shorter only when the
+         * cluster has the IO to spare for it.
+         */
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getMaxRangeAttempts() {
+            return maxRangeAttempts;
+        }
+
+        /**
+         * Number of times a subrange is repaired before the job fails and is retried later
+         */
+        public void setMaxRangeAttempts(int maxRangeAttempts) {
+            this.maxRangeAttempts = maxRangeAttempts;
+        }
+
+        public int getPriorityColumnFamilies() {
+            return priorityColumnFamilies;
+        }
+
+        /**
+         * Number of column families with the most writes repaired before the others, 0 to repair
+         * all column families together
+         */
+        public void setPriorityColumnFamilies(int priorityColumnFamilies) {
+            this.priorityColumnFamilies = priorityColumnFamilies;
+        }
+
+        public int getStreamThroughputMbPerSec() {
+            return streamThroughputMbPerSec;
+        }
+
+        /**
+         * Stream throughput in megabits per second while the job runs, 0 (the default) to keep the
+         * configured one
+         */
+        public void setStreamThroughputMbPerSec(int streamThroughputMbPerSec) {
+            this.streamThroughputMbPerSec = streamThroughputMbPerSec;
+        }
+
+        public int getCompactionThroughputMbPerSec() {
+            return compactionThroughputMbPerSec;
+        }
+
+        /**
+         * Compaction (and validation) throughput in megabytes per second while the job runs, 0 to
+         * keep the configured one
+         */
+        public void setCompactionThroughputMbPerSec(int compactionThroughputMbPerSec) {
+            this.compactionThroughputMbPerSec = compactionThroughputMbPerSec;
+        }
     }
 
     private static final Logger _log = LoggerFactory
@@ -49,9 +165,12 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
             "yyyy-MM-dd HH:mm:ss,SSS");
     private static final int MIN_MINUTE_FOR_REPAIR_TIME_IN_LOG = 5;
 
+    private static final String ALL_PASS = "all";
+    private static final String PRIORITY_PASS = "priority";
+    private static final String OTHER_PASS = "other";
+
     final private Lock lock = new ReentrantLock();
     final private Condition finished = lock.newCondition();
-    private boolean repairRangeDone = false;
 
     public static enum RepairJobStatus {
         SUCCESS, FAILED_NEED_RETRY, FAILED
@@ -89,14 +208,29 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
     private ScheduledExecutorService _exe;
 
     /**
-     * Flag to indicate if current job is aborted
+     * Flag to indicate if current job is aborted, set by the job monitor
+     */
+    private volatile boolean _aborted = false;
+
+    /**
+     * Keys of the subranges that are successfully repaired
+     */
+    private final Set<String> _repairedRanges = new HashSet<>();
+
+    /**
+     * Column families repaired first, null until the job is planned
+     */
+    private List<String> _priorityColumnFamilies;
+
+    /**
+     * Repair commands running, by command number
      */
-    private boolean _aborted = false;
+    private final Map<Integer, RepairTask> _runningTasks = new HashMap<>();
 
     /**
-     * Token that is successfully repaired
+     * Result of the repair commands that finished, by command number
      */
-    private String _lastToken = null;
+    private final Map<Integer, Boolean> _finishedCommands = new LinkedHashMap<>();
 
     private ProgressNotificationListener listener;
 
@@ -108,25 +242,35 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
 
     private String clusterStateDigest;
 
+    private Options options;
+
     /**
-     * 
+     *
      * @param svcProxy
      *            Reference to Cassandra JMX bean
      * @param keySpaceName
      *            ViPR table name
      * @param exe
      * @param listener
-     * @param startToken
+     * @param repairedRanges
+     *            subranges already repaired by the job, may be null
+     * @param priorityColumnFamilies
+     *            column families the job repairs first, null to pick them
      */
     public RepairJobRunner(JmxServerWrapper jmxServer, StorageServiceMBean svcProxy, String keySpaceName, ScheduledExecutorService exe,
-            ProgressNotificationListener listener, String startToken, String clusterStateDigest) {
+            ProgressNotificationListener listener, Collection<String> repairedRanges, List<String> priorityColumnFamilies,
+            String clusterStateDigest, Options options) {
         this.jmxServer = jmxServer;
         this.svcProxy = svcProxy;
         this.keySpaceName = keySpaceName;
         _exe = exe;
-        _lastToken = startToken;
+        if (repairedRanges != null) {
+            _repairedRanges.addAll(repairedRanges);
+        }
+        _priorityColumnFamilies = priorityColumnFamilies;
         this.listener = listener;
         this.clusterStateDigest = clusterStateDigest;
+        this.options = options;
     }
 
     public static class StringTokenRange {
@@ -137,6 +281,27 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
             this.begin = begin;
             this.end = end;
         }
+
+        @Override
+        public String toString() {
+            return begin + "," + end;
+        }
+    }
+
+    /**
+     * A subrange repaired for some column families
+     */
+    private static class RepairTask {
+        private final String key;
+        private final StringTokenRange range;
+        private final String[] columnFamilies;
+        private int attempts;
+
+        RepairTask(String pass, StringTokenRange range, String[] columnFamilies) {
+            this.key = pass + ":" + range;
+            this.range = range;
+            this.columnFamilies = columnFamilies;
+        }
     }
 
     /**
@@ -167,23 +332,100 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
         return result;
     }
 
-    private static int indexOfRange(List<StringTokenRange> ranges, String token) {
-        for (int i = 0; i < ranges.size(); i++) {
-            StringTokenRange range = ranges.get(i);
-            if (range.end.equals(token)) {
-                return i;
+    /**
+     * Split each range in halves at the partitioner midpoint until there are at least splits
+     * subranges of the range. A range too small to split is kept as is.
+     */
+    public static List<StringTokenRange> splitRanges(List<StringTokenRange> ranges, IPartitioner partitioner, int splits) {
+        Token.TokenFactory tokenFactory = partitioner.getTokenFactory();
+        List<StringTokenRange> result = new ArrayList<>();
+        for (StringTokenRange range : ranges) {
+            List<Token> bounds = new ArrayList<>();
+            bounds.add(tokenFactory.fromString(range.begin));
+            bounds.add(tokenFactory.fromString(range.end));
+            while (bounds.size() - 1 < splits) {
+                List<Token> halves = new ArrayList<>();
+                halves.add(bounds.get(0));
+                for (int i = 1; i < bounds.size(); i++) {
+                    Token left = bounds.get(i - 1);
+                    Token right = bounds.get(i);
+                    Token middle = partitioner.midpoint(left, right);
+                    if (!middle.equals(left) && !middle.equals(right)) {
+                        halves.add(middle);
+                    }
+                    halves.add(right);
+                }
+                if (halves.size() == bounds.size()) {
+                    break;
+                }
+                bounds = halves;
+            }
+            for (int i = 1; i < bounds.size(); i++) {
+                result.add(new StringTokenRange(tokenFactory.toString(bounds.get(i - 1)), tokenFactory.toString(bounds.get(i))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pick the column families repaired first, those written most on this node
+     */
+    private List<String> getPriorityColumnFamilies() {
+        final Map<String, Long> writeCounts = getColumnFamilyWriteCounts();
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : writeCounts.entrySet()) {
+            if (entry.getValue() > 0) {
+                names.add(entry.getKey());
             }
         }
-        return -1;
+        if (options.getPriorityColumnFamilies() <= 0 || writeCounts.size() <= options.getPriorityColumnFamilies()) {
+            return new ArrayList<>();
+        }
+
+        Collections.sort(names, new Comparator<String>() {
+            @Override
+            public int compare(String cf1, String cf2) {
+                return writeCounts.get(cf2).compareTo(writeCounts.get(cf1));
+            }
+        });
+        return new ArrayList<>(names.subList(0, Math.min(names.size(), options.getPriorityColumnFamilies())));
     }
 
     /**
-     * Execute DB repair job for local primary ranges on DHT ring. If _lastToken is
-     * not null, the repair job starts from _lastToken
-     * 
+     * Queue the repair of each subrange, first for the priority column families then for the
+     * others, or for all the column families together if there are no priority ones
+     */
+    private List<RepairTask> getRepairTasks(List<StringTokenRange> subranges) {
+        List<RepairTask> tasks = new ArrayList<>();
+        if (_priorityColumnFamilies.isEmpty()) {
+            for (StringTokenRange range : subranges) {
+                tasks.add(new RepairTask(ALL_PASS, range, new String[0]));
+            }
+            return tasks;
+        }
+
+        List<String> others = new ArrayList<>(getColumnFamilyWriteCounts().keySet());
+        others.removeAll(_priorityColumnFamilies);
+        String[] priority = _priorityColumnFamilies.toArray(new String[_priorityColumnFamilies.size()]);
+        for (StringTokenRange range : subranges) {
+            tasks.add(new RepairTask(PRIORITY_PASS, range, priority));
+        }
+        if (!others.isEmpty()) {
+            String[] other = others.toArray(new String[others.size()]);
+            for (StringTokenRange range : subranges) {
+                tasks.add(new RepairTask(OTHER_PASS, range, other));
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Execute DB repair job for local primary ranges on DHT ring. The subranges already
+     * repaired by the job are skipped.
+     *
      * It is supposed to execute this method on all nodes of the cluster so that
      * full DHT ring is repaired.
-     * 
+     *
      * @return True for success. Otherwise failure
      * @throws IOException
      * @throws InterruptedException
@@ -191,67 +433,117 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
     public RepairJobStatus runRepair() throws IOException, InterruptedException {
         _startTimeInMillis = System.currentTimeMillis();
 
-        List<StringTokenRange> localRanges = getLocalRanges(keySpaceName);
+        List<StringTokenRange> localRanges = getRepairRanges();
         if (localRanges == null) {
             repairJobStatus = RepairJobStatus.FAILED_NEED_RETRY;
             return repairJobStatus;
         }
 
-        _totalRepairSessions = localRanges.size();
-        if (_totalRepairSessions == 0) {
+        if (localRanges.isEmpty()) {
             _log.info("Nothing to repair for keyspace {}", keySpaceName);
             return repairJobStatus;
         }
 
-        _log.info("Run repair job for {}. Total # local ranges {}",
-                this.keySpaceName, _totalRepairSessions);
+        if (_priorityColumnFamilies == null) {
+            _priorityColumnFamilies = getPriorityColumnFamilies();
+        }
+        listener.onStart(_priorityColumnFamilies);
+
+        List<StringTokenRange> subranges = splitRanges(localRanges, getPartitioner(), options.getRangeSplits());
+        Deque<RepairTask> pendingTasks = new ArrayDeque<>();
+        List<RepairTask> tasks = getRepairTasks(subranges);
+        for (RepairTask task : tasks) {
+            if (!_repairedRanges.contains(task.key)) {
+                pendingTasks.add(task);
+            }
+        }
+        _totalRepairSessions = tasks.size();
+        _completedRepairSessions = _totalRepairSessions - pendingTasks.size();
 
-        // Find start token, in case the token is no longer in ring, we have to start from beginning
-        _completedRepairSessions = _lastToken == null ? 0 : indexOfRange(localRanges, _lastToken);
-        if (_completedRepairSessions == -1) {
-            _log.error("Recorded last working range \"{}\" is not found, starting from beginning", _lastToken);
-            _completedRepairSessions = 0;
-        } else {
-            _log.info("Last token is {}, progress is {}%, starting repair from token #{}",
-                    new Object[] { _lastToken, getProgress(), _completedRepairSessions });
+        _log.info("Run repair job for {}. Total # local ranges {}, # subranges {}, priority column families {}",
+                new Object[] { this.keySpaceName, localRanges.size(), _totalRepairSessions, _priorityColumnFamilies });
+        if (_completedRepairSessions > 0) {
+            _log.info("{} subranges were repaired, progress is {}%", _completedRepairSessions, getProgress());
         }
 
+        int completedInThisRun = 0;
         ScheduledFuture<?> jobMonitorHandle = startMonitor(svcProxy);
+        int[] throughput = throttle();
         lock.lock();
         try {
             _aborted = false;
             repairJobStatus = RepairJobStatus.SUCCESS;
-            while (_completedRepairSessions < _totalRepairSessions) {
+            _runningTasks.clear();
+            _finishedCommands.clear();
+            while (!pendingTasks.isEmpty() || !_runningTasks.isEmpty()) {
+                if (repairJobStatus == RepairJobStatus.SUCCESS && !_aborted && !pendingTasks.isEmpty()
+                        && _runningTasks.size() < options.getParallelism()) {
+                    String currentDigest = getClusterStateDigest();
+                    if (!clusterStateDigest.equals(currentDigest)) {
+                        _log.error("Cluster state changed from {} to {}, repair failed", clusterStateDigest, currentDigest);
+                        repairJobStatus = RepairJobStatus.FAILED_NEED_RETRY;
+                        continue;
+                    }
 
-                String currentDigest = DbRepairRunnable.getClusterStateDigest();
-                if (!clusterStateDigest.equals(currentDigest)) {
-                    _log.error("Cluster state changed from {} to {}, repair failed", clusterStateDigest, currentDigest);
-                    repairJobStatus = RepairJobStatus.FAILED_NEED_RETRY;
-                    break;
+                    RepairTask task = pendingTasks.poll();
+                    task.attempts++;
+                    // Notifications of the command are handled after it's recorded since we hold the lock
+                    int cmd = svcProxy.forceRepairRangeAsync(task.range.begin, task.range.end, keySpaceName, false, false,
+                            isFullRepair(), task.columnFamilies);
+                    _log.info("Repair of subrange {} started cmd={}", task.key, cmd);
+                    if (cmd > 0) {
+                        _runningTasks.put(cmd, task);
+                    } else {
+                        completedInThisRun++;
+                        rangeRepaired(task, completedInThisRun);
+                    }
+                    continue;
                 }
 
-                StringTokenRange range = localRanges.get(_completedRepairSessions);
+                if (_runningTasks.isEmpty()) {
+                    break;
+                }
 
-                repairRange(range);
+                while (_finishedCommands.isEmpty() && !_runningTasks.isEmpty()) {
+                    finished.await();
+                }
 
-                if (repairJobStatus != RepairJobStatus.SUCCESS) {
-                    _log.error("Fail to repair range {} {}. Stopping the job", range.begin, range.end);
-                    break;
+                for (Map.Entry<Integer, Boolean> entry : _finishedCommands.entrySet()) {
+                    RepairTask task = _runningTasks.remove(entry.getKey());
+                    if (task == null) {
+                        continue;
+                    }
+                    if (entry.getValue()) {
+                        completedInThisRun++;
+                        rangeRepaired(task, completedInThisRun);
+                    } else if (_aborted) {
+                        _log.error("Repair of subrange {} is terminated by the abort of the job", task.key);
+                    } else if (task.attempts < options.getMaxRangeAttempts()) {
+                        _log.warn("Fail to repair subrange {} for #{} times, retrying it", task.key, task.attempts);
+                        pendingTasks.addFirst(task);
+                    } else {
+                        _log.error("Fail to repair subrange {} for #{} times. Stopping the job", task.key, task.attempts);
+                        failJob(RepairJobStatus.FAILED_NEED_RETRY);
+                    }
                 }
+                _finishedCommands.clear();
+            }
 
-                _lastToken = range.end;
-                _completedRepairSessions++;
-                _log.info("{} repair sessions finished. Current progress {}%", _completedRepairSessions, getProgress());
+            if (_aborted) {
+                repairJobStatus = RepairJobStatus.FAILED;
             }
         } finally {
+            _runningTasks.clear();
             lock.unlock();
+            restoreThroughput(throughput);
             jobMonitorHandle.cancel(false);
             _log.info("Stopped repair job monitor");
         }
 
-        // Reset lastToken after a successful full repair of local primary ranges
+        // Reset repaired subranges after a successful full repair of local primary ranges
         if (repairJobStatus == RepairJobStatus.SUCCESS) {
-            _lastToken = null;
+            _repairedRanges.clear();
+            _priorityColumnFamilies = null;
         }
 
         long repairMillis = System.currentTimeMillis() - _startTimeInMillis;
@@ -261,28 +553,94 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
         return repairJobStatus;
     }
 
-    private void repairRange(StringTokenRange range) throws InterruptedException {
-        listener.onStartToken(range.end, getProgress());
+    private void rangeRepaired(RepairTask task, int completedInThisRun) {
+        _repairedRanges.add(task.key);
+        _completedRepairSessions++;
 
-        repairRangeDone = false;
+        // Estimate from the subranges repaired since this run started, so that the estimation
+        // reflects the parallelism and throttling of the job
+        long now = System.currentTimeMillis();
+        long remaining = _totalRepairSessions - _completedRepairSessions;
+        long estimatedEndTime = now + (now - _startTimeInMillis) * remaining / completedInThisRun;
 
-        int cmd = svcProxy.forceRepairRangeAsync(range.begin, range.end, keySpaceName, false, false, false);
+        _log.info("{} repair sessions finished. Current progress {}%", _completedRepairSessions, getProgress());
+        listener.onRangeRepaired(task.key, getProgress(), estimatedEndTime);
+    }
 
-        _log.info("Wait for repairing this range to be done cmd={}", cmd);
-        if (cmd > 0) {
-            while (!repairRangeDone) {
-                finished.await();
-            }
+    private void failJob(RepairJobStatus status) {
+        if (repairJobStatus != RepairJobStatus.FAILED) {
+            repairJobStatus = status;
+        }
+    }
+
+    /**
+     * Cassandra rejects an incremental repair session over sstables another incremental session is
+     * repairing, and concurrent sessions over subranges of the same column families share sstables.
+     *
+     * @return true if the subranges are fully repaired, false if they are incrementally repaired
+     */
+    private boolean isFullRepair() {
+        return options.getParallelism() > 1;
+    }
+
+    /**
+     * Limit the stream and compaction throughput of the node while the job runs, so that
+     * repair leaves IO to the client requests
+     *
+     * @return the throughput to restore after the job
+     */
+    private int[] throttle() {
+        int[] throughput = new int[] { svcProxy.getStreamThroughputMbPerSec(), svcProxy.getCompactionThroughputMbPerSec() };
+        if (options.getStreamThroughputMbPerSec() > 0) {
+            _log.info("Set stream throughput from {} to {} Mbps during repair", throughput[0],
+                    options.getStreamThroughputMbPerSec());
+            svcProxy.setStreamThroughputMbPerSec(options.getStreamThroughputMbPerSec());
+        }
+        if (options.getCompactionThroughputMbPerSec() > 0) {
+            _log.info("Set compaction throughput from {} to {} MB/s during repair", throughput[1],
+                    options.getCompactionThroughputMbPerSec());
+            svcProxy.setCompactionThroughputMbPerSec(options.getCompactionThroughputMbPerSec());
+        }
+        return throughput;
+    }
+
+    private void restoreThroughput(int[] throughput) {
+        if (options.getStreamThroughputMbPerSec() > 0) {
+            svcProxy.setStreamThroughputMbPerSec(throughput[0]);
+        }
+        if (options.getCompactionThroughputMbPerSec() > 0) {
+            svcProxy.setCompactionThroughputMbPerSec(throughput[1]);
         }
+    }
+
+    protected List<StringTokenRange> getRepairRanges() {
+        return getLocalRanges(keySpaceName);
+    }
+
+    protected IPartitioner getPartitioner() {
+        return StorageService.getPartitioner();
+    }
+
+    protected String getClusterStateDigest() {
+        return DbRepairRunnable.getClusterStateDigest();
+    }
 
-        _log.info("Repair this range is done success={}", (repairJobStatus == RepairJobStatus.SUCCESS) ? "true" : "false");
+    /**
+     * @return number of writes of each column family of the keyspace on this node since it started
+     */
+    protected Map<String, Long> getColumnFamilyWriteCounts() {
+        Map<String, Long> writeCounts = new HashMap<>();
+        for (ColumnFamilyStore cfs : Keyspace.open(keySpaceName).getColumnFamilyStores()) {
+            writeCounts.put(cfs.name, cfs.getWriteCount());
+        }
+        return writeCounts;
     }
 
     /**
      * Start background task to monitor job progress. If job could not move
      * ahead for _maxWaitInMinutes, the job is thought as hanging and we force
      * to abort the whole repair.
-     * 
+     *
      * @param svcProxy
      *            Reference to Cassandra JMX bean
      * @return Future object
@@ -306,8 +664,7 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
                             long delta = (currentMillis - _lastCheckMillis) / 60000;
                             if (delta > _maxWaitInMinutes) {
                                 _log.info("Repair job hangs for {} minutes. Abort it", delta);
-                                svcProxy.forceTerminateAllRepairSessions();
-                                _aborted = true;
+                                abort();
                             }
                         } else {
                             _lastProgress = progress;
@@ -318,9 +675,19 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
         return jobMonitorHandle;
     }
 
+    /**
+     * Abort the job: terminate the running repair sessions and start no other one. The sessions
+     * terminated fail the job rather than being retried.
+     */
+    void abort() {
+        // set first, so that the notifications of the terminated sessions see it
+        _aborted = true;
+        svcProxy.forceTerminateAllRepairSessions();
+    }
+
     /**
      * Get execution percentage of db repair job
-     * 
+     *
      * @return 0 - 100 to indicate a job is running. -1 to indicate job not
      *         started
      */
@@ -333,7 +700,7 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
 
     /**
      * Get job start time in milliseconds since epoc.
-     * 
+     *
      * @return
      */
     public long getStartTimeInMillis() {
@@ -346,7 +713,7 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
     public void handleNotification(Notification notification, Object handback) {
         lock.lock();
         try {
-        	_log.info("Notification type: {}", notification.getType(), notification.getMessage());
+            _log.info("Notification type: {}", notification.getType(), notification.getMessage());
             if ("repair".equals(notification.getType())) {
                 int[] status = (int[]) notification.getUserData();
                 if (status.length == 2) {
@@ -357,17 +724,18 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
                     // repair status is int array with [0] = cmd number, [1] = status
                     if (status[1] == ActiveRepairService.Status.SESSION_FAILED.ordinal()) {
                         _log.info("Repair cmd={} failed", status[0]);
-                        repairJobStatus = RepairJobStatus.FAILED_NEED_RETRY;
-                        repairRangeDone = true;
-                        finished.signal();
+                        if (_aborted) {
+                            // terminated by the abort, the subrange is not retried
+                            repairJobStatus = RepairJobStatus.FAILED;
+                        }
+                        commandFinished(status[0], false);
                     } else if (status[1] == ActiveRepairService.Status.FINISHED.ordinal() ||
-                    		(_aborted && status[1] == ActiveRepairService.Status.SESSION_SUCCESS.ordinal())) {
+                            (_aborted && status[1] == ActiveRepairService.Status.SESSION_SUCCESS.ordinal())) {
                         _log.info("Repair cmd={} finished", status[0]);
                         if (_aborted) {
                             repairJobStatus = RepairJobStatus.FAILED;
                         }
-                        repairRangeDone = true;
-                        finished.signal();
+                        commandFinished(status[0], !_aborted);
                     }
                 } else {
                     _log.error("Unexpected notification: status.length {}", status.length);
@@ -381,14 +749,26 @@ public class RepairJobRunner implements NotificationListener, AutoCloseable {
                 _log.error("JMX connection closed. You should check server log for repair status of keyspace {}"
                                 + "(Subsequent keyspaces are not going to be repaired).",
                         keySpaceName);
-                repairRangeDone = true;
+                failJob(RepairJobStatus.FAILED_NEED_RETRY);
+                _runningTasks.clear();
                 finished.signal();
             }
-        }finally {
+        } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Record the result of a command. A failed session is followed by the FINISHED notification
+     * of its command, only the first result is kept.
+     */
+    private void commandFinished(int cmd, boolean success) {
+        if (_runningTasks.containsKey(cmd) && !_finishedCommands.containsKey(cmd)) {
+            _finishedCommands.put(cmd, success);
+            finished.signal();
+        }
+    }
+
     @Override
     public void close() throws Exception {
         _log.info("remove listener");
@@ -8,7 +8,9 @@ package com.emc.storageos.db.server.impl;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -752,6 +754,16 @@ public class SchemaUtil {
      * @param checkpoint
      */
     void setMigrationCheckpoint(String checkpoint) {
+        setMigrationCheckpoint(checkpoint, null);
+    }
+
+    /**
+     * Set migration check point along with the callbacks listed after it which are done already
+     *
+     * @param checkpoint last callback of the callbacks which are all done
+     * @param doneCallbacks callbacks listed after the checkpoint which are done, may be null
+     */
+    void setMigrationCheckpoint(String checkpoint, Collection<String> doneCallbacks) {
         Configuration config = _coordinator.queryConfiguration(_coordinator.getSiteId(), getDbConfigPath(), Constants.GLOBAL_ID);
         _log.debug("setMigrationCheckpoint: target version \"{}\" checkpoint {}",
                 _coordinator.getTargetDbSchemaVersion(), checkpoint);
@@ -761,10 +773,32 @@ public class SchemaUtil {
             cfg.setId(Constants.GLOBAL_ID);
             config = cfg;
         }
-        config.setConfig(DbConfigConstants.MIGRATION_CHECKPOINT, checkpoint);
+        if (checkpoint != null) {
+            config.setConfig(DbConfigConstants.MIGRATION_CHECKPOINT, checkpoint);
+        }
+        if (doneCallbacks == null || doneCallbacks.isEmpty()) {
+            config.removeConfig(DbConfigConstants.MIGRATION_DONE_CALLBACKS);
+        } else {
+            config.setConfig(DbConfigConstants.MIGRATION_DONE_CALLBACKS, StringUtils.join(doneCallbacks, ','));
+        }
         _coordinator.persistServiceConfiguration(_coordinator.getSiteId(), config);
     }
 
+    /**
+     * Get the migration callbacks listed after the migration check point which are done already
+     */
+    Set<String> getMigrationDoneCallbacks() {
+        Set<String> doneCallbacks = new HashSet<>();
+        Configuration config = _coordinator.queryConfiguration(_coordinator.getSiteId(), getDbConfigPath(), Constants.GLOBAL_ID);
+        if (config != null) {
+            String value = config.getConfig(DbConfigConstants.MIGRATION_DONE_CALLBACKS);
+            if (value != null && !value.isEmpty()) {
+                doneCallbacks.addAll(Arrays.asList(value.split(",")));
+            }
+        }
+        return doneCallbacks;
+    }
+
     /**
      * Get migration check point from ZK. Db migration is supposed to start from this point.
      *
@@ -790,6 +824,7 @@ public class SchemaUtil {
                 _coordinator.getTargetDbSchemaVersion());
         if (config != null) {
             config.removeConfig(DbConfigConstants.MIGRATION_CHECKPOINT);
+            config.removeConfig(DbConfigConstants.MIGRATION_DONE_CALLBACKS);
             _coordinator.persistServiceConfiguration(_coordinator.getSiteId(), config);
         }
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.impl.DbClientImpl;
+import com.emc.storageos.db.client.model.Volume;
+import com.emc.storageos.db.client.util.CustomQueryUtility;
+import com.emc.storageos.db.client.util.CustomQueryUtility.AggregatedValue;
+import com.netflix.astyanax.util.TimeUUIDUtils;
+
+/**
+ * Checks that the changes logged by AggregatedChangeLog in a time window add up to the difference
+ * of the full aggregations at the start and at the end of the window.
+ */
+public class AggregatedChangeLogTest extends DbsvcTestBase {
+    private static final String FIELD = "allocatedCapacity";
+
+    private DbClientImpl dbClient;
+
+    @Before
+    public void setupTest() {
+        dbClient = (DbClientImpl) getDbClient();
+    }
+
+    @Test
+    public void testChanges() {
+        long start = now();
+        AggregatedValue total = aggregate();
+
+        List<Volume> volumes = new ArrayList<Volume>();
+        for (int i = 1; i <= 3; i++) {
+            Volume volume = new Volume();
+            volume.setId(URIUtil.createId(Volume.class));
+            volume.setLabel("changes" + i);
+            volume.setAllocatedCapacity(1000L * i);
+            dbClient.createObject(volume);
+            volumes.add(volume);
+        }
+        long created = now();
+        checkChanges(start, created, 3, 6000);
+
+        // a value set again is not a change
+        volumes.get(0).setAllocatedCapacity(1000L);
+        dbClient.updateObject(volumes.get(0));
+        long unchanged = now();
+        checkChanges(created, unchanged, 0, 0);
+
+        volumes.get(1).setAllocatedCapacity(2500L);
+        dbClient.updateObject(volumes.get(1));
+        long changed = now();
+        checkChanges(unchanged, changed, 0, 500);
+
+        dbClient.removeObject(Volume.class, volumes.get(2));
+        long removed = now();
+        checkChanges(changed, removed, -1, -3000);
+
+        AggregatedValue changes = changes(start, removed);
+        Assert.assertEquals(2, changes.getCount());
+        Assert.assertEquals(3500, changes.getValue(), 0);
+
+        AggregatedValue newTotal = aggregate();
+        Assert.assertEquals(newTotal.getCount(), total.getCount() + changes.getCount());
+        Assert.assertEquals(newTotal.getValue(), total.getValue() + changes.getValue(), 0);
+    }
+
+    @Test
+    public void testMarkForDeletion() {
+        long start = now();
+        AggregatedValue total = aggregate();
+
+        Volume volume = new Volume();
+        volume.setId(URIUtil.createId(Volume.class));
+        volume.setLabel("inactive");
+        volume.setAllocatedCapacity(4000L);
+        dbClient.createObject(volume);
+        long created = now();
+
+        // the value is no longer aggregated once the volume is inactive
+        dbClient.markForDeletion(volume);
+        long marked = now();
+        checkChanges(created, marked, -1, -4000);
+        Assert.assertEquals(total.getCount(), aggregate().getCount());
+        Assert.assertEquals(total.getValue(), aggregate().getValue(), 0);
+
+        // an update of an inactive volume and its removal by the garbage collector are not logged again
+        volume.setAllocatedCapacity(5000L);
+        dbClient.updateObject(volume);
+        dbClient.internalRemoveObjects(volume);
+        long removed = now();
+        checkChanges(marked, removed, 0, 0);
+        checkChanges(start, removed, 0, 0);
+    }
+
+    private void checkChanges(long fromMicros, long toMicros, long count, double value) {
+        AggregatedValue changes = changes(fromMicros, toMicros);
+        Assert.assertEquals(count, changes.getCount());
+        Assert.assertEquals(value, changes.getValue(), 0);
+    }
+
+    private AggregatedValue changes(long fromMicros, long toMicros) {
+        return CustomQueryUtility.aggregatedFieldChanges(dbClient, Volume.class, FIELD, fromMicros, toMicros);
+    }
+
+    private AggregatedValue aggregate() {
+        return CustomQueryUtility.aggregatedPrimitiveField(dbClient, Volume.class, FIELD);
+    }
+
+    private static long now() {
+        return TimeUUIDUtils.getMicrosTimeFromUUID(TimeUUIDUtils.getUniqueTimeUUIDinMicros());
+    }
+}
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
 import java.util.HashMap;
@@ -290,6 +291,24 @@ public class DbClientTest extends DbsvcTestBase {
         return tenants;
     }
 
+    @Test
+    public void testQueryObjectInIdOrder() throws Exception {
+        // more ids than a multi-get partition, the partitions are queried in parallel
+        List<VirtualArray> varrays = createVirtualArrays(350, "order");
+        List<URI> ids = new ArrayList<>();
+        for (VirtualArray varray : varrays) {
+            ids.add(varray.getId());
+        }
+        Collections.shuffle(ids);
+        ids.add(URIUtil.createId(VirtualArray.class));
+
+        List<VirtualArray> queried = _dbClient.queryObject(VirtualArray.class, ids);
+        Assert.assertEquals(varrays.size(), queried.size());
+        for (int i = 0; i < queried.size(); i++) {
+            Assert.assertEquals(ids.get(i), queried.get(i).getId());
+        }
+    }
+
     @Test
     public void testDecommisionedConstraintWithPageinate() throws Exception {
         int objCount = 10;
@@ -18,6 +18,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.impl.AggregateDbIndex;
 import com.emc.storageos.db.client.impl.AltIdDbIndex;
 import com.emc.storageos.db.client.impl.ClassNameTimeSeriesDBIndex;
 import com.emc.storageos.db.client.impl.ClassNameTimeSeriesIndexColumnName;
@@ -37,6 +38,7 @@ import com.emc.storageos.db.client.impl.TimeSeriesIndexColumnName;
 import com.emc.storageos.db.client.impl.TypeMap;
 import com.emc.storageos.db.client.model.DataObject;
 import com.emc.storageos.db.client.model.FileShare;
+import com.emc.storageos.db.client.model.Volume;
 import com.emc.storageos.db.client.model.uimodels.Order;
 import com.netflix.astyanax.Keyspace;
 import com.netflix.astyanax.MutationBatch;
@@ -75,6 +77,7 @@ public class DbConsistencyCheckerHelperTest extends DbsvcTestBase {
     public void cleanup() throws Exception {
         cleanupDataObjectCF(FileShare.class);
         cleanupDataObjectCF(Order.class);
+        cleanupDataObjectCF(Volume.class);
     }
     
     @Test
@@ -245,6 +248,39 @@ public class DbConsistencyCheckerHelperTest extends DbsvcTestBase {
         assertEquals(123, checkResult.getTotal());
     }
     
+    @Test
+    public void testCheckAggregatedIndexCF() throws Exception {
+        ColumnFamily<String, CompositeColumnName> cf = new ColumnFamily<String, CompositeColumnName>("Volume",
+                StringSerializer.get(),
+                CompositeColumnNameSerializer.get());
+
+        // the aggregated value of the volume is also logged as a change in the same index CF
+        Volume testData = new Volume();
+        testData.setId(URIUtil.createId(Volume.class));
+        testData.setLabel("volume1");
+        testData.setAllocatedCapacity(1000L);
+        getDbClient().createObject(testData);
+
+        Keyspace keyspace = ((DbClientImpl)getDbClient()).getLocalContext().getKeyspace();
+        ColumnFamily<String, IndexColumnName> indexCF = new ColumnFamily<String, IndexColumnName>(
+                "AggregatedIndex", StringSerializer.get(), IndexColumnNameSerializer.get());
+        IndexAndCf indexAndCf = new IndexAndCf(AggregateDbIndex.class, indexCF, keyspace);
+
+        CheckResult checkResult = new CheckResult();
+        helper.checkIndexingCF(indexAndCf, false, checkResult);
+        assertEquals(0, checkResult.getTotal());
+
+        //delete data object
+        MutationBatch mutationBatch = keyspace.prepareMutationBatch();
+        mutationBatch.withRow(cf, testData.getId().toString()).delete();
+        mutationBatch.execute();
+
+        //only the index entry is inconsistent, not the logged change
+        checkResult = new CheckResult();
+        helper.checkIndexingCF(indexAndCf, false, checkResult);
+        assertEquals(1, checkResult.getTotal());
+    }
+
     @Test
     public void testIsIndexExists() throws Exception{
         FileShare testData = new FileShare();
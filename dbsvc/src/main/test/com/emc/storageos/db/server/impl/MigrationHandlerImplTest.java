@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.server.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.upgrade.BaseCustomMigrationCallback;
+import com.emc.storageos.db.client.upgrade.MigrationCallback;
+import com.emc.storageos.db.client.upgrade.MigrationDependencies;
+import com.emc.storageos.svcs.errorhandling.resources.MigrationCallbackException;
+
+/**
+ * Runs serial and parallel migration callbacks and checks the order they run in, the thread they
+ * run on, the checkpoints saved as they are done, and that a restart skips the callbacks done.
+ */
+public class MigrationHandlerImplTest {
+    private static final List<String> invoked = Collections.synchronizedList(new ArrayList<String>());
+    private static final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+    private static final Set<String> failing = Collections.synchronizedSet(new HashSet<String>());
+
+    private final List<String> checkpoints = new ArrayList<String>();
+    private MigrationHandlerImpl handler;
+
+    /**
+     * Records the callback and fails if asked to
+     */
+    private abstract static class RecordingCallback extends BaseCustomMigrationCallback {
+        RecordingCallback() {
+            setName(getClass().getName());
+        }
+
+        @Override
+        public void process() throws MigrationCallbackException {
+            invoked.add(getClass().getSimpleName());
+            threads.add(Thread.currentThread());
+            if (failing.contains(getClass().getSimpleName())) {
+                throw new MigrationCallbackException("injected failure", null);
+            }
+        }
+    }
+
+    private static class Serial1 extends RecordingCallback {
+    }
+
+    private static class Serial2 extends RecordingCallback {
+    }
+
+    @MigrationDependencies(Serial1.class)
+    private static class AfterSerial1 extends RecordingCallback {
+    }
+
+    @MigrationDependencies
+    private static class Independent extends RecordingCallback {
+    }
+
+    @MigrationDependencies(Cycle2.class)
+    private static class Cycle1 extends RecordingCallback {
+    }
+
+    @MigrationDependencies(Cycle1.class)
+    private static class Cycle2 extends RecordingCallback {
+    }
+
+    @Before
+    public void setUp() {
+        invoked.clear();
+        threads.clear();
+        failing.clear();
+        handler = new MigrationHandlerImpl();
+        handler.setSchemaUtil(new SchemaUtil() {
+            @Override
+            void setMigrationCheckpoint(String checkpoint, Collection<String> doneCallbacks) {
+                checkpoints.add(checkpoint + " " + doneCallbacks);
+            }
+        });
+    }
+
+    @Test
+    public void testSerialCallbacks() throws Exception {
+        handler.runMigrationCallbacks(callbacks(new Serial1(), new Serial2()), new HashSet<String>());
+
+        Assert.assertEquals(Arrays.asList("Serial1", "Serial2"), invoked);
+        // run by the migration thread, as before callbacks could run in parallel
+        Assert.assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread()), threads);
+        Assert.assertEquals(Arrays.asList(name(Serial1.class) + " []", name(Serial2.class) + " []"), checkpoints);
+    }
+
+    @Test
+    public void testParallelCallbacks() throws Exception {
+        handler.runMigrationCallbacks(callbacks(new Serial1(), new AfterSerial1(), new Independent()), new HashSet<String>());
+
+        // the independent callback doesn't wait for the serial one, which waits for it to finish
+        Assert.assertEquals(Arrays.asList("Independent", "Serial1", "AfterSerial1"), invoked);
+        Assert.assertNotSame(Thread.currentThread(), threads.get(0));
+        Assert.assertSame(Thread.currentThread(), threads.get(1));
+        Assert.assertNotSame(Thread.currentThread(), threads.get(2));
+
+        // the checkpoint is the last callback of the done prefix, done callbacks after it are saved too
+        Assert.assertEquals(Arrays.asList(
+                "null [" + name(Independent.class) + "]",
+                name(Serial1.class) + " [" + name(Independent.class) + "]",
+                name(Independent.class) + " []"), checkpoints);
+    }
+
+    @Test
+    public void testSkipDoneCallbacks() throws Exception {
+        Set<String> done = new HashSet<String>(Arrays.asList(name(Serial1.class), name(Independent.class)));
+        handler.runMigrationCallbacks(callbacks(new Serial1(), new AfterSerial1(), new Independent()), done);
+
+        Assert.assertEquals(Arrays.asList("AfterSerial1"), invoked);
+        Assert.assertEquals(Arrays.asList(name(Independent.class) + " []"), checkpoints);
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        failing.add("Serial1");
+        try {
+            handler.runMigrationCallbacks(callbacks(new Serial1(), new Serial2(), new AfterSerial1()), new HashSet<String>());
+            Assert.fail("injected failure expected");
+        } catch (MigrationCallbackException e) {
+            Assert.assertEquals("injected failure", e.getMessage());
+        }
+
+        // nothing runs after the failure, the checkpoint is left as it was
+        Assert.assertEquals(Arrays.asList("Serial1"), invoked);
+        Assert.assertEquals(name(Serial1.class), handler.failedCallbackName);
+        Assert.assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void testCircularDependencies() throws Exception {
+        try {
+            handler.runMigrationCallbacks(callbacks(new Cycle1(), new Cycle2()), new HashSet<String>());
+            Assert.fail("circular dependencies expected");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(invoked.isEmpty());
+        }
+    }
+
+    private static List<MigrationCallback> callbacks(MigrationCallback... callbacks) {
+        return new ArrayList<MigrationCallback>(Arrays.asList(callbacks));
+    }
+
+    private static String name(Class<?> clazz) {
+        return clazz.getName();
+    }
+}
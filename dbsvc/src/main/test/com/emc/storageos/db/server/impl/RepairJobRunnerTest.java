@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.server.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.Notification;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.service.ActiveRepairService;
+import org.apache.cassandra.service.StorageServiceMBean;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Repairs the local ranges of a node of a 3 node ring against a simulated repair service, which
+ * runs the repair sessions asynchronously and notifies the job runner like Cassandra does.
+ */
+public class RepairJobRunnerTest {
+    private static final String KEYSPACE = "StorageOS";
+    private static final String DIGEST = "node1=id1,node2=id2,node3=id3";
+    private static final int NODES = 3;
+    private static final int TOKENS_PER_NODE = 16;
+    private static final int SPLITS = 4;
+    private static final int PARALLELISM = 3;
+    private static final int STREAM_THROUGHPUT = 200;
+
+    private final Map<String, Long> writeCounts = new HashMap<>();
+    private List<RepairJobRunner.StringTokenRange> ring;
+    private ScheduledExecutorService monitorExecutor;
+    private ScheduledExecutorService repairExecutor;
+    private FakeRepairService repairService;
+    private RepairJobRunner.Options options;
+
+    @Before
+    public void setUp() {
+        // with a replication factor of 3, each node of the ring replicates all the ranges
+        Random random = new Random(42);
+        List<Long> tokens = new ArrayList<>();
+        for (int i = 0; i < NODES * TOKENS_PER_NODE; i++) {
+            tokens.add(random.nextLong());
+        }
+        Collections.sort(tokens);
+        ring = new ArrayList<>();
+        ring.add(new RepairJobRunner.StringTokenRange(tokens.get(tokens.size() - 1).toString(), tokens.get(0).toString()));
+        for (int i = 1; i < tokens.size(); i++) {
+            ring.add(new RepairJobRunner.StringTokenRange(tokens.get(i - 1).toString(), tokens.get(i).toString()));
+        }
+
+        writeCounts.put("Volume", 5000L);
+        writeCounts.put("Task", 20000L);
+        writeCounts.put("Event", 1000L);
+        writeCounts.put("Project", 10L);
+        writeCounts.put("Host", 0L);
+
+        options = new RepairJobRunner.Options();
+        options.setRangeSplits(SPLITS);
+        options.setParallelism(PARALLELISM);
+        options.setPriorityColumnFamilies(2);
+        options.setStreamThroughputMbPerSec(50);
+
+        monitorExecutor = Executors.newSingleThreadScheduledExecutor();
+        repairExecutor = Executors.newScheduledThreadPool(PARALLELISM);
+        repairService = new FakeRepairService();
+    }
+
+    @After
+    public void tearDown() {
+        monitorExecutor.shutdownNow();
+        repairExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testSplitRanges() {
+        List<RepairJobRunner.StringTokenRange> subranges = RepairJobRunner.splitRanges(ring, new Murmur3Partitioner(), SPLITS);
+        Assert.assertEquals(ring.size() * SPLITS, subranges.size());
+        for (int i = 0; i < ring.size(); i++) {
+            RepairJobRunner.StringTokenRange range = ring.get(i);
+            Assert.assertEquals(range.begin, subranges.get(i * SPLITS).begin);
+            for (int j = 1; j < SPLITS; j++) {
+                Assert.assertEquals(subranges.get(i * SPLITS + j - 1).end, subranges.get(i * SPLITS + j).begin);
+            }
+            Assert.assertEquals(range.end, subranges.get(i * SPLITS + SPLITS - 1).end);
+        }
+
+        // the wrapping range is split across the minimum token
+        RepairJobRunner.StringTokenRange wrapping = ring.get(0);
+        Assert.assertTrue(Long.parseLong(wrapping.begin) > Long.parseLong(wrapping.end));
+        Assert.assertTrue(Long.parseLong(subranges.get(1).begin) > Long.parseLong(wrapping.begin)
+                || Long.parseLong(subranges.get(1).begin) < Long.parseLong(wrapping.end));
+
+        // a range of adjacent tokens cannot be split
+        List<RepairJobRunner.StringTokenRange> tiny = RepairJobRunner.splitRanges(
+                Arrays.asList(new RepairJobRunner.StringTokenRange("10", "11")), new Murmur3Partitioner(), SPLITS);
+        Assert.assertEquals(1, tiny.size());
+    }
+
+    @Test
+    public void testResumeAfterInterruption() throws Exception {
+        int total = ring.size() * SPLITS * 2;
+        final int interruptAfter = total / 3;
+        final DbRepairJobState state = new DbRepairJobState(DIGEST);
+
+        RepairJobRunner runner = createRunner(new StateListener(state) {
+            @Override
+            public void onRangeRepaired(String range, int progress, long estimatedEndTime) {
+                super.onRangeRepaired(range, progress, estimatedEndTime);
+                if (state.getCurrentRepairedRanges().size() == interruptAfter) {
+                    // the node is restarting, the job is interrupted while repair sessions are running
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, state);
+        try {
+            runner.runRepair();
+            Assert.fail("Repair is not interrupted");
+        } catch (InterruptedException e) {
+        }
+        Assert.assertEquals(STREAM_THROUGHPUT, repairService.streamThroughput);
+        Assert.assertEquals(Arrays.asList("Task", "Volume"), state.getCurrentPriorityColumnFamilies());
+        Set<String> repairedBefore = new HashSet<>(state.getCurrentRepairedRanges());
+        Assert.assertTrue(repairedBefore.size() >= interruptAfter);
+        Assert.assertNotNull(state.getCurrentEstimatedEndTime());
+        // let the sessions running at the interruption finish
+        Thread.sleep(100);
+
+        // resume from the state saved to ZK, the write counts are reset by the restart
+        DbRepairJobState savedState = new DbRepairJobState().decodeFromString(state.encodeAsString());
+        Assert.assertTrue(savedState.canResume(DIGEST, 5));
+        writeCounts.put("Event", 100000L);
+        repairService.reset();
+        runner = createRunner(new StateListener(savedState), savedState);
+        Assert.assertEquals(RepairJobRunner.RepairJobStatus.SUCCESS, runner.runRepair());
+        Assert.assertEquals(100, runner.getProgress());
+
+        Set<String> repairedAfter = new HashSet<>(repairService.repairedRanges);
+        Assert.assertEquals(total - repairedBefore.size(), repairedAfter.size());
+        Assert.assertEquals(repairService.repairedRanges.size(), repairedAfter.size());
+        repairedAfter.retainAll(repairedBefore);
+        Assert.assertTrue(repairedAfter.isEmpty());
+        Assert.assertEquals(total, new HashSet<>(savedState.getCurrentRepairedRanges()).size());
+
+        // the priority column families chosen before the restart are repaired first
+        Assert.assertEquals(Arrays.asList("Task", "Volume"), savedState.getCurrentPriorityColumnFamilies());
+        int lastPriority = -1;
+        int firstOther = Integer.MAX_VALUE;
+        for (int i = 0; i < repairService.submittedColumnFamilies.size(); i++) {
+            List<String> cfs = repairService.submittedColumnFamilies.get(i);
+            if (cfs.equals(Arrays.asList("Task", "Volume"))) {
+                lastPriority = i;
+            } else {
+                Assert.assertEquals(3, cfs.size());
+                firstOther = Math.min(firstOther, i);
+            }
+        }
+        Assert.assertTrue(lastPriority < firstOther);
+        Assert.assertTrue(repairService.maxRunning.get() <= PARALLELISM);
+        Assert.assertTrue(repairService.maxRunning.get() > 1);
+        // concurrent sessions are full repairs, which may share sstables
+        Assert.assertEquals(0, repairService.incrementalSessions.get());
+        Assert.assertEquals(0, repairService.incrementalConflicts.get());
+        Assert.assertEquals(Arrays.asList(50, STREAM_THROUGHPUT), repairService.streamThroughputs);
+    }
+
+    @Test
+    public void testSerialIncrementalRepair() throws Exception {
+        // by default subranges are repaired one at a time, incrementally, and the stream
+        // throughput is kept unless the job is throttled
+        options = new RepairJobRunner.Options();
+        Assert.assertEquals(1, options.getParallelism());
+        DbRepairJobState state = new DbRepairJobState(DIGEST);
+        RepairJobRunner runner = createRunner(new StateListener(state), state);
+        Assert.assertEquals(RepairJobRunner.RepairJobStatus.SUCCESS, runner.runRepair());
+        Assert.assertEquals(1, repairService.maxRunning.get());
+        Assert.assertEquals(repairService.submittedRanges.size(), repairService.incrementalSessions.get());
+        Assert.assertEquals(0, repairService.incrementalConflicts.get());
+        Assert.assertTrue(repairService.streamThroughputs.isEmpty());
+        Assert.assertEquals(STREAM_THROUGHPUT, repairService.streamThroughput);
+    }
+
+    @Test
+    public void testRetryFailedRange() throws Exception {
+        List<RepairJobRunner.StringTokenRange> subranges = RepairJobRunner.splitRanges(ring, new Murmur3Partitioner(), SPLITS);
+        String failedOnce = "priority:" + subranges.get(10);
+        repairService.failures.put(failedOnce, 1);
+
+        DbRepairJobState state = new DbRepairJobState(DIGEST);
+        RepairJobRunner runner = createRunner(new StateListener(state), state);
+        Assert.assertEquals(RepairJobRunner.RepairJobStatus.SUCCESS, runner.runRepair());
+        Assert.assertEquals(2, Collections.frequency(repairService.submittedRanges, failedOnce));
+        Assert.assertEquals(subranges.size() * 2, state.getCurrentRepairedRanges().size());
+
+        // a subrange failing every attempt fails the job, to be retried later
+        String failedAlways = "other:" + subranges.get(20);
+        repairService.reset();
+        repairService.failures.put(failedAlways, options.getMaxRangeAttempts());
+        state = new DbRepairJobState(DIGEST);
+        runner = createRunner(new StateListener(state), state);
+        Assert.assertEquals(RepairJobRunner.RepairJobStatus.FAILED_NEED_RETRY, runner.runRepair());
+        Assert.assertEquals(options.getMaxRangeAttempts(), Collections.frequency(repairService.submittedRanges, failedAlways));
+        Assert.assertFalse(state.getCurrentRepairedRanges().contains(failedAlways));
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        // the 10th session and those started with it hang until the job monitor aborts the job
+        int hangFrom = 10;
+        repairService.hangFrom = hangFrom;
+        DbRepairJobState state = new DbRepairJobState(DIGEST);
+        RepairJobRunner runner = createRunner(new StateListener(state), state);
+        Assert.assertEquals(RepairJobRunner.RepairJobStatus.FAILED, runner.runRepair());
+
+        // the terminated sessions are not retried and no session is started after the abort
+        Assert.assertEquals(PARALLELISM, repairService.terminatedSessions.get());
+        Assert.assertEquals(hangFrom + PARALLELISM - 1, repairService.submittedRanges.size());
+        Assert.assertEquals(repairService.submittedRanges.size(), new HashSet<>(repairService.submittedRanges).size());
+        Assert.assertEquals(hangFrom - 1, state.getCurrentRepairedRanges().size());
+        Assert.assertEquals(STREAM_THROUGHPUT, repairService.streamThroughput);
+    }
+
+    private RepairJobRunner createRunner(RepairJobRunner.ProgressNotificationListener listener, DbRepairJobState state) {
+        StorageServiceMBean svcProxy = (StorageServiceMBean) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { StorageServiceMBean.class }, repairService);
+        RepairJobRunner runner = new RepairJobRunner(null, svcProxy, KEYSPACE, monitorExecutor, listener,
+                state.getCurrentRepairedRanges(), state.getCurrentPriorityColumnFamilies(), DIGEST, options) {
+            @Override
+            protected List<StringTokenRange> getRepairRanges() {
+                return ring;
+            }
+
+            @Override
+            protected IPartitioner getPartitioner() {
+                return new Murmur3Partitioner();
+            }
+
+            @Override
+            protected String getClusterStateDigest() {
+                return DIGEST;
+            }
+
+            @Override
+            protected Map<String, Long> getColumnFamilyWriteCounts() {
+                return new HashMap<>(writeCounts);
+            }
+        };
+        repairService.runner = runner;
+        return runner;
+    }
+
+    /**
+     * Saves the progress of the job to the repair state, as the repair thread does
+     */
+    private static class StateListener implements RepairJobRunner.ProgressNotificationListener {
+        private final DbRepairJobState state;
+
+        StateListener(DbRepairJobState state) {
+            this.state = state;
+        }
+
+        @Override
+        public void onStart(List<String> priorityColumnFamilies) {
+            state.setCurrentPriorityColumnFamilies(priorityColumnFamilies);
+        }
+
+        @Override
+        public void onRangeRepaired(String range, int progress, long estimatedEndTime) {
+            state.rangeRepaired(range, progress, estimatedEndTime);
+        }
+    }
+
+    /**
+     * Repair service of the storage service MBean, which runs each repair command for a short
+     * while then notifies its result. As many commands as the parallelism of the job, from
+     * hangFrom on, never finish by themselves: once they all run, the job is aborted as its
+     * monitor does.
+     */
+    private class FakeRepairService implements InvocationHandler {
+        private volatile RepairJobRunner runner;
+        private final AtomicInteger commands = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final AtomicInteger incrementalSessions = new AtomicInteger();
+        private final AtomicInteger incrementalConflicts = new AtomicInteger();
+        private final AtomicInteger terminatedSessions = new AtomicInteger();
+        private final Set<Integer> runningCommands = Collections.synchronizedSet(new HashSet<Integer>());
+        private volatile int hangFrom;
+        private final Map<String, Integer> failures = new HashMap<>();
+        private final List<String> submittedRanges = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> repairedRanges = Collections.synchronizedList(new ArrayList<String>());
+        private final List<List<String>> submittedColumnFamilies = Collections.synchronizedList(new ArrayList<List<String>>());
+        private volatile int streamThroughput = STREAM_THROUGHPUT;
+        private final List<Integer> streamThroughputs = Collections.synchronizedList(new ArrayList<Integer>());
+        private volatile int compactionThroughput = 16;
+
+        void reset() {
+            submittedRanges.clear();
+            repairedRanges.clear();
+            submittedColumnFamilies.clear();
+            failures.clear();
+            streamThroughputs.clear();
+            maxRunning.set(0);
+            incrementalSessions.set(0);
+            incrementalConflicts.set(0);
+            terminatedSessions.set(0);
+            runningCommands.clear();
+            hangFrom = 0;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "forceRepairRangeAsync":
+                    return repair((String) args[0], (String) args[1], (Boolean) args[5], (String[]) args[args.length - 1]);
+                case "forceTerminateAllRepairSessions":
+                    terminate();
+                    return null;
+                case "getStreamThroughputMbPerSec":
+                    return streamThroughput;
+                case "setStreamThroughputMbPerSec":
+                    streamThroughput = (Integer) args[0];
+                    streamThroughputs.add(streamThroughput);
+                    return null;
+                case "getCompactionThroughputMbPerSec":
+                    return compactionThroughput;
+                case "setCompactionThroughputMbPerSec":
+                    compactionThroughput = (Integer) args[0];
+                    return null;
+                default:
+                    return null;
+            }
+        }
+
+        private int repair(String begin, String end, boolean fullRepair, String[] columnFamilies) {
+            final int cmd = commands.incrementAndGet();
+            final RepairJobRunner target = runner;
+            List<String> cfs = new ArrayList<>(Arrays.asList(columnFamilies));
+            Collections.sort(cfs);
+            final String key = (cfs.equals(Arrays.asList("Task", "Volume")) ? "priority:" : "other:") + begin + "," + end;
+            submittedRanges.add(key);
+            submittedColumnFamilies.add(cfs);
+            Integer failuresLeft = failures.get(key);
+            boolean failed = failuresLeft != null && failuresLeft > 0;
+            if (failed) {
+                failures.put(key, failuresLeft - 1);
+            }
+            int now = running.incrementAndGet();
+            if (!fullRepair) {
+                incrementalSessions.incrementAndGet();
+            }
+            // "Cannot start multiple repair sessions over the same sstables"
+            if (!fullRepair && now > 1) {
+                incrementalConflicts.incrementAndGet();
+                failed = true;
+            }
+            final boolean fail = failed;
+            while (maxRunning.get() < now && !maxRunning.compareAndSet(maxRunning.get(), now)) {
+            }
+            runningCommands.add(cmd);
+
+            if (hangFrom > 0 && cmd >= hangFrom && cmd < hangFrom + PARALLELISM) {
+                if (cmd == hangFrom + PARALLELISM - 1) {
+                    repairExecutor.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            target.abort();
+                        }
+                    }, 10, TimeUnit.MILLISECONDS);
+                }
+                return cmd;
+            }
+
+            repairExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (!runningCommands.remove(cmd)) {
+                        // terminated
+                        return;
+                    }
+                    running.decrementAndGet();
+                    if (fail) {
+                        sendNotification(target, cmd, ActiveRepairService.Status.SESSION_FAILED);
+                    } else {
+                        repairedRanges.add(key);
+                        sendNotification(target, cmd, ActiveRepairService.Status.SESSION_SUCCESS);
+                    }
+                    sendNotification(target, cmd, ActiveRepairService.Status.FINISHED);
+                }
+            }, 2, TimeUnit.MILLISECONDS);
+            return cmd;
+        }
+
+        /**
+         * Terminates the running commands, which notify a failed session then their end
+         */
+        private void terminate() {
+            final RepairJobRunner target = runner;
+            List<Integer> cmds;
+            synchronized (runningCommands) {
+                cmds = new ArrayList<>(runningCommands);
+                runningCommands.clear();
+            }
+            for (final int cmd : cmds) {
+                running.decrementAndGet();
+                terminatedSessions.incrementAndGet();
+                repairExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendNotification(target, cmd, ActiveRepairService.Status.SESSION_FAILED);
+                    }
+                });
+                repairExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendNotification(target, cmd, ActiveRepairService.Status.FINISHED);
+                    }
+                }, 20, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void sendNotification(RepairJobRunner target, int cmd, ActiveRepairService.Status status) {
+            Notification notification = new Notification("repair", "StorageService", cmd, System.currentTimeMillis(),
+                    "repair #" + cmd + " " + status);
+            notification.setUserData(new int[] { cmd, status.ordinal() });
+            target.handleNotification(notification, null);
+        }
+    }
+}
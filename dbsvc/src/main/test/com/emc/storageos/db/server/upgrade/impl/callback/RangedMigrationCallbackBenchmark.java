@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.server.upgrade.impl.callback;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.db.client.model.Project;
+import com.emc.storageos.db.server.DbsvcTestBase;
+
+/**
+ * Migrates a CF of synthetic objects with a RangedMigrationCallback, 1000000 objects by default.
+ * Run with: ./gradlew dbsvc:migrationBenchmark -Dbenchmark.rows=1000000
+ */
+public class RangedMigrationCallbackBenchmark extends DbsvcTestBase {
+    private static final Logger log = LoggerFactory.getLogger(RangedMigrationCallbackBenchmark.class);
+
+    @Test
+    public void benchmarkMigration() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 1000000);
+        long start = System.currentTimeMillis();
+        List<URI> ids = RangedMigrationCallbackTest.createProjects(rows);
+        log.info("Created {} projects in {} ms", rows, System.currentTimeMillis() - start);
+
+        RangedMigrationCallbackTest.ProjectLabelMigration callback = RangedMigrationCallbackTest.newCallback();
+        callback.setWorkerCount(Integer.getInteger("benchmark.workers", 8));
+        start = System.currentTimeMillis();
+        callback.process();
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Migrated {} projects in {} ms, {} objects/s", callback.processed.get(), elapsed,
+                callback.processed.get() * 1000L / Math.max(1, elapsed));
+
+        Assert.assertEquals(rows, callback.processed.get());
+        RangedMigrationCallbackTest.verifyMigrated(ids);
+        cleanupDataObjectCF(Project.class);
+    }
+}
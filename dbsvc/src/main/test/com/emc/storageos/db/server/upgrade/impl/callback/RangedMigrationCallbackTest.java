@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.db.server.upgrade.impl.callback;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.model.Project;
+import com.emc.storageos.db.client.upgrade.RangedMigrationCallback;
+import com.emc.storageos.db.server.DbsvcTestBase;
+import com.emc.storageos.svcs.errorhandling.resources.MigrationCallbackException;
+
+/**
+ * Fails a RangedMigrationCallback part way through a CF of projects and checks that the callback
+ * run again resumes every range where it was left.
+ */
+public class RangedMigrationCallbackTest extends DbsvcTestBase {
+    private static final String MIGRATED_SUFFIX = "-migrated";
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    /**
+     * Appends a suffix to the label of the projects, can fail after a given number of pages
+     */
+    static class ProjectLabelMigration extends RangedMigrationCallback<Project> {
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicInteger processed = new AtomicInteger();
+        int failAfterPages = -1;
+
+        @Override
+        protected Class<Project> getDataObjectClass() {
+            return Project.class;
+        }
+
+        @Override
+        protected void processObjects(List<Project> projects) throws MigrationCallbackException {
+            if (pages.incrementAndGet() == failAfterPages) {
+                throw new MigrationCallbackException("injected failure", null);
+            }
+            for (Project project : projects) {
+                if (!project.getLabel().endsWith(MIGRATED_SUFFIX)) {
+                    project.setLabel(project.getLabel() + MIGRATED_SUFFIX);
+                }
+            }
+            dbClient.updateObject(projects);
+            processed.addAndGet(projects.size());
+        }
+    }
+
+    static ProjectLabelMigration newCallback() {
+        ProjectLabelMigration callback = new ProjectLabelMigration();
+        callback.setName(ProjectLabelMigration.class.getName());
+        callback.setDbClient(_dbClient);
+        callback.setCoordinatorClient(_coordinator);
+        return callback;
+    }
+
+    static List<URI> createProjects(int count) {
+        List<URI> ids = new ArrayList<>(count);
+        List<Project> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            Project project = new Project();
+            project.setId(URIUtil.createId(Project.class));
+            project.setLabel("project" + i);
+            batch.add(project);
+            ids.add(project.getId());
+            if (batch.size() == INSERT_BATCH_SIZE || i == count - 1) {
+                _dbClient.createObject(batch);
+                batch.clear();
+            }
+        }
+        return ids;
+    }
+
+    static void verifyMigrated(List<URI> ids) {
+        for (int i = 0; i < ids.size(); i += Math.max(1, ids.size() / 1000)) {
+            Assert.assertTrue(_dbClient.queryObject(Project.class, ids.get(i)).getLabel().endsWith(MIGRATED_SUFFIX));
+        }
+    }
+
+    @Test
+    public void testResumeAfterFailure() throws Exception {
+        int rows = 20000;
+        List<URI> ids = createProjects(rows);
+
+        ProjectLabelMigration callback = newCallback();
+        callback.setPageSize(100);
+        callback.failAfterPages = 50;
+        try {
+            callback.process();
+            Assert.fail("injected failure expected");
+        } catch (MigrationCallbackException e) {
+            Assert.assertEquals("injected failure", e.getMessage());
+        }
+        int processedBeforeFailure = callback.processed.get();
+
+        // the ranges are resumed where they were left
+        ProjectLabelMigration resumed = newCallback();
+        resumed.setPageSize(100);
+        resumed.process();
+        Assert.assertTrue(processedBeforeFailure + resumed.processed.get() >= rows);
+        Assert.assertTrue(resumed.processed.get() < rows);
+        verifyMigrated(ids);
+        cleanupDataObjectCF(Project.class);
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.curator.framework.recipes.queue.QueueSerializer;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -43,7 +44,7 @@ public class StubCoordinatorClientImpl extends CoordinatorClientImpl {
     private final Service _dbinfo;
     private DbVersionInfo dbVersionInfo;
     private CoordinatorClientInetAddressMap inetAddessLookupMap;
-    private Map<String, Configuration> _configMap = new HashMap<String, Configuration>();
+    private Map<String, Configuration> _configMap = new ConcurrentHashMap<String, Configuration>();
     private Map<String, InterProcessLock> _locks = new HashMap<String, InterProcessLock>();
     private static Properties defaultProperties;
     private static Properties ovfProperties;
@@ -117,6 +118,11 @@ public class StubCoordinatorClientImpl extends CoordinatorClientImpl {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public AdjustableDistributedSemaphore getAdjustableSemaphore(String name, int initialPermits) throws CoordinatorException {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public InterProcessSemaphoreMutex getSemaphoreLock(String name) throws CoordinatorException {
         throw new UnsupportedOperationException();
@@ -204,7 +210,10 @@ public class StubCoordinatorClientImpl extends CoordinatorClientImpl {
 
     @Override
     public void removeServiceConfiguration(Configuration... config) throws CoordinatorException {
-        throw new UnsupportedOperationException();
+        for (int i = 0; i < config.length; i++) {
+            Configuration c = config[i];
+            _configMap.remove(getKey(c.getKind(), c.getId()));
+        }
     }
 
     @Override
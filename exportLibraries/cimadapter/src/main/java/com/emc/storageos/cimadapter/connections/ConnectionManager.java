@@ -7,13 +7,15 @@ package com.emc.storageos.cimadapter.connections;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -48,9 +50,11 @@ public class ConnectionManager {
     private static final int ONE_MINUTE = 1;
     private static final int INITIAL_DELAY = ONE_MINUTE;
     private static final long MS_IN_SECONDS = 1000; // # Milliseconds in a second
-    private static long maxConnectionTTL = 0;
     private static final String CIM_CONNECTION_MAX_INACTIVE_TIME = "cim_connection_max_inactive_time";
-    private static boolean configured = false;
+
+    // The max inactive time of the connections, 0 if they are not reaped. Set under connectionLock.
+    private volatile long maxConnectionTTL = 0;
+    private volatile boolean configured = false;
 
     // A reference to the connection manager configuration.
     private ConnectionManagerConfiguration _configuration;
@@ -58,8 +62,8 @@ public class ConnectionManager {
     // A reference to the CIM listener;
     private CimListener _listener;
 
-    // A map of cache keys (host/port) to their connections
-    private Map<String, CimConnection> _connections = new HashMap<String, CimConnection>();
+    // A map of cache keys (host/port) to their connections, read without holding connectionLock
+    private Map<String, CimConnection> _connections = new ConcurrentHashMap<String, CimConnection>();
 
     // A synchronization object to control access to shared objects
     private Lock connectionLock = new ReentrantLock();
@@ -67,8 +71,11 @@ public class ConnectionManager {
     // A scheduled execution service that cleans up connections
     private ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
 
+    // Whether the CimConnectionReaper has been scheduled
+    private volatile boolean reaperScheduled = false;
+
     // A map of cache keys in _connections to the last time the connection was retrieved
-    private Map<String, Long> connectionLastTouch = new HashMap<>();
+    private Map<String, Long> connectionLastTouch = new ConcurrentHashMap<>();
 
     // This map will be used to keep track of connections that are pinned. These are connections
     // that should not be reaped. We will be keeping a count since you can have multiple arrays
@@ -173,28 +180,32 @@ public class ConnectionManager {
     
     /**
      * Using the propertyInfo retrieved from the CoordinatorClient, we will configure the ConnectionManager.
+     * It may be called again when the properties change, the configuration is only applied when
+     * the max inactive time of the connections has changed.
      *
      * @param propertyInfo [IN] - PropertyInfo representing configuration parameters
      */
     public void configure(PropertyInfo propertyInfo) {
+        Long maxTTLSeconds = 0L; // Default value ==> disabled
+        String maxTTLString = propertyInfo.getProperty(CIM_CONNECTION_MAX_INACTIVE_TIME);
+        // If there is a value specified for the configuration properties and it's a number ...
+        if (maxTTLString != null && maxTTLString.matches("\\d+")) {
+            maxTTLSeconds = Long.valueOf(maxTTLString);
+        }
         connectionLock.lock();
         try {
-            // Allow the configure() to be run only once by the first thread that calls it
-            if (configured) {
+            if (configured && maxConnectionTTL == maxTTLSeconds * MS_IN_SECONDS) {
                 return;
             }
             s_logger.info("Configuring ConnectionManager");
-            Long maxTTLSeconds = 0L; // Default value ==> disabled
-            String maxTTLString = propertyInfo.getProperty(CIM_CONNECTION_MAX_INACTIVE_TIME);
-            // If there is a value specified for the configuration properties and it's a number ...
-            if (maxTTLString != null && maxTTLString.matches("\\d+")) {
-                maxTTLSeconds = Long.valueOf(maxTTLString);
-                // Value's unit should be N seconds
-                maxConnectionTTL = maxTTLSeconds * MS_IN_SECONDS;
-            }
+            // Value's unit should be N seconds
+            maxConnectionTTL = maxTTLSeconds * MS_IN_SECONDS;
             if (maxTTLSeconds != 0) {
                 // Start up the CimConnection reaper: checks connection times every minute ...
-                executorService.scheduleAtFixedRate(new CimConnectionReaper(), INITIAL_DELAY, ONE_MINUTE, TimeUnit.MINUTES);
+                if (!reaperScheduled) {
+                    executorService.scheduleAtFixedRate(new CimConnectionReaper(), INITIAL_DELAY, ONE_MINUTE, TimeUnit.MINUTES);
+                    reaperScheduled = true;
+                }
                 s_logger.info("ConnectionManager config: CimConnections that have been inactive for more than {} seconds will be reaped",
                         maxTTLSeconds);
             } else {
@@ -357,22 +368,11 @@ public class ConnectionManager {
      * @throws ConnectionManagerException When the passed host is null or blank.
      */
     public boolean isConnected(String hostAndPort) throws ConnectionManagerException {
-        connectionLock.lock();
-        boolean isConnected = false;
-        try {
-            // Verify the passed host/port is not null or blank.
-            if ((hostAndPort == null) || (hostAndPort.length() == 0)) {
-                throw new ConnectionManagerException("Passed host/port is null or blank.");
-            }
-
-            CimConnection connection = _connections.get(hostAndPort);
-            if (connection != null) {
-                isConnected = true;
-            }
-        } finally {
-            connectionLock.unlock();
+        // Verify the passed host/port is not null or blank.
+        if ((hostAndPort == null) || (hostAndPort.length() == 0)) {
+            throw new ConnectionManagerException("Passed host/port is null or blank.");
         }
-        return isConnected;
+        return _connections.containsKey(hostAndPort);
     }
 
     /**
@@ -398,29 +398,37 @@ public class ConnectionManager {
      */
     public CimConnection getConnection(String host, Integer port)
             throws ConnectionManagerException {
-        connectionLock.lock();
-        CimConnection connection = null;
-        try {
-            String hostAndPort = generateConnectionCacheKey(host, port);
-            // Verify the passed host/port is not null or blank.
-            if ((hostAndPort == null) || (hostAndPort.length() == 0)) {
-                throw new ConnectionManagerException("Passed host/port is null or blank.");
-            }
-            connection = _connections.get(hostAndPort);
-            if (connection != null) {
-                // Every time the connection is returned, update the last get time
-                connectionLastTouch.put(hostAndPort, System.currentTimeMillis());
-            }
-        } finally {
-            connectionLock.unlock();
+        // Lookups don't take connectionLock, so they are not blocked while another
+        // connection is being established
+        String hostAndPort = generateConnectionCacheKey(host, port);
+        // Verify the passed host/port is not null or blank.
+        if ((hostAndPort == null) || (hostAndPort.length() == 0)) {
+            throw new ConnectionManagerException("Passed host/port is null or blank.");
+        }
+        CimConnection connection = _connections.get(hostAndPort);
+        if (connection != null) {
+            // Every time the connection is returned, update the last get time. The time of
+            // a connection removed since it was read is not added back.
+            connectionLastTouch.replace(hostAndPort, System.currentTimeMillis());
         }
         return connection;
     }
 
+    /**
+     * @param host provider host
+     * @param port provider port
+     * @return the last time the connection was retrieved, null if there is no connection
+     */
+    public Long getConnectionLastTouch(String host, Integer port) {
+        String hostAndPort = generateConnectionCacheKey(host, port);
+        return hostAndPort == null ? null : connectionLastTouch.get(hostAndPort);
+    }
+
     /**
      * Shutdown the application.
      * 
-     * Stops the listener (which releases its TCP port).
+     * Stops the listener (which releases its TCP port) and shuts down the
+     * partitions processing its indications.
      * 
      * @throws ConnectionManagerException When an error occurs shutting don the
      *             connection manager.
@@ -434,7 +442,7 @@ public class ConnectionManager {
 
             // Stop and destroy the listener.
             if (_listener != null) {
-                _listener.stop();
+                _listener.shutdown();
                 _listener = null;
             }
             executorService.shutdown();
@@ -530,13 +538,15 @@ public class ConnectionManager {
      * Closes all the connections being managed.
      */
     private void closeAllConnections() {
-        // Need to close the connection which in turns removes all the
-        // subscriptions for the connection.
-        for (Entry<String, CimConnection> connectionEntry : _connections.entrySet()) {
-            connectionEntry.getValue().close();
-        }
+        // The connections are removed before they are closed, so lookups don't
+        // return a closed connection. Closing the connection in turns removes all
+        // the subscriptions for the connection.
+        List<CimConnection> connections = new ArrayList<CimConnection>(_connections.values());
         _connections.clear();
         connectionLastTouch.clear();
+        for (CimConnection connection : connections) {
+            connection.close();
+        }
     }
 
     /**
@@ -576,9 +586,10 @@ public class ConnectionManager {
     }
 
     /**
-     * Looks up the 'hostAndPort' connection in the map. If it exists, the underlying
-     * connection will be closed, it will be removed from the map, and related data
-     * structures will be updated.
+     * Looks up the 'hostAndPort' connection in the map. If it exists, it will be removed
+     * from the map, related data structures will be updated, and the underlying connection
+     * will be closed. The connection is removed first, so lookups don't return it once it
+     * is being closed.
      * 
      * @param hostAndPort [IN] - Host + Port key used for looking up connection
      */
@@ -599,13 +610,12 @@ public class ConnectionManager {
             _listener.pause();
 
             // Remove the connection to the passed host.
-            CimConnection connection = _connections.get(hostAndPort);
+            CimConnection connection = _connections.remove(hostAndPort);
+            connectionLastTouch.remove(hostAndPort);
+            pinnedConnections.remove(hostAndPort);
             if (connection != null) {
                 s_logger.info("Closing connection to the CIM provider on host/port {}", hostAndPort);
                 connection.close();
-                _connections.remove(hostAndPort);
-                connectionLastTouch.remove(hostAndPort);
-                pinnedConnections.remove(hostAndPort);
             }
         } catch (ConnectionManagerException e) {
             throw e;
@@ -629,6 +639,10 @@ public class ConnectionManager {
             currentThread.setName(String.format("CimConnectionReaper %d", currentThread.getId()));
             try {
                 s_logger.debug("CimConnectionReaper start");
+                if (maxConnectionTTL == 0) {
+                    s_logger.debug("CimConnectionReaper is disabled");
+                    return;
+                }
                 int connectionsReaped = 0;
                 // Copy the keys to prevent ConcurrentUpdate exception
                 Set<String> connectionKeys = new HashSet<>(connectionLastTouch.keySet());
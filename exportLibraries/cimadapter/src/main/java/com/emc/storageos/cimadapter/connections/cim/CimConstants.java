@@ -58,6 +58,18 @@ public abstract class CimConstants {
     // Default queue size for the listener.
     public static final int DEFAULT_QUEUE_SIZE = 1000;
 
+    // Default number of partitions processing the indications received by the listener.
+    public static final int DEFAULT_PARTITION_COUNT = 16;
+
+    // Default size of the queue of each partition.
+    public static final int DEFAULT_PARTITION_QUEUE_SIZE = 2000;
+
+    // How long the listener waits for room in a full partition queue before discarding an indication.
+    public static final long PARTITION_OFFER_TIMEOUT = 30000;
+
+    // How long the partitions may process the indications already queued when the listener is shut down.
+    public static final long PARTITION_SHUTDOWN_TIMEOUT = 10000;
+
     // The CIM client protocol.
     public static final String CIM_CLIENT_PROTOCOL = "CIM-XML";
 
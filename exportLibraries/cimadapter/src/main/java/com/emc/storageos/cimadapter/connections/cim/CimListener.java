@@ -23,9 +23,9 @@ import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.cim.CIMInstance;
 import javax.net.ssl.SSLContext;
@@ -49,6 +49,7 @@ import com.emc.storageos.cimadapter.consumers.CimIndicationConsumerList;
 import com.emc.storageos.cimadapter.processors.CimIndicationProcessor;
 import com.emc.storageos.cimadapter.processors.CimIndicationSet;
 import com.emc.storageos.services.ServicesConstants;
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
 
 /**
  * CIM indication listener that hands off processing of each received indication
@@ -91,11 +92,12 @@ public class CimListener implements IndicationListener {
             ServicesConstants.TRUSTSTORE_FILE_NAME;
 
     /**
-     * Indications's thread pool to handle indications from smis.
-     * Executors.newFixedThreadPool will give unbound thread pool.
-     * So no need to bother about RejectedExecutionHandler here.
+     * Partitions handling the indications from smis, a single thread each. The indications
+     * of a connection always go to the same partition, so they are processed in the order
+     * they were received, while the indications of different connections are processed in
+     * parallel.
      */
-    private ExecutorService executorService = Executors.newFixedThreadPool(50);
+    private ThreadPoolExecutor[] _partitions;
 
     /**
      * Constructs a listener given the passed configuration.
@@ -121,6 +123,13 @@ public class CimListener implements IndicationListener {
         defaultSMISSSLPort = info.getDefaultSMISSSLPort();
         int queueSize = info.getQueueSize();
         _queue = new LinkedBlockingQueue<CimQueuedIndication>(queueSize);
+        _partitions = new ThreadPoolExecutor[Math.max(1, info.getPartitionCount())];
+        for (int i = 0; i < _partitions.length; i++) {
+            _partitions[i] = new NamedThreadPoolExecutor("CimIndicationPartition-" + i, 1, 1, 0L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(info.getPartitionQueueSize()));
+            // the workers are put straight in the partition queue, see indicationOccured
+            _partitions[i].prestartAllCoreThreads();
+        }
         _connections = new ConcurrentHashMap<String, CimConnection>();
         _indicationConsumers = indicationConsumers;
     }
@@ -234,7 +243,53 @@ public class CimListener implements IndicationListener {
             s_logger.debug("{} Received: {}", new Object[] { url, indication.toString() });
         }
         Runnable indicationWorker = new IndicationWorkerThread(url, indication, wasQueued);
-        executorService.execute(indicationWorker);
+        String key = getConnectionKey(url);
+        ThreadPoolExecutor partition = _partitions[(key.hashCode() & Integer.MAX_VALUE) % _partitions.length];
+        try {
+            // When the partition is full, block the caller rather than dropping the indication.
+            // This slows down the delivery of the indications by the provider during a storm.
+            if (!partition.getQueue().offer(indicationWorker, CimConstants.PARTITION_OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                s_logger.warn("Partition queue is full! Indication from {} discarded", url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            s_logger.warn("Interrupted while queuing indication. Indication from {} discarded", url);
+        }
+    }
+
+    /**
+     * Gives the key of the connection an indication was sent to.
+     * 
+     * The path of the destination URL SHOULD be a connection name.
+     * 
+     * SBLIM CIM client version 2.1.7 only puts the path component
+     * in the URL. That "bug" is fixed in version 2.1.8. Check the
+     * URL with an inexpensive test until VOPS upgrades to using
+     * version 2.1.8.
+     * 
+     * For some reason, SBLIM CIM client forces the path to
+     * lowercase. This "bug" has been reported, but has not
+     * been fixed as of version 2.1.8. To find a match, all
+     * names must be normalized to lowercase.
+     * 
+     * @param url The destination URL.
+     * @return The connection key.
+     */
+    private String getConnectionKey(String url) {
+        // Does the URL appear to have a scheme?
+        String connectionName = url;
+        if (url.indexOf("://") != -1) {
+            try {
+                connectionName = new URL(url).getPath();
+            } catch (Exception e) {
+                s_logger.error(e.getMessage(), e);
+            }
+        }
+        String key = connectionName.toLowerCase();
+        if (key.startsWith("/")) {
+            key = key.substring(1);
+        }
+        return key;
     }
 
     /**
@@ -280,36 +335,10 @@ public class CimListener implements IndicationListener {
                 return;
             }
 
-            // The path SHOULD be a connection name.
-            //
-            // SBLIM CIM client version 2.1.7 only puts the path component
-            // in the URL. That "bug" is fixed in version 2.1.8. Check the
-            // URL with an inexpensive test until VOPS upgrades to using
-            // version 2.1.8.
-            //
-            // Does the URL appear to have a scheme?
-            String connectionName = url;
-            if (url.indexOf("://") != -1) {
-                try {
-                    connectionName = new URL(url).getPath();
-                } catch (Exception e) {
-                    s_logger.error(e.getMessage(), e);
-                }
-            }
-
             // Look for a matching, registered connection. Reject
             // the indication if there is no match.
-            //
-            // For some reason, SBLIM CIM client forces the path to
-            // lowercase. This "bug" has been reported, but has not
-            // been fixed as of version 2.1.8. To find a match, all
-            // names must be normalized to lowercase.
-            String key = connectionName.toLowerCase();
-            if (key.startsWith("/")) {
-                key = key.substring(1);
-            }
-            if (_connections.containsKey(key)) {
-                CimConnection connection = _connections.get(key);
+            CimConnection connection = _connections.get(getConnectionKey(url));
+            if (connection != null) {
                 publishIndication(indication, connection);
             } else {
                 s_logger.debug("{} Rejected: {}", new Object[] { url, indication.toString() });
@@ -374,6 +403,32 @@ public class CimListener implements IndicationListener {
         }
     }
 
+    /**
+     * Stops listening and shuts the partitions down, letting them process the
+     * indications already queued for a while. The listener cannot be restarted.
+     */
+    public synchronized void shutdown() {
+        stop();
+        for (ThreadPoolExecutor partition : _partitions) {
+            partition.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + CimConstants.PARTITION_SHUTDOWN_TIMEOUT;
+        try {
+            for (ThreadPoolExecutor partition : _partitions) {
+                long timeout = Math.max(0, deadline - System.currentTimeMillis());
+                if (!partition.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                    s_logger.warn("{} indications not processed by a partition were discarded",
+                            partition.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (ThreadPoolExecutor partition : _partitions) {
+                partition.shutdownNow();
+            }
+        }
+    }
+
     /**
      * close's exiting tcp secure port 7012 and re'opens new socket to indications from smi-s provider.
      * 
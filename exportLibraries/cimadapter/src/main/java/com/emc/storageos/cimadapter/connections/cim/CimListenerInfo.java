@@ -22,6 +22,12 @@ public class CimListenerInfo {
     // The listener queue size.
     private int _queueSize = CimConstants.DEFAULT_QUEUE_SIZE;
 
+    // The number of partitions processing the indications.
+    private int _partitionCount = CimConstants.DEFAULT_PARTITION_COUNT;
+
+    // The queue size of each partition.
+    private int _partitionQueueSize = CimConstants.DEFAULT_PARTITION_QUEUE_SIZE;
+
     // Default SMI-S's SSL port to pull public certificates from SMI-S
     private int defaultSMISSSLPort;
 
@@ -97,6 +103,42 @@ public class CimListenerInfo {
         _queueSize = value;
     }
 
+    /**
+     * Getter for the number of partitions processing the indications.
+     * 
+     * @return The number of partitions.
+     */
+    public int getPartitionCount() {
+        return _partitionCount;
+    }
+
+    /**
+     * Setter for the number of partitions processing the indications.
+     * 
+     * @param value The number of partitions.
+     */
+    public void setPartitionCount(int value) {
+        _partitionCount = value;
+    }
+
+    /**
+     * Getter for the queue size of each partition.
+     * 
+     * @return The partition queue size.
+     */
+    public int getPartitionQueueSize() {
+        return _partitionQueueSize;
+    }
+
+    /**
+     * Setter for the queue size of each partition.
+     * 
+     * @param value The partition queue size.
+     */
+    public void setPartitionQueueSize(int value) {
+        _partitionQueueSize = value;
+    }
+
     /**
      * Returns default smi-s ssl port number
      * 
@@ -124,7 +166,7 @@ public class CimListenerInfo {
      * CimListenerInfo object.
      * 
      * Two CimListenerInfo objects are equal if they have the
-     * same host IP, protocol, port and queue size values.
+     * same host IP, protocol, port, queue size and partition values.
      * 
      * @param obj the CimListenerInfo object to compare against
      * 
@@ -149,6 +191,12 @@ public class CimListenerInfo {
         if (_queueSize != info.getQueueSize()) {
             return false;
         }
+        if (_partitionCount != info.getPartitionCount()) {
+            return false;
+        }
+        if (_partitionQueueSize != info.getPartitionQueueSize()) {
+            return false;
+        }
         if (!_protocol.equals(info.getProtocol())) {
             return false;
         }
@@ -167,6 +215,8 @@ public class CimListenerInfo {
         hash = hash * PRIME + ((_protocol == null) ? 0 : _protocol.hashCode());
         hash = hash * PRIME + _port;
         hash = hash * PRIME + _queueSize;
+        hash = hash * PRIME + _partitionCount;
+        hash = hash * PRIME + _partitionQueueSize;
         return hash;
     }
 }
\ No newline at end of file
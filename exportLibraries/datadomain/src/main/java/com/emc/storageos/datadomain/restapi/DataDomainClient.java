@@ -7,8 +7,8 @@ package com.emc.storageos.datadomain.restapi;
 
 import com.emc.storageos.datadomain.restapi.errorhandling.DataDomainApiException;
 import com.emc.storageos.datadomain.restapi.errorhandling.DataDomainResourceNotFoundException;
+import com.emc.storageos.services.restutil.JsonStreamDecoder;
 import com.emc.storageos.services.restutil.RestClientItf;
-import com.emc.storageos.services.util.SecurityUtils;
 
 import com.google.gson.Gson;
 import com.sun.jersey.api.client.Client;
@@ -194,8 +194,7 @@ public class DataDomainClient implements RestClientItf {
 
     private <T> T getResponseObject(Class<T> clazz, ClientResponse response) throws DataDomainApiException {
         try {
-            JSONObject resp = response.getEntity(JSONObject.class);
-            T respObject = new Gson().fromJson(SecurityUtils.sanitizeJsonString(resp.toString()), clazz);
+            T respObject = JsonStreamDecoder.fromJson(response.getEntity(String.class), clazz);
             /*
              * ObjectMapper mapper = new ObjectMapper();
              * mapper.configure(DeserializationConfig.Feature.UNWRAP_ROOT_VALUE, true);
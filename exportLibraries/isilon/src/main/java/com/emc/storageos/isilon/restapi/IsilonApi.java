@@ -26,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.emc.storageos.isilon.restapi.IsilonOneFS8Event.Events;
+import com.emc.storageos.services.restutil.JsonStreamDecoder;
 import com.emc.storageos.services.util.SecurityUtils;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
@@ -498,20 +499,20 @@ public class IsilonApi {
                 getUrl = getUrl.resolve("?resume=" + resumeToken);
             }
             resp = _client.get(getUrl);
-            JSONObject obj = resp.getEntity(JSONObject.class);
+            String json = resp.getEntity(String.class);
             IsilonList<T> ret = new IsilonList<T>();
             if (resp.getStatus() == 200) {
-                sLogger.debug("list {} : Output from Server: {} ", key, obj.get(key).toString());
+                sLogger.debug("list {} : Output from Server: {} ", key, json);
                 // TODO: "total" is not supported in all lists in Isilon API
                 // build 354. List of events and quotas do not have "total".
                 // TODO: Need to clarify with Isilon why "total" was droped from
                 // some lists and put this code back when fixed if this is
                 // Isilon bug.
                 // String count = obj.getString("total");
-                JSONArray array = obj.getJSONArray(key);
-                for (int i = 0; i < array.length(); i++) {
-                    JSONObject exp = array.getJSONObject(i);
-                    ret.add(new Gson().fromJson(SecurityUtils.sanitizeJsonString(exp.toString()), c));
+                // Bind the entries while reading the response, keep the top level values for the resume token
+                Map<String, String> topLevelValues = new HashMap<String, String>();
+                for (T entry : JsonStreamDecoder.readElements(json, c, topLevelValues, key)) {
+                    ret.add(entry);
                 }
                 // Isilon PAPI sets "total" to "null" string when there are more
                 // entries than default page size (1000 entries). Saw this for
@@ -520,13 +521,13 @@ public class IsilonApi {
                 // above
                 // if (count.equals("null") || Integer.parseInt(count) !=
                 // ret.size()) {
-                if (obj.has("resume") && !obj.getString("resume").equals("null")) {
+                if (topLevelValues.containsKey("resume") && !topLevelValues.get("resume").equals("null")) {
                     // we have more records to fetch -- save the resume token
-                    ret.setToken(obj.getString("resume"));
+                    ret.setToken(topLevelValues.get("resume"));
                 }
                 // }
             } else {
-                processErrorResponse("list", key, resp.getStatus(), obj);
+                processErrorResponse("list", key, resp.getStatus(), new JSONObject(json));
             }
             return ret;
         } catch (IsilonException ie) {
@@ -804,18 +805,17 @@ public class IsilonApi {
             resp = _client.get(url.resolve(id));
 
             if (resp.hasEntity()) {
-                JSONObject jObj = resp.getEntity(JSONObject.class);
+                String json = resp.getEntity(String.class);
                 if (resp.getStatus() == 200) {
-                    JSONArray array = jObj.getJSONArray(key);
-                    if (array.length() != 1) {
-                        String length = String.format("%1$s", array.length());
+                    List<T> array = JsonStreamDecoder.readElements(json, c, null, key);
+                    if (array.size() != 1) {
+                        String length = String.format("%1$s", array.size());
                         throw IsilonException.exceptions.getResourceFailedOnIsilonArray(key, length);
                     }
 
-                    JSONObject exp = array.getJSONObject(0);
-                    returnInstance = new Gson().fromJson(SecurityUtils.sanitizeJsonString(exp.toString()), c);
+                    returnInstance = array.get(0);
                 } else {
-                    processErrorResponse("get", key + ": " + id, resp.getStatus(), jObj);
+                    processErrorResponse("get", key + ": " + id, resp.getStatus(), new JSONObject(json));
                 }
             } else {
                 // no entity in response
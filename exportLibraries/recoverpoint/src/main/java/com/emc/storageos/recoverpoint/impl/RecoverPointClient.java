@@ -6,6 +6,8 @@ package com.emc.storageos.recoverpoint.impl;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,13 +26,11 @@ import org.slf4j.LoggerFactory;
 
 import com.emc.fapiclient.ws.ActivationSettingsChangesParams;
 import com.emc.fapiclient.ws.ClusterConfiguration;
-import com.emc.fapiclient.ws.ClusterInfo;
 import com.emc.fapiclient.ws.ClusterRPAsState;
 import com.emc.fapiclient.ws.ClusterSANVolumes;
 import com.emc.fapiclient.ws.ClusterSettings;
 import com.emc.fapiclient.ws.ClusterUID;
 import com.emc.fapiclient.ws.ConnectionOutThroughput;
-import com.emc.fapiclient.ws.ConsistencyGroupCopyJournal;
 import com.emc.fapiclient.ws.ConsistencyGroupCopyRole;
 import com.emc.fapiclient.ws.ConsistencyGroupCopySettings;
 import com.emc.fapiclient.ws.ConsistencyGroupCopySettingsChangesParam;
@@ -67,7 +67,6 @@ import com.emc.fapiclient.ws.PipeState;
 import com.emc.fapiclient.ws.ProtectionMode;
 import com.emc.fapiclient.ws.Quantity;
 import com.emc.fapiclient.ws.QuantityType;
-import com.emc.fapiclient.ws.RecoverPointClustersInformation;
 import com.emc.fapiclient.ws.RemoteClusterConnectionInformation;
 import com.emc.fapiclient.ws.ReplicationSetSettings;
 import com.emc.fapiclient.ws.ReplicationSetSettingsChangesParam;
@@ -205,6 +204,16 @@ public class RecoverPointClient {
     private String _username;
     private String _password;
 
+    // Max age of the CG topology snapshot used to find the CG of a volume. Operations made through this client
+    // drop the snapshot right away, this only bounds how long changes made by others go unnoticed. The copy
+    // roles are not taken from the snapshot, they are read again for each lookup.
+    private static final long TOPOLOGY_MAX_AGE_MS = 60 * 1000L;
+
+    private final Object _topologyLock = new Object();
+    private volatile RecoverPointTopology _topology;
+    // incremented on each change made through this client, guarded by _topologyLock
+    private long _topologyGeneration;
+
     /**
      * Default constructor.
      */
@@ -460,11 +469,14 @@ public class RecoverPointClient {
                 clusterIdToInternalSiteNameMap.put(siteSettings.getCluster().getId(), siteSettings.getInternalClusterName());
             }
 
-            // Go through all of the CGs and retrieve important pieces of information
-            List<ConsistencyGroupUID> allCgs = functionalAPI.getAllConsistencyGroups();
-            for (ConsistencyGroupUID cg : allCgs) {
+            // Go through all of the CGs and retrieve important pieces of information.
+            // The settings of all the CGs are read at once, they also refresh the topology snapshot.
+            long generation = getTopologyGeneration();
+            List<ConsistencyGroupSettings> allCgsSettings = functionalAPI.getAllGroupsSettings();
+            setTopology(new RecoverPointTopology(allCgsSettings, functionalAPI.getRecoverPointClustersInformation(), generation));
+            for (ConsistencyGroupSettings settings : allCgsSettings) {
 
-                ConsistencyGroupSettings settings = functionalAPI.getGroupSettings(cg);
+                ConsistencyGroupUID cg = settings.getGroupUID();
                 ConsistencyGroupState state = functionalAPI.getGroupState(cg);
 
                 logger.info("Processing CG found on RecoverPoint system: " + settings.getName());
@@ -501,7 +513,7 @@ public class RecoverPointClient {
 
                 // We assume CG health until we see something that indicates otherwise.
                 cgResp.setCgState(GetCGsResponse.GetCGStateResponse.HEALTHY);
-                RecoverPointCGState cgState = this.getCGState(cg);
+                RecoverPointCGState cgState = getCGState(settings, state);
                 if (cgState.equals(RecoverPointCGState.DELETED)) {
                     cgResp.setCgState(GetCGStateResponse.UNHEALTHY_ERROR);
                 } else if (cgState.equals(RecoverPointCGState.MIXED)) {
@@ -768,6 +780,8 @@ public class RecoverPointClient {
         } catch (Exception e) {
             logger.info("Failed to add replication set(s) to CG");
             throw RecoverPointException.exceptions.failedToAddReplicationSetToConsistencyGroup(request.getCgName(), getCause(e));
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -854,6 +868,8 @@ public class RecoverPointClient {
                 }
             }
             throw RecoverPointException.exceptions.failedToCreateConsistencyGroup(request.getCgName(), getCause(e));
+        } finally {
+            invalidateTopology();
         }
 
     }
@@ -931,6 +947,8 @@ public class RecoverPointClient {
             logger.error("Error in attempting to add a journal volume to the recoverpoint consistency group");
             logger.error(e.getMessage(), e);
             throw RecoverPointException.exceptions.failedToCreateConsistencyGroup(copyName, getCause(e));
+        } finally {
+            invalidateTopology();
         }
         return true;
     }
@@ -1341,6 +1359,7 @@ public class RecoverPointClient {
      * @param policyParam the update policy param
      */
     public void updateConsistencyGroupPolicy(UpdateCGPolicyParams policyParam) {
+        invalidateTopology();
         if (policyParam == null) {
             logger.warn("Unable to update policy for CG. The update paramaters are invalid.");
             return;
@@ -1790,6 +1809,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public MultiCopyEnableImageResponse enableImageCopies(MultiCopyEnableImageRequestParams request) throws RecoverPointException {
+        invalidateTopology();
         MultiCopyEnableImageResponse response = new MultiCopyEnableImageResponse();
         RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
         RecoverPointBookmarkManagementUtils bookmarkManager = new RecoverPointBookmarkManagementUtils();
@@ -1865,6 +1885,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public MultiCopyDisableImageResponse disableImageCopies(MultiCopyDisableImageRequestParams request) throws RecoverPointException {
+        invalidateTopology();
         MultiCopyDisableImageResponse response = new MultiCopyDisableImageResponse();
         RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
         RecoverPointBookmarkManagementUtils bookmarkManager = new RecoverPointBookmarkManagementUtils();
@@ -1919,6 +1940,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public MultiCopyRestoreImageResponse restoreImageCopies(MultiCopyRestoreImageRequestParams request) throws RecoverPointException {
+        invalidateTopology();
         MultiCopyRestoreImageResponse response = new MultiCopyRestoreImageResponse();
         RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
         RecoverPointBookmarkManagementUtils bookmarkManager = new RecoverPointBookmarkManagementUtils();
@@ -2057,126 +2079,204 @@ public class RecoverPointClient {
     /**
      * The getProtectionInfoForVolume method takes the WWN, and looks for it in the RP site protection environment.
      * If it finds the WWN as a member of a consistency group, it fills in the information, and returns it to the caller.
-     * If it does not find the WWN as a member of a consistency group, it returns null
+     * If it does not find the WWN as a member of a consistency group, it throws an exception
      *
      * @param String volumeWWN - The WWN being checked for RecoverPoint protection
      *
-     * @return RecoverPointVolumeProtectionInfo - description of protection information about the WWN, or null if not protected in CG
+     * @return RecoverPointVolumeProtectionInfo - description of protection information about the WWN
      *
      * @throws RecoverPointException
      **/
     public RecoverPointVolumeProtectionInfo getProtectionInfoForVolume(String volumeWWN) throws RecoverPointException {
-        RecoverPointVolumeProtectionInfo protectionInfo = null;
+        RecoverPointVolumeProtectionInfo protectionInfo = getProtectionInfoForVolumes(Collections.singletonList(volumeWWN)).get(volumeWWN);
+        if (protectionInfo == null) {
+            throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWN);
+        }
+        return protectionInfo;
+    }
+
+    /**
+     * Batch version of getProtectionInfoForVolume: finds the consistency group of each of the WWNs.
+     *
+     * The WWNs are looked up in the topology snapshot of the RP system. If a WWN is not found in a cached
+     * snapshot, the snapshot is read again once, so that volumes added to CGs since are found.
+     *
+     * @param volumeWWNs the WWNs being checked for RecoverPoint protection
+     * @return protection information of each WWN found in a consistency group, WWNs not found are not in the map
+     * @throws RecoverPointException
+     */
+    public Map<String, RecoverPointVolumeProtectionInfo> getProtectionInfoForVolumes(Collection<String> volumeWWNs)
+            throws RecoverPointException {
+        Map<String, RecoverPointVolumeProtectionInfo> protectionInfos = new HashMap<String, RecoverPointVolumeProtectionInfo>();
         try {
-            // logger.info("getProtectionInfoForVolume called for: " + volumeWWN);
-            protectionInfo = new RecoverPointVolumeProtectionInfo();
-            List<ConsistencyGroupSettings> cgsSettings = functionalAPI.getAllGroupsSettings();
-            for (ConsistencyGroupSettings cgSettings : cgsSettings) {
-                // See if it is a production source, or an RP target
-                for (ReplicationSetSettings rsSettings : cgSettings.getReplicationSetsSettings()) {
-                    for (UserVolumeSettings uvSettings : rsSettings.getVolumes()) {
-                        if (matchesVolumeWWN(uvSettings.getVolumeInfo(), volumeWWN)) {
-                            ConsistencyGroupUID cgID = uvSettings.getGroupCopyUID().getGroupUID();
-                            ConsistencyGroupState state = functionalAPI.getGroupState(cgID);
-                            List<ConsistencyGroupCopyUID> productionCopiesUIDs = functionalAPI.getGroupSettings(cgID)
-                                    .getProductionCopiesUIDs();
-                            String cgName = cgSettings.getName();
-                            String cgCopyName = functionalAPI.getGroupCopyName(uvSettings.getGroupCopyUID());
-                            protectionInfo.setRpProtectionName(cgName);
-                            protectionInfo.setRpVolumeGroupCopyID(uvSettings.getGroupCopyUID().getGlobalCopyUID().getCopyUID());
-                            protectionInfo.setRpCopyName(cgCopyName);
-                            protectionInfo.setRpSiteName(getRecoverPointClusterName(uvSettings.getClusterUID()));
-                            protectionInfo.setRpVolumeGroupID(cgID.getId());
-                            protectionInfo.setRpVolumeSiteID(uvSettings.getClusterUID().getId());
-                            protectionInfo.setRpVolumeRSetID(rsSettings.getReplicationSetUID().getId());
-                            protectionInfo.setRpVolumeWWN(volumeWWN);
-                            if (RecoverPointUtils.isProductionCopy(uvSettings.getGroupCopyUID(), productionCopiesUIDs)) {
-                                if (RecoverPointUtils.isStandbyProductionCopy(uvSettings.getGroupCopyUID(), state, productionCopiesUIDs)) {
-                                    // In the case of MetroPoint, we will have 2 production copies for the same volume (active and standby).
-                                    // We want to always match on the active production copy. If this is a MetroPoint CG, skip over the
-                                    // standby production copy.
-                                    logger.info(String
-                                            .format("Found production volume %s on copy %s.  Skipping because it is not the active production copy.",
-                                                    volumeWWN, cgCopyName));
-                                    continue;
-                                }
-                                logger.info("Production volume: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
-                                protectionInfo
-                                        .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.PROTECTED_SOURCE);
-                            } else {
-                                logger.info("Target volume: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
-                                protectionInfo
-                                        .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.PROTECTED_TARGET);
-                            }
-                            return protectionInfo;
-                        }
-                    }
+            long start = System.currentTimeMillis();
+            RecoverPointTopology topology = getTopology(false);
+            // CG settings and states read for this call, the copy roles of a CG are read once
+            Map<Long, ConsistencyGroupSettings> cgSettings = new HashMap<Long, ConsistencyGroupSettings>();
+            Map<Long, ConsistencyGroupState> cgStates = new HashMap<Long, ConsistencyGroupState>();
+            List<String> notFound = new ArrayList<String>();
+            for (String volumeWWN : volumeWWNs) {
+                RecoverPointVolumeProtectionInfo protectionInfo = getProtectionInfo(topology, volumeWWN, cgSettings, cgStates);
+                if (protectionInfo != null) {
+                    protectionInfos.put(volumeWWN, protectionInfo);
+                } else {
+                    notFound.add(volumeWWN);
                 }
-                // See if it is a journal volume
-                for (ConsistencyGroupCopySettings cgCopySettings : cgSettings.getGroupCopiesSettings()) {
-                    ConsistencyGroupCopyJournal cgJournal = cgCopySettings.getJournal();
-                    List<JournalVolumeSettings> journalVolumeSettingsList = cgJournal.getJournalVolumes();
-                    for (JournalVolumeSettings journalVolumeSettings : journalVolumeSettingsList) {
-                        if (matchesVolumeWWN(journalVolumeSettings.getVolumeInfo(), volumeWWN)) {
-                            ConsistencyGroupUID cgID = journalVolumeSettings.getGroupCopyUID().getGroupUID();
-                            List<ConsistencyGroupCopyUID> productionCopiesUIDs = functionalAPI.getGroupSettings(cgID)
-                                    .getProductionCopiesUIDs();
-                            String cgName = cgSettings.getName();
-                            String cgCopyName = functionalAPI.getGroupCopyName(journalVolumeSettings.getGroupCopyUID());
-                            protectionInfo.setRpProtectionName(cgName);
-                            protectionInfo.setRpVolumeGroupCopyID(journalVolumeSettings.getGroupCopyUID().getGlobalCopyUID().getCopyUID());
-                            protectionInfo.setRpVolumeGroupID(cgID.getId());
-                            protectionInfo.setRpVolumeSiteID(journalVolumeSettings.getClusterUID().getId());
-                            protectionInfo.setRpVolumeWWN(volumeWWN);
-                            if (RecoverPointUtils.isProductionCopy(journalVolumeSettings.getGroupCopyUID(), productionCopiesUIDs)) {
-                                logger.info("Production journal: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
-                                protectionInfo
-                                        .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.SOURCE_JOURNAL);
-                            } else {
-                                logger.info("Target journal: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
-                                protectionInfo
-                                        .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.TARGET_JOURNAL);
-                            }
-                            return protectionInfo;
-                        }
+            }
+            if (!notFound.isEmpty() && topology.getTimestamp() < start) {
+                logger.info("Volumes {} not found in the RecoverPoint topology snapshot, reading it again", notFound);
+                topology = getTopology(true);
+                for (String volumeWWN : notFound) {
+                    RecoverPointVolumeProtectionInfo protectionInfo = getProtectionInfo(topology, volumeWWN, cgSettings, cgStates);
+                    if (protectionInfo != null) {
+                        protectionInfos.put(volumeWWN, protectionInfo);
                     }
-
                 }
             }
         } catch (FunctionalAPIActionFailedException_Exception e) {
-            throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWN,
+            throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWNs.toString(),
                     e);
         } catch (FunctionalAPIInternalError_Exception e) {
-            throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWN,
+            throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWNs.toString(),
                     e);
         }
-        throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(volumeWWN);
+        return protectionInfos;
     }
 
     /**
-     * Gets the RP cluster name corresponding to the given ClusterUID.
+     * Finds the protection information of a WWN in a topology snapshot.
+     *
+     * The snapshot only locates the CG and copy of the volume. The production copies of the CG change on a
+     * failover or swap, possibly made by others, without the snapshot being dropped, so whether the copy is a
+     * production copy is decided from the CG settings read again for this call.
      *
-     * @param clusterID the cluster id used to find the corresponding name
-     * @return the cluster name or null if not found
+     * @param topology the topology snapshot
+     * @param volumeWWN the WWN being checked for RecoverPoint protection
+     * @param cgSettings CG settings already read for this call, by CG id, updated with the settings read
+     * @param cgStates CG states already read, by CG id, updated with the states read
+     * @return protection information of the WWN, null if it is not a member of a consistency group
      * @throws FunctionalAPIActionFailedException_Exception
      * @throws FunctionalAPIInternalError_Exception
      */
-    private String getRecoverPointClusterName(ClusterUID clusterID) throws FunctionalAPIActionFailedException_Exception,
-            FunctionalAPIInternalError_Exception {
-        if (clusterID != null) {
-            RecoverPointClustersInformation clustersInfo = functionalAPI.getRecoverPointClustersInformation();
-            if (clustersInfo != null) {
-                for (ClusterInfo clusterInfo : clustersInfo.getClustersInformations()) {
-                    if (clusterInfo.getClusterUID().getId() == clusterID.getId()) {
-                        return clusterInfo.getClusterName();
-                    }
+    private RecoverPointVolumeProtectionInfo getProtectionInfo(RecoverPointTopology topology, String volumeWWN,
+            Map<Long, ConsistencyGroupSettings> cgSettings, Map<Long, ConsistencyGroupState> cgStates)
+            throws FunctionalAPIActionFailedException_Exception, FunctionalAPIInternalError_Exception {
+        for (RecoverPointTopology.VolumeLocation location : topology.getLocations(volumeWWN)) {
+            ConsistencyGroupCopyUID copyUID = location.getCopyUID();
+            ConsistencyGroupUID cgID = copyUID.getGroupUID();
+            ConsistencyGroupSettings settings = cgSettings.get(cgID.getId());
+            if (settings == null) {
+                settings = functionalAPI.getGroupSettings(cgID);
+                cgSettings.put(cgID.getId(), settings);
+            }
+            List<ConsistencyGroupCopyUID> productionCopiesUIDs = settings.getProductionCopiesUIDs();
+            String cgName = settings.getName();
+            String cgCopyName = RecoverPointTopology.getCopyName(settings, copyUID);
+
+            RecoverPointVolumeProtectionInfo protectionInfo = new RecoverPointVolumeProtectionInfo();
+            protectionInfo.setRpProtectionName(cgName);
+            protectionInfo.setRpVolumeGroupCopyID(copyUID.getGlobalCopyUID().getCopyUID());
+            protectionInfo.setRpVolumeGroupID(cgID.getId());
+            protectionInfo.setRpVolumeSiteID(location.getClusterUID().getId());
+            protectionInfo.setRpVolumeWWN(volumeWWN);
+
+            if (location.isJournal()) {
+                if (RecoverPointUtils.isProductionCopy(copyUID, productionCopiesUIDs)) {
+                    logger.info("Production journal: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
+                    protectionInfo
+                            .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.SOURCE_JOURNAL);
+                } else {
+                    logger.info("Target journal: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
+                    protectionInfo
+                            .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.TARGET_JOURNAL);
+                }
+                return protectionInfo;
+            }
+
+            protectionInfo.setRpCopyName(cgCopyName);
+            protectionInfo.setRpSiteName(topology.getClusterName(location.getClusterUID()));
+            protectionInfo.setRpVolumeRSetID(location.getRsetUID().getId());
+            if (RecoverPointUtils.isProductionCopy(copyUID, productionCopiesUIDs)) {
+                // The active production copy changes without changes to the CG settings, read the CG state
+                ConsistencyGroupState state = cgStates.get(cgID.getId());
+                if (state == null) {
+                    state = functionalAPI.getGroupState(cgID);
+                    cgStates.put(cgID.getId(), state);
+                }
+                if (RecoverPointUtils.isStandbyProductionCopy(copyUID, state, productionCopiesUIDs)) {
+                    // In the case of MetroPoint, we will have 2 production copies for the same volume (active and standby).
+                    // We want to always match on the active production copy. If this is a MetroPoint CG, skip over the
+                    // standby production copy.
+                    logger.info(String
+                            .format("Found production volume %s on copy %s.  Skipping because it is not the active production copy.",
+                                    volumeWWN, cgCopyName));
+                    continue;
                 }
+                logger.info("Production volume: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
+                protectionInfo
+                        .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.PROTECTED_SOURCE);
+            } else {
+                logger.info("Target volume: " + volumeWWN + " is on copy " + cgCopyName + " of CG " + cgName);
+                protectionInfo
+                        .setRpVolumeCurrentProtectionStatus(RecoverPointVolumeProtectionInfo.volumeProtectionStatus.PROTECTED_TARGET);
             }
+            return protectionInfo;
         }
-
         return null;
     }
 
+    /**
+     * Returns the topology snapshot of the RP system, reading it if the cached one is too old.
+     *
+     * @param refresh true to read the snapshot even if the cached one is recent enough
+     * @return the topology snapshot
+     * @throws FunctionalAPIActionFailedException_Exception
+     * @throws FunctionalAPIInternalError_Exception
+     */
+    private RecoverPointTopology getTopology(boolean refresh) throws FunctionalAPIActionFailedException_Exception,
+            FunctionalAPIInternalError_Exception {
+        RecoverPointTopology topology = _topology;
+        if (!refresh && topology != null && System.currentTimeMillis() - topology.getTimestamp() < TOPOLOGY_MAX_AGE_MS) {
+            return topology;
+        }
+        long generation = getTopologyGeneration();
+        topology = new RecoverPointTopology(functionalAPI.getAllGroupsSettings(), functionalAPI.getRecoverPointClustersInformation(),
+                generation);
+        setTopology(topology);
+        return topology;
+    }
+
+    private long getTopologyGeneration() {
+        synchronized (_topologyLock) {
+            return _topologyGeneration;
+        }
+    }
+
+    /**
+     * Caches a topology snapshot, unless the CGs were changed through this client while it was read.
+     *
+     * @param topology the topology snapshot
+     */
+    private void setTopology(RecoverPointTopology topology) {
+        synchronized (_topologyLock) {
+            if (topology.getGeneration() == _topologyGeneration
+                    && (_topology == null || _topology.getTimestamp() <= topology.getTimestamp())) {
+                _topology = topology;
+            }
+        }
+    }
+
+    /**
+     * Drops the topology snapshot of the RP system, so that the next lookup reads it again.
+     * Called by every operation on the consistency groups made through this client.
+     */
+    public void invalidateTopology() {
+        synchronized (_topologyLock) {
+            _topologyGeneration++;
+            _topology = null;
+        }
+    }
+
     /**
      * Disable (stop) the consistency group protection specified by the input volume info.
      * If a target volume is specified, disable the copy associated with the target.
@@ -2189,6 +2289,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void disableProtection(RecoverPointVolumeProtectionInfo volumeInfo) throws RecoverPointException {
+        invalidateTopology();
         try {
             ConsistencyGroupUID cgUID = new ConsistencyGroupUID();
             cgUID.setId(volumeInfo.getRpVolumeGroupID());
@@ -2246,6 +2347,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void enableProtection(RecoverPointVolumeProtectionInfo volumeInfo) throws RecoverPointException {
+        invalidateTopology();
         try {
             ConsistencyGroupUID cgUID = new ConsistencyGroupUID();
             cgUID.setId(volumeInfo.getRpVolumeGroupID());
@@ -2317,6 +2419,18 @@ public class RecoverPointClient {
             // No longer exists
             return RecoverPointCGState.DELETED;
         }
+        return getCGState(cgSettings, cgState);
+    }
+
+    /**
+     * Return the state of a consistency group from its settings and state.
+     *
+     * @param cgSettings - CG settings
+     * @param cgState - CG state
+     *
+     * @return the state of the CG
+     **/
+    private RecoverPointCGState getCGState(ConsistencyGroupSettings cgSettings, ConsistencyGroupState cgState) {
         if (!cgSettings.isEnabled()) {
             return RecoverPointCGState.STOPPED;
         }
@@ -2338,17 +2452,7 @@ public class RecoverPointClient {
         // Now check to see if all the copies are paused
         boolean someCopiesPaused = false;
         boolean someCopiesNotPaused = false;
-        List<ConsistencyGroupLinkState> cgLinkStateList;
-        try {
-            cgLinkStateList = functionalAPI.getGroupState(cgUID).getLinksStates();
-        } catch (FunctionalAPIActionFailedException_Exception e) {
-            // No longer exists
-            return RecoverPointCGState.DELETED;
-        } catch (FunctionalAPIInternalError_Exception e) {
-            // No longer exists
-            return RecoverPointCGState.DELETED;
-        }
-
+        List<ConsistencyGroupLinkState> cgLinkStateList = cgState.getLinksStates();
         for (ConsistencyGroupLinkState cgLinkState : cgLinkStateList) {
             // OK, this is our link that we just restored. Check the link state to see if it is active
             if (PipeState.ACTIVE.equals(cgLinkState.getPipeState()) || PipeState.SNAP_IDLE.equals(cgLinkState.getPipeState()) ||
@@ -2379,6 +2483,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void pauseTransfer(RecoverPointVolumeProtectionInfo volumeInfo) throws RecoverPointException {
+        invalidateTopology();
         try {
             ConsistencyGroupUID cgUID = new ConsistencyGroupUID();
             cgUID.setId(volumeInfo.getRpVolumeGroupID());
@@ -2414,6 +2519,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void resumeTransfer(RecoverPointVolumeProtectionInfo volumeInfo) throws RecoverPointException {
+        invalidateTopology();
         try {
             ConsistencyGroupUID cgUID = new ConsistencyGroupUID();
             cgUID.setId(volumeInfo.getRpVolumeGroupID());
@@ -2450,6 +2556,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void failoverCopyTest(RPCopyRequestParams copyToFailoverTo) throws RecoverPointException {
+        invalidateTopology();
         // Check the params
         // If bookmark != null, enable the bookmark on the copy, and failover to that copy
         // If APITTime != null, enable the specified APIT on the copy, and failover to that copy
@@ -2480,6 +2587,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void failoverCopyTestCancel(RPCopyRequestParams copyToFailoverTo) throws RecoverPointException {
+        invalidateTopology();
         RecoverPointVolumeProtectionInfo failoverCopyInfo = copyToFailoverTo.getCopyVolumeInfo();
         resumeTransfer(failoverCopyInfo);
         RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
@@ -2497,6 +2605,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void failoverCopy(RPCopyRequestParams copyToFailoverTo) throws RecoverPointException {
+        invalidateTopology();
         // Check the params
         // If bookmark != null, enable the bookmark on the copy, and failover to that copy
         // If APITTime != null, enable the specified APIT on the copy, and failover to that copy
@@ -2525,6 +2634,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      */
     public void updateImageAccessMode(RPCopyRequestParams copyToEnableImageAccessMode) throws RecoverPointException {
+        invalidateTopology();
         if (copyToEnableImageAccessMode != null) {
             RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
 
@@ -2549,6 +2659,7 @@ public class RecoverPointClient {
      * @throws RecoverPointException
      **/
     public void failoverCopyCancel(RPCopyRequestParams copyToFailoverTo) throws RecoverPointException {
+        invalidateTopology();
         RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
         imageManager.disableCopyImage(functionalAPI, copyToFailoverTo);
     }
@@ -2598,6 +2709,8 @@ public class RecoverPointClient {
         } catch (FunctionalAPIActionFailedException_Exception | FunctionalAPIInternalError_Exception e) {
             String copyName = copyParams.getCopyVolumeInfo() != null ? copyParams.getCopyVolumeInfo().getRpCopyName() : "N/A";
             throw RecoverPointException.exceptions.failedToSwapCopy(copyName, e);
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -2615,11 +2728,15 @@ public class RecoverPointClient {
         RecoverPointImageManagementUtils imageManager = new RecoverPointImageManagementUtils();
         ConsistencyGroupCopyUID cgCopyUID = RecoverPointUtils.mapRPVolumeProtectionInfoToCGCopyUID(copyParams.getCopyVolumeInfo());
 
-        // Prepare the link settings for new links
-        prepareLinkSettings(cgCopyUID);
+        try {
+            // Prepare the link settings for new links
+            prepareLinkSettings(cgCopyUID);
 
-        // Set the failover copy as production to resume data flow
-        imageManager.setCopyAsProduction(functionalAPI, cgCopyUID);
+            // Set the failover copy as production to resume data flow
+            imageManager.setCopyAsProduction(functionalAPI, cgCopyUID);
+        } finally {
+            invalidateTopology();
+        }
 
         // wait for links to become active
         ConsistencyGroupUID cgUID = cgCopyUID.getGroupUID();
@@ -2853,6 +2970,8 @@ public class RecoverPointClient {
             throw RecoverPointException.exceptions.failedToDeleteCopy(copyName, cgName, e);
         } catch (FunctionalAPIInternalError_Exception e) {
             throw RecoverPointException.exceptions.failedToDeleteCopy(copyName, cgName, e);
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -2894,6 +3013,8 @@ public class RecoverPointClient {
             throw RecoverPointException.exceptions.failedToDeleteConsistencyGroup(cgName, e);
         } catch (Exception e) {
             throw RecoverPointException.exceptions.failedToDeleteConsistencyGroup(cgName, e);
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -3004,6 +3125,8 @@ public class RecoverPointClient {
         } catch (FunctionalAPIInternalError_Exception e) {
             throw RecoverPointException.exceptions.failedToDeleteJournal(journalWWNToDelete,
                     copyName, cgName, e);
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -3366,6 +3489,8 @@ public class RecoverPointClient {
         } catch (Exception e) {
             throw RecoverPointException.exceptions.failedToDeleteReplicationSet(
                     volumeWWNs.toString(), e);
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -3514,6 +3639,8 @@ public class RecoverPointClient {
                 throw RecoverPointException.exceptions.failedToRecreateReplicationSet(volumeWWNs.toString(), e);
             } catch (FunctionalAPIInternalError_Exception e) {
                 throw RecoverPointException.exceptions.failedToRecreateReplicationSet(volumeWWNs.toString(), e);
+            } finally {
+                invalidateTopology();
             }
         }
     }
@@ -3840,6 +3967,8 @@ public class RecoverPointClient {
 
         } catch (Exception e) {
             throw RecoverPointException.exceptions.failedToFailoverCopy(activeCgCopyName, cgName, e);
+        } finally {
+            invalidateTopology();
         }
     }
 
@@ -3851,17 +3980,12 @@ public class RecoverPointClient {
      */
     public boolean doesProtectionVolumeExist(String volumeWWN) {
         try {
-            List<ConsistencyGroupSettings> cgsSettings = functionalAPI.getAllGroupsSettings();
-            for (ConsistencyGroupSettings cgSettings : cgsSettings) {
-                // See if it is a production source, or an RP target
-                for (ReplicationSetSettings rsSettings : cgSettings.getReplicationSetsSettings()) {
-                    for (UserVolumeSettings uvSettings : rsSettings.getVolumes()) {
-                        if (matchesVolumeWWN(uvSettings.getVolumeInfo(), volumeWWN)) {
-                            return true;
-                        }
-                    }
-                }
+            long start = System.currentTimeMillis();
+            RecoverPointTopology topology = getTopology(false);
+            if (!hasReplicationSetVolume(topology, volumeWWN) && topology.getTimestamp() < start) {
+                topology = getTopology(true);
             }
+            return hasReplicationSetVolume(topology, volumeWWN);
         } catch (FunctionalAPIActionFailedException_Exception e) {
             logger.error(e.getMessage(), e);
             return false;
@@ -3869,6 +3993,19 @@ public class RecoverPointClient {
             logger.error(e.getMessage(), e);
             return false;
         }
+    }
+
+    /**
+     * @param topology topology snapshot
+     * @param volumeWWN volume WWN
+     * @return true if the volume is a production source or an RP target in the snapshot
+     */
+    private boolean hasReplicationSetVolume(RecoverPointTopology topology, String volumeWWN) {
+        for (RecoverPointTopology.VolumeLocation location : topology.getLocations(volumeWWN)) {
+            if (!location.isJournal()) {
+                return true;
+            }
+        }
         return false;
     }
 
@@ -3882,8 +4019,12 @@ public class RecoverPointClient {
         Map<String, String> copyAccessStates = new HashMap<String, String>();
 
         if (rpWWNs != null) {
+            Map<String, RecoverPointVolumeProtectionInfo> protectionInfos = getProtectionInfoForVolumes(rpWWNs);
             for (String wwn : rpWWNs) {
-                RecoverPointVolumeProtectionInfo protectionInfo = getProtectionInfoForVolume(wwn);
+                RecoverPointVolumeProtectionInfo protectionInfo = protectionInfos.get(wwn);
+                if (protectionInfo == null) {
+                    throw RecoverPointException.exceptions.failureGettingProtectionInfoForVolume(wwn);
+                }
                 ConsistencyGroupCopyUID cgCopyUID = RecoverPointUtils.mapRPVolumeProtectionInfoToCGCopyUID(protectionInfo);
 
                 if (cgCopyUID != null) {
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.recoverpoint.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.emc.fapiclient.ws.ClusterInfo;
+import com.emc.fapiclient.ws.ClusterUID;
+import com.emc.fapiclient.ws.ConsistencyGroupCopySettings;
+import com.emc.fapiclient.ws.ConsistencyGroupCopyUID;
+import com.emc.fapiclient.ws.ConsistencyGroupSettings;
+import com.emc.fapiclient.ws.JournalVolumeSettings;
+import com.emc.fapiclient.ws.RecoverPointClustersInformation;
+import com.emc.fapiclient.ws.ReplicationSetSettings;
+import com.emc.fapiclient.ws.ReplicationSetUID;
+import com.emc.fapiclient.ws.UserVolumeSettings;
+import com.emc.fapiclient.ws.VolumeInformation;
+import com.emc.storageos.recoverpoint.utils.RecoverPointUtils;
+
+/**
+ * Snapshot of the consistency groups of a RecoverPoint system, indexed by volume WWN.
+ *
+ * The snapshot is built from a single getAllGroupsSettings call, so that the CG, copy and replication set
+ * of many volumes can be found without walking all the CGs for each of them. Volumes are indexed by
+ * both their NAA and raw UIDs, in upper case. The snapshot is immutable; the state of the CGs (active
+ * copies, link states) is not part of it, and the copy roles it holds are only as recent as the snapshot,
+ * so they are read again from the RP system before deciding whether a copy is a production copy.
+ */
+class RecoverPointTopology {
+
+    private final long timestamp = System.currentTimeMillis();
+    private final long generation;
+    private final Map<Long, String> clusterNames = new HashMap<Long, String>();
+    private final Map<String, List<VolumeLocation>> volumesByWwn = new HashMap<String, List<VolumeLocation>>();
+
+    /**
+     * Location of a volume in a CG: a replication set volume, or a journal volume of a copy
+     */
+    static class VolumeLocation {
+        private final ConsistencyGroupSettings cgSettings;
+        private final ConsistencyGroupCopyUID copyUID;
+        private final ClusterUID clusterUID;
+        private final ReplicationSetUID rsetUID;
+
+        VolumeLocation(ConsistencyGroupSettings cgSettings, ConsistencyGroupCopyUID copyUID, ClusterUID clusterUID,
+                ReplicationSetUID rsetUID) {
+            this.cgSettings = cgSettings;
+            this.copyUID = copyUID;
+            this.clusterUID = clusterUID;
+            this.rsetUID = rsetUID;
+        }
+
+        ConsistencyGroupSettings getCgSettings() {
+            return cgSettings;
+        }
+
+        ConsistencyGroupCopyUID getCopyUID() {
+            return copyUID;
+        }
+
+        ClusterUID getClusterUID() {
+            return clusterUID;
+        }
+
+        /**
+         * @return the replication set of the volume, null for a journal volume
+         */
+        ReplicationSetUID getRsetUID() {
+            return rsetUID;
+        }
+
+        boolean isJournal() {
+            return rsetUID == null;
+        }
+
+        /**
+         * @return the name of the copy of the volume, null if the copy is not in the CG settings
+         */
+        String getCopyName() {
+            return RecoverPointTopology.getCopyName(cgSettings, copyUID);
+        }
+    }
+
+    /**
+     * @param cgSettings CG settings
+     * @param copyUID copy of the CG
+     * @return the name of the copy, null if the copy is not in the CG settings
+     */
+    static String getCopyName(ConsistencyGroupSettings cgSettings, ConsistencyGroupCopyUID copyUID) {
+        if (cgSettings.getGroupCopiesSettings() != null) {
+            for (ConsistencyGroupCopySettings copySettings : cgSettings.getGroupCopiesSettings()) {
+                if (RecoverPointUtils.copiesEqual(copySettings.getCopyUID(), copyUID)) {
+                    return copySettings.getName();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param cgsSettings settings of all the CGs of the RecoverPoint system
+     * @param clustersInfo clusters of the RecoverPoint system, may be null
+     * @param generation generation of the client topology this snapshot was read in
+     */
+    RecoverPointTopology(List<ConsistencyGroupSettings> cgsSettings, RecoverPointClustersInformation clustersInfo, long generation) {
+        this.generation = generation;
+        if (clustersInfo != null) {
+            for (ClusterInfo clusterInfo : clustersInfo.getClustersInformations()) {
+                clusterNames.put(clusterInfo.getClusterUID().getId(), clusterInfo.getClusterName());
+            }
+        }
+        for (ConsistencyGroupSettings cgSettings : cgsSettings) {
+            // Replication set volumes first, then journals, the order in which they are looked up
+            for (ReplicationSetSettings rsSettings : cgSettings.getReplicationSetsSettings()) {
+                for (UserVolumeSettings uvSettings : rsSettings.getVolumes()) {
+                    index(uvSettings.getVolumeInfo(), new VolumeLocation(cgSettings, uvSettings.getGroupCopyUID(),
+                            uvSettings.getClusterUID(), rsSettings.getReplicationSetUID()));
+                }
+            }
+            for (ConsistencyGroupCopySettings cgCopySettings : cgSettings.getGroupCopiesSettings()) {
+                if (cgCopySettings.getJournal() == null) {
+                    continue;
+                }
+                for (JournalVolumeSettings journalVolumeSettings : cgCopySettings.getJournal().getJournalVolumes()) {
+                    index(journalVolumeSettings.getVolumeInfo(), new VolumeLocation(cgSettings,
+                            journalVolumeSettings.getGroupCopyUID(), journalVolumeSettings.getClusterUID(), null));
+                }
+            }
+        }
+    }
+
+    private void index(VolumeInformation volume, VolumeLocation location) {
+        String naaUID = RecoverPointUtils.getGuidBufferAsString(volume.getNaaUids(), false);
+        String rawUID = RecoverPointUtils.getGuidBufferAsString(volume.getRawUids(), false);
+        if (naaUID != null) {
+            add(naaUID, location);
+        }
+        if (rawUID != null && !rawUID.equalsIgnoreCase(naaUID)) {
+            add(rawUID, location);
+        }
+    }
+
+    private void add(String wwn, VolumeLocation location) {
+        String key = wwn.toUpperCase(Locale.ENGLISH);
+        List<VolumeLocation> locations = volumesByWwn.get(key);
+        if (locations == null) {
+            locations = new ArrayList<VolumeLocation>(1);
+            volumesByWwn.put(key, locations);
+        }
+        locations.add(location);
+    }
+
+    /**
+     * @param wwn volume WWN, in any case
+     * @return locations of the volume, more than one for the production volume of a MetroPoint CG, empty if not found
+     */
+    List<VolumeLocation> getLocations(String wwn) {
+        List<VolumeLocation> locations = wwn == null ? null : volumesByWwn.get(wwn.toUpperCase(Locale.ENGLISH));
+        return locations != null ? locations : Collections.<VolumeLocation> emptyList();
+    }
+
+    /**
+     * @param clusterUID cluster id
+     * @return the cluster name, null if not found
+     */
+    String getClusterName(ClusterUID clusterUID) {
+        return clusterUID != null ? clusterNames.get(clusterUID.getId()) : null;
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+}
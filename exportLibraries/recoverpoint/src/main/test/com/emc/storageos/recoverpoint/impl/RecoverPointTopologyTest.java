@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.recoverpoint.impl;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.fapiclient.ws.ClusterUID;
+import com.emc.fapiclient.ws.ConsistencyGroupCopySettings;
+import com.emc.fapiclient.ws.ConsistencyGroupCopyUID;
+import com.emc.fapiclient.ws.ConsistencyGroupSettings;
+import com.emc.fapiclient.ws.ConsistencyGroupState;
+import com.emc.fapiclient.ws.ConsistencyGroupUID;
+import com.emc.fapiclient.ws.FunctionalAPIImpl;
+import com.emc.fapiclient.ws.GlobalCopyUID;
+import com.emc.fapiclient.ws.ReplicationSetSettings;
+import com.emc.fapiclient.ws.ReplicationSetUID;
+import com.emc.fapiclient.ws.UserVolumeSettings;
+import com.emc.fapiclient.ws.VolumeInformation;
+import com.emc.storageos.recoverpoint.responses.RecoverPointVolumeProtectionInfo;
+import com.emc.storageos.recoverpoint.responses.RecoverPointVolumeProtectionInfo.volumeProtectionStatus;
+import com.emc.storageos.recoverpoint.utils.RecoverPointUtils;
+
+/**
+ * Looks up the volumes of a CG with a production and a target copy in the topology snapshot of a
+ * RecoverPointClient, checking that the snapshot is cached and dropped by operations, and that the
+ * copy roles follow a swap of the copies made by others while the snapshot is cached.
+ */
+public class RecoverPointTopologyTest {
+    private static final long CG_ID = 1;
+
+    private ConsistencyGroupCopyUID prodCopy;
+    private ConsistencyGroupCopyUID targetCopy;
+    private String sourceWWN;
+    private String targetWWN;
+
+    @Before
+    public void setUp() {
+        prodCopy = createCopyUID(1, 0);
+        targetCopy = createCopyUID(2, 1);
+        sourceWWN = RecoverPointUtils.getGuidBufferAsString(createVolumeInfo((byte) 0x60, (byte) 1).getNaaUids(), false);
+        targetWWN = RecoverPointUtils.getGuidBufferAsString(createVolumeInfo((byte) 0x60, (byte) 2).getNaaUids(), false);
+    }
+
+    @Test
+    public void testCopyRolesAfterSwap() throws Exception {
+        FunctionalAPIImpl functionalAPI = createNiceMock(FunctionalAPIImpl.class);
+        expect(functionalAPI.getAllGroupsSettings()).andReturn(Collections.singletonList(createCgSettings(prodCopy))).once();
+        // the copies are swapped by others after the first lookup
+        expect(functionalAPI.getGroupSettings(anyObject(ConsistencyGroupUID.class)))
+                .andReturn(createCgSettings(prodCopy)).once()
+                .andReturn(createCgSettings(targetCopy)).once();
+        expect(functionalAPI.getGroupState(anyObject(ConsistencyGroupUID.class))).andReturn(new ConsistencyGroupState()).anyTimes();
+        replay(functionalAPI);
+        RecoverPointClient client = createClient(functionalAPI);
+
+        Map<String, RecoverPointVolumeProtectionInfo> protectionInfos = client.getProtectionInfoForVolumes(Arrays.asList(sourceWWN,
+                targetWWN));
+        Assert.assertEquals(volumeProtectionStatus.PROTECTED_SOURCE, protectionInfos.get(sourceWWN).getRpVolumeCurrentProtectionStatus());
+        Assert.assertEquals(volumeProtectionStatus.PROTECTED_TARGET, protectionInfos.get(targetWWN).getRpVolumeCurrentProtectionStatus());
+        Assert.assertEquals("production", protectionInfos.get(sourceWWN).getRpCopyName());
+
+        // the snapshot is still cached, the roles are read again
+        protectionInfos = client.getProtectionInfoForVolumes(Arrays.asList(sourceWWN, targetWWN));
+        Assert.assertEquals(volumeProtectionStatus.PROTECTED_TARGET, protectionInfos.get(sourceWWN).getRpVolumeCurrentProtectionStatus());
+        Assert.assertEquals(volumeProtectionStatus.PROTECTED_SOURCE, protectionInfos.get(targetWWN).getRpVolumeCurrentProtectionStatus());
+        verify(functionalAPI);
+    }
+
+    @Test
+    public void testOperationDropsSnapshot() throws Exception {
+        FunctionalAPIImpl functionalAPI = createNiceMock(FunctionalAPIImpl.class);
+        expect(functionalAPI.getAllGroupsSettings()).andReturn(Collections.singletonList(createCgSettings(prodCopy))).times(2);
+        expect(functionalAPI.getGroupSettings(anyObject(ConsistencyGroupUID.class))).andReturn(createCgSettings(prodCopy)).anyTimes();
+        expect(functionalAPI.getGroupState(anyObject(ConsistencyGroupUID.class))).andReturn(new ConsistencyGroupState()).anyTimes();
+        replay(functionalAPI);
+        RecoverPointClient client = createClient(functionalAPI);
+
+        RecoverPointVolumeProtectionInfo protectionInfo = client.getProtectionInfoForVolume(sourceWWN);
+        Assert.assertTrue(client.doesProtectionVolumeExist(targetWWN));
+        client.pauseTransfer(protectionInfo);
+        Assert.assertEquals(volumeProtectionStatus.PROTECTED_SOURCE, client.getProtectionInfoForVolume(sourceWWN)
+                .getRpVolumeCurrentProtectionStatus());
+        verify(functionalAPI);
+    }
+
+    private static RecoverPointClient createClient(FunctionalAPIImpl functionalAPI) {
+        RecoverPointClient client = new RecoverPointClient();
+        client.setFunctionalAPI(functionalAPI);
+        return client;
+    }
+
+    /**
+     * @param productionCopy the production copy of the CG
+     * @return settings of a CG with one replication set over the production and the target copy
+     */
+    private ConsistencyGroupSettings createCgSettings(ConsistencyGroupCopyUID productionCopy) {
+        ConsistencyGroupSettings cgSettings = new ConsistencyGroupSettings();
+        cgSettings.setName("cg1");
+        cgSettings.setGroupUID(prodCopy.getGroupUID());
+        cgSettings.getProductionCopiesUIDs().add(productionCopy);
+        cgSettings.getGroupCopiesSettings().add(createCopySettings(prodCopy, "production"));
+        cgSettings.getGroupCopiesSettings().add(createCopySettings(targetCopy, "target"));
+
+        ReplicationSetSettings rsSettings = new ReplicationSetSettings();
+        ReplicationSetUID rsetUID = new ReplicationSetUID();
+        rsetUID.setId(1);
+        rsSettings.setReplicationSetUID(rsetUID);
+        rsSettings.getVolumes().add(createUserVolumeSettings(prodCopy, createVolumeInfo((byte) 0x60, (byte) 1)));
+        rsSettings.getVolumes().add(createUserVolumeSettings(targetCopy, createVolumeInfo((byte) 0x60, (byte) 2)));
+        cgSettings.getReplicationSetsSettings().add(rsSettings);
+        return cgSettings;
+    }
+
+    private static ConsistencyGroupCopySettings createCopySettings(ConsistencyGroupCopyUID copyUID, String name) {
+        ConsistencyGroupCopySettings copySettings = new ConsistencyGroupCopySettings();
+        copySettings.setCopyUID(copyUID);
+        copySettings.setName(name);
+        return copySettings;
+    }
+
+    private static UserVolumeSettings createUserVolumeSettings(ConsistencyGroupCopyUID copyUID, VolumeInformation volumeInfo) {
+        UserVolumeSettings uvSettings = new UserVolumeSettings();
+        uvSettings.setGroupCopyUID(copyUID);
+        uvSettings.setClusterUID(copyUID.getGlobalCopyUID().getClusterUID());
+        uvSettings.setVolumeInfo(volumeInfo);
+        return uvSettings;
+    }
+
+    private static VolumeInformation createVolumeInfo(byte... naaUid) {
+        VolumeInformation volumeInfo = new VolumeInformation();
+        for (byte b : naaUid) {
+            volumeInfo.getNaaUids().add(b);
+        }
+        return volumeInfo;
+    }
+
+    private static ConsistencyGroupCopyUID createCopyUID(long clusterId, int copyId) {
+        ClusterUID clusterUID = new ClusterUID();
+        clusterUID.setId(clusterId);
+        GlobalCopyUID globalCopyUID = new GlobalCopyUID();
+        globalCopyUID.setClusterUID(clusterUID);
+        globalCopyUID.setCopyUID(copyId);
+        ConsistencyGroupUID cgUID = new ConsistencyGroupUID();
+        cgUID.setId(CG_ID);
+        ConsistencyGroupCopyUID copyUID = new ConsistencyGroupCopyUID();
+        copyUID.setGlobalCopyUID(globalCopyUID);
+        copyUID.setGroupUID(cgUID);
+        return copyUID;
+    }
+}
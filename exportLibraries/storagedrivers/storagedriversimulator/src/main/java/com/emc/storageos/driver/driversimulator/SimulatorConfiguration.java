@@ -8,6 +8,10 @@ public class SimulatorConfiguration {
     private Boolean simulateAsynchronousResponses = false;
     private Boolean simulateFailures = false;
     private Integer maxAsynchronousLookups = 5;
+    // when greater than 0, unmanaged discovery returns this many volumes without replicas, CGs and exports
+    private Integer largeScaleVolumeCount = 0;
+    private Integer largeScaleVolumesPerPage = 1000;
+    private Integer maxParallelVolumePages = 1;
     
     public SimulatorConfiguration() {
     }
@@ -35,4 +39,28 @@ public class SimulatorConfiguration {
     public Integer getMaxAsynchronousLookups() {
         return maxAsynchronousLookups;
     }    
+
+    public void setLargeScaleVolumeCount(Integer volumeCount) {
+        largeScaleVolumeCount = volumeCount;
+    }
+
+    public Integer getLargeScaleVolumeCount() {
+        return largeScaleVolumeCount;
+    }
+
+    public void setLargeScaleVolumesPerPage(Integer volumesPerPage) {
+        largeScaleVolumesPerPage = volumesPerPage;
+    }
+
+    public Integer getLargeScaleVolumesPerPage() {
+        return largeScaleVolumesPerPage;
+    }
+
+    public void setMaxParallelVolumePages(Integer maxParallelPages) {
+        maxParallelVolumePages = maxParallelPages;
+    }
+
+    public Integer getMaxParallelVolumePages() {
+        return maxParallelVolumePages;
+    }
 }
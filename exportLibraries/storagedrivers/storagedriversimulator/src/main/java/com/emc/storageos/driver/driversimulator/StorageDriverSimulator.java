@@ -33,6 +33,7 @@ import com.emc.storageos.storagedriver.BlockStorageDriver;
 import com.emc.storageos.storagedriver.DefaultStorageDriver;
 import com.emc.storageos.storagedriver.DriverTask;
 import com.emc.storageos.storagedriver.HostExportInfo;
+import com.emc.storageos.storagedriver.PagedVolumeDiscoveryDriver;
 import com.emc.storageos.storagedriver.RegistrationData;
 import com.emc.storageos.storagedriver.model.Initiator;
 import com.emc.storageos.storagedriver.model.StorageBlockObject;
@@ -52,7 +53,7 @@ import com.emc.storageos.storagedriver.storagecapabilities.CapabilityInstance;
 import com.emc.storageos.storagedriver.storagecapabilities.StorageCapabilities;
 
 
-public class StorageDriverSimulator extends DefaultStorageDriver implements BlockStorageDriver {
+public class StorageDriverSimulator extends DefaultStorageDriver implements BlockStorageDriver, PagedVolumeDiscoveryDriver {
 
     private static final Logger _log = LoggerFactory.getLogger(StorageDriverSimulator.class);
     public static final String DRIVER_NAME = "SimulatorDriver";
@@ -64,6 +65,8 @@ public class StorageDriverSimulator extends DefaultStorageDriver implements Bloc
     private static final boolean SNAPS_IN_CG = true;
     private static final boolean CLONES_IN_CG = true;
     private static final boolean GENERATE_EXPORT_DATA = true;
+    private static final int NUMBER_OF_POOLS = 3;
+    private static final String LARGE_SCALE_VOLUME_PREFIX = "driverSimulatorLargeScaleVolume-";
     private static final String SIMULATOR_CONF_FILE = "simulator-conf.xml";
     private static final String CONFIG_BEAN_NAME = "simulatorConfig";
 
@@ -230,7 +233,7 @@ public class StorageDriverSimulator extends DefaultStorageDriver implements Bloc
             Map<String, List<String>> connectionInfo =
                     driverRegistry.getDriverAttributesForKey("StorageDriverSimulator", storageSystem.getNativeId());
             _log.info("Storage system connection info: {} : {}", storageSystem.getNativeId(), connectionInfo);
-            for (int i =0; i <= 2; i++ ) {
+            for (int i =0; i < NUMBER_OF_POOLS; i++ ) {
                 StoragePool pool = new StoragePool();
                 pool.setNativeId("pool-1234577-" + i + storageSystem.getNativeId());
                 pool.setStorageSystemId(storageSystem.getNativeId());
@@ -794,8 +797,79 @@ public class StorageDriverSimulator extends DefaultStorageDriver implements Bloc
         }
     }
 
+    @Override
+    public int getStorageVolumePageCount(StorageSystem storageSystem) {
+        if (isLargeScaleMode()) {
+            int volumesPerPage = simulatorConfig.getLargeScaleVolumesPerPage();
+            return (simulatorConfig.getLargeScaleVolumeCount() + volumesPerPage - 1) / volumesPerPage;
+        }
+        return NUMBER_OF_VOLUME_PAGES;
+    }
+
+    @Override
+    public int getMaxParallelVolumePages(StorageSystem storageSystem) {
+        // export data of the regular mode is generated in shared maps, pages can be processed in parallel only
+        // in large scale mode
+        return isLargeScaleMode() ? simulatorConfig.getMaxParallelVolumePages() : 1;
+    }
+
+    @Override
+    public DriverTask getStorageVolumes(StorageSystem storageSystem, int page, List<StorageVolume> storageVolumes) {
+        if (!isLargeScaleMode()) {
+            return getStorageVolumes(storageSystem, storageVolumes, new MutableInt(page));
+        }
+
+        int volumesPerPage = simulatorConfig.getLargeScaleVolumesPerPage();
+        int firstVolume = page * volumesPerPage;
+        int lastVolume = Math.min(firstVolume + volumesPerPage, simulatorConfig.getLargeScaleVolumeCount());
+        for (int vol = firstVolume; vol < lastVolume; vol++) {
+            storageVolumes.add(generateLargeScaleVolume(storageSystem, vol));
+        }
+
+        String taskType = "get-storage-volumes";
+        String taskId = String.format("%s+%s+%s", DRIVER_NAME, taskType, UUID.randomUUID().toString());
+        DriverTask task = new DriverSimulatorTask(taskId);
+        task.setStatus(DriverTask.TaskStatus.READY);
+        task.setMessage("Get storage volumes: page " + page);
+        _log.info("StorageDriver: get storage volumes information for storage system {}, page {}: {} volumes",
+                storageSystem.getNativeId(), page, storageVolumes.size());
+        return task;
+    }
+
+    private boolean isLargeScaleMode() {
+        return simulatorConfig.getLargeScaleVolumeCount() > 0;
+    }
+
+    private boolean isLargeScaleVolume(StorageVolume volume) {
+        return volume.getNativeId() != null && volume.getNativeId().startsWith(LARGE_SCALE_VOLUME_PREFIX);
+    }
+
+    private StorageVolume generateLargeScaleVolume(StorageSystem storageSystem, int index) {
+        StorageVolume driverVolume = new StorageVolume();
+        driverVolume.setStorageSystemId(storageSystem.getNativeId());
+        driverVolume.setStoragePoolId("pool-1234577-" + (index % NUMBER_OF_POOLS) + storageSystem.getNativeId());
+        driverVolume.setNativeId(LARGE_SCALE_VOLUME_PREFIX + index);
+        driverVolume.setAccessStatus(StorageVolume.AccessStatus.READ_WRITE);
+        driverVolume.setThinlyProvisioned(true);
+        driverVolume.setThinVolumePreAllocationSize(3000L);
+        driverVolume.setProvisionedCapacity(3*1024*1024*1024L);
+        driverVolume.setAllocatedCapacity(50000L);
+        driverVolume.setDeviceLabel(driverVolume.getNativeId());
+        driverVolume.setWwn(String.format("%s%s", driverVolume.getStorageSystemId(), driverVolume.getNativeId()));
+        return driverVolume;
+    }
+
     @Override
     public DriverTask getStorageVolumes(StorageSystem storageSystem, List<StorageVolume> storageVolumes, MutableInt token) {
+        if (isLargeScaleMode()) {
+            DriverTask task = getStorageVolumes(storageSystem, token.intValue(), storageVolumes);
+            if (token.intValue() < getStorageVolumePageCount(storageSystem) - 1) {
+                token.setValue(token.intValue() + 1);
+            } else {
+                token.setValue(0); // last page
+            }
+            return task;
+        }
 
         // create set of native volumes for our storage pools
         // all volumes on the same page belong to the same consistency group
@@ -922,6 +996,9 @@ public class StorageDriverSimulator extends DefaultStorageDriver implements Bloc
     @Override
     public List<VolumeSnapshot> getVolumeSnapshots(StorageVolume volume) {
         List<VolumeSnapshot> snapshots = new ArrayList<>();
+        if (isLargeScaleVolume(volume)) {
+            return snapshots;
+        }
 
         for (int i=0; i<NUMBER_OF_SNAPS_FOR_VOLUME; i++) {
             VolumeSnapshot snapshot = new VolumeSnapshot();
@@ -949,6 +1026,9 @@ public class StorageDriverSimulator extends DefaultStorageDriver implements Bloc
     @Override
     public List<VolumeClone> getVolumeClones(StorageVolume volume) {
         List<VolumeClone> clones = new ArrayList<>();
+        if (isLargeScaleVolume(volume)) {
+            return clones;
+        }
 
         for (int i=0; i<NUMBER_OF_CLONES_FOR_VOLUME; i++) {
             VolumeClone clone = new VolumeClone();
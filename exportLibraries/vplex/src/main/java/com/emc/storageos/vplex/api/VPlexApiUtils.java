@@ -17,10 +17,13 @@ import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emc.storageos.services.restutil.JsonStreamDecoder;
 import com.emc.storageos.vplex.api.clientdata.VolumeInfo;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 /**
  * Provides utility methods.
@@ -110,19 +113,12 @@ public class VPlexApiUtils {
             throws VPlexApiException {
         List<T> children = new ArrayList<T>();
         try {
-            JSONObject jsonObj = new JSONObject(response);
-            JSONObject respObj = jsonObj.getJSONObject(VPlexApiConstants.RESPONSE_JSON_KEY);
-            JSONArray contextArray = respObj.getJSONArray(VPlexApiConstants.CONTEXT_JSON_KEY);
-            for (int i = 0; i < contextArray.length(); i++) {
-                JSONObject contextObj = contextArray.getJSONObject(i);
-                JSONArray childArray = contextObj.getJSONArray(VPlexApiConstants.CHILDREN_JSON_KEY);
-                for (int j = 0; j < childArray.length(); j++) {
-                    JSONObject childObj = childArray.getJSONObject(j);
-                    T child = new Gson().fromJson(childObj.toString(), clazz);
-                    child.setPath(baseResourcePath.substring(VPlexApiConstants.VPLEX_PATH
-                            .length()) + child.getName());
-                    children.add(child);
-                }
+            // Bind the children while reading the response
+            for (T child : JsonStreamDecoder.readElements(response, clazz, null, VPlexApiConstants.RESPONSE_JSON_KEY,
+                    VPlexApiConstants.CONTEXT_JSON_KEY, VPlexApiConstants.CHILDREN_JSON_KEY)) {
+                child.setPath(baseResourcePath.substring(VPlexApiConstants.VPLEX_PATH
+                        .length()) + child.getName());
+                children.add(child);
             }
         } catch (Exception e) {
             throw VPlexApiException.exceptions.failedExtractingChildrenFromResponse(response, e);
@@ -148,18 +144,16 @@ public class VPlexApiUtils {
 
         List<T> resources = new ArrayList<T>();
         try {
-            JSONObject jsonObj = new JSONObject(response);
-            JSONObject respObj = jsonObj
-                    .getJSONObject(VPlexApiConstants.RESPONSE_JSON_KEY);
-            JSONArray contextArray = respObj
-                    .getJSONArray(VPlexApiConstants.CONTEXT_JSON_KEY);
-            for (int i = 0; i < contextArray.length(); i++) {
-                JSONObject contextObj = contextArray.getJSONObject(i);
-
-                s_logger.debug("Parsing {}: {}", clazz.getName(), contextObj.toString());
-                Gson gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_DASHES).create();
-                T resource = gson.fromJson(contextObj.toString(), clazz);
-                resource.setPath(contextObj.getString(VPlexApiConstants.PARENT_JSON_KEY) + VPlexApiConstants.SLASH + resource.getName());
+            // Read the context objects as Gson trees, the resources are bound from the trees
+            Gson gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_DASHES).create();
+            List<JsonElement> contextObjs = JsonStreamDecoder.readElements(gson, response, JsonElement.class, null,
+                    VPlexApiConstants.RESPONSE_JSON_KEY, VPlexApiConstants.CONTEXT_JSON_KEY);
+            for (JsonElement contextElement : contextObjs) {
+                JsonObject contextObj = contextElement.getAsJsonObject();
+                s_logger.debug("Parsing {}: {}", clazz.getName(), contextObj);
+                T resource = gson.fromJson(contextObj, clazz);
+                resource.setPath(contextObj.get(VPlexApiConstants.PARENT_JSON_KEY).getAsString() + VPlexApiConstants.SLASH
+                        + resource.getName());
                 resources.add(resource);
             }
         } catch (Exception e) {
@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.backup.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.services.util.NamedThreadPoolExecutor;
+
+/**
+ * A ZIP writer which compresses the data of each entry in fixed size blocks on several threads,
+ * the same way pigz does for gzip.
+ * <p>
+ * Every block is deflated independently (primed with the last 32K of the previous block as
+ * dictionary) and terminated with a sync flush, so the compressed blocks can simply be
+ * concatenated into one valid deflate stream. The output is a standard ZIP file (with ZIP64
+ * extensions when needed) which can be read by {@link java.util.zip.ZipFile} and
+ * {@link java.util.zip.ZipInputStream}. Since sizes and CRC are written in data descriptors
+ * the target stream doesn't need to be seekable.
+ * <p>
+ * For the same input the output is always the same, no matter how many threads are used,
+ * which keeps resuming an interrupted upload (see {@link SkipOutputStream}) possible.
+ * <p>
+ * This class is not thread safe, only the compression itself runs on multiple threads.
+ */
+public class ParallelZipOutputStream extends OutputStream {
+    private static final Logger log = LoggerFactory.getLogger(ParallelZipOutputStream.class);
+
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    // An empty final block with fixed huffman codes, it ends a deflate stream which has been sync flushed
+    private static final byte[] FINAL_EMPTY_BLOCK = { 0x03, 0x00 };
+
+    private static final int LOCSIG = 0x04034b50;
+    private static final int EXTSIG = 0x08074b50;
+    private static final int CENSIG = 0x02014b50;
+    private static final int ENDSIG = 0x06054b50;
+    private static final int ZIP64_ENDSIG = 0x06064b50;
+    private static final int ZIP64_LOCSIG = 0x07064b50;
+    private static final int ZIP64_EXTID = 0x0001;
+    private static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGICCOUNT = 0xFFFF;
+    private static final int ZIP64_END_SIZE = 44;
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    // bit 3: sizes and crc are in the data descriptor, bit 11: entry name is UTF-8
+    private static final int FLAGS = 0x0808;
+    private static final int DEFLATED = 8;
+
+    private static class Entry {
+        private byte[] name;
+        private long dosTime;
+        private long offset;
+        private long crc;
+        private long size;
+        private long csize;
+
+        private boolean isZip64() {
+            return size >= ZIP64_MAGICVAL || csize >= ZIP64_MAGICVAL || offset >= ZIP64_MAGICVAL;
+        }
+    }
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final int level;
+    private final int maxPendingBlocks;
+
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private final ThroughputMeter compressMeter = new ThroughputMeter("compress");
+    private final ThroughputMeter writeMeter = new ThroughputMeter("write");
+
+    private Entry current;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private byte[] dictionary;
+    private long written;
+    private boolean finished;
+
+    /**
+     * Creates a ZIP writer which compresses on its own pool of the given size.
+     *
+     * @param out
+     *            the stream the ZIP file is written to
+     * @param level
+     *            the compression level, see {@link Deflater}
+     * @param parallelism
+     *            number of threads used to compress
+     */
+    public ParallelZipOutputStream(OutputStream out, int level, int parallelism) {
+        this(out, level, new NamedThreadPoolExecutor(ParallelZipOutputStream.class.getSimpleName(), Math.max(1, parallelism)),
+                Math.max(1, parallelism), true);
+    }
+
+    /**
+     * Creates a ZIP writer which compresses on a shared executor, the executor is not shut down when
+     * this stream is closed.
+     *
+     * @param out
+     *            the stream the ZIP file is written to
+     * @param level
+     *            the compression level, see {@link Deflater}
+     * @param executor
+     *            the executor to run compression on
+     * @param parallelism
+     *            number of blocks compressed at the same time
+     */
+    public ParallelZipOutputStream(OutputStream out, int level, ExecutorService executor, int parallelism) {
+        this(out, level, executor, Math.max(1, parallelism), false);
+    }
+
+    private ParallelZipOutputStream(OutputStream out, int level, ExecutorService executor, int parallelism,
+            boolean ownExecutor) {
+        this.out = new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+        this.level = level;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        // keep every worker busy while the head block is being written out
+        this.maxPendingBlocks = parallelism * 2;
+    }
+
+    /**
+     * Begins writing a new entry, the previous entry is closed if still open.
+     *
+     * @param name
+     *            entry name, directories end with "/"
+     * @param time
+     *            last modification time of the entry
+     */
+    public void putNextEntry(String name, long time) throws IOException {
+        ensureOpen();
+        if (current != null) {
+            closeEntry();
+        }
+        Entry entry = new Entry();
+        entry.name = name.getBytes(StandardCharsets.UTF_8);
+        entry.dosTime = javaToDosTime(time);
+        entry.offset = written;
+        current = entry;
+        crc.reset();
+        dictionary = null;
+        blockLength = 0;
+
+        writeInt(LOCSIG);
+        writeShort(VERSION);
+        writeShort(FLAGS);
+        writeShort(DEFLATED);
+        writeInt(entry.dosTime);
+        // crc and sizes follow the data in the data descriptor
+        writeInt(0);
+        writeInt(0);
+        writeInt(0);
+        writeShort(entry.name.length);
+        writeShort(0);
+        writeBytes(entry.name);
+    }
+
+    /**
+     * Writes all pending compressed data and the data descriptor of the current entry.
+     */
+    public void closeEntry() throws IOException {
+        ensureOpen();
+        if (current == null) {
+            return;
+        }
+        if (blockLength > 0) {
+            submitBlock();
+        }
+        while (!pendingBlocks.isEmpty()) {
+            writeHeadBlock();
+        }
+        writeBytes(FINAL_EMPTY_BLOCK);
+        current.csize += FINAL_EMPTY_BLOCK.length;
+        current.crc = crc.getValue();
+
+        writeInt(EXTSIG);
+        writeInt(current.crc);
+        if (current.size >= ZIP64_MAGICVAL || current.csize >= ZIP64_MAGICVAL) {
+            writeLong(current.csize);
+            writeLong(current.size);
+        } else {
+            writeInt(current.csize);
+            writeInt(current.size);
+        }
+        entries.add(current);
+        current = null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (current == null) {
+            throw new IOException("No current ZIP entry");
+        }
+        crc.update(b, off, len);
+        current.size += len;
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Finishes writing the ZIP file without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        closeEntry();
+        long cdOffset = written;
+        for (Entry entry : entries) {
+            writeCentralHeader(entry);
+        }
+        writeEnd(cdOffset, written - cdOffset);
+        out.flush();
+        finished = true;
+        log.info("Generated ZIP with {} entries, {}, {}", entries.size(), compressMeter, writeMeter);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            if (ownExecutor) {
+                executor.shutdownNow();
+            }
+            out.close();
+        }
+    }
+
+    public ThroughputMeter getCompressMeter() {
+        return compressMeter;
+    }
+
+    public ThroughputMeter getWriteMeter() {
+        return writeMeter;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("ZIP stream has been finished");
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        final byte[] dict = dictionary;
+
+        // only full blocks are followed by another block of the same entry
+        if (length == BLOCK_SIZE) {
+            dictionary = Arrays.copyOfRange(data, BLOCK_SIZE - DICTIONARY_SIZE, BLOCK_SIZE);
+        }
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+
+        pendingBlocks.add(executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return compress(data, length, dict);
+            }
+        }));
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeHeadBlock();
+        }
+    }
+
+    private byte[] compress(byte[] data, int length, byte[] dict) {
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dict != null) {
+                deflater.setDictionary(dict);
+            }
+            deflater.setInput(data, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buf = new byte[length + (length >> 10) + 64];
+            int n;
+            do {
+                n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                compressed.write(buf, 0, n);
+            } while (n == buf.length);
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+            compressMeter.record(length, System.nanoTime() - start);
+        }
+    }
+
+    private void writeHeadBlock() throws IOException {
+        byte[] compressed;
+        try {
+            compressed = pendingBlocks.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing " + new String(current.name, StandardCharsets.UTF_8));
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress " + new String(current.name, StandardCharsets.UTF_8), e.getCause());
+        }
+        long start = System.nanoTime();
+        writeBytes(compressed);
+        writeMeter.record(compressed.length, System.nanoTime() - start);
+        current.csize += compressed.length;
+    }
+
+    private void writeCentralHeader(Entry entry) throws IOException {
+        boolean zip64 = entry.isZip64();
+        int extraLength = 0;
+        if (zip64) {
+            extraLength = 4;
+            extraLength += entry.size >= ZIP64_MAGICVAL ? 8 : 0;
+            extraLength += entry.csize >= ZIP64_MAGICVAL ? 8 : 0;
+            extraLength += entry.offset >= ZIP64_MAGICVAL ? 8 : 0;
+        }
+
+        writeInt(CENSIG);
+        writeShort(zip64 ? ZIP64_VERSION : VERSION);
+        writeShort(zip64 ? ZIP64_VERSION : VERSION);
+        writeShort(FLAGS);
+        writeShort(DEFLATED);
+        writeInt(entry.dosTime);
+        writeInt(entry.crc);
+        writeInt(Math.min(entry.csize, ZIP64_MAGICVAL));
+        writeInt(Math.min(entry.size, ZIP64_MAGICVAL));
+        writeShort(entry.name.length);
+        writeShort(extraLength);
+        writeShort(0); // comment length
+        writeShort(0); // disk number start
+        writeShort(0); // internal attributes
+        writeInt(0); // external attributes
+        writeInt(Math.min(entry.offset, ZIP64_MAGICVAL));
+        writeBytes(entry.name);
+        if (zip64) {
+            writeShort(ZIP64_EXTID);
+            writeShort(extraLength - 4);
+            if (entry.size >= ZIP64_MAGICVAL) {
+                writeLong(entry.size);
+            }
+            if (entry.csize >= ZIP64_MAGICVAL) {
+                writeLong(entry.csize);
+            }
+            if (entry.offset >= ZIP64_MAGICVAL) {
+                writeLong(entry.offset);
+            }
+        }
+    }
+
+    private void writeEnd(long cdOffset, long cdLength) throws IOException {
+        int count = entries.size();
+        if (cdOffset >= ZIP64_MAGICVAL || cdLength >= ZIP64_MAGICVAL || count >= ZIP64_MAGICCOUNT) {
+            long zip64EndOffset = written;
+            writeInt(ZIP64_ENDSIG);
+            writeLong(ZIP64_END_SIZE);
+            writeShort(ZIP64_VERSION);
+            writeShort(ZIP64_VERSION);
+            writeInt(0); // number of this disk
+            writeInt(0); // disk with the central directory
+            writeLong(count);
+            writeLong(count);
+            writeLong(cdLength);
+            writeLong(cdOffset);
+
+            writeInt(ZIP64_LOCSIG);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1); // total number of disks
+        }
+        writeInt(ENDSIG);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+        writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+        writeInt(Math.min(cdLength, ZIP64_MAGICVAL));
+        writeInt(Math.min(cdOffset, ZIP64_MAGICVAL));
+        writeShort(0); // comment length
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xff);
+        out.write((v >>> 8) & 0xff);
+        written += 2;
+    }
+
+    private void writeInt(long v) throws IOException {
+        out.write((int) (v & 0xff));
+        out.write((int) ((v >>> 8) & 0xff));
+        out.write((int) ((v >>> 16) & 0xff));
+        out.write((int) ((v >>> 24) & 0xff));
+        written += 4;
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt(v & ZIP64_MAGICVAL);
+        writeInt(v >>> 32);
+    }
+
+    private void writeBytes(byte[] b) throws IOException {
+        out.write(b, 0, b.length);
+        written += b.length;
+    }
+
+    private static long javaToDosTime(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        int year = cal.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (year - 1980) << 25)
+                | ((long) (cal.get(Calendar.MONTH) + 1) << 21)
+                | ((long) cal.get(Calendar.DAY_OF_MONTH) << 16)
+                | ((long) cal.get(Calendar.HOUR_OF_DAY) << 11)
+                | ((long) cal.get(Calendar.MINUTE) << 5)
+                | ((long) cal.get(Calendar.SECOND) >> 1);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.backup.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates bytes and busy time of one stage of the backup pipeline (fetch, compress, write...)
+ * so that the throughput of each stage can be reported once the pipeline finishes.
+ * <p>
+ * Busy time is summed over all threads working on the stage, so for a parallel stage the
+ * reported rate is the per-thread rate rather than the wall clock rate.
+ */
+public class ThroughputMeter {
+    private final String stage;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public ThroughputMeter(String stage) {
+        this.stage = stage;
+    }
+
+    public void record(long byteCount, long elapsedNanos) {
+        bytes.addAndGet(byteCount);
+        nanos.addAndGet(elapsedNanos);
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    /**
+     * @return throughput in MB per second of busy time, 0 if nothing has been recorded
+     */
+    public double getMBPerSecond() {
+        long elapsed = nanos.get();
+        if (elapsed == 0) {
+            return 0;
+        }
+        return (bytes.get() / (1024.0 * 1024.0)) / (elapsed / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d bytes in %d ms (%.2f MB/s)", stage, getBytes(), getElapsedMillis(), getMBPerSecond());
+    }
+}
@@ -5,7 +5,6 @@
 
 package com.emc.storageos.management.backup.util;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -14,7 +13,6 @@ import java.util.Enumeration;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -50,7 +48,7 @@ public class ZipUtil {
 
     /**
      * Compresses the given directory and all its sub-directories into a ZIP file with specified
-     * compress level.
+     * compress level, using all available processors to compress.
      * <p>
      * The ZIP file must not be a directory.
      * 
@@ -61,30 +59,48 @@ public class ZipUtil {
      */
     public static void pack(final File sourceDir, final File targetZip, final int compressionLevel)
             throws IOException {
+        pack(sourceDir, targetZip, compressionLevel, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compresses the given directory and all its sub-directories into a ZIP file with specified
+     * compress level and number of compressing threads.
+     * <p>
+     * The ZIP file must not be a directory.
+     * 
+     * @param sourceDir
+     *            source directory.
+     * @param targetZip
+     *            ZIP file that will be created or overwritten.
+     * @param parallelism
+     *            number of threads used to compress
+     */
+    public static void pack(final File sourceDir, final File targetZip, final int compressionLevel,
+            final int parallelism) throws IOException {
         Preconditions.checkArgument(sourceDir != null
                 && sourceDir.exists()
                 && sourceDir.isDirectory(),
                 "Source directory is not exist: %s", sourceDir.getAbsolutePath());
         long startTime = System.currentTimeMillis();
-        ZipOutputStream zipOut = null;
+        ParallelZipOutputStream zipOut = null;
         try {
-            zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(targetZip)));
-            zipOut.setLevel(compressionLevel);
+            zipOut = new ParallelZipOutputStream(new FileOutputStream(targetZip), compressionLevel, parallelism);
             pack(sourceDir, sourceDir.getParent() + File.separator, zipOut);
         } finally {
             IOUtils.closeQuietly(zipOut);
             long interval = (System.currentTimeMillis() - startTime) / 1000;
             if (interval >= DELAY_THRESHOLD_IN_SECOND) {
                 long folderSize = FileUtils.sizeOfDirectory(sourceDir);
-                log.info(String.format("Zip folder: %s from %d to %d bytes, took %s seconds",
-                        sourceDir.getAbsolutePath(), folderSize, targetZip.length(), interval));
+                log.info(String.format("Zip folder: %s from %d to %d bytes, took %s seconds (%s, %s)",
+                        sourceDir.getAbsolutePath(), folderSize, targetZip.length(), interval,
+                        zipOut == null ? "" : zipOut.getCompressMeter(), zipOut == null ? "" : zipOut.getWriteMeter()));
             }
         }
     }
 
     private static void pack(final File sourceDir,
             final String prefixPath,
-            final ZipOutputStream zipOut)
+            final ParallelZipOutputStream zipOut)
             throws IOException {
         File[] files = sourceDir.listFiles();
         if (files == null) {
@@ -96,11 +112,8 @@ public class ZipUtil {
             if (file.isDirectory()) {
                 zipEntryName += SEPARATOR;
             }
-            ZipEntry zipEntry = new ZipEntry(zipEntryName);
-            zipOut.putNextEntry(zipEntry);
+            zipOut.putNextEntry(zipEntryName, file.lastModified());
             if (file.isFile()) {
-                zipEntry.setSize(file.length());
-                zipEntry.setTime(file.lastModified());
                 FileUtils.copyFile(file, zipOut);
             }
             zipOut.closeEntry();
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.management.backup.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class ParallelZipOutputStreamTest {
+
+    private static Map<String, byte[]> prepareEntries() {
+        Random random = new Random(0);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("folder/", new byte[0]);
+        entries.put("folder/empty", new byte[0]);
+        byte[] text = new byte[1000 * 1000];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) ('a' + random.nextInt(10));
+        }
+        entries.put("folder/text", text);
+        byte[] binary = new byte[300 * 1000];
+        random.nextBytes(binary);
+        entries.put("binary", binary);
+        return entries;
+    }
+
+    private static byte[] pack(Map<String, byte[]> entries, int level, int parallelism) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelZipOutputStream zipOut = new ParallelZipOutputStream(out, level, parallelism)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zipOut.putNextEntry(entry.getKey(), 0L);
+                zipOut.write(entry.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testReadableByZipInputStream() throws IOException {
+        Map<String, byte[]> entries = prepareEntries();
+        for (int level : new int[] { Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION }) {
+            byte[] zip = pack(entries, level, 4);
+            int count = 0;
+            try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(zip))) {
+                ZipEntry entry;
+                while ((entry = zipIn.getNextEntry()) != null) {
+                    Assert.assertArrayEquals(entry.getName(), entries.get(entry.getName()), IOUtils.toByteArray(zipIn));
+                    count++;
+                }
+            }
+            Assert.assertEquals(entries.size(), count);
+        }
+    }
+
+    @Test
+    public void testOutputIndependentOfParallelism() throws IOException {
+        Map<String, byte[]> entries = prepareEntries();
+        Assert.assertArrayEquals(pack(entries, Deflater.BEST_SPEED, 1), pack(entries, Deflater.BEST_SPEED, 8));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.jmx;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.services.util.PlatformUtils;
+import com.sun.tools.attach.VirtualMachine;
+
+/**
+ * Connects to the JMX agent of a service running on this node, loading the agent into the
+ * service if it is not running yet.
+ *
+ * Attaching to a JVM is expensive, so the connectors used to read MBeans are kept per service
+ * and reused until the service restarts (its pid changes) or a call fails with an I/O error.
+ */
+public class ServiceJmxConnector {
+    private static final Logger log = LoggerFactory.getLogger(ServiceJmxConnector.class);
+    private static final String CONNECTOR_ADDRESS = "com.sun.management.jmxremote.localConnectorAddress";
+
+    private static final Map<String, ServiceJmxConnector> connectors = new HashMap<String, ServiceJmxConnector>();
+
+    private final int pid;
+    private final JMXConnector conn;
+
+    private ServiceJmxConnector(int pid, JMXConnector conn) {
+        this.pid = pid;
+        this.conn = conn;
+    }
+
+    /**
+     * Opens a new JMX connector to a service, which the caller must close.
+     *
+     * @param svcName The name of the service, which should have pid file as /var/run/svcName.pid
+     * @return the connector
+     */
+    public static JMXConnector connect(String svcName) throws Exception {
+        return connect(svcName, PlatformUtils.getServicePid(svcName));
+    }
+
+    private static JMXConnector connect(String svcName, int pid) throws Exception {
+        log.info("Connecting to JMX of {} service with pid {}", svcName, pid);
+
+        VirtualMachine vm = VirtualMachine.attach(String.valueOf(pid));
+        try {
+            String connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
+            if (connectorAddress == null) {
+                String javaHome = vm.getSystemProperties().getProperty("java.home");
+                String agent = StringUtils.join(new String[] { javaHome, "lib", "management-agent.jar" }, File.separator);
+                vm.loadAgent(agent);
+
+                connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
+            }
+
+            JMXServiceURL serviceURL = new JMXServiceURL(connectorAddress);
+            return JMXConnectorFactory.connect(serviceURL);
+        } finally {
+            vm.detach();
+        }
+    }
+
+    /**
+     * Creates a proxy of an MBean of a service, over the shared connector of the service. The
+     * connector is dropped when a call of the proxy fails with an I/O error, so the next proxy
+     * connects again.
+     *
+     * @param svcName The name of the service, which should have pid file as /var/run/svcName.pid
+     * @param mbeanName object name of the MBean
+     * @param mbeanInterface interface of the MBean
+     * @return the proxy
+     */
+    public static <T> T newMBeanProxy(final String svcName, String mbeanName, Class<T> mbeanInterface) throws Exception {
+        final ServiceJmxConnector connector = getConnector(svcName);
+        final T mbean = JMX.newMBeanProxy(connector.conn.getMBeanServerConnection(), new ObjectName(mbeanName), mbeanInterface);
+        return mbeanInterface.cast(Proxy.newProxyInstance(mbeanInterface.getClassLoader(), new Class<?>[] { mbeanInterface },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        try {
+                            return method.invoke(mbean, args);
+                        } catch (InvocationTargetException e) {
+                            Throwable cause = e.getCause();
+                            if (cause instanceof UndeclaredThrowableException
+                                    && ((UndeclaredThrowableException) cause).getUndeclaredThrowable() instanceof IOException) {
+                                disconnect(svcName, connector);
+                            }
+                            throw cause;
+                        }
+                    }
+                }));
+    }
+
+    private static synchronized ServiceJmxConnector getConnector(String svcName) throws Exception {
+        int pid = PlatformUtils.getServicePid(svcName);
+        ServiceJmxConnector connector = connectors.get(svcName);
+        if (connector != null && connector.pid == pid) {
+            return connector;
+        }
+        if (connector != null) {
+            // the service has been restarted
+            connector.close();
+        }
+        connector = new ServiceJmxConnector(pid, connect(svcName, pid));
+        connectors.put(svcName, connector);
+        return connector;
+    }
+
+    private static synchronized void disconnect(String svcName, ServiceJmxConnector connector) {
+        if (connectors.get(svcName) == connector) {
+            connectors.remove(svcName);
+            connector.close();
+        }
+    }
+
+    private void close() {
+        try {
+            conn.close();
+        } catch (IOException e) {
+            log.error("IOException when closing JMX connector:", e);
+        }
+    }
+}
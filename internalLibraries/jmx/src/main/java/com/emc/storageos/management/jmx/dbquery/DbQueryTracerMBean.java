@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.jmx.dbquery;
+
+import java.util.List;
+
+import com.emc.vipr.model.sys.healthmonitor.DbQueryStat;
+
+/**
+ * JMX interface of the DB client query tracer, read by syssvc to aggregate DB client calls across services and nodes.
+ */
+public interface DbQueryTracerMBean {
+    public static final String MBEAN_NAME = "com.emc.storageos.db.client.impl:name=DbQueryTracer";
+
+    public double getSampleRate();
+
+    public void setSampleRate(double sampleRate);
+
+    public long getSlowQueryThresholdMillis();
+
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+
+    /**
+     * @param count max number of entries
+     * @return statistics of the sampled calls with the highest total latency
+     */
+    public List<DbQueryStat> getTopQueries(int count);
+
+    /**
+     * @return the most recent calls slower than the slow query threshold, newest first
+     */
+    public List<DbQueryStat> getSlowQueries();
+
+    /**
+     * Clears statistics and the slow query log
+     */
+    public void reset();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.jmx.dbquery;
+
+import java.util.List;
+
+import com.emc.storageos.management.jmx.ServiceJmxConnector;
+import com.emc.vipr.model.sys.healthmonitor.DbQueryStat;
+
+/**
+ * Reads the DB query tracer of a service running on this node.
+ */
+public class DbQueryTracerOps {
+    private final String svcName;
+    private final DbQueryTracerMBean mbean;
+
+    /**
+     * Create a DbQueryTracerOps object that connects to specified service on localhost.
+     *
+     * @param svcName The name of the service, which should have pid file as /var/run/svcName.pid
+     */
+    public DbQueryTracerOps(String svcName) {
+        this.svcName = svcName;
+        try {
+            this.mbean = ServiceJmxConnector.newMBeanProxy(svcName, DbQueryTracerMBean.MBEAN_NAME, DbQueryTracerMBean.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param count max number of entries
+     * @return statistics of the sampled DB calls of the service with the highest total latency
+     */
+    public List<DbQueryStat> getTopQueries(int count) {
+        return withServiceName(mbean.getTopQueries(count));
+    }
+
+    /**
+     * @return the slow query log of the service, newest first
+     */
+    public List<DbQueryStat> getSlowQueries() {
+        return withServiceName(mbean.getSlowQueries());
+    }
+
+    private List<DbQueryStat> withServiceName(List<DbQueryStat> stats) {
+        for (DbQueryStat stat : stats) {
+            stat.setServiceName(svcName);
+        }
+        return stats;
+    }
+}
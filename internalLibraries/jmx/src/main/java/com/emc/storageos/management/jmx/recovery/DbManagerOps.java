@@ -4,14 +4,9 @@
  */
 package com.emc.storageos.management.jmx.recovery;
 
+import com.emc.storageos.management.jmx.ServiceJmxConnector;
 import com.emc.vipr.model.sys.recovery.DbRepairStatus;
-import com.emc.storageos.services.util.PlatformUtils;
-import com.sun.tools.attach.AgentInitializationException;
-import com.sun.tools.attach.AgentLoadException;
-import com.sun.tools.attach.AttachNotSupportedException;
-import com.sun.tools.attach.VirtualMachine;
 
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,10 +15,7 @@ import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.management.remote.JMXConnector;
-import javax.management.remote.JMXConnectorFactory;
-import javax.management.remote.JMXServiceURL;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 import java.util.List;
@@ -32,7 +24,6 @@ public class DbManagerOps implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(DbManagerOps.class);
     private static final Integer DB_REPAIR_MAX_RETRY_COUNT = 3;
     private static final String JMX_URL_PATTERN = "service:jmx:rmi:///jndi/rmi://%s:%d/jmxrmi";
-    private static final String CONNECTOR_ADDRESS = "com.sun.management.jmxremote.localConnectorAddress";
     public final static String MBEAN_NAME = "com.emc.storageos.db.server.impl:name=DbManager";
 
     private JMXConnector conn;
@@ -45,7 +36,7 @@ public class DbManagerOps implements AutoCloseable {
      */
     public DbManagerOps(String svcName) {
         try {
-            this.conn = initJMXConnector(svcName);
+            this.conn = ServiceJmxConnector.connect(svcName);
             initMbean(this.conn.getMBeanServerConnection());
         } catch (Exception e) {
             throw new IllegalStateException(e);
@@ -68,29 +59,6 @@ public class DbManagerOps implements AutoCloseable {
         this.mbean = JMX.newMBeanProxy(mbsc, new ObjectName(MBEAN_NAME), DbManagerMBean.class);
     }
 
-    private JMXConnector initJMXConnector(String svcName) throws IOException, AttachNotSupportedException, AgentLoadException,
-            AgentInitializationException {
-        int pid = PlatformUtils.getServicePid(svcName);
-        log.info("Connecting to JMX of {} service with pid {}", svcName, pid);
-
-        VirtualMachine vm = VirtualMachine.attach(String.valueOf(pid));
-        try {
-            String connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
-            if (connectorAddress == null) {
-                String javaHome = vm.getSystemProperties().getProperty("java.home");
-                String agent = StringUtils.join(new String[] {javaHome, "lib", "management-agent.jar"}, File.separator);
-                vm.loadAgent(agent);
-
-                connectorAddress = vm.getAgentProperties().getProperty(CONNECTOR_ADDRESS);
-            }
-
-            JMXServiceURL serviceURL = new JMXServiceURL(connectorAddress);
-            return JMXConnectorFactory.connect(serviceURL);
-        } finally {
-            vm.detach();
-        }
-    }
-
     /**
      * Get a map from node ID to their state.
      * 
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.jmx.requestcost;
+
+import java.util.List;
+
+import com.emc.vipr.model.sys.healthmonitor.RequestCostStat;
+
+/**
+ * JMX interface of the request cost statistics of a service, read by syssvc to show the most expensive endpoints.
+ */
+public interface RequestCostTrackerMBean {
+    public static final String MBEAN_NAME = "com.emc.storageos.security.audit:name=RequestCostTracker";
+
+    /**
+     * @return cost statistics of the recent requests of each endpoint of the service
+     */
+    public List<RequestCostStat> getEndpointCosts();
+
+    /**
+     * Clears the statistics
+     */
+    public void resetEndpointCosts();
+}
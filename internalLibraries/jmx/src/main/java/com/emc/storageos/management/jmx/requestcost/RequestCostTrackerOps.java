@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.management.jmx.requestcost;
+
+import java.util.List;
+
+import com.emc.storageos.management.jmx.ServiceJmxConnector;
+import com.emc.vipr.model.sys.healthmonitor.RequestCostStat;
+
+/**
+ * Reads the request cost statistics of a service running on this node.
+ */
+public class RequestCostTrackerOps {
+    private final String svcName;
+    private final RequestCostTrackerMBean mbean;
+
+    /**
+     * Create a RequestCostTrackerOps object that connects to specified service on localhost.
+     *
+     * @param svcName The name of the service, which should have pid file as /var/run/svcName.pid
+     */
+    public RequestCostTrackerOps(String svcName) {
+        this.svcName = svcName;
+        try {
+            this.mbean = ServiceJmxConnector.newMBeanProxy(svcName, RequestCostTrackerMBean.MBEAN_NAME,
+                    RequestCostTrackerMBean.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return cost statistics of the recent requests of each endpoint of the service
+     */
+    public List<RequestCostStat> getEndpointCosts() {
+        return withServiceName(mbean.getEndpointCosts());
+    }
+
+    private List<RequestCostStat> withServiceName(List<RequestCostStat> stats) {
+        for (RequestCostStat stat : stats) {
+            stat.setServiceName(svcName);
+        }
+        return stats;
+    }
+}
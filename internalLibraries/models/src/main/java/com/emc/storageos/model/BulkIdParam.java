@@ -14,6 +14,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlRootElement(name = "ids")
 public class BulkIdParam {
     private List<URI> ids;
+    private String continuation;
 
     public BulkIdParam() {
     }
@@ -33,4 +34,19 @@ public class BulkIdParam {
     public void setIds(List<URI> ids) {
         this.ids = ids;
     }
+
+    /**
+     * Token to pass back to get the next ids. Only returned when the ids were
+     * limited to max_count and more ids may remain.
+     * 
+     * @return the continuation token, null if there are no more ids
+     */
+    @XmlElement(name = "continuation")
+    public String getContinuation() {
+        return continuation;
+    }
+
+    public void setContinuation(String continuation) {
+        this.continuation = continuation;
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.model.metering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Response for an aggregate query over the metering stat rollups
+ */
+@XmlRootElement(name = "stat_rollups")
+public class StatRollupList {
+    private String granularity;
+    private String groupBy;
+    private Long startTime;
+    private Long endTime;
+    private List<StatRollupRestRep> rollups;
+
+    public StatRollupList() {
+    }
+
+    public StatRollupList(String granularity, String groupBy, Long startTime, Long endTime) {
+        this.granularity = granularity;
+        this.groupBy = groupBy;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * Granularity of the rollups aggregated
+     * 
+     * @valid HOUR
+     * @valid DAY
+     * @valid MONTH
+     */
+    @XmlElement(name = "granularity")
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    /**
+     * Type of the groups the stats are aggregated by
+     * 
+     * @valid RESOURCE
+     * @valid PROJECT
+     * @valid TENANT
+     */
+    @XmlElement(name = "group_by")
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    /**
+     * Start of the first bucket aggregated, in ms since the epoch
+     */
+    @XmlElement(name = "start_time")
+    public Long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * End of the last bucket aggregated, in ms since the epoch
+     */
+    @XmlElement(name = "end_time")
+    public Long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Long endTime) {
+        this.endTime = endTime;
+    }
+
+    /**
+     * Aggregated stats of each group
+     */
+    @XmlElement(name = "stat_rollup")
+    public List<StatRollupRestRep> getRollups() {
+        if (rollups == null) {
+            rollups = new ArrayList<StatRollupRestRep>();
+        }
+        return rollups;
+    }
+
+    public void setRollups(List<StatRollupRestRep> rollups) {
+        this.rollups = rollups;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.model.metering;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Values of a metric of the stats collected over a time range
+ */
+@XmlRootElement(name = "metric")
+public class StatRollupMetricRep {
+    private String name;
+    private long count;
+    private long sum;
+    private double avg;
+    private long max;
+
+    public StatRollupMetricRep() {
+    }
+
+    public StatRollupMetricRep(String name, long count, long sum, long max) {
+        this.name = name;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count > 0 ? (double) sum / count : 0;
+        this.max = max;
+    }
+
+    /**
+     * Name of the metric, such as provisioned_capacity
+     */
+    @XmlElement(name = "name")
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Number of stats with a value of the metric
+     */
+    @XmlElement(name = "count")
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Sum of the values
+     */
+    @XmlElement(name = "sum")
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    /**
+     * Average of the values
+     */
+    @XmlElement(name = "avg")
+    public double getAvg() {
+        return avg;
+    }
+
+    public void setAvg(double avg) {
+        this.avg = avg;
+    }
+
+    /**
+     * Maximum of the values
+     */
+    @XmlElement(name = "max")
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+}
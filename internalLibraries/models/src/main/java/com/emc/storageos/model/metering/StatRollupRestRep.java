@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.model.metering;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Stats of a resource, project or tenant aggregated over a time range
+ */
+@XmlRootElement(name = "stat_rollup")
+public class StatRollupRestRep {
+    private URI groupId;
+    private int bucketCount;
+    private List<StatRollupMetricRep> metrics;
+
+    public StatRollupRestRep() {
+    }
+
+    public StatRollupRestRep(URI groupId) {
+        this.groupId = groupId;
+    }
+
+    /**
+     * Id of the resource, project or tenant
+     */
+    @XmlElement(name = "group_id")
+    public URI getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(URI groupId) {
+        this.groupId = groupId;
+    }
+
+    /**
+     * Number of buckets with stats of the group in the time range
+     */
+    @XmlElement(name = "bucket_count")
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public void setBucketCount(int bucketCount) {
+        this.bucketCount = bucketCount;
+    }
+
+    /**
+     * Aggregated values of each metric
+     */
+    @XmlElement(name = "metric")
+    public List<StatRollupMetricRep> getMetrics() {
+        if (metrics == null) {
+            metrics = new ArrayList<StatRollupMetricRep>();
+        }
+        return metrics;
+    }
+
+    public void setMetrics(List<StatRollupMetricRep> metrics) {
+        this.metrics = metrics;
+    }
+}
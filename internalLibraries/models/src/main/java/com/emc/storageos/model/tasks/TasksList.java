@@ -13,6 +13,7 @@ import java.util.List;
 @XmlRootElement(name = "tasks_ids")
 public class TasksList {
     private List<NamedRelatedResourceRep> tasks;
+    private String continuation;
 
     public TasksList() {
     }
@@ -37,4 +38,19 @@ public class TasksList {
     public void setTasks(List<NamedRelatedResourceRep> tasks) {
         this.tasks = tasks;
     }
+
+    /**
+     * Token to pass back to get the next page of tasks. Only returned when a page
+     * of max_count tasks was requested and more tasks may remain.
+     * 
+     * @return the continuation token, null if there are no more tasks
+     */
+    @XmlElement(name = "continuation")
+    public String getContinuation() {
+        return continuation;
+    }
+
+    public void setContinuation(String continuation) {
+        this.continuation = continuation;
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Represents DB client calls of one kind (operation, column family and caller):
+ * either aggregated statistics of the sampled calls or a single slow call.
+ */
+@XmlRootElement(name = "db_query_stat")
+public class DbQueryStat implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String serviceName;
+    private String operation;
+    private String columnFamily;
+    private String caller;
+    private String callerDigest;
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+    private long rows;
+    private long bytes;
+    private long timestamp;
+
+    // Default constructor for JAXB
+    public DbQueryStat() {
+    }
+
+    public DbQueryStat(String operation, String columnFamily, String caller, String callerDigest) {
+        this.operation = operation;
+        this.columnFamily = columnFamily;
+        this.caller = caller;
+        this.callerDigest = callerDigest;
+    }
+
+    /**
+     * Adds the statistics of another DbQueryStat of the same kind
+     *
+     * @param other statistics to add
+     */
+    public void add(DbQueryStat other) {
+        count += other.count;
+        totalMillis += other.totalMillis;
+        maxMillis = Math.max(maxMillis, other.maxMillis);
+        rows += other.rows;
+        bytes += other.bytes;
+        timestamp = Math.max(timestamp, other.timestamp);
+    }
+
+    /**
+     * @return key identifying calls of the same kind
+     */
+    public String key() {
+        return operation + "|" + columnFamily + "|" + caller + "|" + callerDigest;
+    }
+
+    @XmlElement(name = "service")
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    @XmlElement(name = "operation")
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    @XmlElement(name = "column_family")
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    public void setColumnFamily(String columnFamily) {
+        this.columnFamily = columnFamily;
+    }
+
+    @XmlElement(name = "caller")
+    public String getCaller() {
+        return caller;
+    }
+
+    public void setCaller(String caller) {
+        this.caller = caller;
+    }
+
+    /**
+     * @return digest of the call stack above the caller, to tell apart the API or controller paths going through the same caller
+     */
+    @XmlElement(name = "caller_digest")
+    public String getCallerDigest() {
+        return callerDigest;
+    }
+
+    public void setCallerDigest(String callerDigest) {
+        this.callerDigest = callerDigest;
+    }
+
+    @XmlElement(name = "count")
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @XmlElement(name = "total_ms")
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    @XmlElement(name = "max_ms")
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    @XmlElement(name = "rows")
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    @XmlElement(name = "bytes")
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return time of the last call, in milliseconds since the epoch
+     */
+    @XmlElement(name = "timestamp")
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents DB client call statistics of the cluster: the top calls across all nodes
+ * and the statistics of each node
+ */
+@XmlRootElement(name = "db_query_stats")
+public class DbQueryStatsRestRep {
+
+    private List<DbQueryStat> topQueries;
+    private List<NodeDbQueryStats> nodeStatsList;
+
+    @XmlElementWrapper(name = "top_queries")
+    @XmlElement(name = "db_query_stat")
+    public List<DbQueryStat> getTopQueries() {
+        if (topQueries == null) {
+            topQueries = new ArrayList<DbQueryStat>();
+        }
+        return topQueries;
+    }
+
+    public void setTopQueries(List<DbQueryStat> topQueries) {
+        this.topQueries = topQueries;
+    }
+
+    @XmlElementWrapper(name = "node_db_query_stats_list")
+    @XmlElement(name = "node_db_query_stats")
+    public List<NodeDbQueryStats> getNodeStatsList() {
+        if (nodeStatsList == null) {
+            nodeStatsList = new ArrayList<NodeDbQueryStats>();
+        }
+        return nodeStatsList;
+    }
+
+    public void setNodeStatsList(List<NodeDbQueryStats> nodeStatsList) {
+        this.nodeStatsList = nodeStatsList;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Represents the average of a metric over an interval
+ */
+@XmlRootElement(name = "point")
+public class MetricPoint {
+
+    private long time;
+    private float value;
+
+    // Default constructor for JAXB
+    public MetricPoint() {
+    }
+
+    public MetricPoint(long time, float value) {
+        this.time = time;
+        this.value = value;
+    }
+
+    /**
+     * @return start of the interval, in ms since the epoch
+     */
+    @XmlElement(name = "time")
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    @XmlElement(name = "value")
+    public float getValue() {
+        return value;
+    }
+
+    public void setValue(float value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the history of a metric, oldest point first
+ */
+@XmlRootElement(name = "metric_series")
+public class MetricSeries {
+
+    private String name;
+    private List<MetricPoint> points;
+
+    // Default constructor for JAXB
+    public MetricSeries() {
+    }
+
+    public MetricSeries(String name) {
+        this.name = name;
+    }
+
+    @XmlElement(name = "name")
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @XmlElementWrapper(name = "points")
+    @XmlElement(name = "point")
+    public List<MetricPoint> getPoints() {
+        if (points == null) {
+            points = new ArrayList<MetricPoint>();
+        }
+        return points;
+    }
+
+    public void setPoints(List<MetricPoint> points) {
+        this.points = points;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the history of the metrics of the cluster and of each node. The points of all the
+ * nodes are aligned on the same intervals; a point of the cluster is the average of the points
+ * of the nodes at the same time.
+ */
+@XmlRootElement(name = "metrics")
+public class MetricsRestRep {
+
+    private List<ServiceMetrics> clusterMetrics;
+    private List<NodeMetrics> nodeMetricsList;
+
+    @XmlElementWrapper(name = "cluster_metrics")
+    @XmlElement(name = "service_metrics")
+    public List<ServiceMetrics> getClusterMetrics() {
+        if (clusterMetrics == null) {
+            clusterMetrics = new ArrayList<ServiceMetrics>();
+        }
+        return clusterMetrics;
+    }
+
+    public void setClusterMetrics(List<ServiceMetrics> clusterMetrics) {
+        this.clusterMetrics = clusterMetrics;
+    }
+
+    @XmlElementWrapper(name = "node_metrics_list")
+    @XmlElement(name = "node_metrics")
+    public List<NodeMetrics> getNodeMetricsList() {
+        if (nodeMetricsList == null) {
+            nodeMetricsList = new ArrayList<NodeMetrics>();
+        }
+        return nodeMetricsList;
+    }
+
+    public void setNodeMetricsList(List<NodeMetrics> nodeMetricsList) {
+        this.nodeMetricsList = nodeMetricsList;
+    }
+}
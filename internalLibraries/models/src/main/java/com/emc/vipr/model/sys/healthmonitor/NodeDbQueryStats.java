@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents DB client call statistics of the services of a node
+ */
+@XmlRootElement(name = "node_db_query_stats")
+public class NodeDbQueryStats {
+
+    private String nodeId;
+    private String nodeName;
+    private List<DbQueryStat> topQueries;
+    private List<DbQueryStat> slowQueries;
+
+    // Default constructor for JAXB
+    public NodeDbQueryStats() {
+        this.nodeId = HealthMonitorConstants.UNKNOWN;
+        this.nodeName = HealthMonitorConstants.UNKNOWN;
+    }
+
+    public NodeDbQueryStats(String nodeId, String nodeName) {
+        this.nodeId = nodeId;
+        this.nodeName = nodeName;
+    }
+
+    @XmlElement(name = "node_id")
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @XmlElement(name = "node_name")
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public void setNodeName(String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    @XmlElementWrapper(name = "top_queries")
+    @XmlElement(name = "db_query_stat")
+    public List<DbQueryStat> getTopQueries() {
+        if (topQueries == null) {
+            topQueries = new ArrayList<DbQueryStat>();
+        }
+        return topQueries;
+    }
+
+    public void setTopQueries(List<DbQueryStat> topQueries) {
+        this.topQueries = topQueries;
+    }
+
+    @XmlElementWrapper(name = "slow_queries")
+    @XmlElement(name = "db_query_stat")
+    public List<DbQueryStat> getSlowQueries() {
+        if (slowQueries == null) {
+            slowQueries = new ArrayList<DbQueryStat>();
+        }
+        return slowQueries;
+    }
+
+    public void setSlowQueries(List<DbQueryStat> slowQueries) {
+        this.slowQueries = slowQueries;
+    }
+}
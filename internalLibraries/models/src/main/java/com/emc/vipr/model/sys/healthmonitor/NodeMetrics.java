@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the history of the metrics of a node and of its services
+ */
+@XmlRootElement(name = "node_metrics")
+public class NodeMetrics {
+
+    private String nodeId;
+    private String nodeName;
+    private List<ServiceMetrics> services;
+
+    // Default constructor for JAXB
+    public NodeMetrics() {
+        this.nodeId = HealthMonitorConstants.UNKNOWN;
+        this.nodeName = HealthMonitorConstants.UNKNOWN;
+    }
+
+    public NodeMetrics(String nodeId, String nodeName) {
+        this.nodeId = nodeId;
+        this.nodeName = nodeName;
+    }
+
+    @XmlElement(name = "node_id")
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @XmlElement(name = "node_name")
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public void setNodeName(String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    @XmlElementWrapper(name = "services")
+    @XmlElement(name = "service_metrics")
+    public List<ServiceMetrics> getServices() {
+        if (services == null) {
+            services = new ArrayList<ServiceMetrics>();
+        }
+        return services;
+    }
+
+    public void setServices(List<ServiceMetrics> services) {
+        this.services = services;
+    }
+}
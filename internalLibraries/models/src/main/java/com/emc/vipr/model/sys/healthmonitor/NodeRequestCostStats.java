@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the request costs of the endpoints of the services of a node
+ */
+@XmlRootElement(name = "node_request_cost_stats")
+public class NodeRequestCostStats {
+
+    private String nodeId;
+    private String nodeName;
+    private List<RequestCostStat> endpoints;
+
+    // Default constructor for JAXB
+    public NodeRequestCostStats() {
+        this.nodeId = HealthMonitorConstants.UNKNOWN;
+        this.nodeName = HealthMonitorConstants.UNKNOWN;
+    }
+
+    public NodeRequestCostStats(String nodeId, String nodeName) {
+        this.nodeId = nodeId;
+        this.nodeName = nodeName;
+    }
+
+    @XmlElement(name = "node_id")
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @XmlElement(name = "node_name")
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public void setNodeName(String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    @XmlElementWrapper(name = "endpoints")
+    @XmlElement(name = "request_cost_stat")
+    public List<RequestCostStat> getEndpoints() {
+        if (endpoints == null) {
+            endpoints = new ArrayList<RequestCostStat>();
+        }
+        return endpoints;
+    }
+
+    public void setEndpoints(List<RequestCostStat> endpoints) {
+        this.endpoints = endpoints;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Represents the cost of the recent requests to one endpoint of a service: latency percentiles
+ * and the average number of DB, ZooKeeper and inter-service calls per request.
+ */
+@XmlRootElement(name = "request_cost_stat")
+public class RequestCostStat implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String serviceName;
+    private String endpoint;
+    private long count;
+    private long samples;
+    private long p50Millis;
+    private long p95Millis;
+    private long p99Millis;
+    private long maxMillis;
+    private double avgDbReads;
+    private double avgDbReadRows;
+    private double avgDbReadBytes;
+    private double avgDbWrites;
+    private double avgDbMillis;
+    private long p95DbMillis;
+    private double avgZkOps;
+    private double avgServiceCalls;
+
+    // Default constructor for JAXB
+    public RequestCostStat() {
+    }
+
+    public RequestCostStat(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @XmlElement(name = "service")
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * @return method and path of the requests, ids replaced by {id}
+     */
+    @XmlElement(name = "endpoint")
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return number of requests since the service started
+     */
+    @XmlElement(name = "count")
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return number of recent requests the other values are computed on
+     */
+    @XmlElement(name = "samples")
+    public long getSamples() {
+        return samples;
+    }
+
+    public void setSamples(long samples) {
+        this.samples = samples;
+    }
+
+    @XmlElement(name = "p50_ms")
+    public long getP50Millis() {
+        return p50Millis;
+    }
+
+    public void setP50Millis(long p50Millis) {
+        this.p50Millis = p50Millis;
+    }
+
+    @XmlElement(name = "p95_ms")
+    public long getP95Millis() {
+        return p95Millis;
+    }
+
+    public void setP95Millis(long p95Millis) {
+        this.p95Millis = p95Millis;
+    }
+
+    @XmlElement(name = "p99_ms")
+    public long getP99Millis() {
+        return p99Millis;
+    }
+
+    public void setP99Millis(long p99Millis) {
+        this.p99Millis = p99Millis;
+    }
+
+    @XmlElement(name = "max_ms")
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    @XmlElement(name = "avg_db_reads")
+    public double getAvgDbReads() {
+        return avgDbReads;
+    }
+
+    public void setAvgDbReads(double avgDbReads) {
+        this.avgDbReads = avgDbReads;
+    }
+
+    @XmlElement(name = "avg_db_read_rows")
+    public double getAvgDbReadRows() {
+        return avgDbReadRows;
+    }
+
+    public void setAvgDbReadRows(double avgDbReadRows) {
+        this.avgDbReadRows = avgDbReadRows;
+    }
+
+    @XmlElement(name = "avg_db_read_bytes")
+    public double getAvgDbReadBytes() {
+        return avgDbReadBytes;
+    }
+
+    public void setAvgDbReadBytes(double avgDbReadBytes) {
+        this.avgDbReadBytes = avgDbReadBytes;
+    }
+
+    @XmlElement(name = "avg_db_writes")
+    public double getAvgDbWrites() {
+        return avgDbWrites;
+    }
+
+    public void setAvgDbWrites(double avgDbWrites) {
+        this.avgDbWrites = avgDbWrites;
+    }
+
+    @XmlElement(name = "avg_db_ms")
+    public double getAvgDbMillis() {
+        return avgDbMillis;
+    }
+
+    public void setAvgDbMillis(double avgDbMillis) {
+        this.avgDbMillis = avgDbMillis;
+    }
+
+    @XmlElement(name = "p95_db_ms")
+    public long getP95DbMillis() {
+        return p95DbMillis;
+    }
+
+    public void setP95DbMillis(long p95DbMillis) {
+        this.p95DbMillis = p95DbMillis;
+    }
+
+    @XmlElement(name = "avg_zk_ops")
+    public double getAvgZkOps() {
+        return avgZkOps;
+    }
+
+    public void setAvgZkOps(double avgZkOps) {
+        this.avgZkOps = avgZkOps;
+    }
+
+    @XmlElement(name = "avg_service_calls")
+    public double getAvgServiceCalls() {
+        return avgServiceCalls;
+    }
+
+    public void setAvgServiceCalls(double avgServiceCalls) {
+        this.avgServiceCalls = avgServiceCalls;
+    }
+}
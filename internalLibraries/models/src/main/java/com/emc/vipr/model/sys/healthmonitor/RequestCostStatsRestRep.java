@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the request costs of the endpoints of the services of each node
+ */
+@XmlRootElement(name = "request_cost_stats")
+public class RequestCostStatsRestRep {
+
+    private List<NodeRequestCostStats> nodeStatsList;
+
+    @XmlElementWrapper(name = "node_request_cost_stats_list")
+    @XmlElement(name = "node_request_cost_stats")
+    public List<NodeRequestCostStats> getNodeStatsList() {
+        if (nodeStatsList == null) {
+            nodeStatsList = new ArrayList<NodeRequestCostStats>();
+        }
+        return nodeStatsList;
+    }
+
+    public void setNodeStatsList(List<NodeRequestCostStats> nodeStatsList) {
+        this.nodeStatsList = nodeStatsList;
+    }
+}
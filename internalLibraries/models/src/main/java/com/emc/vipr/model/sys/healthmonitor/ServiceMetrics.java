@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.vipr.model.sys.healthmonitor;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the history of the metrics recorded by a service of a node, or of the node itself
+ */
+@XmlRootElement(name = "service_metrics")
+public class ServiceMetrics {
+
+    private String serviceName;
+    private long interval;
+    private List<MetricSeries> metrics;
+
+    // Default constructor for JAXB
+    public ServiceMetrics() {
+    }
+
+    public ServiceMetrics(String serviceName, long interval) {
+        this.serviceName = serviceName;
+        this.interval = interval;
+    }
+
+    @XmlElement(name = "service")
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * @return length of the interval averaged in a point, in ms
+     */
+    @XmlElement(name = "interval")
+    public long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    @XmlElementWrapper(name = "metrics")
+    @XmlElement(name = "metric_series")
+    public List<MetricSeries> getMetrics() {
+        if (metrics == null) {
+            metrics = new ArrayList<MetricSeries>();
+        }
+        return metrics;
+    }
+
+    public void setMetrics(List<MetricSeries> metrics) {
+        this.metrics = metrics;
+    }
+}
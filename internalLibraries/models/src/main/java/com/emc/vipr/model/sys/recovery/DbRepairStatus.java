@@ -32,6 +32,7 @@ public class DbRepairStatus implements Serializable {
     private Date lastCompletionTime;
     private Date startTime;
     private int progress;
+    private Date estimatedCompletionTime;
 
     public DbRepairStatus() {
     }
@@ -102,6 +103,19 @@ public class DbRepairStatus implements Serializable {
         this.progress = progress;
     }
 
+    /**
+     * The estimated completion time of current db repair, estimated from the progress since
+     * the repair started or resumed
+     */
+    @XmlElement(name = "estimated_completion_time")
+    public Date getEstimatedCompletionTime() {
+        return this.estimatedCompletionTime;
+    }
+
+    public void setEstimatedCompletionTime(Date estimatedCompletionTime) {
+        this.estimatedCompletionTime = estimatedCompletionTime;
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
@@ -113,6 +127,8 @@ public class DbRepairStatus implements Serializable {
         sb.append(getStartTime());
         sb.append(", LastEndTime:");
         sb.append(getLastCompletionTime());
+        sb.append(", EstimatedCompletionTime:");
+        sb.append(getEstimatedCompletionTime());
         return sb.toString();
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.processmonitor;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import com.emc.storageos.services.util.MetricsSource;
+import com.sun.management.UnixOperatingSystemMXBean;
+
+/**
+ * Metrics of the JVM of the service, read from the platform MXBeans.
+ * Rates are computed over the time since the previous sample.
+ */
+public class JvmMetricsSource implements MetricsSource {
+    private static final float MB = 1024 * 1024;
+
+    private static final String[] METRIC_NAMES = { "heapUsedMB", "heapCommittedMB", "nonHeapUsedMB",
+            "gcPerSec", "gcTimePercent", "threadCount", "processCpuPercent", "openFileDescriptors" };
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    private final int cpuCount = Runtime.getRuntime().availableProcessors();
+
+    private long lastTime;
+    private long lastGcCount;
+    private long lastGcTime;
+    private long lastCpuTime;
+
+    @Override
+    public String[] getMetricNames() {
+        return METRIC_NAMES.clone();
+    }
+
+    @Override
+    public void sample(float[] values) {
+        long now = System.nanoTime();
+        MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        values[0] = heap.getUsed() / MB;
+        values[1] = heap.getCommitted() / MB;
+        values[2] = memoryBean.getNonHeapMemoryUsage().getUsed() / MB;
+
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gcBean : gcBeans) {
+            gcCount += Math.max(0, gcBean.getCollectionCount());
+            gcTime += Math.max(0, gcBean.getCollectionTime());
+        }
+        values[5] = threadBean.getThreadCount();
+
+        long cpuTime = -1;
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            cpuTime = ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+        }
+        if (osBean instanceof UnixOperatingSystemMXBean) {
+            values[7] = ((UnixOperatingSystemMXBean) osBean).getOpenFileDescriptorCount();
+        }
+
+        if (lastTime != 0) {
+            float elapsedNanos = now - lastTime;
+            values[3] = (gcCount - lastGcCount) * 1e9f / elapsedNanos;
+            values[4] = (gcTime - lastGcTime) * 1e6f * 100 / elapsedNanos;
+            if (cpuTime >= 0) {
+                values[6] = (cpuTime - lastCpuTime) * 100 / elapsedNanos / cpuCount;
+            }
+        }
+        lastTime = now;
+        lastGcCount = gcCount;
+        lastGcTime = gcTime;
+        lastCpuTime = cpuTime;
+    }
+}
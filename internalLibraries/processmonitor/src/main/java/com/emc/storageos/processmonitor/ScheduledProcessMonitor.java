@@ -10,6 +10,7 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.emc.storageos.db.client.model.ProcessMonitorMetrics;
+import com.emc.storageos.services.util.MetricsRecorder;
 
 public class ScheduledProcessMonitor {
     private static final Logger _logger = LoggerFactory
@@ -17,6 +18,7 @@ public class ScheduledProcessMonitor {
     private String _interval;
     private String _serviceName;
     private ProcessMonitorMetrics processMonitorMetrics;
+    private MetricsRecorder metricsRecorder;
     private ScheduledExecutorService _scheduledProcessMonitor = Executors
             .newScheduledThreadPool(1);
 
@@ -35,9 +37,23 @@ public class ScheduledProcessMonitor {
         } catch (Exception e) {
             _logger.error("Process Monitor Scheduling failed", e);
         }
+
+        // history of the JVM metrics, queried through the health monitor of syssvc from the same
+        // directory (metrics.dir system property)
+        try {
+            metricsRecorder = new MetricsRecorder();
+            metricsRecorder.setServiceName(_serviceName);
+            metricsRecorder.setSource(new JvmMetricsSource());
+            metricsRecorder.start();
+        } catch (Exception e) {
+            _logger.error("JVM metrics recording failed to start", e);
+        }
     }
 
     public void shutdown() {
+        if (metricsRecorder != null) {
+            metricsRecorder.stop();
+        }
         try {
             _scheduledProcessMonitor.shutdown();
             _scheduledProcessMonitor.awaitTermination(120, TimeUnit.SECONDS);
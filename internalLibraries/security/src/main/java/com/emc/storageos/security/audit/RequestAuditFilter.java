@@ -21,6 +21,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
 import com.emc.storageos.security.authorization.QueriedObjectCache;
+import com.emc.storageos.services.util.RequestCost;
 
 import com.emc.storageos.security.authentication.RequestProcessingUtils;
 
@@ -32,11 +33,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Generic use http request logging filter.
+ * 
+ * The DB, ZooKeeper and inter-service calls made by each request are logged when the request
+ * completes. A client can also get them in the X-Request-Cost response header by sending the
+ * X-Request-Cost header with the request.
  */
 
 public class RequestAuditFilter implements Filter {
     private static final Logger _log = LoggerFactory.getLogger(RequestAuditFilter.class);
 
+    public static final String REQUEST_COST_HEADER = "X-Request-Cost";
+
     @Autowired
     RequestStatTracker _requestTracker;
 
@@ -110,19 +117,18 @@ public class RequestAuditFilter implements Filter {
         }
 
         // Follow the rest of the chain
-        HttpServletResponseWrapperWithStatus responseS = new HttpServletResponseWrapperWithStatus((HttpServletResponse) response);
+        HttpServletResponseWrapperWithStatus responseS = new HttpServletResponseWrapperWithStatus((HttpServletResponse) response,
+                req.getHeader(REQUEST_COST_HEADER) != null);
         try {
             filterChain.doFilter(request, responseS);
-        } catch (RuntimeException ex) {
-            afterRequest();
-            throw ex;
-        }
-        if (responseS.getStatus() >= 500) {
-            _requestTracker.flag500Error();
+            if (responseS.getStatus() >= 500) {
+                _requestTracker.flag500Error();
+            }
+        } finally {
+            // ends the request cost on IOException and ServletException too
+            afterRequest(req);
         }
 
-        afterRequest();
-
         // Response logging
         HttpServletResponse resp = (HttpServletResponse) response;
         String respHeadersStr = String.format("Response headers: %s", resp.toString());
@@ -156,33 +162,49 @@ public class RequestAuditFilter implements Filter {
      * Servlet response wrapper class to extract the response status code
      * before sending it. More recent versions of the servlet api have a getStatus
      * built in the servletresponse and don't require this.
+     * 
+     * The request cost header is added when the status is set, since the headers
+     * cannot be changed once the response body is written. It holds the calls made
+     * by the request up to then.
      */
     private class HttpServletResponseWrapperWithStatus extends HttpServletResponseWrapper {
 
         private int _httpStatus;
+        private boolean _addCostHeader;
 
-        public HttpServletResponseWrapperWithStatus(HttpServletResponse response) {
+        public HttpServletResponseWrapperWithStatus(HttpServletResponse response, boolean addCostHeader) {
             super(response);
+            _addCostHeader = addCostHeader;
         }
 
         @Override
         public void sendError(int sc) throws IOException {
             _httpStatus = sc;
+            addCostHeader();
             super.sendError(sc);
         }
 
         @Override
         public void sendError(int sc, String msg) throws IOException {
             _httpStatus = sc;
+            addCostHeader();
             super.sendError(sc, msg);
         }
 
         @Override
         public void setStatus(int sc) {
             _httpStatus = sc;
+            addCostHeader();
             super.setStatus(sc);
         }
 
+        private void addCostHeader() {
+            RequestCost cost = RequestCost.current();
+            if (_addCostHeader && cost != null) {
+                setHeader(REQUEST_COST_HEADER, cost.toString());
+            }
+        }
+
         public int getStatus() {
             return _httpStatus;
         }
@@ -195,11 +217,17 @@ public class RequestAuditFilter implements Filter {
         QueriedObjectCache.clearCache();
         _requestTracker.incrementActiveRequests();
         _requestTracker.recordStartTime();
+        RequestCost.begin();
     }
 
-    private void afterRequest() {
+    private void afterRequest(HttpServletRequest req) {
         _requestTracker.decrementActiveRequests();
-        _requestTracker.recordEndTime();
+        int millis = _requestTracker.recordEndTime();
+        RequestCost cost = RequestCost.end();
+        if (cost != null) {
+            _log.info("Request cost: {}", cost);
+            _requestTracker.recordRequestCost(req.getMethod(), req.getRequestURI(), millis, cost);
+        }
     }
 
 }
@@ -5,29 +5,55 @@
 
 package com.emc.storageos.security.audit;
 
+import java.lang.management.ManagementFactory;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import com.emc.storageos.management.jmx.requestcost.RequestCostTrackerMBean;
 import com.emc.storageos.services.util.AlertsLogger;
+import com.emc.storageos.services.util.RequestCost;
+import com.emc.vipr.model.sys.healthmonitor.RequestCostStat;
 
 /**
  * Utility class to track various stats regarding requests. This class
  * is thread safe.
+ * 
+ * The cost of the last ENDPOINT_WINDOW_SIZE requests of each endpoint is kept
+ * to compute latency percentiles and average DB, ZooKeeper and inter-service
+ * calls per request. These statistics are read by syssvc through JMX.
  */
-public class RequestStatTracker {
+public class RequestStatTracker implements RequestCostTrackerMBean {
 
     private static final Logger _log = LoggerFactory.getLogger(RequestStatTracker.class);
     private AlertsLogger _alertLog = AlertsLogger.getAlertsLogger();
     private static final int SUSPISCIOUS_RSP_TIME_MS = 5 * 1000;
     private static final int HIGH_NUMBER_REQUESTS = 10;
     private static final String STAT_THREAD_NAME = "RequestStats";
+    private static final int ENDPOINT_WINDOW_SIZE = 200;
+    private static final int MAX_TRACKED_ENDPOINTS = 1000;
+    private static final String OTHER_ENDPOINTS = "other";
+    // path segments that are resource ids: URNs, numbers and UUIDs
+    private static final Pattern ID_SEGMENT = Pattern.compile("/(urn:[^/]+|[0-9]+|[0-9a-fA-F]{8}-[0-9a-fA-F-]{27})(?=/|$)");
     private ScheduledExecutorService executor;
 
     /**
@@ -90,6 +116,81 @@ public class RequestStatTracker {
     private boolean _statsOn = false;
     private int _displayRateInMins = 15; // every 15 minutes by default
 
+    // cost of the recent requests, per endpoint
+    private final Map<String, EndpointCosts> _endpointCosts = new ConcurrentHashMap<String, EndpointCosts>();
+
+    /**
+     * Costs of the last ENDPOINT_WINDOW_SIZE requests of an endpoint
+     */
+    private static class EndpointCosts {
+        private long _count = 0;
+        private int _samples = 0;
+        private final long[] _millis = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _dbMillis = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _dbReads = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _dbReadRows = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _dbReadBytes = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _dbWrites = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _zkOps = new long[ENDPOINT_WINDOW_SIZE];
+        private final long[] _serviceCalls = new long[ENDPOINT_WINDOW_SIZE];
+
+        synchronized void add(int millis, RequestCost cost) {
+            int i = (int) (_count % ENDPOINT_WINDOW_SIZE);
+            _count++;
+            _samples = Math.min(_samples + 1, ENDPOINT_WINDOW_SIZE);
+            _millis[i] = millis;
+            _dbMillis[i] = cost.getDbReadMillis() + cost.getDbWriteMillis();
+            _dbReads[i] = cost.getDbReads();
+            _dbReadRows[i] = cost.getDbReadRows();
+            _dbReadBytes[i] = cost.getDbReadBytes();
+            _dbWrites[i] = cost.getDbWrites();
+            _zkOps[i] = cost.getCoordinatorOps();
+            _serviceCalls[i] = cost.getServiceCalls();
+        }
+
+        synchronized RequestCostStat toStat(String endpoint) {
+            RequestCostStat stat = new RequestCostStat(endpoint);
+            stat.setCount(_count);
+            stat.setSamples(_samples);
+            long[] millis = Arrays.copyOf(_millis, _samples);
+            Arrays.sort(millis);
+            stat.setP50Millis(percentile(millis, 0.50));
+            stat.setP95Millis(percentile(millis, 0.95));
+            stat.setP99Millis(percentile(millis, 0.99));
+            stat.setMaxMillis(percentile(millis, 1));
+            long[] dbMillis = Arrays.copyOf(_dbMillis, _samples);
+            stat.setAvgDbMillis(average(dbMillis));
+            Arrays.sort(dbMillis);
+            stat.setP95DbMillis(percentile(dbMillis, 0.95));
+            stat.setAvgDbReads(average(_dbReads));
+            stat.setAvgDbReadRows(average(_dbReadRows));
+            stat.setAvgDbReadBytes(average(_dbReadBytes));
+            stat.setAvgDbWrites(average(_dbWrites));
+            stat.setAvgZkOps(average(_zkOps));
+            stat.setAvgServiceCalls(average(_serviceCalls));
+            return stat;
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private double average(long[] values) {
+            if (_samples == 0) {
+                return 0;
+            }
+            long total = 0;
+            for (int i = 0; i < _samples; i++) {
+                total += values[i];
+            }
+            return (double) total / _samples;
+        }
+    }
+
     /**
      * Determines how frequently the stats are displayed in the logs.
      * This is independant from how the stats are captured/computed.
@@ -111,6 +212,15 @@ public class RequestStatTracker {
         }
         _statsOn = true;
 
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(this, RequestCostTrackerMBean.class), new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            _log.info("Request cost tracker of another filter is already registered");
+        } catch (Exception e) {
+            _log.warn("Failed to register request cost tracker", e);
+        }
+
         // scheduled threads
         executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(STAT_THREAD_NAME));
         executor.scheduleAtFixedRate(new StatLogger(), _displayRateInMins, _displayRateInMins,
@@ -254,8 +364,10 @@ public class RequestStatTracker {
      * request response per minute per hour counter.
      * Updates min/max response time.
      * If the response is above SUSPICIOUS_RESP_TIME_MS, log a warning.
+     * 
+     * @return the response time in ms
      */
-    public void recordEndTime() {
+    public int recordEndTime() {
         int msDiff = (int) (System.currentTimeMillis() - _currentRequestStartTime.get());
         _log.info("Request response time: {} ms", msDiff);
         updateOrResetReqRspAvgLstHr(updateOrResetReqRspAvgLstMin(msDiff, false), false);
@@ -264,6 +376,71 @@ public class RequestStatTracker {
             _alertLog.warn(MessageFormat.format("Request took an unusually long time to complete: {0}ms", msDiff));
         }
         _currentRequestStartTime.remove();
+        return msDiff;
+    }
+
+    /**
+     * Adds the cost of the request that just finished to the statistics of its endpoint.
+     * 
+     * @param method request method
+     * @param path request path
+     * @param millis response time
+     * @param cost calls made by the request
+     */
+    public void recordRequestCost(String method, String path, int millis, RequestCost cost) {
+        if (!_statsOn || cost == null) {
+            return;
+        }
+        String endpoint = getEndpoint(method, path);
+        EndpointCosts costs = _endpointCosts.get(endpoint);
+        if (costs == null) {
+            if (_endpointCosts.size() >= MAX_TRACKED_ENDPOINTS) {
+                endpoint = OTHER_ENDPOINTS;
+            }
+            synchronized (_endpointCosts) {
+                costs = _endpointCosts.get(endpoint);
+                if (costs == null) {
+                    costs = new EndpointCosts();
+                    _endpointCosts.put(endpoint, costs);
+                }
+            }
+        }
+        costs.add(millis, cost);
+    }
+
+    /**
+     * Gives the endpoint of a request: its method and path, with the resource ids of
+     * the path replaced by {id}, e.g. GET /block/volumes/{id}/exports
+     * 
+     * @param method request method
+     * @param path request path
+     * @return the endpoint
+     */
+    public static String getEndpoint(String method, String path) {
+        return method + " " + ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    /**
+     * @return cost statistics of each endpoint, highest 95th percentile response time first
+     */
+    @Override
+    public List<RequestCostStat> getEndpointCosts() {
+        List<RequestCostStat> stats = new ArrayList<RequestCostStat>();
+        for (Map.Entry<String, EndpointCosts> entry : _endpointCosts.entrySet()) {
+            stats.add(entry.getValue().toStat(entry.getKey()));
+        }
+        Collections.sort(stats, new Comparator<RequestCostStat>() {
+            @Override
+            public int compare(RequestCostStat o1, RequestCostStat o2) {
+                return Long.compare(o2.getP95Millis(), o1.getP95Millis());
+            }
+        });
+        return stats;
+    }
+
+    @Override
+    public void resetEndpointCosts() {
+        _endpointCosts.clear();
     }
 
     // INTERNAL COUNTER COMPUTE METHODS --------------------------------------------------
@@ -5,6 +5,7 @@
 package com.emc.storageos.security.authentication;
 
 import java.io.IOException;
+import java.security.Principal;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -17,6 +18,7 @@ import javax.ws.rs.WebApplicationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emc.storageos.coordinator.client.service.impl.RequestTenant;
 import com.emc.storageos.svcs.errorhandling.resources.APIException;
 import com.emc.storageos.svcs.errorhandling.resources.InternalException;
 import com.emc.storageos.svcs.errorhandling.mappers.ServiceCodeExceptionMapper;
@@ -28,7 +30,9 @@ public abstract class AbstractAuthenticationFilter extends AbstractRequestWrappe
     private static final Logger _log = LoggerFactory.getLogger(AbstractAuthenticationFilter.class);
 
     /**
-     * Forward the request to resource handler, we are done authenticating it
+     * Forward the request to resource handler, we are done authenticating it. The tenant of the
+     * user is bound to the thread while the request is served, so that it goes with the controller
+     * calls made by the request.
      * 
      * @param servletRequest
      * @param servletResponse
@@ -40,6 +44,8 @@ public abstract class AbstractAuthenticationFilter extends AbstractRequestWrappe
             final ServletResponse servletResponse,
             final AbstractRequestWrapper reqWrapper)
             throws IOException, ServletException {
+        Principal principal = reqWrapper.getUserPrincipal();
+        RequestTenant.set(principal instanceof StorageOSUser ? ((StorageOSUser) principal).getTenantId() : null);
         try {
             HttpServletRequest req = (HttpServletRequest) servletRequest;
             servletRequest.getRequestDispatcher(req.getRequestURI()).forward(reqWrapper, servletResponse);
@@ -51,6 +57,8 @@ public abstract class AbstractAuthenticationFilter extends AbstractRequestWrappe
             }
             HttpServletResponse reponse = (HttpServletResponse) servletResponse;
             reponse.sendError(toHTTPStatus(e), toServiceErrorXml(e));
+        } finally {
+            RequestTenant.set(null);
         }
     }
 
@@ -86,6 +86,7 @@ public class BasePermissionsHelper {
     private static final String ROOT = "root";
     private DbClient _dbClient = null;
     private boolean _usingCache = true;
+    private PermissionsCache _permissionsCache;
     private Map<CoordinatorClient.LicenseType, Boolean> licensedCache = new HashMap<CoordinatorClient.LicenseType, Boolean>();
 
     @Autowired(required = false)
@@ -527,6 +528,29 @@ public class BasePermissionsHelper {
         _usingCache = usingCache;
     }
 
+    /**
+     * Sets the process wide cache of the tenant roles and project ACLs resolved for users
+     * 
+     * @param permissionsCache
+     */
+    public void setPermissionsCache(PermissionsCache permissionsCache) {
+        _permissionsCache = permissionsCache;
+    }
+
+    public PermissionsCache getPermissionsCache() {
+        return _permissionsCache;
+    }
+
+    /**
+     * Clears the permissions cached by the services, to be called after changing role assignments,
+     * ACLs, user mappings or user groups
+     */
+    public void notifyPermissionsChange() {
+        if (_permissionsCache != null) {
+            _permissionsCache.notifyChange();
+        }
+    }
+
     /**
      * Find the tenant for a user based on the attribute (key=value) string
      * 
@@ -816,6 +840,20 @@ public class BasePermissionsHelper {
         if (tenantId == null) {
             return Collections.emptySet();
         }
+        if (_permissionsCache == null) {
+            return resolveTenantRolesForUser(user, tenantId, idEmbeddedInURL);
+        }
+        Set<String> tenantRoles = _permissionsCache.getTenantRoles(user, tenantId);
+        if (tenantRoles == null) {
+            long generation = _permissionsCache.getGeneration();
+            tenantRoles = resolveTenantRolesForUser(user, tenantId, idEmbeddedInURL);
+            _permissionsCache.putTenantRoles(user, tenantId, tenantRoles, generation);
+        }
+        return tenantRoles;
+    }
+
+    private Set<String> resolveTenantRolesForUser(StorageOSUser user, URI tenantId,
+            boolean idEmbeddedInURL) {
         Set<String> tenantRoles = new HashSet<String>();
         TenantOrg tenant = getObjectById(tenantId, TenantOrg.class);
         if (tenant == null) {
@@ -886,6 +924,20 @@ public class BasePermissionsHelper {
         if (projectId == null) {
             return Collections.emptySet();
         }
+        if (_permissionsCache == null) {
+            return resolveProjectACLsForUser(user, projectId, idEmbeddedInURL);
+        }
+        Set<String> projectACLs = _permissionsCache.getProjectACLs(user, projectId);
+        if (projectACLs == null) {
+            long generation = _permissionsCache.getGeneration();
+            projectACLs = resolveProjectACLsForUser(user, projectId, idEmbeddedInURL);
+            _permissionsCache.putProjectACLs(user, projectId, projectACLs, generation);
+        }
+        return projectACLs;
+    }
+
+    private Set<String> resolveProjectACLsForUser(StorageOSUser user, URI projectId,
+            boolean idEmbeddedInURL) {
         Set<String> projectACLs = new HashSet<String>();
         Project project = getObjectById(projectId, Project.class);
         if (project == null) {
@@ -1439,6 +1491,7 @@ public class BasePermissionsHelper {
         }
         _log.info(tenantRolesRemoved.toString());
         _log.info(projectOwnerRemoved.toString());
+        notifyPermissionsChange();
     }
 
     /***
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.security.authorization;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.coordinator.client.model.Constants;
+import com.emc.storageos.coordinator.client.service.CoordinatorClient;
+import com.emc.storageos.coordinator.client.service.NodeListener;
+import com.emc.storageos.coordinator.common.impl.ConfigurationImpl;
+import com.emc.storageos.db.common.VdcUtil;
+import com.emc.storageos.security.authentication.StorageOSUser;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Process wide cache of the tenant roles and project ACLs resolved for a principal, keyed by the
+ * user name, tenant, groups and attributes of the user and the id of the tenant or project.
+ *
+ * Services changing role assignments, ACLs, user mappings or user groups call notifyChange, which
+ * clears the cache of this process and updates the /config/permissions/change znode, so that the
+ * caches of the other services and nodes are cleared by their listener. Entries also expire after
+ * EXPIRATION in case a notification is missed.
+ *
+ * Tenants, projects and user groups are in the geo db, and changes made in another VDC are not
+ * notified to this one, so nothing is cached while this VDC is connected to other VDCs.
+ */
+public class PermissionsCache {
+    private static final Logger _log = LoggerFactory.getLogger(PermissionsCache.class);
+
+    private static final int MAX_ENTRIES = 20000;
+    private static final long EXPIRATION = TimeUnit.MINUTES.toMillis(10);
+    private static final long STATS_LOG_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+    private static final long GEO_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final String CONFIG_KEY = "timestamp";
+
+    private static final String TENANT_ROLES = "tenant";
+    private static final String PROJECT_ACLS = "project";
+
+    private final Ticker _ticker;
+    private final Cache<List<Object>, Set<String>> _cache;
+
+    /** incremented by each invalidation, so that permissions resolved before are not cached after */
+    private final AtomicLong _generation = new AtomicLong();
+
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+    private volatile long _lastStatsLog = System.currentTimeMillis();
+
+    // the VDC is assumed to be connected to other VDCs until checked
+    private volatile boolean _geoReplicated = true;
+    private volatile long _lastGeoCheck;
+
+    private CoordinatorClient _coordinator;
+    private PermissionsChangeListener _listener;
+
+    public PermissionsCache() {
+        this(Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker time source of the expiration of the entries
+     */
+    PermissionsCache(Ticker ticker) {
+        _ticker = ticker;
+        _cache = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).expireAfterWrite(EXPIRATION, TimeUnit.MILLISECONDS)
+                .ticker(ticker).build();
+        _lastGeoCheck = currentTimeMillis() - GEO_CHECK_INTERVAL;
+    }
+
+    public void setCoordinator(CoordinatorClient coordinator) {
+        _coordinator = coordinator;
+        addPermissionsChangeListener();
+    }
+
+    /**
+     * @return the cached tenant roles of the user on the tenant, null if not cached
+     */
+    public Set<String> getTenantRoles(StorageOSUser user, URI tenantId) {
+        return get(createKey(TENANT_ROLES, user, tenantId));
+    }
+
+    /**
+     * @param generation the generation returned by getGeneration before resolving the roles
+     */
+    public void putTenantRoles(StorageOSUser user, URI tenantId, Set<String> roles, long generation) {
+        put(createKey(TENANT_ROLES, user, tenantId), roles, generation);
+    }
+
+    /**
+     * @return the cached ACLs of the user on the project, null if not cached
+     */
+    public Set<String> getProjectACLs(StorageOSUser user, URI projectId) {
+        return get(createKey(PROJECT_ACLS, user, projectId));
+    }
+
+    /**
+     * @param generation the generation returned by getGeneration before resolving the ACLs
+     */
+    public void putProjectACLs(StorageOSUser user, URI projectId, Set<String> acls, long generation) {
+        put(createKey(PROJECT_ACLS, user, projectId), acls, generation);
+    }
+
+    /**
+     * @return the current generation, to be read before resolving the permissions to cache
+     */
+    public long getGeneration() {
+        return _generation.get();
+    }
+
+    /**
+     * Clears the cache of this process
+     */
+    public void invalidate() {
+        _generation.incrementAndGet();
+        _cache.invalidateAll();
+    }
+
+    /**
+     * Clears the cache of this process, and notifies the other processes to clear theirs
+     */
+    public void notifyChange() {
+        invalidate();
+        if (_coordinator == null) {
+            return;
+        }
+        ConfigurationImpl config = new ConfigurationImpl();
+        config.setKind(Constants.PERMISSIONS_CONFIG);
+        config.setId(Constants.PERMISSIONS_CHANGE);
+        config.setConfig(CONFIG_KEY, String.valueOf(System.currentTimeMillis()));
+        try {
+            _coordinator.persistServiceConfiguration(config);
+        } catch (Exception e) {
+            _log.warn("Failed to update zk node /config/{}/{}, permissions cached by other services expire in {} minutes",
+                    Constants.PERMISSIONS_CONFIG, Constants.PERMISSIONS_CHANGE, TimeUnit.MILLISECONDS.toMinutes(EXPIRATION), e);
+        }
+    }
+
+    public long getHitCount() {
+        return _hits.get();
+    }
+
+    public long getMissCount() {
+        return _misses.get();
+    }
+
+    /**
+     * @return fraction of the lookups served from the cache
+     */
+    public double getHitRate() {
+        long total = _hits.get() + _misses.get();
+        return total == 0 ? 0 : (double) _hits.get() / total;
+    }
+
+    /**
+     * @return true if the VDC is connected to other VDCs, which may change tenants, projects or user groups
+     */
+    protected boolean isGeoReplicated() {
+        try {
+            return !VdcUtil.isLocalVdcSingleSite();
+        } catch (Exception e) {
+            _log.warn("Failed to check if the VDC is connected to other VDCs, permissions are not cached", e);
+            return true;
+        }
+    }
+
+    private boolean isEnabled() {
+        long now = currentTimeMillis();
+        if (now - _lastGeoCheck >= GEO_CHECK_INTERVAL) {
+            _lastGeoCheck = now;
+            boolean geoReplicated = isGeoReplicated();
+            if (geoReplicated && !_geoReplicated) {
+                _log.info("VDC is connected to other VDCs, clearing permissions cache");
+                invalidate();
+            }
+            _geoReplicated = geoReplicated;
+        }
+        return !_geoReplicated;
+    }
+
+    private long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(_ticker.read());
+    }
+
+    private Set<String> get(List<Object> key) {
+        if (!isEnabled()) {
+            _misses.incrementAndGet();
+            return null;
+        }
+        Set<String> permissions = _cache.getIfPresent(key);
+        (permissions != null ? _hits : _misses).incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        if (now - _lastStatsLog > STATS_LOG_INTERVAL) {
+            _lastStatsLog = now;
+            _log.info(String.format("Permissions cache: %d entries, %d hits, %d misses, hit rate %.1f%%",
+                    _cache.size(), _hits.get(), _misses.get(), getHitRate() * 100));
+        }
+        return permissions;
+    }
+
+    private void put(List<Object> key, Set<String> permissions, long generation) {
+        if (_generation.get() == generation && isEnabled()) {
+            _cache.put(key, Collections.unmodifiableSet(permissions));
+        }
+    }
+
+    private List<Object> createKey(String type, StorageOSUser user, URI id) {
+        Set<String> groups = user.getGroups() != null ? new TreeSet<String>(user.getGroups()) : null;
+        Set<String> attributes = user.getAttributes() != null ? new TreeSet<String>(user.getAttributes()) : null;
+        return Arrays.<Object> asList(type, id, user.getName(), user.getTenantId(), groups, attributes);
+    }
+
+    private class PermissionsChangeListener implements NodeListener {
+        @Override
+        public String getPath() {
+            return String.format("/config/%s/%s", Constants.PERMISSIONS_CONFIG, Constants.PERMISSIONS_CHANGE);
+        }
+
+        /**
+         * called when role assignments, ACLs, user mappings or user groups changed
+         */
+        @Override
+        public void nodeChanged() {
+            _log.info("permissions changed, clearing permissions cache");
+            invalidate();
+        }
+
+        /**
+         * called when connection state changed, changes may have been missed while disconnected
+         */
+        @Override
+        public void connectionStateChanged(State state) {
+            if (state.equals(State.CONNECTED)) {
+                invalidate();
+            }
+        }
+    }
+
+    private void addPermissionsChangeListener() {
+        try {
+            if (_listener != null) {
+                _coordinator.removeNodeListener(_listener);
+            }
+            _listener = new PermissionsChangeListener();
+            _coordinator.addNodeListener(_listener);
+        } catch (Exception e) {
+            // entries still expire, the cache is not disabled
+            _log.error("Failed to add node listener for permissions znode", e);
+        }
+    }
+}
@@ -230,6 +230,8 @@ public abstract class BaseServiceClient implements AutoCloseable {
                                 client.addFilter(filter);
                             }
                         }
+                        // added last so that it is the first filter of the chain
+                        client.addFilter(new ServiceCallCostFilter());
                         initialized = true;
                     }
                 }
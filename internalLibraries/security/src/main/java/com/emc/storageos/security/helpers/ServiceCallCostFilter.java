@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.security.helpers;
+
+import com.emc.storageos.services.util.RequestCost;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * Adds the calls to other services, retries included, to the RequestCost of the calling thread
+ */
+public class ServiceCallCostFilter extends ClientFilter {
+
+    @Override
+    public ClientResponse handle(ClientRequest clientRequest) throws ClientHandlerException {
+        RequestCost cost = RequestCost.current();
+        if (cost == null) {
+            return getNext().handle(clientRequest);
+        }
+        long start = System.nanoTime();
+        try {
+            return getNext().handle(clientRequest);
+        } finally {
+            cost.addServiceCall(System.nanoTime() - start);
+        }
+    }
+}
@@ -4,6 +4,7 @@
  */
 package com.emc.storageos.security.audit;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -11,6 +12,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import com.emc.storageos.security.audit.RequestStatTracker;
+import com.emc.storageos.services.util.RequestCost;
+import com.emc.vipr.model.sys.healthmonitor.RequestCostStat;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -89,4 +92,39 @@ public class RequestStatTrackerTests {
         Assert.assertEquals(numberActiveRequestsPerThread * threadsIncrOnly, tracker.getActiveRequests());
 
     }
+
+    @Test
+    public void testEndpointCosts() {
+        Assert.assertEquals("GET /block/volumes/{id}/exports",
+                RequestStatTracker.getEndpoint("GET", "/block/volumes/urn:storageos:Volume:1e4f2b3c-8f0a-4c5e-9d2b-0a1b2c3d4e5f:vdc1/exports"));
+        Assert.assertEquals("GET /vdc/tasks/{id}", RequestStatTracker.getEndpoint("GET", "/vdc/tasks/1234"));
+
+        RequestStatTracker tracker = new RequestStatTracker();
+        tracker.init();
+        for (int i = 1; i <= 100; i++) {
+            RequestCost cost = new RequestCost();
+            cost.addDbRead(0);
+            cost.addDbRead(0);
+            cost.addDbReadRows(20, 2000);
+            cost.addCoordinatorOp(0);
+            tracker.recordRequestCost("GET", "/block/volumes/urn:storageos:Volume:" + i + ":vdc1", i, cost);
+        }
+        tracker.recordRequestCost("POST", "/block/volumes", 5000, new RequestCost());
+
+        List<RequestCostStat> stats = tracker.getEndpointCosts();
+        Assert.assertEquals(2, stats.size());
+        Assert.assertEquals("POST /block/volumes", stats.get(0).getEndpoint());
+        RequestCostStat stat = stats.get(1);
+        Assert.assertEquals("GET /block/volumes/{id}", stat.getEndpoint());
+        Assert.assertEquals(100, stat.getCount());
+        Assert.assertEquals(50, stat.getP50Millis());
+        Assert.assertEquals(95, stat.getP95Millis());
+        Assert.assertEquals(100, stat.getMaxMillis());
+        Assert.assertEquals(2.0, stat.getAvgDbReads(), 0.001);
+        Assert.assertEquals(20.0, stat.getAvgDbReadRows(), 0.001);
+        Assert.assertEquals(1.0, stat.getAvgZkOps(), 0.001);
+
+        tracker.resetEndpointCosts();
+        Assert.assertTrue(tracker.getEndpointCosts().isEmpty());
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.security.authorization;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.db.client.DbClient;
+import com.emc.storageos.db.client.URIUtil;
+import com.emc.storageos.db.client.model.DataObject;
+import com.emc.storageos.db.client.model.NamedURI;
+import com.emc.storageos.db.client.model.Project;
+import com.emc.storageos.db.client.model.TenantOrg;
+import com.emc.storageos.security.authentication.StorageOSUser;
+import com.google.common.base.Ticker;
+
+/**
+ * Resolves the tenant roles and project ACLs of a user through BasePermissionsHelper with a
+ * permissions cache, counting the objects read from the db to check the hits, invalidation,
+ * expiration and the disabling of the cache while the VDC is connected to other VDCs.
+ */
+public class PermissionsCacheTest {
+    private static final String USER = "user@domain.com";
+
+    private final Map<URI, DataObject> objects = new HashMap<URI, DataObject>();
+    private int queries;
+
+    private long nanos;
+    private boolean geoReplicated;
+
+    private TenantOrg tenant;
+    private Project project;
+    private StorageOSUser user;
+    private PermissionsCache cache;
+    private BasePermissionsHelper helper;
+
+    @Before
+    public void setUp() {
+        objects.clear();
+        queries = 0;
+        nanos = 0;
+        geoReplicated = false;
+
+        tenant = new TenantOrg();
+        tenant.setId(URIUtil.createId(TenantOrg.class));
+        tenant.setParentTenant(new NamedURI(URI.create(TenantOrg.NO_PARENT), "root"));
+        tenant.addRole(userKey(), Role.TENANT_ADMIN.toString());
+        objects.put(tenant.getId(), tenant);
+
+        project = new Project();
+        project.setId(URIUtil.createId(Project.class));
+        project.addAcl(userProjectKey(), ACL.OWN.toString());
+        objects.put(project.getId(), project);
+
+        user = new StorageOSUser(USER, tenant.getId().toString());
+
+        cache = createCache();
+        helper = new BasePermissionsHelper(createDbClient(), false);
+        helper.setPermissionsCache(cache);
+    }
+
+    @Test
+    public void testHits() {
+        Assert.assertEquals(Collections.singleton(Role.TENANT_ADMIN.toString()), getTenantRoles());
+        Assert.assertEquals(Collections.singleton(ACL.OWN.toString()), getProjectACLs());
+        int resolveQueries = queries;
+        Assert.assertTrue(resolveQueries > 0);
+        Assert.assertEquals(0, cache.getHitCount());
+
+        Assert.assertEquals(Collections.singleton(Role.TENANT_ADMIN.toString()), getTenantRoles());
+        Assert.assertEquals(Collections.singleton(ACL.OWN.toString()), getProjectACLs());
+        Assert.assertEquals(resolveQueries, queries);
+        Assert.assertEquals(2, cache.getHitCount());
+
+        // another user is resolved on its own
+        user = new StorageOSUser("other@domain.com", tenant.getId().toString());
+        Assert.assertTrue(getTenantRoles().isEmpty());
+        Assert.assertTrue(queries > resolveQueries);
+    }
+
+    @Test
+    public void testInvalidation() {
+        getTenantRoles();
+        getProjectACLs();
+
+        tenant.removeRole(userKey(), Role.TENANT_ADMIN.toString());
+        project.removeAcl(userProjectKey(), ACL.OWN.toString());
+        Assert.assertFalse(getTenantRoles().isEmpty());
+        Assert.assertFalse(getProjectACLs().isEmpty());
+
+        helper.notifyPermissionsChange();
+        Assert.assertTrue(getTenantRoles().isEmpty());
+        Assert.assertTrue(getProjectACLs().isEmpty());
+    }
+
+    @Test
+    public void testStaleResolutionNotCached() {
+        long generation = cache.getGeneration();
+        cache.invalidate();
+        cache.putTenantRoles(user, tenant.getId(), Collections.singleton(Role.TENANT_ADMIN.toString()), generation);
+        Assert.assertNull(cache.getTenantRoles(user, tenant.getId()));
+    }
+
+    @Test
+    public void testExpiration() {
+        getTenantRoles();
+        tenant.removeRole(userKey(), Role.TENANT_ADMIN.toString());
+
+        nanos += TimeUnit.MINUTES.toNanos(9);
+        Assert.assertFalse(getTenantRoles().isEmpty());
+
+        nanos += TimeUnit.MINUTES.toNanos(1);
+        Assert.assertTrue(getTenantRoles().isEmpty());
+    }
+
+    @Test
+    public void testGeoReplicated() {
+        geoReplicated = true;
+        cache = createCache();
+        helper.setPermissionsCache(cache);
+
+        getTenantRoles();
+        int resolveQueries = queries;
+        getTenantRoles();
+        Assert.assertEquals(2 * resolveQueries, queries);
+        Assert.assertEquals(0, cache.getHitCount());
+
+        // cached once the VDC is disconnected from the other VDCs
+        geoReplicated = false;
+        nanos += TimeUnit.SECONDS.toNanos(30);
+        getTenantRoles();
+        getTenantRoles();
+        Assert.assertEquals(3 * resolveQueries, queries);
+        Assert.assertEquals(1, cache.getHitCount());
+
+        // cleared when the VDC is connected again, the connection being checked every 30 seconds
+        geoReplicated = true;
+        tenant.removeRole(userKey(), Role.TENANT_ADMIN.toString());
+        nanos += TimeUnit.SECONDS.toNanos(10);
+        Assert.assertFalse(getTenantRoles().isEmpty());
+        nanos += TimeUnit.SECONDS.toNanos(20);
+        Assert.assertTrue(getTenantRoles().isEmpty());
+
+        geoReplicated = false;
+        nanos += TimeUnit.SECONDS.toNanos(30);
+        Assert.assertTrue(getTenantRoles().isEmpty());
+    }
+
+    /**
+     * @return cache expiring with the time of the test, connected to other VDCs as set by the test
+     */
+    private PermissionsCache createCache() {
+        return new PermissionsCache(new Ticker() {
+            @Override
+            public long read() {
+                return nanos;
+            }
+        }) {
+            @Override
+            protected boolean isGeoReplicated() {
+                return geoReplicated;
+            }
+        };
+    }
+
+    private Set<String> getTenantRoles() {
+        return helper.getTenantRolesForUser(user, tenant.getId(), false);
+    }
+
+    private Set<String> getProjectACLs() {
+        return helper.getProjectACLsForUser(user, project.getId(), false);
+    }
+
+    private String userKey() {
+        return new PermissionsKey(PermissionsKey.Type.SID, USER).toString();
+    }
+
+    private String userProjectKey() {
+        return new PermissionsKey(PermissionsKey.Type.SID, USER, tenant.getId()).toString();
+    }
+
+    /**
+     * Serves the tenant and project by id, and finds no user groups
+     */
+    private DbClient createDbClient() {
+        return (DbClient) Proxy.newProxyInstance(DbClient.class.getClassLoader(), new Class<?>[] { DbClient.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("queryObject") && args.length == 2 && args[1] instanceof URI) {
+                            queries++;
+                            return objects.get(args[1]);
+                        } else if (name.equals("queryIterativeObjects")) {
+                            return Collections.emptyIterator();
+                        } else if (name.equals("queryByConstraint")) {
+                            return null;
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+}
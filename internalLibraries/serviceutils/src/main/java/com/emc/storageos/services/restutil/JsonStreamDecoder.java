@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.restutil;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.services.util.SecurityUtils;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes JSON responses of southbound REST APIs in a single pass.
+ *
+ * Model objects are bound by Gson straight from the response text, instead of parsing the response
+ * into a JSONObject, printing it back and parsing it again. The elements of a list nested in the
+ * response are bound one at a time as the response is read, the rest of the response is skipped.
+ *
+ * SecurityUtils.sanitizeJsonString fixes missing punctuation, quotes and brackets; it does not change
+ * the value of the strings of a well-formed document once decoded. The response is sanitized only if
+ * it cannot be decoded as is, and decoded again.
+ */
+public class JsonStreamDecoder {
+    private static final Logger log = LoggerFactory.getLogger(JsonStreamDecoder.class);
+
+    private static final Gson DEFAULT_GSON = new Gson();
+
+    private JsonStreamDecoder() {
+    }
+
+    /**
+     * Binds a response to a model object with a default Gson
+     *
+     * @param json the response
+     * @param clazz class of the model object
+     * @return the model object, null if the response is empty
+     * @throws JsonParseException if the response cannot be decoded, even once sanitized
+     */
+    public static <T> T fromJson(String json, Class<T> clazz) {
+        return fromJson(DEFAULT_GSON, json, clazz);
+    }
+
+    /**
+     * Binds a response to a model object
+     *
+     * @param gson Gson configured for the model classes
+     * @param json the response
+     * @param clazz class of the model object
+     * @return the model object, null if the response is empty
+     * @throws JsonParseException if the response cannot be decoded, even once sanitized
+     */
+    public static <T> T fromJson(Gson gson, String json, Class<T> clazz) {
+        try {
+            return gson.fromJson(json, clazz);
+        } catch (JsonSyntaxException e) {
+            log.debug("Decoding sanitized response, the response is not well-formed: {}", e.getMessage());
+            return gson.fromJson(SecurityUtils.sanitizeJsonString(json), clazz);
+        }
+    }
+
+    /**
+     * Binds the elements of a list nested in a response, with a default Gson
+     *
+     * @see #readElements(Gson, String, Class, Map, String...)
+     */
+    public static <T> List<T> readElements(String json, Class<T> clazz, Map<String, String> topLevelValues, String... path) {
+        return readElements(DEFAULT_GSON, json, clazz, topLevelValues, path);
+    }
+
+    /**
+     * Binds the elements of a list nested in a response.
+     *
+     * The path gives the names of the fields leading to the list. Arrays met along the path are walked,
+     * so that {"response": {"context": [{"children": [...]}, {"children": [...]}]}} gives the children of
+     * all the contexts for the path "response", "context", "children". If the path ends on an object
+     * instead of an array, the object is the only element.
+     *
+     * @param gson Gson configured for the model classes
+     * @param json the response
+     * @param clazz class of the elements
+     * @param topLevelValues if not null, filled with the scalar fields of the top level object, such as a
+     *            resume token, as strings; a null field is "null"
+     * @param path names of the fields leading to the list
+     * @return the elements of the list
+     * @throws JsonParseException if the response cannot be decoded, even once sanitized, or if the path
+     *             is not in the response
+     */
+    public static <T> List<T> readElements(Gson gson, String json, Class<T> clazz, Map<String, String> topLevelValues,
+            String... path) {
+        try {
+            return readElements(gson, new JsonReader(new StringReader(json)), clazz, topLevelValues, path);
+        } catch (IOException | IllegalStateException | JsonSyntaxException e) {
+            log.debug("Decoding sanitized response, the response is not well-formed: {}", e.getMessage());
+        }
+        if (topLevelValues != null) {
+            topLevelValues.clear();
+        }
+        try {
+            return readElements(gson, new JsonReader(new StringReader(SecurityUtils.sanitizeJsonString(json))), clazz,
+                    topLevelValues, path);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static <T> List<T> readElements(Gson gson, JsonReader reader, Class<T> clazz, Map<String, String> topLevelValues,
+            String[] path) throws IOException {
+        reader.setLenient(true);
+        List<T> elements = new ArrayList<T>();
+        if (!readValue(gson, reader, clazz, topLevelValues, path, 0, elements)) {
+            throw new JsonSyntaxException("No value at " + Arrays.toString(path));
+        }
+        return elements;
+    }
+
+    /**
+     * Reads the next value of the reader
+     *
+     * @param depth number of path names matched so far
+     * @return true if the path was found in this value
+     */
+    private static <T> boolean readValue(Gson gson, JsonReader reader, Class<T> clazz, Map<String, String> topLevelValues,
+            String[] path, int depth, List<T> elements) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            // an empty array along the path holds no element, which is not an error
+            boolean found = true;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (depth == path.length) {
+                    elements.add(gson.<T> fromJson(reader, clazz));
+                } else {
+                    found = readValue(gson, reader, clazz, topLevelValues, path, depth, elements) && found;
+                }
+            }
+            reader.endArray();
+            return found;
+        }
+        if (depth == path.length) {
+            elements.add(gson.<T> fromJson(reader, clazz));
+            return true;
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return false;
+        }
+        boolean found = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals(path[depth])) {
+                found = readValue(gson, reader, clazz, topLevelValues, path, depth + 1, elements);
+            } else if (depth == 0 && topLevelValues != null && isScalar(reader.peek())) {
+                topLevelValues.put(name, readScalar(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return found;
+    }
+
+    private static boolean isScalar(JsonToken token) {
+        return token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN || token == JsonToken.NULL;
+    }
+
+    private static String readScalar(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return "null";
+            default:
+                return reader.nextString();
+        }
+    }
+}
@@ -9,11 +9,9 @@ import java.net.URI;
 
 import javax.ws.rs.core.MediaType;
 
-import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.emc.storageos.services.util.SecurityUtils;
 import com.emc.storageos.svcs.errorhandling.resources.InternalException;
 import com.google.gson.Gson;
 import com.sun.jersey.api.client.Client;
@@ -123,8 +121,7 @@ public abstract class StandardRestClient implements RestClientItf {
     }
 
     protected <T> T getResponseObject(Class<T> clazz, ClientResponse response) throws Exception {
-        JSONObject resp = response.getEntity(JSONObject.class);
-        T respObject = new Gson().fromJson(SecurityUtils.sanitizeJsonString(resp.toString()), clazz);
+        T respObject = JsonStreamDecoder.fromJson(response.getEntity(String.class), clazz);
         return respObject;
     }
 
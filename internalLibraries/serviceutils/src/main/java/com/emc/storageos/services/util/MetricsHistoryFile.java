@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed size file holding the history of a set of metrics.
+ *
+ * The history is kept in one ring of slots per tier, a slot holding the average of the metrics over
+ * one interval of the tier. The slot of an interval is picked by (interval start / interval) % slot
+ * count, so that a slot is overwritten once the tier wraps around and the file never grows. The
+ * intervals are aligned on the epoch, so that the slots of the files of several nodes line up.
+ *
+ * Layout: header (magic, version, metric names) followed by the rings of the tiers, each slot
+ * holding the start time of its interval (long) and one float per metric.
+ *
+ * A file is written by a single recorder, but may be read by other processes at the same time.
+ * A reader may thus see a slot being written; the values of a slot are not checked beyond its time.
+ */
+public class MetricsHistoryFile implements Closeable {
+    public static final String FILE_SUFFIX = ".metrics";
+
+    private static final int MAGIC = 0x4d455452;
+    private static final int VERSION = 1;
+
+    /**
+     * Downsampling tiers of the history
+     */
+    public enum Tier {
+        MINUTE(TimeUnit.MINUTES.toMillis(1), (int) TimeUnit.DAYS.toMinutes(7)),
+        HOUR(TimeUnit.HOURS.toMillis(1), (int) TimeUnit.DAYS.toHours(90));
+
+        private final long interval;
+        private final int slotCount;
+
+        Tier(long interval, int slotCount) {
+            this.interval = interval;
+            this.slotCount = slotCount;
+        }
+
+        /**
+         * @return length of the interval averaged in a slot, in ms
+         */
+        public long getInterval() {
+            return interval;
+        }
+
+        public int getSlotCount() {
+            return slotCount;
+        }
+
+        /**
+         * @return start of the interval holding the given time
+         */
+        public long getIntervalStart(long time) {
+            return time - time % interval;
+        }
+    }
+
+    /**
+     * Average of the metrics over an interval of a tier
+     */
+    public static class Sample {
+        private final long time;
+        private final float[] values;
+
+        public Sample(long time, float[] values) {
+            this.time = time;
+            this.values = values;
+        }
+
+        /**
+         * @return start of the interval, in ms
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public float[] getValues() {
+            return values;
+        }
+    }
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final String[] metricNames;
+    private final int headerSize;
+    private final int slotSize;
+
+    private MetricsHistoryFile(File file, RandomAccessFile raf, String[] metricNames, int headerSize) {
+        this.file = file;
+        this.raf = raf;
+        this.channel = raf.getChannel();
+        this.metricNames = metricNames;
+        this.headerSize = headerSize;
+        this.slotSize = 8 + 4 * metricNames.length;
+    }
+
+    /**
+     * Opens the file to record the history of the given metrics. The file is created if it does not
+     * exist, or if it holds the history of other metrics, which is then lost.
+     *
+     * @param file the file
+     * @param metricNames names of the metrics, in the order of the values of the samples
+     */
+    public static MetricsHistoryFile openForWrite(File file, String[] metricNames) throws IOException {
+        if (file.exists()) {
+            try (RandomAccessFile existing = new RandomAccessFile(file, "r")) {
+                String[] names = readHeader(existing);
+                if (names != null && Arrays.equals(names, metricNames)) {
+                    return new MetricsHistoryFile(file, new RandomAccessFile(file, "rw"), names,
+                            (int) existing.getFilePointer());
+                }
+            }
+            if (!file.delete()) {
+                throw new IOException("Unable to delete " + file);
+            }
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(metricNames.length);
+        for (String name : metricNames) {
+            out.writeUTF(name);
+        }
+        out.flush();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        MetricsHistoryFile history = new MetricsHistoryFile(file, raf, metricNames.clone(), header.size());
+        raf.write(header.toByteArray());
+        // slots with a time of 0 are empty
+        raf.setLength(history.getTierOffset(Tier.values().length));
+        return history;
+    }
+
+    /**
+     * Opens the file to read the history it holds
+     *
+     * @throws IOException if the file cannot be read or is not a history file
+     */
+    public static MetricsHistoryFile openForRead(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        String[] names = readHeader(raf);
+        if (names == null) {
+            raf.close();
+            throw new IOException(file + " is not a metrics history file");
+        }
+        return new MetricsHistoryFile(file, raf, names, (int) raf.getFilePointer());
+    }
+
+    private static String[] readHeader(RandomAccessFile raf) throws IOException {
+        if (raf.length() < 12) {
+            return null;
+        }
+        raf.seek(0);
+        if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+            return null;
+        }
+        String[] names = new String[raf.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = raf.readUTF();
+        }
+        return names;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String[] getMetricNames() {
+        return metricNames.clone();
+    }
+
+    /**
+     * Writes the sample of an interval, replacing the sample of the interval or the older sample
+     * held by the slot
+     *
+     * @param tier tier of the sample
+     * @param sample sample, its time is rounded down to the start of its interval
+     */
+    public void write(Tier tier, Sample sample) throws IOException {
+        long time = tier.getIntervalStart(sample.getTime());
+        ByteBuffer buffer = ByteBuffer.allocate(slotSize);
+        buffer.putLong(time);
+        for (float value : sample.getValues()) {
+            buffer.putFloat(value);
+        }
+        buffer.flip();
+        long position = getSlotOffset(tier, time);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Reads the samples of the intervals between the given times
+     *
+     * @param tier tier of the samples
+     * @param start start time, in ms
+     * @param end end time, in ms
+     * @return the samples of the intervals holding a time of [start, end] found in the file,
+     *         oldest first
+     */
+    public List<Sample> read(Tier tier, long start, long end) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        long first = Math.max(tier.getIntervalStart(start), tier.getIntervalStart(end)
+                - (tier.getSlotCount() - 1) * tier.getInterval());
+        if (first > end) {
+            return samples;
+        }
+        int count = (int) ((tier.getIntervalStart(end) - first) / tier.getInterval()) + 1;
+
+        // the whole ring is read at once, it is small enough
+        ByteBuffer ring = ByteBuffer.allocate(tier.getSlotCount() * slotSize);
+        long position = getTierOffset(tier.ordinal());
+        while (ring.hasRemaining()) {
+            int read = channel.read(ring, position + ring.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            long time = first + i * tier.getInterval();
+            int offset = getSlotIndex(tier, time) * slotSize;
+            if (offset + slotSize > ring.position() || ring.getLong(offset) != time) {
+                // no sample for the interval, or a sample of another turn of the ring
+                continue;
+            }
+            float[] values = new float[metricNames.length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = ring.getFloat(offset + 8 + 4 * j);
+            }
+            samples.add(new Sample(time, values));
+        }
+        return samples;
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    private int getSlotIndex(Tier tier, long time) {
+        return (int) ((time / tier.getInterval()) % tier.getSlotCount());
+    }
+
+    private long getSlotOffset(Tier tier, long time) {
+        return getTierOffset(tier.ordinal()) + (long) getSlotIndex(tier, time) * slotSize;
+    }
+
+    private long getTierOffset(int ordinal) {
+        long offset = headerSize;
+        for (int i = 0; i < ordinal; i++) {
+            offset += (long) Tier.values()[i].getSlotCount() * slotSize;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emc.storageos.services.util.MetricsHistoryFile.Sample;
+import com.emc.storageos.services.util.MetricsHistoryFile.Tier;
+
+/**
+ * Samples the metrics of a source at a fixed interval and records their averages per minute and
+ * per hour in a MetricsHistoryFile named after the service.
+ *
+ * The average of the current interval of each tier is rewritten after each sample, so that the
+ * history is up to date. On start, the averages of the current intervals resume from the minutes
+ * already recorded, each counted as a full minute of samples, so that a restart does not overwrite
+ * the average of the current hour with the samples taken since the restart.
+ *
+ * The time spent sampling and recording is measured and recorded as the SAMPLING_COST metric. The
+ * recorder is meant to stay on, so its cost is bounded: when a sample takes more than maxDutyCycle
+ * of the sampling interval, the next sample is delayed accordingly.
+ */
+public class MetricsRecorder {
+    private static final Logger log = LoggerFactory.getLogger(MetricsRecorder.class);
+
+    public static final String DEFAULT_DIRECTORY = "/data/metrics";
+    // system property overriding the directory of the history files of all the services of a node
+    public static final String DIRECTORY_PROPERTY = "metrics.dir";
+    public static final String SAMPLING_COST = "samplingCostMicros";
+
+    private static final int DEFAULT_SAMPLING_INTERVAL = 10;
+    private static final float DEFAULT_MAX_DUTY_CYCLE = 0.01f;
+
+    private String serviceName;
+    private String directory = getConfiguredDirectory();
+    private int samplingInterval = DEFAULT_SAMPLING_INTERVAL;
+    private float maxDutyCycle = DEFAULT_MAX_DUTY_CYCLE;
+    private MetricsSource source;
+
+    private ScheduledExecutorService executor;
+    private MetricsHistoryFile history;
+    private float[] values;
+    private TierAverage[] averages;
+    private long lastCostNanos;
+
+    /**
+     * Running average of the samples of the current interval of a tier
+     */
+    private static class TierAverage {
+        private final Tier tier;
+        private final double[] sums;
+        private final int[] counts;
+        private long intervalStart = -1;
+
+        TierAverage(Tier tier, int metricCount) {
+            this.tier = tier;
+            this.sums = new double[metricCount];
+            this.counts = new int[metricCount];
+        }
+
+        /**
+         * Starts the average of the interval holding the given time from the minutes recorded
+         *
+         * @param time current time
+         * @param minutes averages of the minutes recorded, those before the interval are ignored
+         * @param samplesPerMinute number of samples averaged in a minute
+         */
+        void resume(long time, List<Sample> minutes, int samplesPerMinute) {
+            intervalStart = tier.getIntervalStart(time);
+            for (Sample minute : minutes) {
+                if (minute.getTime() < intervalStart) {
+                    continue;
+                }
+                float[] values = minute.getValues();
+                for (int i = 0; i < values.length; i++) {
+                    if (!Float.isNaN(values[i])) {
+                        sums[i] += (double) values[i] * samplesPerMinute;
+                        counts[i] += samplesPerMinute;
+                    }
+                }
+            }
+        }
+
+        Sample add(long time, float[] values) {
+            if (tier.getIntervalStart(time) != intervalStart) {
+                intervalStart = tier.getIntervalStart(time);
+                Arrays.fill(sums, 0);
+                Arrays.fill(counts, 0);
+            }
+            float[] average = new float[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (!Float.isNaN(values[i])) {
+                    sums[i] += values[i];
+                    counts[i]++;
+                }
+                average[i] = counts[i] == 0 ? Float.NaN : (float) (sums[i] / counts[i]);
+            }
+            return new Sample(intervalStart, average);
+        }
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return directory of the history files, shared by the recorders and the health monitor of a node
+     */
+    public static String getConfiguredDirectory() {
+        return System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * @param samplingInterval time between two samples, in seconds
+     */
+    public void setSamplingInterval(int samplingInterval) {
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * @param maxDutyCycle maximum fraction of the time of a thread spent sampling
+     */
+    public void setMaxDutyCycle(float maxDutyCycle) {
+        this.maxDutyCycle = maxDutyCycle;
+    }
+
+    public void setSource(MetricsSource source) {
+        this.source = source;
+    }
+
+    /**
+     * @return the file holding the history of the metrics of a service
+     */
+    public static File getHistoryFile(String directory, String serviceName) {
+        return new File(directory, serviceName + MetricsHistoryFile.FILE_SUFFIX);
+    }
+
+    public synchronized void start() {
+        try {
+            open(System.currentTimeMillis());
+        } catch (IOException e) {
+            // the service runs without history
+            log.error("Unable to open the metrics history of {}", serviceName, e);
+            return;
+        }
+        final ScheduledExecutorService sampler = new NamedScheduledThreadPoolExecutor("MetricsRecorder", 1);
+        sampler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                long delay = TimeUnit.SECONDS.toNanos(samplingInterval);
+                try {
+                    record(System.currentTimeMillis());
+                } catch (Exception e) {
+                    log.warn("Failed to record the metrics of {}", serviceName, e);
+                } finally {
+                    delay = Math.max(delay, (long) (lastCostNanos / maxDutyCycle));
+                    if (!sampler.isShutdown()) {
+                        sampler.schedule(this, delay, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+        }, 0, TimeUnit.SECONDS);
+        executor = sampler;
+        log.info("Recording the metrics of {} every {}s in {}", serviceName, samplingInterval, history.getFile());
+    }
+
+    public synchronized void stop() {
+        if (history == null) {
+            return;
+        }
+        try {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor.awaitTermination(samplingInterval, TimeUnit.SECONDS);
+            }
+            history.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to close the metrics history of {}", serviceName, e);
+        }
+        executor = null;
+        history = null;
+    }
+
+    /**
+     * Opens the history, and resumes the averages of the current intervals from the minutes it holds
+     *
+     * @param now current time
+     */
+    void open(long now) throws IOException {
+        String[] sourceNames = source.getMetricNames();
+        String[] names = Arrays.copyOf(sourceNames, sourceNames.length + 1);
+        names[sourceNames.length] = SAMPLING_COST;
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create " + dir);
+        }
+        history = MetricsHistoryFile.openForWrite(getHistoryFile(directory, serviceName), names);
+
+        values = new float[names.length];
+        averages = new TierAverage[Tier.values().length];
+        // the minutes of the longest interval, those of the shorter ones are part of it
+        List<Sample> minutes = history.read(Tier.MINUTE, Tier.HOUR.getIntervalStart(now), now);
+        int samplesPerMinute = Math.max(1, (int) (TimeUnit.MINUTES.toSeconds(1) / samplingInterval));
+        for (Tier tier : Tier.values()) {
+            averages[tier.ordinal()] = new TierAverage(tier, names.length);
+            averages[tier.ordinal()].resume(now, minutes, samplesPerMinute);
+        }
+    }
+
+    /**
+     * Samples the source, and records the sample in the averages of the current intervals
+     *
+     * @param now current time
+     */
+    void record(long now) throws Exception {
+        long start = System.nanoTime();
+        Arrays.fill(values, Float.NaN);
+        try {
+            source.sample(values);
+        } finally {
+            // the cost of a sample is recorded with the next one
+            values[values.length - 1] = lastCostNanos == 0 ? Float.NaN : TimeUnit.NANOSECONDS.toMicros(lastCostNanos);
+            for (TierAverage average : averages) {
+                history.write(average.tier, average.add(now, values));
+            }
+            lastCostNanos = System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.util;
+
+/**
+ * Source of the metrics sampled by a MetricsRecorder
+ */
+public interface MetricsSource {
+
+    /**
+     * @return names of the metrics, in the order of the values of the samples
+     */
+    String[] getMetricNames();
+
+    /**
+     * Samples the metrics. Called from a single thread at each sampling interval, a source may
+     * thus keep the counters of the previous call to compute rates.
+     *
+     * @param values values of the metrics to fill, NaN for a metric that could not be sampled
+     */
+    void sample(float[] values) throws Exception;
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the DB, ZooKeeper and inter-service calls made while serving one request.
+ *
+ * A request cost is bound to the thread serving the request, between begin() and end(). The DB
+ * client, the coordinator client and the internal service clients add their calls to the cost of
+ * the current thread, if any. Tasks run by other threads on behalf of the request add to its cost
+ * when they are wrapped by propagate().
+ */
+public class RequestCost {
+
+    private static final ThreadLocal<RequestCost> current = new ThreadLocal<RequestCost>();
+
+    private long dbReads;
+    private long dbReadRows;
+    private long dbReadBytes;
+    private long dbReadNanos;
+    private long dbWrites;
+    private long dbWriteRows;
+    private long dbWriteNanos;
+    private long coordinatorOps;
+    private long coordinatorNanos;
+    private long serviceCalls;
+    private long serviceCallNanos;
+
+    /**
+     * Starts counting the calls of this thread
+     *
+     * @return the cost of the request
+     */
+    public static RequestCost begin() {
+        RequestCost cost = new RequestCost();
+        current.set(cost);
+        return cost;
+    }
+
+    /**
+     * Stops counting the calls of this thread
+     *
+     * @return the cost of the request, null if begin() was not called
+     */
+    public static RequestCost end() {
+        RequestCost cost = current.get();
+        current.remove();
+        return cost;
+    }
+
+    /**
+     * @return the cost of the request served by this thread, null if none
+     */
+    public static RequestCost current() {
+        return current.get();
+    }
+
+    /**
+     * Wraps a task to run on another thread on behalf of the request served by this thread, so
+     * that the calls of the task add to the cost of the request
+     *
+     * @param task the task
+     * @return the wrapped task, or the task itself if this thread serves no request
+     */
+    public static <V> Callable<V> propagate(final Callable<V> task) {
+        final RequestCost cost = current.get();
+        if (cost == null) {
+            return task;
+        }
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                RequestCost previous = current.get();
+                current.set(cost);
+                try {
+                    return task.call();
+                } finally {
+                    if (previous == null) {
+                        current.remove();
+                    } else {
+                        current.set(previous);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * @param nanos latency of the DB read operation
+     */
+    public synchronized void addDbRead(long nanos) {
+        dbReads++;
+        dbReadNanos += nanos;
+    }
+
+    /**
+     * @param rows rows returned by a DB query, -1 if unknown
+     * @param bytes bytes returned by a DB query, -1 if unknown
+     */
+    public synchronized void addDbReadRows(long rows, long bytes) {
+        dbReadRows += Math.max(rows, 0);
+        dbReadBytes += Math.max(bytes, 0);
+    }
+
+    /**
+     * @param nanos latency of the DB write operation
+     */
+    public synchronized void addDbWrite(long nanos) {
+        dbWrites++;
+        dbWriteNanos += nanos;
+    }
+
+    /**
+     * @param rows rows written by a DB update, -1 if unknown
+     */
+    public synchronized void addDbWriteRows(long rows) {
+        dbWriteRows += Math.max(rows, 0);
+    }
+
+    /**
+     * @param nanos latency of the ZooKeeper operation
+     */
+    public synchronized void addCoordinatorOp(long nanos) {
+        coordinatorOps++;
+        coordinatorNanos += nanos;
+    }
+
+    /**
+     * @param nanos latency of the call to another service
+     */
+    public synchronized void addServiceCall(long nanos) {
+        serviceCalls++;
+        serviceCallNanos += nanos;
+    }
+
+    public synchronized long getDbReads() {
+        return dbReads;
+    }
+
+    public synchronized long getDbReadRows() {
+        return dbReadRows;
+    }
+
+    public synchronized long getDbReadBytes() {
+        return dbReadBytes;
+    }
+
+    public synchronized long getDbReadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(dbReadNanos);
+    }
+
+    public synchronized long getDbWrites() {
+        return dbWrites;
+    }
+
+    public synchronized long getDbWriteRows() {
+        return dbWriteRows;
+    }
+
+    public synchronized long getDbWriteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(dbWriteNanos);
+    }
+
+    public synchronized long getCoordinatorOps() {
+        return coordinatorOps;
+    }
+
+    public synchronized long getCoordinatorMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(coordinatorNanos);
+    }
+
+    public synchronized long getServiceCalls() {
+        return serviceCalls;
+    }
+
+    public synchronized long getServiceCallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(serviceCallNanos);
+    }
+
+    /**
+     * @return the cost as a list of name=value pairs, as returned in the request cost header
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("db-reads=%d; db-read-rows=%d; db-read-bytes=%d; db-read-ms=%d; "
+                + "db-writes=%d; db-write-rows=%d; db-write-ms=%d; zk-ops=%d; zk-ms=%d; service-calls=%d; service-call-ms=%d",
+                dbReads, dbReadRows, dbReadBytes, getDbReadMillis(), dbWrites, dbWriteRows, getDbWriteMillis(),
+                coordinatorOps, getCoordinatorMillis(), serviceCalls, getServiceCallMillis());
+    }
+}
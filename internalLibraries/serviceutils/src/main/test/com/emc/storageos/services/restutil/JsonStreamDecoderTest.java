@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+
+package com.emc.storageos.services.restutil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+public class JsonStreamDecoderTest {
+
+    static class Export {
+        int id;
+        String path;
+        String comment;
+    }
+
+    static class Child {
+        String name;
+        String type;
+    }
+
+    @Test
+    public void testReadListWithResumeToken() {
+        StringBuilder json = new StringBuilder("{\"exports\": [");
+        for (int i = 0; i < 500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\": ").append(i).append(", \"path\": \"/ifs/data/fs").append(i)
+                    .append("\", \"comment\": \"a <b> & \\\"c\\\"\", \"clients\": [\"10.0.0.1\"], \"map_root\": {\"user\": \"nobody\"}}");
+        }
+        json.append("], \"total\": null, \"resume\": \"token-1\"}");
+
+        Map<String, String> topLevelValues = new HashMap<String, String>();
+        List<Export> exports = JsonStreamDecoder.readElements(json.toString(), Export.class, topLevelValues, "exports");
+        Assert.assertEquals(500, exports.size());
+        Assert.assertEquals(499, exports.get(499).id);
+        Assert.assertEquals("/ifs/data/fs7", exports.get(7).path);
+        // string values are decoded as is
+        Assert.assertEquals("a <b> & \"c\"", exports.get(0).comment);
+        Assert.assertEquals("token-1", topLevelValues.get("resume"));
+        Assert.assertEquals("null", topLevelValues.get("total"));
+        Assert.assertFalse(topLevelValues.containsKey("exports"));
+    }
+
+    @Test
+    public void testReadNestedLists() {
+        String json = "{\"response\": {\"context\": ["
+                + "{\"parent\": \"/clusters/cluster-1\", \"children\": [{\"name\": \"vv1\", \"type\": \"virtual-volume\"},"
+                + " {\"name\": \"vv2\", \"type\": \"virtual-volume\"}]},"
+                + "{\"parent\": \"/clusters/cluster-2\", \"children\": []},"
+                + "{\"parent\": \"/clusters/cluster-3\", \"children\": [{\"name\": \"vv3\", \"type\": \"virtual-volume\"}]}"
+                + "], \"message\": null}}";
+
+        List<Child> children = JsonStreamDecoder.readElements(json, Child.class, null, "response", "context", "children");
+        Assert.assertEquals(3, children.size());
+        Assert.assertEquals("vv3", children.get(2).name);
+
+        List<JsonElement> contexts = JsonStreamDecoder.readElements(json, JsonElement.class, null, "response", "context");
+        Assert.assertEquals(3, contexts.size());
+        Assert.assertEquals("/clusters/cluster-2", contexts.get(1).getAsJsonObject().get("parent").getAsString());
+    }
+
+    @Test
+    public void testMalformedResponseIsSanitized() {
+        // missing closing brackets
+        List<Export> exports = JsonStreamDecoder.readElements("{\"exports\": [{\"id\": 1, \"path\": \"/ifs/a\"}", Export.class, null,
+                "exports");
+        Assert.assertEquals(1, exports.size());
+        Assert.assertEquals("/ifs/a", exports.get(0).path);
+
+        Export export = JsonStreamDecoder.fromJson("{\"id\": 2, \"path\": \"/ifs/b\"", Export.class);
+        Assert.assertEquals(2, export.id);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testMissingPath() {
+        JsonStreamDecoder.readElements("{\"quotas\": []}", Export.class, null, "exports");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.util;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.services.util.MetricsHistoryFile.Sample;
+import com.emc.storageos.services.util.MetricsHistoryFile.Tier;
+
+public class MetricsHistoryFileTest {
+    private static final String[] NAMES = { "a", "b" };
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("test", MetricsHistoryFile.FILE_SUFFIX);
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        long start = Tier.MINUTE.getIntervalStart(System.currentTimeMillis());
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForWrite(file, NAMES)) {
+            for (int i = 0; i < 10; i++) {
+                history.write(Tier.MINUTE, new Sample(start + i * Tier.MINUTE.getInterval() + 1, new float[] { i, -i }));
+            }
+        }
+        long size = file.length();
+
+        // the file is reopened with its history and does not grow
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForWrite(file, NAMES)) {
+            history.write(Tier.MINUTE, new Sample(start + 10 * Tier.MINUTE.getInterval(), new float[] { 10, -10 }));
+        }
+        Assert.assertEquals(size, file.length());
+
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForRead(file)) {
+            Assert.assertArrayEquals(NAMES, history.getMetricNames());
+            List<Sample> samples = history.read(Tier.MINUTE, start + Tier.MINUTE.getInterval(),
+                    start + 10 * Tier.MINUTE.getInterval());
+            Assert.assertEquals(10, samples.size());
+            for (int i = 0; i < samples.size(); i++) {
+                Assert.assertEquals(start + (i + 1) * Tier.MINUTE.getInterval(), samples.get(i).getTime());
+                Assert.assertEquals(i + 1, samples.get(i).getValues()[0], 0);
+                Assert.assertEquals(-i - 1, samples.get(i).getValues()[1], 0);
+            }
+            Assert.assertTrue(history.read(Tier.HOUR, start, start + 10 * Tier.MINUTE.getInterval()).isEmpty());
+        }
+    }
+
+    @Test
+    public void testWrapAround() throws Exception {
+        long start = Tier.HOUR.getIntervalStart(System.currentTimeMillis());
+        long wrap = Tier.HOUR.getSlotCount() * Tier.HOUR.getInterval();
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForWrite(file, NAMES)) {
+            history.write(Tier.HOUR, new Sample(start, new float[] { 1, 1 }));
+            history.write(Tier.HOUR, new Sample(start + wrap, new float[] { 2, 2 }));
+
+            // the older sample was overwritten by the newer one
+            Assert.assertTrue(history.read(Tier.HOUR, start, start).isEmpty());
+            List<Sample> samples = history.read(Tier.HOUR, start, start + wrap);
+            Assert.assertEquals(1, samples.size());
+            Assert.assertEquals(start + wrap, samples.get(0).getTime());
+            Assert.assertEquals(2, samples.get(0).getValues()[0], 0);
+        }
+    }
+
+    @Test
+    public void testOtherMetrics() throws Exception {
+        long start = Tier.MINUTE.getIntervalStart(System.currentTimeMillis());
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForWrite(file, NAMES)) {
+            history.write(Tier.MINUTE, new Sample(start, new float[] { 1, 1 }));
+        }
+
+        // the history of other metrics is dropped
+        String[] names = { "a", "b", "c" };
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForWrite(file, names)) {
+            Assert.assertArrayEquals(names, history.getMetricNames());
+            Assert.assertTrue(history.read(Tier.MINUTE, start, start).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.services.util;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emc.storageos.services.util.MetricsHistoryFile.Sample;
+import com.emc.storageos.services.util.MetricsHistoryFile.Tier;
+
+/**
+ * Records samples of a constant source, restarting the recorder in the middle of an hour, and
+ * checks the averages recorded for the minutes and the hour.
+ */
+public class MetricsRecorderTest {
+    private static final String SERVICE_NAME = "testsvc";
+    private static final int SAMPLING_INTERVAL = 10;
+    private static final long HOUR = Tier.HOUR.getIntervalStart(System.currentTimeMillis()) - Tier.HOUR.getInterval();
+
+    private File directory;
+    private float value;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("metrics", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        MetricsRecorder.getHistoryFile(directory.getPath(), SERVICE_NAME).delete();
+        directory.delete();
+    }
+
+    @Test
+    public void testRestart() throws Exception {
+        // two minutes sampled at 10, then the service restarts
+        MetricsRecorder recorder = createRecorder(HOUR);
+        value = 10;
+        for (int i = 0; i < 12; i++) {
+            recorder.record(HOUR + i * TimeUnit.SECONDS.toMillis(SAMPLING_INTERVAL));
+        }
+        recorder.stop();
+        Assert.assertEquals(10, readHour(), 0.001);
+
+        // a minute sampled at 40 after the restart, the hour averages the three minutes
+        recorder = createRecorder(HOUR + TimeUnit.MINUTES.toMillis(5));
+        value = 40;
+        for (int i = 0; i < 6; i++) {
+            recorder.record(HOUR + TimeUnit.MINUTES.toMillis(5) + i * TimeUnit.SECONDS.toMillis(SAMPLING_INTERVAL));
+        }
+        recorder.stop();
+        Assert.assertEquals(20, readHour(), 0.001);
+        Assert.assertEquals(40, readMinute(HOUR + TimeUnit.MINUTES.toMillis(5)), 0.001);
+    }
+
+    @Test
+    public void testNextHour() throws Exception {
+        MetricsRecorder recorder = createRecorder(HOUR);
+        value = 10;
+        recorder.record(HOUR);
+        recorder.stop();
+
+        // the minutes of the previous hour are not part of the next one
+        recorder = createRecorder(HOUR + Tier.HOUR.getInterval());
+        value = 30;
+        recorder.record(HOUR + Tier.HOUR.getInterval());
+        recorder.stop();
+        Assert.assertEquals(10, readHour(), 0.001);
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForRead(
+                MetricsRecorder.getHistoryFile(directory.getPath(), SERVICE_NAME))) {
+            List<Sample> hours = history.read(Tier.HOUR, HOUR + Tier.HOUR.getInterval(), HOUR + Tier.HOUR.getInterval());
+            Assert.assertEquals(30, hours.get(0).getValues()[0], 0.001);
+        }
+    }
+
+    private MetricsRecorder createRecorder(long now) throws Exception {
+        MetricsRecorder recorder = new MetricsRecorder();
+        recorder.setServiceName(SERVICE_NAME);
+        recorder.setDirectory(directory.getPath());
+        recorder.setSamplingInterval(SAMPLING_INTERVAL);
+        recorder.setSource(new MetricsSource() {
+            @Override
+            public String[] getMetricNames() {
+                return new String[] { "value" };
+            }
+
+            @Override
+            public void sample(float[] values) {
+                values[0] = value;
+            }
+        });
+        recorder.open(now);
+        return recorder;
+    }
+
+    private float readHour() throws Exception {
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForRead(
+                MetricsRecorder.getHistoryFile(directory.getPath(), SERVICE_NAME))) {
+            List<Sample> hours = history.read(Tier.HOUR, HOUR, HOUR);
+            Assert.assertEquals(1, hours.size());
+            return hours.get(0).getValues()[0];
+        }
+    }
+
+    private float readMinute(long time) throws Exception {
+        try (MetricsHistoryFile history = MetricsHistoryFile.openForRead(
+                MetricsRecorder.getHistoryFile(directory.getPath(), SERVICE_NAME))) {
+            return history.read(Tier.MINUTE, time, time).get(0).getValues()[0];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.storagedriver;
+
+import java.util.List;
+
+import com.emc.storageos.storagedriver.model.StorageSystem;
+import com.emc.storageos.storagedriver.model.StorageVolume;
+
+/**
+ * Optional extension of BlockStorageDriver for arrays with large number of volumes.
+ *
+ * With BlockStorageDriver.getStorageVolumes(StorageSystem, List, MutableInt) the next page can only be requested
+ * after the previous one was returned. Drivers which can address volume pages directly (by page number) should
+ * implement this interface; client will then request up to getMaxParallelVolumePages() pages concurrently and
+ * persist each page as soon as it is processed, without waiting for the rest of the array.
+ *
+ * Pages have to be independent: the result of one page cannot depend on whether other pages were requested before,
+ * and the same page may be requested from different threads at the same time as other pages.
+ * Together, pages 0..getStorageVolumePageCount()-1 have to return the same set of volumes as the paging
+ * through getStorageVolumes(StorageSystem, List, MutableInt).
+ *
+ * Client falls back to the sequential getStorageVolumes(StorageSystem, List, MutableInt) when
+ * getMaxParallelVolumePages() returns value less than 2.
+ */
+public interface PagedVolumeDiscoveryDriver extends BlockStorageDriver {
+
+    /**
+     * Get number of volume pages on storage system.
+     *
+     * @param storageSystem Type: Input.
+     * @return number of pages, client requests pages 0..count-1
+     */
+    public int getStorageVolumePageCount(StorageSystem storageSystem);
+
+    /**
+     * Get maximum number of volume pages the driver allows to request at the same time for the storage system.
+     *
+     * @param storageSystem Type: Input.
+     * @return max number of concurrent page requests
+     */
+    public int getMaxParallelVolumePages(StorageSystem storageSystem);
+
+    /**
+     * Discover storage volumes on a given page.
+     * This method is called concurrently for different pages of the same storage system.
+     *
+     * @param storageSystem  Type: Input.
+     * @param page page number, starting from 0. Type: Input.
+     * @param storageVolumes Type: Output.
+     * @return driver task
+     */
+    public DriverTask getStorageVolumes(StorageSystem storageSystem, int page, List<StorageVolume> storageVolumes);
+}
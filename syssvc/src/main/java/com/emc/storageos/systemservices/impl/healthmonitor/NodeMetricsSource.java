@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.storageos.systemservices.impl.healthmonitor;
+
+import java.util.Map;
+
+import com.emc.storageos.services.util.MetricsSource;
+import com.emc.storageos.systemservices.impl.healthmonitor.models.CPUStats;
+import com.emc.vipr.model.sys.healthmonitor.DiskStats;
+import com.emc.vipr.model.sys.healthmonitor.ProcModels.LoadAvgStats;
+import com.emc.vipr.model.sys.healthmonitor.ProcModels.MemoryStats;
+
+/**
+ * Metrics of the node, read from /proc. CPU and disk rates are computed over the time since the
+ * previous sample, disk metrics are the totals of the disks reported by ProcStats.
+ */
+public class NodeMetricsSource implements MetricsSource {
+    public static final String SERVICE_NAME = "node";
+
+    private static final int SECTOR_KB = 2;
+
+    private static final String[] METRIC_NAMES = { "cpuUserPercent", "cpuSystemPercent", "cpuIowaitPercent",
+            "memUsedMB", "memCachedMB", "loadAvg1", "diskReadsPerSec", "diskWritesPerSec", "diskReadKBPerSec",
+            "diskWriteKBPerSec" };
+
+    private long lastTime;
+    private CPUStats lastCpuStats;
+    private long[] lastDiskCounters;
+
+    @Override
+    public String[] getMetricNames() {
+        return METRIC_NAMES.clone();
+    }
+
+    @Override
+    public void sample(float[] values) throws Exception {
+        long now = System.nanoTime();
+        float elapsedSeconds = (now - lastTime) / 1e9f;
+
+        CPUStats cpuStats = ProcStats.getCPUStats();
+        if (lastCpuStats != null) {
+            float user = cpuStats.getUserMode().minus(lastCpuStats.getUserMode()).floatValue();
+            float system = cpuStats.getSystemMode().minus(lastCpuStats.getSystemMode()).floatValue();
+            float idle = cpuStats.getIdle().minus(lastCpuStats.getIdle()).floatValue();
+            float iowait = cpuStats.getIowait().minus(lastCpuStats.getIowait()).floatValue();
+            float total = user + system + idle + iowait;
+            if (total > 0) {
+                values[0] = user * 100 / total;
+                values[1] = system * 100 / total;
+                values[2] = iowait * 100 / total;
+            }
+        }
+        lastCpuStats = cpuStats;
+
+        MemoryStats memoryStats = ProcStats.getMemoryStats();
+        if (memoryStats != null) {
+            values[3] = (memoryStats.getMemTotal() - memoryStats.getMemFree() - memoryStats.getMemBuffers()
+                    - memoryStats.getMemCached()) / 1024f;
+            values[4] = memoryStats.getMemCached() / 1024f;
+        }
+
+        LoadAvgStats loadAvgStats = ProcStats.getLoadAvgStats();
+        if (loadAvgStats != null) {
+            values[5] = (float) loadAvgStats.getLoadAvgTasksPastMinute();
+        }
+
+        long[] diskCounters = new long[4];
+        for (Map.Entry<String, DiskStats> entry : ProcStats.getDiskStats().entrySet()) {
+            DiskStats diskStats = entry.getValue();
+            diskCounters[0] += diskStats.getNumberOfReads();
+            diskCounters[1] += diskStats.getNumberOfWrites();
+            diskCounters[2] += diskStats.getSectorsRead();
+            diskCounters[3] += diskStats.getSectorsWrite();
+        }
+        if (lastDiskCounters != null) {
+            values[6] = (diskCounters[0] - lastDiskCounters[0]) / elapsedSeconds;
+            values[7] = (diskCounters[1] - lastDiskCounters[1]) / elapsedSeconds;
+            values[8] = (diskCounters[2] - lastDiskCounters[2]) / (float) SECTOR_KB / elapsedSeconds;
+            values[9] = (diskCounters[3] - lastDiskCounters[3]) / (float) SECTOR_KB / elapsedSeconds;
+        }
+        lastDiskCounters = diskCounters;
+        lastTime = now;
+    }
+}
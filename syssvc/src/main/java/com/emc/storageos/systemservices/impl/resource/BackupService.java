@@ -13,13 +13,14 @@ import java.io.PipedOutputStream;
 import java.io.PipedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.zip.Deflater;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import java.net.URI;
 
 import javax.ws.rs.Path;
@@ -31,6 +32,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.core.*;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +60,8 @@ import com.emc.storageos.svcs.errorhandling.resources.APIException;
 import com.emc.storageos.management.backup.*;
 import com.emc.storageos.management.backup.util.BackupClient;
 import com.emc.storageos.management.backup.util.CifsClient;
+import com.emc.storageos.management.backup.util.ParallelZipOutputStream;
+import com.emc.storageos.management.backup.util.ThroughputMeter;
 import com.emc.storageos.services.util.TimeUtils;
 import com.emc.vipr.model.sys.backup.*;
 
@@ -833,9 +837,6 @@ public class BackupService {
     }
 
     public void collectData(BackupFileSet files, OutputStream outStream) throws IOException {
-        ZipOutputStream zos = new ZipOutputStream(outStream);
-        zos.setLevel(Deflater.BEST_SPEED);
-
         List<String> uniqueNodes = new ArrayList<String>();
         uniqueNodes.addAll(files.uniqueNodes());
         List<NodeInfo> nodes = ClusterNodesUtil.getClusterNodeInfo(uniqueNodes);
@@ -844,6 +845,10 @@ public class BackupService {
             return;
         }
 
+        if (nodes.isEmpty()) {
+            throw new FileNotFoundException("No backup files to collect");
+        }
+
         Collections.sort(nodes, new Comparator<NodeInfo>() {
             @Override
             public int compare(NodeInfo o1, NodeInfo o2) {
@@ -851,11 +856,28 @@ public class BackupService {
             }
         });
 
+        int cores = Runtime.getRuntime().availableProcessors();
+        NamedThreadPoolExecutor compressor = new NamedThreadPoolExecutor("BackupCompressor", cores);
+        NamedThreadPoolExecutor fetcherPool = new NamedThreadPoolExecutor("BackupNodeFetcher", nodes.size());
+        try {
+            ParallelZipOutputStream zos = new ParallelZipOutputStream(outStream, Deflater.BEST_SPEED, compressor, cores);
+            collectData(files, nodes, zos, fetcherPool);
+        } finally {
+            fetcherPool.shutdownNow();
+            compressor.shutdownNow();
+        }
+    }
+
+    private void collectData(BackupFileSet files, List<NodeInfo> nodes, ParallelZipOutputStream zos,
+            NamedThreadPoolExecutor fetcherPool) throws IOException {
         URI postUri = SysClientFactory.URI_NODE_BACKUPS_DOWNLOAD;
         boolean propertiesFileFound = false;
         int collectFileCount = 0;
         int totalFileCount = files.size() * 2;
         String backupTag = files.first().tag;
+        // Entries get the time of the backup rather than of the download, so the same backup set
+        // always gives the same ZIP package
+        long entryTime = files.first().info.getCreateTime();
 
         //upload *_info.properties file first
         for (final NodeInfo node : nodes) {
@@ -867,7 +889,7 @@ public class BackupService {
                 String fileName = backupTag + BackupConstants.BACKUP_INFO_SUFFIX;
                 String fullFileName = backupTag + File.separator + fileName;
                 InputStream in = sysClient.post(postUri, InputStream.class, fullFileName);
-                newZipEntry(zos, in, fileName);
+                newZipEntry(zos, in, fileName, entryTime);
                 propertiesFileFound = true;
                 break;
             } catch (Exception ex) {
@@ -880,26 +902,112 @@ public class BackupService {
                     backupTag, BackupConstants.BACKUP_INFO_SUFFIX));
         }
 
+        // Start pulling from all nodes at once, each node is only allowed to run a bounded number
+        // of chunks ahead of the ZIP writer so nothing is staged on disk.
+        List<NodeFileFetcher> fetchers = new ArrayList<>();
         for (final NodeInfo node : nodes) {
-            String baseNodeURL = String.format(SysClientFactory.BASE_URL_FORMAT,
-                    node.getIpAddress(), node.getPort());
-            SysClientFactory.SysClient sysClient = SysClientFactory.getSysClient(
-                    URI.create(baseNodeURL));
-            for (String fileName : getFileNameList(files.subsetOf(null, null, node.getId()))) {
+            NodeFileFetcher fetcher = new NodeFileFetcher(node, backupTag,
+                    getFileNameList(files.subsetOf(null, null, node.getId())));
+            fetcherPool.submit(fetcher);
+            fetchers.add(fetcher);
+        }
+
+        for (NodeFileFetcher fetcher : fetchers) {
+            for (String fileName : fetcher.fileNames) {
                 int progress = collectFileCount / totalFileCount * 100;
                 backupScheduler.getUploadExecutor().setUploadStatus(null, Status.IN_PROGRESS, progress, null);
 
-                String fullFileName = backupTag + File.separator + fileName;
-                InputStream in = sysClient.post(postUri, InputStream.class, fullFileName);
-                newZipEntry(zos, in, fileName);
+                zos.putNextEntry(fileName, entryTime);
+                log.info("zip entry: {}", fileName);
+                byte[] chunk;
+                while ((chunk = fetcher.take()) != NodeFileFetcher.END_OF_FILE) {
+                    zos.write(chunk, 0, chunk.length);
+                }
+                zos.closeEntry();
                 collectFileCount++;
             }
+            log.info("Collected backup files from node {}, {}", fetcher.node.getId(), fetcher.meter);
         }
 
         // We only close ZIP stream when everything is OK, or the package will be extractable but missing files.
         zos.close();
 
-        log.info("Successfully generated ZIP package");
+        log.info("Successfully generated ZIP package, {}, {}", zos.getCompressMeter(), zos.getWriteMeter());
+    }
+
+    /**
+     * Streams the backup files of one node into a bounded queue of chunks, in the order
+     * they are going to be added to the ZIP package. The fetcher blocks when the queue is
+     * full, so a node which is ahead of the ZIP writer waits for it rather than buffering.
+     */
+    private static class NodeFileFetcher implements Runnable {
+        private static final int CHUNK_SIZE = 256 * 1024;
+        // Bounds the memory used for each node to 2MB
+        private static final int MAX_QUEUED_CHUNKS = 8;
+        private static final byte[] END_OF_FILE = new byte[0];
+        private static final byte[] FAILED = new byte[0];
+
+        private final NodeInfo node;
+        private final String backupTag;
+        private final List<String> fileNames;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(MAX_QUEUED_CHUNKS);
+        private final ThroughputMeter meter = new ThroughputMeter("fetch");
+        private volatile Exception error;
+
+        private NodeFileFetcher(NodeInfo node, String backupTag, List<String> fileNames) {
+            this.node = node;
+            this.backupTag = backupTag;
+            this.fileNames = fileNames;
+        }
+
+        @Override
+        public void run() {
+            String baseNodeURL = String.format(SysClientFactory.BASE_URL_FORMAT,
+                    node.getIpAddress(), node.getPort());
+            SysClientFactory.SysClient sysClient = SysClientFactory.getSysClient(
+                    URI.create(baseNodeURL));
+            try {
+                for (String fileName : fileNames) {
+                    String fullFileName = backupTag + File.separator + fileName;
+                    try (InputStream in = sysClient.post(SysClientFactory.URI_NODE_BACKUPS_DOWNLOAD,
+                            InputStream.class, fullFileName)) {
+                        byte[] buffer = new byte[CHUNK_SIZE];
+                        long start = System.nanoTime();
+                        int length;
+                        while ((length = IOUtils.read(in, buffer)) > 0) {
+                            meter.record(length, System.nanoTime() - start);
+                            chunks.put(Arrays.copyOf(buffer, length));
+                            start = System.nanoTime();
+                        }
+                    }
+                    chunks.put(END_OF_FILE);
+                }
+            } catch (InterruptedException e) {
+                log.info("Stopped fetching backup files from node {}", node.getId());
+            } catch (Exception e) {
+                log.error("Failed to fetch backup files from node {}", node.getId(), e);
+                error = e;
+                try {
+                    chunks.put(FAILED);
+                } catch (InterruptedException ie) {
+                    log.info("Stopped fetching backup files from node {}", node.getId());
+                }
+            }
+        }
+
+        private byte[] take() throws IOException {
+            byte[] chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while collecting backup files from node " + node.getId());
+            }
+            if (chunk == FAILED) {
+                throw new IOException("Failed to collect backup files from node " + node.getId(), error);
+            }
+            return chunk;
+        }
     }
 
     private List<String> getFileNameList(BackupFileSet files) {
@@ -924,8 +1032,8 @@ public class BackupService {
         return nameList;
     }
 
-    private void newZipEntry(ZipOutputStream zos, InputStream in, String name) throws IOException {
-        zos.putNextEntry(new ZipEntry(name));
+    private void newZipEntry(ParallelZipOutputStream zos, InputStream in, String name, long time) throws IOException {
+        zos.putNextEntry(name, time);
         log.info("zip entry: {}", name);
         int length = 0;
         byte[] buffer = new byte[102400];
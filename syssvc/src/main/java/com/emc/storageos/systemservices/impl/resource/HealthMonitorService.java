@@ -10,11 +10,18 @@ import javax.ws.rs.core.MediaType;
 
 import com.emc.storageos.coordinator.client.service.CoordinatorClient.LicenseType;
 import com.emc.storageos.coordinator.client.service.impl.DualInetAddress;
+import com.emc.storageos.db.client.impl.DbQueryTracer;
+import com.emc.storageos.management.jmx.dbquery.DbQueryTracerOps;
+import com.emc.storageos.management.jmx.requestcost.RequestCostTrackerOps;
 import com.emc.storageos.model.vpool.ManagedResourcesCapacity;
 import com.emc.storageos.model.vpool.ManagedResourcesCapacity.ManagedResourceCapacity;
 import com.emc.storageos.security.authorization.CheckPermission;
 import com.emc.storageos.security.authorization.Role;
 import com.emc.storageos.services.ServicesMetadata;
+import com.emc.storageos.services.util.MetricsHistoryFile;
+import com.emc.storageos.services.util.MetricsHistoryFile.Tier;
+import com.emc.storageos.services.util.MetricsRecorder;
+import com.emc.storageos.services.util.TimeUtils;
 import com.emc.storageos.svcs.errorhandling.resources.APIException;
 import com.emc.storageos.systemservices.impl.healthmonitor.*;
 import com.emc.storageos.systemservices.impl.healthmonitor.models.*;
@@ -25,16 +32,26 @@ import com.emc.storageos.systemservices.impl.resource.util.NodeInfo;
 import com.emc.storageos.systemservices.impl.upgrade.CoordinatorClientExt;
 import com.emc.storageos.systemservices.impl.resource.util.NodeDataCollector.Action;
 import com.emc.vipr.model.sys.healthmonitor.DataDiskStats;
+import com.emc.vipr.model.sys.healthmonitor.DbQueryStat;
+import com.emc.vipr.model.sys.healthmonitor.DbQueryStatsRestRep;
 import com.emc.vipr.model.sys.healthmonitor.DiagRequestParams;
 import com.emc.vipr.model.sys.healthmonitor.DiagnosticsRestRep;
 import com.emc.vipr.model.sys.healthmonitor.DiagTest;
 import com.emc.vipr.model.sys.healthmonitor.HealthRestRep;
+import com.emc.vipr.model.sys.healthmonitor.MetricPoint;
+import com.emc.vipr.model.sys.healthmonitor.MetricSeries;
+import com.emc.vipr.model.sys.healthmonitor.MetricsRestRep;
+import com.emc.vipr.model.sys.healthmonitor.NodeDbQueryStats;
 import com.emc.vipr.model.sys.healthmonitor.NodeDiagnostics;
 import com.emc.vipr.model.sys.healthmonitor.NodeHardwareInfo.NodeHardwareInfoType;
 import com.emc.vipr.model.sys.healthmonitor.NodeHardwareInfoRestRep;
 import com.emc.vipr.model.sys.healthmonitor.NodeHealth;
+import com.emc.vipr.model.sys.healthmonitor.NodeMetrics;
+import com.emc.vipr.model.sys.healthmonitor.NodeRequestCostStats;
 import com.emc.vipr.model.sys.healthmonitor.NodeStats;
+import com.emc.vipr.model.sys.healthmonitor.RequestCostStatsRestRep;
 import com.emc.vipr.model.sys.healthmonitor.RequestParams;
+import com.emc.vipr.model.sys.healthmonitor.ServiceMetrics;
 import com.emc.vipr.model.sys.healthmonitor.ServiceHealth;
 import com.emc.vipr.model.sys.healthmonitor.StatsRestRep;
 import com.emc.vipr.model.sys.healthmonitor.StorageStats;
@@ -45,7 +62,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.util.*;
 
 /**
@@ -72,6 +93,14 @@ public class HealthMonitorService extends BaseLogSvcResource {
             "/monitor/internal/node-health";
     private static final String INTERNAL_NODE_DIAGNOSTICS_URI =
             "/monitor/internal/node-diagnostics";
+    private static final String INTERNAL_NODE_DB_QUERIES_URI =
+            "/monitor/internal/node-db-queries?top=%d";
+    private static final int DEFAULT_TOP_DB_QUERIES = 20;
+    private static final String INTERNAL_NODE_REQUEST_COSTS_URI =
+            "/monitor/internal/node-request-costs";
+    private static final String INTERNAL_NODE_METRICS_URI =
+            "/monitor/internal/node-metrics?tier=%s&start=%d&end=%d";
+    private static final int DEFAULT_METRICS_INTERVALS = 60;
 
     /**
      * Internal method to get node statistics
@@ -287,6 +316,325 @@ public class HealthMonitorService extends BaseLogSvcResource {
                         ? DiagConstants.VERBOSE : ""));
     }
 
+    /**
+     * Get the DB calls with the highest total latency across the cluster, and the top DB calls
+     * and slow query log of every service of the nodes. Calls are sampled: counts and latencies
+     * are those of the sampled calls, slow calls are always logged.
+     * 
+     * @brief Show top and slow DB queries of all services
+     * @param nodeIds node ids for which DB queries are collected.
+     * @param nodeNames node names for which DB queries are collected.
+     * @param top number of top calls to return, per node and for the cluster.
+     * @prereq none
+     * @return DB query statistics
+     */
+    @GET
+    @Path("/db-queries")
+    @CheckPermission(roles = { Role.SYSTEM_ADMIN, Role.SYSTEM_MONITOR })
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    public DbQueryStatsRestRep getDbQueries(@QueryParam("node_id") List<String> nodeIds,
+                                            @QueryParam("node_name") List<String> nodeNames,
+                                            @QueryParam("top") Integer top) {
+        nodeIds = _coordinatorClientExt.combineNodeNamesWithNodeIds(nodeNames, nodeIds);
+        int count = top != null ? top : DEFAULT_TOP_DB_QUERIES;
+        if (count <= 0) {
+            throw APIException.badRequests.parameterIsNotValid("top");
+        }
+        _log.info("Retrieving DB queries for nodes. Requested node ids: {}", nodeIds);
+
+        List<NodeInfo> nodeInfoList = ClusterNodesUtil.getClusterNodeInfo(nodeIds);
+        Map<String, NodeDbQueryStats> nodesData = NodeDataCollector.getDataFromNodes
+                (nodeInfoList, String.format(INTERNAL_NODE_DB_QUERIES_URI, count),
+                        Action.GET, null, NodeDbQueryStats.class, null);
+
+        DbQueryStatsRestRep restRep = new DbQueryStatsRestRep();
+        Map<String, DbQueryStat> clusterTop = new HashMap<String, DbQueryStat>();
+        for (NodeDbQueryStats nodeStats : nodesData.values()) {
+            for (DbQueryStat stat : nodeStats.getTopQueries()) {
+                DbQueryStat total = clusterTop.get(stat.key());
+                if (total == null) {
+                    total = new DbQueryStat(stat.getOperation(), stat.getColumnFamily(), stat.getCaller(), stat.getCallerDigest());
+                    total.setServiceName(stat.getServiceName());
+                    clusterTop.put(stat.key(), total);
+                }
+                total.add(stat);
+            }
+        }
+        restRep.getTopQueries().addAll(topByTotalLatency(clusterTop.values(), count));
+        restRep.getNodeStatsList().addAll(nodesData.values());
+        return restRep;
+    }
+
+    /**
+     * Internal method to get the top DB calls and slow query log of the services of this node.
+     * 
+     * @param top number of top calls to return
+     * @return DB query statistics of the node
+     */
+    @GET
+    @Path("/internal/node-db-queries")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public NodeDbQueryStats getNodeDbQueries(@QueryParam("top") int top) {
+        NodeDbQueryStats nodeStats = new NodeDbQueryStats(_coordinatorClientExt.getMyNodeId(),
+                _coordinatorClientExt.getMyNodeName());
+        List<DbQueryStat> topQueries = new ArrayList<DbQueryStat>();
+        for (String svcName : ServicesMetadata.getRoleServiceNames(_coordinatorClientExt.getNodeRoles())) {
+            try {
+                DbQueryTracerOps ops = new DbQueryTracerOps(svcName);
+                topQueries.addAll(ops.getTopQueries(top));
+                nodeStats.getSlowQueries().addAll(ops.getSlowQueries());
+            } catch (Exception e) {
+                // services without a DB client or not running
+                _log.debug("No DB queries from service {}", svcName, e);
+            }
+        }
+        nodeStats.getTopQueries().addAll(topByTotalLatency(topQueries, top));
+        return nodeStats;
+    }
+
+    /**
+     * Get the response time percentiles and the average DB, ZooKeeper and inter-service calls
+     * of the recent requests of each API endpoint, for every service of the nodes. Endpoints
+     * with the highest 95th percentile response time come first.
+     * 
+     * @brief Show request costs per endpoint of all services
+     * @param nodeIds node ids for which request costs are collected.
+     * @param nodeNames node names for which request costs are collected.
+     * @prereq none
+     * @return Request cost statistics
+     */
+    @GET
+    @Path("/request-costs")
+    @CheckPermission(roles = { Role.SYSTEM_ADMIN, Role.SYSTEM_MONITOR })
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    public RequestCostStatsRestRep getRequestCosts(@QueryParam("node_id") List<String> nodeIds,
+                                                   @QueryParam("node_name") List<String> nodeNames) {
+        nodeIds = _coordinatorClientExt.combineNodeNamesWithNodeIds(nodeNames, nodeIds);
+        _log.info("Retrieving request costs for nodes. Requested node ids: {}", nodeIds);
+
+        List<NodeInfo> nodeInfoList = ClusterNodesUtil.getClusterNodeInfo(nodeIds);
+        Map<String, NodeRequestCostStats> nodesData = NodeDataCollector.getDataFromNodes
+                (nodeInfoList, INTERNAL_NODE_REQUEST_COSTS_URI,
+                        Action.GET, null, NodeRequestCostStats.class, null);
+
+        RequestCostStatsRestRep restRep = new RequestCostStatsRestRep();
+        restRep.getNodeStatsList().addAll(nodesData.values());
+        return restRep;
+    }
+
+    /**
+     * Internal method to get the request costs per endpoint of the services of this node.
+     * 
+     * @return Request cost statistics of the node
+     */
+    @GET
+    @Path("/internal/node-request-costs")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public NodeRequestCostStats getNodeRequestCosts() {
+        NodeRequestCostStats nodeStats = new NodeRequestCostStats(_coordinatorClientExt.getMyNodeId(),
+                _coordinatorClientExt.getMyNodeName());
+        for (String svcName : ServicesMetadata.getRoleServiceNames(_coordinatorClientExt.getNodeRoles())) {
+            try {
+                RequestCostTrackerOps ops = new RequestCostTrackerOps(svcName);
+                nodeStats.getEndpoints().addAll(ops.getEndpointCosts());
+            } catch (Exception e) {
+                // services without a REST API or not running
+                _log.debug("No request costs from service {}", svcName, e);
+            }
+        }
+        return nodeStats;
+    }
+
+    /**
+     * Get the history of the metrics of the nodes and of their services, averaged per minute or per
+     * hour. The metrics of a node (CPU, memory, load, disk I/O) are recorded as the "node" service,
+     * the metrics of the JVM of each service (heap, GC, threads, CPU, file descriptors) under the
+     * name of the service. The points of all the nodes are aligned on the same intervals, and are
+     * averaged across the nodes by service and metric in the cluster metrics.
+     * The minute history is kept 7 days, the hour history 90 days.
+     * 
+     * @brief Show the history of the metrics of all virtual machines and their services
+     * @param nodeIds node ids for which metrics are collected.
+     * @param nodeNames node names for which metrics are collected.
+     * @param serviceNames names of the services for which metrics are collected, all if none.
+     * @param tier minute or hour. Default: minute
+     * @param startTimeStr The start datetime of the history. Value is inclusive.
+     *            Allowed values: "yyyy-MM-dd_HH:mm:ss" formatted date or datetime in ms.
+     *            Default: 60 intervals of the tier before the end time
+     * @param endTimeStr The end datetime of the history. Value is inclusive.
+     *            Allowed values: "yyyy-MM-dd_HH:mm:ss" formatted date or datetime in ms.
+     *            Default: now
+     * @prereq none
+     * @return Metrics history
+     */
+    @GET
+    @Path("/metrics")
+    @CheckPermission(roles = { Role.SYSTEM_ADMIN, Role.SYSTEM_MONITOR })
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    public MetricsRestRep getMetrics(@QueryParam("node_id") List<String> nodeIds,
+                                     @QueryParam("node_name") List<String> nodeNames,
+                                     @QueryParam("service") List<String> serviceNames,
+                                     @DefaultValue("minute") @QueryParam("tier") String tier,
+                                     @QueryParam("start") String startTimeStr,
+                                     @QueryParam("end") String endTimeStr) {
+        Tier metricsTier = getMetricsTier(tier);
+        Date startTime = TimeUtils.getDateTimestamp(startTimeStr);
+        Date endTime = TimeUtils.getDateTimestamp(endTimeStr);
+        TimeUtils.validateTimestamps(startTime, endTime);
+        long end = endTime != null ? endTime.getTime() : System.currentTimeMillis();
+        long start = startTime != null ? startTime.getTime()
+                : end - DEFAULT_METRICS_INTERVALS * metricsTier.getInterval();
+
+        nodeIds = _coordinatorClientExt.combineNodeNamesWithNodeIds(nodeNames, nodeIds);
+        _log.info("Retrieving {} metrics from {} to {} for nodes. Requested node ids: {}",
+                new Object[] { tier, start, end, nodeIds });
+
+        StringBuilder uri = new StringBuilder(String.format(INTERNAL_NODE_METRICS_URI,
+                metricsTier.name().toLowerCase(), start, end));
+        for (String serviceName : serviceNames) {
+            try {
+                uri.append("&service=").append(URLEncoder.encode(serviceName, "UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw APIException.badRequests.invalidParameterWithCause("service", serviceName, e);
+            }
+        }
+
+        List<NodeInfo> nodeInfoList = ClusterNodesUtil.getClusterNodeInfo(nodeIds);
+        Map<String, NodeMetrics> nodesData = NodeDataCollector.getDataFromNodes
+                (nodeInfoList, uri.toString(), Action.GET, null, NodeMetrics.class, null);
+
+        MetricsRestRep restRep = new MetricsRestRep();
+        restRep.getClusterMetrics().addAll(mergeNodeMetrics(nodesData.values()));
+        restRep.getNodeMetricsList().addAll(nodesData.values());
+        return restRep;
+    }
+
+    /**
+     * Merges the metrics of the nodes by service, interval and metric name. A merged point is the
+     * average of the points the nodes have at the same time.
+     *
+     * @param nodeMetricsList metrics of the nodes
+     * @return metrics of the cluster, sorted by service name
+     */
+    static List<ServiceMetrics> mergeNodeMetrics(Collection<NodeMetrics> nodeMetricsList) {
+        // service name -> interval -> metric name -> time -> sum of the values and number of nodes
+        Map<String, Map<Long, Map<String, Map<Long, double[]>>>> merged =
+                new TreeMap<String, Map<Long, Map<String, Map<Long, double[]>>>>();
+        for (NodeMetrics nodeMetrics : nodeMetricsList) {
+            for (ServiceMetrics serviceMetrics : nodeMetrics.getServices()) {
+                Map<Long, Map<String, Map<Long, double[]>>> intervals = merged.get(serviceMetrics.getServiceName());
+                if (intervals == null) {
+                    intervals = new TreeMap<Long, Map<String, Map<Long, double[]>>>();
+                    merged.put(serviceMetrics.getServiceName(), intervals);
+                }
+                Map<String, Map<Long, double[]>> metrics = intervals.get(serviceMetrics.getInterval());
+                if (metrics == null) {
+                    metrics = new LinkedHashMap<String, Map<Long, double[]>>();
+                    intervals.put(serviceMetrics.getInterval(), metrics);
+                }
+                for (MetricSeries series : serviceMetrics.getMetrics()) {
+                    Map<Long, double[]> points = metrics.get(series.getName());
+                    if (points == null) {
+                        points = new TreeMap<Long, double[]>();
+                        metrics.put(series.getName(), points);
+                    }
+                    for (MetricPoint point : series.getPoints()) {
+                        double[] total = points.get(point.getTime());
+                        if (total == null) {
+                            total = new double[2];
+                            points.put(point.getTime(), total);
+                        }
+                        total[0] += point.getValue();
+                        total[1]++;
+                    }
+                }
+            }
+        }
+
+        List<ServiceMetrics> clusterMetrics = new ArrayList<ServiceMetrics>();
+        for (Map.Entry<String, Map<Long, Map<String, Map<Long, double[]>>>> service : merged.entrySet()) {
+            for (Map.Entry<Long, Map<String, Map<Long, double[]>>> interval : service.getValue().entrySet()) {
+                ServiceMetrics serviceMetrics = new ServiceMetrics(service.getKey(), interval.getKey());
+                for (Map.Entry<String, Map<Long, double[]>> metric : interval.getValue().entrySet()) {
+                    MetricSeries series = new MetricSeries(metric.getKey());
+                    for (Map.Entry<Long, double[]> point : metric.getValue().entrySet()) {
+                        series.getPoints().add(new MetricPoint(point.getKey(),
+                                (float) (point.getValue()[0] / point.getValue()[1])));
+                    }
+                    serviceMetrics.getMetrics().add(series);
+                }
+                clusterMetrics.add(serviceMetrics);
+            }
+        }
+        return clusterMetrics;
+    }
+
+    /**
+     * Internal method to get the history of the metrics recorded on this node.
+     * 
+     * @return Metrics history of the node and of its services
+     */
+    @GET
+    @Path("/internal/node-metrics")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public NodeMetrics getNodeMetrics(@QueryParam("service") List<String> serviceNames,
+                                      @QueryParam("tier") String tier,
+                                      @QueryParam("start") long start,
+                                      @QueryParam("end") long end) {
+        Tier metricsTier = getMetricsTier(tier);
+        NodeMetrics nodeMetrics = new NodeMetrics(_coordinatorClientExt.getMyNodeId(),
+                _coordinatorClientExt.getMyNodeName());
+        File[] files = new File(MetricsRecorder.getConfiguredDirectory()).listFiles();
+        if (files == null) {
+            return nodeMetrics;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String fileName = file.getName();
+            if (!fileName.endsWith(MetricsHistoryFile.FILE_SUFFIX)) {
+                continue;
+            }
+            String serviceName = fileName.substring(0, fileName.length() - MetricsHistoryFile.FILE_SUFFIX.length());
+            if (!serviceNames.isEmpty() && !serviceNames.contains(serviceName)) {
+                continue;
+            }
+            try (MetricsHistoryFile history = MetricsHistoryFile.openForRead(file)) {
+                ServiceMetrics serviceMetrics = new ServiceMetrics(serviceName, metricsTier.getInterval());
+                String[] metricNames = history.getMetricNames();
+                for (String metricName : metricNames) {
+                    serviceMetrics.getMetrics().add(new MetricSeries(metricName));
+                }
+                for (MetricsHistoryFile.Sample sample : history.read(metricsTier, start, end)) {
+                    for (int i = 0; i < metricNames.length; i++) {
+                        // metrics that could not be sampled have no point
+                        if (!Float.isNaN(sample.getValues()[i])) {
+                            serviceMetrics.getMetrics().get(i).getPoints().add(
+                                    new MetricPoint(sample.getTime(), sample.getValues()[i]));
+                        }
+                    }
+                }
+                nodeMetrics.getServices().add(serviceMetrics);
+            } catch (IOException e) {
+                _log.warn("Unable to read the metrics history {}", file, e);
+            }
+        }
+        return nodeMetrics;
+    }
+
+    private Tier getMetricsTier(String tier) {
+        try {
+            return Tier.valueOf(tier.toUpperCase());
+        } catch (RuntimeException e) {
+            throw APIException.badRequests.invalidParameter("tier", tier);
+        }
+    }
+
+    private List<DbQueryStat> topByTotalLatency(Collection<DbQueryStat> stats, int count) {
+        List<DbQueryStat> sorted = new ArrayList<DbQueryStat>(stats);
+        DbQueryTracer.sortByTotalLatency(sorted);
+        return sorted.subList(0, Math.min(count, sorted.size()));
+    }
+
     /**
      * Get the current capacity for object, file and block storage.
      * 
@@ -151,7 +151,9 @@ public class DbRepairStatusHandler {
             startTime = otherStatus.getStartTime();
         }
 
-        return new DbRepairStatus(DbRepairStatus.Status.IN_PROGRESS, startTime, completionTime, progress);
+        DbRepairStatus progressStatus = new DbRepairStatus(DbRepairStatus.Status.IN_PROGRESS, startTime, completionTime, progress);
+        progressStatus.setEstimatedCompletionTime(status.getEstimatedCompletionTime());
+        return progressStatus;
     }
 
     /*
@@ -175,7 +177,12 @@ public class DbRepairStatusHandler {
         }
         Date startTime = getOldestTime(localStatus.getStartTime(), geoStatus.getStartTime());
         int progress = (localStatus.getProgress() + geoStatus.getProgress()) / 2;
-        return new DbRepairStatus(DbRepairStatus.Status.IN_PROGRESS, startTime, completionTime, progress);
+        DbRepairStatus progressStatus = new DbRepairStatus(DbRepairStatus.Status.IN_PROGRESS, startTime, completionTime, progress);
+        if (localStatus.getEstimatedCompletionTime() != null && geoStatus.getEstimatedCompletionTime() != null) {
+            progressStatus.setEstimatedCompletionTime(getLatestTime(localStatus.getEstimatedCompletionTime(),
+                    geoStatus.getEstimatedCompletionTime()));
+        }
+        return progressStatus;
     }
 
     private Date getOldestTime(Date one, Date another) {
@@ -195,6 +202,7 @@ public class DbRepairStatusHandler {
         DbRepairStatus.Status status = null;
         Date startTime = null;
         Date endTime = null;
+        Date estimatedEndTime = null;
 
         log.info("Try to get repair status of {}", svcName);
         try (DbManagerOps dbManagerOps = new DbManagerOps(svcName)) {
@@ -206,6 +214,7 @@ public class DbRepairStatusHandler {
                 status = repairState.getStatus();
                 startTime = repairState.getStartTime();
                 endTime = repairState.getLastCompletionTime();
+                estimatedEndTime = repairState.getEstimatedCompletionTime();
             }
 
             if (endTime != null) {
@@ -224,7 +233,9 @@ public class DbRepairStatusHandler {
         }
 
         if (status != null) {
-            return new DbRepairStatus(status, startTime, endTime, progress);
+            DbRepairStatus repairStatus = new DbRepairStatus(status, startTime, endTime, progress);
+            repairStatus.setEstimatedCompletionTime(estimatedEndTime);
+            return repairStatus;
         }
 
         return null;
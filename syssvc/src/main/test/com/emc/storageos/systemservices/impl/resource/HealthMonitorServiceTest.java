@@ -6,14 +6,19 @@ package com.emc.storageos.systemservices.impl.resource;
 
 import com.emc.storageos.systemservices.impl.healthmonitor.models.*;
 import com.emc.vipr.model.sys.healthmonitor.DiskStats;
+import com.emc.vipr.model.sys.healthmonitor.MetricPoint;
+import com.emc.vipr.model.sys.healthmonitor.MetricSeries;
+import com.emc.vipr.model.sys.healthmonitor.NodeMetrics;
 import com.emc.vipr.model.sys.healthmonitor.NodeHealth;
 import com.emc.vipr.model.sys.healthmonitor.NodeStats;
+import com.emc.vipr.model.sys.healthmonitor.ServiceMetrics;
 import com.emc.vipr.model.sys.healthmonitor.ServiceStats;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class HealthMonitorServiceTest extends HealthMonitorService {
@@ -144,4 +149,45 @@ public class HealthMonitorServiceTest extends HealthMonitorService {
         Assert.assertNotNull(nodeHealth);
         Assert.assertTrue(Status.DEGRADED.toString().equals(nodeHealth.getStatus()));
     }
+
+    @Test
+    public void testMergeNodeMetrics() {
+        NodeMetrics node1 = new NodeMetrics("node1", "vipr1");
+        node1.getServices().add(serviceMetrics("syssvc", 60000, "heapUsed", 0, 10, 60000, 20));
+        node1.getServices().add(serviceMetrics("apisvc", 60000, "heapUsed", 0, 5));
+        NodeMetrics node2 = new NodeMetrics("node2", "vipr2");
+        // node2 has no point at 0, e.g. it was down
+        node2.getServices().add(serviceMetrics("syssvc", 60000, "heapUsed", 60000, 40, 120000, 30));
+        node2.getServices().add(serviceMetrics("syssvc", 3600000, "heapUsed", 0, 25));
+
+        List<ServiceMetrics> merged = mergeNodeMetrics(Arrays.asList(node1, node2));
+
+        // sorted by service and interval, averaged across the nodes having a point at the time
+        Assert.assertEquals(3, merged.size());
+        assertMetrics(merged.get(0), "apisvc", 60000, 0, 5);
+        assertMetrics(merged.get(1), "syssvc", 60000, 0, 10, 60000, 30, 120000, 30);
+        assertMetrics(merged.get(2), "syssvc", 3600000, 0, 25);
+    }
+
+    private static ServiceMetrics serviceMetrics(String serviceName, long interval, String metricName, long... points) {
+        ServiceMetrics serviceMetrics = new ServiceMetrics(serviceName, interval);
+        MetricSeries series = new MetricSeries(metricName);
+        for (int i = 0; i < points.length; i += 2) {
+            series.getPoints().add(new MetricPoint(points[i], points[i + 1]));
+        }
+        serviceMetrics.getMetrics().add(series);
+        return serviceMetrics;
+    }
+
+    private static void assertMetrics(ServiceMetrics serviceMetrics, String serviceName, long interval, long... points) {
+        Assert.assertEquals(serviceName, serviceMetrics.getServiceName());
+        Assert.assertEquals(interval, serviceMetrics.getInterval());
+        Assert.assertEquals(1, serviceMetrics.getMetrics().size());
+        List<MetricPoint> actual = serviceMetrics.getMetrics().get(0).getPoints();
+        Assert.assertEquals(points.length / 2, actual.size());
+        for (int i = 0; i < points.length; i += 2) {
+            Assert.assertEquals(points[i], actual.get(i / 2).getTime());
+            Assert.assertEquals(points[i + 1], actual.get(i / 2).getValue(), 0.001);
+        }
+    }
 }
@@ -4,6 +4,14 @@
  */
 package com.emc.sa.asset;
 
+import java.util.Set;
+
+import com.emc.sa.asset.annotation.CachedAsset;
+
 public abstract class AbstractAssetOptionsProvider implements AssetOptionsProvider {
 
+    @Override
+    public CachedAsset getCachePolicy(String assetType, Set<String> availableTypes) {
+        return null;
+    }
 }
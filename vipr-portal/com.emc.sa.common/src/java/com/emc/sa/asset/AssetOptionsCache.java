@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.sa.asset;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.emc.sa.asset.annotation.CachedAsset;
+import com.emc.vipr.model.catalog.AssetOption;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of the options of the asset types whose provider method is annotated with {@link CachedAsset}.
+ *
+ * Options are cached per asset type, tenant, user (unless the scope of the method is TENANT) and
+ * values of the asset dependencies of the method, so that changing an unrelated field of a form
+ * does not reload them. Options are dropped as soon as an order running on this node changes
+ * resources of the types the method is invalidated by. Changes made by orders on other nodes or
+ * through the REST API and the UI are not seen, so the options also expire after the few seconds
+ * of the ttl of the method: enough for the many lookups of a form being filled in.
+ *
+ * Hits, misses and the time spent serving each are counted and logged every STATS_LOG_INTERVAL.
+ */
+@Component
+public class AssetOptionsCache {
+
+    private static final Logger log = Logger.getLogger(AssetOptionsCache.class);
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final long STATS_LOG_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final Cache<List<Object>, CachedOptions> cache = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+
+    /** incremented by each invalidation, so that options loaded before are not cached after */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong hitNanos = new AtomicLong();
+    private final AtomicLong missNanos = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+    private volatile long lastStatsLog = System.currentTimeMillis();
+
+    private static class CachedOptions {
+        private final List<AssetOption> options;
+        private final long expiration;
+        private final List<String> invalidatedBy;
+
+        CachedOptions(List<AssetOption> options, CachedAsset policy) {
+            this.options = options;
+            this.expiration = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(policy.ttl());
+            this.invalidatedBy = Arrays.asList(policy.invalidatedBy());
+        }
+    }
+
+    /**
+     * Returns the cached options of an asset type, loading them if they are not cached or expired
+     *
+     * @param context the context of the request
+     * @param assetType the asset type
+     * @param dependencyValues values of the asset dependencies of the provider method
+     * @param policy cache policy of the provider method
+     * @param loader loads the options from the provider
+     * @return the options
+     */
+    public List<AssetOption> get(AssetOptionsContext context, String assetType, Map<String, String> dependencyValues,
+            CachedAsset policy, Supplier<List<AssetOption>> loader) {
+        long start = System.nanoTime();
+        List<Object> key = createKey(context, assetType, dependencyValues, policy);
+        CachedOptions cached = cache.getIfPresent(key);
+        if (cached != null && cached.expiration > System.currentTimeMillis()) {
+            record(hits, hitNanos, start);
+            return new ArrayList<>(cached.options);
+        }
+
+        long loadGeneration = generation.get();
+        List<AssetOption> options = loader.get();
+        if (generation.get() == loadGeneration) {
+            cache.put(key, new CachedOptions(new ArrayList<>(options), policy));
+        }
+        record(misses, missNanos, start);
+        return options;
+    }
+
+    /**
+     * Drops the options built from resources of the given types
+     *
+     * @param resourceTypes simple class names of the resources, e.g. "Volume"
+     */
+    public void invalidateResourceTypes(Collection<String> resourceTypes) {
+        generation.incrementAndGet();
+        int count = 0;
+        Iterator<CachedOptions> it = cache.asMap().values().iterator();
+        while (it.hasNext()) {
+            if (!Collections.disjoint(it.next().invalidatedBy, resourceTypes)) {
+                it.remove();
+                count++;
+            }
+        }
+        invalidated.addAndGet(count);
+        log.debug(String.format("Invalidated %d cached asset options for resource types %s", count, resourceTypes));
+    }
+
+    /**
+     * Drops all the options built from resources, when the resources that changed are not known
+     */
+    public void invalidateResources() {
+        generation.incrementAndGet();
+        int count = 0;
+        Iterator<CachedOptions> it = cache.asMap().values().iterator();
+        while (it.hasNext()) {
+            if (!it.next().invalidatedBy.isEmpty()) {
+                it.remove();
+                count++;
+            }
+        }
+        invalidated.addAndGet(count);
+        log.debug(String.format("Invalidated %d cached asset options", count));
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return fraction of the requests served from the cache
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * @return average time to serve cached options, in ms
+     */
+    public double getAverageHitMillis() {
+        return average(hitNanos, hits);
+    }
+
+    /**
+     * @return average time to load options, in ms
+     */
+    public double getAverageMissMillis() {
+        return average(missNanos, misses);
+    }
+
+    private double average(AtomicLong nanos, AtomicLong count) {
+        return count.get() == 0 ? 0 : nanos.get() / 1e6 / count.get();
+    }
+
+    private List<Object> createKey(AssetOptionsContext context, String assetType, Map<String, String> dependencyValues,
+            CachedAsset policy) {
+        URI tenant = context.getTenant();
+        String user = policy.scope() == CachedAsset.Scope.USER ? context.getUserName() : null;
+        return Arrays.<Object> asList(assetType, tenant, user, new TreeMap<>(dependencyValues));
+    }
+
+    private void record(AtomicLong count, AtomicLong nanos, long start) {
+        count.incrementAndGet();
+        nanos.addAndGet(System.nanoTime() - start);
+
+        long now = System.currentTimeMillis();
+        if (now - lastStatsLog > STATS_LOG_INTERVAL) {
+            lastStatsLog = now;
+            log.info(String.format("Asset options cache: %d entries, %d hits, %d misses, hit rate %.1f%%, "
+                    + "%.2f ms per hit, %.2f ms per miss, %d invalidated", cache.size(), hits.get(), misses.get(),
+                    getHitRate() * 100, getAverageHitMillis(), getAverageMissMillis(), invalidated.get()));
+        }
+    }
+}
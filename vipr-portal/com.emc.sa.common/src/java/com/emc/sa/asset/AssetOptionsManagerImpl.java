@@ -5,6 +5,7 @@
 package com.emc.sa.asset;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,9 +14,11 @@ import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.emc.storageos.db.client.URIUtil;
 import com.emc.storageos.security.authentication.StorageOSUser;
 import com.emc.vipr.model.catalog.AssetOption;
+import com.google.common.base.Supplier;
 
 /**
  * Finds, introspects and registers all {@link AbstractAssetOptionsProvider}s
@@ -28,6 +31,9 @@ public class AssetOptionsManagerImpl implements AssetOptionsManager {
     @Autowired
     private List<AssetOptionsProvider> assetOptionsProviders;
 
+    @Autowired(required = false)
+    private AssetOptionsCache assetOptionsCache;
+
     @Override
     public List<AssetOptionsProvider> getAssetOptionsProviders() {
         return assetOptionsProviders;
@@ -39,11 +45,30 @@ public class AssetOptionsManagerImpl implements AssetOptionsManager {
     }
 
     @Override
-    public List<AssetOption> getOptions(AssetOptionsContext context, String assetType, Map<String, String> availableAssets) {
+    public List<AssetOption> getOptions(final AssetOptionsContext context, final String assetType,
+            final Map<String, String> availableAssets) {
         log.info("retrieving asset options for asset [" + assetType + "]");
-        AssetOptionsProvider provider = getProviderForAssetType(assetType);
+        final AssetOptionsProvider provider = getProviderForAssetType(assetType);
         if (provider != null) {
-            return provider.getAssetOptions(context, assetType, availableAssets);
+            CachedAsset cachePolicy = null;
+            if (assetOptionsCache != null) {
+                cachePolicy = provider.getCachePolicy(assetType, availableAssets.keySet());
+            }
+            if (cachePolicy == null) {
+                return provider.getAssetOptions(context, assetType, availableAssets);
+            }
+
+            // only the assets the options depend on are part of the cache key
+            Map<String, String> dependencyValues = new HashMap<>();
+            for (String dependency : provider.getAssetDependencies(assetType, availableAssets.keySet())) {
+                dependencyValues.put(dependency, availableAssets.get(dependency));
+            }
+            return assetOptionsCache.get(context, assetType, dependencyValues, cachePolicy, new Supplier<List<AssetOption>>() {
+                @Override
+                public List<AssetOption> get() {
+                    return provider.getAssetOptions(context, assetType, availableAssets);
+                }
+            });
         }
         else {
             return Collections.emptyList();
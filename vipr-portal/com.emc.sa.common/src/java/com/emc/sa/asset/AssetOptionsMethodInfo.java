@@ -12,6 +12,7 @@ import org.apache.commons.lang.StringUtils;
 import com.emc.sa.asset.annotation.Asset;
 import com.emc.sa.asset.annotation.AssetDependencies;
 import com.emc.sa.asset.annotation.AssetNamespace;
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.google.common.collect.Lists;
 
 /** Describes a javaMethod that can be used to retrieve the specific Asset options */
@@ -21,6 +22,7 @@ public class AssetOptionsMethodInfo {
     public String assetNamespace;
     public String assetName;
     public List<String> assetDependencies;
+    public CachedAsset cachePolicy;
 
     public AssetOptionsMethodInfo(AssetNamespace namespace, Asset asset, Method javaMethod) {
         this.assetNamespace = namespace.value();
@@ -32,6 +34,7 @@ public class AssetOptionsMethodInfo {
                 this.assetDependencies.add(formatAssetTypeName(namespace.value(), dependency));
             }
         }
+        this.cachePolicy = javaMethod.getAnnotation(CachedAsset.class);
         this.javaMethod = javaMethod;
     }
 
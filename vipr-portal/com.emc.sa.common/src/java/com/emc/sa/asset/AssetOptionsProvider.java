@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.emc.vipr.model.catalog.AssetOption;
 
 
@@ -66,6 +67,15 @@ public interface AssetOptionsProvider {
      */
     List<String> getAssetDependencies(String assetType, Set<String> availableTypes);
 
+    /**
+     * Returns how the options of the given asset type may be cached.
+     * 
+     * @param assetType         The type of asset 
+     * @param availableTypes    The assets currently available in the system
+     * @return                  The cache policy of the options, null if they must not be cached
+     */
+    CachedAsset getCachePolicy(String assetType, Set<String> availableTypes);
+
     /**
      * Use raw labels for options, instead of resource names from DB.
      * 
@@ -115,6 +115,11 @@ public abstract class AnnotatedAssetOptionsProvider extends AbstractAssetOptions
         return method.assetDependencies;
     }
 
+    @Override
+    public CachedAsset getCachePolicy(String assetType, Set<String> availableTypes) {
+        return findAssetMethodInfo(assetType, availableTypes).cachePolicy;
+    }
+
     /**
      * stores the asset options method information in the supportedAssetTypes list
      */
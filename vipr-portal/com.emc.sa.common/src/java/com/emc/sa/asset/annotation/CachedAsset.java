@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.sa.asset.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Signifies the options returned by the given asset javaMethod may be cached by the AssetOptionsCache.
+ * The options are cached per asset type and values of the asset dependencies of the method.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedAsset {
+
+    public enum Scope {
+        /** the options depend on the permissions of the user */
+        USER,
+        /** the options are the same for all the users of a tenant */
+        TENANT
+    }
+
+    /**
+     * time the options are cached, in seconds. Resources changed through the REST API or the UI,
+     * rather than by an order, show up in the options only once they expire, so keep it short.
+     */
+    public int ttl();
+
+    public Scope scope() default Scope.USER;
+
+    /**
+     * types of the resources the options are built from, e.g. "Volume". The cached options are
+     * dropped when an order changes resources of these types.
+     */
+    public String[] invalidatedBy() default {};
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.emc.sa.asset;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.emc.sa.asset.annotation.CachedAsset;
+import com.emc.vipr.model.catalog.AssetOption;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+
+public class AssetOptionsCacheTest {
+
+    @CachedAsset(ttl = 60, invalidatedBy = "Volume")
+    public void userScoped() {
+    }
+
+    @CachedAsset(ttl = 60, scope = CachedAsset.Scope.TENANT)
+    public void tenantScoped() {
+    }
+
+    private static CachedAsset policy(String methodName) throws Exception {
+        return AssetOptionsCacheTest.class.getMethod(methodName).getAnnotation(CachedAsset.class);
+    }
+
+    private static AssetOptionsContext context(String userName) {
+        AssetOptionsContext context = new AssetOptionsContext();
+        context.setTenant(URI.create("urn:storageos:TenantOrg:1:global"));
+        context.setUserName(userName);
+        return context;
+    }
+
+    private static class CountingLoader implements Supplier<List<AssetOption>> {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public List<AssetOption> get() {
+            loads.incrementAndGet();
+            return Lists.newArrayList(new AssetOption("key", "value"));
+        }
+    }
+
+    @Test
+    public void testKeyedByDependencies() throws Exception {
+        AssetOptionsCache cache = new AssetOptionsCache();
+        CountingLoader loader = new CountingLoader();
+        Map<String, String> project1 = Collections.singletonMap("vipr.project", "project1");
+        Map<String, String> project2 = Collections.singletonMap("vipr.project", "project2");
+
+        cache.get(context("user1"), "vipr.blockVolume", project1, policy("userScoped"), loader);
+        cache.get(context("user1"), "vipr.blockVolume", project1, policy("userScoped"), loader);
+        assertEquals(1, loader.loads.get());
+
+        cache.get(context("user1"), "vipr.blockVolume", project2, policy("userScoped"), loader);
+        assertEquals(2, loader.loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testScope() throws Exception {
+        AssetOptionsCache cache = new AssetOptionsCache();
+        CountingLoader loader = new CountingLoader();
+        Map<String, String> none = Collections.emptyMap();
+
+        cache.get(context("user1"), "vipr.project", none, policy("userScoped"), loader);
+        cache.get(context("user2"), "vipr.project", none, policy("userScoped"), loader);
+        assertEquals(2, loader.loads.get());
+
+        cache.get(context("user1"), "vipr.virtualArray", none, policy("tenantScoped"), loader);
+        cache.get(context("user2"), "vipr.virtualArray", none, policy("tenantScoped"), loader);
+        assertEquals(3, loader.loads.get());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        AssetOptionsCache cache = new AssetOptionsCache();
+        CountingLoader loader = new CountingLoader();
+        Map<String, String> none = Collections.emptyMap();
+
+        cache.get(context("user1"), "vipr.blockVolume", none, policy("userScoped"), loader);
+        cache.get(context("user1"), "vipr.virtualArray", none, policy("tenantScoped"), loader);
+
+        cache.invalidateResourceTypes(Collections.singleton("Host"));
+        cache.get(context("user1"), "vipr.blockVolume", none, policy("userScoped"), loader);
+        assertEquals(2, loader.loads.get());
+
+        cache.invalidateResourceTypes(Collections.singleton("Volume"));
+        cache.get(context("user1"), "vipr.blockVolume", none, policy("userScoped"), loader);
+        cache.get(context("user1"), "vipr.virtualArray", none, policy("tenantScoped"), loader);
+        assertEquals(3, loader.loads.get());
+
+        // options not built from resources are kept when the changed resources are not known
+        cache.invalidateResources();
+        cache.get(context("user1"), "vipr.blockVolume", none, policy("userScoped"), loader);
+        cache.get(context("user1"), "vipr.virtualArray", none, policy("tenantScoped"), loader);
+        assertEquals(4, loader.loads.get());
+    }
+}
@@ -5,7 +5,9 @@
 package com.emc.sa.engine;
 
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -13,11 +15,13 @@ import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.emc.sa.asset.AssetOptionsCache;
 import com.emc.sa.engine.bind.BindingUtils;
 import com.emc.sa.engine.lock.ExecutionLockManager;
 import com.emc.sa.engine.service.ExecutionService;
 import com.emc.sa.engine.service.ExecutionServiceFactory;
 import com.emc.sa.engine.service.ServiceNotFoundException;
+import com.emc.storageos.db.client.URIUtil;
 import com.emc.storageos.db.client.model.uimodels.CatalogService;
 import com.emc.storageos.db.client.model.uimodels.ExecutionState;
 import com.emc.storageos.db.client.model.uimodels.ExecutionStatus;
@@ -37,6 +41,8 @@ public class ExecutionEngineImpl implements ExecutionEngine {
     private ExecutionServiceFactory serviceFactory;
     @Autowired
     private CoordinatorClient coordinatorClient;
+    @Autowired(required = false)
+    private AssetOptionsCache assetOptionsCache;
 
     public ModelClient getModelClient() {
         return modelClient;
@@ -77,10 +83,32 @@ public class ExecutionEngineImpl implements ExecutionEngine {
             LOG.error("Unexpected error executing order: " + order.getId());
             orderFailed(order, new ExecutionException(e));
         } finally {
+            invalidateAssetOptions();
             destroyContext(order);
         }
     }
 
+    /**
+     * Drops the cached asset options built from the resources affected by the order
+     */
+    protected void invalidateAssetOptions() {
+        if (assetOptionsCache == null) {
+            return;
+        }
+        Set<String> resourceTypes = new HashSet<>();
+        for (String resourceId : ExecutionUtils.currentContext().getExecutionState().getAffectedResources()) {
+            if (URIUtil.isValid(resourceId)) {
+                resourceTypes.add(URIUtil.getTypeName(resourceId));
+            }
+        }
+        if (resourceTypes.isEmpty()) {
+            // the service did not tell what it changed
+            assetOptionsCache.invalidateResources();
+        } else {
+            assetOptionsCache.invalidateResourceTypes(resourceTypes);
+        }
+    }
+
     protected void initContext(Order order) {
         ExecutionUtils.createContext(getModelClient(), order);
         // Adds execution lock support
@@ -96,6 +96,11 @@ public class StubCoordinatorClientImpl extends CoordinatorClientImpl {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public AdjustableDistributedSemaphore getAdjustableSemaphore(String name, int initialPermits) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public InterProcessLock getLock(final String name) {
         return new InterProcessLock() {
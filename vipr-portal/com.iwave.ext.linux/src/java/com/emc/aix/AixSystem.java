@@ -21,6 +21,7 @@ import com.iwave.ext.command.HostRescanAdapter;
 import com.iwave.ext.linux.model.HBAInfo;
 import com.iwave.ext.linux.model.IPInterface;
 import com.iwave.utility.ssh.SSHCommandExecutor;
+import com.iwave.utility.ssh.SSHSessionPool;
 
 public final class AixSystem extends SecureShellSupport implements HostRescanAdapter {
 
@@ -76,6 +77,7 @@ public final class AixSystem extends SecureShellSupport implements HostRescanAda
     public void executeCommand(Command command, int timeout) {
         SSHCommandExecutor executor = new SSHCommandExecutor(getHost(), getPort(), getUsername(), getPassword());
         executor.setCommandTimeout(timeout);
+        executor.setSessionPool(SSHSessionPool.getInstance());
         command.setCommandExecutor(executor);
         command.execute();
     }
@@ -23,6 +23,7 @@ import com.iwave.ext.command.HostRescanAdapter;
 import com.iwave.ext.linux.model.HBAInfo;
 import com.iwave.ext.linux.model.IPInterface;
 import com.iwave.utility.ssh.SSHCommandExecutor;
+import com.iwave.utility.ssh.SSHSessionPool;
 
 public final class HpuxSystem extends SecureShellSupport implements HostRescanAdapter {
 
@@ -85,6 +86,7 @@ public final class HpuxSystem extends SecureShellSupport implements HostRescanAd
     public void executeCommand(Command command, int timeout) {
         SSHCommandExecutor executor = new SSHCommandExecutor(getHost(), getPort(), getUsername(), getPassword());
         executor.setCommandTimeout(timeout);
+        executor.setSessionPool(SSHSessionPool.getInstance());
         executor.setSudoPrefix("export PATH=$PATH:/usr/local/bin; sudo -S -p '' sh -c ");
         command.setCommandExecutor(executor);
         command.execute();
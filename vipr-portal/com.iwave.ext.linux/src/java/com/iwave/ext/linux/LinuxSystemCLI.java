@@ -39,6 +39,7 @@ import com.iwave.ext.linux.model.IPInterface;
 import com.iwave.ext.linux.model.MountPoint;
 import com.iwave.ext.linux.model.MultiPathEntry;
 import com.iwave.utility.ssh.SSHCommandExecutor;
+import com.iwave.utility.ssh.SSHSessionPool;
 
 /**
  * Linux host CLI. Many of these operations require root access.
@@ -116,6 +117,7 @@ public class LinuxSystemCLI implements HostRescanAdapter {
     public void executeCommand(Command command, int timeout) {
         SSHCommandExecutor executor = new SSHCommandExecutor(host, port, username, password);
         executor.setCommandTimeout(timeout);
+        executor.setSessionPool(SSHSessionPool.getInstance());
         command.setCommandExecutor(executor);
         command.execute();
     }
@@ -35,6 +35,7 @@ public class SSHCommandExecutor implements CommandExecutor {
     private int readTimeout;
     private int commandTimeout;
     private boolean autoDisconnect = true;
+    private SSHSessionPool sessionPool;
 
     public SSHCommandExecutor(SSHConnection connection) {
         this.connection = connection;
@@ -88,6 +89,18 @@ public class SSHCommandExecutor implements CommandExecutor {
         this.autoDisconnect = autoDisconnect;
     }
 
+    public SSHSessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    /**
+     * Runs the commands on sessions leased from the pool instead of a session of the executor,
+     * in which case connect, disconnect and autoDisconnect do not apply.
+     */
+    public void setSessionPool(SSHSessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
     protected JSch createClient() throws SSHException {
         return new JSch();
     }
@@ -128,22 +141,16 @@ public class SSHCommandExecutor implements CommandExecutor {
 
     @Override
     public CommandOutput executeCommand(Command command) throws CommandException {
+        if (sessionPool != null) {
+            return executePooledCommand(command);
+        }
         try {
             if (!isConnected()) {
                 connect();
             }
             ChannelExec channel = (ChannelExec) session.openChannel("exec");
             try {
-                StreamConsumer stdout = new StreamConsumer(channel.getInputStream());
-                StreamConsumer stderr = new StreamConsumer(channel.getErrStream());
-
-                connect(command, channel);
-                waitForDone(channel);
-
-                stdout.close();
-                stderr.close();
-                int exitCode = channel.getExitStatus();
-                return new CommandOutput(stdout.toString(), stderr.toString(), exitCode);
+                return execute(command, channel);
             } finally {
                 channel.disconnect();
             }
@@ -157,6 +164,58 @@ public class SSHCommandExecutor implements CommandExecutor {
         }
     }
 
+    private CommandOutput executePooledCommand(Command command) throws CommandException {
+        int timeout = connectTimeout > 0 ? connectTimeout : CONNECTION_TIMEOUT;
+        try {
+            SSHSessionPool.Lease lease = sessionPool.acquire(connection, timeout);
+            ChannelExec channel;
+            try {
+                channel = (ChannelExec) lease.getSession().openChannel("exec");
+            } catch (JSchException e) {
+                // the host closed the pooled session since it was last checked, retry on a new one
+                log.debug("Failed to open a channel on a pooled SSH session, retrying", e);
+                lease.invalidate();
+                lease = sessionPool.acquire(connection, timeout);
+                try {
+                    channel = (ChannelExec) lease.getSession().openChannel("exec");
+                } catch (JSchException retryException) {
+                    lease.invalidate();
+                    throw retryException;
+                }
+            }
+            boolean failed = true;
+            try {
+                CommandOutput output = execute(command, channel);
+                failed = false;
+                return output;
+            } finally {
+                channel.disconnect();
+                if (failed && !lease.getSession().isConnected()) {
+                    lease.invalidate();
+                } else {
+                    lease.release();
+                }
+            }
+        } catch (JSchException | IOException | InterruptedException | SSHException e) {
+            log.error(String.format("SSH '%s' command failed: ", command.getCommand()), e);
+            throw new CommandException(e);
+        }
+    }
+
+    private CommandOutput execute(Command command, ChannelExec channel) throws JSchException, IOException,
+            InterruptedException {
+        StreamConsumer stdout = new StreamConsumer(channel.getInputStream());
+        StreamConsumer stderr = new StreamConsumer(channel.getErrStream());
+
+        connect(command, channel);
+        waitForDone(channel);
+
+        stdout.close();
+        stderr.close();
+        int exitCode = channel.getExitStatus();
+        return new CommandOutput(stdout.toString(), stderr.toString(), exitCode);
+    }
+
     protected void connect(Command command, ChannelExec channel) throws JSchException, IOException {
         String commandLine = command.getCommandLine();
         boolean isRootUser = StringUtils.equals("root", connection.getUsername());
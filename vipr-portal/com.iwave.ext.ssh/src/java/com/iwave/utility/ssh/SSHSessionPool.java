@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.iwave.utility.ssh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Pool of authenticated SSH sessions, keyed by host, port and credentials.
+ *
+ * A session is shared by up to maxChannelsPerSession concurrent leases, each opening its own
+ * channel, so that concurrent commands to a host pay for a single key exchange. At most
+ * maxChannelsPerHost leases are held per host, further callers wait for a lease to be released.
+ * A session idle for more than healthCheckInterval is checked with a keep-alive before being
+ * reused, and a session idle for more than idleTimeout is closed.
+ */
+public class SSHSessionPool {
+    private static final Logger log = LoggerFactory.getLogger(SSHSessionPool.class);
+
+    private static final int DEFAULT_MAX_CHANNELS_PER_SESSION = 4;
+    private static final int DEFAULT_MAX_CHANNELS_PER_HOST = 8;
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_HEALTH_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final int DEFAULT_SESSION_TIMEOUT = 60 * 60 * 1000;
+
+    private static final SSHSessionPool INSTANCE = new SSHSessionPool();
+
+    private int maxChannelsPerSession = DEFAULT_MAX_CHANNELS_PER_SESSION;
+    private int maxChannelsPerHost = DEFAULT_MAX_CHANNELS_PER_HOST;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private long healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+    private int sessionTimeout = DEFAULT_SESSION_TIMEOUT;
+
+    private final Map<Key, HostSessions> hosts = new HashMap<>();
+    private ScheduledExecutorService evictor;
+
+    private final AtomicLong sessionsCreated = new AtomicLong();
+    private final AtomicLong leases = new AtomicLong();
+
+    /**
+     * Host, port and credentials of the sessions
+     */
+    private static class Key {
+        private final String host;
+        private final int port;
+        private final String username;
+        private final String password;
+
+        Key(SSHConnection connection) {
+            this.host = connection.getHost();
+            this.port = connection.getPort();
+            this.username = connection.getUsername();
+            this.password = connection.getPassword();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return port == other.port && Objects.equals(host, other.host) && Objects.equals(username, other.username)
+                    && Objects.equals(password, other.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, username, password);
+        }
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port;
+        }
+    }
+
+    /**
+     * Sessions to a host, guarded by the pool
+     */
+    private class HostSessions {
+        private final Semaphore permits = new Semaphore(maxChannelsPerHost, true);
+        private final List<PooledSession> sessions = new ArrayList<>();
+    }
+
+    private static class PooledSession {
+        private final Session session;
+        private int leaseCount;
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledSession(Session session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * A session leased from the pool. The channels opened on the session must be disconnected
+     * before the lease is released.
+     */
+    public class Lease {
+        private final HostSessions hostSessions;
+        private final PooledSession pooled;
+        private boolean released;
+
+        private Lease(HostSessions hostSessions, PooledSession pooled) {
+            this.hostSessions = hostSessions;
+            this.pooled = pooled;
+        }
+
+        public Session getSession() {
+            return pooled.session;
+        }
+
+        /**
+         * Returns the session to the pool
+         */
+        public void release() {
+            release(false);
+        }
+
+        /**
+         * Closes the session, which failed, once the other leases of the session are released
+         */
+        public void invalidate() {
+            release(true);
+        }
+
+        private void release(boolean failed) {
+            synchronized (SSHSessionPool.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                pooled.leaseCount--;
+                pooled.lastUsed = System.currentTimeMillis();
+                if (failed) {
+                    // no new lease of the session
+                    hostSessions.sessions.remove(pooled);
+                }
+                if (!hostSessions.sessions.contains(pooled) && pooled.leaseCount == 0) {
+                    pooled.session.disconnect();
+                }
+            }
+            hostSessions.permits.release();
+        }
+    }
+
+    /**
+     * @return the pool shared by the SSH clients of the process
+     */
+    public static SSHSessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    public void setMaxChannelsPerSession(int maxChannelsPerSession) {
+        this.maxChannelsPerSession = maxChannelsPerSession;
+    }
+
+    /**
+     * Takes effect for the hosts the pool has no session to yet
+     */
+    public void setMaxChannelsPerHost(int maxChannelsPerHost) {
+        this.maxChannelsPerHost = maxChannelsPerHost;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public void setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    /**
+     * @return number of sessions opened, each costing a key exchange and an authentication
+     */
+    public long getSessionsCreated() {
+        return sessionsCreated.get();
+    }
+
+    /**
+     * @return number of leases, the handshakes avoided being getLeaseCount() - getSessionsCreated()
+     */
+    public long getLeaseCount() {
+        return leases.get();
+    }
+
+    /**
+     * Leases a session to the host of the connection, waiting for a lease of the host to be released
+     * if the host already has maxChannelsPerHost leases.
+     *
+     * @param connection host and credentials
+     * @param connectTimeout timeout to open a new session, in ms
+     * @return the lease, to be released once its channels are disconnected
+     */
+    public Lease acquire(SSHConnection connection, int connectTimeout) throws SSHException, InterruptedException {
+        Key key = new Key(connection);
+        HostSessions hostSessions;
+        synchronized (this) {
+            hostSessions = hosts.get(key);
+            if (hostSessions == null) {
+                hostSessions = new HostSessions();
+                hosts.put(key, hostSessions);
+            }
+            startEvictor();
+        }
+        hostSessions.permits.acquire();
+        leases.incrementAndGet();
+        try {
+            // callers to the same host wait for a session being opened rather than opening their own
+            synchronized (hostSessions) {
+                PooledSession pooled = leaseExisting(hostSessions);
+                if (pooled == null) {
+                    pooled = new PooledSession(openSession(connection, connectTimeout));
+                    pooled.leaseCount = 1;
+                    synchronized (this) {
+                        hostSessions.sessions.add(pooled);
+                    }
+                }
+                return new Lease(hostSessions, pooled);
+            }
+        } catch (RuntimeException e) {
+            hostSessions.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Leases an existing session with a free channel, checking its health if it was idle
+     */
+    private PooledSession leaseExisting(HostSessions hostSessions) {
+        while (true) {
+            PooledSession candidate = null;
+            synchronized (this) {
+                for (PooledSession pooled : hostSessions.sessions) {
+                    if (pooled.leaseCount < maxChannelsPerSession) {
+                        candidate = pooled;
+                        break;
+                    }
+                }
+                if (candidate == null) {
+                    return null;
+                }
+                candidate.leaseCount++;
+            }
+            if (isHealthy(candidate)) {
+                return candidate;
+            }
+            synchronized (this) {
+                candidate.leaseCount--;
+                hostSessions.sessions.remove(candidate);
+                if (candidate.leaseCount == 0) {
+                    candidate.session.disconnect();
+                }
+            }
+        }
+    }
+
+    private boolean isHealthy(PooledSession pooled) {
+        if (!pooled.session.isConnected()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - pooled.lastUsed > healthCheckInterval) {
+            try {
+                pooled.session.sendKeepAliveMsg();
+            } catch (Exception e) {
+                log.debug("SSH session to {} failed its health check", pooled.session.getHost(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected Session openSession(SSHConnection connection, int connectTimeout) throws SSHException {
+        try {
+            Session session = new JSch().getSession(connection.getUsername(), connection.getHost(), connection.getPort());
+            session.setPassword(connection.getPassword());
+            session.setUserInfo(new SSHUserInfo(connection.getPassword()));
+            Properties config = new Properties();
+            config.put("StrictHostKeyChecking", "no");
+            session.setConfig(config);
+            session.setTimeout(sessionTimeout);
+            session.connect(connectTimeout);
+            sessionsCreated.incrementAndGet();
+            log.debug("Opened pooled SSH session to {}@{}:{}", connection.getUsername(), connection.getHost(), connection.getPort());
+            return session;
+        } catch (JSchException e) {
+            throw new SSHException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the sessions idle for more than idleTimeout
+     */
+    synchronized void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Key, HostSessions> entry : hosts.entrySet()) {
+            Iterator<PooledSession> it = entry.getValue().sessions.iterator();
+            while (it.hasNext()) {
+                PooledSession pooled = it.next();
+                if (pooled.leaseCount == 0 && (now - pooled.lastUsed > idleTimeout || !pooled.session.isConnected())) {
+                    log.debug("Closing idle SSH session to {}", entry.getKey());
+                    pooled.session.disconnect();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes all the sessions that are not leased
+     */
+    public synchronized void close() {
+        for (HostSessions hostSessions : hosts.values()) {
+            Iterator<PooledSession> it = hostSessions.sessions.iterator();
+            while (it.hasNext()) {
+                PooledSession pooled = it.next();
+                if (pooled.leaseCount == 0) {
+                    pooled.session.disconnect();
+                }
+                it.remove();
+            }
+        }
+        hosts.clear();
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+    }
+
+    private void startEvictor() {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SSHSessionPoolEvictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evictIdleSessions();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to evict idle SSH sessions", e);
+                }
+            }
+        }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+}
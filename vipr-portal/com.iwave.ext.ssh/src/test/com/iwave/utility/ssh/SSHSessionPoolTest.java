@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018 EMC Corporation
+ * All Rights Reserved
+ */
+package com.iwave.utility.ssh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.server.Command;
+import org.apache.sshd.server.CommandFactory;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.PasswordAuthenticator;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.session.ServerSession;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.iwave.ext.command.CommandOutput;
+
+/**
+ * Runs commands against an embedded SSH server, which counts the authentications (one per
+ * handshake) and the commands running concurrently.
+ */
+public class SSHSessionPoolTest {
+    private static final String USERNAME = "user";
+    private static final String PASSWORD = "password";
+    private static final int COMMAND_COUNT = 20;
+    private static final int SLEEP_MILLIS = 300;
+
+    private SshServer sshd;
+    private SSHSessionPool pool;
+    private final AtomicInteger handshakes = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        sshd = SshServer.setUpDefaultServer();
+        sshd.setHost("localhost");
+        sshd.setPort(0);
+        sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        sshd.setPasswordAuthenticator(new PasswordAuthenticator() {
+            @Override
+            public boolean authenticate(String username, String password, ServerSession session) {
+                handshakes.incrementAndGet();
+                return USERNAME.equals(username) && PASSWORD.equals(password);
+            }
+        });
+        sshd.setCommandFactory(new CommandFactory() {
+            @Override
+            public Command createCommand(String command) {
+                return new TestCommand(command);
+            }
+        });
+        sshd.start();
+        pool = new SSHSessionPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        sshd.stop(true);
+    }
+
+    @Test
+    public void testSequentialCommands() throws Exception {
+        for (int i = 0; i < COMMAND_COUNT; i++) {
+            Assert.assertEquals("hello" + i, execute(createExecutor(null), "echo hello" + i).getStdout().trim());
+        }
+        int unpooled = handshakes.getAndSet(0);
+
+        for (int i = 0; i < COMMAND_COUNT; i++) {
+            Assert.assertEquals("hello" + i, execute(createExecutor(pool), "echo hello" + i).getStdout().trim());
+        }
+        int pooled = handshakes.get();
+
+        Assert.assertEquals(COMMAND_COUNT, unpooled);
+        Assert.assertEquals(1, pooled);
+        Assert.assertEquals(1, pool.getSessionsCreated());
+        Assert.assertEquals(COMMAND_COUNT, pool.getLeaseCount());
+    }
+
+    @Test
+    public void testConcurrentChannels() throws Exception {
+        pool.setMaxChannelsPerSession(4);
+        pool.setMaxChannelsPerHost(8);
+        List<CommandOutput> outputs = executeConcurrently(8);
+
+        for (CommandOutput output : outputs) {
+            Assert.assertEquals("done", output.getStdout().trim());
+        }
+        // commands multiplexed over at most two sessions, running concurrently
+        Assert.assertTrue(pool.getSessionsCreated() <= 2);
+        Assert.assertEquals(pool.getSessionsCreated(), handshakes.get());
+        Assert.assertTrue(maxRunning.get() > 1);
+    }
+
+    @Test
+    public void testHostConcurrencyLimit() throws Exception {
+        pool.setMaxChannelsPerHost(2);
+        List<CommandOutput> outputs = executeConcurrently(6);
+
+        Assert.assertEquals(6, outputs.size());
+        Assert.assertTrue(maxRunning.get() <= 2);
+        Assert.assertEquals(1, pool.getSessionsCreated());
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        execute(createExecutor(pool), "echo a");
+        pool.setIdleTimeout(0);
+        Thread.sleep(10);
+        pool.evictIdleSessions();
+
+        execute(createExecutor(pool), "echo b");
+        Assert.assertEquals(2, pool.getSessionsCreated());
+        Assert.assertEquals(2, handshakes.get());
+    }
+
+    @Test
+    public void testBrokenSession() throws Exception {
+        execute(createExecutor(pool), "echo a");
+        SSHSessionPool.Lease lease = pool.acquire(createConnection(), 0);
+        lease.getSession().disconnect();
+        lease.release();
+
+        // the disconnected session is replaced
+        Assert.assertEquals("b", execute(createExecutor(pool), "echo b").getStdout().trim());
+        Assert.assertEquals(2, pool.getSessionsCreated());
+    }
+
+    private List<CommandOutput> executeConcurrently(int count) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<CommandOutput>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executorService.submit(new Callable<CommandOutput>() {
+                    @Override
+                    public CommandOutput call() throws Exception {
+                        return execute(createExecutor(pool), "sleep");
+                    }
+                }));
+            }
+            List<CommandOutput> outputs = new ArrayList<>();
+            for (Future<CommandOutput> future : futures) {
+                outputs.add(future.get());
+            }
+            return outputs;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private SSHConnection createConnection() {
+        return new SSHConnection("localhost", sshd.getPort(), USERNAME, PASSWORD);
+    }
+
+    private SSHCommandExecutor createExecutor(SSHSessionPool sessionPool) {
+        SSHCommandExecutor executor = new SSHCommandExecutor(createConnection());
+        executor.setCommandTimeout(10);
+        executor.setSessionPool(sessionPool);
+        return executor;
+    }
+
+    private CommandOutput execute(SSHCommandExecutor executor, String commandLine) {
+        String[] args = commandLine.split(" ");
+        com.iwave.ext.command.Command command = new com.iwave.ext.command.Command(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            command.addArgument(args[i]);
+        }
+        return executor.executeCommand(command);
+    }
+
+    /**
+     * Echoes its arguments, or sleeps then prints "done"
+     */
+    private class TestCommand implements Command, Runnable {
+        private final String commandLine;
+        private OutputStream out;
+        private ExitCallback callback;
+
+        TestCommand(String commandLine) {
+            this.commandLine = commandLine;
+        }
+
+        @Override
+        public void setInputStream(InputStream in) {
+        }
+
+        @Override
+        public void setOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void setErrorStream(OutputStream err) {
+        }
+
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void start(Environment env) throws IOException {
+            new Thread(this).start();
+        }
+
+        @Override
+        public void run() {
+            int count = running.incrementAndGet();
+            synchronized (maxRunning) {
+                maxRunning.set(Math.max(maxRunning.get(), count));
+            }
+            int exitCode = 0;
+            try {
+                String output;
+                if (commandLine.startsWith("echo ")) {
+                    output = commandLine.substring("echo ".length());
+                } else {
+                    Thread.sleep(SLEEP_MILLIS);
+                    output = "done";
+                }
+                out.write((output + "\n").getBytes("UTF-8"));
+                out.flush();
+            } catch (Exception e) {
+                exitCode = 1;
+            } finally {
+                running.decrementAndGet();
+            }
+            callback.onExit(exitCode);
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
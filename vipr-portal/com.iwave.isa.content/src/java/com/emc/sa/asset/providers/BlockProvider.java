@@ -41,6 +41,7 @@ import com.emc.sa.asset.BaseAssetOptionsProvider;
 import com.emc.sa.asset.annotation.Asset;
 import com.emc.sa.asset.annotation.AssetDependencies;
 import com.emc.sa.asset.annotation.AssetNamespace;
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.emc.sa.machinetags.KnownMachineTags;
 import com.emc.sa.machinetags.MachineTagUtils;
 import com.emc.sa.service.vipr.block.BlockStorageUtils;
@@ -1733,6 +1734,7 @@ public class BlockProvider extends BaseAssetOptionsProvider {
     }
 
     @Asset("blockVirtualPool")
+    @CachedAsset(ttl = 15, invalidatedBy = "VirtualPool")
     public List<AssetOption> getBlockVirtualPools(AssetOptionsContext ctx) {
         debug("getting blockVirtualPools");
         return createBaseResourceOptions(api(ctx).blockVpools().getByTenant(ctx.getTenant()));
@@ -1754,6 +1756,7 @@ public class BlockProvider extends BaseAssetOptionsProvider {
      */
     @Asset("blockVirtualPool")
     @AssetDependencies({ "virtualArray" })
+    @CachedAsset(ttl = 15, invalidatedBy = "VirtualPool")
     public List<AssetOption> getVirtualPoolsForVirtualArray(AssetOptionsContext ctx, URI virtualArray) {
         debug("getting virtualPoolsForVirtualArray(virtualArray=%s)", virtualArray);
         List<BlockVirtualPoolRestRep> virtualPools = api(ctx).blockVpools().getByVirtualArrayAndTenant(virtualArray, ctx.getTenant());
@@ -1775,6 +1778,7 @@ public class BlockProvider extends BaseAssetOptionsProvider {
 
     @Asset("blockVolume")
     @AssetDependencies("project")
+    @CachedAsset(ttl = 15, invalidatedBy = "Volume")
     public List<AssetOption> getVolumes(AssetOptionsContext ctx, URI project) {
         debug("getting volumes (project=%s)", project);
         ViPRCoreClient client = api(ctx);
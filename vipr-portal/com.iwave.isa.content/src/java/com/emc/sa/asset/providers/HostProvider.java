@@ -16,6 +16,7 @@ import com.emc.sa.asset.AssetOptionsContext;
 import com.emc.sa.asset.annotation.Asset;
 import com.emc.sa.asset.annotation.AssetDependencies;
 import com.emc.sa.asset.annotation.AssetNamespace;
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.emc.sa.service.vipr.block.BlockStorageUtils;
 import com.emc.storageos.model.host.HostRestRep;
 import com.emc.vipr.client.ViPRCoreClient;
@@ -71,6 +72,7 @@ public class HostProvider extends BaseHostProvider {
     }
 
     @Asset("host")
+    @CachedAsset(ttl = 15, invalidatedBy = { "Host", "Cluster" })
     public List<AssetOption> getHostOptions(AssetOptionsContext context) {
         debug("getting hosts");
         return createHostOptions(context, getHosts(context));
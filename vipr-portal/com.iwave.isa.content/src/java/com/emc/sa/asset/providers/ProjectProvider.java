@@ -13,6 +13,7 @@ import com.emc.sa.asset.BaseAssetOptionsProvider;
 import com.emc.sa.asset.annotation.Asset;
 import com.emc.sa.asset.annotation.AssetDependencies;
 import com.emc.sa.asset.annotation.AssetNamespace;
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.emc.vipr.model.catalog.AssetOption;
 import com.google.common.collect.Lists;
 
@@ -20,6 +21,7 @@ import com.google.common.collect.Lists;
 @AssetNamespace("vipr")
 public class ProjectProvider extends BaseAssetOptionsProvider {
     @Asset("project")
+    @CachedAsset(ttl = 15, invalidatedBy = "Project")
     public List<AssetOption> getProjects(AssetOptionsContext ctx) {
         return createBaseResourceOptions(api(ctx).projects().getByTenant(ctx.getTenant()));
     }
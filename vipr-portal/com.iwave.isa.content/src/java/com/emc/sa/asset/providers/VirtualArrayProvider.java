@@ -20,6 +20,7 @@ import com.emc.sa.asset.BaseAssetOptionsProvider;
 import com.emc.sa.asset.annotation.Asset;
 import com.emc.sa.asset.annotation.AssetDependencies;
 import com.emc.sa.asset.annotation.AssetNamespace;
+import com.emc.sa.asset.annotation.CachedAsset;
 import com.emc.storageos.model.file.FileShareRestRep;
 import com.emc.storageos.model.file.policy.FilePolicyRestRep;
 import com.emc.storageos.model.ports.StoragePortRestRep;
@@ -38,6 +39,7 @@ import com.google.common.collect.Sets;
 @AssetNamespace("vipr")
 public class VirtualArrayProvider extends BaseAssetOptionsProvider {
     @Asset("virtualArray")
+    @CachedAsset(ttl = 15, invalidatedBy = "VirtualArray")
     public List<AssetOption> getVirtualArray(AssetOptionsContext ctx) {
         return createBaseResourceOptions(api(ctx).varrays().getByTenant(ctx.getTenant()));
     }
@@ -202,6 +204,7 @@ public class VirtualArrayProvider extends BaseAssetOptionsProvider {
     }
 
     @Asset("blockVirtualArray")
+    @CachedAsset(ttl = 15, invalidatedBy = { "VirtualArray", "VirtualPool" })
     public List<AssetOption> getBlockVirtualArrays(AssetOptionsContext context) {
         ViPRCoreClient client = api(context);
         // Get the set of virtual arrays that are associated with block vpools
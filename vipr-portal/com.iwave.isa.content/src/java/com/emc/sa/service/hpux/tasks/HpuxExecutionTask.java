@@ -13,6 +13,7 @@ import com.emc.sa.engine.ExecutionTask;
 import com.iwave.ext.linux.command.LinuxCommand;
 import com.iwave.ext.linux.command.LinuxResultsCommand;
 import com.iwave.utility.ssh.SSHCommandExecutor;
+import com.iwave.utility.ssh.SSHSessionPool;
 
 public abstract class HpuxExecutionTask<T> extends ExecutionTask<T> {
     /** No timeout. */
@@ -85,6 +86,7 @@ public abstract class HpuxExecutionTask<T> extends ExecutionTask<T> {
         SSHCommandExecutor executor = new SSHCommandExecutor(targetCLI.getHost(), targetCLI.getPort(),
                 targetCLI.getUsername(), targetCLI.getPassword());
         executor.setCommandTimeout(timeout);
+        executor.setSessionPool(SSHSessionPool.getInstance());
         return executor;
     }
 
@@ -11,6 +11,7 @@ import com.iwave.ext.linux.LinuxSystemCLI;
 import com.iwave.ext.linux.command.LinuxCommand;
 import com.iwave.ext.linux.command.LinuxResultsCommand;
 import com.iwave.utility.ssh.SSHCommandExecutor;
+import com.iwave.utility.ssh.SSHSessionPool;
 
 public abstract class LinuxExecutionTask<T> extends ExecutionTask<T> {
     /** No timeout. */
@@ -58,6 +59,7 @@ public abstract class LinuxExecutionTask<T> extends ExecutionTask<T> {
         SSHCommandExecutor executor = new SSHCommandExecutor(targetCLI.getHost(), targetCLI.getPort(),
                 targetCLI.getUsername(), targetCLI.getPassword());
         executor.setCommandTimeout(timeout);
+        executor.setSessionPool(SSHSessionPool.getInstance());
         return executor;
     }
 
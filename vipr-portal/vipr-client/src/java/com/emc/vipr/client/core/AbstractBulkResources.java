@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import javax.ws.rs.core.UriBuilder;
+
 import com.emc.storageos.model.BulkIdParam;
 import com.emc.storageos.model.DataObjectRestRep;
 import com.emc.storageos.model.RelatedResourceRep;
@@ -28,6 +30,9 @@ import com.emc.vipr.client.impl.RestClient;
 public abstract class AbstractBulkResources<T extends DataObjectRestRep> extends AbstractResources<T> implements
         BulkResources<T> {
 
+    private static final String MAX_COUNT_PARAM = "max_count";
+    private static final String CONTINUATION_PARAM = "continuation";
+
     public AbstractBulkResources(RestClient client, Class<T> resourceClass, String baseUrl) {
         super(client, resourceClass, baseUrl);
     }
@@ -51,6 +56,43 @@ public abstract class AbstractBulkResources<T extends DataObjectRestRep> extends
         return response.getIds();
     }
 
+    /**
+     * Lists one page of the IDs of the resources. The next IDs are listed by passing the continuation token
+     * of the page to the next call.
+     * 
+     * @param maxCount
+     *            the maximum number of IDs of the page.
+     * @param continuation
+     *            the continuation token of the previous page, or null for the first page.
+     * @return the IDs of the page, with the continuation token of the next page if any.
+     */
+    public BulkIdParam listBulkIdsPage(int maxCount, String continuation) {
+        UriBuilder builder = client.uriBuilder(getBulkUrl());
+        builder.queryParam(MAX_COUNT_PARAM, maxCount);
+        if (continuation != null) {
+            builder.queryParam(CONTINUATION_PARAM, continuation);
+        }
+        return client.resource(builder.build()).get(BulkIdParam.class);
+    }
+
+    /**
+     * Lists the IDs of all the resources, fetching them one page at a time.
+     * 
+     * @param pageSize
+     *            the number of IDs fetched per call.
+     * @return the IDs of the resources.
+     */
+    public List<URI> listBulkIdsInPages(int pageSize) {
+        List<URI> ids = new ArrayList<URI>();
+        String continuation = null;
+        do {
+            BulkIdParam page = listBulkIdsPage(pageSize, continuation);
+            ids.addAll(page.getIds());
+            continuation = page.getContinuation();
+        } while (continuation != null);
+        return ids;
+    }
+
     @Override
     public List<T> getByIds(Collection<URI> ids, ResourceFilter<T> filter) {
         List<T> results = new ArrayList<T>();
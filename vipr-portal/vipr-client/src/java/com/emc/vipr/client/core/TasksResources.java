@@ -7,6 +7,7 @@ package com.emc.vipr.client.core;
 import static com.emc.vipr.client.core.util.ResourceUtils.defaultList;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +42,8 @@ public class TasksResources extends AbstractBulkResources<TaskResourceRep> {
     public static final String START_TIME_PARAM = "startTime";
     public static final String END_TIME_PARAM = "endTime";
     public static final String STATE_PARAM = "state";
+    public static final String CONTINUATION_PARAM = "continuation";
+    public static final String PAGED_PARAM = "paged";
 
     public static enum State {
         PENDING("pending"),
@@ -104,6 +107,35 @@ public class TasksResources extends AbstractBulkResources<TaskResourceRep> {
      * @param endTime End time in milliseconds (Null if not required)
      */
     public List<NamedRelatedResourceRep> listByTenant(URI tenantId, int maxCount, Long startTime, Long endTime) {
+        URI uri = getTenantTasksUriBuilder(tenantId, maxCount, startTime, endTime).build();
+        return client.resource(uri).get(TasksList.class).getTasks();
+    }
+
+    /**
+     * List one page of the tasks for a specific tenant (use {@link #SYSTEM_TENANT} for System level tasks) that were
+     * started between startTime and endTime. Tasks are returned in the order of their ids, the next tasks are listed
+     * by passing the continuation token of the page to the next call, with the same other arguments.
+     * 
+     * @param tenantId The tenant tasks are required for
+     * @param maxCount Number of tasks of the page, at most 10000
+     * @param startTime Time in milliseconds (Null if not required)
+     * @param endTime End time in milliseconds (Null if not required)
+     * @param continuation Continuation token of the previous page (Null for the first page)
+     * @return the tasks of the page, with the continuation token of the next page if any
+     */
+    public TasksList listPageByTenant(URI tenantId, int maxCount, Long startTime, Long endTime, String continuation) {
+        UriBuilder builder = getTenantTasksUriBuilder(tenantId, maxCount, startTime, endTime);
+        builder.queryParam(PAGED_PARAM, true);
+
+        if (continuation != null) {
+            builder.queryParam(CONTINUATION_PARAM, continuation);
+        }
+
+        URI uri = builder.build();
+        return client.resource(uri).get(TasksList.class);
+    }
+
+    private UriBuilder getTenantTasksUriBuilder(URI tenantId, int maxCount, Long startTime, Long endTime) {
         UriBuilder builder = client.uriBuilder(baseUrl);
         addTenant(builder, tenantId);
         builder.queryParam(MAX_COUNT_PARAM, maxCount);
@@ -115,9 +147,25 @@ public class TasksResources extends AbstractBulkResources<TaskResourceRep> {
         if (endTime != null) {
             builder.queryParam(END_TIME_PARAM, endTime);
         }
+        return builder;
+    }
 
-        URI uri = builder.build();
-        return client.resource(uri).get(TasksList.class).getTasks();
+    /**
+     * List ALL tasks for a specific tenant (use {@link #SYSTEM_TENANT} for System level tasks), fetching them
+     * one page at a time so that the server never holds more than one page of tasks.
+     * 
+     * @param tenantId The tenant tasks are required for
+     * @param pageSize Number of tasks fetched per call, at most 10000
+     */
+    public List<NamedRelatedResourceRep> listByTenantInPages(URI tenantId, int pageSize) {
+        List<NamedRelatedResourceRep> tasks = new ArrayList<NamedRelatedResourceRep>();
+        String continuation = null;
+        do {
+            TasksList page = listPageByTenant(tenantId, pageSize, null, null, continuation);
+            tasks.addAll(page.getTasks());
+            continuation = page.getContinuation();
+        } while (continuation != null);
+        return tasks;
     }
 
     public List<TaskResourceRep> findByResource(URI resourceId) {